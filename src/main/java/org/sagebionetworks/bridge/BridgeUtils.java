@@ -75,11 +75,15 @@ import org.sagebionetworks.bridge.models.apps.PasswordPolicy;
 import org.sagebionetworks.bridge.models.schedules.Activity;
 import org.sagebionetworks.bridge.models.schedules.ActivityType;
 import org.sagebionetworks.bridge.models.studies.Enrollment;
+import org.sagebionetworks.bridge.models.templates.CompiledTemplate;
 import org.sagebionetworks.bridge.models.templates.TemplateType;
 import org.sagebionetworks.bridge.services.RequestInfoService;
 import org.springframework.core.annotation.AnnotationUtils;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.amazonaws.util.Throwables;
 import com.fasterxml.jackson.databind.JsonMappingException;
@@ -121,6 +125,8 @@ public class BridgeUtils {
     private static final int ONE_MINUTE = 60;
     
     public static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    /** S3 DeleteObjects accepts at most this many keys per request. */
+    public static final int S3_DELETE_BATCH_SIZE = 1000;
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
     private static final StudyAssociations NO_ASSOCIATIONS = new StudyAssociations(ImmutableSet.of(),
             ImmutableMap.of());
@@ -366,7 +372,8 @@ public class BridgeUtils {
     /**
      * A simple means of providing template variables in template strings, in the format <code>${variableName}</code>.
      * This value will be replaced with the value of the variable name. The variable name/value pairs are passed to the
-     * method as a map. Variables that are not found in the map will be left in the string as is.
+     * method as a map. Variables that are not found in the map will be left in the string as is. Templates that are
+     * rendered repeatedly should be compiled once with {@link CompiledTemplate#compile(String)} instead.
      *
      * @see <a href="https://sagebionetworks.jira.com/wiki/display/BRIDGE/EmailTemplate"></a>
      * 
@@ -378,13 +385,7 @@ public class BridgeUtils {
         checkNotNull(template);
         checkNotNull(values);
         
-        for (Map.Entry<String,String> entry : values.entrySet()) {
-            if (entry.getValue() != null) {
-                String var = "${"+entry.getKey()+"}";
-                template = template.replace(var, entry.getValue());
-            }
-        }
-        return template;
+        return CompiledTemplate.compile(template).render(values);
     }
     
     public static String generateGuid() {
@@ -435,6 +436,26 @@ public class BridgeUtils {
             throw new BridgeServiceException(Joiner.on(", ").join(messages));
         }
     }
+
+    /**
+     * Deletes the given keys from an S3 bucket with one DeleteObjects request per S3_DELETE_BATCH_SIZE keys, rather
+     * than a request per key. As with deleteObject, keys that don't exist are not an error. If any key can't be
+     * deleted, this throws a BridgeServiceException listing the keys that failed in that batch.
+     */
+    public static void deleteS3Objects(AmazonS3 s3Client, String bucket, List<String> keys) {
+        for (List<String> batch : Lists.partition(keys, S3_DELETE_BATCH_SIZE)) {
+            DeleteObjectsRequest request = new DeleteObjectsRequest(bucket)
+                    .withKeys(batch.toArray(new String[0])).withQuiet(true);
+            try {
+                s3Client.deleteObjects(request);
+            } catch (MultiObjectDeleteException ex) {
+                List<String> messages = ex.getErrors().stream()
+                        .map(error -> error.getKey() + ": " + error.getMessage()).collect(toList());
+                throw new BridgeServiceException("Error deleting objects from S3 bucket " + bucket + ": " +
+                        SEMICOLON_SPACE_JOINER.join(messages));
+            }
+        }
+    }
     
     public static boolean isEmpty(Collection<?> coll) {
         return (coll == null || coll.isEmpty());
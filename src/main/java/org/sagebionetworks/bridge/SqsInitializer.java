@@ -20,7 +20,7 @@ import org.sagebionetworks.bridge.config.BridgeConfig;
 public class SqsInitializer {
     private static final Logger LOG = LoggerFactory.getLogger(SqsInitializer.class);
 
-    static final String CONFIG_KEY_DEAD_LETTER_QUEUE_ARN = "dead.letter.queue.arn";
+    public static final String CONFIG_KEY_DEAD_LETTER_QUEUE_ARN = "dead.letter.queue.arn";
     static final String POLICY_SNS_ALLOWED = "{\n" +
             "  \"Statement\": [{\n" +
             "    \"Sid\": \"Allow-SNS-SendMessage\",\n" +
@@ -0,0 +1,62 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.sagebionetworks.bridge.redis.JedisOps;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Transaction;
+
+/**
+ * JedisOps with the Redis operations that CacheProvider needs and JedisOps doesn't have: binary values,
+ * transactions that write them, and MGET. Every operation borrows a connection from the pool and returns it, like the
+ * operations of JedisOps.
+ */
+public class BridgeJedisOps extends JedisOps {
+    private final JedisPool jedisPool;
+
+    public BridgeJedisOps(JedisPool jedisPool) {
+        super(jedisPool);
+        this.jedisPool = checkNotNull(jedisPool);
+    }
+
+    /** Get the value of a key as stored, or null if the key doesn't exist. */
+    public byte[] getBytes(String key) {
+        checkNotNull(key);
+        return execute(jedis -> jedis.get(key.getBytes(UTF_8)));
+    }
+
+    /**
+     * Get the values of several keys in one round trip. The values are in the same order as the keys, with null 
+     * for any key that doesn't exist.
+     */
+    public List<String> mget(String... keys) {
+        checkNotNull(keys);
+        return execute(jedis -> jedis.mget(keys));
+    }
+
+    /**
+     * Run the commands in one MULTI/EXEC transaction. Returns the results of the commands, in order, or null if
+     * the transaction was aborted.
+     */
+    public List<Object> transaction(Consumer<Transaction> commands) {
+        checkNotNull(commands);
+        return execute(jedis -> {
+            Transaction transaction = jedis.multi();
+            commands.accept(transaction);
+            return transaction.exec();
+        });
+    }
+
+    private <T> T execute(Function<Jedis, T> operation) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return operation.apply(jedis);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.sagebionetworks.bridge.models.ThrottleRequestType;
 import org.sagebionetworks.bridge.models.accounts.Phone;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
+import org.sagebionetworks.bridge.models.templates.TemplateType;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
@@ -33,6 +34,12 @@ public final class CacheKey {
     public static final CacheKey etag(Class<?> model, String... keys) {
         return new CacheKey(COLON_JOINER.join(keys), model.getSimpleName(), "Etag");
     }
+    public static final CacheKey study(String appId, String studyId) {
+        return new CacheKey(studyId, appId, "Study");
+    }
+    public static final CacheKey studyIdList(String appId) {
+        return new CacheKey(appId, "StudyIdList");
+    }
     public static final CacheKey publicStudy(String appId, String studyId) {
         return new CacheKey(appId, studyId, "PublicStudy");
     }
@@ -42,6 +49,19 @@ public final class CacheKey {
     public static final CacheKey orgSponsoredStudies(String appId, String orgId) {
         return new CacheKey(orgId, appId, "OrgSponsoredStudies");
     }
+    /**
+     * The total count of accounts matching a participant search, keyed by a hash of the search query 
+     * and its parameters.
+     */
+    public static final CacheKey accountSummaryCount(String appId, String queryHash) {
+        return new CacheKey(queryHash, appId, "AccountSummaryCount");
+    }
+    /**
+     * Progress of deleting an account and its participant data.
+     */
+    public static final CacheKey accountDeletionJob(String appId, String userId) {
+        return new CacheKey(userId, appId, "AccountDeletionJob");
+    }
     public static final CacheKey tagList() {
         return new CacheKey("TagList");
     }
@@ -89,6 +109,10 @@ public final class CacheKey {
     public static final CacheKey passwordResetForPhone(String sptoken, String appId) { 
         return new CacheKey(sptoken, "phone", appId); // no type, not great
     }
+    /** The fingerprint of the latest participant version for a health code. Internal, not returned by the API. */
+    public static final CacheKey participantVersionFingerprint(String appId, String healthCode) {
+        return new CacheKey(healthCode, appId, "ParticipantVersionFingerprint");
+    }
     public static final CacheKey phoneSignInRequest(SignIn signIn) {
         return new CacheKey(signIn.getPhone().getNumber(), signIn.getAppId(),"phoneSignInRequest");
     }
@@ -101,15 +125,32 @@ public final class CacheKey {
     public static final CacheKey subpop(SubpopulationGuid subpopGuid, String appId) {
         return new CacheKey(subpopGuid.getGuid(), appId, "Subpopulation");
     }
+    public static final CacheKey uploadSchemaRevision(String appId, String schemaId, int revision) {
+        return new CacheKey(schemaId, Integer.toString(revision), appId, "UploadSchemaRevision");
+    }
+    public static final CacheKey publishedSurvey(String appId, String surveyGuid, long createdOn) {
+        return new CacheKey(surveyGuid, Long.toString(createdOn), appId, "PublishedSurvey");
+    }
     public static final CacheKey subpopList(String appId) {
         return new CacheKey(appId, "SubpopulationList");
     }
+    /** The templates of one type in an app. Only held in the near cache, as a criteria index. */
+    public static final CacheKey templateList(String appId, TemplateType type) {
+        return new CacheKey(type.name(), appId, "TemplateList");
+    }
+    /** A template revision, including its document content. Revisions are immutable once created. */
+    public static final CacheKey templateRevision(String templateGuid, long createdOn) {
+        return new CacheKey(templateGuid, Long.toString(createdOn), "TemplateRevision");
+    }
     public static final CacheKey userIdToSession(String userId) {
         return new CacheKey(userId, "session2", "user");
     }
     public static final CacheKey tokenToUserId(String sessionToken) {
         return new CacheKey(sessionToken, "session2");
     }
+    public static final CacheKey tokenToSession(String sessionToken) {
+        return new CacheKey(sessionToken, "session2", "token");
+    }
     
     public static final CacheKey verificationToken(String sptoken) {
         return new CacheKey(sptoken); // no type, not great
@@ -121,6 +162,14 @@ public final class CacheKey {
         return new CacheKey(COLON_JOINER.join(list));
     }
     
+    /**
+     * Recreate a key from its string form, e.g. when it is received in a near cache invalidation message, or when 
+     * an administrator removes it from the cache.
+     */
+    public static final CacheKey fromString(String key) {
+        return new CacheKey(key);
+    }
+    
     private static final Joiner COLON_JOINER = Joiner.on(":");
     
     private final String key;
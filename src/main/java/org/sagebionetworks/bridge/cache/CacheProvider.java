@@ -1,13 +1,16 @@
 package org.sagebionetworks.bridge.cache;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
 import javax.annotation.Resource;
 
 import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
@@ -15,34 +18,63 @@ import org.sagebionetworks.bridge.models.RequestInfo;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.apps.App;
-import org.sagebionetworks.bridge.redis.JedisOps;
 import org.sagebionetworks.bridge.redis.JedisTransaction;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
 
 /**
- * A wrapper around our use of Redis.
+ * A wrapper around our use of Redis. Apps and sessions, which are read on nearly every request, are also 
+ * held in bounded in-process near caches when these are enabled (see {@link NearCacheManager}).
  */
 @Component
 public class CacheProvider {
     private static final String LOCAL_SERVICE_ERROR = "Cannot find cache service, have you started Redis? (original message: %s)";
-    private JedisOps jedisOps;
+    static final String SESSION_STORAGE_FORMAT_PROPERTY = "session.storage.format";
+    static final String COMPACT_SESSION_FORMAT = "compact";
+    
+    private BridgeJedisOps jedisOps;
+    private boolean compactSessions;
     private int sessionExpireInSeconds;
+    private NearCacheManager nearCacheManager;
+    private NearCache<String> appNearCache;
+    private NearCache<UserSession> sessionNearCache;
+    private NearCache<String> sessionTokenNearCache;
 
     @Resource(name = "jedisOps")
-    final void setJedisOps(JedisOps jedisOps) {
+    final void setJedisOps(BridgeJedisOps jedisOps) {
         this.jedisOps = jedisOps;
     }
+    
+    /**
+     * Sessions are stored as JSON unless session.storage.format is "compact". Either format can be read 
+     * in compact mode, so it can be enabled without signing users out, but only after every node is 
+     * running code that can read the compact format.
+     */
+    @Autowired
+    final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        this.compactSessions = COMPACT_SESSION_FORMAT.equals(bridgeConfig.get(SESSION_STORAGE_FORMAT_PROPERTY));
+    }
 
     @Resource(name = "sessionExpireInSeconds")
     final void setSessionExpireInSeconds(@SuppressWarnings("SameParameterValue") int sessionExpireInSeconds) {
         this.sessionExpireInSeconds = sessionExpireInSeconds;
     }
     
+    @Autowired
+    final void setNearCacheManager(NearCacheManager nearCacheManager) {
+        this.nearCacheManager = nearCacheManager;
+        // These are null if near caching is disabled.
+        this.appNearCache = nearCacheManager.createNearCache("App");
+        this.sessionNearCache = nearCacheManager.createNearCache("UserSession");
+        this.sessionTokenNearCache = nearCacheManager.createNearCache("SessionToken");
+    }
+    
     /**
      * Take existing data in the request info object and augment with any new information 
      * in the request info object passed as a parameter, then persist that. Different calls
@@ -82,67 +114,115 @@ public class CacheProvider {
         return getObject(redisKey, RequestInfo.class);
     }
 
+    /**
+     * In compact mode the session is also stored under its token, so {@link #getUserSession(String)} can read 
+     * it in one round trip. A new sign in replaces the user's session under a new token, so the copy stored 
+     * under the previous token is deleted in the same transaction.
+     */
     public void setUserSession(UserSession session) {
         checkNotNull(session);
         checkNotNull(session.getSessionToken());
         checkNotNull(session.getId());
         
         CacheKey tokenToUserIdKey = CacheKey.tokenToUserId(session.getSessionToken());
+        CacheKey tokenToSessionKey = CacheKey.tokenToSession(session.getSessionToken());
         CacheKey userIdToSessionKey = CacheKey.userIdToSession(session.getId());
         
-        try (JedisTransaction transaction = jedisOps.getTransaction()) {
+        try {
             // If the key exists, get the remaining time to expiration. If it doesn't exist
             // then save with the full expiration period.
             Long ttl = jedisOps.ttl(userIdToSessionKey.toString());
             int expiration = (ttl != null && ttl > 0L) ? ttl.intValue() : sessionExpireInSeconds;
-                   
-            String ser = StudyParticipant.CACHE_WRITER.writeValueAsString(session);
-            
-            List<Object> results = transaction
-                .setex(tokenToUserIdKey.toString(), expiration, session.getId())
-                .setex(userIdToSessionKey.toString(), expiration, ser)
-                .exec();
             
+            List<Object> results;
+            if (compactSessions) {
+                byte[] ser = CompactSessionCodec.encode(session);
+                UserSession previous = deserializeSession(jedisOps.getBytes(userIdToSessionKey.toString()));
+                String previousToken = (previous == null) ? null : previous.getSessionToken();
+                
+                results = jedisOps.transaction(transaction -> {
+                    transaction.setex(keyBytes(tokenToUserIdKey), expiration, session.getId().getBytes(UTF_8));
+                    transaction.setex(keyBytes(userIdToSessionKey), expiration, ser);
+                    transaction.setex(keyBytes(tokenToSessionKey), expiration, ser);
+                    if (previousToken != null && !previousToken.equals(session.getSessionToken())) {
+                        transaction.del(CacheKey.tokenToSession(previousToken).toString());
+                    }
+                });
+            } else {
+                String ser = StudyParticipant.CACHE_WRITER.writeValueAsString(session);
+                // Remove any copy stored under the token while compact mode was enabled.
+                try (JedisTransaction transaction = jedisOps.getTransaction()) {
+                    results = transaction
+                        .setex(tokenToUserIdKey.toString(), expiration, session.getId())
+                        .setex(userIdToSessionKey.toString(), expiration, ser)
+                        .del(tokenToSessionKey.toString())
+                        .exec();
+                }
+            }
+            // DEL commands return counts, so only the SETEX results are checked.
             if (results == null) {
                 throw new BridgeServiceException("Session storage error.");
             }
             for (Object result : results) {
-                if (!"OK".equals(result)) {
+                if (result instanceof String && !"OK".equals(result)) {
                     throw new BridgeServiceException("Session storage error.");
                 }
             }
         } catch (Throwable e) {
             promptToStartRedisIfLocal(e);
             throw new BridgeServiceException(e);
+        } finally {
+            invalidateNearCache(userIdToSessionKey);
         }
-
     }
     
     public UserSession getUserSession(String sessionToken) {
         checkNotNull(sessionToken);
         try {
             CacheKey tokenToUserIdKey = CacheKey.tokenToUserId(sessionToken);
-            String userId = jedisOps.get(tokenToUserIdKey.toString());
-            if (userId != null) {
-                CacheKey userIdToSessionKey = CacheKey.userIdToSession(userId);
-                String ser = jedisOps.get(userIdToSessionKey.toString());
-                if (ser != null) {
-                    JsonNode node = adjustJsonWithStudyIdentifier(ser);
-                    UserSession session = BridgeObjectMapper.get().treeToValue(node,  UserSession.class);
-                    
-                    // The token --> userId look up is not replaced on session invalidation. 
-                    // Check here and only return if the sessionToken is valid. It is possible 
-                    // to successfully sign in and then have this fail due to concurrent requests.
-                    // The client needs to manage concurrent requests if it doesn't want to 
-                    // invalidate its own session.
-                    if (session.getSessionToken().equals(sessionToken)) {
-                        return session;
+            if (sessionNearCache != null) {
+                String userId = sessionTokenNearCache.get(tokenToUserIdKey);
+                if (userId != null) {
+                    UserSession session = sessionNearCache.get(CacheKey.userIdToSession(userId));
+                    if (session != null && session.getSessionToken().equals(sessionToken)) {
+                        return copyOf(session);
                     }
-                    // Otherwise, delete the key sessionToken key (it's known to be invalid)
-                    removeObject(tokenToUserIdKey);
                 }
             }
-            return null;
+            long generation = (sessionNearCache != null) ? sessionNearCache.getGeneration() : 0L;
+            
+            // Sessions stored in compact mode are read in one round trip. Sessions stored before compact 
+            // mode was enabled are only found through the token --> userId look up.
+            UserSession session = null;
+            if (compactSessions) {
+                session = deserializeSession(jedisOps.getBytes(CacheKey.tokenToSession(sessionToken).toString()));
+            }
+            if (session == null) {
+                String userId = jedisOps.get(tokenToUserIdKey.toString());
+                if (userId == null) {
+                    return null;
+                }
+                session = deserializeSession(jedisOps.getBytes(CacheKey.userIdToSession(userId).toString()));
+                if (session == null) {
+                    return null;
+                }
+            }
+            // The token --> userId look up is not replaced on session invalidation. 
+            // Check here and only return if the sessionToken is valid. It is possible 
+            // to successfully sign in and then have this fail due to concurrent requests.
+            // The client needs to manage concurrent requests if it doesn't want to 
+            // invalidate its own session.
+            if (!session.getSessionToken().equals(sessionToken)) {
+                // Otherwise, delete the key sessionToken key (it's known to be invalid)
+                removeObject(tokenToUserIdKey);
+                return null;
+            }
+            if (sessionNearCache != null) {
+                sessionTokenNearCache.put(tokenToUserIdKey, session.getId(), generation);
+                sessionNearCache.put(CacheKey.userIdToSession(session.getId()), session, generation);
+                return copyOf(session);
+            }
+            return session;
         } catch (Throwable e) {
             promptToStartRedisIfLocal(e);
             throw new BridgeServiceException(e);
@@ -154,18 +234,65 @@ public class CacheProvider {
         
         try {
             CacheKey userIdToSessionKey = CacheKey.userIdToSession(userId);
-            String ser = jedisOps.get(userIdToSessionKey.toString());
-            if (ser == null) {
+            if (sessionNearCache != null) {
+                UserSession session = sessionNearCache.get(userIdToSessionKey);
+                if (session != null) {
+                    return copyOf(session);
+                }
+            }
+            long generation = (sessionNearCache != null) ? sessionNearCache.getGeneration() : 0L;
+            UserSession session = deserializeSession(jedisOps.getBytes(userIdToSessionKey.toString()));
+            if (session == null) {
                 return null;
             }
-            JsonNode node = adjustJsonWithStudyIdentifier(ser);
-            return BridgeObjectMapper.get().treeToValue(node,  UserSession.class);
+            if (sessionNearCache != null) {
+                sessionNearCache.put(userIdToSessionKey, session, generation);
+                return copyOf(session);
+            }
+            return session;
         } catch(Throwable e) {
             promptToStartRedisIfLocal(e);
             throw new BridgeServiceException(e);
         }
     }
 
+    /**
+     * Sessions are read in the compact format if they were stored that way, or from JSON if they were stored 
+     * before the compact format was enabled (or after it was disabled).
+     */
+    private UserSession deserializeSession(byte[] ser) throws Exception {
+        if (ser == null) {
+            return null;
+        }
+        if (CompactSessionCodec.isCompact(ser)) {
+            return CompactSessionCodec.decode(ser);
+        }
+        JsonNode node = adjustJsonWithStudyIdentifier(new String(ser, UTF_8));
+        return BridgeObjectMapper.get().treeToValue(node, UserSession.class);
+    }
+    
+    private static byte[] keyBytes(CacheKey cacheKey) {
+        return cacheKey.toString().getBytes(UTF_8);
+    }
+    
+    /**
+     * Sessions are mutable, so callers never receive the instance held in the near cache. A shallow copy
+     * is sufficient because the participant and consent statuses are immutable. The reauth token is not 
+     * copied, since it is never persisted with the session.
+     */
+    private UserSession copyOf(UserSession session) {
+        UserSession copy = new UserSession(session.getParticipant());
+        copy.setAuthenticated(session.isAuthenticated());
+        copy.setSynapseAuthenticated(session.isSynapseAuthenticated());
+        copy.setEnvironment(session.getEnvironment());
+        copy.setIpAddress(session.getIpAddress());
+        copy.setSessionToken(session.getSessionToken());
+        copy.setInternalSessionToken(session.getInternalSessionToken());
+        copy.setAppId(session.getAppId());
+        copy.setConsentStatuses(session.getConsentStatuses());
+        return copy;
+    }
+    
     /**
      * During a transition period away from appId, we will need special handling to
      * ensure persisted sessions, subpopulations, and subpopulation lists are deserialized 
@@ -218,12 +345,15 @@ public class CacheProvider {
             try (JedisTransaction transaction = jedisOps.getTransaction()) {
                 transaction
                     .del(tokenToUserIdKey.toString())
+                    .del(CacheKey.tokenToSession(session.getSessionToken()).toString())
                     .del(userIdToSessionKey.toString())
                     .exec();
             }
         } catch(Throwable e) {
             promptToStartRedisIfLocal(e);
             throw new BridgeServiceException(e);
+        } finally {
+            invalidateNearCache(userIdToSessionKey);
         }
     }
     
@@ -239,19 +369,55 @@ public class CacheProvider {
     public void setApp(App app) {
         checkNotNull(app);
         CacheKey redisKey = CacheKey.app(app.getIdentifier());
-        setObject(redisKey, app, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+        try {
+            setObject(redisKey, app, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+        } finally {
+            invalidateNearCache(redisKey);
+        }
     }
 
+    /**
+     * Apps are mutable and callers do modify them, so the near cache holds the serialized app and each 
+     * call still deserializes a new instance; only the Redis round trips are saved.
+     */
     public App getApp(String appId) {
         checkNotNull(appId);
         CacheKey redisKey = CacheKey.app(appId);
-        return getObject(redisKey, App.class, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+        if (appNearCache == null) {
+            return getObject(redisKey, App.class, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+        }
+        try {
+            String ser = appNearCache.get(redisKey);
+            if (ser == null) {
+                long generation = appNearCache.getGeneration();
+                ser = jedisOps.get(redisKey.toString());
+                if (ser == null) {
+                    return null;
+                }
+                jedisOps.expire(redisKey.toString(), BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+                appNearCache.put(redisKey, ser, generation);
+            }
+            return BridgeObjectMapper.get().readValue(ser, App.class);
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
     }
 
     public void removeApp(String appId) {
         checkNotNull(appId);
         CacheKey redisKey = CacheKey.app(appId);
-        removeObject(redisKey);
+        try {
+            removeObject(redisKey);
+        } finally {
+            invalidateNearCache(redisKey);
+        }
+    }
+    
+    private void invalidateNearCache(CacheKey cacheKey) {
+        if (nearCacheManager != null) {
+            nearCacheManager.invalidate(cacheKey);
+        }
     }
 
     public <T> T getObject(CacheKey cacheKey, Class<T> clazz) {
@@ -270,6 +436,38 @@ public class CacheProvider {
         return null;
     }
     
+    /**
+     * Get several objects of the same type in one round trip (a Redis MGET). The returned list is in the same 
+     * order as the keys, with null for any key that has no value.
+     */
+    public <T> List<T> getObjects(List<CacheKey> cacheKeys, Class<T> clazz) {
+        checkNotNull(cacheKeys);
+        checkNotNull(clazz);
+        if (cacheKeys.isEmpty()) {
+            return ImmutableList.of();
+        }
+        String[] keys = new String[cacheKeys.size()];
+        for (int i=0; i < keys.length; i++) {
+            keys[i] = cacheKeys.get(i).toString();
+        }
+        try {
+            List<String> values = jedisOps.mget(keys);
+            List<T> results = new ArrayList<>(keys.length);
+            for (String ser : values) {
+                if (ser == null) {
+                    results.add(null);
+                } else {
+                    JsonNode node = adjustJsonWithStudyIdentifier(ser);
+                    results.add(BridgeObjectMapper.get().treeToValue(node, clazz));
+                }
+            }
+            return results;
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
     public <T> T getObject(CacheKey cacheKey, TypeReference<T> typeRef) {
         checkNotNull(cacheKey);
         checkNotNull(typeRef);
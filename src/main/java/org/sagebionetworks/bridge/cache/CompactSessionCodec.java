@@ -0,0 +1,62 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Encodes user sessions for Redis in a compact, versioned binary format: a two-byte header (a marker byte
+ * and a format version) followed by the session in Jackson's binary Smile encoding. Like the JSON format,
+ * the participant's health code is stored encrypted, and it is only decrypted if it is requested from the
+ * deserialized session. Sessions stored in the older JSON format can be recognized with {@link #isCompact},
+ * so they can still be read after this format is enabled.
+ */
+public final class CompactSessionCodec {
+
+    /** Cannot be the first byte of a JSON document. */
+    static final byte MARKER = (byte)0xB5;
+    static final byte VERSION = 1;
+
+    private static final ObjectMapper SMILE_MAPPER = new BridgeObjectMapper(new SmileFactory());
+
+    private static final ObjectWriter SMILE_CACHE_WRITER = SMILE_MAPPER.writer(new SimpleFilterProvider()
+            .addFilter("filter", SimpleBeanPropertyFilter.serializeAllExcept("healthCode")));
+
+    private CompactSessionCodec() {
+    }
+
+    public static boolean isCompact(byte[] bytes) {
+        return bytes != null && bytes.length > 2 && bytes[0] == MARKER;
+    }
+
+    public static byte[] encode(UserSession session) throws IOException {
+        checkNotNull(session);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(512);
+        baos.write(MARKER);
+        baos.write(VERSION);
+        SMILE_CACHE_WRITER.writeValue(baos, session);
+        return baos.toByteArray();
+    }
+
+    public static UserSession decode(byte[] bytes) throws IOException {
+        if (!isCompact(bytes)) {
+            throw new IllegalArgumentException("Not a compact session encoding");
+        }
+        byte version = bytes[1];
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported compact session version: " + version);
+        }
+        return SMILE_MAPPER.readValue(bytes, 2, bytes.length-2, UserSession.class);
+    }
+}
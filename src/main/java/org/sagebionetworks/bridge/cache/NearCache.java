@@ -0,0 +1,87 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A bounded, in-process cache that sits in front of Redis for objects that are read on nearly every
+ * request (apps and sessions). Entries are evicted by size and by a short time-to-live, so that even if
+ * a cross-node invalidation message is lost, a node will not serve a stale value for longer than the
+ * TTL. Invalidation across nodes is handled by the {@link NearCacheManager}.
+ */
+public class NearCache<V> {
+
+    private final String name;
+    private final Cache<CacheKey, V> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public NearCache(String name, long maximumSize, int expireInSeconds) {
+        this.name = checkNotNull(name);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireInSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public V get(CacheKey cacheKey) {
+        checkNotNull(cacheKey);
+        return cache.getIfPresent(cacheKey);
+    }
+
+    /**
+     * Incremented on every invalidation. Read this before loading a value from Redis, and pass it to
+     * {@link #put(CacheKey, Object, long)}, so a value loaded concurrently with an update is not cached.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Cache the value unless an invalidation has happened since the value was loaded (when the generation
+     * was read). This is conservative (any invalidation blocks the put), but it never caches a stale value.
+     */
+    public void put(CacheKey cacheKey, V value, long loadedAtGeneration) {
+        checkNotNull(cacheKey);
+        checkNotNull(value);
+        cache.put(cacheKey, value);
+        if (generation.get() != loadedAtGeneration) {
+            cache.invalidate(cacheKey);
+        }
+    }
+
+    /** Remove the entry from this node only. */
+    public void invalidate(CacheKey cacheKey) {
+        checkNotNull(cacheKey);
+        generation.incrementAndGet();
+        cache.invalidate(cacheKey);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /** Hit, miss, and eviction counts since this node started. */
+    public Map<String, Long> getStats() {
+        CacheStats stats = cache.stats();
+        return ImmutableMap.of("hitCount", stats.hitCount(), "missCount", stats.missCount(),
+                "evictionCount", stats.evictionCount(), "size", cache.size());
+    }
+}
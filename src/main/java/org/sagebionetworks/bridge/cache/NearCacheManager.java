@@ -0,0 +1,200 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+import com.google.common.collect.Maps;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * Creates the in-process {@link NearCache}s used by the {@link CacheProvider}, and keeps them consistent
+ * across nodes. When a node changes or removes an object that may be held in a near cache, it removes
+ * its own copy and publishes the cache key over Redis pub/sub; every node (including this one) subscribes
+ * to that channel and drops its copy when the message arrives.
+ */
+@Component
+public class NearCacheManager {
+    private static final Logger LOG = LoggerFactory.getLogger(NearCacheManager.class);
+
+    static final String INVALIDATION_CHANNEL = "near-cache-invalidation";
+    static final String CONFIG_KEY_ENABLED = "near.cache.enabled";
+    static final String CONFIG_KEY_MAX_SIZE = "near.cache.max.size";
+    static final String CONFIG_KEY_TTL_SECONDS = "near.cache.ttl.seconds";
+    static final String CONFIG_KEY_REVISION_TTL_SECONDS = "near.cache.revision.ttl.seconds";
+    static final long RESUBSCRIBE_DELAY_MILLIS = 5000L;
+
+    private final List<NearCache<?>> nearCaches = new CopyOnWriteArrayList<>();
+    private JedisPool jedisPool;
+    private boolean enabled;
+    private int maximumSize;
+    private int expireInSeconds;
+    private int revisionExpireInSeconds;
+    private volatile boolean running;
+    private Thread subscriberThread;
+    private final JedisPubSub subscriber = new InvalidationSubscriber();
+
+    @Resource(name = "jedisPool")
+    final void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        this.enabled = Boolean.parseBoolean(bridgeConfig.get(CONFIG_KEY_ENABLED));
+        if (enabled) {
+            this.maximumSize = bridgeConfig.getPropertyAsInt(CONFIG_KEY_MAX_SIZE);
+            this.expireInSeconds = bridgeConfig.getPropertyAsInt(CONFIG_KEY_TTL_SECONDS);
+            this.revisionExpireInSeconds = bridgeConfig.getPropertyAsInt(CONFIG_KEY_REVISION_TTL_SECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Create a near cache that will participate in cross-node invalidation. Returns null if near caching
+     * is disabled in this environment, in which case callers should go directly to Redis.
+     */
+    public <V> NearCache<V> createNearCache(String name) {
+        return createNearCache(name, expireInSeconds);
+    }
+
+    /**
+     * Create a near cache for objects that don't change once written under a given key, like schema revisions and
+     * published survey versions. These only need invalidating when the object is deleted (or in the rare case it is
+     * edited in place), so they are held for a longer TTL. Returns null if near caching is disabled.
+     */
+    public <V> NearCache<V> createRevisionNearCache(String name) {
+        return createNearCache(name, revisionExpireInSeconds);
+    }
+
+    private <V> NearCache<V> createNearCache(String name, int ttlSeconds) {
+        checkNotNull(name);
+        if (!enabled) {
+            return null;
+        }
+        NearCache<V> nearCache = new NearCache<>(name, maximumSize, ttlSeconds);
+        nearCaches.add(nearCache);
+        return nearCache;
+    }
+
+    /**
+     * Remove the key from every near cache on this node, and notify the other nodes to do the same.
+     */
+    public void invalidate(CacheKey cacheKey) {
+        checkNotNull(cacheKey);
+        if (!enabled) {
+            return;
+        }
+        invalidateLocally(cacheKey);
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.publish(INVALIDATION_CHANNEL, cacheKey.toString());
+        } catch (Exception e) {
+            // Other nodes will fall back to expiring the entry after the near cache TTL.
+            LOG.warn("Could not publish near cache invalidation for " + cacheKey, e);
+        }
+    }
+
+    void invalidateLocally(CacheKey cacheKey) {
+        for (NearCache<?> nearCache : nearCaches) {
+            nearCache.invalidate(cacheKey);
+        }
+    }
+
+    /** Hit, miss, and eviction counts for every near cache on this node, by cache name. */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = Maps.newTreeMap();
+        for (NearCache<?> nearCache : nearCaches) {
+            stats.put(nearCache.getName(), nearCache.getStats());
+        }
+        return stats;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        subscriberThread = new Thread(this::subscribe, "near-cache-invalidation");
+        subscriberThread.setDaemon(true);
+        subscriberThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (subscriberThread != null) {
+            if (subscriber.isSubscribed()) {
+                subscriber.unsubscribe();
+            }
+            subscriberThread.interrupt();
+        }
+    }
+
+    private void subscribe() {
+        while (running) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                // Blocks until unsubscribed or the connection fails.
+                jedis.subscribe(subscriber, INVALIDATION_CHANNEL);
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                // We may have missed invalidations while disconnected, so start over.
+                LOG.warn("Near cache invalidation subscription failed, clearing near caches", e);
+                for (NearCache<?> nearCache : nearCaches) {
+                    nearCache.invalidateAll();
+                }
+                try {
+                    Thread.sleep(RESUBSCRIBE_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private class InvalidationSubscriber extends JedisPubSub {
+        @Override
+        public void onMessage(String channel, String message) {
+            if (message != null) {
+                invalidateLocally(CacheKey.fromString(message));
+            }
+        }
+        @Override
+        public void onPMessage(String pattern, String channel, String message) {
+        }
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+        }
+        @Override
+        public void onUnsubscribe(String channel, int subscribedChannels) {
+        }
+        @Override
+        public void onPUnsubscribe(String pattern, int subscribedChannels) {
+        }
+        @Override
+        public void onPSubscribe(String pattern, int subscribedChannels) {
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.config;
 
 import static com.amazonaws.regions.Regions.US_EAST_1;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.hibernate.event.spi.EventType.DELETE;
 import static org.hibernate.event.spi.EventType.MERGE;
 import static org.hibernate.event.spi.EventType.SAVE_UPDATE;
@@ -16,6 +17,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import javax.annotation.Resource;
+import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
 import javax.sql.DataSource;
 
@@ -40,6 +42,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.mchange.v2.c3p0.ComboPooledDataSource;
 import com.mchange.v2.c3p0.DriverManagerDataSource;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -64,6 +67,7 @@ import org.springframework.core.annotation.Order;
 
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.BridgeJedisOps;
 import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.cache.ViewCache;
 import org.sagebionetworks.bridge.crypto.CmsEncryptor;
@@ -109,6 +113,7 @@ import org.sagebionetworks.bridge.hibernate.AccountPersistenceExceptionConverter
 import org.sagebionetworks.bridge.hibernate.HibernateAccount;
 import org.sagebionetworks.bridge.hibernate.HibernateAccountSecret;
 import org.sagebionetworks.bridge.hibernate.HibernateEnrollment;
+import org.sagebionetworks.bridge.hibernate.HibernateCacheConfig;
 import org.sagebionetworks.bridge.hibernate.HibernateHelper;
 import org.sagebionetworks.bridge.hibernate.HibernateUploadTableJob;
 import org.sagebionetworks.bridge.hibernate.HibernateUploadTableRow;
@@ -118,6 +123,7 @@ import org.sagebionetworks.bridge.hibernate.HibernateStudy;
 import org.sagebionetworks.bridge.hibernate.HibernateTemplate;
 import org.sagebionetworks.bridge.hibernate.HibernateTemplateRevision;
 import org.sagebionetworks.bridge.hibernate.OrganizationPersistenceExceptionConverter;
+import org.sagebionetworks.bridge.hibernate.ReadReplicaRouter;
 import org.sagebionetworks.bridge.hibernate.SponsorPersistenceExceptionConverter;
 import org.sagebionetworks.bridge.hibernate.TagEventListener;
 import org.sagebionetworks.bridge.hibernate.BasicPersistenceExceptionConverter;
@@ -142,7 +148,6 @@ import org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceRecord;
 import org.sagebionetworks.bridge.models.schedules2.adherence.weekly.WeeklyAdherenceReport;
 import org.sagebionetworks.bridge.models.schedules2.timelines.TimelineMetadata;
 import org.sagebionetworks.bridge.models.studies.Alert;
-import org.sagebionetworks.bridge.redis.JedisOps;
 import org.sagebionetworks.bridge.s3.S3Helper;
 import org.sagebionetworks.bridge.spring.filters.MetricsFilter;
 import org.sagebionetworks.bridge.spring.filters.RequestFilter;
@@ -150,7 +155,9 @@ import org.sagebionetworks.bridge.spring.filters.StaticHeadersFilter;
 import org.sagebionetworks.bridge.synapse.SynapseHelper;
 import org.sagebionetworks.bridge.upload.DecryptHandler;
 import org.sagebionetworks.bridge.upload.InitRecordHandler;
+import org.sagebionetworks.bridge.upload.MemoryBackedFileHelper;
 import org.sagebionetworks.bridge.upload.S3DownloadHandler;
+import org.sagebionetworks.bridge.upload.StreamingUnpackHandler;
 import org.sagebionetworks.bridge.upload.StrictValidationHandler;
 import org.sagebionetworks.bridge.upload.TranscribeConsentHandler;
 import org.sagebionetworks.bridge.upload.UnzipHandler;
@@ -203,7 +210,11 @@ public class SpringConfig {
     @Bean
     @Order(3)
     public FilterRegistrationBean<MetricsFilter> metricsFilterRegistration(MetricsFilter filter) {
-        return filterRegistration(filter);
+        // Also runs on async dispatches, so requests that return a DeferredResult are logged when the result is
+        // written.
+        FilterRegistrationBean<MetricsFilter> registrationBean = filterRegistration(filter);
+        registrationBean.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        return registrationBean;
     }
 
     // This will replace Spring Boot's default configuration using Jackson2ObjectMapperBuilder.
@@ -291,6 +302,19 @@ public class SpringConfig {
         return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("async.worker.thread.count"));
     }
 
+    @Bean(name = "scheduledActivityLookupExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService scheduledActivityLookupExecutorService(BridgeConfig bridgeConfig) {
+        return Executors.newFixedThreadPool(
+                bridgeConfig.getPropertyAsInt("scheduled.activity.lookup.thread.count"));
+    }
+
+    @Bean(name = "accountDeletionExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService accountDeletionExecutorService(BridgeConfig bridgeConfig) {
+        return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("account.deletion.thread.count"));
+    }
+
     @Bean(name = "supportEmail")
     @Resource(name = "bridgeConfig")
     public String supportEmail(BridgeConfig bridgeConfig) {
@@ -563,14 +587,20 @@ public class SpringConfig {
     
     @Bean(name = "uploadValidationHandlerList")
     @Autowired
-    public List<UploadValidationHandler> uploadValidationHandlerList(S3DownloadHandler s3DownloadHandler,
-            DecryptHandler decryptHandler, UnzipHandler unzipHandler,
+    public List<UploadValidationHandler> uploadValidationHandlerList(BridgeConfig bridgeConfig,
+            S3DownloadHandler s3DownloadHandler, DecryptHandler decryptHandler, UnzipHandler unzipHandler,
+            StreamingUnpackHandler streamingUnpackHandler,
             InitRecordHandler initRecordHandler, UploadFormatHandler uploadFormatHandler,
             StrictValidationHandler strictValidationHandler, TranscribeConsentHandler transcribeConsentHandler,
             UploadRawZipHandler uploadRawZipHandler, UploadArtifactsHandler uploadArtifactsHandler) {
-        return ImmutableList.of(s3DownloadHandler, decryptHandler, unzipHandler,
-                initRecordHandler, uploadFormatHandler, strictValidationHandler, transcribeConsentHandler,
-                uploadRawZipHandler, uploadArtifactsHandler);
+        ImmutableList.Builder<UploadValidationHandler> builder = ImmutableList.builder();
+        if (Boolean.parseBoolean(bridgeConfig.get("upload.validation.streaming.enabled"))) {
+            builder.add(streamingUnpackHandler);
+        } else {
+            builder.add(s3DownloadHandler, decryptHandler, unzipHandler);
+        }
+        return builder.add(initRecordHandler, uploadFormatHandler, strictValidationHandler,
+                transcribeConsentHandler, uploadRawZipHandler, uploadArtifactsHandler).build();
     }
 
     @Bean(name = "uploadSchemaDdbMapper")
@@ -586,14 +616,17 @@ public class SpringConfig {
     }
 
     @Bean
-    public FileHelper fileHelper() {
-        return new FileHelper();
+    public MemoryBackedFileHelper fileHelper() {
+        return new MemoryBackedFileHelper();
     }
     
     private String databaseURL() {
+        return databaseURL(bridgeConfig().get("hibernate.connection.url"));
+    }
+    
+    private String databaseURL(String url) {
         BridgeConfig config = bridgeConfig();
         
-        String url = config.get("hibernate.connection.url");
         // Append SSL props to URL
         boolean useSsl = Boolean.valueOf(config.get("hibernate.connection.useSSL"));
         url += "?rewriteBatchedStatements=true&serverTimezone=UTC&requireSSL="+useSsl+"&useSSL="+useSsl+"&verifyServerCertificate="+useSsl;
@@ -601,9 +634,48 @@ public class SpringConfig {
         return url;
     }
 
+    // c3p0 connection pool for the primary database or the read replica.
+    private ComboPooledDataSource pooledDataSource(String url, String username, String password, int maxSize) {
+        Properties props = new Properties();
+        props.put("characterEncoding", "UTF-8");
+        props.put("CharSet", "UTF-8");
+        props.put("useUnicode", "true");
+        
+        ComboPooledDataSource dataSource = new ComboPooledDataSource();
+        // Set the driver properties first, as the user and password are also stored in them.
+        dataSource.setProperties(props);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUser(username);
+        dataSource.setPassword(password);
+        dataSource.setMinPoolSize(5);
+        dataSource.setMaxPoolSize(maxSize);
+        dataSource.setMaxIdleTime(300);
+        dataSource.setIdleConnectionTestPeriod(300);
+        return dataSource;
+    }
+    
+    @Bean
+    public ReadReplicaRouter readReplicaRouter() {
+        BridgeConfig config = bridgeConfig();
+        String username = config.get("hibernate.connection.username");
+        String password = config.get("hibernate.connection.password");
+        DataSource primary = pooledDataSource(databaseURL(), username, password, 20);
+        
+        // The replica is optional. Without it, everything goes to the primary.
+        DataSource replica = null;
+        String replicaUrl = config.get("hibernate.replica.connection.url");
+        if (!isBlank(replicaUrl)) {
+            replica = pooledDataSource(databaseURL(replicaUrl), username, password,
+                    config.getPropertyAsInt("hibernate.replica.pool.max.size"));
+        }
+        return new ReadReplicaRouter(primary, replica, ReadReplicaRouter.MYSQL_LAG_QUERY,
+                config.getPropertyAsInt("hibernate.replica.max.lag.seconds"),
+                config.getPropertyAsInt("hibernate.replica.lag.check.interval.seconds"));
+    }
+
     @Bean
     @Autowired
-    public SessionFactory hibernateSessionFactory(TagEventListener listener) {
+    public SessionFactory hibernateSessionFactory(TagEventListener listener, ReadReplicaRouter readReplicaRouter) {
         ClassLoader classLoader = getClass().getClassLoader();
 
         // Need to set env vars to find the truststore so we can validate Amazon's RDS SSL certificate. Note that
@@ -624,22 +696,12 @@ public class SpringConfig {
 
         // Hibernate configs
         Properties props = new Properties();
-        props.put("hibernate.connection.characterEncoding", "UTF-8");
-        props.put("hibernate.connection.CharSet", "UTF-8");
-        props.put("hibernate.connection.useUnicode", true);
         props.put("hibernate.dialect", "org.hibernate.dialect.MySQLDialect");
 
-        // c3p0 connection pool properties
-        props.put("hibernate.c3p0.min_size", 5);
-        props.put("hibernate.c3p0.max_size", 20);
-        props.put("hibernate.c3p0.timeout", 300);
-        props.put("hibernate.c3p0.idle_test_period", 300);
+        // Connections come from the primary and read replica pools, which are configured from Bridge configs
+        props.put("hibernate.connection.datasource", readReplicaRouter.getDataSource());
 
-        // Connection properties come from Bridge configs
-        BridgeConfig config = bridgeConfig();
-        props.put("hibernate.connection.password", config.get("hibernate.connection.password"));
-        props.put("hibernate.connection.username", config.get("hibernate.connection.username"));
-        props.put("hibernate.connection.url", databaseURL());
+        HibernateCacheConfig.applySettings(props, bridgeConfig());
 
         StandardServiceRegistry reg = new StandardServiceRegistryBuilder().applySettings(props).build();
         
@@ -812,8 +874,8 @@ public class SpringConfig {
     // From BridgeProductionSpringConfig in BridgePF
 
     @Bean(name = "jedisOps")
-    public JedisOps jedisOps() throws URISyntaxException {
-        return new JedisOps(jedisPool());
+    public BridgeJedisOps jedisOps() throws URISyntaxException {
+        return new BridgeJedisOps(jedisPool());
     }
 
     @Bean(name = "jedisPool")
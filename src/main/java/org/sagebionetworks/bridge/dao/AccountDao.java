@@ -44,13 +44,20 @@ public interface AccountDao {
      */
     Optional<Account> getAccount(AccountId accountId);
     
+    /**
+     * Get the accounts with these IDs in an app, in one query, and in the order of the IDs. IDs 
+     * that do not identify an account in the app are skipped.
+     */
+    List<Account> getAccounts(String appId, List<String> userIds);
+    
     /**
      * Delete an account along with the authentication credentials.
      */
     void deleteAccount(String userId);
     
     /**
-     * Get a page of lightweight account summaries. 
+     * Get a page of lightweight account summaries. The total is counted for the first page of a search, 
+     * and may be reused for a short time for the later pages of the same search. 
      * @param appId
      *      retrieve participants in this app
      * @param search
@@ -61,10 +68,11 @@ public interface AccountDao {
     
     /**
      * Get a page of external IDs associated to the indicated study. These are really accounts, but 
-     * older APIs continue to view these as paged external ID records.  
+     * older APIs continue to view these as paged external ID records. Pages can be retrieved with an 
+     * offset, or with the nextPageOffsetKey of the prior page as the offsetKey.
      */
     PagedResourceList<ExternalIdentifierInfo> getPagedExternalIds(String appId, String studyId, String idFilter,
-            Integer offsetBy, Integer pageSize);
+            Integer offsetBy, String offsetKey, Integer pageSize);
     
     void deleteAllAccounts(String appId);
 }    
@@ -1,5 +1,8 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceRecord;
 import org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceRecordsSearch;
@@ -8,7 +11,28 @@ public interface AdherenceRecordDao {
     
     void updateAdherenceRecord(AdherenceRecord record);
     
+    /**
+     * Save a batch of adherence records, following the same rules as {@link #updateAdherenceRecord}, 
+     * but retrieving the existing records in bulk and writing all the changes in one transaction.
+     */
+    void updateAdherenceRecords(List<AdherenceRecord> records);
+    
     PagedResourceList<AdherenceRecord> getAdherenceRecords(AdherenceRecordsSearch search);
+    
+    /**
+     * Get all the session adherence records of a batch of participants in a study, in one query and 
+     * without paging, ordered by startedOn. This includes records for every event timestamp; the caller 
+     * is expected to select the records it needs (e.g. those for the current timestamps of the 
+     * participant's events).
+     */
+    List<AdherenceRecord> getSessionAdherenceRecords(String studyId, Collection<String> userIds);
+    
+    /**
+     * Get all the adherence records of a participant in a study for a set of instance GUIDs (for all 
+     * event timestamps), in one query and without paging.
+     */
+    List<AdherenceRecord> getAdherenceRecordsForInstances(String userId, String studyId,
+            Collection<String> instanceGuids);
 
     void deleteAdherenceRecordPermanently(AdherenceRecord record);
 
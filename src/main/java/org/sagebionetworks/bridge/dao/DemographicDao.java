@@ -1,5 +1,6 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.sagebionetworks.bridge.models.PagedResourceList;
@@ -74,6 +75,20 @@ public interface DemographicDao {
      */
     Optional<DemographicUser> getDemographicUser(String appId, String studyId, String userId);
 
+    /**
+     * Fetches all DemographicUsers for a user in an app, both the app-level
+     * DemographicUser and the study-level DemographicUsers for every study, in a
+     * single query.
+     * 
+     * @param appId  The appId of the app which contains the DemographicUsers to
+     *               fetch.
+     * @param userId The userId of the user who is associated with the
+     *               DemographicUsers to be fetched.
+     * @return the fetched DemographicUsers, or an empty list if there are none.
+     *         The app-level DemographicUser has a null studyId.
+     */
+    List<DemographicUser> getDemographicUsersForUser(String appId, String userId);
+
     /**
      * Fetches all app-level DemographicUsers for an app or all study-level
      * DemographicUsers for a study.
@@ -27,6 +27,12 @@ public interface OrganizationDao {
      */
     Optional<Organization> getOrganization(String appId, String identifier);
     
+    /**
+     * Get the organization from the database, bypassing any cached copy, so that a change to the organization is 
+     * based on its current version.
+     */
+    Optional<Organization> getOrganizationForUpdate(String appId, String identifier);
+    
     /**
      * Delete this organization object from the database.
      */
@@ -1,5 +1,7 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.List;
+
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 
@@ -47,6 +49,15 @@ public interface ReportDataDao {
      */
     void deleteReportData(ReportDataKey key);
     
+    /**
+     * Delete all records regardless of date for each of the given reports, in one batch delete. Used to delete 
+     * all of a participant's reports when the participant is deleted.
+     * 
+     * @param keys
+     *      reports to delete
+     */
+    void deleteAllReportData(List<ReportDataKey> keys);
+    
     /**
      * Delete a single record in a report. The date string value may be a LocalDate or 
      * DateTime value expressed as a string 
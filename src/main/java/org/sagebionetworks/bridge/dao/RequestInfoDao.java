@@ -1,5 +1,8 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.sagebionetworks.bridge.models.RequestInfo;
 
 public interface RequestInfoDao {
@@ -13,6 +16,11 @@ public interface RequestInfoDao {
     
     public RequestInfo getRequestInfo(String userId);
     
+    /**
+     * Get the request info objects that exist for any of these users, in one query.
+     */
+    public List<RequestInfo> getRequestInfos(Collection<String> userIds);
+    
     public void removeRequestInfo(String userId);
     
 }
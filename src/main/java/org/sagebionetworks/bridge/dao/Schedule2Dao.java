@@ -1,5 +1,6 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +30,18 @@ public interface Schedule2Dao {
     
     List<TimelineMetadata> getAssessmentsForSessionInstance(String instanceGuid);
     
+    /**
+     * Get the metadata records for a set of instance GUIDs (session or assessment instances) in one 
+     * query. GUIDs that do not exist are skipped.
+     */
+    List<TimelineMetadata> getTimelineMetadataForInstances(Collection<String> instanceGuids);
+    
+    /**
+     * Get all the metadata records (the session instance record and its assessment instance records) 
+     * for a set of session instance GUIDs, in one query.
+     */
+    List<TimelineMetadata> getMetadataForSessionInstances(Collection<String> sessionInstanceGuids);
+    
     List<TimelineMetadata> getScheduleMetadata(String scheduleGuid);
     
     void deleteAllSchedules(String appId);
@@ -1,6 +1,8 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.activities.StudyActivityEvent;
@@ -36,6 +38,13 @@ public interface StudyActivityEventDao {
      */
     List<StudyActivityEvent> getRecentStudyActivityEvents(String userId, String studyId);
     
+    /**
+     * Get the recent events (as described by {@link #getRecentStudyActivityEvents(String, String)}) 
+     * for a set of participants in this study, in one query. The map is keyed by user ID; users 
+     * with no events have no entry in the map.
+     */
+    Map<String, List<StudyActivityEvent>> getRecentStudyActivityEvents(Collection<String> userIds, String studyId);
+    
     /**
      * Get all timestamps (in a paginated API) for a specific event ID. Note that 
      * for immutable events there should only ever be one timestamp. Returns an 
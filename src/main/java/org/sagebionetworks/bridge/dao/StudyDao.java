@@ -18,6 +18,12 @@ public interface StudyDao {
     
     Study getStudy(String appId, String studyId);
     
+    /**
+     * Get the study from the database, bypassing any cached copy, so that a change to the study is based on its 
+     * current version.
+     */
+    Study getStudyForUpdate(String appId, String studyId);
+    
     VersionHolder createStudy(Study study);
     
     VersionHolder updateStudy(Study study);
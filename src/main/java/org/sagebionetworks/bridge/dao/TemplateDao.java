@@ -13,6 +13,12 @@ public interface TemplateDao {
 
     Optional<Template> getTemplate(String appId, String guid);
     
+    /**
+     * Get the template from the database, bypassing any cached copy, so that a change to the template is based on 
+     * its current version.
+     */
+    Optional<Template> getTemplateForUpdate(String appId, String guid);
+    
     void createTemplate(Template template);
     
     void updateTemplate(Template template);
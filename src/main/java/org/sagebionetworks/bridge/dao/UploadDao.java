@@ -81,13 +81,21 @@ public interface UploadDao {
             @Nonnull List<String> validationMessageList, String recordId);
     
     /**
-     * Delete all the upload records for a given health code. This is used to clean up records when a user is deleted, 
-     * typically as part of testing. 
+     * Get the IDs of all the upload records for a given health code. This is used to clean up records when a user is
+     * deleted, typically as part of testing.
      * @param healthCode
      *      the health code of the user being deleted.
-     * @return a list of upload IDs to be deleted
+     * @return a list of upload IDs
      */
-    List<String> deleteUploadsForHealthCode(@Nonnull String healthCode);
+    List<String> getUploadIdsForHealthCode(@Nonnull String healthCode);
+
+    /**
+     * Delete the upload records with the given IDs. Callers delete the uploaded files from S3 first, so that if that
+     * fails, the records are still there to find the files with.
+     * @param uploadIds
+     *      the IDs of the uploads to delete
+     */
+    void deleteUploads(@Nonnull List<String> uploadIds);
 
     /** Update an upload record. */
     void updateUpload(Upload upload);
@@ -1,8 +1,11 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toSet;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
@@ -70,9 +73,9 @@ public class DynamoAppConfigDao implements AppConfigDao {
         
         List<AppConfig> list = Lists.newArrayListWithCapacity(results.size());
         for (DynamoAppConfig appConfig : results) {
-            loadCriteria(appConfig);
             list.add(appConfig);
         }
+        loadCriteria(list);
         return list;
     }
     
@@ -153,4 +156,18 @@ public class DynamoAppConfigDao implements AppConfigDao {
         criteria.setKey(getKey(config));
         config.setCriteria(criteria);
     }
+
+    // Loads the criteria for all the configs in one batch, rather than one read per config.
+    private void loadCriteria(List<AppConfig> configs) {
+        Set<String> keys = configs.stream().map(this::getKey).collect(toSet());
+        Map<String, Criteria> criteriaMap = criteriaDao.batchGetCriteria(keys);
+        for (AppConfig config : configs) {
+            Criteria criteria = criteriaMap.get(getKey(config));
+            if (criteria == null) {
+                criteria = Criteria.create();
+            }
+            criteria.setKey(getKey(config));
+            config.setCriteria(criteria);
+        }
+    }
 }
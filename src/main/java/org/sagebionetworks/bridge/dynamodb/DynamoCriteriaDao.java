@@ -4,14 +4,24 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import javax.annotation.Resource;
 
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.dao.CriteriaDao;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.Criteria;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * The DAO for managing criteria, which are optionally associated with models that can be filtered by Criteria 
@@ -46,6 +56,44 @@ public class DynamoCriteriaDao implements CriteriaDao {
         return criteriaMapper.load(hashKey);
     }
 
+    /**
+     * Loads all the criteria with a single call to the mapper's batchLoad(), which splits the keys into BatchGetItem
+     * requests of up to 100 keys, and retries any unprocessed keys with backoff.
+     */
+    @Override
+    public Map<String, Criteria> batchGetCriteria(Collection<String> keys) {
+        checkNotNull(keys);
+        
+        // BatchGetItem rejects a request with duplicate keys.
+        Set<String> uniqueKeys = ImmutableSet.copyOf(keys);
+        if (uniqueKeys.isEmpty()) {
+            return ImmutableMap.of();
+        }
+        List<Object> hashKeys = Lists.newArrayListWithCapacity(uniqueKeys.size());
+        for (String key : uniqueKeys) {
+            checkArgument(isNotBlank(key));
+            
+            DynamoCriteria hashKey = new DynamoCriteria();
+            hashKey.setKey(key);
+            hashKeys.add(hashKey);
+        }
+        
+        Map<String, Criteria> criteriaMap = Maps.newHashMapWithExpectedSize(uniqueKeys.size());
+        Map<String, List<Object>> resultMap = criteriaMapper.batchLoad(hashKeys);
+        for (List<Object> resultList : resultMap.values()) {
+            for (Object oneResult : resultList) {
+                if (!(oneResult instanceof Criteria)) {
+                    // This should never happen, but just in case.
+                    throw new BridgeServiceException("DynamoDB returned objects of type " +
+                            oneResult.getClass().getName() + " instead of Criteria");
+                }
+                Criteria criteria = (Criteria) oneResult;
+                criteriaMap.put(criteria.getKey(), criteria);
+            }
+        }
+        return criteriaMap;
+    }
+
     @Override
     public void deleteCriteria(String key) {
         checkArgument(isNotBlank(key));
@@ -1,8 +1,11 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toSet;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
@@ -85,8 +88,12 @@ public class DynamoNotificationTopicDao implements NotificationTopicDao {
         QueryResultPage<DynamoNotificationTopic> resultPage = mapper.queryPage(DynamoNotificationTopic.class, query);
         List<DynamoNotificationTopic> topicList = resultPage.getResults();
 
-        // Load criteria.
-        topicList.forEach(this::loadCriteria);
+        // Load criteria, in one batch for all the topics.
+        Set<String> keys = topicList.stream().map(this::getCriteriaKey).collect(toSet());
+        Map<String, Criteria> criteriaMap = criteriaDao.batchGetCriteria(keys);
+        for (NotificationTopic topic : topicList) {
+            setCriteria(topic, criteriaMap.get(getCriteriaKey(topic)));
+        }
 
         return ImmutableList.copyOf(topicList);
     }
@@ -232,8 +239,11 @@ public class DynamoNotificationTopicDao implements NotificationTopicDao {
 
     // Helper method to load criteria, which comes from another table.
     private void loadCriteria(NotificationTopic topic) {
-        Criteria criteria = criteriaDao.getCriteria(getCriteriaKey(topic));
+        setCriteria(topic, criteriaDao.getCriteria(getCriteriaKey(topic)));
+    }
 
+    // Helper method to set the loaded criteria, if any, into the topic.
+    private void setCriteria(NotificationTopic topic, Criteria criteria) {
         // There are two kinds notification topics: topics with criteria, and topics without. Topics with criteria
         // have their subscribers auto-managed by Bridge server. Topics without need to be subscribed to manually.
         // To ensure we keep this separation clear, only set a criteria into the topic if it exists.
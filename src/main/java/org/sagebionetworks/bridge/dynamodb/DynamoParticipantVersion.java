@@ -35,6 +35,7 @@ public class DynamoParticipantVersion implements ParticipantVersion {
     private String timeZone;
     private Map<String, Demographic> appDemographics;
     private Map<String, Map<String, Demographic>> studyDemographics;
+    private String fingerprint;
     private Long version;
 
     /**
@@ -210,6 +211,17 @@ public class DynamoParticipantVersion implements ParticipantVersion {
         }
     }
 
+    @JsonIgnore
+    @Override
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    @Override
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
     /**
      * DynamoDB version. Since this table is append only, this will always be 1. This is mostly here to protect against
      * concurrent modification.
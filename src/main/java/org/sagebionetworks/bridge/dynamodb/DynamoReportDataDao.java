@@ -153,6 +153,28 @@ public class DynamoReportDataDao implements ReportDataDao {
         }
     }
     
+    @Override
+    public void deleteAllReportData(List<ReportDataKey> keys) {
+        checkNotNull(keys);
+        
+        List<DynamoReportData> objectsToDelete = Lists.newArrayList();
+        for (ReportDataKey key : keys) {
+            DynamoReportData hashKey = new DynamoReportData();
+            hashKey.setKey(key.getKeyString());
+
+            DynamoDBQueryExpression<DynamoReportData> query =
+                    new DynamoDBQueryExpression<DynamoReportData>().withHashKeyValues(hashKey);
+            for (DynamoReportData reportData : mapper.query(DynamoReportData.class, query)) {
+                objectsToDelete.add(reportData);
+            }
+        }
+        
+        if (!objectsToDelete.isEmpty()) {
+            List<FailedBatch> failures = mapper.batchDelete(objectsToDelete);
+            BridgeUtils.ifFailuresThrowException(failures);
+        }
+    }
+    
     @Override
     public void deleteReportDataRecord(ReportDataKey key, String date) {
         DynamoReportData hashKey = new DynamoReportData();
@@ -6,7 +6,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 
 import javax.annotation.Resource;
@@ -30,6 +33,7 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 @Component
@@ -73,11 +77,8 @@ public class DynamoSchedulePlanDao implements SchedulePlanDao {
         
         List<DynamoSchedulePlan> dynamoPlans = mapper.queryPage(DynamoSchedulePlan.class, query).getResults();
         
-        ArrayList<SchedulePlan> plans = Lists.newArrayListWithCapacity(dynamoPlans.size());
-        for(DynamoSchedulePlan dynamoPlan : dynamoPlans) {
-            plans.add(dynamoPlan);
-            forEachCriteria(dynamoPlan, scheduleCriteria -> loadCriteria(scheduleCriteria));
-        }
+        ArrayList<SchedulePlan> plans = Lists.newArrayList(dynamoPlans);
+        loadCriteria(plans);
         return plans;
     }
     
@@ -169,7 +170,7 @@ public class DynamoSchedulePlanDao implements SchedulePlanDao {
         }
         
         plan = plans.get(0);
-        forEachCriteria(plan, scheduleCriteria -> loadCriteria(scheduleCriteria));
+        loadCriteria(ImmutableList.of(plan));
         return plan;
     }
     
@@ -207,11 +208,25 @@ public class DynamoSchedulePlanDao implements SchedulePlanDao {
     }
 
     /**
-     * Load criteria. If the criteria object doesn't exist, create and return one as part of the schedule plan.
+     * Load criteria for all the plans in one batch. If a criteria object doesn't exist, the empty one in the 
+     * schedule plan (with its key set) is returned as part of the schedule plan.
      */
-    private Criteria loadCriteria(ScheduleCriteria scheduleCriteria) {
-        String key = scheduleCriteria.getCriteria().getKey();
-        return criteriaDao.getCriteria(key);
+    private void loadCriteria(List<SchedulePlan> plans) {
+        // The first pass only sets and collects the keys, the second pass swaps in the loaded criteria.
+        Set<String> keys = new HashSet<>();
+        for (SchedulePlan plan : plans) {
+            forEachCriteria(plan, scheduleCriteria -> {
+                keys.add(scheduleCriteria.getCriteria().getKey());
+                return null;
+            });
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        Map<String, Criteria> criteriaMap = criteriaDao.batchGetCriteria(keys);
+        for (SchedulePlan plan : plans) {
+            forEachCriteria(plan, scheduleCriteria -> criteriaMap.get(scheduleCriteria.getCriteria().getKey()));
+        }
     }
     
     private Criteria deleteCriteria(ScheduleCriteria scheduleCriteria) {
@@ -11,6 +11,8 @@ import java.util.Map;
 import javax.annotation.Resource;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.SurveyDao;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
@@ -234,6 +236,7 @@ public class DynamoSurveyDao implements SurveyDao {
     private DynamoDBMapper surveyMapper;
     private DynamoDBMapper surveyElementMapper;
     private UploadSchemaService uploadSchemaService;
+    private NearCacheManager nearCacheManager;
     
     @Resource(name = "surveyMapper")
     public void setSurveyMapper(DynamoDBMapper surveyMapper) {
@@ -249,6 +252,12 @@ public class DynamoSurveyDao implements SurveyDao {
     public final void setUploadSchemaService(UploadSchemaService uploadSchemaService) {
         this.uploadSchemaService = uploadSchemaService;
     }
+
+    /** Used to invalidate published survey versions cached by SurveyService, on every node. */
+    @Autowired
+    public final void setNearCacheManager(NearCacheManager nearCacheManager) {
+        this.nearCacheManager = nearCacheManager;
+    }
     
     String generateGuid() {
         return BridgeUtils.generateGuid();
@@ -288,6 +297,7 @@ public class DynamoSurveyDao implements SurveyDao {
             } catch(ConditionalCheckFailedException e) {
                 throw new ConcurrentModificationException(survey);
             }
+            invalidateCachedSurvey(appId, survey);
         }
         return survey;
     }
@@ -309,7 +319,9 @@ public class DynamoSurveyDao implements SurveyDao {
         existing.setModifiedOn(DateUtils.getCurrentMillisFromEpoch());
         existing.setSchemaRevision(null);
 
-        return saveSurvey(existing);
+        Survey saved = saveSurvey(existing);
+        invalidateCachedSurvey(appId, existing);
+        return saved;
     }
     
     @Override
@@ -335,6 +347,7 @@ public class DynamoSurveyDao implements SurveyDao {
         
         survey.setDeleted(true);
         saveSurvey(survey);
+        invalidateCachedSurvey(survey.getAppId(), survey);
     }
 
     @Override
@@ -344,6 +357,7 @@ public class DynamoSurveyDao implements SurveyDao {
         if (existing != null) {
             deleteAllElements(existing.getGuid(), existing.getCreatedOn());
             surveyMapper.delete(existing);
+            invalidateCachedSurvey(appId, existing);
             // Delete the schemas as well, or they accumulate.
             try {
                 uploadSchemaService.deleteUploadSchemaByIdPermanently(existing.getAppId(), existing.getIdentifier());
@@ -353,6 +367,12 @@ public class DynamoSurveyDao implements SurveyDao {
         }
     }
 
+    private void invalidateCachedSurvey(String appId, GuidCreatedOnVersionHolder keys) {
+        if (nearCacheManager != null) {
+            nearCacheManager.invalidate(CacheKey.publishedSurvey(appId, keys.getGuid(), keys.getCreatedOn()));
+        }
+    }
+
     @Override
     public List<Survey> getSurveyAllVersions(String appId, String guid, boolean includeDeleted) {
         return new QueryBuilder().setAppId(appId).setSurvey(guid).setDeleted(includeDeleted).getAll();
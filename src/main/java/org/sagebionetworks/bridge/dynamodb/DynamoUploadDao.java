@@ -320,17 +320,26 @@ public class DynamoUploadDao implements UploadDao {
     }
     
     @Override
-    public List<String> deleteUploadsForHealthCode(@Nonnull String healthCode) {
-        List<? extends Upload> uploadsToDelete = healthCodeRequestedOnIndex.queryKeys(
+    public List<String> getUploadIdsForHealthCode(@Nonnull String healthCode) {
+        List<? extends Upload> uploads = healthCodeRequestedOnIndex.queryKeys(
                 DynamoUpload2.class, HEALTH_CODE, healthCode, null);
-        List<String> uploadIdList = uploadsToDelete.stream().map(Upload::getUploadId).collect(Collectors.toList());
+        return uploads.stream().map(Upload::getUploadId).collect(Collectors.toList());
+    }
 
-        if (!uploadsToDelete.isEmpty()) {
-            List<FailedBatch> failures = mapper.batchDelete(uploadsToDelete);
-            BridgeUtils.ifFailuresThrowException(failures);
+    /** {@inheritDoc} */
+    @Override
+    public void deleteUploads(@Nonnull List<String> uploadIds) {
+        if (uploadIds.isEmpty()) {
+            return;
         }
-
-        return uploadIdList;
+        List<DynamoUpload2> uploadsToDelete = uploadIds.stream().map(uploadId -> {
+            DynamoUpload2 key = new DynamoUpload2();
+            key.setUploadId(uploadId);
+            return key;
+        }).collect(Collectors.toList());
+
+        List<FailedBatch> failures = mapper.batchDelete(uploadsToDelete);
+        BridgeUtils.ifFailuresThrowException(failures);
     }
 
     @Override
@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.hibernate;
 
 import static java.lang.Boolean.TRUE;
+import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeUtils.collectExternalIds;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.DISABLED;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.ENABLED;
@@ -35,6 +36,7 @@ import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.persistence.Version;
 
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import org.joda.time.DateTime;
@@ -52,7 +54,11 @@ import org.sagebionetworks.bridge.models.studies.Enrollment;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.JsonNode;
 
-/** MySQL implementation of accounts via Hibernate. */
+/**
+ * MySQL implementation of accounts via Hibernate. The eagerly fetched collections are loaded in batches 
+ * when a query returns many accounts, so a page of accounts costs one query per collection rather than 
+ * one per collection per account.
+ */
 @Entity
 @Table(name = "Accounts")
 @BridgeTypeName("Account")
@@ -232,6 +238,7 @@ public class HibernateAccount implements Account {
             referencedColumnName = "id"))
     @Column(name = "attributeValue")
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = API_MAXIMUM_PAGE_SIZE)
     @MapKeyColumn(name = "attributeKey")
     public Map<String, String> getAttributes() {
         if (attributes == null) {
@@ -250,6 +257,7 @@ public class HibernateAccount implements Account {
     @CollectionTable(name = "AccountConsents", joinColumns = @JoinColumn(name = "accountId",
             referencedColumnName = "id"))
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = API_MAXIMUM_PAGE_SIZE)
     @MapKeyClass(HibernateAccountConsentKey.class)
     @JsonIgnore
     public Map<HibernateAccountConsentKey, HibernateAccountConsent> getConsents() {
@@ -366,6 +374,7 @@ public class HibernateAccount implements Account {
     @CollectionTable(name = "AccountRoles", joinColumns = @JoinColumn(name = "accountId", referencedColumnName = "id"))
     @Column(name = "role")
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = API_MAXIMUM_PAGE_SIZE)
     @Enumerated(EnumType.STRING)
     public Set<Roles> getRoles() {
         if (roles == null) {
@@ -471,6 +480,7 @@ public class HibernateAccount implements Account {
     @CollectionTable(name = "AccountDataGroups", joinColumns = @JoinColumn(name = "accountId", referencedColumnName = "id"))
     @Column(name = "dataGroup")
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = API_MAXIMUM_PAGE_SIZE)
     public Set<String> getDataGroups() {
         if (dataGroups == null) {
             dataGroups = new HashSet<>();
@@ -489,6 +499,7 @@ public class HibernateAccount implements Account {
     @Column(name = "language")
     @OrderColumn(name="order_index", insertable=true, updatable=true)
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = API_MAXIMUM_PAGE_SIZE)
     public List<String> getLanguages() {
         if (languages == null) {
             languages = new ArrayList<>();
@@ -524,6 +535,7 @@ public class HibernateAccount implements Account {
     
     @OneToMany(mappedBy = "accountId", cascade = CascadeType.ALL, orphanRemoval = true, 
         fetch = FetchType.EAGER, targetEntity=HibernateEnrollment.class)
+    @BatchSize(size = API_MAXIMUM_PAGE_SIZE)
     @OnDelete(action=OnDeleteAction.CASCADE)
     @JsonIgnore
     @Override
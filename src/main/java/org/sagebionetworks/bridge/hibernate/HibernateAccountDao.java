@@ -19,6 +19,7 @@ import static org.sagebionetworks.bridge.models.ResourceList.IN_USE;
 import static org.sagebionetworks.bridge.models.ResourceList.LANGUAGE;
 import static org.sagebionetworks.bridge.models.ResourceList.NONE_OF_GROUPS;
 import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
+import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_KEY;
 import static org.sagebionetworks.bridge.models.ResourceList.ORG_MEMBERSHIP;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
 import static org.sagebionetworks.bridge.models.ResourceList.PHONE_FILTER;
@@ -28,24 +29,33 @@ import static org.sagebionetworks.bridge.models.ResourceList.STATUS;
 import static org.sagebionetworks.bridge.models.ResourceList.STRING_SEARCH_POSITION;
 import static org.sagebionetworks.bridge.models.SearchTermPredicate.AND;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.BridgeUtils.StudyAssociations;
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.hibernate.QueryBuilder.WhereClauseBuilder;
 import org.sagebionetworks.bridge.time.DateUtils;
@@ -65,6 +75,7 @@ public class HibernateAccountDao implements AccountDao {
     static final String ID_QUERY = "SELECT acct.id FROM HibernateAccount AS acct";
     static final String FULL_QUERY = "SELECT acct FROM HibernateAccount AS acct";
     static final String COUNT_QUERY = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct";
+    static final String ACCOUNTS_BY_ID_QUERY = "SELECT acct FROM HibernateAccount AS acct WHERE acct.id IN (:ids)";
     static final String DELETE_ALL_ACCOUNTS_QUERY = "DELETE FROM Accounts WHERE studyId = :appId";
     static final String APP_IDS_FOR_USER_QUERY = "SELECT DISTINCT acct.appId FROM HibernateAccount AS acct WHERE synapseUserId = :synapseUserId";
     
@@ -72,9 +83,14 @@ public class HibernateAccountDao implements AccountDao {
             + "WHERE en.appId = :appId AND en.studyId = :studyId "
             + "AND en.externalId IS NOT NULL";
     static final String EXTID_FILTER_QUERY = "AND en.externalId LIKE :idFilter";
+    static final String EXTID_OFFSET_KEY_QUERY = "AND en.externalId > :offsetKey";
     static final String EXTID_ORDER_QUERY = "ORDER BY en.externalId";
     
+    // Totals for later pages of a search are reused for this long, rather than re-counted for every page.
+    static final int ACCOUNT_COUNT_EXPIRE_IN_SECONDS = 60;
+    
     private HibernateHelper hibernateHelper;
+    private CacheProvider cacheProvider;
 
     /** This makes interfacing with Hibernate easier. */
     @Resource(name = "accountHibernateHelper")
@@ -82,6 +98,11 @@ public class HibernateAccountDao implements AccountDao {
         this.hibernateHelper = hibernateHelper;
     }
     
+    @Autowired
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+    
     // Provided to override in tests
     protected String generateGUID() {
         return BridgeUtils.generateGuid();
@@ -141,6 +162,34 @@ public class HibernateAccountDao implements AccountDao {
         return Optional.of(account);
     }
     
+    @Override
+    public List<Account> getAccounts(String appId, List<String> userIds) {
+        checkNotNull(appId);
+        checkNotNull(userIds);
+        
+        if (userIds.isEmpty()) {
+            return ImmutableList.of();
+        }
+        Map<String, HibernateAccount> accountsById = hibernateHelper.queryGet(ACCOUNTS_BY_ID_QUERY, 
+                ImmutableMap.of("ids", userIds), null, null, HibernateAccount.class).stream()
+                .collect(Collectors.toMap(HibernateAccount::getId, Function.identity()));
+        
+        List<Account> accounts = new ArrayList<>();
+        for (String userId : userIds.stream().distinct().collect(Collectors.toList())) {
+            HibernateAccount account = accountsById.get(userId);
+            // Enforce the app membership of each account
+            if (account == null || !account.getAppId().equals(appId)) {
+                continue;
+            }
+            if (validateHealthCode(account)) {
+                Account updated = hibernateHelper.update(account);
+                account.setVersion(updated.getVersion());
+            }
+            accounts.add(account);
+        }
+        return accounts;
+    }
+    
     QueryBuilder makeQuery(String prefix, String appId, AccountId accountId, AccountSummarySearch search, boolean isCount) {
         RequestContext context = RequestContext.get();
         Set<String> callerStudies = context.getOrgSponsoredStudies();
@@ -209,6 +258,10 @@ public class HibernateAccountDao implements AccountDao {
             }
         }
         if (!isCount) {
+            // Keyset paging only applies to the page, not to the total count
+            if (search != null) {
+                where.appendRequired("acct.id > :offsetKey", "offsetKey", search.getOffsetKey());
+            }
             builder.append("GROUP BY acct.id");
         }
         return builder;
@@ -221,29 +274,40 @@ public class HibernateAccountDao implements AccountDao {
     }
 
     /** {@inheritDoc} */
+    @ReplicaSafe
     @Override
     public PagedResourceList<AccountSummary> getPagedAccountSummaries(String appId, AccountSummarySearch search) {
-        // Getting the IDs and loading the records individually leads to N+1 queries (one id query and a 
-        // query for each object), whereas querying for a constructor of a subset of columns leads to 
-        // (N*Y)+1 queries as we must load each collection individually... Y=1 in the prior code to load
-        // studies, and Y=2 once we add attributes. On the downside, this approach loads all 
-        // HibernateAccount fields, like clientData, though it is not returned.
+        // Get the IDs of the page (the search joins to enrollments, so it cannot page over the accounts 
+        // directly), then load all of those accounts in one query. HibernateAccount batches the loading of 
+        // its collections, so the page costs one query per collection, rather than one query per 
+        // collection per account. On the downside, this approach loads all HibernateAccount fields, 
+        // like clientData, though it is not returned.
+        // The page is ordered by account ID so the next page can be retrieved after the last ID (keyset 
+        // paging), which unlike offsetBy, does not require the database to scan all the preceding pages.
         QueryBuilder builder = makeQuery(ID_QUERY, appId, null, search, false);
+        builder.append("ORDER BY acct.id");
         
         List<String> ids = hibernateHelper.queryGet(builder.getQuery(), builder.getParameters(),
                 search.getOffsetBy(), search.getPageSize(), String.class);
         
-        List<AccountSummary>accountSummaryList = ids.stream()
-                .map(id -> hibernateHelper.getById(HibernateAccount.class, id))
-                .map(this::unmarshallAccountSummary)
-                .collect(Collectors.toList());
-
-        // Get count of accounts.
-        builder = makeQuery(COUNT_QUERY, appId, null, search, true);
-        int count = hibernateHelper.queryCount(builder.getQuery(), builder.getParameters());
+        List<AccountSummary> accountSummaryList = ImmutableList.of();
+        if (!ids.isEmpty()) {
+            Map<String, HibernateAccount> accountsById = hibernateHelper.queryGet(ACCOUNTS_BY_ID_QUERY, 
+                    ImmutableMap.of("ids", ids), null, null, HibernateAccount.class).stream()
+                    .collect(Collectors.toMap(HibernateAccount::getId, Function.identity()));
+            // Keep the order of the ID query. An account deleted between the two queries is skipped.
+            accountSummaryList = ids.stream()
+                    .map(accountsById::get)
+                    .filter(acct -> acct != null)
+                    .map(this::unmarshallAccountSummary)
+                    .collect(Collectors.toList());
+        }
+        int count = getAccountCount(appId, search, ids.size());
+        String nextPageOffsetKey = (ids.size() == search.getPageSize()) ? ids.get(ids.size()-1) : null;
         
         // Package results and return.
         return new PagedResourceList<>(accountSummaryList, count)
+                .withNextPageOffsetKey(nextPageOffsetKey)
                 .withRequestParam(ADMIN_ONLY, search.isAdminOnly())
                 .withRequestParam(ALL_OF_GROUPS, search.getAllOfGroups())
                 .withRequestParam(EMAIL_FILTER, search.getEmailFilter())
@@ -251,6 +315,7 @@ public class HibernateAccountDao implements AccountDao {
                 .withRequestParam(LANGUAGE, search.getLanguage())
                 .withRequestParam(NONE_OF_GROUPS, search.getNoneOfGroups())
                 .withRequestParam(OFFSET_BY, search.getOffsetBy())
+                .withRequestParam(OFFSET_KEY, search.getOffsetKey())
                 .withRequestParam(ORG_MEMBERSHIP, search.getOrgMembership())
                 .withRequestParam(PAGE_SIZE, search.getPageSize())
                 .withRequestParam(PHONE_FILTER, search.getPhoneFilter())
@@ -266,6 +331,29 @@ public class HibernateAccountDao implements AccountDao {
                 .withRequestParam(IN_USE, search.isInUse());
     }
     
+    // The total can be inferred from a partial page, unless the offset is past the end of the results 
+    // (or is an offset key). Otherwise it is counted on the first page and cached for subsequent pages of 
+    // the same search, which can then be out of date by as much as ACCOUNT_COUNT_EXPIRE_IN_SECONDS.
+    private int getAccountCount(String appId, AccountSummarySearch search, int pageCount) {
+        int offsetBy = search.getOffsetBy();
+        boolean isFirstPage = (offsetBy == 0 && search.getOffsetKey() == null);
+        if (pageCount < search.getPageSize() && search.getOffsetKey() == null && (offsetBy == 0 || pageCount > 0)) {
+            return offsetBy + pageCount;
+        }
+        QueryBuilder builder = makeQuery(COUNT_QUERY, appId, null, search, true);
+        CacheKey cacheKey = CacheKey.accountSummaryCount(appId,
+                DigestUtils.sha256Hex(builder.getQuery() + new TreeMap<>(builder.getParameters())));
+        if (!isFirstPage) {
+            Integer count = cacheProvider.getObject(cacheKey, Integer.class);
+            if (count != null) {
+                return count;
+            }
+        }
+        int count = hibernateHelper.queryCount(builder.getQuery(), builder.getParameters());
+        cacheProvider.setObject(cacheKey, count, ACCOUNT_COUNT_EXPIRE_IN_SECONDS);
+        return count;
+    }
+    
     // Callers of AccountDao assume that an Account will always a health code and health ID. All accounts created
     // through the DAO will automatically have health code and ID populated, but accounts created in the DB directly
     // are left in a bad state. This method validates the health code mapping on a HibernateAccount and updates it as
@@ -311,20 +399,17 @@ public class HibernateAccountDao implements AccountDao {
         return builder.build();
     }
     
+    @ReplicaSafe
     @Override
     public PagedResourceList<ExternalIdentifierInfo> getPagedExternalIds(String appId, String studyId, String idFilter,
-            Integer offsetBy, Integer pageSize) {
+            Integer offsetBy, String offsetKey, Integer pageSize) {
         checkNotNull(appId);
         checkNotNull(studyId);
         checkNotNull(offsetBy);
         checkNotNull(pageSize);
         
-        QueryBuilder query = new QueryBuilder();
-        query.append(EXTID_BASE_QUERY, "appId", appId, "studyId", studyId);
-        if (StringUtils.isNotBlank(idFilter)) {
-            query.append(EXTID_FILTER_QUERY, "idFilter", idFilter + "%");
-        }
-        query.append(EXTID_ORDER_QUERY);
+        QueryBuilder countQuery = makeExternalIdQuery(appId, studyId, idFilter, null);
+        QueryBuilder query = makeExternalIdQuery(appId, studyId, idFilter, offsetKey);
 
         List<HibernateEnrollment> enrollments = hibernateHelper.queryGet("SELECT en " + query.getQuery(), 
                 query.getParameters(), offsetBy, pageSize, HibernateEnrollment.class);
@@ -333,9 +418,25 @@ public class HibernateAccountDao implements AccountDao {
                 .map(en -> new ExternalIdentifierInfo(en.getExternalId(), en.getStudyId(), true))
                 .collect(Collectors.toList());
 
-        int count = hibernateHelper.queryCount("SELECT count(en) " + query.getQuery(), query.getParameters());
+        int count = hibernateHelper.queryCount("SELECT count(en) " + countQuery.getQuery(), 
+                countQuery.getParameters());
+        
+        String nextPageOffsetKey = (infos.size() == pageSize) ? infos.get(infos.size()-1).getIdentifier() : null;
 
-        return new PagedResourceList<>(infos, count, true);
+        return new PagedResourceList<>(infos, count, true).withNextPageOffsetKey(nextPageOffsetKey);
+    }
+    
+    // External IDs are unique in a study, so the offset key (the last external ID of the prior page) can 
+    // be used to retrieve the next page without scanning the preceding pages.
+    private QueryBuilder makeExternalIdQuery(String appId, String studyId, String idFilter, String offsetKey) {
+        QueryBuilder query = new QueryBuilder();
+        query.append(EXTID_BASE_QUERY, "appId", appId, "studyId", studyId);
+        if (StringUtils.isNotBlank(idFilter)) {
+            query.append(EXTID_FILTER_QUERY, "idFilter", idFilter + "%");
+        }
+        query.append(EXTID_OFFSET_KEY_QUERY, "offsetKey", offsetKey);
+        query.append(EXTID_ORDER_QUERY);
+        return query;
     }
     
     @Override
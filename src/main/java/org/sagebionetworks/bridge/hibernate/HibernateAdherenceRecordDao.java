@@ -4,14 +4,24 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Boolean.FALSE;
 import static org.sagebionetworks.bridge.models.SearchTermPredicate.AND;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.AdherenceRecordDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.hibernate.QueryBuilder.WhereClauseBuilder;
@@ -36,14 +46,26 @@ public class HibernateAdherenceRecordDao implements AdherenceRecordDao {
             "AND ar.eventTimestamp = au.eventTimestamp AND ar.instanceTimestamp = au.instanceTimestamp)";
     static final String WHERE_HAS_MULTIPLE_UPLOAD_IDS = UPLOAD_ID_SUBQUERY + " > 1";
     static final String WHERE_HAS_NO_UPLOAD_IDS = UPLOAD_ID_SUBQUERY + " = 0";
+    static final String SESSION_RECORDS_FOR_USERS_QUERY = "SELECT ar.* " + BASE_QUERY
+            + " WHERE ar.userId IN (:userIds) AND ar.studyId = :studyId AND tm.assessmentGuid IS NULL"
+            + " ORDER BY ar.startedOn ASC";
+    static final String RECORDS_FOR_INSTANCES_QUERY = "SELECT * FROM AdherenceRecords WHERE userId = :userId "
+            + "AND studyId = :studyId AND instanceGuid IN (:instanceGuids)";
+    static final String BATCH_SIZE_PROPERTY = "adherence.batch.size";
 
     private HibernateHelper hibernateHelper;
+    private int batchSize;
 
     @Resource(name = "mysqlHibernateHelper")
     final void setHibernateHelper(HibernateHelper hibernateHelper) {
         this.hibernateHelper = hibernateHelper;
     }
     
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.batchSize = config.getInt(BATCH_SIZE_PROPERTY);
+    }
+    
     /**
      * Saves new or updates existing adherence record unless it does not have either a startedOn
      * date or a declined flag. If both startedOn and declined are missing, then a new record will
@@ -70,36 +92,123 @@ public class HibernateAdherenceRecordDao implements AdherenceRecordDao {
                 hibernateHelper.deleteById(AdherenceRecord.class, id);
                 return;
             }
+            mergePreviousRecord(record, previousRecord);
+        }
+    
+        if (!deleteRecord) {
+            hibernateHelper.saveOrUpdate(record);
+        }
+    }
+    
+    /**
+     * The existing records are retrieved with one query per participant and study (callers submit 
+     * the records of one participant, so this is usually one query), and all inserts, updates and 
+     * deletes are then executed in one session using JDBC batching. Because we know which records 
+     * already exist, records are inserted or updated without the select Hibernate would otherwise 
+     * issue for each record in saveOrUpdate(). If the batch contains the same record more than once, 
+     * the later record is merged with the earlier one, as if they had been saved one at a time.
+     */
+    @Override
+    public void updateAdherenceRecords(List<AdherenceRecord> records) {
+        checkNotNull(records);
+        
+        if (records.isEmpty()) {
+            return;
+        }
+        Map<String, Set<String>> instanceGuidsByUserAndStudy = new HashMap<>();
+        for (AdherenceRecord record : records) {
+            instanceGuidsByUserAndStudy.computeIfAbsent(record.getUserId() + ":" + record.getStudyId(),
+                    (key) -> new HashSet<>()).add(record.getInstanceGuid());
+        }
+        Map<String, AdherenceRecord> previousRecords = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : instanceGuidsByUserAndStudy.entrySet()) {
+            String[] userAndStudy = entry.getKey().split(":", 2);
+            for (AdherenceRecord previousRecord : getAdherenceRecordsForInstances(
+                    userAndStudy[0], userAndStudy[1], entry.getValue())) {
+                previousRecords.put(recordKey(previousRecord), previousRecord);
+            }
+        }
+        
+        // Apply the same rules as updateAdherenceRecord() to each record, in order
+        Map<String, AdherenceRecord> currentRecords = new HashMap<>(previousRecords);
+        Map<String, AdherenceRecord> recordsToSave = new LinkedHashMap<>();
+        for (AdherenceRecord record : records) {
+            String key = recordKey(record);
+            boolean deleteRecord = record.getStartedOn() == null && !record.isDeclined();
             
-            // Persisted record keeps the earliest uploadedOn date.
-            DateTime previousUploadedOn = previousRecord.getUploadedOn();
-            if (previousUploadedOn != null && previousUploadedOn.isBefore(record.getUploadedOn())) {
-                record.setUploadedOn(previousUploadedOn);
+            AdherenceRecord previousRecord = currentRecords.get(key);
+            if (previousRecord != null) {
+                if (deleteRecord) {
+                    currentRecords.remove(key);
+                    recordsToSave.remove(key);
+                    continue;
+                }
+                mergePreviousRecord(record, previousRecord);
             }
+            if (!deleteRecord) {
+                currentRecords.put(key, record);
+                recordsToSave.put(key, record);
+            }
+        }
+        
+        hibernateHelper.executeWithExceptionHandling(null, (session) -> {
+            session.setJdbcBatchSize(batchSize);
             
-            // Keep uploadIds from both the previous and new record.
-            for (String uploadId : previousRecord.getUploadIds()) {
-                record.addUploadId(uploadId);
+            for (Map.Entry<String, AdherenceRecord> entry : previousRecords.entrySet()) {
+                if (!currentRecords.containsKey(entry.getKey())) {
+                    session.delete(entry.getValue());
+                }
             }
+            for (Map.Entry<String, AdherenceRecord> entry : recordsToSave.entrySet()) {
+                if (previousRecords.containsKey(entry.getKey())) {
+                    session.update(entry.getValue());
+                } else {
+                    session.save(entry.getValue());
+                }
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * Identifies a record by its primary key. DateTime equality is sensitive to the time zone, and the 
+     * submitted records and the persisted records can have different time zones, so this key uses the 
+     * epoch milliseconds of the timestamps.
+     */
+    private static String recordKey(AdherenceRecord record) {
+        return record.getUserId() + ":" + record.getStudyId() + ":" + record.getInstanceGuid() + ":"
+                + millis(record.getEventTimestamp()) + ":" + millis(record.getInstanceTimestamp());
+    }
+    
+    private static Long millis(DateTime dateTime) {
+        return (dateTime == null) ? null : dateTime.getMillis();
+    }
+    
+    private static void mergePreviousRecord(AdherenceRecord record, AdherenceRecord previousRecord) {
+        // Persisted record keeps the earliest uploadedOn date.
+        DateTime previousUploadedOn = previousRecord.getUploadedOn();
+        if (previousUploadedOn != null && previousUploadedOn.isBefore(record.getUploadedOn())) {
+            record.setUploadedOn(previousUploadedOn);
+        }
+        
+        // Keep uploadIds from both the previous and new record.
+        for (String uploadId : previousRecord.getUploadIds()) {
+            record.addUploadId(uploadId);
+        }
 
-            // Merge old post-processing attributes. Note that in the call to JsonUtils.mergeNode, later nodes take
-            // priority over earlier nodes in the list, so the new record will overwrite the old record for the keys
-            // that they share, but won't erase keys that are only in the old record. This is the behavior we want.
-            JsonNode mergedAttrNode = JsonUtils.mergeObjectNodes(previousRecord.getPostProcessingAttributes(),
-                    record.getPostProcessingAttributes());
-            record.setPostProcessingAttributes(mergedAttrNode);
+        // Merge old post-processing attributes. Note that in the call to JsonUtils.mergeNode, later nodes take
+        // priority over earlier nodes in the list, so the new record will overwrite the old record for the keys
+        // that they share, but won't erase keys that are only in the old record. This is the behavior we want.
+        JsonNode mergedAttrNode = JsonUtils.mergeObjectNodes(previousRecord.getPostProcessingAttributes(),
+                record.getPostProcessingAttributes());
+        record.setPostProcessingAttributes(mergedAttrNode);
 
-            // If the new record doesn't have post-processing completed on or status, retain the old ones.
-            if (record.getPostProcessingCompletedOn() == null) {
-                record.setPostProcessingCompletedOn(previousRecord.getPostProcessingCompletedOn());
-            }
-            if (record.getPostProcessingStatus() == null) {
-                record.setPostProcessingStatus(previousRecord.getPostProcessingStatus());
-            }
+        // If the new record doesn't have post-processing completed on or status, retain the old ones.
+        if (record.getPostProcessingCompletedOn() == null) {
+            record.setPostProcessingCompletedOn(previousRecord.getPostProcessingCompletedOn());
         }
-    
-        if (!deleteRecord) {
-            hibernateHelper.saveOrUpdate(record);
+        if (record.getPostProcessingStatus() == null) {
+            record.setPostProcessingStatus(previousRecord.getPostProcessingStatus());
         }
     }
 
@@ -119,6 +228,32 @@ public class HibernateAdherenceRecordDao implements AdherenceRecordDao {
         return new PagedResourceList<>(records, total, true);
     }
 
+    @Override
+    public List<AdherenceRecord> getSessionAdherenceRecords(String studyId, Collection<String> userIds) {
+        checkNotNull(studyId);
+        checkNotNull(userIds);
+        
+        if (userIds.isEmpty()) {
+            return ImmutableList.of();
+        }
+        return hibernateHelper.nativeQueryGet(SESSION_RECORDS_FOR_USERS_QUERY,
+                ImmutableMap.of("studyId", studyId, "userIds", userIds), null, null, AdherenceRecord.class);
+    }
+
+    @Override
+    public List<AdherenceRecord> getAdherenceRecordsForInstances(String userId, String studyId,
+            Collection<String> instanceGuids) {
+        checkNotNull(userId);
+        checkNotNull(studyId);
+        checkNotNull(instanceGuids);
+        
+        if (instanceGuids.isEmpty()) {
+            return ImmutableList.of();
+        }
+        return hibernateHelper.nativeQueryGet(RECORDS_FOR_INSTANCES_QUERY, ImmutableMap.of("userId", userId,
+                "studyId", studyId, "instanceGuids", instanceGuids), null, null, AdherenceRecord.class);
+    }
+
     protected QueryBuilder createQuery(AdherenceRecordsSearch search) {
         QueryBuilder builder = new QueryBuilder();
 
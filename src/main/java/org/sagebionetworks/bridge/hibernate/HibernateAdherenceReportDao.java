@@ -88,6 +88,7 @@ public class HibernateAdherenceReportDao implements AdherenceReportDao {
         hibernateHelper.saveOrUpdate(report);
     }
 
+    @ReplicaSafe
     @Override
     public PagedResourceList<WeeklyAdherenceReport> getWeeklyAdherenceReports(String appId, String studyId,
             AdherenceReportSearch search) {
@@ -145,6 +146,7 @@ public class HibernateAdherenceReportDao implements AdherenceReportDao {
         return new PagedResourceList<>(reports, total, true);
     }
 
+    @ReplicaSafe
     @Override
     public AdherenceStatistics getAdherenceStatistics(String appId, String studyId, Integer adherenceThreshold) {
         List<AdherenceStatisticsEntry> entries = new ArrayList<>();
@@ -0,0 +1,125 @@
+package org.sagebionetworks.bridge.hibernate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+/**
+ * <p>
+ * Second-level cache for read-mostly Hibernate entities (studies, organizations, and templates). Cached entities are
+ * annotated with {@link org.hibernate.annotations.Cache} and one of the regions below. Assessments and schedules are
+ * not cached: they are read with queries, and their collections would be read from the cache even when the entity is
+ * about to be changed. Each region is a local, in-process Ehcache cache with a maximum number of entries and a
+ * time-to-live.
+ * </p>
+ * <p>
+ * Hibernate evicts entries on this node when an entity is updated or deleted through a session, and clears the
+ * affected regions on bulk HQL updates and deletes (all regions on native SQL updates). Nothing is invalidated on
+ * other nodes, so the time-to-live bounds how stale another node's copy can be. For this reason the cache is off by
+ * default, and objects that are about to be changed should be read with {@link HibernateHelper#getByIdForUpdate}.
+ * The query cache is also off by default: lists of entities are much more likely to change than the entities
+ * themselves.
+ * </p>
+ */
+public class HibernateCacheConfig {
+    static final String CONFIG_KEY_ENABLED = "hibernate.cache.enabled";
+    static final String CONFIG_KEY_MAX_ENTRIES = "hibernate.cache.max.entries";
+    static final String CONFIG_KEY_TTL_SECONDS = "hibernate.cache.ttl.seconds";
+    static final String CONFIG_KEY_QUERY_CACHE_ENABLED = "hibernate.cache.query.enabled";
+
+    public static final String ORGANIZATION_REGION = "organization";
+    public static final String STUDY_REGION = "study";
+    public static final String TEMPLATE_REGION = "template";
+    static final List<String> REGIONS = ImmutableList.of(ORGANIZATION_REGION, STUDY_REGION, TEMPLATE_REGION);
+
+    // Hibernate's default region names for the query cache.
+    static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    /** Adds the second-level cache settings to the given Hibernate properties, if it's enabled in the config. */
+    public static void applySettings(Properties props, BridgeConfig config) {
+        if (!Boolean.parseBoolean(config.get(CONFIG_KEY_ENABLED))) {
+            return;
+        }
+        applySettings(props, config.getPropertyAsInt(CONFIG_KEY_MAX_ENTRIES),
+                config.getPropertyAsInt(CONFIG_KEY_TTL_SECONDS),
+                Boolean.parseBoolean(config.get(CONFIG_KEY_QUERY_CACHE_ENABLED)));
+    }
+
+    // Package-scoped so tests can build a session factory with the cache, without a Bridge config.
+    static void applySettings(Properties props, int maxEntries, int ttlSeconds, boolean useQueryCache) {
+        props.put("hibernate.cache.use_second_level_cache", true);
+        props.put("hibernate.cache.use_query_cache", useQueryCache);
+        props.put("hibernate.cache.region.factory_class", "jcache");
+        props.put("hibernate.javax.cache.cache_manager", createCacheManager(maxEntries, ttlSeconds));
+        // Every region is configured up front. Fail rather than silently create an unbounded cache for a typo.
+        props.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+        // Needed for the per-region hit and miss counts.
+        props.put("hibernate.generate_statistics", true);
+    }
+
+    static CacheManager createCacheManager(int maxEntries, int ttlSeconds) {
+        CacheConfiguration<Object, Object> regionConfig = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ttlSeconds))).build();
+
+        ConfigurationBuilder builder = ConfigurationBuilder.newConfigurationBuilder();
+        for (String region : REGIONS) {
+            builder = builder.addCache(region, regionConfig);
+        }
+        builder = builder.addCache(QUERY_RESULTS_REGION, regionConfig);
+        // Update timestamps must outlive any cached query result that depends on them, so they never expire.
+        builder = builder.addCache(UPDATE_TIMESTAMPS_REGION, CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .build());
+
+        // Each session factory gets its own cache manager, so separate factories (in tests) never share entries.
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching
+                .getCachingProvider(EhcacheCachingProvider.class.getName());
+        return provider.getCacheManager(URI.create("urn:bridge:hibernate:" + UUID.randomUUID()), builder.build());
+    }
+
+    /**
+     * Hit, miss, and put counts for each second-level cache region, on this node. Empty if the second-level cache
+     * isn't enabled.
+     */
+    public static Map<String, Map<String, Long>> getStats(SessionFactory sessionFactory) {
+        Map<String, Map<String, Long>> stats = Maps.newTreeMap();
+        Statistics statistics = sessionFactory.getStatistics();
+        // Hibernate only knows about regions that a mapped entity uses, and rejects stats requests for any other.
+        Set<String> regionNames = ImmutableSet.copyOf(statistics.getSecondLevelCacheRegionNames());
+        for (String region : REGIONS) {
+            if (regionNames.contains(region)) {
+                CacheRegionStatistics regionStats = statistics.getDomainDataRegionStatistics(region);
+                Map<String, Long> regionMap = Maps.newTreeMap();
+                regionMap.put("hits", regionStats.getHitCount());
+                regionMap.put("misses", regionStats.getMissCount());
+                regionMap.put("puts", regionStats.getPutCount());
+                stats.put(region, regionMap);
+            }
+        }
+        return stats;
+    }
+}
@@ -10,9 +10,12 @@ import java.util.function.Function;
 import javax.persistence.PersistenceException;
 import javax.persistence.RollbackException;
 
+import org.hibernate.CacheMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.annotations.Cache;
+import org.hibernate.boot.spi.SessionFactoryOptions;
 import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
@@ -21,10 +24,14 @@ import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 public class HibernateHelper {
     private SessionFactory hibernateSessionFactory;
     private PersistenceExceptionConverter exceptionConverter;
+    private boolean queryCacheEnabled;
 
     public HibernateHelper(SessionFactory hibernateSessionFactory, PersistenceExceptionConverter exceptionConverter) {
         this.hibernateSessionFactory = hibernateSessionFactory;
         this.exceptionConverter = exceptionConverter;
+        
+        SessionFactoryOptions options = hibernateSessionFactory.getSessionFactoryOptions();
+        this.queryCacheEnabled = options != null && options.isQueryCacheEnabled();
     }
 
     /**
@@ -42,10 +49,10 @@ public class HibernateHelper {
 
     /** Deletes the given object. */
     public <T> void deleteById(Class<T> clazz, Serializable id) {
-        T obj = getById(clazz, id);
         // Hibernate optimistic versioning also applies to deletes. However, unlike updates, when we delete something,
         // we want it gone, so we generally don't care about optimistic versioning. In order to handle this in
         // Hibernate, we need to load the whole object before deleting it.
+        T obj = getByIdForUpdate(clazz, id);
         executeWithExceptionHandling(obj, session -> {
             session.delete(obj);
             return null;
@@ -57,6 +64,19 @@ public class HibernateHelper {
         return executeWithExceptionHandling(null, session -> session.get(clazz, id));
     }
 
+    /**
+     * Get by the table's primary key, from the database rather than the second-level cache. The cache is per node and
+     * may hold an older version if the object was updated on another node, so objects that are about to be changed
+     * should be read with this method; otherwise the change is checked against (and fails the version check of) an
+     * old version. The cache is refreshed with the object that is read. Returns null if the object doesn't exist.
+     */
+    public <T> T getByIdForUpdate(Class<T> clazz, Serializable id) {
+        return executeWithExceptionHandling(null, session -> {
+            session.setCacheMode(CacheMode.REFRESH);
+            return session.get(clazz, id);
+        });
+    }
+
     /**
      * Executes the query and returns the count. The query should be a count based query.
      */
@@ -120,6 +140,7 @@ public class HibernateHelper {
             if (limit != null) {
                 query.setMaxResults(limit);
             }
+            setCacheable(query, clazz);
             return query.list();
         });
     }
@@ -141,9 +162,18 @@ public class HibernateHelper {
                     query.setParameter(entry.getKey(), entry.getValue());
                 }
             }
+            setCacheable(query, clazz);
             return query.uniqueResultOptional();
         });
     }
+    
+    // Results are only cached for entities in the second-level cache, and only if the query cache is enabled. The
+    // query cache stores IDs, so caching queries for anything else would load each result with a separate select.
+    private <T> void setCacheable(Query<T> query, Class<T> clazz) {
+        if (queryCacheEnabled && clazz.isAnnotationPresent(Cache.class)) {
+            query.setCacheable(true);
+        }
+    }
 
     public <T> List<T> nativeQueryGet(String queryString, Map<String,Object> parameters, Integer offset, Integer limit, Class<T> clazz) {
         return executeWithExceptionHandling(null, session -> {
@@ -78,6 +78,17 @@ public class HibernateOrganizationDao implements OrganizationDao {
         
         return (org == null) ? Optional.empty() : Optional.of((Organization)org);
     }
+    
+    @Override
+    public Optional<Organization> getOrganizationForUpdate(String appId, String identifier) {
+        checkArgument(isNotBlank(appId));
+        checkArgument(isNotBlank(identifier));
+        
+        OrganizationId id = new OrganizationId(appId, identifier);
+        HibernateOrganization org = hibernateHelper.getByIdForUpdate(HibernateOrganization.class, id);
+        
+        return (org == null) ? Optional.empty() : Optional.of((Organization)org);
+    }
 
     @Override
     public void deleteOrganization(Organization organization) {
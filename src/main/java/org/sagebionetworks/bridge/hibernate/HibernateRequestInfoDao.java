@@ -2,8 +2,14 @@ package org.sagebionetworks.bridge.hibernate;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Collection;
+import java.util.List;
+
 import javax.annotation.Resource;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.dao.RequestInfoDao;
@@ -11,6 +17,8 @@ import org.sagebionetworks.bridge.models.RequestInfo;
 
 @Component
 public class HibernateRequestInfoDao implements RequestInfoDao {
+    static final String GET_FOR_USERS_QUERY = "FROM RequestInfo WHERE userId IN (:userIds)";
+    
     private HibernateHelper hibernateHelper;
     
     @Resource(name = "basicHibernateHelper")
@@ -38,6 +46,17 @@ public class HibernateRequestInfoDao implements RequestInfoDao {
         return hibernateHelper.getById(RequestInfo.class, userId);
     }
     
+    @Override
+    public List<RequestInfo> getRequestInfos(Collection<String> userIds) {
+        checkNotNull(userIds);
+        
+        if (userIds.isEmpty()) {
+            return ImmutableList.of();
+        }
+        return hibernateHelper.queryGet(GET_FOR_USERS_QUERY, ImmutableMap.of("userIds", userIds), 
+                null, null, RequestInfo.class);
+    }
+    
     @Override
     public void removeRequestInfo(String userId) {
         checkNotNull(userId);
@@ -7,6 +7,7 @@ import static java.util.stream.Collectors.toSet;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -52,6 +53,9 @@ public class HibernateSchedule2Dao implements Schedule2Dao {
             + "studyBurstId, studyBurstNum, sessionSymbol, sessionName) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
     static final String DELETE_TIMELINE_RECORDS = "DELETE FROM TimelineMetadata WHERE scheduleGuid = :scheduleGuid";
     static final String SELECT_ASSESSMENTS_FOR_SESSION_INSTANCE = "SELECT * FROM TimelineMetadata WHERE sessionInstanceGuid = :instanceGuid AND assessmentInstanceGuid IS NOT NULL";
+    static final String SELECT_METADATA_FOR_INSTANCES = "SELECT * FROM TimelineMetadata WHERE guid IN (:guids)";
+    static final String SELECT_METADATA_FOR_SESSION_INSTANCES = "SELECT * FROM TimelineMetadata "
+            + "WHERE sessionInstanceGuid IN (:guids)";
     static final String DELETE_ALL_SCHEDULES = "DELETE FROM Schedules WHERE appId = :appId";
     static final String BATCH_SIZE_PROPERTY = "schedule.batch.size";
     static final String SELECT_SESSION_METADATA_FOR_SCHEDULE = "SELECT * from TimelineMetadata where scheduleGuid = :scheduleGuid "
@@ -291,6 +295,28 @@ public class HibernateSchedule2Dao implements Schedule2Dao {
         return Optional.ofNullable(tm);
     }
 
+    @Override
+    public List<TimelineMetadata> getTimelineMetadataForInstances(Collection<String> instanceGuids) {
+        checkNotNull(instanceGuids);
+        
+        if (instanceGuids.isEmpty()) {
+            return ImmutableList.of();
+        }
+        return hibernateHelper.nativeQueryGet(SELECT_METADATA_FOR_INSTANCES, 
+                ImmutableMap.of(GUIDS, instanceGuids), null, null, TimelineMetadata.class);
+    }
+    
+    @Override
+    public List<TimelineMetadata> getMetadataForSessionInstances(Collection<String> sessionInstanceGuids) {
+        checkNotNull(sessionInstanceGuids);
+        
+        if (sessionInstanceGuids.isEmpty()) {
+            return ImmutableList.of();
+        }
+        return hibernateHelper.nativeQueryGet(SELECT_METADATA_FOR_SESSION_INSTANCES, 
+                ImmutableMap.of(GUIDS, sessionInstanceGuids), null, null, TimelineMetadata.class);
+    }
+
     @Override
     public List<TimelineMetadata> getScheduleMetadata(String scheduleGuid) {
         checkNotNull(scheduleGuid);
@@ -1,5 +1,7 @@
 package org.sagebionetworks.bridge.hibernate;
 
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
+import static org.sagebionetworks.bridge.hibernate.HibernateCacheConfig.STUDY_REGION;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.TIMELINE_RETRIEVED;
 
 import java.util.ArrayList;
@@ -22,6 +24,7 @@ import javax.persistence.OrderColumn;
 import javax.persistence.Table;
 import javax.persistence.Version;
 
+import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
 import org.joda.time.DateTime;
@@ -42,6 +45,7 @@ import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.JsonNode;
 
+@Cache(usage = READ_WRITE, region = STUDY_REGION)
 @Entity
 @Table(name = "Substudies")
 @IdClass(StudyId.class)
@@ -93,6 +97,7 @@ public class HibernateStudy implements Study {
     // for collections that we might use in future queries; JSON for collections
     // that we'll never reference apart from the study object.
     
+    @Cache(usage = READ_WRITE, region = STUDY_REGION)
     @ElementCollection(fetch = FetchType.EAGER)
     @Fetch(value = FetchMode.SUBSELECT)
     @OrderColumn(name="pos") // can’t use 'position' in this case
@@ -101,6 +106,7 @@ public class HibernateStudy implements Study {
     })
     private List<Contact> contacts;
     
+    @Cache(usage = READ_WRITE, region = STUDY_REGION)
     @ElementCollection(fetch = FetchType.EAGER)
     @Fetch(value = FetchMode.SUBSELECT)
     @CollectionTable(name="StudyDiseases", 
@@ -108,6 +114,7 @@ public class HibernateStudy implements Study {
     @Column(name="disease")
     private Set<String> diseases;
     
+    @Cache(usage = READ_WRITE, region = STUDY_REGION)
     @ElementCollection(fetch = FetchType.EAGER)
     @Fetch(value = FetchMode.SUBSELECT)
     @CollectionTable(name="StudyDesignTypes", 
@@ -118,6 +125,7 @@ public class HibernateStudy implements Study {
     @Convert(converter = SignInTypeListConverter.class)
     private List<SignInType> signInTypes;
     
+    @Cache(usage = READ_WRITE, region = STUDY_REGION)
     @ElementCollection(fetch = FetchType.EAGER)
     @Fetch(value = FetchMode.SUBSELECT)
     @OrderColumn(name="pos") // can’t use 'position' in this case
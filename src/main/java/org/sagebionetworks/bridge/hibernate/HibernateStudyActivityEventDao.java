@@ -1,16 +1,20 @@
 package org.sagebionetworks.bridge.hibernate;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Resource;
 
+import com.google.common.collect.ImmutableMap;
+
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.dao.StudyActivityEventDao;
@@ -23,6 +27,7 @@ public class HibernateStudyActivityEventDao implements StudyActivityEventDao {
     static final String EVENT_ID_FIELD = "eventId";
     static final String STUDY_ID_FIELD = "studyId";
     static final String USER_ID_FIELD = "userId";
+    static final String USER_IDS_FIELD = "userIds";
 
     static final String DELETE_SQL = "DELETE FROM StudyActivityEvents " +
             "WHERE userId = :userId AND studyId = :studyId AND eventId = :eventId";
@@ -35,6 +40,15 @@ public class HibernateStudyActivityEventDao implements StudyActivityEventDao {
             "eventTimestamp FROM StudyActivityEvents WHERE userId = :userId AND studyId = " +
             ":studyId AND eventId = sae.eventId ORDER BY createdOn DESC LIMIT 1) " +
             "ORDER BY eventId";
+    
+    // The same query as GET_RECENT_SQL, correlated on the user of each row rather than a single user.
+    static final String GET_RECENT_FOR_USERS_SQL = "SELECT *, (SELECT count(*) as total FROM " +
+            "StudyActivityEvents WHERE eventId = sae.eventId AND studyId = :studyId " +
+            "AND userId = sae.userId GROUP BY eventId) FROM StudyActivityEvents AS sae " +
+            "WHERE userId IN (:userIds) AND studyId = :studyId AND eventTimestamp = (SELECT " +
+            "eventTimestamp FROM StudyActivityEvents WHERE userId = sae.userId AND studyId = " +
+            ":studyId AND eventId = sae.eventId ORDER BY createdOn DESC LIMIT 1) " +
+            "ORDER BY userId, eventId";
 
     static final String HISTORY_SQL = "FROM StudyActivityEvents WHERE " +
             "userId = :userId AND studyId = :studyId AND eventId = :eventId " +
@@ -77,6 +91,23 @@ public class HibernateStudyActivityEventDao implements StudyActivityEventDao {
         return results.stream().map(StudyActivityEvent::create).collect(toList());
     }
     
+    @Override
+    public Map<String, List<StudyActivityEvent>> getRecentStudyActivityEvents(Collection<String> userIds,
+            String studyId) {
+        checkNotNull(userIds);
+        checkNotNull(studyId);
+        
+        if (userIds.isEmpty()) {
+            return ImmutableMap.of();
+        }
+        QueryBuilder builder = new QueryBuilder();
+        builder.append(GET_RECENT_FOR_USERS_SQL, USER_IDS_FIELD, userIds, STUDY_ID_FIELD, studyId);
+        
+        List<Object[]> results = helper.nativeQuery(builder.getQuery(), builder.getParameters());
+        return results.stream().map(StudyActivityEvent::create)
+                .collect(groupingBy(StudyActivityEvent::getUserId, toList()));
+    }
+    
     @Override
     public StudyActivityEvent getRecentStudyActivityEvent(String userId, String studyId, String eventId) {
         checkNotNull(userId);
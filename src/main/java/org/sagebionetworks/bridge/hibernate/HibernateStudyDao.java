@@ -117,6 +117,15 @@ public class HibernateStudyDao implements StudyDao {
         return hibernateHelper.getById(HibernateStudy.class, studyId);
     }
     
+    @Override
+    public Study getStudyForUpdate(String appId, String id) {
+        checkNotNull(appId);
+        checkNotNull(id);
+
+        StudyId studyId = new StudyId(appId, id);
+        return hibernateHelper.getByIdForUpdate(HibernateStudy.class, studyId);
+    }
+    
     @Override
     public VersionHolder createStudy(Study study) {
         checkNotNull(study);
@@ -1,5 +1,8 @@
 package org.sagebionetworks.bridge.hibernate;
 
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
+import static org.sagebionetworks.bridge.hibernate.HibernateCacheConfig.TEMPLATE_REGION;
+
 import javax.persistence.Column;
 import javax.persistence.Convert;
 import javax.persistence.Entity;
@@ -10,6 +13,8 @@ import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.persistence.Version;
 
+import org.hibernate.annotations.Cache;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import org.joda.time.DateTime;
@@ -18,6 +23,7 @@ import org.sagebionetworks.bridge.models.Criteria;
 import org.sagebionetworks.bridge.models.templates.Template;
 import org.sagebionetworks.bridge.models.templates.TemplateType;
 
+@Cache(usage = READ_WRITE, region = TEMPLATE_REGION)
 @Entity
 @Table(name = "Templates")
 public final class HibernateTemplate implements Template {
@@ -77,6 +77,17 @@ public class HibernateTemplateDao implements TemplateDao {
         }
         return Optional.ofNullable(template);
     }
+    
+    @Override
+    public Optional<Template> getTemplateForUpdate(String appId, String guid) { 
+        checkNotNull(guid);
+        
+        Template template = hibernateHelper.getByIdForUpdate(HibernateTemplate.class, guid);
+        if (template != null && !template.getAppId().equals(appId)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(template);
+    }
 
     @Override
     public void createTemplate(Template template) {
@@ -96,7 +107,7 @@ public class HibernateTemplateDao implements TemplateDao {
     public void deleteTemplatePermanently(String appId, String guid) {
         checkNotNull(guid);
         
-        Optional<Template> template = getTemplate(appId, guid);
+        Optional<Template> template = getTemplateForUpdate(appId, guid);
         if (template.isPresent()) {
             hibernateHelper.deleteById(HibernateTemplate.class, guid);    
         }
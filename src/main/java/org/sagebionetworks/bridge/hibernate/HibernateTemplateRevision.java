@@ -14,6 +14,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.joda.time.DateTime;
 
 import org.sagebionetworks.bridge.models.apps.MimeType;
+import org.sagebionetworks.bridge.models.templates.CompiledTemplate;
 import org.sagebionetworks.bridge.models.templates.TemplateRevision;
 import org.sagebionetworks.bridge.models.templates.TemplateRevisionId;
 
@@ -34,6 +35,11 @@ public class HibernateTemplateRevision implements TemplateRevision {
     @Enumerated(EnumType.STRING)
     private MimeType mimeType;
     private String subject;
+    // Compiled lazily. Revisions are immutable once saved, so these are kept with cached revisions.
+    @Transient
+    private volatile CompiledTemplate compiledSubject;
+    @Transient
+    private volatile CompiledTemplate compiledDocumentContent;
     
     @Override
     @JsonIgnore
@@ -84,6 +90,7 @@ public class HibernateTemplateRevision implements TemplateRevision {
     @Override
     public void setSubject(String subject) {
         this.subject = subject;
+        this.compiledSubject = null;
     }
     @Override
     public String getDocumentContent() {
@@ -92,5 +99,24 @@ public class HibernateTemplateRevision implements TemplateRevision {
     @Override
     public void setDocumentContent(String documentContent) {
         this.documentContent = documentContent;
+        this.compiledDocumentContent = null;
+    }
+    @JsonIgnore
+    @Override
+    public CompiledTemplate getCompiledSubject() {
+        CompiledTemplate compiled = compiledSubject;
+        if (compiled == null && subject != null) {
+            compiled = compiledSubject = CompiledTemplate.compile(subject);
+        }
+        return compiled;
+    }
+    @JsonIgnore
+    @Override
+    public CompiledTemplate getCompiledDocumentContent() {
+        CompiledTemplate compiled = compiledDocumentContent;
+        if (compiled == null && documentContent != null) {
+            compiled = compiledDocumentContent = CompiledTemplate.compile(documentContent);
+        }
+        return compiled;
     }
 }
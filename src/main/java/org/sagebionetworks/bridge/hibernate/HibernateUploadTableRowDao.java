@@ -36,6 +36,7 @@ public class HibernateUploadTableRowDao implements UploadTableRowDao {
         return Optional.ofNullable(row);
     }
 
+    @ReplicaSafe
     @Override
     public PagedResourceList<UploadTableRow> queryUploadTableRows(UploadTableRowQuery query) {
         QueryBuilder builder = new QueryBuilder();
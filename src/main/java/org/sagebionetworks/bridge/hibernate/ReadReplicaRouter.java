@@ -0,0 +1,251 @@
+package org.sagebionetworks.bridge.hibernate;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mchange.v2.c3p0.DataSources;
+import com.mchange.v2.c3p0.PooledDataSource;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * <p>
+ * Routes Hibernate connections between the primary database and an optional read-only replica. Connections go to the
+ * primary, except while a DAO method annotated with {@link ReplicaSafe} is running on the current thread, and the
+ * replica is no further behind the primary than the configured maximum lag.
+ * </p>
+ * <p>
+ * The replica's lag is checked on a background thread with the configured lag query. For MySQL, this is
+ * {@link #MYSQL_LAG_QUERY}, which returns no rows for a replica that doesn't use binlog replication (like an Aurora
+ * replica), and a null lag when replication has stopped. Until the first successful check, and whenever a check fails,
+ * everything goes to the primary.
+ * </p>
+ * <p>
+ * Connection counts and the time spent waiting to check out a connection are kept for each pool, to tell whether
+ * either pool is undersized.
+ * </p>
+ */
+@Aspect
+public class ReadReplicaRouter {
+    private static final Logger LOG = LoggerFactory.getLogger(ReadReplicaRouter.class);
+
+    public static final String MYSQL_LAG_QUERY = "SHOW SLAVE STATUS";
+    static final String LAG_COLUMN = "Seconds_Behind_Master";
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private static final ThreadLocal<Boolean> REPLICA_SAFE = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final long lagCheckIntervalSeconds;
+    private final DataSource routingDataSource = new RoutingDataSource();
+    private final PoolMetrics primaryMetrics = new PoolMetrics();
+    private final PoolMetrics replicaMetrics = new PoolMetrics();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    // The replica's lag as of the last check, or null if it couldn't be checked or isn't replicating.
+    private volatile Long replicaLagSeconds;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a router for the given pools. The replica may be null, in which case everything goes to the primary.
+     */
+    public ReadReplicaRouter(DataSource primary, DataSource replica, String lagQuery, long maxLagSeconds,
+            long lagCheckIntervalSeconds) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        this.lagCheckIntervalSeconds = lagCheckIntervalSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (replica != null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("read-replica-lag-%d").setDaemon(true).build());
+            scheduler.scheduleWithFixedDelay(this::checkReplicaLag, 0, lagCheckIntervalSeconds, SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        LOG.info("Read replica router stopped: " + getStats());
+        destroy(primary);
+        if (replica != null) {
+            destroy(replica);
+        }
+    }
+
+    /** The data source that Hibernate gets its connections from. */
+    public DataSource getDataSource() {
+        return routingDataSource;
+    }
+
+    /** Marks the DAO method as replica-safe for as long as it runs on this thread. */
+    @Around("@annotation(ReplicaSafe)")
+    public Object routeReplicaSafe(ProceedingJoinPoint joinPoint) throws Throwable {
+        Boolean previous = REPLICA_SAFE.get();
+        REPLICA_SAFE.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            REPLICA_SAFE.set(previous);
+        }
+    }
+
+    // Package-scoped to facilitate unit tests.
+    void checkReplicaLag() {
+        Long lag = null;
+        try (Connection connection = replica.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (resultSet.next()) {
+                long value = resultSet.getLong(LAG_COLUMN);
+                if (!resultSet.wasNull()) {
+                    lag = value;
+                }
+            } else {
+                // Not a binlog replica, so there's no lag to report.
+                lag = 0L;
+            }
+        } catch (SQLException | RuntimeException ex) {
+            // Don't let the exception escape, or the lag is never checked again.
+            LOG.warn("Error checking read replica lag", ex);
+        }
+
+        boolean wasUsable = isUsable(replicaLagSeconds);
+        replicaLagSeconds = lag;
+        if (wasUsable != isUsable(lag)) {
+            LOG.info("Read replica " + (isUsable(lag) ? "is" : "is not") + " in use, lag is " + lag + " seconds");
+        }
+    }
+
+    private boolean isUsable(Long lag) {
+        return lag != null && lag <= maxLagSeconds;
+    }
+
+    // Package-scoped to facilitate unit tests.
+    Connection getConnection() throws SQLException {
+        return getConnection(DataSource::getConnection);
+    }
+
+    // Package-scoped to facilitate unit tests.
+    Connection getConnection(String username, String password) throws SQLException {
+        return getConnection(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection getConnection(ConnectionOpener opener) throws SQLException {
+        if (REPLICA_SAFE.get() && replica != null) {
+            if (isUsable(replicaLagSeconds)) {
+                return replicaMetrics.getConnection(replica, opener);
+            }
+            fallbacks.incrementAndGet();
+        }
+        return primaryMetrics.getConnection(primary, opener);
+    }
+
+    /**
+     * Connection checkouts and wait times for each pool on this node, and the number of busy and idle connections and
+     * threads waiting for a connection. The replica also has its last known lag (-1 if unknown) and the number of
+     * replica-safe checkouts that went to the primary because the replica was lagging or unavailable.
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = Maps.newTreeMap();
+        stats.put(PRIMARY, primaryMetrics.getStats(primary));
+        if (replica != null) {
+            Map<String, Long> replicaStats = replicaMetrics.getStats(replica);
+            Long lag = replicaLagSeconds;
+            replicaStats.put("lagSeconds", (lag != null) ? lag : -1L);
+            replicaStats.put("fallbacks", fallbacks.get());
+            stats.put(REPLICA, replicaStats);
+        }
+        return stats;
+    }
+
+    private static void destroy(DataSource dataSource) {
+        try {
+            DataSources.destroy(dataSource);
+        } catch (SQLException ex) {
+            LOG.warn("Error closing connection pool", ex);
+        }
+    }
+
+    private class RoutingDataSource extends AbstractDataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            return ReadReplicaRouter.this.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return ReadReplicaRouter.this.getConnection(username, password);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+
+    private static class PoolMetrics {
+        private final AtomicLong checkouts = new AtomicLong();
+        private final AtomicLong totalWaitMillis = new AtomicLong();
+        private final AtomicLong maxWaitMillis = new AtomicLong();
+
+        Connection getConnection(DataSource dataSource, ConnectionOpener opener) throws SQLException {
+            long startNanos = System.nanoTime();
+            try {
+                return opener.open(dataSource);
+            } finally {
+                long waitMillis = NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                checkouts.incrementAndGet();
+                totalWaitMillis.addAndGet(waitMillis);
+                maxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+            }
+        }
+
+        Map<String, Long> getStats(DataSource dataSource) {
+            Map<String, Long> stats = Maps.newTreeMap();
+            stats.put("checkouts", checkouts.get());
+            stats.put("totalWaitMillis", totalWaitMillis.get());
+            stats.put("maxWaitMillis", maxWaitMillis.get());
+            if (dataSource instanceof PooledDataSource) {
+                PooledDataSource pool = (PooledDataSource) dataSource;
+                try {
+                    stats.put("busy", (long) pool.getNumBusyConnectionsDefaultUser());
+                    stats.put("idle", (long) pool.getNumIdleConnectionsDefaultUser());
+                    stats.put("threadsAwaiting", (long) pool.getNumThreadsAwaitingCheckoutDefaultUser());
+                } catch (SQLException ex) {
+                    LOG.warn("Error getting connection pool stats", ex);
+                }
+            }
+            return stats;
+        }
+    }
+}
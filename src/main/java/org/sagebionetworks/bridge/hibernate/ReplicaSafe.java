@@ -0,0 +1,17 @@
+package org.sagebionetworks.bridge.hibernate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation for a DAO method whose queries may be served by the read replica. Only use this on methods that never
+ * write, and whose callers can tolerate results that are a few seconds behind the primary (searches and reports, not
+ * reads that follow a write in the same request). When the replica isn't configured, or is lagging behind the primary,
+ * the queries go to the primary as usual. See {@link ReadReplicaRouter}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaSafe {
+}
@@ -22,6 +22,7 @@ public final class AccountSummarySearch implements BridgeEntity {
     
     public static final AccountSummarySearch EMPTY_SEARCH = new AccountSummarySearch.Builder().build();
     private final int offsetBy;
+    private final String offsetKey;
     private final int pageSize;
     private final String emailFilter;
     private final String phoneFilter;
@@ -44,6 +45,7 @@ public final class AccountSummarySearch implements BridgeEntity {
 
     private AccountSummarySearch(AccountSummarySearch.Builder builder) {
         this.offsetBy = builder.offsetBy;
+        this.offsetKey = builder.offsetKey;
         this.pageSize = builder.pageSize;
         this.emailFilter = builder.emailFilter;
         this.phoneFilter = builder.phoneFilter;
@@ -68,6 +70,14 @@ public final class AccountSummarySearch implements BridgeEntity {
     public int getOffsetBy() {
         return offsetBy;
     }
+    /**
+     * The nextPageOffsetKey of the prior page of this search. Results are returned in account ID order 
+     * after this key, so unlike offsetBy, the cost of retrieving a page does not grow with the number of 
+     * pages that precede it. Cannot be combined with offsetBy.
+     */
+    public String getOffsetKey() {
+        return offsetKey;
+    }
     public int getPageSize() {
         return pageSize;
     }
@@ -151,6 +161,7 @@ public final class AccountSummarySearch implements BridgeEntity {
     public AccountSummarySearch.Builder toBuilder() {
         return new AccountSummarySearch.Builder()
             .withOffsetBy(offsetBy)
+            .withOffsetKey(offsetKey)
             .withPageSize(pageSize)
             .withEmailFilter(emailFilter)
             .withPhoneFilter(phoneFilter)
@@ -179,7 +190,7 @@ public final class AccountSummarySearch implements BridgeEntity {
         // versus ISOChronology[-07:00] if that's the offset at the time of serialization). Using the ISO String
         // representation of the DateTime gives us equality across serialization.
         return Objects.hash(allOfGroups, emailFilter, nullsafeDateString(endTime), language, noneOfGroups, offsetBy,
-                pageSize, phoneFilter, nullsafeDateString(startTime), orgMembership, adminOnly, enrolledInStudyId,
+                offsetKey, pageSize, phoneFilter, nullsafeDateString(startTime), orgMembership, adminOnly, enrolledInStudyId,
                 externalIdFilter, status, enrollment, attributeKey, attributeValueFilter, predicate,
                 stringSearchPosition, inUse);
     }
@@ -198,7 +209,8 @@ public final class AccountSummarySearch implements BridgeEntity {
         return Objects.equals(allOfGroups, other.allOfGroups) && Objects.equals(emailFilter, other.emailFilter)
                 && Objects.equals(nullsafeDateString(endTime),  nullsafeDateString(other.endTime))
                 && Objects.equals(language, other.language) && Objects.equals(noneOfGroups, other.noneOfGroups)
-                && Objects.equals(offsetBy, other.offsetBy) && Objects.equals(pageSize, other.pageSize)
+                && Objects.equals(offsetBy, other.offsetBy) && Objects.equals(offsetKey, other.offsetKey)
+                && Objects.equals(pageSize, other.pageSize)
                 && Objects.equals(phoneFilter, other.phoneFilter)
                 && Objects.equals(nullsafeDateString(startTime), nullsafeDateString(other.startTime))
                 && Objects.equals(orgMembership, other.orgMembership)
@@ -220,7 +232,7 @@ public final class AccountSummarySearch implements BridgeEntity {
 
     @Override
     public String toString() {
-        return "AccountSummarySearch [offsetBy=" + offsetBy + ", pageSize=" + pageSize + ", emailFilter=" + emailFilter
+        return "AccountSummarySearch [offsetBy=" + offsetBy + ", offsetKey=" + offsetKey + ", pageSize=" + pageSize + ", emailFilter=" + emailFilter
                 + ", phoneFilter=" + phoneFilter + ", allOfGroups=" + allOfGroups + ", noneOfGroups=" + noneOfGroups
                 + ", language=" + language + ", startTime=" + startTime + ", endTime=" + endTime + ", orgMembership="
                 + orgMembership + ", adminOnly=" + adminOnly + ", enrolledInStudyId=" + enrolledInStudyId
@@ -231,6 +243,7 @@ public final class AccountSummarySearch implements BridgeEntity {
 
     public static class Builder {
         private Integer offsetBy;
+        private String offsetKey;
         private Integer pageSize;
         private String emailFilter;
         private String phoneFilter;
@@ -255,6 +268,10 @@ public final class AccountSummarySearch implements BridgeEntity {
             this.offsetBy = offsetBy;
             return this;
         }
+        public Builder withOffsetKey(String offsetKey) {
+            this.offsetKey = offsetKey;
+            return this;
+        }
         public Builder withPageSize(Integer pageSize) {
             this.pageSize = pageSize;
             return this;
@@ -0,0 +1,277 @@
+package org.sagebionetworks.bridge.models;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * <p>
+ * A compiled form of the criteria of a fixed list of candidates (for example, all of an app's subpopulations), for
+ * matching the candidates against many request contexts. {@link #filterByCriteria(CriteriaContext, Comparator)}
+ * returns the same results, in the same order, as {@link CriteriaUtils#filterByCriteria}. The work that doesn't
+ * depend on the context is done once, when the index is built:
+ * </p>
+ * <ul>
+ *   <li>each data group and study ID named in any criteria gets a bit position, so the allOf and noneOf sets of every
+ *   candidate become bit masks, and matching them is a few word-sized AND operations;</li>
+ *   <li>the app version ranges are grouped by operating system, with a min and max for every candidate, so a
+ *   request looks up its operating system once;</li>
+ *   <li>the candidates' languages are numbered, so a request works out whether each distinct language matches, and
+ *   its position in the user's languages, once rather than for every candidate and comparison.</li>
+ * </ul>
+ * <p>
+ * The index keeps the candidates it was built from, and returns them from its filter method. They must not be
+ * changed while the index is in use; build a new index when the underlying objects change.
+ * </p>
+ */
+public final class CriteriaIndex<T extends HasCriteria> {
+
+    private static final long[] NO_BITS = new long[0];
+
+    private final List<T> candidates;
+    private final Map<String, Integer> dataGroupBits = new HashMap<>();
+    private final Map<String, Integer> studyIdBits = new HashMap<>();
+    private final long[][] allOfGroups;
+    private final long[][] noneOfGroups;
+    private final long[][] allOfStudyIds;
+    private final long[][] noneOfStudyIds;
+    private final Map<String, AppVersionRanges> appVersionRanges = new HashMap<>();
+    private final List<String> languages = Lists.newArrayList();
+    // Index into languages for each candidate, or -1 if the candidate's criteria don't specify a language.
+    private final int[] languageIds;
+
+    public CriteriaIndex(Collection<T> candidates) {
+        checkNotNull(candidates);
+        this.candidates = ImmutableList.copyOf(candidates);
+
+        int size = this.candidates.size();
+        List<Criteria> criteriaList = Lists.newArrayListWithCapacity(size);
+        for (T candidate : this.candidates) {
+            Criteria criteria = candidate.getCriteria();
+            checkNotNull(criteria);
+            checkNotNull(criteria.getAllOfGroups());
+            checkNotNull(criteria.getNoneOfGroups());
+            checkNotNull(criteria.getAllOfStudyIds());
+            checkNotNull(criteria.getNoneOfStudyIds());
+            criteriaList.add(criteria);
+
+            assignBits(dataGroupBits, criteria.getAllOfGroups());
+            assignBits(dataGroupBits, criteria.getNoneOfGroups());
+            assignBits(studyIdBits, criteria.getAllOfStudyIds());
+            assignBits(studyIdBits, criteria.getNoneOfStudyIds());
+        }
+
+        allOfGroups = new long[size][];
+        noneOfGroups = new long[size][];
+        allOfStudyIds = new long[size][];
+        noneOfStudyIds = new long[size][];
+        languageIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            Criteria criteria = criteriaList.get(i);
+            allOfGroups[i] = toBits(dataGroupBits, criteria.getAllOfGroups());
+            noneOfGroups[i] = toBits(dataGroupBits, criteria.getNoneOfGroups());
+            allOfStudyIds[i] = toBits(studyIdBits, criteria.getAllOfStudyIds());
+            noneOfStudyIds[i] = toBits(studyIdBits, criteria.getNoneOfStudyIds());
+
+            for (String osName : criteria.getAppVersionOperatingSystems()) {
+                AppVersionRanges ranges = appVersionRanges.computeIfAbsent(osName,
+                        (key) -> new AppVersionRanges(size));
+                Integer minAppVersion = criteria.getMinAppVersion(osName);
+                Integer maxAppVersion = criteria.getMaxAppVersion(osName);
+                if (minAppVersion != null) {
+                    ranges.min[i] = minAppVersion;
+                }
+                if (maxAppVersion != null) {
+                    ranges.max[i] = maxAppVersion;
+                }
+            }
+
+            String language = criteria.getLanguage();
+            if (language == null) {
+                languageIds[i] = -1;
+            } else {
+                int languageId = languages.indexOf(language);
+                if (languageId == -1) {
+                    languageId = languages.size();
+                    languages.add(language);
+                }
+                languageIds[i] = languageId;
+            }
+        }
+    }
+
+    /** The number of candidates in the index. */
+    public int size() {
+        return candidates.size();
+    }
+
+    /** All of the candidates in the index, in the order they were given. The list is immutable. */
+    public List<T> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Returns the candidates that match the context, sorted by the position of their language in the user's
+     * languages, then by the second comparator (if any), then by their order in the index.
+     */
+    public List<T> filterByCriteria(CriteriaContext context, Comparator<T> secondComparator) {
+        checkNotNull(context);
+        checkNotNull(context.getLanguages());
+        checkNotNull(context.getClientInfo());
+        checkNotNull(context.getUserDataGroups());
+
+        long[] userGroups = toBits(dataGroupBits, context.getUserDataGroups());
+        long[] userStudyIds = toBits(studyIdBits, context.getUserStudyIds());
+
+        Integer appVersion = context.getClientInfo().getAppVersion();
+        String appOs = context.getClientInfo().getOsName();
+        AppVersionRanges ranges = null;
+        if (appVersion != null && appOs != null) {
+            ranges = appVersionRanges.get(appOs);
+        }
+
+        // A language matches if the user has declared it (ignoring case). Sorting is by the language's position
+        // in the user's list, which (as in CriteriaUtils) is case-sensitive.
+        List<String> userLanguages = context.getLanguages();
+        int languageCount = languages.size();
+        boolean[] languageMatches = new boolean[languageCount];
+        int[] languageRanks = new int[languageCount];
+        for (int i = 0; i < languageCount; i++) {
+            String language = languages.get(i);
+            for (String userLanguage : userLanguages) {
+                if (language.equalsIgnoreCase(userLanguage)) {
+                    languageMatches[i] = true;
+                    break;
+                }
+            }
+            languageRanks[i] = userLanguages.indexOf(language);
+        }
+
+        int size = candidates.size();
+        int[] matches = new int[size];
+        int matchCount = 0;
+        boolean sameRank = true;
+        int firstRank = 0;
+        for (int i = 0; i < size; i++) {
+            if (ranges != null && (appVersion < ranges.min[i] || appVersion > ranges.max[i])) {
+                continue;
+            }
+            if (!containsAll(userGroups, allOfGroups[i]) || intersects(userGroups, noneOfGroups[i])) {
+                continue;
+            }
+            if (!containsAll(userStudyIds, allOfStudyIds[i]) || intersects(userStudyIds, noneOfStudyIds[i])) {
+                continue;
+            }
+            int languageId = languageIds[i];
+            if (languageId != -1 && !languageMatches[languageId]) {
+                continue;
+            }
+            int rank = (languageId == -1) ? -1 : languageRanks[languageId];
+            if (matchCount == 0) {
+                firstRank = rank;
+            } else if (rank != firstRank) {
+                sameRank = false;
+            }
+            matches[matchCount++] = i;
+        }
+
+        if (secondComparator == null) {
+            if (!sameRank) {
+                // Sort on the rank, then the position in the index, so the sort is stable like the stream sort.
+                long[] keys = new long[matchCount];
+                for (int i = 0; i < matchCount; i++) {
+                    int languageId = languageIds[matches[i]];
+                    long rank = (languageId == -1) ? -1 : languageRanks[languageId];
+                    keys[i] = ((rank + 1) << 32) | matches[i];
+                }
+                Arrays.sort(keys);
+                for (int i = 0; i < matchCount; i++) {
+                    matches[i] = (int) keys[i];
+                }
+            }
+            List<T> results = Lists.newArrayListWithCapacity(matchCount);
+            for (int i = 0; i < matchCount; i++) {
+                results.add(candidates.get(matches[i]));
+            }
+            return results;
+        }
+
+        Integer[] order = new Integer[matchCount];
+        for (int i = 0; i < matchCount; i++) {
+            order[i] = matches[i];
+        }
+        Comparator<Integer> byRank = Comparator.comparingInt(i -> {
+            int languageId = languageIds[i];
+            return (languageId == -1) ? -1 : languageRanks[languageId];
+        });
+        // Arrays.sort() on objects is stable.
+        Arrays.sort(order, byRank.thenComparing((i1, i2) ->
+            secondComparator.compare(candidates.get(i1), candidates.get(i2))));
+        List<T> results = Lists.newArrayListWithCapacity(matchCount);
+        for (Integer i : order) {
+            results.add(candidates.get(i));
+        }
+        return results;
+    }
+
+    private static void assignBits(Map<String, Integer> bits, Set<String> values) {
+        for (String value : values) {
+            bits.putIfAbsent(value, bits.size());
+        }
+    }
+
+    /** Values that aren't in the map don't appear in any criteria, so they can't affect a match. */
+    private static long[] toBits(Map<String, Integer> bits, Set<String> values) {
+        if (bits.isEmpty()) {
+            return NO_BITS;
+        }
+        long[] words = new long[(bits.size() + 63) >>> 6];
+        for (String value : values) {
+            Integer bit = bits.get(value);
+            if (bit != null) {
+                words[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return words;
+    }
+
+    private static boolean containsAll(long[] set, long[] subset) {
+        for (int i = 0; i < subset.length; i++) {
+            if ((subset[i] & ~set[i]) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean intersects(long[] set1, long[] set2) {
+        for (int i = 0; i < set2.length; i++) {
+            if ((set1[i] & set2[i]) != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The min and max app version of every candidate for one operating system, unbounded where not specified. */
+    private static final class AppVersionRanges {
+        final int[] min;
+        final int[] max;
+
+        AppVersionRanges(int size) {
+            min = new int[size];
+            max = new int[size];
+            Arrays.fill(min, Integer.MIN_VALUE);
+            Arrays.fill(max, Integer.MAX_VALUE);
+        }
+    }
+}
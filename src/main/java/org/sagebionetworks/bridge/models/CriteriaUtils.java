@@ -27,6 +27,11 @@ import com.google.common.collect.Sets;
  */
 public class CriteriaUtils {
     
+    /**
+     * Filter the collection down to the objects whose criteria match the context, sorted by the user's language
+     * preferences (and then the second comparator, if provided). For a list of candidates that is matched against
+     * many contexts, build a {@link CriteriaIndex} once and filter with that instead.
+     */
     public static <T extends HasCriteria> List<T> filterByCriteria(
             CriteriaContext context, Collection<T> coll, Comparator<T> secondComparator) {
         checkNotNull(context);
@@ -121,6 +121,16 @@ public class Metrics {
         json.put("upload_size", uploadSize);
     }
 
+    /** Upload format, for upload validation metrics. */
+    public void setUploadFormat(String uploadFormat) {
+        put("upload_format", uploadFormat);
+    }
+
+    /** Upload status at the end of upload validation. */
+    public void setValidationStatus(String validationStatus) {
+        put("validation_status", validationStatus);
+    }
+
     /**
      * Set the query params from the url request to json.
      *
@@ -133,6 +143,20 @@ public class Metrics {
         }
     }
 
+    /**
+     * Elapsed time of one phase of the request, in milliseconds. Phases are recorded under "phase_elapsed_millis",
+     * so slow endpoints with several backing calls can be broken down without additional logging.
+     */
+    public void setPhaseElapsedMillis(String phase, long elapsedMillis) {
+        if (isNotBlank(phase)) {
+            ObjectNode phases = (ObjectNode) json.get("phase_elapsed_millis");
+            if (phases == null) {
+                phases = json.putObject("phase_elapsed_millis");
+            }
+            phases.put(phase, elapsedMillis);
+        }
+    }
+
     private void put(final String field, final String value) {
         if (isNotBlank(value)) {
             json.put(field, value);
@@ -26,6 +26,7 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 public class PagedResourceList<T> extends ResourceList<T> {
     
     private final Integer total;
+    private String nextPageOffsetKey;
 
     // This could have a nextPageOffsetBy, but it's trivial to calculate client-side
     @JsonCreator
@@ -68,6 +69,18 @@ public class PagedResourceList<T> extends ResourceList<T> {
     public Integer getTotal() {
         return total;
     }
+    /**
+     * For lists that also support forward cursor paging, the offsetKey to retrieve the next page. Null 
+     * if there is no next page, or the list does not support it.
+     */
+    public String getNextPageOffsetKey() {
+        return nextPageOffsetKey;
+    }
+    @JsonProperty(NEXT_PAGE_OFFSET_KEY)
+    public PagedResourceList<T> withNextPageOffsetKey(String nextPageOffsetKey) {
+        this.nextPageOffsetKey = nextPageOffsetKey;
+        return this;
+    }
     public PagedResourceList<T> withRequestParam(String key, Object value) {
         super.withRequestParam(key, value);
         return this;
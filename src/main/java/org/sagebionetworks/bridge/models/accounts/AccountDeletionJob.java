@@ -0,0 +1,103 @@
+package org.sagebionetworks.bridge.models.accounts;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.joda.time.DateTime;
+
+import org.sagebionetworks.bridge.models.BridgeEntity;
+
+/**
+ * Progress of deleting an account and all of its participant data. Each data store that has to be cleaned up is a
+ * step. The steps only report progress; if the deletion is run again, every step runs again.
+ */
+public class AccountDeletionJob implements BridgeEntity {
+    public enum Status {
+        IN_PROGRESS,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private String appId;
+    private String userId;
+    private Status status;
+    private int totalSteps;
+    private Set<String> completedSteps = new TreeSet<>();
+    private Map<String, String> failedSteps = new TreeMap<>();
+    private DateTime startedOn;
+    private DateTime modifiedOn;
+
+    /** App the account lives in. */
+    public String getAppId() {
+        return appId;
+    }
+
+    public void setAppId(String appId) {
+        this.appId = appId;
+    }
+
+    /** ID of the account being deleted. */
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    /** Status of the deletion. */
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /** Number of steps in the deletion, including ones completed by an earlier run. */
+    public int getTotalSteps() {
+        return totalSteps;
+    }
+
+    public void setTotalSteps(int totalSteps) {
+        this.totalSteps = totalSteps;
+    }
+
+    /** Names of the steps that have completed. */
+    public Set<String> getCompletedSteps() {
+        return completedSteps;
+    }
+
+    public void setCompletedSteps(Set<String> completedSteps) {
+        this.completedSteps = (completedSteps != null) ? new TreeSet<>(completedSteps) : new TreeSet<>();
+    }
+
+    /** Error messages for the steps that failed on the last run, keyed by step name. */
+    public Map<String, String> getFailedSteps() {
+        return failedSteps;
+    }
+
+    public void setFailedSteps(Map<String, String> failedSteps) {
+        this.failedSteps = (failedSteps != null) ? new TreeMap<>(failedSteps) : new TreeMap<>();
+    }
+
+    /** Timestamp for when the deletion was first started. */
+    public DateTime getStartedOn() {
+        return startedOn;
+    }
+
+    public void setStartedOn(DateTime startedOn) {
+        this.startedOn = startedOn;
+    }
+
+    /** Timestamp for when the deletion last made progress. */
+    public DateTime getModifiedOn() {
+        return modifiedOn;
+    }
+
+    public void setModifiedOn(DateTime modifiedOn) {
+        this.modifiedOn = modifiedOn;
+    }
+}
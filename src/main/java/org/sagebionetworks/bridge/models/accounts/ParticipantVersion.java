@@ -95,4 +95,13 @@ public interface ParticipantVersion extends BridgeEntity {
      */
     Map<String, Map<String, Demographic>> getStudyDemographics();
     void setStudyDemographics(Map<String, Map<String, Demographic>> studyDemographics);
+
+    /**
+     * A hash of the non-key attributes of this participant version (data groups, languages, sharing scope, study
+     * memberships, time zone and demographics). Two participant versions with the same fingerprint are identical, so
+     * the server can tell whether a participant has changed without comparing every attribute. This is internal to
+     * the server and is not returned in the API. Versions created before fingerprints were added don't have one.
+     */
+    String getFingerprint();
+    void setFingerprint(String fingerprint);
 }
@@ -66,6 +66,9 @@ public final class StudyParticipant implements BridgeEntity {
     private final Boolean notifyByEmail;
     private final Set<String> dataGroups;
     private final String healthCode;
+    // When a participant is read from the cache, the health code is only decrypted if it is requested.
+    private final transient String encryptedHealthCode;
+    private transient volatile String decryptedHealthCode;
     private final Map<String,String> attributes;
     private final Map<String,List<UserConsentHistory>> consentHistories;
     private final Map<String,EnrollmentInfo> enrollments;
@@ -97,6 +100,7 @@ public final class StudyParticipant implements BridgeEntity {
         this.notifyByEmail = builder.notifyByEmail;
         this.dataGroups = BridgeUtils.nullSafeImmutableSet(builder.dataGroups);
         this.healthCode = builder.healthCode;
+        this.encryptedHealthCode = builder.encryptedHealthCode;
         this.attributes = BridgeUtils.nullSafeImmutableMap(builder.attributes);
         this.consentHistories = BridgeUtils.nullSafeImmutableMap(builder.consentHistories);
         this.enrollments = BridgeUtils.nullSafeImmutableMap(builder.enrollments);
@@ -159,9 +163,20 @@ public final class StudyParticipant implements BridgeEntity {
         return dataGroups;
     }
     public String getHealthCode() {
-        return healthCode;
+        if (healthCode != null || encryptedHealthCode == null) {
+            return healthCode;
+        }
+        String code = decryptedHealthCode;
+        if (code == null) {
+            code = ENCRYPTOR.decrypt(encryptedHealthCode);
+            decryptedHealthCode = code;
+        }
+        return code;
     }
     public String getEncryptedHealthCode() {
+        if (healthCode == null && encryptedHealthCode != null) {
+            return encryptedHealthCode;
+        }
         return (healthCode == null) ? null : ENCRYPTOR.encrypt(healthCode);
     }
     public Map<String,String> getAttributes() {
@@ -222,7 +237,7 @@ public final class StudyParticipant implements BridgeEntity {
     @Override
     public int hashCode() {
         return Objects.hash(attributes, consentHistories, enrollments, consented, createdOn, dataGroups, email, phone,
-                emailVerified, phoneVerified, externalId, synapseUserId, firstName, healthCode, id, languages, lastName,
+                emailVerified, phoneVerified, externalId, synapseUserId, firstName, getHealthCode(), id, languages, lastName,
                 notifyByEmail, password, roles, sharingScope, status, timeZone, clientData, studyIds, externalIds,
                 orgMembership, note, clientTimeZone);
     }
@@ -240,7 +255,7 @@ public final class StudyParticipant implements BridgeEntity {
                 && Objects.equals(email, other.email) && Objects.equals(phone, other.phone)
                 && Objects.equals(emailVerified, other.emailVerified) && Objects.equals(phoneVerified, other.phoneVerified)
                 && Objects.equals(externalId, other.externalId) && Objects.equals(synapseUserId, other.synapseUserId)
-                && Objects.equals(firstName, other.firstName) && Objects.equals(healthCode, other.healthCode)
+                && Objects.equals(firstName, other.firstName) && Objects.equals(getHealthCode(), other.getHealthCode())
                 && Objects.equals(id, other.id) && Objects.equals(languages, other.languages)
                 && Objects.equals(lastName, other.lastName) && Objects.equals(notifyByEmail, other.notifyByEmail)
                 && Objects.equals(password, other.password) && Objects.equals(roles, other.roles)
@@ -265,6 +280,7 @@ public final class StudyParticipant implements BridgeEntity {
         private Boolean notifyByEmail;
         private Set<String> dataGroups;
         private String healthCode;
+        private String encryptedHealthCode;
         private Map<String,String> attributes;
         private Map<String,List<UserConsentHistory>> consentHistories;
         private Map<String,EnrollmentInfo> enrollments;
@@ -294,7 +310,9 @@ public final class StudyParticipant implements BridgeEntity {
             this.password = participant.getPassword();
             this.sharingScope = participant.getSharingScope();
             this.notifyByEmail = participant.isNotifyByEmail();
-            this.healthCode = participant.getHealthCode();
+            // Copy without forcing the health code to be decrypted.
+            this.healthCode = participant.healthCode;
+            this.encryptedHealthCode = participant.encryptedHealthCode;
             this.dataGroups = participant.getDataGroups();
             this.attributes = participant.getAttributes();
             this.consentHistories = participant.getConsentHistories();
@@ -456,10 +474,13 @@ public final class StudyParticipant implements BridgeEntity {
         }
         public Builder withHealthCode(String healthCode) {
             this.healthCode = healthCode;
+            this.encryptedHealthCode = null;
             return this;
         }
+        /** The health code is decrypted when it is first retrieved from the participant. */
         public Builder withEncryptedHealthCode(String encHealthCode) {
-            withHealthCode((encHealthCode == null) ? null : ENCRYPTOR.decrypt(encHealthCode));
+            this.healthCode = null;
+            this.encryptedHealthCode = encHealthCode;
             return this;
         }
         public Builder withAttributes(Map<String,String> attributes) {
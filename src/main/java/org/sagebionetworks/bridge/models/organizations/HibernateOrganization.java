@@ -1,5 +1,8 @@
 package org.sagebionetworks.bridge.models.organizations;
 
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
+import static org.sagebionetworks.bridge.hibernate.HibernateCacheConfig.ORGANIZATION_REGION;
+
 import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.Id;
@@ -7,6 +10,8 @@ import javax.persistence.IdClass;
 import javax.persistence.Table;
 import javax.persistence.Version;
 
+import org.hibernate.annotations.Cache;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import org.joda.time.DateTime;
@@ -14,6 +19,7 @@ import org.joda.time.DateTime;
 import org.sagebionetworks.bridge.hibernate.DateTimeToLongAttributeConverter;
 import org.sagebionetworks.bridge.json.BridgeTypeName;
 
+@Cache(usage = READ_WRITE, region = ORGANIZATION_REGION)
 @Entity
 @Table(name = "Organizations")
 @IdClass(OrganizationId.class)
@@ -15,6 +15,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import com.google.common.collect.ImmutableSet;
+import org.hibernate.annotations.BatchSize;
 import org.joda.time.DateTime;
 import org.sagebionetworks.bridge.hibernate.DateTimeToLongAttributeConverter;
 import org.sagebionetworks.bridge.hibernate.JsonNodeAttributeConverter;
@@ -74,6 +75,7 @@ public class AdherenceRecord implements BridgeEntity {
                     @JoinColumn(name = "instanceTimestamp", referencedColumnName = "instanceTimestamp")})
     @Column(name = "uploadId")
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     private Set<String> uploadIds;
     
     public String getAppId() {
@@ -112,8 +112,9 @@ public final class AdherenceState {
         return stream;
     }
     public EventStreamDay getEventStreamDayByKey(TimelineMetadata meta) {
-        String streamKey = String.format("%s:%s:%s", meta.getSessionGuid(), 
-                meta.getSessionStartEventId(), meta.getSessionInstanceStartDay());
+        // This is called for every metadata record in a report, so avoid String.format() here.
+        String streamKey = meta.getSessionGuid() + ":" + meta.getSessionStartEventId() + ":"
+                + meta.getSessionInstanceStartDay();
         EventStreamDay eventStreamDay = streamsByStreamKey.get(streamKey);
         
         if (eventStreamDay == null) {
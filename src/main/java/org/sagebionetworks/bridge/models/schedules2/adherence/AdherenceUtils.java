@@ -16,13 +16,16 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.sagebionetworks.bridge.models.schedules2.adherence.eventstream.EventStream;
 import org.sagebionetworks.bridge.models.schedules2.adherence.eventstream.EventStreamDay;
 
 public class AdherenceUtils {
+    
+    private static final Set<SessionCompletionState> ALL_STATES = EnumSet.allOf(SessionCompletionState.class);
+    private static final Set<SessionCompletionState> NOT_APPLICABLE_STATES = EnumSet.of(NOT_APPLICABLE);
+    private static final Set<SessionCompletionState> DONE_STATES = EnumSet.of(ABANDONED, EXPIRED, DECLINED,
+            COMPLETED);
 
     /**
      * If an event doesn’t exist we mark sessions that are triggered by that event as "not 
@@ -56,29 +59,46 @@ public class AdherenceUtils {
     }
     
     public static int calculateAdherencePercentage(Map<Integer, List<EventStreamDay>> byDayEntries) {
-        long compliant = count(byDayEntries.values().stream(), COMPLIANT);
-        long total = count(byDayEntries.values().stream(), OFFERED);
+        long compliant = count(byDayEntries.values(), COMPLIANT);
+        long total = count(byDayEntries.values(), OFFERED);
 
         return calcPercent(compliant, total);
     }
     
     public static int calculateAdherencePercentage(Collection<EventStream> streams) {
-        long compliant = count(streams.stream()
-                .flatMap(es -> es.getByDayEntries().values().stream()), COMPLIANT);
-        long total = count(streams.stream()
-                .flatMap(es -> es.getByDayEntries().values().stream()), OFFERED);
-        
+        long compliant = 0;
+        long total = 0;
+        for (EventStream stream : streams) {
+            compliant += count(stream.getByDayEntries().values(), COMPLIANT);
+            total += count(stream.getByDayEntries().values(), OFFERED);
+        }
         return calcPercent(compliant, total);
     }
     
+    /** Adherence of a flat list of days, as they are collected from all streams for the study report. */
+    public static int calculateAdherencePercentageOfDays(List<EventStreamDay> days) {
+        return calcPercent(countDays(days, COMPLIANT), countDays(days, OFFERED));
+    }
+    
     public static ParticipantStudyProgress calculateProgress(AdherenceState state, List<EventStream> eventStreams) {
-        long total = count(eventStreams.stream().flatMap(es -> es.getByDayEntries().values().stream()),
-                EnumSet.allOf(SessionCompletionState.class));
-        long na = count(eventStreams.stream().flatMap(es -> es.getByDayEntries().values().stream()),
-                EnumSet.of(NOT_APPLICABLE));
-        long done = count(eventStreams.stream().flatMap(es -> es.getByDayEntries().values().stream()),
-                EnumSet.of(ABANDONED, EXPIRED, DECLINED, COMPLETED));
-        
+        long total = 0;
+        long na = 0;
+        long done = 0;
+        for (EventStream stream : eventStreams) {
+            total += count(stream.getByDayEntries().values(), ALL_STATES);
+            na += count(stream.getByDayEntries().values(), NOT_APPLICABLE_STATES);
+            done += count(stream.getByDayEntries().values(), DONE_STATES);
+        }
+        return calcProgress(total, na, done);
+    }
+    
+    /** Progress of a flat list of days, as they are collected from all streams for the study report. */
+    public static ParticipantStudyProgress calculateProgressOfDays(List<EventStreamDay> days) {
+        return calcProgress(countDays(days, ALL_STATES), countDays(days, NOT_APPLICABLE_STATES),
+                countDays(days, DONE_STATES));
+    }
+    
+    private static ParticipantStudyProgress calcProgress(long total, long na, long done) {
         if (na == total) {
             return ParticipantStudyProgress.UNSTARTED;
         } else if ((na + done) == total) {
@@ -96,10 +116,21 @@ public class AdherenceUtils {
         return (int) (percentage * 100);
     }
     
-    private static long count(Stream<List<EventStreamDay>> day, Set<SessionCompletionState> states) {
-        return day.flatMap(list -> list.stream())
-            .flatMap(esd -> esd.getTimeWindows().stream())
-            .filter(win -> states.contains(win.getState()))
-            .collect(Collectors.counting());
+    // These counts run over every window of every day in a report, several times per report, so they
+    // count the windows in place rather than through getTimeWindows(), which copies and sorts them.
+    private static long count(Collection<List<EventStreamDay>> dayLists, Set<SessionCompletionState> states) {
+        long count = 0;
+        for (List<EventStreamDay> days : dayLists) {
+            count += countDays(days, states);
+        }
+        return count;
+    }
+    
+    private static long countDays(List<EventStreamDay> days, Set<SessionCompletionState> states) {
+        long count = 0;
+        for (int i = 0; i < days.size(); i++) {
+            count += days.get(i).countTimeWindows(states);
+        }
+        return count;
     }
 }
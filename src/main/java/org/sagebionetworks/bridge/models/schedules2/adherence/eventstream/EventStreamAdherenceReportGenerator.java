@@ -19,6 +19,7 @@ import org.sagebionetworks.bridge.models.schedules2.timelines.TimelineMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -32,7 +33,8 @@ public class EventStreamAdherenceReportGenerator {
     
     public EventStreamAdherenceReport generate(AdherenceState state, Schedule2 schedule) {
     
-        Map<String, TimeWindow> timeWindowMap = getTimeWindowMapFromSchedule(schedule);
+        Map<String, WindowTimes> windowTimesMap = getWindowTimesFromSchedule(schedule);
+        Map<String, EventDates> eventDatesMap = new HashMap<>();
         
         LocalDate earliestDate = LATEST_LOCAL_DATE;
         LocalDate latestDate = EARLIEST_LOCAL_DATE;
@@ -51,10 +53,14 @@ public class EventStreamAdherenceReportGenerator {
             String eventId = meta.getSessionStartEventId();
             Integer daysSinceEvent = state.getDaysSinceEventById(eventId);
 
-            DateTime timestamp = state.getEventTimestampById(eventId);
-            LocalDate localDate = (timestamp == null) ? null : timestamp.toLocalDate();
-            LocalDate startDate = (localDate == null) ? null : localDate.plusDays(startDay);
-            LocalDate endDate = (localDate == null) ? null : localDate.plusDays(endDay);
+            EventDates eventDates = eventDatesMap.get(eventId);
+            if (eventDates == null) {
+                DateTime timestamp = state.getEventTimestampById(eventId);
+                eventDates = new EventDates((timestamp == null) ? null : timestamp.toLocalDate());
+                eventDatesMap.put(eventId, eventDates);
+            }
+            LocalDate startDate = eventDates.plusDays(startDay);
+            LocalDate endDate = eventDates.plusDays(endDay);
 
             // Produce one report for each event ID. Create them lazily as we find each eventId;
             EventStream stream = state.getEventStreamById(eventId);
@@ -81,17 +87,11 @@ public class EventStreamAdherenceReportGenerator {
             windowEntry.setEndDate(endDate);
             windowEntry.setState(sessionState);
             
-            TimeWindow timeWindow = timeWindowMap.get(meta.getTimeWindowGuid());
+            WindowTimes windowTimes = windowTimesMap.get(meta.getTimeWindowGuid());
             
-            if (timeWindow != null) {
-                LocalTime startTime = timeWindow.getStartTime();
-                if (startTime != null) {
-                    windowEntry.setStartTime(startTime);
-                    Period expiration = timeWindow.getExpiration();
-                    if (expiration != null) {
-                        windowEntry.setEndTime(startTime.plus(expiration));
-                    }
-                }
+            if (windowTimes != null) {
+                windowEntry.setStartTime(windowTimes.startTime);
+                windowEntry.setEndTime(windowTimes.endTime);
             } else {
                 // This could only happen if a schedule updates without refreshing metadata
                 LOG.warn("Metadata time window does not exist in schedule. appId: " + schedule.getAppId() +
@@ -137,15 +137,64 @@ public class EventStreamAdherenceReportGenerator {
         return report;
     }
     
-    private Map<String, TimeWindow> getTimeWindowMapFromSchedule(Schedule2 schedule) {
-        Map<String, TimeWindow> timeWindowMap = new HashMap<>();
+    /**
+     * The start and end time of every time window in the schedule, keyed by time window GUID. The end time is
+     * calculated once per window here, rather than for every one of the window's metadata records.
+     */
+    private Map<String, WindowTimes> getWindowTimesFromSchedule(Schedule2 schedule) {
+        Map<String, WindowTimes> windowTimesMap = new HashMap<>();
         
         for (Session session : schedule.getSessions()) {
             for (TimeWindow timeWindow : session.getTimeWindows()) {
-                timeWindowMap.put(timeWindow.getGuid(), timeWindow);
+                windowTimesMap.put(timeWindow.getGuid(), new WindowTimes(timeWindow));
             }
         }
         
-        return timeWindowMap;
+        return windowTimesMap;
+    }
+    
+    private static final class WindowTimes {
+        private final LocalTime startTime;
+        private final LocalTime endTime;
+        
+        private WindowTimes(TimeWindow timeWindow) {
+            LocalTime windowStartTime = timeWindow.getStartTime();
+            Period expiration = timeWindow.getExpiration();
+            this.startTime = windowStartTime;
+            this.endTime = (windowStartTime != null && expiration != null) ? windowStartTime.plus(expiration) : null;
+        }
+    }
+    
+    /**
+     * The dates of the days after one event, indexed by day. Most metadata records of an event fall on a
+     * small number of days (all the windows of all the sessions on one day share a date), so each date
+     * is created once and shared by every window and day on that date.
+     */
+    private static final class EventDates {
+        private final LocalDate eventDate;
+        private LocalDate[] datesByDay = new LocalDate[0];
+        
+        private EventDates(LocalDate eventDate) {
+            this.eventDate = eventDate;
+        }
+        
+        /** The date the given number of days after the event, or null if the event has no timestamp. */
+        private LocalDate plusDays(int day) {
+            if (eventDate == null) {
+                return null;
+            }
+            if (day < 0) {
+                return eventDate.plusDays(day);
+            }
+            if (day >= datesByDay.length) {
+                datesByDay = Arrays.copyOf(datesByDay, Math.max(day + 1, datesByDay.length * 2));
+            }
+            LocalDate date = datesByDay[day];
+            if (date == null) {
+                date = eventDate.plusDays(day);
+                datesByDay[day] = date;
+            }
+            return date;
+        }
     }
 }
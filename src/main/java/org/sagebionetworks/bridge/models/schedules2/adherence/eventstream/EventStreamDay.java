@@ -5,11 +5,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.Ordering;
 import org.joda.time.LocalDate;
+import org.sagebionetworks.bridge.models.schedules2.adherence.SessionCompletionState;
 
 import com.google.common.collect.ImmutableList;
 
@@ -111,6 +114,26 @@ public final class EventStreamDay {
             }
         }
     }
+    /** True if this day has any time windows. Unlike getTimeWindows(), this does not copy the windows. */
+    public boolean hasTimeWindows() {
+        return !timeWindows.isEmpty();
+    }
+    /** The number of time windows in one of the given states, without copying or sorting the windows. */
+    public int countTimeWindows(Set<SessionCompletionState> states) {
+        int count = 0;
+        for (EventStreamWindow window : timeWindows.values()) {
+            if (states.contains(window.getState())) {
+                count++;
+            }
+        }
+        return count;
+    }
+    /** Visits the time windows in no particular order, without copying or sorting them. */
+    public void visitTimeWindows(Consumer<EventStreamWindow> consumer) {
+        for (EventStreamWindow window : timeWindows.values()) {
+            consumer.accept(window);
+        }
+    }
     public void addTimeWindow(EventStreamWindow timeWindowEntry) {
         this.timeWindows.put(timeWindowEntry.getTimeWindowGuid(), timeWindowEntry);
     }
@@ -3,19 +3,19 @@ package org.sagebionetworks.bridge.models.schedules2.adherence.study;
 import static java.util.stream.Collectors.toList;
 import static org.sagebionetworks.bridge.BridgeUtils.isLocalDateInRange;
 import static org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceUtils.calculateAdherencePercentage;
-import static org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceUtils.calculateProgress;
+import static org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceUtils.calculateAdherencePercentageOfDays;
+import static org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceUtils.calculateProgressOfDays;
 import static org.sagebionetworks.bridge.models.schedules2.adherence.SessionCompletionState.UNKNOWN;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
-import java.util.TreeMap;
 
 import org.joda.time.DateTime;
 import org.joda.time.Days;
@@ -29,11 +29,9 @@ import org.sagebionetworks.bridge.models.schedules2.adherence.eventstream.EventS
 import org.sagebionetworks.bridge.models.schedules2.adherence.eventstream.EventStreamAdherenceReport;
 import org.sagebionetworks.bridge.models.schedules2.adherence.eventstream.EventStreamAdherenceReportGenerator;
 import org.sagebionetworks.bridge.models.schedules2.adherence.eventstream.EventStreamDay;
-import org.sagebionetworks.bridge.models.schedules2.adherence.eventstream.EventStreamWindow;
 import org.sagebionetworks.bridge.models.schedules2.adherence.weekly.NextActivity;
 import org.sagebionetworks.bridge.models.schedules2.adherence.weekly.WeeklyAdherenceReportRow;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 public class StudyAdherenceReportGenerator {
@@ -65,51 +63,98 @@ public class StudyAdherenceReportGenerator {
         // of the study as “Week 0”, “Week -1”, and so forth.
         LocalDate studyStartDate = getDate(state, state.getStudyStartEventId());
 
-        EventStream studyStream = new EventStream();
         Set<String> unsetEventIds = new HashSet<>();
         Set<String> unscheduledSessions = new HashSet<>();
         Map<String, DateTime> eventTimestamps = new HashMap<>();
+        Map<String, Integer> eventOffsets = new HashMap<>();
         LocalDate localToday = state.getNow().toLocalDate();
         
-        // Remap all the event streams to one event stream one one timeline from the earliest date
+        // Remap all the event streams to one timeline from the earliest date. The days are collected into a
+        // flat array, with the day in the study of each day (the number of days since the earliest date) in a
+        // parallel array. That number is the day's offset in its stream, plus the offset of the stream's event 
+        // from the earliest date, which is calculated once for each event.
+        int dayCount = 0;
         for (EventStream stream : eventReport.getStreams()) {
-            stream.visitDays((day, i) -> {
-                if (day.getStartDate() != null) {
-                    Integer numDays = Days.daysBetween(earliestDate, day.getStartDate()).getDays();
-                    studyStream.addEntry(numDays, day);
-                    
+            for (List<EventStreamDay> days : stream.getByDayEntries().values()) {
+                dayCount += days.size();
+            }
+        }
+        EventStreamDay[] scheduledDays = new EventStreamDay[dayCount];
+        int[] studyDays = new int[dayCount];
+        int scheduledCount = 0;
+        int minStudyDay = Integer.MAX_VALUE;
+        int maxStudyDay = Integer.MIN_VALUE;
+        for (EventStream stream : eventReport.getStreams()) {
+            for (List<EventStreamDay> days : stream.getByDayEntries().values()) {
+                for (EventStreamDay day : days) {
                     String eventId = day.getStartEventId();
-                    eventTimestamps.put(eventId, state.getEventTimestampById(eventId));
-                } else {
-                    // This event has no timestamp and so this session is not scheduled for the user.
-                    // Record to report back.
-                    unsetEventIds.add(day.getStartEventId());
-                    unscheduledSessions.add(day.getSessionName());
+                    if (day.getStartDate() != null) {
+                        Integer eventOffset = eventOffsets.get(eventId);
+                        if (eventOffset == null) {
+                            eventOffset = Days.daysBetween(earliestDate, day.getStartDate()).getDays()
+                                    - day.getStartDay();
+                            eventOffsets.put(eventId, eventOffset);
+                            eventTimestamps.put(eventId, state.getEventTimestampById(eventId));
+                        }
+                        int studyDay = eventOffset + day.getStartDay();
+                        scheduledDays[scheduledCount] = day;
+                        studyDays[scheduledCount] = studyDay;
+                        scheduledCount++;
+                        minStudyDay = Math.min(minStudyDay, studyDay);
+                        maxStudyDay = Math.max(maxStudyDay, studyDay);
+                    } else {
+                        // This event has no timestamp and so this session is not scheduled for the user.
+                        // Record to report back.
+                        unsetEventIds.add(eventId);
+                        unscheduledSessions.add(day.getSessionName());
+                    }
                 }
-            });
+            }
         }
+        List<EventStreamDay> studyStreamDays = Arrays.asList(scheduledDays).subList(0, scheduledCount);
         
-        // Break this study stream down into weeks. TreeMap sorts the weeks by week number. This report is still
-        // “sparse” (no weeks are present that have no activities). 
-        Map<Integer, StudyReportWeek> weekMap = new TreeMap<>();
-        for (Map.Entry<Integer, List<EventStreamDay>> entry : studyStream.getByDayEntries().entrySet()) {
-            int week = entry.getKey() / 7;
-            int dayOfWeek = entry.getKey() % 7;
+        // Break the days down into weeks. The days are counting-sorted by day in the study, which is stable, so
+        // the days on each day of a week stay in the order of their streams. This report is still “sparse” (no
+        // weeks are present that have no activities).
+        List<StudyReportWeek> weeks = new ArrayList<>();
+        if (scheduledCount > 0) {
+            int[] dayStarts = new int[maxStudyDay - minStudyDay + 2];
+            for (int i = 0; i < scheduledCount; i++) {
+                dayStarts[studyDays[i] - minStudyDay + 1]++;
+            }
+            for (int i = 1; i < dayStarts.length; i++) {
+                dayStarts[i] += dayStarts[i - 1];
+            }
+            int[] nextPositions = Arrays.copyOf(dayStarts, dayStarts.length - 1);
+            EventStreamDay[] sortedDays = new EventStreamDay[scheduledCount];
+            for (int i = 0; i < scheduledCount; i++) {
+                sortedDays[nextPositions[studyDays[i] - minStudyDay]++] = scheduledDays[i];
+            }
             
-            StudyReportWeek oneWeek = weekMap.get(week);
-            if (oneWeek == null) {
-                oneWeek = new StudyReportWeek();
-                oneWeek.setStartDate(earliestDate.plusDays(week*7));
-                oneWeek.setWeekInStudy(week+1); // humans are 1-indexed
+            StudyReportWeek oneWeek = null;
+            for (int i = 0; i < dayStarts.length - 1; i++) {
+                if (dayStarts[i] == dayStarts[i + 1]) {
+                    continue;
+                }
+                int studyDay = minStudyDay + i;
+                int week = studyDay / 7;
+                int dayOfWeek = studyDay % 7;
                 
-                weekMap.put(week, oneWeek);
+                if (oneWeek == null || oneWeek.getWeekInStudy() != week+1) {
+                    oneWeek = new StudyReportWeek();
+                    oneWeek.setStartDate(earliestDate.plusDays(week*7));
+                    oneWeek.setWeekInStudy(week+1); // humans are 1-indexed
+                    weeks.add(oneWeek);
+                }
+                // Note that we are not updating the week value of the day from the week-in-stream to
+                // the week-in-study. It is nulled out as part of report generation, except for NextActivity,
+                // so we only set it there.
+                List<EventStreamDay> days = oneWeek.getByDayEntries().get(dayOfWeek);
+                for (int j = dayStarts[i]; j < dayStarts[i + 1]; j++) {
+                    days.add(sortedDays[j]);
+                }
             }
-            // Note that we are not updating the week value of the day from the week-in-stream to
-            // the week-in-study. It is nulled out as part of report generation, except for NextActivity,
-            // so we only set it there.
-            List<EventStreamDay> days = oneWeek.getByDayEntries().get(dayOfWeek);
-            days.addAll(entry.getValue());
-        };
+        }
 
         // Some study-wide calculations:
         
@@ -134,10 +179,10 @@ public class StudyAdherenceReportGenerator {
         }
         
         // Study-wide progress and adherence. Don't calculate adherence if there's no schedule.
-        ParticipantStudyProgress progression = calculateProgress(state, ImmutableList.of(studyStream));
+        ParticipantStudyProgress progression = calculateProgressOfDays(studyStreamDays);
         Integer adherence = null;
         if (ParticipantStudyProgress.UNSTARTED != progression) {
-            adherence = calculateAdherencePercentage(ImmutableList.of(studyStream));
+            adherence = calculateAdherencePercentageOfDays(studyStreamDays);
         }
         // If the earliest date is before the study start date, we're going to offset the weekInStudy 
         // field to show there are scheduled activities occurring earlier in the study design. Up to 7
@@ -150,7 +195,6 @@ public class StudyAdherenceReportGenerator {
             weekOffset = (days/7);
         }
 
-        List<StudyReportWeek> weeks = Lists.newArrayList(weekMap.values());
         StudyReportWeek currentWeek = null;
         
         // Calculate rows and labels, determine the current week, and calculate adherence for each week
@@ -208,15 +252,17 @@ public class StudyAdherenceReportGenerator {
                 // if this is a placeholder day, just skip it. We run into these
                 // when we process the selected weekly report, which has already been
                 // padded.
-                if (oneDay.getTimeWindows().isEmpty()) {
+                if (!oneDay.hasTimeWindows()) {
                     continue;
                 }
+                // These are built for every day of every week, so they are concatenated rather than 
+                // formatted (the output is the same, including "null" for missing values).
                 String searchableLabel = (oneDay.getStudyBurstId() != null) ?
-                    String.format(":%s:%s %s:Week %s:%s:", oneDay.getStudyBurstId(), oneDay.getStudyBurstId(), oneDay.getStudyBurstNum(), oneWeek.getWeekInStudy(), oneDay.getSessionName()) :
-                    String.format(":%s:Week %s:", oneDay.getSessionName(), oneWeek.getWeekInStudy());
+                    ":" + oneDay.getStudyBurstId() + ":" + oneDay.getStudyBurstId() + " " + oneDay.getStudyBurstNum() + ":Week " + oneWeek.getWeekInStudy() + ":" + oneDay.getSessionName() + ":" :
+                    ":" + oneDay.getSessionName() + ":Week " + oneWeek.getWeekInStudy() + ":";
                 String displayLabel = (oneDay.getStudyBurstId() != null) ?
-                        String.format("%s %s / Week %s / %s", oneDay.getStudyBurstId(), oneDay.getStudyBurstNum(), oneWeek.getWeekInStudy(), oneDay.getSessionName()) :
-                        String.format("%s / Week %s", oneDay.getSessionName(), oneWeek.getWeekInStudy());
+                        oneDay.getStudyBurstId() + " " + oneDay.getStudyBurstNum() + " / Week " + oneWeek.getWeekInStudy() + " / " + oneDay.getSessionName() :
+                        oneDay.getSessionName() + " / Week " + oneWeek.getWeekInStudy();
                 labels.add(searchableLabel);
                 
                 WeeklyAdherenceReportRow row = new WeeklyAdherenceReportRow(); 
@@ -239,11 +285,11 @@ public class StudyAdherenceReportGenerator {
         rowList.sort(ROW_COMPARATOR);
         
         for (int i=0; i < 7; i++) {
-            List<EventStreamDay> paddedDays = new ArrayList<>();
+            List<EventStreamDay> paddedDays = new ArrayList<>(rowList.size());
+            List<EventStreamDay> days = oneWeek.getByDayEntries().get(i);
             
             for (WeeklyAdherenceReportRow row : rowList) {
-                List<EventStreamDay> days = oneWeek.getByDayEntries().get(i);
-                
+
                 EventStreamDay oneDay = findOrCreateDay(days, row.getSessionGuid(), row.getStartEventId());
                 // Only update this if it's a new day, if the date is set this is the second
                 // pass through the method to clean up the weekly report; leave it.
@@ -264,16 +310,18 @@ public class StudyAdherenceReportGenerator {
     }
     
     private EventStreamDay findOrCreateDay(List<EventStreamDay> days, String sessionGuid, String eventId) {
-        Optional<EventStreamDay> oneDay = days.stream()
-               // On a second pass to create rows and pad days for the weekly report, skip padding days
-               .filter(day -> day.getSessionGuid() != null/* && day.getStartDate() != null*/)
-               // If a session is triggered twice by two different events, it can appear twice in rows.
-               // If the events have nearly the same timestamp, the GUIDs and the labels would be exactly
-               // the same. For this reason we carry over the event ID as this identifies two unique streams
-               // and these must be tracked separately, even though they look the same in the report
-               .filter(day -> day.getSessionGuid().equals(sessionGuid) && day.getStartEventId().equals(eventId))
-               .findFirst();
-        return oneDay.orElse(new EventStreamDay());
+        for (EventStreamDay day : days) {
+            // On a second pass to create rows and pad days for the weekly report, skip padding days.
+            // If a session is triggered twice by two different events, it can appear twice in rows.
+            // If the events have nearly the same timestamp, the GUIDs and the labels would be exactly
+            // the same. For this reason we carry over the event ID as this identifies two unique streams
+            // and these must be tracked separately, even though they look the same in the report
+            if (day.getSessionGuid() != null && day.getSessionGuid().equals(sessionGuid)
+                    && day.getStartEventId().equals(eventId)) {
+                return day;
+            }
+        }
+        return new EventStreamDay();
     }
     
     /**
@@ -285,7 +333,7 @@ public class StudyAdherenceReportGenerator {
             if (oneWeek.getStartDate().isAfter(localToday)) {
                 for (List<EventStreamDay> days : oneWeek.getByDayEntries().values()) {
                     for (EventStreamDay oneDay : days) {
-                        if (!oneDay.getTimeWindows().isEmpty()) {
+                        if (oneDay.hasTimeWindows()) {
                             // This has yet to be changed from day-in-stream to day-in-study, so do it here.
                             oneDay.setWeek(oneWeek.getWeekInStudy());
                             return NextActivity.create(oneDay);
@@ -332,9 +380,7 @@ public class StudyAdherenceReportGenerator {
                 break;
             }
             oneWeek.visitDays((day, i) -> {
-                boolean match = day.getTimeWindows().stream()
-                        .anyMatch(window -> UNKNOWN.contains(window.getState()));
-                if (match) {
+                if (day.countTimeWindows(UNKNOWN) > 0) {
                     EventStreamDay dayCopy = day.copy();
                     dayCopy.setTimeWindows(day.getTimeWindows().stream()
                         .filter(win -> UNKNOWN.contains(win.getState()))
@@ -375,11 +421,11 @@ public class StudyAdherenceReportGenerator {
             day.setWeek(null);
             day.setToday(localToday.isEqual(day.getStartDate()));    
             day.setStartDay(null);
-            for (EventStreamWindow window : day.getTimeWindows()) {
+            day.visitTimeWindows(window -> {
                 window.setEndDay(null);
                 // This cannot be removed, or the window will be removed from persisted collection 
                 // window.setTimeWindowGuid(null);
-            }
+            });
         });
     }
 }
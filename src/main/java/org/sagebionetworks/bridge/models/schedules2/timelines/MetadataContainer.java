@@ -6,6 +6,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.google.common.collect.ImmutableList;
+
 import org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceRecord;
 import org.sagebionetworks.bridge.services.Schedule2Service;
 
@@ -22,7 +24,19 @@ public class MetadataContainer {
     List<AdherenceRecord> assessmentUpdates = new ArrayList<>();
     
     public MetadataContainer(Schedule2Service scheduleService, List<AdherenceRecord> records) {
+        this(scheduleService, ImmutableList.of(), records);
+    }
+    
+    /**
+     * Create a container with metadata that has already been loaded in bulk. Metadata for records
+     * that is not in the preloaded list is still retrieved one record at a time.
+     */
+    public MetadataContainer(Schedule2Service scheduleService, List<TimelineMetadata> preloaded,
+            List<AdherenceRecord> records) {
         this.scheduleService = scheduleService;
+        for (TimelineMetadata meta : preloaded) {
+            metadata.put(meta.getGuid(), meta);
+        }
         for (AdherenceRecord record : records) {
             addRecord(record);
         }
@@ -30,7 +44,7 @@ public class MetadataContainer {
     
     public void addRecord(AdherenceRecord record) {
         this.records.put(record.getInstanceGuid(), record);
-        TimelineMetadata meta = scheduleService.getTimelineMetadata(record.getInstanceGuid()).orElse(null);
+        TimelineMetadata meta = getMetadata(record.getInstanceGuid());
         if (meta != null) {
             metadata.put(meta.getGuid(), meta);
             // Persistent activities can be done more than once, and are only differentiated by their
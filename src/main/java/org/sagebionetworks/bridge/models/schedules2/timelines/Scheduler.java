@@ -64,12 +64,20 @@ public class Scheduler {
     }
 
     void calculateLanguageKey(Timeline.Builder builder) {
-        builder.withLang("en");
+        builder.withLang(getLanguageKey());
+    }
+    
+    /**
+     * The caller's languages, which determine the labels selected for the timeline. A timeline
+     * calculated for a schedule can be reused for any caller with the same language key.
+     */
+    public String getLanguageKey() {
         List<String> callerLangs = RequestContext.get().getCallerLanguages();
-        if (!callerLangs.isEmpty()) {
-            callerLangs = callerLangs.stream().map(s -> s.toLowerCase()).collect(toList());
-            builder.withLang(COMMA_JOINER.join(callerLangs));
+        if (callerLangs.isEmpty()) {
+            return "en";
         }
+        callerLangs = callerLangs.stream().map(s -> s.toLowerCase()).collect(toList());
+        return COMMA_JOINER.join(callerLangs);
     }
     
     /**
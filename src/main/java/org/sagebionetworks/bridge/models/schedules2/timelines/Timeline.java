@@ -180,9 +180,11 @@ public class Timeline {
                 }
                 return res;
             });
-            return new Timeline(duration, lang, scheduledSessions, ImmutableList.copyOf(assessments.values()),
-                    ImmutableList.copyOf(sessions.values()), metadata, ImmutableList.copyOf(studyBursts.values()),
-                    totalMinutes, totalNotifications);
+            // Timelines are cached and shared between requests, so none of the lists can be modifiable.
+            return new Timeline(duration, lang, ImmutableList.copyOf(scheduledSessions),
+                    ImmutableList.copyOf(assessments.values()), ImmutableList.copyOf(sessions.values()),
+                    ImmutableList.copyOf(metadata), ImmutableList.copyOf(studyBursts.values()), totalMinutes,
+                    totalNotifications);
         }
     }
 }
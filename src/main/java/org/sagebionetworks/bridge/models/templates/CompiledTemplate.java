@@ -0,0 +1,92 @@
+package org.sagebionetworks.bridge.models.templates;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+
+/**
+ * <p>
+ * A template with variables in the format <code>${variableName}</code>, parsed once into the literal text between
+ * the variables and the variable names, so it can be rendered many times with different values. Rendering is a
+ * single pass over the pieces, rather than a String.replace() over the whole template for every value.
+ * </p>
+ * <p>
+ * Variables that are not in the map of values (or whose value is null) are left in the output as is. Values are
+ * inserted as given, so a value that contains a variable is not itself resolved. With nested variables like
+ * <code>${a${b}}</code>, the innermost one is the variable.
+ * </p>
+ * <p>
+ * Compiled templates are immutable, and can be shared between threads.
+ * </p>
+ */
+public final class CompiledTemplate {
+    private static final String VARIABLE_START = "${";
+    private static final char VARIABLE_END = '}';
+
+    // There is one more literal than there are variables. Literals can be empty.
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, String[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static CompiledTemplate compile(String template) {
+        checkNotNull(template);
+
+        List<String> literals = Lists.newArrayList();
+        List<String> variables = Lists.newArrayList();
+        int literalStart = 0;
+        int pos = 0;
+        while (true) {
+            int start = template.indexOf(VARIABLE_START, pos);
+            if (start == -1) {
+                break;
+            }
+            int end = template.indexOf(VARIABLE_END, start + VARIABLE_START.length());
+            if (end == -1) {
+                break;
+            }
+            // If another variable starts before this one ends, the innermost one is the variable.
+            start = template.lastIndexOf(VARIABLE_START, end - VARIABLE_START.length());
+            literals.add(template.substring(literalStart, start));
+            variables.add(template.substring(start + VARIABLE_START.length(), end));
+            literalStart = pos = end + 1;
+        }
+        literals.add(template.substring(literalStart));
+        return new CompiledTemplate(literals.toArray(new String[0]), variables.toArray(new String[0]));
+    }
+
+    /** The names of the variables in the template, in order, including any duplicates. */
+    public List<String> getVariables() {
+        return Lists.newArrayList(variables);
+    }
+
+    /** Render the template with the given values. */
+    public String render(Map<String, String> values) {
+        checkNotNull(values);
+        // Most values are short (names, URLs and tokens), so this usually doesn't need to grow.
+        StringBuilder builder = new StringBuilder(literalLength + variables.length * 32);
+        builder.append(literals[0]);
+        for (int i = 0; i < variables.length; i++) {
+            String value = values.get(variables[i]);
+            if (value != null) {
+                builder.append(value);
+            } else {
+                builder.append(VARIABLE_START).append(variables[i]).append(VARIABLE_END);
+            }
+            builder.append(literals[i + 1]);
+        }
+        return builder.toString();
+    }
+}
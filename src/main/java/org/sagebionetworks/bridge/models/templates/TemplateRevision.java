@@ -55,4 +55,17 @@ public interface TemplateRevision extends BridgeEntity {
     
     String getSubject();
     void setSubject(String subject);
+    
+    /**
+     * The subject compiled for rendering, or null if the revision has no subject. This is 
+     * compiled once and kept with the revision, so cached revisions are not re-parsed for 
+     * every message. It is not included in JSON.
+     */
+    CompiledTemplate getCompiledSubject();
+    
+    /**
+     * The document content compiled for rendering, or null if the revision has no content 
+     * (it has not been loaded from S3). It is not included in JSON.
+     */
+    CompiledTemplate getCompiledDocumentContent();
 }
\ No newline at end of file
@@ -15,17 +15,29 @@ import static org.sagebionetworks.bridge.BridgeUtils.collectStudyIds;
 import static org.sagebionetworks.bridge.dao.AccountDao.MIGRATION_VERSION;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.ENROLLMENT;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import javax.annotation.Resource;
+
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.cache.CacheKey;
 import org.sagebionetworks.bridge.cache.CacheProvider;
@@ -34,24 +46,33 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.dao.AccountDao;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountDeletionJob;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.AccountSummary;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifierInfo;
 import org.sagebionetworks.bridge.models.activities.StudyActivityEvent;
 import org.sagebionetworks.bridge.models.apps.App;
-import org.sagebionetworks.bridge.models.reports.ReportIndex;
-import org.sagebionetworks.bridge.models.reports.ReportType;
 import org.sagebionetworks.bridge.models.studies.Alert;
 import org.sagebionetworks.bridge.models.studies.Enrollment;
 import org.sagebionetworks.bridge.time.DateUtils;
 
 @Component
 public class AccountService {
+    private static final Logger LOG = LoggerFactory.getLogger(AccountService.class);
+    
+    static final int ACCOUNT_DELETION_JOB_EXPIRE_SECONDS = (int)TimeUnit.DAYS.toSeconds(7);
+    // A running deletion that hasn't made progress in this long is assumed to have died with its server.
+    static final int ACCOUNT_DELETION_STALE_MINUTES = 10;
+    // While a step is running, the job is saved this often, so a long-running step doesn't make the job look stale.
+    static final int ACCOUNT_DELETION_HEARTBEAT_SECONDS = 60;
+    
     @Autowired
     private AccountDao accountDao;
     @Autowired
@@ -87,6 +108,21 @@ public class AccountService {
     @Autowired
     private RequestInfoService requestInfoService;
     
+    private ExecutorService accountDeletionExecutorService;
+    private ExecutorService asyncExecutorService;
+    
+    /** Bounded thread pool used to clean up a participant's data stores concurrently. This is configured by Spring. */
+    @Resource(name = "accountDeletionExecutorService")
+    final void setAccountDeletionExecutorService(ExecutorService accountDeletionExecutorService) {
+        this.accountDeletionExecutorService = accountDeletionExecutorService;
+    }
+    
+    /** Thread pool that runs background account deletions. This is separate from the pool that runs the steps. */
+    @Resource(name = "asyncExecutorService")
+    final void setAsyncExecutorService(ExecutorService asyncExecutorService) {
+        this.asyncExecutorService = asyncExecutorService;
+    }
+    
     // Provided to override in tests
     protected String generateGUID() {
         return BridgeUtils.generateGuid();
@@ -264,12 +300,36 @@ public class AccountService {
         if (!optional.isPresent()) {
             return optional;
         }
-        if (!canAccessAccount( optional.get() )) {
-            return Optional.empty();
+        return Optional.ofNullable(filterForCaller(optional.get()));
+    }
+    
+    /**
+     * Get the accounts with these IDs in an app, loading them together. Accounts that do not exist, 
+     * or that the caller cannot access, are skipped. The accounts are returned in the order of the IDs. 
+     */
+    public List<Account> getAccounts(String appId, List<String> userIds) {
+        checkNotNull(appId);
+        checkNotNull(userIds);
+        
+        List<Account> accounts = new ArrayList<>();
+        for (Account account : accountDao.getAccounts(appId, userIds)) {
+            account = filterForCaller(account);
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+        return accounts;
+    }
+    
+    /**
+     * Returns null if the caller cannot access the account.
+     */
+    private Account filterForCaller(Account account) {
+        if (!canAccessAccount(account)) {
+            return null;
         }
-        Account account = optional.get();
         if (CAN_READ_PARTICIPANTS.check(USER_ID, account.getId(), ORG_ID, account.getOrgMembership())) {
-            return optional;
+            return account;
         }
         // This was accessed through study rights, so remove the other studies from what the caller
         // can see.
@@ -278,11 +338,15 @@ public class AccountService {
         Set<Enrollment> removals = account.getEnrollments().stream()
                 .filter(en -> !callerStudies.contains(en.getStudyId())).collect(toSet());
         account.getEnrollments().removeAll(removals);
-        return optional;
+        return account;
     }
     
     /**
-     * Delete an account along with the authentication credentials.
+     * Delete an account along with the authentication credentials. The participant's data stores are cleaned up
+     * concurrently. If any of them can't be cleaned up, the account is left in place and the first error is thrown;
+     * calling this again runs the deletion again. Every store is cleaned up on every run, since data may have been
+     * written to a store after it was cleaned up. If a deletion of this account is already running, a 
+     * ConcurrentModificationException is thrown.
      */
     public void deleteAccount(AccountId accountId) {
         checkNotNull(accountId);
@@ -290,37 +354,204 @@ public class AccountService {
         Optional<Account> opt = accountDao.getAccount(accountId);
         if (opt.isPresent()) {
             Account account = opt.get();
-            
-            // remove this first so if account is partially deleted, re-authenticating will pick
-            // up accurate information about the state of the account (as we can recover it)
-            cacheProvider.removeSessionByUserId(account.getId());
-            requestInfoService.removeRequestInfo(account.getId());
-
-            String appId = account.getAppId();
-            String userId = account.getId();
-            String healthCode = account.getHealthCode();
-            healthDataService.deleteRecordsForHealthCode(healthCode);
-            healthDataEx3Service.deleteRecordsForHealthCode(healthCode);
-            notificationsService.deleteAllRegistrations(account.getAppId(), healthCode);
-            participantDataService.deleteAllParticipantData(userId);
-            participantFileService.deleteAllFilesForParticipant(userId);
-            uploadService.deleteUploadsForHealthCode(healthCode);
-            scheduledActivityService.deleteActivitiesForUser(healthCode);
-            activityEventService.deleteActivityEvents(account.getAppId(), healthCode);
-
-            List<? extends ReportIndex> reportIndexList = reportService.getReportIndices(appId, ReportType.PARTICIPANT)
-                    .getItems();
-            for (ReportIndex reportIndex : reportIndexList) {
-                reportService.deleteParticipantReport(appId, userId, reportIndex.getIdentifier(), healthCode);
+            AccountDeletionJob job = cacheProvider.getObject(
+                    CacheKey.accountDeletionJob(account.getAppId(), account.getId()), AccountDeletionJob.class);
+            if (isAccountDeletionRunning(job, DateUtils.getCurrentDateTime())) {
+                throw new ConcurrentModificationException("Account is already being deleted.");
+            }
+            // The caller gets the result directly, so the job is only kept if the deletion fails.
+            runAccountDeletion(account, RequestContext.get(), false);
+        }
+    }
+    
+    /**
+     * Start deleting an account in the background, returning the deletion job that can be polled through
+     * {@link #getAccountDeletionJob}. If a deletion of this account is already running, that job is returned and
+     * another deletion isn't started. A deletion that failed is run again from the start.
+     */
+    public AccountDeletionJob startAccountDeletion(AccountId accountId) {
+        checkNotNull(accountId);
+        
+        Account account = accountDao.getAccount(accountId)
+                .orElseThrow(() -> new EntityNotFoundException(Account.class));
+        
+        AccountDeletionJob job = cacheProvider.getObject(
+                CacheKey.accountDeletionJob(account.getAppId(), account.getId()), AccountDeletionJob.class);
+        DateTime now = DateUtils.getCurrentDateTime();
+        if (isAccountDeletionRunning(job, now)) {
+            return job;
+        }
+        job = newAccountDeletionJob(account, job, now);
+        saveAccountDeletionJob(job);
+        
+        // The deletion checks the caller's access to the participant's reports, so it runs as the caller.
+        RequestContext context = RequestContext.get();
+        asyncExecutorService.execute(() -> {
+            RequestContext previousContext = RequestContext.get();
+            RequestContext.set(context);
+            try {
+                runAccountDeletion(account, context, true);
+            } catch (RuntimeException e) {
+                // The failure is recorded in the job.
+                LOG.warn("Error deleting account " + account.getId() + " in app " + account.getAppId(), e);
+            } finally {
+                RequestContext.set(previousContext);
             }
+        });
+        return job;
+    }
+    
+    /**
+     * Get the progress of deleting an account. Jobs are kept for a week after they last made progress. 
+     */
+    public AccountDeletionJob getAccountDeletionJob(String appId, String userId) {
+        checkNotNull(appId);
+        checkNotNull(userId);
+        
+        AccountDeletionJob job = cacheProvider.getObject(CacheKey.accountDeletionJob(appId, userId),
+                AccountDeletionJob.class);
+        if (job == null) {
+            throw new EntityNotFoundException(AccountDeletionJob.class);
+        }
+        return job;
+    }
+    
+    /**
+     * Run the deletion of an account. If keepSucceededJob is false, the job is removed once the 
+     * account has been deleted; otherwise the succeeded job is kept so it can be polled.
+     */
+    private void runAccountDeletion(Account account, RequestContext context, boolean keepSucceededJob) {
+        String appId = account.getAppId();
+        String userId = account.getId();
+        String healthCode = account.getHealthCode();
+        
+        // remove this first so if account is partially deleted, re-authenticating will pick
+        // up accurate information about the state of the account (as we can recover it)
+        cacheProvider.removeSessionByUserId(userId);
+        requestInfoService.removeRequestInfo(userId);
+        
+        // Each of these stores is independent of the others, so they are cleaned up concurrently. Every step is 
+        // idempotent and runs on every attempt, because the participant can write to a store after it has been
+        // cleaned up by a failed attempt. Steps are named only to report progress.
+        Map<String, Runnable> steps = new LinkedHashMap<>();
+        steps.put("healthData", () -> healthDataService.deleteRecordsForHealthCode(healthCode));
+        steps.put("healthDataEx3", () -> healthDataEx3Service.deleteRecordsForHealthCode(healthCode));
+        steps.put("notificationRegistrations", () -> notificationsService.deleteAllRegistrations(appId, healthCode));
+        steps.put("participantData", () -> participantDataService.deleteAllParticipantData(userId));
+        steps.put("participantFiles", () -> participantFileService.deleteAllFilesForParticipant(userId));
+        steps.put("uploads", () -> uploadService.deleteUploadsForHealthCode(healthCode));
+        steps.put("scheduledActivities", () -> scheduledActivityService.deleteActivitiesForUser(healthCode));
+        steps.put("activityEvents", () -> activityEventService.deleteActivityEvents(appId, healthCode));
+        steps.put("participantReports", () -> reportService.deleteAllParticipantReports(appId, userId, healthCode));
+        
+        AccountDeletionJob existingJob = cacheProvider.getObject(CacheKey.accountDeletionJob(appId, userId),
+                AccountDeletionJob.class);
+        AccountDeletionJob job = newAccountDeletionJob(account, existingJob, DateUtils.getCurrentDateTime());
+        job.setTotalSteps(steps.size());
+        saveAccountDeletionJob(job);
+        
+        Map<String, Future<?>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, Runnable> step : steps.entrySet()) {
+            Runnable runnable = step.getValue();
+            futures.put(step.getKey(), accountDeletionExecutorService.submit(() -> {
+                RequestContext previousContext = RequestContext.get();
+                RequestContext.set(context);
+                try {
+                    runnable.run();
+                } finally {
+                    RequestContext.set(previousContext);
+                }
+            }));
+        }
+        
+        RuntimeException firstError = null;
+        for (Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+            try {
+                getDeletionStepResult(entry.getValue(), job);
+                job.getCompletedSteps().add(entry.getKey());
+            } catch (RuntimeException e) {
+                LOG.warn("Error deleting " + entry.getKey() + " for account " + userId + " in app " + appId, e);
+                job.getFailedSteps().put(entry.getKey(), e.getMessage());
+                if (firstError == null) {
+                    firstError = e;
+                }
+            }
+            job.setModifiedOn(DateUtils.getCurrentDateTime());
+            saveAccountDeletionJob(job);
+        }
+        if (firstError != null) {
+            job.setStatus(AccountDeletionJob.Status.FAILED);
+            saveAccountDeletionJob(job);
+            throw firstError;
+        }
 
-            // AccountSecret records and Enrollment records are are deleted on a 
-            // cascading delete from Account
-            accountDao.deleteAccount(account.getId());
-            
-            // Remove known etag cache keys for this user
-            cacheProvider.removeObject( CacheKey.etag(DateTimeZone.class, account.getId()) );
-            cacheProvider.removeObject( CacheKey.etag(StudyActivityEvent.class, account.getId()) );
+        // AccountSecret records and Enrollment records are are deleted on a 
+        // cascading delete from Account
+        accountDao.deleteAccount(userId);
+        
+        // Remove known etag cache keys for this user
+        cacheProvider.removeObject( CacheKey.etag(DateTimeZone.class, userId) );
+        cacheProvider.removeObject( CacheKey.etag(StudyActivityEvent.class, userId) );
+        
+        if (keepSucceededJob) {
+            job.setStatus(AccountDeletionJob.Status.SUCCEEDED);
+            job.setModifiedOn(DateUtils.getCurrentDateTime());
+            saveAccountDeletionJob(job);
+        } else {
+            cacheProvider.removeObject(CacheKey.accountDeletionJob(appId, userId));
+        }
+    }
+    
+    private boolean isAccountDeletionRunning(AccountDeletionJob job, DateTime now) {
+        return job != null && job.getStatus() == AccountDeletionJob.Status.IN_PROGRESS
+                && job.getModifiedOn().isAfter(now.minusMinutes(ACCOUNT_DELETION_STALE_MINUTES));
+    }
+    
+    /**
+     * A new run of the deletion job. If an earlier run exists, the new run keeps its start time.
+     */
+    private AccountDeletionJob newAccountDeletionJob(Account account, AccountDeletionJob existingJob, DateTime now) {
+        AccountDeletionJob job = new AccountDeletionJob();
+        job.setAppId(account.getAppId());
+        job.setUserId(account.getId());
+        job.setStatus(AccountDeletionJob.Status.IN_PROGRESS);
+        job.setStartedOn(now);
+        job.setModifiedOn(now);
+        if (existingJob != null) {
+            job.setTotalSteps(existingJob.getTotalSteps());
+            job.setStartedOn(existingJob.getStartedOn());
+        }
+        return job;
+    }
+    
+    private void saveAccountDeletionJob(AccountDeletionJob job) {
+        cacheProvider.setObject(CacheKey.accountDeletionJob(job.getAppId(), job.getUserId()), job,
+                ACCOUNT_DELETION_JOB_EXPIRE_SECONDS);
+    }
+    
+    /**
+     * Wait for a step to finish. While waiting, the job is saved periodically to show that the deletion is still 
+     * running.
+     */
+    private void getDeletionStepResult(Future<?> future, AccountDeletionJob job) {
+        try {
+            while (true) {
+                try {
+                    future.get(ACCOUNT_DELETION_HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    job.setModifiedOn(DateUtils.getCurrentDateTime());
+                    saveAccountDeletionJob(job);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new BridgeServiceException(e.getCause());
         }
     }
     
@@ -394,11 +625,11 @@ public class AccountService {
     }
     
     public PagedResourceList<ExternalIdentifierInfo> getPagedExternalIds(String appId, String studyId, String idFilter,
-            Integer offsetBy, Integer pageSize) {
+            Integer offsetBy, String offsetKey, Integer pageSize) {
         checkNotNull(appId);
         checkNotNull(studyId);
 
-        return accountDao.getPagedExternalIds(appId, studyId, idFilter, offsetBy, pageSize);
+        return accountDao.getPagedExternalIds(appId, studyId, idFilter, offsetBy, offsetKey, pageSize);
     }
     
     public void deleteAllAccounts(String appId) {
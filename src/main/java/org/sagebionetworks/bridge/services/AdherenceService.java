@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.services;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Boolean.TRUE;
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 import static org.sagebionetworks.bridge.AuthUtils.CAN_ACCESS_ADHERENCE_DATA;
@@ -34,6 +35,7 @@ import static org.sagebionetworks.bridge.validators.AdherenceRecordListValidator
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -45,6 +47,7 @@ import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 
 import org.joda.time.DateTime;
 import org.sagebionetworks.bridge.models.schedules2.AssessmentReference;
@@ -100,6 +103,12 @@ import org.slf4j.LoggerFactory;
 public class AdherenceService {
     private static final Logger LOG = LoggerFactory.getLogger(AdherenceService.class);
     
+    /**
+     * Submissions with at least this many records are written with a fixed number of queries 
+     * (see {@link #updateAdherenceRecordsInBatch}).
+     */
+    static final int BATCH_UPDATE_THRESHOLD = 10;
+    
     static final StudyReportWeek EMPTY_WEEK = new StudyReportWeek();
     static final String THRESHOLD_OUT_OF_RANGE_ERROR = "Adherence threshold must be from 1-100.";
     static final String NO_THRESHOLD_VALUE_ERROR = "An adherence threshold value must be supplied in the request or set as a study default.";
@@ -174,6 +183,10 @@ public class AdherenceService {
                 AuthEvaluatorField.STUDY_ID, recordList.getRecords().get(0).getStudyId(), 
                 AuthEvaluatorField.USER_ID, recordList.getRecords().get(0).getUserId());
         
+        if (recordList.getRecords().size() >= BATCH_UPDATE_THRESHOLD) {
+            updateAdherenceRecordsInBatch(appId, recordList.getRecords());
+            return;
+        }
         MetadataContainer container = new MetadataContainer(scheduleService, recordList.getRecords());
         
         // Update assessments
@@ -194,6 +207,119 @@ public class AdherenceService {
         }
     }
     
+    /**
+     * Update a larger set of records (e.g. a client uploading a backlog of records) with a fixed number 
+     * of queries: the timeline metadata of the records and of their sessions is loaded in two queries, 
+     * the records are written in two batches (assessments, then the sessions whose state they change), 
+     * the state of each affected session is calculated once from one query of the participant's 
+     * records, and one event is published for each finished session or assessment, with the latest 
+     * finishedOn timestamp (these events only move forward in time, so the earlier timestamps would 
+     * not be saved).
+     */
+    protected void updateAdherenceRecordsInBatch(String appId, List<AdherenceRecord> records) {
+        Stopwatch watch = Stopwatch.createStarted();
+        
+        Set<String> instanceGuids = records.stream().map(AdherenceRecord::getInstanceGuid).collect(toSet());
+        List<TimelineMetadata> metadata = new ArrayList<>(
+                scheduleService.getTimelineMetadataForInstances(instanceGuids));
+        Set<String> sessionInstanceGuids = metadata.stream()
+                .filter(meta -> meta.getAssessmentInstanceGuid() != null)
+                .map(TimelineMetadata::getSessionInstanceGuid)
+                .collect(toSet());
+        List<TimelineMetadata> sessionMetadata = scheduleService
+                .getMetadataForSessionInstances(sessionInstanceGuids);
+        metadata.addAll(sessionMetadata);
+        
+        MetadataContainer container = new MetadataContainer(scheduleService, metadata, records);
+        
+        // Update assessments
+        List<AdherenceRecord> assessments = ImmutableList.copyOf(container.getAssessments());
+        recordDao.updateAdherenceRecords(assessments);
+        
+        // Update sessions implied by assessments
+        if (!assessments.isEmpty()) {
+            Map<String, List<TimelineMetadata>> asmtMetasBySession = sessionMetadata.stream()
+                    .filter(meta -> meta.getAssessmentInstanceGuid() != null)
+                    .collect(groupingBy(TimelineMetadata::getSessionInstanceGuid));
+            
+            Set<String> allInstanceGuids = new HashSet<>(sessionInstanceGuids);
+            sessionMetadata.forEach(meta -> allInstanceGuids.add(meta.getGuid()));
+            AdherenceRecord first = assessments.get(0);
+            List<AdherenceRecord> persistedRecords = recordDao.getAdherenceRecordsForInstances(
+                    first.getUserId(), first.getStudyId(), allInstanceGuids);
+            
+            Set<String> updatedSessions = new HashSet<>();
+            for (AdherenceRecord asmt : assessments) {
+                String sessionInstanceGuid = container.getMetadata(asmt.getInstanceGuid()).getSessionInstanceGuid();
+                if (updatedSessions.add(sessionInstanceGuid + ":" + asmt.getEventTimestamp().getMillis())) {
+                    updateSessionState(container, asmt, asmtMetasBySession.getOrDefault(sessionInstanceGuid,
+                            ImmutableList.of()), persistedRecords);
+                }
+            }
+        }
+        // Update sessions
+        recordDao.updateAdherenceRecords(ImmutableList.copyOf(container.getSessionUpdates()));
+        
+        // Publish one event for each finished session or assessment
+        Map<String, StudyActivityEvent> events = new LinkedHashMap<>();
+        for (AdherenceRecord record : Iterables.concat(assessments, container.getSessionUpdates())) {
+            TimelineMetadata meta = container.getMetadata(record.getInstanceGuid());
+            StudyActivityEvent event = createFinishedEvent(appId, meta, record);
+            if (event != null) {
+                events.merge(event.getEventId(), event,
+                        (e1, e2) -> e2.getTimestamp().isAfter(e1.getTimestamp()) ? e2 : e1);
+            }
+        }
+        for (StudyActivityEvent event : events.values()) {
+            studyActivityEventService.publishEvent(event, false, true);
+        }
+        watch.stop();
+        LOG.info("Batch update of " + records.size() + " adherence records took "
+                + watch.elapsed(TimeUnit.MILLISECONDS) + "ms");
+    }
+    
+    /**
+     * Calculate the state of a session from records that have already been retrieved for the batch. This
+     * follows the same logic as {@link #updateSessionState(String, MetadataContainer, AdherenceRecord)}.
+     */
+    private void updateSessionState(MetadataContainer container, AdherenceRecord asmt,
+            List<TimelineMetadata> asmtMetas, List<AdherenceRecord> persistedRecords) {
+        TimelineMetadata asmtMeta = container.getMetadata(asmt.getInstanceGuid());
+        String sessionInstanceGuid = asmtMeta.getSessionInstanceGuid();
+        
+        Set<String> instanceGuids = asmtMetas.stream()
+                .map(TimelineMetadata::getAssessmentInstanceGuid)
+                .collect(toSet());
+        
+        SessionState state = new SessionState(asmtMetas.size());
+        
+        AdherenceRecord sessionRecord = container.getRecord(sessionInstanceGuid);
+        for (AdherenceRecord oneRecord : persistedRecords) {
+            if (oneRecord.getEventTimestamp() == null
+                    || oneRecord.getEventTimestamp().getMillis() != asmt.getEventTimestamp().getMillis()) {
+                continue;
+            }
+            if (sessionInstanceGuid.equals(oneRecord.getInstanceGuid())) {
+                if (sessionRecord == null) {
+                    sessionRecord = oneRecord;
+                }
+            } else if (instanceGuids.contains(oneRecord.getInstanceGuid())) {
+                state.add(oneRecord);
+            }
+        }
+        if (sessionRecord == null) {
+            sessionRecord = new AdherenceRecord();
+            sessionRecord.setAppId(asmt.getAppId());
+            sessionRecord.setUserId(asmt.getUserId());
+            sessionRecord.setStudyId(asmt.getStudyId());
+            sessionRecord.setInstanceGuid(sessionInstanceGuid);
+            sessionRecord.setEventTimestamp(asmt.getEventTimestamp());
+        }
+        if (state.updateSessionRecord(sessionRecord)) {
+            container.addRecord(sessionRecord);
+        }
+    }
+    
     protected void updateSessionState(String appId, MetadataContainer container, AdherenceRecord asmt) {
         TimelineMetadata asmtMeta = container.getMetadata(asmt.getInstanceGuid());
         String sessionInstanceGuid = asmtMeta.getSessionInstanceGuid();
@@ -241,6 +367,13 @@ public class AdherenceService {
     }
 
     protected void publishEvent(String appId, TimelineMetadata meta, AdherenceRecord record) {
+        StudyActivityEvent event = createFinishedEvent(appId, meta, record);
+        if (event != null) {
+            studyActivityEventService.publishEvent(event, false, true);
+        }
+    }
+    
+    private StudyActivityEvent createFinishedEvent(String appId, TimelineMetadata meta, AdherenceRecord record) {
         if (meta != null && record.getFinishedOn() != null) {
             StudyActivityEvent.Builder builder = new StudyActivityEvent.Builder()
                     .withAppId(appId)
@@ -258,8 +391,9 @@ public class AdherenceService {
                 builder.withObjectType(ASSESSMENT);
                 builder.withObjectId(meta.getAssessmentId());
             }
-            studyActivityEventService.publishEvent(builder.build(), false, true);
+            return builder.build();
         }
+        return null;
     }
 
     public PagedResourceList<AdherenceRecord> getAdherenceRecords(String appId, AdherenceRecordsSearch search) {
@@ -512,20 +646,133 @@ public class AdherenceService {
     public WeeklyAdherenceReport getWeeklyAdherenceReportForWorker(String appId, String studyId, Account account) {
         WeeklyAdherenceReport weeklyReport = getWeeklyAdherenceReport(appId, studyId, account);
 
-        // trigger alert for low weekly adherence
         Study study = studyService.getStudy(appId, studyId, true);
+        alertOnLowAdherence(appId, studyId, study, account.getId(), weeklyReport);
+
+        return weeklyReport;
+    }
+    
+    /**
+     * Generate and save the weekly adherence reports of a batch of participants in a study, for the 
+     * worker (this does the same work as calling {@link #getWeeklyAdherenceReportForWorker} for each 
+     * account). The study, schedule, and timeline metadata are loaded once for the batch, and the 
+     * participants' events, session adherence records, and request infos are each retrieved for the 
+     * whole batch in one query.
+     */
+    public List<WeeklyAdherenceReport> getWeeklyAdherenceReportsForWorker(String appId, String studyId,
+            List<Account> accounts) {
+        checkNotNull(appId);
+        checkNotNull(studyId);
+        checkNotNull(accounts);
+        
+        Stopwatch watch = Stopwatch.createStarted();
+        
+        Study study = studyService.getStudy(appId, studyId, true);
+        if (study.getScheduleGuid() == null) {
+            throw new EntityNotFoundException(Schedule2.class);
+        }
+        Schedule2 schedule = scheduleService.getScheduleForStudy(appId, studyId)
+                .orElseThrow(() -> new EntityNotFoundException(Schedule2.class));
+        List<TimelineMetadata> metadata = scheduleService.getScheduleMetadata(study.getScheduleGuid());
+        Map<String, TimelineMetadata> sessionMetadata = metadata.stream()
+                .filter(meta -> meta.getAssessmentGuid() == null)
+                .collect(toMap(TimelineMetadata::getGuid, meta -> meta, (meta1, meta2) -> meta1));
+        
+        StudyActivityEventIdsMap eventIdsMap = new StudyActivityEventIdsMap();
+        eventIdsMap.addCustomEvents(study.getCustomEvents());
+        eventIdsMap.addStudyBursts(schedule.getStudyBursts());
+        String studyZoneId = studyService.getZoneId(appId, studyId, null);
+        
+        Set<String> userIds = accounts.stream().map(Account::getId).collect(toSet());
+        Map<String, List<StudyActivityEvent>> eventsByUserId = studyActivityEventService
+                .getRecentStudyActivityEvents(appId, studyId, accounts);
+        Map<String, List<AdherenceRecord>> recordsByUserId = recordDao.getSessionAdherenceRecords(studyId, userIds)
+                .stream().collect(groupingBy(AdherenceRecord::getUserId));
+        Map<String, RequestInfo> requestInfos = requestInfoService.getRequestInfos(userIds);
+        
+        List<WeeklyAdherenceReport> weeklyReports = new ArrayList<>();
+        for (Account account : accounts) {
+            DateTime createdOn = getDateTime();
+            String zoneId = (account.getClientTimeZone() != null) ? account.getClientTimeZone() : studyZoneId;
+            List<StudyActivityEvent> events = eventsByUserId.getOrDefault(account.getId(), ImmutableList.of());
+            List<AdherenceRecord> records = selectCurrentRecords(
+                    recordsByUserId.getOrDefault(account.getId(), ImmutableList.of()), events, eventIdsMap,
+                    sessionMetadata);
+            
+            AdherenceState state = new AdherenceState.Builder()
+                    .withNow(createdOn)
+                    .withClientTimeZone(zoneId)
+                    .withMetadata(metadata)
+                    .withEvents(events)
+                    .withAdherenceRecords(records)
+                    .withStudyStartEventId(study.getStudyStartEventId())
+                    .build();
+            StudyAdherenceReport report = StudyAdherenceReportGenerator.INSTANCE.generate(state, schedule);
+            report.setParticipant(new AccountRef(account, studyId));
+            report.setTestAccount(account.getDataGroups().contains(TEST_USER_GROUP));
+            report.setCreatedOn(createdOn);
+            report.setClientTimeZone(zoneId);
+            
+            WeeklyAdherenceReport weeklyReport = deriveWeeklyAdherenceFromStudyReportWeek(studyId, account, report,
+                    requestInfos.get(account.getId()));
+            alertOnLowAdherence(appId, studyId, study, account.getId(), weeklyReport);
+            weeklyReports.add(weeklyReport);
+        }
+        watch.stop();
+        LOG.info("Weekly adherence reports for " + accounts.size() + " participants took "
+                + watch.elapsed(TimeUnit.MILLISECONDS) + "ms");
+        return weeklyReports;
+    }
+    
+    /**
+     * Select the session records for the current timestamps of the participant's events, as the 
+     * currentTimestampsOnly flag does when searching for adherence records.
+     */
+    List<AdherenceRecord> selectCurrentRecords(List<AdherenceRecord> records, List<StudyActivityEvent> events,
+            StudyActivityEventIdsMap eventIdsMap, Map<String, TimelineMetadata> sessionMetadata) {
+        Map<String, DateTime> eventTimestamps = new HashMap<>();
+        for (StudyActivityEvent event : events) {
+            if (event.getTimestamp() != null) {
+                eventTimestamps.put(event.getEventId(), event.getTimestamp());
+            }
+        }
+        Map<String, DateTime> currentTimestamps = new HashMap<>();
+        addToMap(eventTimestamps, eventIdsMap, currentTimestamps);
+        if (currentTimestamps.isEmpty()) {
+            return records;
+        }
+        List<AdherenceRecord> currentRecords = new ArrayList<>();
+        for (AdherenceRecord record : records) {
+            TimelineMetadata meta = sessionMetadata.get(record.getInstanceGuid());
+            if (meta == null || record.getEventTimestamp() == null) {
+                continue;
+            }
+            DateTime timestamp = currentTimestamps.get(meta.getSessionStartEventId());
+            if (timestamp != null && timestamp.getMillis() == record.getEventTimestamp().getMillis()) {
+                currentRecords.add(record);
+            }
+        }
+        return currentRecords;
+    }
+    
+    private void alertOnLowAdherence(String appId, String studyId, Study study, String userId,
+            WeeklyAdherenceReport weeklyReport) {
         if (weeklyReport.getWeeklyAdherencePercent() != null
                 && study.getAdherenceThresholdPercentage() != null
                 && weeklyReport.getWeeklyAdherencePercent() <= study.getAdherenceThresholdPercentage()) {
             alertService.createAlert(
-                    Alert.lowAdherence(studyId, appId, account.getId(), study.getAdherenceThresholdPercentage()));
+                    Alert.lowAdherence(studyId, appId, userId, study.getAdherenceThresholdPercentage()));
         }
-
-        return weeklyReport;
     }
 
     protected WeeklyAdherenceReport deriveWeeklyAdherenceFromStudyReportWeek(String studyId, Account account,
             StudyAdherenceReport report) {
+        return deriveWeeklyAdherenceFromStudyReportWeek(studyId, account, report,
+                requestInfoService.getRequestInfo(account.getId()));
+    }
+    
+    private WeeklyAdherenceReport deriveWeeklyAdherenceFromStudyReportWeek(String studyId, Account account,
+            StudyAdherenceReport report, RequestInfo info) {
         
         WeeklyAdherenceReport weeklyReport = new WeeklyAdherenceReport();
         weeklyReport.setAppId(account.getAppId());
@@ -536,7 +783,6 @@ public class AdherenceService {
         weeklyReport.setClientTimeZone(report.getClientTimeZone());
         weeklyReport.setCreatedOn(report.getCreatedOn());
         
-        RequestInfo info = requestInfoService.getRequestInfo(account.getId());
         if (info == null || info.getSignedInOn() == null) {
             // Pad out this report so it is similar to reports that have no current active
             // tasks for the participant.
@@ -654,7 +900,7 @@ public class AdherenceService {
                 .orElseThrow(() -> new EntityNotFoundException(Schedule2.class));
         List<TimelineMetadata> metadata = scheduleService.getScheduleMetadata(study.getScheduleGuid());
         
-        Timeline timeline = scheduleService.getTimelineForSchedule(appId, schedule.getGuid());
+        Timeline timeline = scheduleService.getTimeline(schedule);
         
         List<StudyActivityEvent> events = studyActivityEventService.getRecentStudyActivityEvents(
                 appId, studyId, account.getId()).getItems();
@@ -3,28 +3,53 @@ package org.sagebionetworks.bridge.services;
 import static com.google.common.base.Preconditions.checkArgument;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Resource;
 
 import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.hibernate.HibernateCacheConfig;
+import org.sagebionetworks.bridge.spring.util.EtagComponent;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 @Component
 public class CacheAdminService {
     
     private JedisPool jedisPool;
+    private NearCacheManager nearCacheManager;
+    private EtagComponent etagComponent;
+    private SessionFactory sessionFactory;
 
     @Resource(name = "jedisPool")
     public void setJedisPool(JedisPool jedisPool) {
         this.jedisPool = jedisPool;
     }
+    
+    @Autowired
+    public void setNearCacheManager(NearCacheManager nearCacheManager) {
+        this.nearCacheManager = nearCacheManager;
+    }
+    
+    @Autowired
+    public void setEtagComponent(EtagComponent etagComponent) {
+        this.etagComponent = etagComponent;
+    }
+    
+    @Autowired
+    public void setSessionFactory(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
 
     /**
      * Returns all keys in the cache that are not user session keys.
@@ -44,7 +69,8 @@ public class CacheAdminService {
     }
 
     /**
-     * Delete an item by its key from the cache (cannot delete sessions).
+     * Delete an item by its key from the cache (cannot delete sessions), including any copies held in the 
+     * near caches of every node.
      * @param cacheKey
      */
     public void removeItem(String cacheKey) {
@@ -55,10 +81,33 @@ public class CacheAdminService {
             try (Jedis jedis = jedisPool.getResource()) {
                 removed = jedis.del(cacheKey);
             }
+            if (nearCacheManager != null) {
+                nearCacheManager.invalidate(CacheKey.fromString(cacheKey));
+            }
         }
         if (removed == null || removed == 0) {
             throw new BridgeServiceException("Item could not be removed from cache: does key '"+cacheKey+"' exist?"); 
         }
     }
     
+    /**
+     * Hit, miss, and eviction counts for the in-process caches on the node serving this request, 
+     * etag counts for each endpoint that supports etags (prefixed with "Etag:"), and hit, miss, and 
+     * put counts for each Hibernate second-level cache region (prefixed with "Hibernate:").
+     */
+    public Map<String, Map<String, Long>> getCacheStats() {
+        Map<String, Map<String, Long>> stats = Maps.newTreeMap();
+        stats.putAll(nearCacheManager.getStats());
+        for (Map.Entry<String, Map<String, Long>> entry : etagComponent.getStats().entrySet()) {
+            stats.put("Etag:" + entry.getKey(), entry.getValue());
+        }
+        if (sessionFactory != null) {
+            Map<String, Map<String, Long>> hibernateStats = HibernateCacheConfig.getStats(sessionFactory);
+            for (Map.Entry<String, Map<String, Long>> entry : hibernateStats.entrySet()) {
+                stats.put("Hibernate:" + entry.getKey(), entry.getValue());
+            }
+        }
+        return stats;
+    }
+    
 }
@@ -20,8 +20,6 @@ import com.amazonaws.services.sns.model.CreateTopicResult;
 import com.amazonaws.services.sns.model.PublishResult;
 import com.amazonaws.services.sns.model.SubscribeRequest;
 import com.amazonaws.services.sns.model.SubscribeResult;
-import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -56,7 +54,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.SecureTokenGenerator;
@@ -280,7 +277,7 @@ public class Exporter3Service {
     private RequestInfoService requestInfoService;
     private S3Helper s3Helper;
     private AmazonSNS snsClient;
-    private AmazonSQS sqsClient;
+    private WorkerRequestPublisher workerRequestPublisher;
     private StudyService studyService;
     private SynapseHelper synapseHelper;
     private Schedule2Service schedule2Service;
@@ -354,8 +351,8 @@ public class Exporter3Service {
     }
 
     @Autowired
-    final void setSqsClient(AmazonSQS sqsClient) {
-        this.sqsClient = sqsClient;
+    final void setWorkerRequestPublisher(WorkerRequestPublisher workerRequestPublisher) {
+        this.workerRequestPublisher = workerRequestPublisher;
     }
 
     @Autowired
@@ -979,13 +976,8 @@ public class Exporter3Service {
                     ex);
         }
 
-        // Note: SqsInitializer runs after Spring, so we need to grab the queue URL dynamically.
-        String workerQueueUrl = config.getProperty(BridgeConstants.CONFIG_KEY_WORKER_SQS_URL);
-
-        // Sent to SQS.
-        SendMessageResult sqsResult = sqsClient.sendMessage(workerQueueUrl, requestJson);
-        LOG.info("Sent export request for app " + appId + " record " + recordId + "; received message ID=" +
-                sqsResult.getMessageId());
+        // Send to SQS. This is batched with other worker requests and doesn't wait on SQS.
+        workerRequestPublisher.publish(requestJson, "export request for app " + appId + " record " + recordId);
     }
 
     // Export timeline from Bridge to Synapse (Some researchers only have access to Synapse, not Bridge,
@@ -6,6 +6,7 @@ import static org.sagebionetworks.bridge.BridgeConstants.NEGATIVE_OFFSET_ERROR;
 import static org.sagebionetworks.bridge.BridgeUtils.getElement;
 import static org.sagebionetworks.bridge.models.ResourceList.ID_FILTER;
 import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
+import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_KEY;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
 
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -29,6 +30,7 @@ import org.springframework.stereotype.Component;
 public class ExternalIdService {
     
     static final String PAGE_SIZE_ERROR = "pageSize must be from 1-"+API_MAXIMUM_PAGE_SIZE+" records";
+    static final String OFFSET_KEY_ERROR = "offsetKey cannot be used with offsetBy";
     
     private AccountService accountService;
     private AlertService alertService;
@@ -44,16 +46,20 @@ public class ExternalIdService {
     }
     
     public PagedResourceList<ExternalIdentifierInfo> getPagedExternalIds(String appId, String studyId, String idFilter,
-            Integer offsetBy, Integer pageSize) {
+            Integer offsetBy, String offsetKey, Integer pageSize) {
         if (offsetBy != null && offsetBy < 0) {
             throw new BadRequestException(NEGATIVE_OFFSET_ERROR);
         }
+        if (offsetBy != null && offsetBy > 0 && offsetKey != null) {
+            throw new BadRequestException(OFFSET_KEY_ERROR);
+        }
         if (pageSize != null && (pageSize < 1 || pageSize > API_MAXIMUM_PAGE_SIZE)) {
             throw new BadRequestException(PAGE_SIZE_ERROR);
         }
-        return accountService.getPagedExternalIds(appId, studyId, idFilter, offsetBy, pageSize)
+        return accountService.getPagedExternalIds(appId, studyId, idFilter, offsetBy, offsetKey, pageSize)
                 .withRequestParam(ID_FILTER, idFilter)
                 .withRequestParam(OFFSET_BY, offsetBy)
+                .withRequestParam(OFFSET_KEY, offsetKey)
                 .withRequestParam(PAGE_SIZE, pageSize);
     }
 
@@ -142,7 +142,7 @@ public class OrganizationService {
         
         Validate.entityThrowingException(INSTANCE, organization);
         
-        Organization existing = orgDao.getOrganization(organization.getAppId(), organization.getIdentifier())
+        Organization existing = orgDao.getOrganizationForUpdate(organization.getAppId(), organization.getIdentifier())
                 .orElseThrow(() -> new EntityNotFoundException(Organization.class));        
         
         organization.setModifiedOn(getModifiedOn());
@@ -182,7 +182,7 @@ public class OrganizationService {
         checkArgument(isNotBlank(appId));
         checkArgument(isNotBlank(identifier));
         
-        Organization existing = orgDao.getOrganization(appId, identifier)
+        Organization existing = orgDao.getOrganizationForUpdate(appId, identifier)
                 .orElseThrow(() -> new EntityNotFoundException(Organization.class));        
         if (assessmentDao.hasAssessmentFromOrg(appId, identifier)) {
             throw new ConstraintViolationException.Builder().withMessage(
@@ -30,11 +30,13 @@ import java.util.concurrent.ConcurrentHashMap;
 import static com.amazonaws.HttpMethod.GET;
 import static com.amazonaws.HttpMethod.PUT;
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MINIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeConstants.PAGE_SIZE_ERROR;
 import static org.sagebionetworks.bridge.BridgeConstants.PARTICIPANT_FILE_RATE_LIMIT_ERROR;
+import static org.sagebionetworks.bridge.BridgeUtils.deleteS3Objects;
 import static org.sagebionetworks.bridge.validators.ParticipantFileValidator.INSTANCE;
 
 
@@ -234,12 +236,11 @@ public class ParticipantFileService {
             return;
         }
 
-        // Delete files from S3.
+        // Delete files from S3, up to 1000 per request.
         // If the file does not exist on S3, the s3Client will actually return success
         // instead of an error message.
-        for (ParticipantFile file : fileList) {
-            s3Client.deleteObject(bucketName, userId + "/" + file.getFileId());
-        }
+        List<String> keys = fileList.stream().map(file -> userId + "/" + file.getFileId()).collect(toList());
+        deleteS3Objects(s3Client, bucketName, keys);
 
         // Delete files from DynamoDB.
         participantFileDao.batchDeleteParticipantFiles(fileList);
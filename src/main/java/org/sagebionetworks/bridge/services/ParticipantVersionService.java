@@ -3,25 +3,27 @@ package org.sagebionetworks.bridge.services;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
-import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
-import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ParticipantVersionDao;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
@@ -38,15 +40,20 @@ import org.sagebionetworks.bridge.time.DateUtils;
 
 @Component
 public class ParticipantVersionService {
-    private static final Logger LOG = LoggerFactory.getLogger(ParticipantVersionService.class);
-
     static final String WORKER_NAME_EX_3_PARTICIPANT_VERSION = "Ex3ParticipantVersionWorker";
 
+    // The cached fingerprint of the latest participant version only saves us a DynamoDB read. It expires so that a
+    // fingerprint that was cached out of order (two different updates for the same participant at the same time)
+    // can't suppress a new participant version for long.
+    static final int FINGERPRINT_EXPIRATION_IN_SECONDS = 4 * 60 * 60;
+
+    private static final HashFunction FINGERPRINT_HASH_FUNCTION = Hashing.sha256();
+
     private AppService appService;
+    private CacheProvider cacheProvider;
     private DemographicService demographicService;
-    private BridgeConfig config;
     private ParticipantVersionDao participantVersionDao;
-    private AmazonSQS sqsClient;
+    private WorkerRequestPublisher workerRequestPublisher;
 
     @Autowired
     public final void setAppService(AppService appService) {
@@ -54,13 +61,13 @@ public class ParticipantVersionService {
     }
 
     @Autowired
-    public final void setDemographicService(DemographicService demographicService) {
-        this.demographicService = demographicService;
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
     }
 
     @Autowired
-    public final void setConfig(BridgeConfig config) {
-        this.config = config;
+    public final void setDemographicService(DemographicService demographicService) {
+        this.demographicService = demographicService;
     }
 
     @Autowired
@@ -69,8 +76,8 @@ public class ParticipantVersionService {
     }
 
     @Autowired
-    public final void setSqsClient(AmazonSQS sqsClient) {
-        this.sqsClient = sqsClient;
+    public final void setWorkerRequestPublisher(WorkerRequestPublisher workerRequestPublisher) {
+        this.workerRequestPublisher = workerRequestPublisher;
     }
 
     /** Creates a participant version from an account. */
@@ -124,22 +131,22 @@ public class ParticipantVersionService {
         participantVersion.setStudyMemberships(BridgeUtils.mapStudyMemberships(account));
         participantVersion.setTimeZone(account.getClientTimeZone());
 
+        // Load the app-level and all study-level demographics in one query, rather than one query per study.
         Map<String, Demographic> appDemographics = ImmutableMap.of();
-        Optional<DemographicUser> appDemographicUser = demographicService.getDemographicUser(account.getAppId(), null,
-                account.getId());
-        if (appDemographicUser.isPresent()) {
-            appDemographics = appDemographicUser.get().getDemographics();
+        Map<String, Map<String, Demographic>> demographicsByStudy = new HashMap<>();
+        for (DemographicUser demographicUser : demographicService.getDemographicUsersForUser(account.getAppId(),
+                account.getId())) {
+            if (demographicUser.getStudyId() == null) {
+                appDemographics = demographicUser.getDemographics();
+            } else {
+                demographicsByStudy.put(demographicUser.getStudyId(), demographicUser.getDemographics());
+            }
         }
         participantVersion.setAppDemographics(appDemographics);
+        // Only include demographics for studies the participant is in. Studies without demographics get an empty map.
         Map<String, Map<String, Demographic>> studyDemographics = new HashMap<>();
         for (String studyId : participantVersion.getStudyMemberships().keySet()) {
-            Map<String, Demographic> oneStudyDemographics = ImmutableMap.of();
-            Optional<DemographicUser> studyDemographicUser = demographicService.getDemographicUser(account.getAppId(),
-                    studyId, account.getId());
-            if (studyDemographicUser.isPresent()) {
-                oneStudyDemographics = studyDemographicUser.get().getDemographics();
-            }
-            studyDemographics.put(studyId, oneStudyDemographics);
+            studyDemographics.put(studyId, demographicsByStudy.getOrDefault(studyId, ImmutableMap.of()));
         }
         participantVersion.setStudyDemographics(studyDemographics);
 
@@ -153,14 +160,24 @@ public class ParticipantVersionService {
         checkNotNull(participantVersion.getAppId());
         checkNotNull(participantVersion.getHealthCode());
 
+        // Shortcut: If the participant version is unchanged, return early so we don't create a duplicate version. We
+        // cache the fingerprint of the latest version, so most of the time we don't need to read it from DynamoDB.
+        String fingerprint = calculateFingerprint(participantVersion);
+        participantVersion.setFingerprint(fingerprint);
+        CacheKey fingerprintKey = CacheKey.participantVersionFingerprint(participantVersion.getAppId(),
+                participantVersion.getHealthCode());
+        if (fingerprint.equals(cacheProvider.getObject(fingerprintKey, String.class))) {
+            return;
+        }
+
         // Get the old version, so we increment the version number.
         long now = DateUtils.getCurrentMillisFromEpoch();
         Optional<ParticipantVersion> existingOpt = getLatestParticipantVersionForHealthCode(
                 participantVersion.getAppId(), participantVersion.getHealthCode());
         if (existingOpt.isPresent()) {
-            // Shortcut: If the participant version is unchanged, return early so we don't create a duplicate version.
             ParticipantVersion existing = existingOpt.get();
             if (isIdenticalParticipantVersion(existing, participantVersion)) {
+                cacheProvider.setObject(fingerprintKey, fingerprint, FINGERPRINT_EXPIRATION_IN_SECONDS);
                 return;
             }
 
@@ -183,6 +200,7 @@ public class ParticipantVersionService {
 
         // Create.
         participantVersionDao.createParticipantVersion(participantVersion);
+        cacheProvider.setObject(fingerprintKey, fingerprint, FINGERPRINT_EXPIRATION_IN_SECONDS);
 
         // Export.
         exportParticipantVersion(participantVersion.getAppId(), participantVersion.getHealthCode(),
@@ -193,41 +211,57 @@ public class ParticipantVersionService {
     // different.
     // Package-scoped for unit tests.
     static boolean isIdenticalParticipantVersion(ParticipantVersion oldVersion, ParticipantVersion newVersion) {
-        Map<String, Object> oldAttrMap = getParticipantVersionAttributes(oldVersion);
-        Map<String, Object> newAttrMap = getParticipantVersionAttributes(newVersion);
-        return oldAttrMap.equals(newAttrMap);
+        return getFingerprint(oldVersion).equals(getFingerprint(newVersion));
     }
 
-    // This gets non-key attributes for the participant. This is mainly to test if the participant version has changed,
-    // so we can avoid creating a new identical version. We use a map because it is easier to test than creating
-    // a custom .equals() method.
+    // Returns the stored fingerprint of the participant version. Versions created before we stored fingerprints don't
+    // have one, so we calculate it.
+    private static String getFingerprint(ParticipantVersion participantVersion) {
+        String fingerprint = participantVersion.getFingerprint();
+        return fingerprint != null ? fingerprint : calculateFingerprint(participantVersion);
+    }
+
+    // Calculates a fingerprint of the non-key attributes for the participant, which is a hash of the attributes as
+    // JSON. Identical participant versions have the same fingerprint.
     // Package-scoped for unit tests.
-    static Map<String, Object> getParticipantVersionAttributes(ParticipantVersion participantVersion) {
-        Map<String, Object> attrMap = new HashMap<>();
-        attrMap.put("dataGroups", participantVersion.getDataGroups());
-        attrMap.put("languages", participantVersion.getLanguages());
-        attrMap.put("sharingScope", participantVersion.getSharingScope());
-        attrMap.put("studyMemberships", participantVersion.getStudyMemberships());
-        attrMap.put("timeZone", participantVersion.getTimeZone());
-        // Demographic doesn't implement equals (Hibernate entity) so we have to do this manually
-        // serialize as string and compare strings
+    static String calculateFingerprint(ParticipantVersion participantVersion) {
+        String attrJson;
         try {
-            attrMap.put("appDemographics", BridgeObjectMapper.get()
-                    .writeValueAsString(cleanDemographicsMapForComparison(participantVersion.getAppDemographics())));
-            Map<String, Map<String, Demographic>> studyDemographicsNoId = new HashMap<>();
-            if (participantVersion.getStudyDemographics() != null) {
-                for (Map.Entry<String, Map<String, Demographic>> entry : participantVersion.getStudyDemographics()
-                        .entrySet()) {
-                    studyDemographicsNoId.put(entry.getKey(), cleanDemographicsMapForComparison(entry.getValue()));
-                }
-            }
-            attrMap.put("studyDemographics", BridgeObjectMapper.get().writeValueAsString(studyDemographicsNoId));
+            attrJson = BridgeObjectMapper.get().writeValueAsString(getParticipantVersionAttributes(
+                    participantVersion));
         } catch (JsonProcessingException ex) {
             // This should never happen, but catch and re-throw for code hygiene.
             throw new BridgeServiceException("Error comparing participant versions for app "
                     + participantVersion.getAppId() + " healthcode " + participantVersion.getHealthCode() + " version "
                     + participantVersion.getParticipantVersion(), ex);
         }
+        return FINGERPRINT_HASH_FUNCTION.hashString(attrJson, StandardCharsets.UTF_8).toString();
+    }
+
+    // This gets non-key attributes for the participant. This is mainly to test if the participant version has changed,
+    // so we can avoid creating a new identical version. The maps and sets are sorted, so the attributes always
+    // serialize to the same JSON.
+    // Package-scoped for unit tests.
+    static Map<String, Object> getParticipantVersionAttributes(ParticipantVersion participantVersion) {
+        Map<String, Object> attrMap = new TreeMap<>();
+        Set<String> dataGroups = participantVersion.getDataGroups();
+        attrMap.put("dataGroups", dataGroups != null ? new TreeSet<>(dataGroups) : null);
+        attrMap.put("languages", participantVersion.getLanguages());
+        attrMap.put("sharingScope", participantVersion.getSharingScope());
+        Map<String, String> studyMemberships = participantVersion.getStudyMemberships();
+        attrMap.put("studyMemberships", studyMemberships != null ? new TreeMap<>(studyMemberships) : null);
+        attrMap.put("timeZone", participantVersion.getTimeZone());
+        // Demographic doesn't implement equals (Hibernate entity), so we compare the JSON of demographics without
+        // their ids.
+        attrMap.put("appDemographics", cleanDemographicsMapForComparison(participantVersion.getAppDemographics()));
+        Map<String, Map<String, Demographic>> studyDemographicsNoId = new TreeMap<>();
+        if (participantVersion.getStudyDemographics() != null) {
+            for (Map.Entry<String, Map<String, Demographic>> entry : participantVersion.getStudyDemographics()
+                    .entrySet()) {
+                studyDemographicsNoId.put(entry.getKey(), cleanDemographicsMapForComparison(entry.getValue()));
+            }
+        }
+        attrMap.put("studyDemographics", studyDemographicsNoId);
         return attrMap;
     }
 
@@ -239,7 +273,7 @@ public class ParticipantVersionService {
      * demographicUser, so those fields should not be compared.
      */
     private static Map<String, Demographic> cleanDemographicsMapForComparison(Map<String, Demographic> demographics) {
-        Map<String, Demographic> demographicsNoId = new HashMap<>();
+        Map<String, Demographic> demographicsNoId = new TreeMap<>();
         if (demographics == null) {
             return demographicsNoId;
         }
@@ -277,13 +311,9 @@ public class ParticipantVersionService {
                     " healthcode " + healthCode + " version " + versionNum, ex);
         }
 
-        // Note: SqsInitializer runs after Spring, so we need to grab the queue URL dynamically.
-        String workerQueueUrl = config.getProperty(BridgeConstants.CONFIG_KEY_WORKER_SQS_URL);
-
-        // Sent to SQS.
-        SendMessageResult sqsResult = sqsClient.sendMessage(workerQueueUrl, requestJson);
-        LOG.info("Sent export participant version request for app " + appId + " healthCode " + healthCode +
-                " version " + versionNum + "; received message ID=" + sqsResult.getMessageId());
+        // Send to SQS. This is batched with other worker requests and doesn't wait on SQS.
+        workerRequestPublisher.publish(requestJson, "export participant version request for app " + appId +
+                " healthCode " + healthCode + " version " + versionNum);
     }
 
     /** Delete all participant versions for the given health code. This is called by integration tests. */
@@ -291,6 +321,7 @@ public class ParticipantVersionService {
         checkNotNull(appId);
         checkNotNull(healthCode);
         participantVersionDao.deleteParticipantVersionsForHealthCode(appId, healthCode);
+        cacheProvider.removeObject(CacheKey.participantVersionFingerprint(appId, healthCode));
     }
 
     /** Get all participant versions for health code. Returns an empty list if none exist. */
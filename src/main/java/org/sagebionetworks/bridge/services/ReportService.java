@@ -10,6 +10,7 @@ import static org.sagebionetworks.bridge.BridgeConstants.API_MINIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeUtils.isEmpty;
 import static org.sagebionetworks.bridge.models.ResourceList.REPORT_TYPE;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -323,6 +324,28 @@ public class ReportService {
         reportDataDao.deleteReportData(key);
     }
     
+    /**
+     * Delete all records of all the participant reports in the app for this participant. Study memberships are 
+     * enforced for every report, before any records are deleted.
+     */
+    public void deleteAllParticipantReports(String appId, String userId, String healthCode) {
+        checkNotNull(appId);
+        checkNotNull(healthCode);
+        
+        List<ReportDataKey> keys = new ArrayList<>();
+        for (ReportIndex index : getReportIndices(appId, ReportType.PARTICIPANT).getItems()) {
+            checkParticipantReportAccess(userId, index);
+            keys.add(new ReportDataKey.Builder()
+                    .withHealthCode(healthCode)
+                    .withReportType(ReportType.PARTICIPANT)
+                    .withIdentifier(index.getIdentifier())
+                    .withAppId(appId).build());
+        }
+        if (!keys.isEmpty()) {
+            reportDataDao.deleteAllReportData(keys);
+        }
+    }
+    
     /**
      * Delete one record of a participant report. Study memberships are enforced. 
      */
@@ -3,6 +3,10 @@ package org.sagebionetworks.bridge.services;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -44,6 +48,30 @@ public class RequestInfoService {
         return requestInfo;
     }
     
+    /**
+     * Get the request info objects of a batch of users, mapped by user ID. The request infos in the 
+     * database are retrieved in one query; users who don't have one are looked up individually, as in 
+     * {@link #getRequestInfo(String)}. Users who have no request info have no entry in the map.
+     */
+    public Map<String, RequestInfo> getRequestInfos(Collection<String> userIds) {
+        checkNotNull(userIds);
+        
+        Map<String, RequestInfo> results = new HashMap<>();
+        for (RequestInfo requestInfo : requestInfoDao.getRequestInfos(userIds)) {
+            results.put(requestInfo.getUserId(), requestInfo);
+        }
+        for (String userId : userIds) {
+            if (!results.containsKey(userId)) {
+                RequestInfo requestInfo = cacheProvider.getRequestInfo(userId);
+                if (requestInfo != null) {
+                    requestInfoDao.updateRequestInfo(requestInfo);
+                    results.put(userId, requestInfo);
+                }
+            }
+        }
+        return results;
+    }
+    
     public void removeRequestInfo(String userId) {
         isNotBlank(userId);
         
@@ -20,6 +20,7 @@ import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
 import static org.sagebionetworks.bridge.validators.Schedule2Validator.INSTANCE;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
@@ -31,6 +32,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.RequestContext;
@@ -66,6 +69,9 @@ import org.slf4j.LoggerFactory;
 @Component
 public class Schedule2Service {
     private static final Logger LOG = LoggerFactory.getLogger(Schedule2Service.class);
+    
+    static final int TIMELINE_CACHE_MAX_SIZE = 500;
+    static final int TIMELINE_CACHE_EXPIRE_IN_MINUTES = 60;
 
     @Autowired
     private OrganizationService organizationService;
@@ -76,6 +82,17 @@ public class Schedule2Service {
     @Autowired
     private Schedule2Dao dao;
     
+    /**
+     * Timelines keyed by schedule GUID, schedule modifiedOn timestamp, and language key. Every change to
+     * a schedule updates its modifiedOn timestamp, so a stale timeline is never returned, even on a node
+     * that did not make the change; entries are also removed when a schedule is changed on this node so
+     * they don't occupy the cache until they expire. Timelines are immutable and shared between requests.
+     */
+    private final Cache<String, Timeline> timelineCache = CacheBuilder.newBuilder()
+            .maximumSize(TIMELINE_CACHE_MAX_SIZE)
+            .expireAfterAccess(TIMELINE_CACHE_EXPIRE_IN_MINUTES, TimeUnit.MINUTES)
+            .build();
+    
     DateTime getCreatedOn() {
         return DateTime.now();
     }
@@ -193,6 +210,7 @@ public class Schedule2Service {
             // we're talking about the same object.
             schedule.setGuid(study.getScheduleGuid());
             schedule = updateSchedule(study, existing, schedule);
+            invalidateTimelines(schedule.getGuid());
             
             studyService.updateStudyEtags(study.getAppId(), schedule.getGuid(), schedule.getModifiedOn());
 
@@ -299,7 +317,9 @@ public class Schedule2Service {
         
         studyService.updateStudyEtags(appId, guid, existing.getModifiedOn());
         
-        return dao.updateSchedule(existing);
+        Schedule2 updated = dao.updateSchedule(existing);
+        invalidateTimelines(guid);
+        return updated;
     }
     
     /**
@@ -320,6 +340,7 @@ public class Schedule2Service {
         studyService.removeStudyEtags(appId, guid);
         
         dao.deleteSchedule(existing);
+        invalidateTimelines(guid);
     }
     
     /**
@@ -339,14 +360,43 @@ public class Schedule2Service {
         studyService.removeStudyEtags(appId, guid);
         
         dao.deleteSchedulePermanently(existing);
+        invalidateTimelines(guid);
     }
     
     public Timeline getTimelineForSchedule(String appId, String guid) {
         Schedule2 schedule = dao.getSchedule(appId, guid)
                 .orElseThrow(() -> new EntityNotFoundException(Schedule2.class));
+        return getTimeline(schedule);
+    }
+    
+    /**
+     * Get the timeline for this schedule, calculating it only if it is not already cached for the
+     * schedule's current revision and the caller's languages. The timeline must not be modified. 
+     */
+    public Timeline getTimeline(Schedule2 schedule) {
+        checkNotNull(schedule);
         
-        // This is calculated so quickly it is not worth caching
-        return Scheduler.INSTANCE.calculateTimeline(schedule);
+        // A schedule that hasn't been persisted has no revision to key the timeline to.
+        if (schedule.getGuid() == null || schedule.getModifiedOn() == null) {
+            return Scheduler.INSTANCE.calculateTimeline(schedule);
+        }
+        String key = timelineCacheKey(schedule.getGuid(), schedule.getModifiedOn().getMillis(),
+                Scheduler.INSTANCE.getLanguageKey());
+        Timeline timeline = timelineCache.getIfPresent(key);
+        if (timeline == null) {
+            timeline = Scheduler.INSTANCE.calculateTimeline(schedule);
+            timelineCache.put(key, timeline);
+        }
+        return timeline;
+    }
+    
+    void invalidateTimelines(String guid) {
+        String prefix = guid + ":";
+        timelineCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+    
+    private static String timelineCacheKey(String guid, long modifiedOn, String languageKey) {
+        return guid + ":" + modifiedOn + ":" + languageKey;
     }
     
     public List<TimelineMetadata> getScheduleMetadata(String guid) {
@@ -365,6 +415,16 @@ public class Schedule2Service {
         return dao.getAssessmentsForSessionInstance(instanceGuid);
     }
     
+    public List<TimelineMetadata> getTimelineMetadataForInstances(Collection<String> instanceGuids) {
+        checkNotNull(instanceGuids);
+        return dao.getTimelineMetadataForInstances(instanceGuids);
+    }
+    
+    public List<TimelineMetadata> getMetadataForSessionInstances(Collection<String> sessionInstanceGuids) {
+        checkNotNull(sessionInstanceGuids);
+        return dao.getMetadataForSessionInstances(sessionInstanceGuids);
+    }
+    
     public void deleteAllSchedules(String appId) {
         checkNotNull(appId);
         
@@ -417,7 +477,7 @@ public class Schedule2Service {
         builder.withClientTimeZone(zoneId);
         AdherenceState state = builder.build();
 
-        Timeline timeline = Scheduler.INSTANCE.calculateTimeline(schedule);
+        Timeline timeline = getTimeline(schedule);
         ParticipantSchedule participantSchedule = ParticipantScheduleGenerator.INSTANCE.generate(state, timeline);
         
         watch.stop();
@@ -3,6 +3,7 @@ package org.sagebionetworks.bridge.services;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Comparator.comparing;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MINIMUM_PAGE_SIZE;
@@ -19,10 +20,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import javax.annotation.Resource;
+
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -33,9 +40,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
+import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.RangeTuple;
 import org.sagebionetworks.bridge.models.appconfig.AppConfig;
 import org.sagebionetworks.bridge.models.apps.App;
@@ -87,6 +97,8 @@ public class ScheduledActivityService {
     
     private AppConfigService appConfigService;
     
+    private ExecutorService activityLookupExecutorService;
+    
     @Autowired
     final void setScheduledActivityDao(ScheduledActivityDao activityDao) {
         this.activityDao = activityDao;
@@ -125,6 +137,12 @@ public class ScheduledActivityService {
     final void setAppConfigService(AppConfigService appConfigService) {
         this.appConfigService = appConfigService;
     }
+    
+    /** Bounded thread pool used to query persisted activities concurrently. This is configured by Spring. */
+    @Resource(name = "scheduledActivityLookupExecutorService")
+    final void setActivityLookupExecutorService(ExecutorService activityLookupExecutorService) {
+        this.activityLookupExecutorService = activityLookupExecutorService;
+    }
 
     public ForwardCursorPagedResourceList<ScheduledActivity> getActivityHistory(String healthCode,
             String activityGuid, DateTime scheduledOnStart, DateTime scheduledOnEnd, String offsetKey,
@@ -221,14 +239,18 @@ public class ScheduledActivityService {
         Map<String, DateTime> events = createEventsMap(context);
         ScheduleContext updatedContext = new ScheduleContext.Builder().withContext(context).withEvents(events).build();
 
+        Stopwatch watch = Stopwatch.createStarted();
         List<ScheduledActivity> scheduledActivities = scheduleActivitiesForPlans(updatedContext);
+        recordPhase("schedule", watch);
 
         // Get all persisted activities within the time frame, not just those found by the scheduler (as in v3).
         Map<String, ScheduledActivity> dbMap = retrieveAllPersistedActivitiesIntoMap(updatedContext, scheduledActivities);
         
         // Compare scheduled and persisted activities, replacing scheduled with persisted where they exist
+        watch = Stopwatch.createStarted();
         List<ScheduledActivity> saves = performMerge(scheduledActivities, dbMap);
         activityDao.saveActivities(saves);
+        recordPhase("merge_and_save", watch);
         
         // We've removed all the persisted activities that were found by the scheduler. Those have been saved
         // as necessary. The remaining tasks were scheduled based on user-triggered events that can be updated, 
@@ -265,39 +287,72 @@ public class ScheduledActivityService {
     
     private Map<String, ScheduledActivity> retrieveAllPersistedActivitiesIntoMap(ScheduleContext context,
             List<ScheduledActivity> scheduledActivities) {
+        String healthCode = context.getCriteriaContext().getHealthCode();
         
         Set<String> activityGuids = scheduledActivities.stream().map((activity) -> {
             return activity.getGuid().split(":")[0];
         }).collect(Collectors.toSet());
         
-        Map<String,ScheduledActivity> dbMap = Maps.newHashMap();
         // IA-545: If a schedule has an identical activity but a new GUID (say if we change the schedule on the user), the user can 
         // lose existing activities. So during the time window the user is looking at, we will return any activities that exist.
+        // There is no batch form of this range query, so the queries are issued concurrently on a bounded pool.
+        Stopwatch watch = Stopwatch.createStarted();
+        List<Future<ForwardCursorPagedResourceList<ScheduledActivity>>> futures = new ArrayList<>();
         for (String activityGuid : activityGuids) {
-            ForwardCursorPagedResourceList<ScheduledActivity> list = activityDao.getActivityHistoryV2(
-                    context.getCriteriaContext().getHealthCode(), activityGuid,
-                    context.getStartsOn(), context.getEndsOn(), null,
-                    API_MAXIMUM_PAGE_SIZE);
+            futures.add(activityLookupExecutorService.submit(() -> activityDao.getActivityHistoryV2(
+                    healthCode, activityGuid, context.getStartsOn(), context.getEndsOn(), null,
+                    API_MAXIMUM_PAGE_SIZE)));
+        }
+        Map<String,ScheduledActivity> dbMap = Maps.newHashMap();
+        for (Future<ForwardCursorPagedResourceList<ScheduledActivity>> future : futures) {
+            ForwardCursorPagedResourceList<ScheduledActivity> list = getLookupResult(future);
             if (list != null) {
                 for(ScheduledActivity activity : list.getItems()) {
                     dbMap.put(activity.getGuid(), activity);
                 }
             }
         }
+        recordPhase("history_queries", watch);
+        
         // IA-587: When a one-time task falls outside the schedule window, it's not returned by the 
-        // query above, so it is recreated, and it loses its finished state. Load all remaining scheduled activities.
-        String healthCode = context.getCriteriaContext().getHealthCode();
-        for (ScheduledActivity activity : scheduledActivities) {
-            if (!dbMap.containsKey(activity.getGuid())) {
-                ScheduledActivity dbActivity = activityDao.getActivity(context.getStartsOn().getZone(), healthCode,
-                        activity.getGuid(), false);
-                if (dbActivity != null) {
-                    dbMap.put(dbActivity.getGuid(), dbActivity);    
-                }
+        // query above, so it is recreated, and it loses its finished state. Load all remaining scheduled 
+        // activities in one batch load.
+        watch = Stopwatch.createStarted();
+        List<ScheduledActivity> remainingActivities = scheduledActivities.stream()
+                .filter(activity -> !dbMap.containsKey(activity.getGuid()))
+                .collect(Collectors.toList());
+        if (!remainingActivities.isEmpty()) {
+            List<ScheduledActivity> dbActivities = activityDao.getActivities(context.getStartsOn().getZone(),
+                    remainingActivities);
+            for (ScheduledActivity dbActivity : dbActivities) {
+                dbMap.put(dbActivity.getGuid(), dbActivity);
             }
         }
+        recordPhase("batch_load", watch);
         return dbMap;
     }
+    
+    private ForwardCursorPagedResourceList<ScheduledActivity> getLookupResult(
+            Future<ForwardCursorPagedResourceList<ScheduledActivity>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new BridgeServiceException(e.getCause());
+        }
+    }
+    
+    private void recordPhase(String phase, Stopwatch watch) {
+        Metrics metrics = RequestContext.get().getMetrics();
+        if (metrics != null) {
+            metrics.setPhaseElapsedMillis(phase, watch.elapsed(MILLISECONDS));
+        }
+    }
 
     public void updateScheduledActivities(String healthCode, List<ScheduledActivity> scheduledActivities) {
         checkArgument(isNotBlank(healthCode));
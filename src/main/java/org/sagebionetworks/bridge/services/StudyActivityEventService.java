@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.services;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toSet;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MINIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeConstants.NEGATIVE_OFFSET_ERROR;
@@ -17,9 +18,11 @@ import static org.sagebionetworks.bridge.validators.StudyActivityEventValidator.
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
@@ -251,6 +254,38 @@ public class StudyActivityEventService {
                 .orElseThrow(() -> new EntityNotFoundException(Account.class));
 
         List<StudyActivityEvent> events = dao.getRecentStudyActivityEvents(userId, studyId);
+        addSyntheticEvents(appId, studyId, account, events);
+        return new ResourceList<>(events, true); 
+    }
+    
+    /**
+     * Get the recent events (as described by {@link #getRecentStudyActivityEvents(String, String, String)}) 
+     * for a batch of participants in a study. The study events for all of the accounts are retrieved in 
+     * one query. The accounts must have been retrieved by the caller.
+     * 
+     * @return
+     *      a map of each account's user ID to its complete set of event records
+     */
+    public Map<String, List<StudyActivityEvent>> getRecentStudyActivityEvents(String appId, String studyId,
+            List<Account> accounts) {
+        checkNotNull(appId);
+        checkNotNull(studyId);
+        checkNotNull(accounts);
+        
+        Set<String> userIds = accounts.stream().map(Account::getId).collect(toSet());
+        Map<String, List<StudyActivityEvent>> eventsByUserId = dao.getRecentStudyActivityEvents(userIds, studyId);
+        
+        Map<String, List<StudyActivityEvent>> results = new HashMap<>();
+        for (Account account : accounts) {
+            List<StudyActivityEvent> events = new ArrayList<>(
+                    eventsByUserId.getOrDefault(account.getId(), ImmutableList.of()));
+            addSyntheticEvents(appId, studyId, account, events);
+            results.put(account.getId(), events);
+        }
+        return results;
+    }
+    
+    private void addSyntheticEvents(String appId, String studyId, Account account, List<StudyActivityEvent> events) {
         addEnrollmentIfMissing(account, events, studyId);
         
         // There are some global events related to authentication and account creation that 
@@ -261,7 +296,6 @@ public class StudyActivityEventService {
             addIfPresent(events, map, fieldName, true);    
         }
         events.sort(Comparator.comparing(StudyActivityEvent::getEventId));
-        return new ResourceList<>(events, true); 
     }
     
     /**
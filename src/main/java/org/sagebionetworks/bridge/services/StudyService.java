@@ -37,11 +37,14 @@ import org.joda.time.DateTimeZone;
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.cache.CacheKey;
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.NearCache;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.StudyDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.VersionHolder;
 import org.sagebionetworks.bridge.models.activities.StudyActivityEventIdsMap;
@@ -58,6 +61,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 @Component
 public class StudyService {
@@ -78,6 +82,17 @@ public class StudyService {
     private AlertService alertService;
     @Autowired
     private AssessmentService assessmentService;
+    private NearCacheManager nearCacheManager;
+    private NearCache<Study> studyCache;
+    private NearCache<Set<String>> studyIdsCache;
+    
+    @Autowired
+    final void setNearCacheManager(NearCacheManager nearCacheManager) {
+        this.nearCacheManager = nearCacheManager;
+        // These are null if near caching is disabled.
+        this.studyCache = nearCacheManager.createNearCache("Study");
+        this.studyIdsCache = nearCacheManager.createNearCache("StudyIdList");
+    }
     
     protected String getDefaultTimeZoneId() { 
         return DateTimeZone.getDefault().getID();
@@ -114,6 +129,9 @@ public class StudyService {
             cacheProvider.removeObject(cacheKey);
         }
         studyDao.removeScheduleFromStudies(appId, scheduleGuid);
+        for (String studyId : studyIds) {
+            invalidateStudy(appId, studyId);
+        }
     }
     
     public void updateStudyEtags(String appId, String scheduleGuid, DateTime timestamp) {
@@ -128,18 +146,34 @@ public class StudyService {
         }
     }
     
+    /**
+     * Studies are read on most participant requests, so they are held in a near cache that is invalidated 
+     * whenever a study is changed. Each caller gets its own copy of the study, which it is free to modify.
+     */
     public Study getStudy(String appId, String studyId, boolean throwsException) {
         checkNotNull(appId);
         checkNotNull(studyId);
         
-        Study study = studyDao.getStudy(appId, studyId);
+        Study study = null;
+        if (studyCache == null) {
+            study = loadStudy(appId, studyId);
+        } else {
+            CacheKey cacheKey = CacheKey.study(appId, studyId);
+            Study cachedStudy = studyCache.get(cacheKey);
+            if (cachedStudy == null) {
+                long generation = studyCache.getGeneration();
+                cachedStudy = loadStudy(appId, studyId);
+                if (cachedStudy != null) {
+                    studyCache.put(cacheKey, cachedStudy, generation);
+                }
+            }
+            if (cachedStudy != null) {
+                study = copyStudy(cachedStudy);
+            }
+        }
         if (throwsException && study == null) {
             throw new EntityNotFoundException(Study.class);
         }
-        if (study != null) {
-            CacheKey cacheKey = CacheKey.etag(Study.class, appId, studyId);
-            cacheProvider.setObject(cacheKey, study.getModifiedOn());
-        }
         return study;
     }
     
@@ -149,10 +183,82 @@ public class StudyService {
      * so we can provide a cache for these infrequently changing identifiers.
      */
     public Set<String> getStudyIds(String appId) {
-        return getStudies(appId, null, null, false, false)
+        checkNotNull(appId);
+        
+        if (studyIdsCache == null) {
+            return loadStudyIds(appId);
+        }
+        CacheKey cacheKey = CacheKey.studyIdList(appId);
+        Set<String> studyIds = studyIdsCache.get(cacheKey);
+        if (studyIds == null) {
+            long generation = studyIdsCache.getGeneration();
+            studyIds = loadStudyIds(appId);
+            studyIdsCache.put(cacheKey, studyIds, generation);
+        }
+        return studyIds;
+    }
+    
+    private Set<String> loadStudyIds(String appId) {
+        return ImmutableSet.copyOf(getStudies(appId, null, null, false, false)
                 .getItems().stream()
                 .map(Study::getIdentifier)
-                .collect(toSet());
+                .collect(toSet()));
+    }
+    
+    /**
+     * Load the study from the database. The study’s etag is only written if it is out of date, so that 
+     * reading a study doesn’t also write to Redis.
+     */
+    private Study loadStudy(String appId, String studyId) {
+        return updateEtag(appId, studyId, studyDao.getStudy(appId, studyId));
+    }
+    
+    private Study updateEtag(String appId, String studyId, Study study) {
+        if (study != null && study.getModifiedOn() != null) {
+            CacheKey cacheKey = CacheKey.etag(Study.class, appId, studyId);
+            DateTime etagModifiedOn = cacheProvider.getObject(cacheKey, DateTime.class);
+            if (etagModifiedOn == null || !etagModifiedOn.isEqual(study.getModifiedOn())) {
+                cacheProvider.setObject(cacheKey, study.getModifiedOn());
+            }
+        }
+        return study;
+    }
+    
+    /**
+     * Studies that are about to be changed are read from the database rather than the near cache or the 
+     * Hibernate second-level cache, so the change is based on the current version of the study.
+     */
+    private Study loadStudyForUpdate(String appId, String studyId) {
+        Study study = updateEtag(appId, studyId, studyDao.getStudyForUpdate(appId, studyId));
+        if (study == null) {
+            throw new EntityNotFoundException(Study.class);
+        }
+        return study;
+    }
+    
+    private static Study copyStudy(Study study) {
+        Study copy = BridgeObjectMapper.get().convertValue(study, Study.class);
+        // These are not part of the study’s JSON.
+        copy.setAppId(study.getAppId());
+        copy.setLogoGuid(study.getLogoGuid());
+        return copy;
+    }
+    
+    /**
+     * Remove the study from the near cache on every node. If the change can add or remove the study from 
+     * the app’s list of active studies, remove that list as well.
+     */
+    private void invalidateStudy(String appId, String studyId, boolean studyIdsChanged) {
+        if (nearCacheManager != null) {
+            nearCacheManager.invalidate(CacheKey.study(appId, studyId));
+            if (studyIdsChanged) {
+                nearCacheManager.invalidate(CacheKey.studyIdList(appId));
+            }
+        }
+    }
+    
+    private void invalidateStudy(String appId, String studyId) {
+        invalidateStudy(appId, studyId, false);
     }
 
     /** Returns a list of all study IDs in the given app that use the given schedule. */
@@ -236,6 +342,7 @@ public class StudyService {
         }
         CacheKey cacheKey = CacheKey.etag(Study.class, appId, study.getIdentifier());
         cacheProvider.setObject(cacheKey, study.getModifiedOn());
+        invalidateStudy(appId, study.getIdentifier(), true);
 
         return version;
     }
@@ -244,7 +351,7 @@ public class StudyService {
         checkNotNull(appId);
         checkNotNull(study);
 
-        Study existing = getStudy(appId, study.getIdentifier(), true);
+        Study existing = loadStudyForUpdate(appId, study.getIdentifier());
         if (study.isDeleted() && existing.isDeleted()) {
             throw new EntityNotFoundException(Study.class);
         }
@@ -275,6 +382,7 @@ public class StudyService {
         
         cacheKey = CacheKey.etag(Study.class, appId, study.getIdentifier());
         cacheProvider.setObject(cacheKey, study.getModifiedOn());
+        invalidateStudy(appId, study.getIdentifier(), study.isDeleted() != existing.isDeleted());
         
         return keys;
     }
@@ -283,7 +391,7 @@ public class StudyService {
         checkNotNull(appId);
         checkNotNull(studyId);
         
-        Study existing = getStudy(appId, studyId, true);
+        Study existing = loadStudyForUpdate(appId, studyId);
         
         RequestContext context = RequestContext.get();
         if (!CAN_DELETE_STUDY.contains(existing.getPhase()) && !context.isInRole(ADMIN)) {
@@ -299,6 +407,7 @@ public class StudyService {
         
         cacheKey = CacheKey.etag(Study.class, appId, studyId);
         cacheProvider.removeObject(cacheKey);
+        invalidateStudy(appId, studyId, true);
 
         // delete alerts for this study
         alertService.deleteAlertsForStudy(appId, studyId);
@@ -308,7 +417,7 @@ public class StudyService {
         checkNotNull(appId);
         checkNotNull(studyId);
         
-        Study existing = getStudy(appId, studyId, true);
+        Study existing = loadStudyForUpdate(appId, studyId);
         
         RequestContext context = RequestContext.get();
         if (!CAN_DELETE_STUDY.contains(existing.getPhase()) && !context.isInRole(ADMIN)) {
@@ -326,6 +435,7 @@ public class StudyService {
 
         cacheKey = CacheKey.etag(Study.class, appId, studyId);
         cacheProvider.removeObject(cacheKey);
+        invalidateStudy(appId, studyId, true);
 
         demographicService.deleteAllValidationConfigs(appId, studyId);
     }
@@ -333,7 +443,16 @@ public class StudyService {
     public void deleteAllStudies(String appId) {
         checkNotNull(appId);
 
+        if (nearCacheManager == null) {
+            studyDao.deleteAllStudies(appId);
+            return;
+        }
+        List<Study> studies = studyDao.getStudies(appId, null, null, null, true).getItems();
         studyDao.deleteAllStudies(appId);
+        for (Study study : studies) {
+            invalidateStudy(appId, study.getIdentifier());
+        }
+        nearCacheManager.invalidate(CacheKey.studyIdList(appId));
     }
     
     public Study transitionToDesign(String appId, String studyId) {
@@ -408,7 +527,7 @@ public class StudyService {
             throw new UnauthorizedException("Only superadmins can revert studies to design");
         }
     
-        Study study = studyDao.getStudy(appId, studyId);
+        Study study = studyDao.getStudyForUpdate(appId, studyId);
         if (study == null) {
             throw new EntityNotFoundException(Study.class);
         }
@@ -422,6 +541,7 @@ public class StudyService {
     
         cacheKey = CacheKey.etag(Study.class, appId, studyId);
         cacheProvider.setObject(cacheKey, study.getModifiedOn());
+        invalidateStudy(appId, studyId);
     
         return study;
     }
@@ -434,7 +554,7 @@ public class StudyService {
         checkNotNull(studyId);
         checkNotNull(targetPhase);
 
-        Study study = studyDao.getStudy(appId, studyId);
+        Study study = studyDao.getStudyForUpdate(appId, studyId);
         if (study == null) {
             throw new EntityNotFoundException(Study.class);
         }
@@ -457,6 +577,7 @@ public class StudyService {
         
         cacheKey = CacheKey.etag(Study.class, appId, studyId);
         cacheProvider.setObject(cacheKey, study.getModifiedOn());
+        invalidateStudy(appId, studyId);
 
         // delete alerts for this study if it is transitioned to completed
         if (targetPhase == StudyPhase.COMPLETED) {
@@ -18,10 +18,13 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCache;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.StudyConsentDao;
 import org.sagebionetworks.bridge.dao.SubpopulationDao;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.CriteriaContext;
+import org.sagebionetworks.bridge.models.CriteriaIndex;
 import org.sagebionetworks.bridge.models.CriteriaUtils;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.studies.Study;
@@ -44,6 +47,8 @@ public class SubpopulationService {
     private StudyService studyService;
     private StudyConsentForm defaultConsentDocument;
     private CacheProvider cacheProvider;
+    private NearCacheManager nearCacheManager;
+    private NearCache<CriteriaIndex<Subpopulation>> subpopIndexCache;
     
     @Autowired
     final void setSubpopulationDao(SubpopulationDao subpopDao) {
@@ -62,6 +67,12 @@ public class SubpopulationService {
         this.cacheProvider = cacheProvider;
     }
     @Autowired
+    final void setNearCacheManager(NearCacheManager nearCacheManager) {
+        this.nearCacheManager = nearCacheManager;
+        // This is null if near caching is disabled.
+        this.subpopIndexCache = nearCacheManager.createNearCache("SubpopulationCriteriaIndex");
+    }
+    @Autowired
     final void setStudyService(StudyService studyService) {
         this.studyService = studyService;
     }
@@ -98,7 +109,7 @@ public class SubpopulationService {
         StudyConsentView view = studyConsentService.addConsent(subpop.getGuid(), defaultConsentDocument);
         studyConsentService.publishConsent(app, subpop, view.getCreatedOn());
         
-        cacheProvider.removeObject(CacheKey.subpopList(app.getIdentifier()));
+        removeSubpopListFromCache(app.getIdentifier());
         return created;
     }
     
@@ -117,7 +128,7 @@ public class SubpopulationService {
             studyConsentService.publishConsent(app, created, view.getCreatedOn());
         }
         
-        cacheProvider.removeObject(CacheKey.subpopList(app.getIdentifier()));
+        removeSubpopListFromCache(app.getIdentifier());
         return created;
     }
     
@@ -153,7 +164,7 @@ public class SubpopulationService {
         
         Subpopulation updated = subpopDao.updateSubpopulation(subpop);
         cacheProvider.removeObject(CacheKey.subpop(updated.getGuid(), app.getIdentifier()));
-        cacheProvider.removeObject(CacheKey.subpopList(app.getIdentifier()));
+        removeSubpopListFromCache(app.getIdentifier());
         return updated;
     }
     
@@ -200,14 +211,26 @@ public class SubpopulationService {
     
     /**
      * Get all subpopulations for a user that match the provided CriteriaContext information. 
-     * Returns an empty list if no subpopulations match.
+     * Returns an empty list if no subpopulations match. This is called whenever a session is 
+     * created or refreshed, so the app's subpopulations are matched through a criteria index 
+     * that is held in a near cache until the subpopulations change. The returned subpopulations 
+     * are shared with other callers and must not be modified.
      */
     public List<Subpopulation> getSubpopulationsForUser(CriteriaContext context) {
         checkNotNull(context);
         
-        List<Subpopulation> subpops = getSubpopulations(context.getAppId(), false);
-        
-        return CriteriaUtils.filterByCriteria(context, subpops, null);
+        if (subpopIndexCache == null) {
+            List<Subpopulation> subpops = getSubpopulations(context.getAppId(), false);
+            return CriteriaUtils.filterByCriteria(context, subpops, null);
+        }
+        CacheKey subpopListKey = CacheKey.subpopList(context.getAppId());
+        CriteriaIndex<Subpopulation> index = subpopIndexCache.get(subpopListKey);
+        if (index == null) {
+            long generation = subpopIndexCache.getGeneration();
+            index = new CriteriaIndex<>(getSubpopulations(context.getAppId(), false));
+            subpopIndexCache.put(subpopListKey, index, generation);
+        }
+        return index.filterByCriteria(context, null);
     }
 
     /**
@@ -219,7 +242,7 @@ public class SubpopulationService {
         
         subpopDao.deleteSubpopulation(appId, subpopGuid);
         cacheProvider.removeObject(CacheKey.subpop(subpopGuid, appId));
-        cacheProvider.removeObject(CacheKey.subpopList(appId));
+        removeSubpopListFromCache(appId);
     }
     
     /**
@@ -232,7 +255,7 @@ public class SubpopulationService {
         subpopDao.deleteSubpopulationPermanently(appId, subpopGuid);
         studyConsentService.deleteAllConsentsPermanently(subpopGuid);
         cacheProvider.removeObject(CacheKey.subpop(subpopGuid, appId));
-        cacheProvider.removeObject(CacheKey.subpopList(appId));
+        removeSubpopListFromCache(appId);
     }
     
     /**
@@ -250,5 +273,16 @@ public class SubpopulationService {
             }
         }
     }
+    
+    /**
+     * Remove the app's list of subpopulations from Redis, and the criteria index built from it from 
+     * the near cache on every node.
+     */
+    private void removeSubpopListFromCache(String appId) {
+        cacheProvider.removeObject(CacheKey.subpopList(appId));
+        if (nearCacheManager != null) {
+            nearCacheManager.invalidate(CacheKey.subpopList(appId));
+        }
+    }
 
 }
@@ -13,6 +13,9 @@ import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCache;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.SurveyDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConstraintViolationException;
@@ -49,6 +52,7 @@ public class SurveyService {
     private SchedulePlanService schedulePlanService;
     private SharedModuleMetadataService sharedModuleMetadataService;
     private AppService appService;
+    private NearCache<Survey> publishedSurveyCache;
 
     @Autowired
     final void setSurveyDao(SurveyDao surveyDao) {
@@ -74,6 +78,13 @@ public class SurveyService {
     public final void setAppService(AppService appService) {
         this.appService = appService;
     }
+
+    /** Caches published survey versions for upload validation. The survey DAO invalidates them when they change. */
+    @Autowired
+    final void setNearCacheManager(NearCacheManager nearCacheManager) {
+        // This is null if near caching is disabled.
+        this.publishedSurveyCache = nearCacheManager.createRevisionNearCache("PublishedSurvey");
+    }
     
     public Survey getSurvey(String appId, GuidCreatedOnVersionHolder keys, boolean includeElements, boolean throwException) {
         Survey survey = surveyDao.getSurvey(appId, keys, includeElements);
@@ -85,6 +96,28 @@ public class SurveyService {
         }
         return survey;
     }
+
+    /**
+     * Same as getSurvey(appId, keys, false, true), except that published survey versions may come from a node-local
+     * cache. A published survey version can't be edited, and every upload of a survey looks it up, so upload
+     * validation uses this. The returned survey may be shared with other callers, so it must not be modified.
+     */
+    public Survey getCachedSurvey(String appId, GuidCreatedOnVersionHolder keys) {
+        if (publishedSurveyCache == null) {
+            return getSurvey(appId, keys, false, true);
+        }
+
+        CacheKey cacheKey = CacheKey.publishedSurvey(appId, keys.getGuid(), keys.getCreatedOn());
+        Survey survey = publishedSurveyCache.get(cacheKey);
+        if (survey == null) {
+            long generation = publishedSurveyCache.getGeneration();
+            survey = getSurvey(appId, keys, false, true);
+            if (survey.isPublished()) {
+                publishedSurveyCache.put(cacheKey, survey, generation);
+            }
+        }
+        return survey;
+    }
     
     /**
      * Create a survey.
@@ -9,6 +9,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.TemplateDao;
 import org.sagebionetworks.bridge.dao.TemplateRevisionDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -27,6 +29,8 @@ public class TemplateRevisionService {
     
     private TemplateRevisionDao templateRevisionDao;
     
+    private NearCacheManager nearCacheManager;
+    
     @Autowired
     final void setTemplateDao(TemplateDao templateDao) {
         this.templateDao = templateDao;
@@ -37,6 +41,11 @@ public class TemplateRevisionService {
         this.templateRevisionDao = templateRevisionDao;
     }
     
+    @Autowired
+    final void setNearCacheManager(NearCacheManager nearCacheManager) {
+        this.nearCacheManager = nearCacheManager;
+    }
+    
     public PagedResourceList<? extends TemplateRevision> getTemplateRevisions(String appId,
             String templateGuid, Integer offset, Integer pageSize) {
         checkNotNull(appId);
@@ -105,7 +114,7 @@ public class TemplateRevisionService {
         checkNotNull(templateGuid);
         checkNotNull(createdOn);
         
-        Template template = templateDao.getTemplate(appId, templateGuid)
+        Template template = templateDao.getTemplateForUpdate(appId, templateGuid)
                 .orElseThrow(() -> new EntityNotFoundException(Template.class));
         
         templateRevisionDao.getTemplateRevision(templateGuid, createdOn)
@@ -113,6 +122,12 @@ public class TemplateRevisionService {
         
         template.setPublishedCreatedOn(createdOn);
         templateDao.updateTemplate(template);
+        
+        // TemplateService caches the templates with their published revision timestamps. The revisions 
+        // themselves don't change, so only the templates need to be reloaded.
+        if (nearCacheManager != null) {
+            nearCacheManager.invalidate(CacheKey.templateList(appId, template.getTemplateType()));
+        }
     }
     
     protected String getUserId() {
@@ -1,6 +1,7 @@
     package org.sagebionetworks.bridge.services;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toSet;
 import static org.joda.time.DateTimeZone.UTC;
 import static org.sagebionetworks.bridge.BridgeConstants.API_DEFAULT_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
@@ -41,6 +42,9 @@ import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCache;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.CriteriaDao;
 import org.sagebionetworks.bridge.dao.TemplateDao;
 import org.sagebionetworks.bridge.dao.TemplateRevisionDao;
@@ -49,6 +53,7 @@ import org.sagebionetworks.bridge.exceptions.ConstraintViolationException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.Criteria;
 import org.sagebionetworks.bridge.models.CriteriaContext;
+import org.sagebionetworks.bridge.models.CriteriaIndex;
 import org.sagebionetworks.bridge.models.CriteriaUtils;
 import org.sagebionetworks.bridge.models.GuidVersionHolder;
 import org.sagebionetworks.bridge.models.PagedResourceList;
@@ -72,6 +77,9 @@ public class TemplateService {
     private CriteriaDao criteriaDao;
     private AppService appService;
     private StudyService studyService;
+    private NearCacheManager nearCacheManager;
+    private NearCache<CriteriaIndex<Template>> templateIndexCache;
+    private NearCache<TemplateRevision> revisionCache;
     
     private String defaultEmailVerificationTemplate;
     private String defaultEmailVerificationTemplateSubject;
@@ -112,6 +120,13 @@ public class TemplateService {
     final void setStudyService(StudyService studyService) {
         this.studyService = studyService;
     }
+    @Autowired
+    final void setNearCacheManager(NearCacheManager nearCacheManager) {
+        this.nearCacheManager = nearCacheManager;
+        // These are null if near caching is disabled.
+        this.templateIndexCache = nearCacheManager.createNearCache("TemplateCriteriaIndex");
+        this.revisionCache = nearCacheManager.createRevisionNearCache("TemplateRevision");
+    }
 
     @Value("classpath:conf/app-defaults/email-verification.txt")
     final void setDefaultEmailVerificationTemplate(org.springframework.core.io.Resource resource) throws IOException {
@@ -208,6 +223,11 @@ public class TemplateService {
         defaultTemplatesMap.put(SMS_VERIFY_PHONE, Triple.of(null, defaultVerifyPhoneSmsTemplate, TEXT));
     }
     
+    /**
+     * Get the published revision of the template that best matches the caller's request context. When near caching
+     * is enabled, the templates and revisions are cached and shared with other callers, so the revision returned 
+     * must not be modified.
+     */
     public TemplateRevision getRevisionForUser(App app, TemplateType type) {
         RequestContext reqContext = RequestContext.get();
         CriteriaContext context = new CriteriaContext.Builder()
@@ -218,22 +238,48 @@ public class TemplateService {
 
         Template template = getTemplateForUser(app, context, type)
                 .orElseThrow(() -> new EntityNotFoundException(Template.class));
-        return templateRevisionDao.getTemplateRevision(template.getGuid(), template.getPublishedCreatedOn())
-                .orElseThrow(() -> new EntityNotFoundException(TemplateRevision.class));
+        return getPublishedRevision(template);
+    }
+    
+    // Revisions are immutable, so the published revision is cached under the template guid and its createdOn
+    // timestamp. Publishing a new revision changes the key.
+    private TemplateRevision getPublishedRevision(Template template) {
+        if (revisionCache == null) {
+            return templateRevisionDao.getTemplateRevision(template.getGuid(), template.getPublishedCreatedOn())
+                    .orElseThrow(() -> new EntityNotFoundException(TemplateRevision.class));
+        }
+        CacheKey revisionKey = CacheKey.templateRevision(template.getGuid(), 
+                template.getPublishedCreatedOn().getMillis());
+        TemplateRevision revision = revisionCache.get(revisionKey);
+        if (revision == null) {
+            long generation = revisionCache.getGeneration();
+            revision = templateRevisionDao.getTemplateRevision(template.getGuid(), template.getPublishedCreatedOn())
+                    .orElseThrow(() -> new EntityNotFoundException(TemplateRevision.class));
+            revisionCache.put(revisionKey, revision, generation);
+        }
+        return revision;
     }
     
-    @SuppressWarnings("unchecked")
     Optional<Template> getTemplateForUser(App app, CriteriaContext context, TemplateType type) {
         checkNotNull(context);
         checkNotNull(type);
 
-        ResourceList<Template> results = (ResourceList<Template>)templateDao.getTemplates(
-                context.getAppId(), type, null, null, false);
-        for (Template template : results.getItems()) {
-            loadCriteria(template);
+        List<Template> templates;
+        List<Template> templateMatches;
+        if (templateIndexCache == null) {
+            templates = getTemplatesWithCriteria(context.getAppId(), type);
+            templateMatches = CriteriaUtils.filterByCriteria(context, templates, null);
+        } else {
+            CacheKey templateListKey = CacheKey.templateList(context.getAppId(), type);
+            CriteriaIndex<Template> index = templateIndexCache.get(templateListKey);
+            if (index == null) {
+                long generation = templateIndexCache.getGeneration();
+                index = new CriteriaIndex<>(getTemplatesWithCriteria(context.getAppId(), type));
+                templateIndexCache.put(templateListKey, index, generation);
+            }
+            templates = index.getCandidates();
+            templateMatches = index.filterByCriteria(context, null);
         }
-
-        List<Template> templateMatches = CriteriaUtils.filterByCriteria(context, results.getItems(), null);
         
         // The ideal case: one and only one template matches the user's context
         if (templateMatches.size() == 1) {
@@ -242,6 +288,12 @@ public class TemplateService {
         // If not, fall back to the default specified for this app, if it exists. 
         String defaultGuid = app.getDefaultTemplates().get(type.name().toLowerCase());
         if (defaultGuid != null) {
+            // The default is usually one of the templates already loaded. It cannot be deleted.
+            for (Template template : templates) {
+                if (defaultGuid.equals(template.getGuid())) {
+                    return Optional.of(template);
+                }
+            }
             // Specified default may not exist, log as integrity violation, but continue
             Optional<Template> optional = templateDao.getTemplate(context.getAppId(), defaultGuid);
             if (optional.isPresent()) {
@@ -255,14 +307,22 @@ public class TemplateService {
             return Optional.of(templateMatches.get(0));
         }
         // Return any template
-        if (results.getItems().size() > 0) {
+        if (templates.size() > 0) {
             LOG.warn("Template matching failed with no default, returning first template found without matching");
-            return Optional.of(results.getItems().get(0));
+            return Optional.of(templates.get(0));
         }
         // There is nothing to return
         return Optional.empty();
     }
     
+    @SuppressWarnings("unchecked")
+    private List<Template> getTemplatesWithCriteria(String appId, TemplateType type) {
+        ResourceList<Template> results = (ResourceList<Template>)templateDao.getTemplates(
+                appId, type, null, null, false);
+        loadCriteria(results.getItems());
+        return results.getItems();
+    }
+    
     public PagedResourceList<? extends Template> getTemplatesForType(String appId, TemplateType type,
             Integer offset, Integer pageSize, boolean includeDeleted) {
         checkNotNull(appId);
@@ -300,6 +360,22 @@ public class TemplateService {
         loadCriteria(template);
         return template;
     }
+    
+    // Same as getTemplate(), but reads the template from the database rather than any cached copy, so a change 
+    // to it is based on its current version.
+    private Template getTemplateForUpdate(String appId, String guid) {
+        checkNotNull(appId);
+        
+        if (StringUtils.isBlank(guid)) {
+            throw new BadRequestException("Invalid template guid: " + guid);
+        }
+        
+        Template template = templateDao.getTemplateForUpdate(appId, guid)
+                .orElseThrow(() -> new EntityNotFoundException(Template.class));
+        
+        loadCriteria(template);
+        return template;
+    }
 
     public GuidVersionHolder createTemplate(App app, Template template) {
         TemplateRevision revision = TemplateRevision.create();
@@ -337,6 +413,7 @@ public class TemplateService {
 
         templateDao.createTemplate(template);
         templateRevisionDao.createTemplateRevision(revision);
+        invalidateTemplateList(app.getIdentifier(), template.getTemplateType());
         return new GuidVersionHolder(template.getGuid(), Long.valueOf(template.getVersion()));
     }
     
@@ -345,7 +422,7 @@ public class TemplateService {
         checkNotNull(template);
         
         // If the entity is deleted and staying deleted, don't allow this operation.
-        Template existing = getTemplate(appId, template.getGuid());
+        Template existing = getTemplateForUpdate(appId, template.getGuid());
         if (existing.isDeleted() && template.isDeleted()) {
             throw new EntityNotFoundException(Template.class);
         }
@@ -368,13 +445,14 @@ public class TemplateService {
         
         persistCriteria(template);
         templateDao.updateTemplate(template);
+        invalidateTemplateList(appId, template.getTemplateType());
         
         return new GuidVersionHolder(template.getGuid(), Long.valueOf(template.getVersion()));
     }
     
     public void deleteTemplate(String appId, String guid) {
         // This not only verifies the template exists, it verifies it is in the caller's app
-        Template existing = getTemplate(appId, guid);
+        Template existing = getTemplateForUpdate(appId, guid);
         if (existing.isDeleted()) {
             throw new EntityNotFoundException(Template.class);
         }
@@ -388,18 +466,39 @@ public class TemplateService {
         existing.setModifiedOn(getTimestamp());
         
         templateDao.updateTemplate(existing);
+        invalidateTemplateList(appId, existing.getTemplateType());
     }
     
     public void deleteTemplatePermanently(String appId, String guid) {
         // Throws exception if template doesn't exist
-        Template template = getTemplate(appId, guid);
+        Template template = getTemplateForUpdate(appId, guid);
 
         templateDao.deleteTemplatePermanently(appId, guid);
         criteriaDao.deleteCriteria(getKey(template));
+        invalidateTemplateList(appId, template.getTemplateType());
+        invalidateRevision(template);
     }
     
     public void deleteAllTemplates(String appId) {
         templateDao.deleteTemplatesForApp(appId);
+        // The templates' revisions can no longer be found through the template list, and will expire.
+        for (TemplateType type : TemplateType.values()) {
+            invalidateTemplateList(appId, type);
+        }
+    }
+    
+    // Removes the app's templates of this type from the near cache on every node.
+    private void invalidateTemplateList(String appId, TemplateType type) {
+        if (nearCacheManager != null) {
+            nearCacheManager.invalidate(CacheKey.templateList(appId, type));
+        }
+    }
+    
+    private void invalidateRevision(Template template) {
+        if (nearCacheManager != null && template.getPublishedCreatedOn() != null) {
+            nearCacheManager.invalidate(CacheKey.templateRevision(template.getGuid(),
+                    template.getPublishedCreatedOn().getMillis()));
+        }
     }
 
     private boolean isDefaultTemplate(Template template, String appId) {
@@ -429,6 +528,19 @@ public class TemplateService {
         }
         template.setCriteria(criteria);
     }
+
+    // Loads the criteria for all the templates in one batch, rather than one read per template.
+    private void loadCriteria(List<? extends Template> templates) {
+        Set<String> keys = templates.stream().map(this::getKey).collect(toSet());
+        Map<String, Criteria> criteriaMap = criteriaDao.batchGetCriteria(keys);
+        for (Template template : templates) {
+            Criteria criteria = criteriaMap.get(getKey(template));
+            if (criteria == null) {
+                criteria = Criteria.create();
+            }
+            template.setCriteria(criteria);
+        }
+    }
     
     String generateGuid() {
         return BridgeUtils.generateGuid();
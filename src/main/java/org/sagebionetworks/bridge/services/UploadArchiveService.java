@@ -165,11 +165,10 @@ public class UploadArchiveService {
 
     /**
      * Decrypts the specified data stream, using the encryption materials for the specified app, and returns the a
-     * stream of decrypted data. The caller is responsible for closing both streams.
-     *
-     * Package-scoped because this should only be called directly by unit tests.
+     * stream of decrypted data. The caller is responsible for closing both streams. Unlike the file-based decrypt,
+     * this does not fall back to another app's key, so callers must handle WrongEncryptionKeyException themselves.
      */
-    InputStream decrypt(String appId, InputStream source) throws CertificateEncodingException, CMSException,
+    public InputStream decrypt(String appId, InputStream source) throws CertificateEncodingException, CMSException,
             IOException, WrongEncryptionKeyException {
         // validate
         checkNotNull(appId);
@@ -21,6 +21,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCache;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
@@ -41,9 +44,22 @@ import org.sagebionetworks.bridge.validators.Validate;
  */
 @Component
 public class UploadSchemaService {
+    private NearCacheManager nearCacheManager;
+    private NearCache<UploadSchema> schemaRevisionCache;
     private SharedModuleMetadataService sharedModuleMetadataService;
     private UploadSchemaDao uploadSchemaDao;
 
+    /**
+     * Near cache manager, used to cache schema revisions for upload validation, and to invalidate them across nodes
+     * when a revision is updated or deleted. This is configured by Spring.
+     */
+    @Autowired
+    public final void setNearCacheManager(NearCacheManager nearCacheManager) {
+        this.nearCacheManager = nearCacheManager;
+        // This is null if near caching is disabled.
+        this.schemaRevisionCache = nearCacheManager.createRevisionNearCache("UploadSchemaRevision");
+    }
+
     /** DAO for upload schemas. This is configured by Spring. */
     @Autowired
     public final void setUploadSchemaDao(UploadSchemaDao uploadSchemaDao) {
@@ -220,6 +236,7 @@ public class UploadSchemaService {
 
         List<UploadSchema> schemaList = getSchemaRevisionsForDelete(appId, schemaId);
         uploadSchemaDao.deleteUploadSchemas(schemaList);
+        invalidateSchemaRevisions(appId, schemaList);
     }
 
     public void deleteUploadSchemaByIdPermanently(String appId, String schemaId) {
@@ -227,6 +244,7 @@ public class UploadSchemaService {
 
         List<UploadSchema> schemaList = getSchemaRevisionsForDelete(appId, schemaId);
         uploadSchemaDao.deleteUploadSchemasPermanently(schemaList);
+        invalidateSchemaRevisions(appId, schemaList);
     }
 
     protected List<UploadSchema> getSchemaRevisionsForDelete(String appId, String schemaId) {
@@ -260,7 +278,8 @@ public class UploadSchemaService {
         if (schema == null || schema.isDeleted()) {
             throw new EntityNotFoundException(UploadSchema.class);
         }
-        uploadSchemaDao.deleteUploadSchemas(ImmutableList.of(schema));    
+        uploadSchemaDao.deleteUploadSchemas(ImmutableList.of(schema));
+        invalidateSchemaRevisions(appId, ImmutableList.of(schema));
     }
     
     public void deleteUploadSchemaByIdAndRevisionPermanently(String appId, String schemaId, int rev) {
@@ -270,7 +289,8 @@ public class UploadSchemaService {
         if (schema == null) {
             throw new EntityNotFoundException(UploadSchema.class);
         }
-        uploadSchemaDao.deleteUploadSchemasPermanently(ImmutableList.of(schema));    
+        uploadSchemaDao.deleteUploadSchemasPermanently(ImmutableList.of(schema));
+        invalidateSchemaRevisions(appId, ImmutableList.of(schema));
     }
 
     /** Returns all revisions of all schemas. */
@@ -282,6 +302,7 @@ public class UploadSchemaService {
     public void deleteAllUploadSchemasAllRevisionsPermanently(String appId) {
         List<UploadSchema> schemaList = uploadSchemaDao.getAllUploadSchemasAllRevisions(appId, true);
         uploadSchemaDao.deleteUploadSchemasPermanently(schemaList);
+        invalidateSchemaRevisions(appId, schemaList);
     }
 
     /** Service handler for fetching the most recent revision of all upload schemas in a app. */
@@ -398,6 +419,40 @@ public class UploadSchemaService {
         return uploadSchemaDao.getUploadSchemaByIdAndRevision(appId, schemaId, revision);
     }
 
+    /**
+     * Same as {@link #getUploadSchemaByIdAndRev}, except the schema may come from a node-local cache. Schema
+     * revisions rarely change, and every upload looks up its schema several times, so upload validation uses this.
+     * The returned schema may be shared with other callers, so it must not be modified.
+     */
+    public UploadSchema getCachedUploadSchemaByIdAndRev(String appId, String schemaId, int revision) {
+        UploadSchema schema = getCachedUploadSchemaByIdAndRevNoThrow(appId, schemaId, revision);
+        if (schema == null) {
+            throw new EntityNotFoundException(UploadSchema.class, "Can't find schema " + schemaId + "-v" + revision);
+        }
+        return schema;
+    }
+
+    /**
+     * Same as {@link #getUploadSchemaByIdAndRevNoThrow}, except the schema may come from a node-local cache. The
+     * returned schema may be shared with other callers, so it must not be modified. Missing schemas aren't cached.
+     */
+    public UploadSchema getCachedUploadSchemaByIdAndRevNoThrow(String appId, String schemaId, int revision) {
+        if (schemaRevisionCache == null) {
+            return getUploadSchemaByIdAndRevNoThrow(appId, schemaId, revision);
+        }
+
+        CacheKey cacheKey = CacheKey.uploadSchemaRevision(appId, schemaId, revision);
+        UploadSchema schema = schemaRevisionCache.get(cacheKey);
+        if (schema == null) {
+            long generation = schemaRevisionCache.getGeneration();
+            schema = getUploadSchemaByIdAndRevNoThrow(appId, schemaId, revision);
+            if (schema != null) {
+                schemaRevisionCache.put(cacheKey, schema, generation);
+            }
+        }
+        return schema;
+    }
+
     /**
      * Gets the latest available revision of the specified schema for the specified client. This API fetches every
      * schema revision for the specified schema ID, then checks the schema's min/maxAppVersion against the clientInfo.
@@ -519,7 +574,20 @@ public class UploadSchemaService {
         }
 
         // Call through to the DAO
-        return uploadSchemaDao.updateSchemaRevision(schemaToUpdate);
+        UploadSchema updatedSchema = uploadSchemaDao.updateSchemaRevision(schemaToUpdate);
+        invalidateSchemaRevisions(appId, ImmutableList.of(schemaToUpdate));
+        return updatedSchema;
+    }
+
+    // Helper method to remove schema revisions from the near cache, on this node and all others.
+    private void invalidateSchemaRevisions(String appId, List<UploadSchema> schemaList) {
+        if (nearCacheManager == null) {
+            return;
+        }
+        for (UploadSchema oneSchema : schemaList) {
+            nearCacheManager.invalidate(CacheKey.uploadSchemaRevision(appId, oneSchema.getSchemaId(),
+                    oneSchema.getRevision()));
+        }
     }
 
     // Helper method to get a map of fields by name for an Upload Schema. Returns a TreeMap so our error messaging has
@@ -13,6 +13,7 @@ import static org.sagebionetworks.bridge.BridgeConstants.API_APP_ID;
 import static org.sagebionetworks.bridge.BridgeConstants.API_DEFAULT_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeConstants.CANNOT_BE_BLANK;
 import static org.sagebionetworks.bridge.BridgeUtils.COMMA_SPACE_JOINER;
+import static org.sagebionetworks.bridge.BridgeUtils.deleteS3Objects;
 
 import java.io.IOException;
 import java.net.URL;
@@ -21,6 +22,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
@@ -32,8 +35,6 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
-import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -44,7 +45,6 @@ import com.google.common.collect.ImmutableSet;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
-import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.dao.HealthCodeDao;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.PagedResourceList;
@@ -77,6 +77,7 @@ import org.sagebionetworks.bridge.models.worker.UploadRedriveWorkerRequest;
 import org.sagebionetworks.bridge.models.worker.WorkerRequest;
 import org.sagebionetworks.bridge.s3.S3Helper;
 import org.sagebionetworks.bridge.time.DateUtils;
+import org.sagebionetworks.bridge.upload.UploadCompletionRegistry;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
@@ -122,15 +123,15 @@ public class UploadService {
     private UploadDao uploadDao;
     private UploadDedupeDao uploadDedupeDao;
     private UploadValidationService uploadValidationService;
+    private UploadCompletionRegistry uploadCompletionRegistry;
     private HealthCodeDao healthCodeDao;
-    private String workerQueueUrl;
-    private AmazonSQS sqsClient;
+    private WorkerRequestPublisher workerRequestPublisher;
     private S3Helper s3Helper;
     private BridgeConfig config;
 
     // These parameters can be overriden to facilitate testing.
-    // By default, we sleep 5 seconds, including right at the start and end. This means on our 7th iteration,
-    // 30 seconds will have passed.
+    // By default, we wait up to 5 seconds between checks, including right at the start and end. This means on our 7th
+    // iteration, 30 seconds will have passed. Validation on this node cuts the wait short.
     private int pollValidationStatusMaxIterations = 7;
     private long pollValidationStatusSleepMillis = 5000;
 
@@ -212,14 +213,20 @@ public class UploadService {
         this.uploadValidationService = uploadValidationService;
     }
 
+    /** Registry of callers waiting for uploads to finish validation. This is configured by Spring. */
+    @Autowired
+    final void setUploadCompletionRegistry(UploadCompletionRegistry uploadCompletionRegistry) {
+        this.uploadCompletionRegistry = uploadCompletionRegistry;
+    }
+
     @Autowired
     final void setHealthCodeDao(HealthCodeDao healthCodeDao) {
         this.healthCodeDao = healthCodeDao;
     }
 
     @Autowired
-    final void setSqsClient(AmazonSQS sqsClient) {
-        this.sqsClient = sqsClient;
+    final void setWorkerRequestPublisher(WorkerRequestPublisher workerRequestPublisher) {
+        this.workerRequestPublisher = workerRequestPublisher;
     }
 
     @Resource(name = "s3Helper")
@@ -235,6 +242,16 @@ public class UploadService {
         this.pollValidationStatusMaxIterations = pollValidationStatusMaxIterations;
     }
 
+    /** Number of iterations before a wait for validation status times out. */
+    public int getPollValidationStatusMaxIterations() {
+        return pollValidationStatusMaxIterations;
+    }
+
+    /** Maximum milliseconds to wait between checks of the validation status. */
+    public long getPollValidationStatusSleepMillis() {
+        return pollValidationStatusSleepMillis;
+    }
+
     /**
      * Milliseconds to sleep per iterations while polling for validation status. This is used primarily by tests to
      * reduce the amount of wait time during tests.
@@ -480,33 +497,70 @@ public class UploadService {
     /**
      * Polls for validation status for a given upload ID. Polls until validation is complete or otherwise is in a state
      * where further polling won't get any results (like validation failed, or upload is requested but not yet
-     * uploaded), or until it times out. See getUploadValidationStatus() for more details.
+     * uploaded), or until it times out. See getUploadValidationStatus() for more details. This blocks the calling
+     * thread; callers that shouldn't hold a thread while waiting should use waitForUploadValidationStatus().
      */
     public UploadValidationStatus pollUploadValidationStatusUntilComplete(String uploadId) {
-        // Loop logic is a little wonky. (Loop-and-a-half problem.) Use an infinite loop here and rely on tests to make
-        // sure we don't go infinite.
-        int numIters = 0;
-        while (true) {
-            UploadValidationStatus validationStatus = getUploadValidationStatus(uploadId);
-            if (validationStatus.getStatus() != UploadStatus.VALIDATION_IN_PROGRESS) {
-                // Validation is either finished processing, or otherwise in a state where it's pointless to wait.
-                // Return the answer we have now.
-                return validationStatus;
+        try {
+            return waitForUploadValidationStatus(uploadId).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
             }
+            throw new BridgeServiceException(ex.getCause());
+        }
+    }
 
-            // Short-circuit: If we've elapsed our timeout, just exit now. Don't wait for a sleep.
-            numIters++;
-            if (numIters >= pollValidationStatusMaxIterations) {
-                throw new BridgeServiceException("Timeout polling validation status for upload " + uploadId);
-            }
+    /**
+     * Non-blocking version of pollUploadValidationStatusUntilComplete(). The returned future completes with the
+     * validation status, or completes exceptionally with a BridgeServiceException if it times out. Between checks,
+     * this waits on the UploadCompletionRegistry instead of sleeping, so if the upload is validated on this node, the
+     * status is read again as soon as it is written. Otherwise, the status is checked every
+     * pollValidationStatusSleepMillis, as before. The status is read again on the registry's callback executor, so the
+     * reads don't block the registry's timers.
+     */
+    public CompletableFuture<UploadValidationStatus> waitForUploadValidationStatus(String uploadId) {
+        CompletableFuture<UploadValidationStatus> result = new CompletableFuture<>();
+        checkUploadValidationStatus(uploadId, 0, result);
+        return result;
+    }
 
-            // Sleep and try again.
-            try {
-                Thread.sleep(pollValidationStatusSleepMillis);
-            } catch (InterruptedException ex) {
-                logger.error("Interrupted while polling for validation status: " + ex.getMessage());
-            }
+    private void checkUploadValidationStatus(String uploadId, int numIters,
+            CompletableFuture<UploadValidationStatus> result) {
+        // Start waiting before we read the status, so we don't miss validation finishing in between. On the last try,
+        // there's nothing to wait for.
+        boolean lastTry = numIters + 1 >= pollValidationStatusMaxIterations;
+        CompletableFuture<UploadStatus> completion = lastTry ? null : uploadCompletionRegistry.await(uploadId,
+                pollValidationStatusSleepMillis);
+
+        UploadValidationStatus validationStatus;
+        try {
+            validationStatus = getUploadValidationStatus(uploadId);
+        } catch (RuntimeException ex) {
+            result.completeExceptionally(ex);
+            return;
         }
+        if (validationStatus.getStatus() != UploadStatus.VALIDATION_IN_PROGRESS) {
+            // Validation is either finished processing, or otherwise in a state where it's pointless to wait.
+            // Return the answer we have now.
+            result.complete(validationStatus);
+            return;
+        }
+
+        // Short-circuit: If we've elapsed our timeout, just exit now. Don't wait again.
+        if (lastTry) {
+            result.completeExceptionally(new BridgeServiceException(
+                    "Timeout polling validation status for upload " + uploadId));
+            return;
+        }
+
+        // The wait completes with null if it times out. Either way, check again. If the callback executor is full,
+        // the caller gets the RejectedExecutionException.
+        completion.thenRunAsync(() -> checkUploadValidationStatus(uploadId, numIters + 1, result),
+                uploadCompletionRegistry.getCallbackExecutor()).exceptionally(ex -> {
+                    result.completeExceptionally(ex instanceof CompletionException ? ex.getCause() : ex);
+                    return null;
+                });
     }
 
     public void uploadComplete(String appId, UploadCompletionClient completedBy, Upload upload,
@@ -553,14 +607,18 @@ public class UploadService {
         }
 
         // kick off upload validation
+        // For backwards compatibility, always call Legacy Exporter 2.0. In the future, we may introduce a setting to
+        // disable this for new apps. This goes first, because if the validation queue is full, the upload is put back
+        // in the REQUESTED state to be completed again, and it must not have been exported to Exporter 3.0 yet, or
+        // it would be exported twice.
+        if (!uploadValidationService.validateUpload(appId, upload)) {
+            return;
+        }
+
         App app = appService.getApp(appId);
         if (app.isExporter3Enabled()) {
             exporter3Service.completeUpload(app, upload);
         }
-
-        // For backwards compatibility, always call Legacy Exporter 2.0. In the future, we may introduce a setting to
-        // disable this for new apps.
-        uploadValidationService.validateUpload(appId, upload);
         
         // Save uploadedOn date and uploadId to related adherence records.
         updateAdherenceWithUploadInfo(appId, upload);
@@ -639,27 +697,23 @@ public class UploadService {
                     ex);
         }
 
-        // 2. Send to SQS.
-        // Note: SqsInitializer runs after Spring, so we need to grab the queue URL dynamically.
-        workerQueueUrl = config.getProperty(BridgeConstants.CONFIG_KEY_WORKER_SQS_URL);
-
-        SendMessageResult sqsResult = sqsClient.sendMessage(workerQueueUrl, requestJson);
-        logger.info("Sent redrive upload request for file " + s3Key +
-                sqsResult.getMessageId());
+        // 2. Send to SQS. This is batched with other worker requests and doesn't wait on SQS.
+        workerRequestPublisher.publish(requestJson, "redrive upload request for file " + s3Key);
     }
     
     public void deleteUploadsForHealthCode(String healthCode) {
         checkArgument(isNotBlank(healthCode));
 
-        // Delete from DynamoDB.
-        List<String> uploadIdList = uploadDao.deleteUploadsForHealthCode(healthCode);
+        List<String> uploadIdList = uploadDao.getUploadIdsForHealthCode(healthCode);
 
-        // Delete files from S3.
+        // Delete files from S3, up to 1000 per request.
         // If the file does not exist on S3, the s3Client will actually return success
         // instead of an error message.
-        for (String uploadId : uploadIdList) {
-            s3Client.deleteObject(uploadBucket, uploadId);
-        }
+        deleteS3Objects(s3Client, uploadBucket, uploadIdList);
+
+        // Delete from DynamoDB. This is last, so if deleting from S3 fails, the upload IDs can still be found when
+        // the deletion is retried.
+        uploadDao.deleteUploads(uploadIdList);
     }
 
     /**
@@ -7,14 +7,10 @@ import java.util.List;
 import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
-import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -44,8 +40,6 @@ import org.sagebionetworks.bridge.validators.Validate;
 /** Service handler for upload table rows. */
 @Component
 public class UploadTableService {
-    private static final Logger LOG = LoggerFactory.getLogger(Exporter3Service.class);
-
     // Package-scoped for unit tests.
     static final String CONFIG_KEY_RAW_HEALTH_DATA_BUCKET = "health.data.bucket.raw";
     static final int DEDUPE_WINDOW_MINUTES = 5;
@@ -55,7 +49,7 @@ public class UploadTableService {
     private BridgeConfig config;
     private String rawHealthDataBucket;
     private AmazonS3 s3Client;
-    private AmazonSQS sqsClient;
+    private WorkerRequestPublisher workerRequestPublisher;
     private StudyService studyService;
     private UploadService uploadService;
     private UploadTableJobDao uploadTableJobDao;
@@ -73,8 +67,8 @@ public class UploadTableService {
     }
 
     @Autowired
-    public final void setSqsClient(AmazonSQS sqsClient) {
-        this.sqsClient = sqsClient;
+    public final void setWorkerRequestPublisher(WorkerRequestPublisher workerRequestPublisher) {
+        this.workerRequestPublisher = workerRequestPublisher;
     }
 
     @Autowired
@@ -213,13 +207,8 @@ public class UploadTableService {
             throw new BridgeServiceException("Error creating CSV request for app " + appId + " study " + studyId, ex);
         }
 
-        // Note: SqsInitializer runs after Spring, so we need to grab the queue URL dynamically.
-        String workerQueueUrl = config.getProperty(BridgeConstants.CONFIG_KEY_WORKER_SQS_URL);
-
-        // Sent to SQS.
-        SendMessageResult sqsResult = sqsClient.sendMessage(workerQueueUrl, requestJson);
-        LOG.info("Sent CSV request for app " + appId + " study " + studyId + "; received message ID=" +
-                sqsResult.getMessageId());
+        // Send to SQS. This is batched with other worker requests and doesn't wait on SQS.
+        workerRequestPublisher.publish(requestJson, "CSV request for app " + appId + " study " + studyId);
 
         return new UploadTableJobGuidHolder(jobGuid);
     }
@@ -1,26 +1,44 @@
 package org.sagebionetworks.bridge.services;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Resource;
 
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.dao.UploadDao;
 import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.models.upload.UploadStatus;
+import org.sagebionetworks.bridge.upload.UploadCompletionRegistry;
+import org.sagebionetworks.bridge.upload.UploadValidationExecutor;
+import org.sagebionetworks.bridge.upload.UploadValidationMetrics;
 import org.sagebionetworks.bridge.upload.UploadValidationTask;
 import org.sagebionetworks.bridge.upload.UploadValidationTaskFactory;
 
 /** Service handler for upload validation. */
 @Component
 public class UploadValidationService {
-    private ExecutorService asyncExecutorService;
+    private static final Logger LOG = LoggerFactory.getLogger(UploadValidationService.class);
+
+    static final String REJECTED_MESSAGE = "Upload validation was not started because the server is busy. The " +
+            "upload can be completed again or redriven.";
+
+    private UploadValidationExecutor uploadValidationExecutor;
     private UploadValidationTaskFactory taskFactory;
+    private UploadDao uploadDao;
+    private UploadValidationMetrics uploadValidationMetrics;
+    private UploadCompletionRegistry uploadCompletionRegistry;
+    private WorkerRequestPublisher workerRequestPublisher;
 
-    /** Async thread pool. This is configured by Spring. */
-    @Resource(name = "asyncExecutorService")
-    public void setAsyncExecutorService(ExecutorService asyncExecutorService) {
-        this.asyncExecutorService = asyncExecutorService;
+    /** Thread pool dedicated to upload validation. This is configured by Spring. */
+    @Autowired
+    public void setUploadValidationExecutor(UploadValidationExecutor uploadValidationExecutor) {
+        this.uploadValidationExecutor = uploadValidationExecutor;
     }
 
     /** Task factory. This is configured by Spring. */
@@ -29,6 +47,30 @@ public class UploadValidationService {
         this.taskFactory = taskFactory;
     }
 
+    /** Upload DAO, used to reset the upload if validation can't be started. This is configured by Spring. */
+    @Autowired
+    public void setUploadDao(UploadDao uploadDao) {
+        this.uploadDao = uploadDao;
+    }
+
+    /** Per-handler upload validation metrics. This is configured by Spring. */
+    @Autowired
+    public void setUploadValidationMetrics(UploadValidationMetrics uploadValidationMetrics) {
+        this.uploadValidationMetrics = uploadValidationMetrics;
+    }
+
+    /** Registry of callers waiting for uploads to finish validation. This is configured by Spring. */
+    @Autowired
+    public void setUploadCompletionRegistry(UploadCompletionRegistry uploadCompletionRegistry) {
+        this.uploadCompletionRegistry = uploadCompletionRegistry;
+    }
+
+    /** Publisher for the export requests of validated uploads, for its stats. This is configured by Spring. */
+    @Autowired
+    public void setWorkerRequestPublisher(WorkerRequestPublisher workerRequestPublisher) {
+        this.workerRequestPublisher = workerRequestPublisher;
+    }
+
     /**
      * <p>
      * Kick off upload validation. Since upload validation can take some time, we handle this asynchronously. This
@@ -38,14 +80,50 @@ public class UploadValidationService {
      * App and user comes from the controller and upload comes from UploadService.getUpload(), so none of the fields
      * are user input, so validation is not needed.
      * </p>
+     * <p>
+     * If the validation queue is full, the upload is put back in the REQUESTED state, so that the app (or the S3
+     * trigger) can complete it again, or it can be redriven. Callers should check the result before doing anything
+     * else for the completed upload, so that completing it again doesn't do it twice.
+     * </p>
      *
      * @param appId
      *         app this upload lives in
      * @param upload
      *         upload metadata object for the upload
+     * @return true if validation was started, false if the upload was rejected and put back in the REQUESTED state
      */
-    public void validateUpload(@Nonnull String appId, @Nonnull Upload upload) {
+    public boolean validateUpload(@Nonnull String appId, @Nonnull Upload upload) {
         UploadValidationTask task = taskFactory.newTask(appId, upload);
-        asyncExecutorService.execute(task);
+        if (uploadValidationExecutor.submit(appId, task)) {
+            return true;
+        }
+
+        LOG.error("Upload validation queue is full, rejected upload " + upload.getUploadId() + " for app " + appId +
+                ": " + uploadValidationExecutor.getStats());
+        try {
+            uploadDao.writeValidationStatus(upload, UploadStatus.REQUESTED, ImmutableList.of(REJECTED_MESSAGE),
+                    null);
+        } catch (RuntimeException ex) {
+            // The upload is still VALIDATION_IN_PROGRESS, which can only be redriven.
+            LOG.error("Error resetting status for rejected upload " + upload.getUploadId() + ": " + ex.getMessage(),
+                    ex);
+        }
+        uploadCompletionRegistry.complete(upload.getUploadId(), UploadStatus.REQUESTED);
+        return false;
+    }
+
+    /**
+     * Upload validation metrics for this node. The "queue" entry has queue depth, active tasks, and wait times. The
+     * "completion" entry has callers waiting for validation to finish. The "workerRequests" entry has the worker
+     * requests (like exports) sent, failed, and dead-lettered. The other entries have per-handler latency, bytes, and
+     * failures, keyed by handler, app, and upload format.
+     */
+    public Map<String, Map<String, Long>> getValidationStats() {
+        Map<String, Map<String, Long>> stats = Maps.newTreeMap();
+        stats.put("queue", uploadValidationExecutor.getStats());
+        stats.put("completion", uploadCompletionRegistry.getStats());
+        stats.put("workerRequests", workerRequestPublisher.getStats());
+        stats.putAll(uploadValidationMetrics.getStats());
+        return stats;
     }
 }
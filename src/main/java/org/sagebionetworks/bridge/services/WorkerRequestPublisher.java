@@ -0,0 +1,324 @@
+package org.sagebionetworks.bridge.services;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.amazonaws.services.sqs.model.SendMessageResult;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.SqsInitializer;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+/**
+ * Sends worker requests to the worker SQS queue off of the request thread. Requests are buffered and sent with
+ * SendMessageBatch, up to 10 at a time, once a batch is full or the first request in it has waited the linger time.
+ * Entries that fail with a server-side error are retried. Entries that still fail after the last attempt, or that SQS
+ * rejects, are sent to the dead letter queue (the same one the worker queue redrives to), so they can be found and
+ * redriven. If the buffer is full (or batching is disabled), the caller sends its request directly, so a slow queue
+ * slows callers down rather than dropping requests. Requests still buffered at shutdown are sent before the server
+ * stops.
+ */
+@Component
+public class WorkerRequestPublisher {
+    private static final Logger LOG = LoggerFactory.getLogger(WorkerRequestPublisher.class);
+
+    static final String CONFIG_KEY_ENABLED = "worker.request.batching.enabled";
+    static final String CONFIG_KEY_LINGER_MILLIS = "worker.request.batching.linger.millis";
+    static final String CONFIG_KEY_QUEUE_CAPACITY = "worker.request.batching.queue.capacity";
+    static final String CONFIG_KEY_MAX_ATTEMPTS = "worker.request.batching.max.attempts";
+    static final String CONFIG_KEY_SHUTDOWN_TIMEOUT_MILLIS = "worker.request.batching.shutdown.timeout.millis";
+
+    /** SQS does not accept more than 10 entries in a SendMessageBatch call. */
+    static final int MAX_BATCH_SIZE = 10;
+    static final long RETRY_DELAY_MILLIS = 200L;
+    /** Message attribute on dead-lettered requests with the reason the request couldn't be sent. */
+    static final String ATTR_FAILURE_REASON = "BridgeFailureReason";
+
+    private BridgeConfig config;
+    private AmazonSQS sqsClient;
+    private boolean enabled;
+    private long lingerMillis;
+    private int queueCapacity;
+    private int maxAttempts;
+    private long shutdownTimeoutMillis;
+    private String deadLetterQueueUrl;
+    private BlockingQueue<PendingRequest> queue;
+    private volatile boolean running;
+    private Thread publisherThread;
+
+    private final AtomicLong buffered = new AtomicLong();
+    private final AtomicLong sentInBatches = new AtomicLong();
+    private final AtomicLong sentDirectly = new AtomicLong();
+    private final AtomicLong batchCalls = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+
+    @Autowired
+    final void setConfig(BridgeConfig config) {
+        this.config = config;
+        this.enabled = Boolean.parseBoolean(config.get(CONFIG_KEY_ENABLED));
+        this.deadLetterQueueUrl = queueUrlFromArn(config.get(SqsInitializer.CONFIG_KEY_DEAD_LETTER_QUEUE_ARN));
+        if (enabled) {
+            this.lingerMillis = config.getPropertyAsInt(CONFIG_KEY_LINGER_MILLIS);
+            this.queueCapacity = config.getPropertyAsInt(CONFIG_KEY_QUEUE_CAPACITY);
+            this.maxAttempts = config.getPropertyAsInt(CONFIG_KEY_MAX_ATTEMPTS);
+            this.shutdownTimeoutMillis = config.getPropertyAsInt(CONFIG_KEY_SHUTDOWN_TIMEOUT_MILLIS);
+        }
+    }
+
+    @Autowired
+    final void setSqsClient(AmazonSQS sqsClient) {
+        this.sqsClient = sqsClient;
+    }
+
+    /**
+     * Queue a serialized {@link org.sagebionetworks.bridge.models.worker.WorkerRequest} to be sent to the worker
+     * queue. The description is only used in log messages (e.g. "export request for app X record Y").
+     */
+    public void publish(String requestJson, String description) {
+        checkNotNull(requestJson);
+        checkNotNull(description);
+
+        PendingRequest request = new PendingRequest(requestJson, description);
+        if (running && queue.offer(request)) {
+            buffered.incrementAndGet();
+            return;
+        }
+        sendDirectly(request);
+    }
+
+    /**
+     * Counts of worker requests sent since this node started, and the number currently waiting to be sent. "failed"
+     * counts requests that could not be sent to the worker queue. Of those, "deadLettered" were sent to the dead
+     * letter queue, and "lost" could not be sent there either, so they are only in the logs.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = Maps.newTreeMap();
+        stats.put("buffered", buffered.get());
+        stats.put("sentInBatches", sentInBatches.get());
+        stats.put("sentDirectly", sentDirectly.get());
+        stats.put("batchCalls", batchCalls.get());
+        stats.put("retried", retried.get());
+        stats.put("failed", failed.get());
+        stats.put("deadLettered", deadLettered.get());
+        stats.put("lost", lost.get());
+        stats.put("waiting", queue == null ? 0L : (long) queue.size());
+        return stats;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        publisherThread = new Thread(this::publishLoop, "worker-request-publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (publisherThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            publisherThread.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything the publisher thread didn't get to is sent from here.
+        List<PendingRequest> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (queue.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+            sendBatch(batch);
+            batch.clear();
+        }
+        LOG.info("Worker request publisher stopped: " + getStats());
+    }
+
+    private void publishLoop() {
+        List<PendingRequest> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        boolean interrupted = false;
+        while (!interrupted && (running || !queue.isEmpty())) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                // Send what we have. stop() will send whatever is left in the queue.
+                Thread.currentThread().interrupt();
+                interrupted = true;
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    sendBatch(batch);
+                } catch (Throwable t) {
+                    LOG.error("Error sending worker requests: " + t.getMessage(), t);
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<PendingRequest> batch) throws InterruptedException {
+        PendingRequest first = queue.poll(lingerMillis, MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + MILLISECONDS.toNanos(lingerMillis);
+        while (batch.size() < MAX_BATCH_SIZE) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) {
+                // Don't wait, but take anything that is already queued.
+                queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+                return;
+            }
+            PendingRequest next = queue.poll(remaining, NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    void sendBatch(List<PendingRequest> batch) {
+        List<PendingRequest> pending = batch;
+        for (int attempt = 1; ; attempt++) {
+            pending = trySendBatch(pending);
+            if (pending.isEmpty()) {
+                return;
+            }
+            if (attempt >= maxAttempts) {
+                for (PendingRequest request : pending) {
+                    deadLetter(request, "Not sent after " + attempt + " attempts");
+                }
+                return;
+            }
+            retried.addAndGet(pending.size());
+            try {
+                Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Sends one batch and returns the requests that should be retried. */
+    private List<PendingRequest> trySendBatch(List<PendingRequest> batch) {
+        // Note: SqsInitializer runs after Spring, so we need to grab the queue URL dynamically.
+        String workerQueueUrl = config.getProperty(BridgeConstants.CONFIG_KEY_WORKER_SQS_URL);
+
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            entries.add(new SendMessageBatchRequestEntry(String.valueOf(i), batch.get(i).requestJson));
+        }
+        SendMessageBatchResult result;
+        try {
+            result = sqsClient.sendMessageBatch(new SendMessageBatchRequest(workerQueueUrl, entries));
+        } catch (RuntimeException e) {
+            LOG.warn("Error sending batch of " + batch.size() + " worker requests: " + e.getMessage(), e);
+            return batch;
+        }
+        batchCalls.incrementAndGet();
+
+        for (SendMessageBatchResultEntry entry : result.getSuccessful()) {
+            PendingRequest request = batch.get(Integer.parseInt(entry.getId()));
+            sentInBatches.incrementAndGet();
+            LOG.info("Sent " + request.description + "; received message ID=" + entry.getMessageId());
+        }
+        List<PendingRequest> retries = new ArrayList<>();
+        for (BatchResultErrorEntry entry : result.getFailed()) {
+            PendingRequest request = batch.get(Integer.parseInt(entry.getId()));
+            if (Boolean.TRUE.equals(entry.getSenderFault())) {
+                // The request itself was rejected, so sending it again won't help.
+                deadLetter(request, "Rejected by SQS: " + entry.getCode() + " " + entry.getMessage());
+            } else {
+                retries.add(request);
+            }
+        }
+        return retries;
+    }
+
+    private void sendDirectly(PendingRequest request) {
+        String workerQueueUrl = config.getProperty(BridgeConstants.CONFIG_KEY_WORKER_SQS_URL);
+        SendMessageResult sqsResult = sqsClient.sendMessage(workerQueueUrl, request.requestJson);
+        sentDirectly.incrementAndGet();
+        LOG.info("Sent " + request.description + "; received message ID=" + sqsResult.getMessageId());
+    }
+
+    /**
+     * Sends a request that could not be sent to the worker queue to the dead letter queue, with the reason as a
+     * message attribute. If that fails too, the request is logged, so it can still be recovered from the logs.
+     */
+    private void deadLetter(PendingRequest request, String reason) {
+        failed.incrementAndGet();
+        if (deadLetterQueueUrl != null) {
+            try {
+                SendMessageResult sqsResult = sqsClient.sendMessage(new SendMessageRequest(deadLetterQueueUrl,
+                        request.requestJson).addMessageAttributesEntry(ATTR_FAILURE_REASON,
+                                new MessageAttributeValue().withDataType("String").withStringValue(reason)));
+                deadLettered.incrementAndGet();
+                LOG.error("Could not send " + request.description + " (" + reason
+                        + "); sent to dead letter queue with message ID=" + sqsResult.getMessageId());
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("Error sending " + request.description + " to dead letter queue: " + e.getMessage(), e);
+            }
+        }
+        lost.incrementAndGet();
+        LOG.error("Could not send " + request.description + " (" + reason + "), request=" + request.requestJson);
+    }
+
+    /**
+     * The URL of the queue with the given ARN (arn:aws:sqs:region:account:name), or null if the ARN is missing or is
+     * not an SQS queue ARN.
+     */
+    static String queueUrlFromArn(String arn) {
+        if (arn == null) {
+            return null;
+        }
+        String[] parts = arn.split(":");
+        if (parts.length != 6 || !"sqs".equals(parts[2])) {
+            LOG.warn("Not an SQS queue ARN, worker requests that can't be sent will only be logged: " + arn);
+            return null;
+        }
+        return "https://sqs." + parts[3] + ".amazonaws.com/" + parts[4] + "/" + parts[5];
+    }
+
+    static final class PendingRequest {
+        private final String requestJson;
+        private final String description;
+
+        PendingRequest(String requestJson, String description) {
+            this.requestJson = requestJson;
+            this.description = description;
+        }
+    }
+}
@@ -77,7 +77,7 @@ public class BasicEmailProvider extends MimeTypeEmailProvider {
     public MimeTypeEmail getMimeTypeEmail() throws MessagingException {
         final MimeTypeEmailBuilder emailBuilder = new MimeTypeEmailBuilder();
 
-        final String formattedSubject = BridgeUtils.resolveTemplate(revision.getSubject(), tokenMap);
+        final String formattedSubject = revision.getCompiledSubject().render(tokenMap);
         emailBuilder.withSubject(formattedSubject);
 
         final String sendFromEmail = getFormattedSenderEmail();
@@ -88,7 +88,7 @@ public class BasicEmailProvider extends MimeTypeEmailProvider {
         }
         
         final MimeBodyPart bodyPart = new MimeBodyPart();
-        final String formattedBody = BridgeUtils.resolveTemplate(revision.getDocumentContent(), tokenMap);
+        final String formattedBody = revision.getCompiledDocumentContent().render(tokenMap);
         bodyPart.setContent(formattedBody, revision.getMimeType().toString() + "; charset=utf-8");
         emailBuilder.withMessageParts(bodyPart);
         
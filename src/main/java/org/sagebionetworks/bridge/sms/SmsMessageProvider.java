@@ -63,7 +63,7 @@ public class SmsMessageProvider {
 
     /** SMS message to send, with template variables resolved. */
     public String getFormattedMessage() {
-        return BridgeUtils.resolveTemplate(revision.getDocumentContent(), tokenMap).trim();
+        return revision.getCompiledDocumentContent().render(tokenMap).trim();
     }
 
     public PublishRequest getSmsRequest() {
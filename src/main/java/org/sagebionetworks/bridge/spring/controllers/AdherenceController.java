@@ -6,6 +6,7 @@ import static org.sagebionetworks.bridge.AuthUtils.CANNOT_ACCESS_PARTICIPANTS;
 import static org.sagebionetworks.bridge.AuthUtils.CAN_ACCESS_ADHERENCE_DATA;
 import static org.sagebionetworks.bridge.AuthUtils.CAN_READ_PARTICIPANT_REPORTS;
 import static org.sagebionetworks.bridge.AuthUtils.CAN_READ_STUDIES;
+import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.Roles.DEVELOPER;
 import static org.sagebionetworks.bridge.Roles.RESEARCHER;
 import static org.sagebionetworks.bridge.Roles.STUDY_COORDINATOR;
@@ -13,6 +14,9 @@ import static org.sagebionetworks.bridge.Roles.STUDY_DESIGNER;
 import static org.sagebionetworks.bridge.Roles.WORKER;
 import static org.sagebionetworks.bridge.models.AccountTestFilter.TEST;
 
+import java.util.List;
+
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.joda.time.DateTime;
 
 import org.sagebionetworks.bridge.models.schedules2.adherence.AdherencePostProcessingAttributes;
@@ -26,9 +30,11 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.AdherenceReportSearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
+import org.sagebionetworks.bridge.models.ResourceList;
 import org.sagebionetworks.bridge.models.StatusMessage;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
@@ -125,6 +131,21 @@ public class AdherenceController extends BaseController {
         return service.getWeeklyAdherenceReportForWorker(appId, studyId, account);
     }
     
+    @PostMapping("/v1/apps/{appId}/studies/{studyId}/adherence/weekly")
+    public ResourceList<WeeklyAdherenceReport> getWeeklyAdherenceReportsForWorker(@PathVariable String appId,
+            @PathVariable String studyId) {
+        getAuthenticatedSession(WORKER);
+        
+        List<String> userIds = parseJson(new TypeReference<List<String>>() {});
+        if (userIds.size() > API_MAXIMUM_PAGE_SIZE) {
+            throw new BadRequestException("Cannot generate reports for more than " + API_MAXIMUM_PAGE_SIZE
+                    + " participants at a time");
+        }
+        List<Account> accounts = accountService.getAccounts(appId, userIds);
+        
+        return new ResourceList<>(service.getWeeklyAdherenceReportsForWorker(appId, studyId, accounts));
+    }
+    
     @PostMapping("/v5/studies/{studyId}/adherence/weekly")    
     public PagedResourceList<WeeklyAdherenceReport> getWeeklyAdherenceReports(@PathVariable String studyId) {
         UserSession session = getAuthenticatedSession(DEVELOPER, RESEARCHER, STUDY_DESIGNER, STUDY_COORDINATOR);
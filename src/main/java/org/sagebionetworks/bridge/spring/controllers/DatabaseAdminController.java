@@ -0,0 +1,34 @@
+package org.sagebionetworks.bridge.spring.controllers;
+
+import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import org.sagebionetworks.bridge.hibernate.ReadReplicaRouter;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/v3/database")
+public class DatabaseAdminController extends BaseController {
+    
+    private ReadReplicaRouter readReplicaRouter;
+
+    @Autowired
+    final void setReadReplicaRouter(ReadReplicaRouter readReplicaRouter) {
+        this.readReplicaRouter = readReplicaRouter;
+    }
+    
+    /** Connection pool checkouts, wait times, and read replica lag for the node serving this request. */
+    @GetMapping("/stats")
+    public Map<String, Map<String, Long>> getDatabaseStats() {
+        getAuthenticatedSession(SUPERADMIN);
+        
+        return readReplicaRouter.getStats();
+    }
+}
@@ -55,8 +55,8 @@ public class ExternalIdControllerV4 extends BaseController {
     
     @GetMapping("/v5/studies/{studyId}/externalids")
     public PagedResourceList<ExternalIdentifierInfo> getExternalIdentifiersForStudy(@PathVariable String studyId,
-            @RequestParam(required = false) String offsetBy, @RequestParam(required = false) String pageSize,
-            @RequestParam(required = false) String idFilter) {
+            @RequestParam(required = false) String offsetBy, @RequestParam(required = false) String offsetKey,
+            @RequestParam(required = false) String pageSize, @RequestParam(required = false) String idFilter) {
         UserSession session = getAdministrativeSession();
 
         CAN_READ_EXTERNAL_IDS.checkAndThrow(STUDY_ID, studyId);
@@ -64,7 +64,8 @@ public class ExternalIdControllerV4 extends BaseController {
         int offsetByInt = BridgeUtils.getIntOrDefault(offsetBy, 0);
         int pageSizeInt = getIntOrDefault(pageSize, API_DEFAULT_PAGE_SIZE);
 
-        return externalIdService.getPagedExternalIds(session.getAppId(), studyId, idFilter, offsetByInt, pageSizeInt);
+        return externalIdService.getPagedExternalIds(session.getAppId(), studyId, idFilter, offsetByInt, offsetKey,
+                pageSizeInt);
     }
 
     @PostMapping("/v4/externalids")
@@ -60,6 +60,7 @@ import org.sagebionetworks.bridge.models.RequestInfo;
 import org.sagebionetworks.bridge.models.ResourceList;
 import org.sagebionetworks.bridge.models.StatusMessage;
 import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountDeletionJob;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.AccountSummary;
 import org.sagebionetworks.bridge.models.accounts.IdentifierHolder;
@@ -230,6 +231,35 @@ public class ParticipantController extends BaseController {
         return new StatusMessage("User deleted.");
     }
 
+    /**
+     * Deletes a test or unused participant in the background. The returned job can be polled for the progress of
+     * the deletion. Starting the deletion again re-runs a deletion that failed.
+     */
+    @PostMapping("/v3/participants/{userId}/deletionJob")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public AccountDeletionJob startTestOrUnusedParticipantDeletion(@PathVariable String userId) {
+        UserSession session = getAdministrativeSession();
+        
+        AccountId accountId = BridgeUtils.parseAccountId(session.getAppId(), userId);
+        Account account = accountService.getAccount(accountId)
+                .orElseThrow(() -> new EntityNotFoundException(Account.class));
+        
+        if (!participantEligibleForDeletion(requestInfoService, account)) {
+            throw new UnauthorizedException(CANNOT_DELETE_ACCOUNT_ERROR);
+        }
+        return accountService.startAccountDeletion(AccountId.forId(session.getAppId(), account.getId()));
+    }
+    
+    @GetMapping("/v3/participants/{userId}/deletionJob")
+    public AccountDeletionJob getParticipantDeletionJob(@PathVariable String userId) {
+        UserSession session = getAdministrativeSession();
+        
+        // The account may already be gone, so the job is looked up by the account's ID.
+        AccountId accountId = BridgeUtils.parseAccountId(session.getAppId(), userId);
+        String accountUserId = accountService.getAccount(accountId).map(Account::getId).orElse(userId);
+        return accountService.getAccountDeletionJob(session.getAppId(), accountUserId);
+    }
+
     @GetMapping(path = { "/v1/apps/{appId}/participants/{userId}/activityEvents",
             "/v3/studies/{appId}/participants/{userId}/activityEvents",
             "/v1/apps/{appId}/participants/{userId}/activityevents",
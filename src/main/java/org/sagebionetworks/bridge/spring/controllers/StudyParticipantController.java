@@ -18,7 +18,6 @@ import static org.sagebionetworks.bridge.cache.CacheKey.scheduleModificationTime
 import static org.sagebionetworks.bridge.models.RequestInfo.REQUEST_INFO_WRITER;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.TIMELINE_RETRIEVED;
 import static org.sagebionetworks.bridge.models.reports.ReportType.PARTICIPANT;
-import static org.sagebionetworks.bridge.models.schedules2.timelines.Scheduler.INSTANCE;
 import static org.sagebionetworks.bridge.models.sms.SmsType.PROMOTIONAL;
 import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.OK;
@@ -204,7 +203,7 @@ public class StudyParticipantController extends BaseController {
                 .withObjectType(TIMELINE_RETRIEVED)
                 .withTimestamp(timelineRequestedOn).build(), false, true);
 
-        return new ResponseEntity<>(INSTANCE.calculateTimeline(schedule), OK);
+        return new ResponseEntity<>(scheduleService.getTimeline(schedule), OK);
     }
     
     private DateTime modifiedSinceHeader() {
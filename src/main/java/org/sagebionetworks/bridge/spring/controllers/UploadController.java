@@ -9,7 +9,9 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 import java.io.IOException;
 import java.util.EnumSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.collect.ImmutableSet;
@@ -21,9 +23,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.dao.HealthCodeDao;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.models.Metrics;
@@ -41,6 +45,7 @@ import org.sagebionetworks.bridge.models.upload.UploadView;
 import org.sagebionetworks.bridge.models.upload.UploadViewEx3;
 import org.sagebionetworks.bridge.services.HealthDataService;
 import org.sagebionetworks.bridge.services.UploadService;
+import org.sagebionetworks.bridge.services.UploadValidationService;
 import org.sagebionetworks.bridge.time.DateUtils;
 
 @CrossOrigin
@@ -53,8 +58,14 @@ public class UploadController extends BaseController {
     
     private HealthCodeDao healthCodeDao;
 
+    private UploadValidationService uploadValidationService;
+
     static final StatusMessage REDRIVE_COMPLETE_MSG = new StatusMessage("Upload redrive completed.");
 
+    // Extra time the deferred upload complete call waits past the upload service's own timeout, so the service
+    // normally reports the timeout and this is only a backstop.
+    static final long DEFERRED_TIMEOUT_MARGIN_MILLIS = 5000;
+
     @Autowired
     final void setUploadService(UploadService uploadService) {
         this.uploadService = uploadService;
@@ -69,6 +80,11 @@ public class UploadController extends BaseController {
     final void setHealthCodeDao(HealthCodeDao healthCodeDao) {
         this.healthCodeDao = healthCodeDao;
     }
+
+    @Autowired
+    final void setUploadValidationService(UploadValidationService uploadValidationService) {
+        this.uploadValidationService = uploadValidationService;
+    }
     
     /** Gets validation status and messages for the given upload ID. 
      * @throws JsonProcessingException */
@@ -117,7 +133,7 @@ public class UploadController extends BaseController {
      * <p>
      * If synchronous is set to "true", we will wait until upload validation is complete, then return the upload
      * validation status. This is generally recommended only for App Development, as some large uploads might take
-     * several seconds to complete.
+     * several seconds to complete. This holds a server thread while it waits; uploadCompleteDeferred() doesn't.
      * </p>
      * <p>
      * If synchronous is set to anything else, we will return a validation status immediately (which will often be in
@@ -132,6 +148,60 @@ public class UploadController extends BaseController {
     public String uploadComplete(@PathVariable String uploadId,
             @RequestParam(defaultValue = "false") boolean synchronous,
             @RequestParam(defaultValue = "false") boolean redrive) throws Exception {
+        completeUpload(uploadId, redrive);
+
+        // In async mode, we get the validation status (probably in validation_in_progress) and return immediately.
+        // In sync mode, we wait until the validation status is complete (or failed or another non-transient status).
+        UploadValidationStatus validationStatus;
+        if (synchronous) {
+            validationStatus = uploadService.pollUploadValidationStatusUntilComplete(uploadId);
+        } else {
+            validationStatus = uploadService.getUploadValidationStatus(uploadId);
+        }
+
+        // Upload validation status may contain the health data record. Use the filter to filter out health code.
+        return HealthDataRecord.PUBLIC_RECORD_WRITER.writeValueAsString(validationStatus);
+    }
+
+    /**
+     * <p>
+     * Same as calling uploadComplete() with synchronous set to "true", except that the request doesn't hold a server
+     * thread while upload validation runs. The response is sent when validation is complete, or fails with a 500 if
+     * it takes longer than the upload service's polling timeout.
+     * </p>
+     * <p>
+     * If redrive is set to "true", then we allow upload validation of uploads that are already complete.
+     * </p>
+     */
+    @PostMapping(path="/v3/uploads/{uploadId}/complete/synchronous", produces={APPLICATION_JSON_VALUE})
+    public DeferredResult<String> uploadCompleteDeferred(@PathVariable String uploadId,
+            @RequestParam(defaultValue = "false") boolean redrive) throws Exception {
+        completeUpload(uploadId, redrive);
+
+        long timeoutMillis = uploadService.getPollValidationStatusMaxIterations() *
+                uploadService.getPollValidationStatusSleepMillis() + DEFERRED_TIMEOUT_MARGIN_MILLIS;
+        DeferredResult<String> result = new DeferredResult<>(timeoutMillis);
+        result.onTimeout(() -> result.setErrorResult(new BridgeServiceException(
+                "Timeout waiting for validation status for upload " + uploadId)));
+        uploadService.waitForUploadValidationStatus(uploadId).whenComplete((validationStatus, ex) -> {
+            if (ex != null) {
+                result.setErrorResult(ex instanceof CompletionException ? ex.getCause() : ex);
+                return;
+            }
+            try {
+                // Upload validation status may contain the health data record. Use the filter to filter out health
+                // code.
+                result.setResult(HealthDataRecord.PUBLIC_RECORD_WRITER.writeValueAsString(validationStatus));
+            } catch (JsonProcessingException jsonEx) {
+                result.setErrorResult(jsonEx);
+            }
+        });
+        return result;
+    }
+
+    // Marks the upload as complete and kicks off upload validation, after checking that the caller can complete the
+    // upload.
+    private void completeUpload(String uploadId, boolean redrive) throws JsonProcessingException {
         final Metrics metrics = getMetrics();
         if (metrics != null) {
             metrics.setUploadId(uploadId);
@@ -160,18 +230,6 @@ public class UploadController extends BaseController {
             uploadCompletionClient = UploadCompletionClient.APP;
         }
         uploadService.uploadComplete(appId, uploadCompletionClient, upload, redrive);
-
-        // In async mode, we get the validation status (probably in validation_in_progress) and return immediately.
-        // In sync mode, we poll until the validation status is complete (or failed or another non-transient status).
-        UploadValidationStatus validationStatus;
-        if (synchronous) {
-            validationStatus = uploadService.pollUploadValidationStatusUntilComplete(uploadId);
-        } else {
-            validationStatus = uploadService.getUploadValidationStatus(uploadId);
-        }
-
-        // Upload validation status may contain the health data record. Use the filter to filter out health code.
-        return HealthDataRecord.PUBLIC_RECORD_WRITER.writeValueAsString(validationStatus);
     }
 
     @PostMapping("/v3/uploads/redrive")
@@ -184,6 +242,14 @@ public class UploadController extends BaseController {
         return REDRIVE_COMPLETE_MSG;
     }
     
+    /** Upload validation queue, per-handler, and worker request metrics for the node serving this request. */
+    @GetMapping("/v3/uploads/validation/stats")
+    public Map<String, Map<String, Long>> getUploadValidationStats() {
+        getAuthenticatedSession(SUPERADMIN);
+
+        return uploadValidationService.getValidationStats();
+    }
+
     @GetMapping("/v3/uploads/{uploadId}")
     public UploadView getUpload(@PathVariable String uploadId) {
         UserSession session = getAuthenticatedSession(DEVELOPER, WORKER);
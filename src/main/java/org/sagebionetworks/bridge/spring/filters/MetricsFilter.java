@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -35,6 +36,10 @@ public class MetricsFilter implements Filter {
     private static final Logger LOG = LoggerFactory.getLogger(MetricsFilter.class);
     
     public static final String X_PASSTHROUGH = "X-Passthrough";
+    
+    // The metrics of a request that started async processing (a controller that returns a DeferredResult), so they
+    // can be finished when the result is dispatched back through this filter.
+    static final String METRICS_ATTRIBUTE = MetricsFilter.class.getName() + ".metrics";
 
     // Allow-list for query parameters metrics logging.
     private static final List<String> ALLOW_LIST =
@@ -43,10 +48,41 @@ public class MetricsFilter implements Filter {
     @Override
     public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
             throws IOException, ServletException {
-        final Metrics metrics = RequestContext.get().getMetrics();
-        
         HttpServletRequest request = (HttpServletRequest)req;
         HttpServletResponse response = (HttpServletResponse)res;
+        
+        // The request context isn't available on an async dispatch, which runs on another thread.
+        final Metrics metrics;
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            metrics = (Metrics)request.getAttribute(METRICS_ATTRIBUTE);
+        } else {
+            metrics = RequestContext.get().getMetrics();
+            initMetrics(metrics, request);
+            request.setAttribute(METRICS_ATTRIBUTE, metrics);
+        }
+
+        try {
+            chain.doFilter(req, res);
+            metrics.setStatus(response.getStatus());
+        } finally {
+            // If async processing started, the response hasn't been written yet. The metrics are finished on
+            // the async dispatch that writes it.
+            if (!request.isAsyncStarted()) {
+                // Log session info when a session is present
+                UserSession session = (UserSession) request.getAttribute("CreatedUserSession");
+                if (session != null) {
+                    // Record UserSession to Metrics.
+                    writeSessionInfoToMetrics(metrics, session);
+                }
+                if (response.getHeader(X_PASSTHROUGH) == null) {
+                    metrics.end();
+                    LOG.info(metrics.toJsonString());
+                }
+            }
+        }
+    }
+    
+    private void initMetrics(Metrics metrics, HttpServletRequest request) {
         metrics.setMethod(request.getMethod());
         metrics.setUri(request.getServletPath());
         metrics.setProtocol(request.getProtocol());
@@ -61,22 +97,6 @@ public class MetricsFilter implements Filter {
                 .forEach(i -> paramsMap.put(i.getName(), i.getValue()));
 
         metrics.setQueryParams(paramsMap);
-
-        try {
-            chain.doFilter(req, res);
-            metrics.setStatus(response.getStatus());
-        } finally {
-            // Log session info when a session is present
-            UserSession session = (UserSession) request.getAttribute("CreatedUserSession");
-            if (session != null) {
-                // Record UserSession to Metrics.
-                writeSessionInfoToMetrics(metrics, session);
-            }
-            if (response.getHeader(X_PASSTHROUGH) == null) {
-                metrics.end();
-                LOG.info(metrics.toJsonString());
-            }
-        }
     }
 
     private String header(HttpServletRequest request, String name, String defaultVal) {
@@ -6,6 +6,10 @@ import static org.sagebionetworks.bridge.BridgeConstants.SESSION_TOKEN_HEADER;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -30,6 +34,8 @@ import org.springframework.util.ObjectUtils;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.net.HttpHeaders;
 
 /**
@@ -40,6 +46,10 @@ import com.google.common.net.HttpHeaders;
  * etag). This means that anywhere the entity described by a @EtagCacheKey is created, updated, 
  * or deleted, its associated CacheKey.etag must be added, updated, or removed with a 
  * Joda DateTime value. 
+ * 
+ * All of the timestamps for an endpoint are retrieved from Redis in one call. Counts of requests,
+ * conditional requests, and 304 responses are kept for each endpoint, to measure how effective
+ * etags are for that endpoint.
  */
 @Aspect
 @Component
@@ -52,12 +62,15 @@ public class EtagComponent {
     private static final String ORG_ID_FIELD = "orgId";
     private static final String USER_ID_FIELD = "userId";
     private static final String APP_ID_FIELD = "appId";
+    private static final String UNKNOWN_ENDPOINT = "unknown";
     
     @Autowired
     private CacheProvider cacheProvider;
     @Autowired
     private DigestUtils md5DigestUtils;
     
+    private final ConcurrentMap<String, EndpointCounts> endpointCounts = new ConcurrentHashMap<>();
+    
     protected HttpServletRequest request() {
         return ((ServletRequestAttributes) RequestContextHolder
                 .currentRequestAttributes()).getRequest();
@@ -81,6 +94,9 @@ public class EtagComponent {
         String requestEtag = request.getHeader(IF_NONE_MATCH);
         String sessionToken = request.getHeader(SESSION_TOKEN_HEADER);
         
+        EndpointCounts counts = getEndpointCounts(context);
+        counts.requests.increment();
+        
         // Because this tag executes before security checks, it requires that the caller be 
         // authenticated. We can add a flag if we want to use this code on public endpoints 
         // to skip a check of the session.
@@ -100,7 +116,9 @@ public class EtagComponent {
         String etag = calculateEtag(context, session, true);
         
         if (requestEtag != null) {
+            counts.conditionalRequests.increment();
             if (requestEtag.equals(etag)) {
+                counts.notModified.increment();
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Returning 304 for etag: " + etag);
                 }
@@ -136,8 +154,8 @@ public class EtagComponent {
     }
 
     private String calculateEtag(EtagContext context, UserSession session, boolean invalidateCache) {
-        // Collect timestamps for all the dependencies that determine freshness of etag
-        List<DateTime> timestamps = new ArrayList<>();
+        // Collect keys for all the dependencies that determine freshness of etag
+        List<CacheKey> cacheKeys = new ArrayList<>();
         for (EtagCacheKey cacheKeyDef : context.getCacheKeys()) {
             int len = cacheKeyDef.keys().length;
             String[] resolvedKeyValues = new String[len];
@@ -156,9 +174,15 @@ public class EtagComponent {
             }
             
             LOG.debug("looking for cache key: " + cacheKey);
-            DateTime timestamp = cacheProvider.getObject(cacheKey, DateTime.class);
+            cacheKeys.add(cacheKey);
+        }
+        // Retrieve all the timestamps in one round trip
+        List<DateTime> cachedTimestamps = cacheProvider.getObjects(cacheKeys, DateTime.class);
+        List<DateTime> timestamps = new ArrayList<>(cacheKeys.size());
+        for (int i=0; i < cacheKeys.size(); i++) {
+            DateTime timestamp = cachedTimestamps.get(i);
             if (timestamp == null) {
-                LOG.debug("cache miss (cacheKey has no value: “" + cacheKey + "”)");
+                LOG.debug("cache miss (cacheKey has no value: “" + cacheKeys.get(i) + "”)");
                 return null; // this is a cache miss, any miss means there is no etag
             }
             timestamps.add(timestamp.withZone(DateTimeZone.UTC));
@@ -218,4 +242,31 @@ public class EtagComponent {
         }
         return value;
     }
+    
+    /**
+     * For each endpoint that supports etags, the number of requests, the number of conditional requests 
+     * (with an If-None-Match header), and the number of those that returned 304 Not Modified.
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = Maps.newTreeMap();
+        for (Map.Entry<String, EndpointCounts> entry : endpointCounts.entrySet()) {
+            EndpointCounts counts = entry.getValue();
+            stats.put(entry.getKey(), ImmutableMap.of("requests", counts.requests.sum(), 
+                    "conditionalRequests", counts.conditionalRequests.sum(),
+                    "notModified", counts.notModified.sum()));
+        }
+        return stats;
+    }
+    
+    private EndpointCounts getEndpointCounts(EtagContext context) {
+        String endpoint = context.getEndpoint();
+        return endpointCounts.computeIfAbsent((endpoint == null) ? UNKNOWN_ENDPOINT : endpoint, 
+                key -> new EndpointCounts());
+    }
+    
+    private static class EndpointCounts {
+        final LongAdder requests = new LongAdder();
+        final LongAdder conditionalRequests = new LongAdder();
+        final LongAdder notModified = new LongAdder();
+    }
 }
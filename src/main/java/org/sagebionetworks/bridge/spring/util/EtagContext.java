@@ -16,6 +16,7 @@ import org.aspectj.lang.reflect.MethodSignature;
 public class EtagContext {
     
     private final Class<?> model;
+    private final String endpoint;
     private final List<EtagCacheKey> cacheKeys;
     private final Map<String,Object> argumentValues;
     private final boolean authenticationRequired; 
@@ -23,6 +24,7 @@ public class EtagContext {
     public EtagContext(ProceedingJoinPoint joinPoint) {
         MethodSignature method = (MethodSignature)joinPoint.getSignature();
         model = method.getMethod().getReturnType();
+        endpoint = method.getDeclaringType().getSimpleName() + "." + method.getName();
         
         EtagSupport[] etag = method.getMethod().getAnnotationsByType(EtagSupport.class);
         cacheKeys = Arrays.asList(etag[0].value());
@@ -40,6 +42,10 @@ public class EtagContext {
     public Class<?> getModel() {
         return model;
     }
+    /** The controller and method name, e.g. "StudyController.getStudy", for reporting. */
+    public String getEndpoint() {
+        return endpoint;
+    }
     public List<EtagCacheKey> getCacheKeys() {
         return cacheKeys;
     }
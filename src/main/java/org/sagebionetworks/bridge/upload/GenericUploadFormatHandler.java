@@ -2,8 +2,6 @@ package org.sagebionetworks.bridge.upload;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.HashMap;
 import java.util.Map;
 import javax.annotation.Nonnull;
 
@@ -18,7 +16,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.file.FileHelper;
-import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.json.JsonUtils;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
@@ -126,7 +123,7 @@ public class GenericUploadFormatHandler implements UploadValidationHandler {
             // Get survey. We use the survey identifier as the schema ID and the schema revision. Both of these must be
             // specified.
             GuidCreatedOnVersionHolder surveyKeys = new GuidCreatedOnVersionHolderImpl(surveyGuid, surveyCreatedOnMillis);
-            Survey survey = surveyService.getSurvey(appId, surveyKeys, false, true);
+            Survey survey = surveyService.getCachedSurvey(appId, surveyKeys);
             String surveySchemaId = survey.getIdentifier();
             Integer surveySchemaRev = survey.getSchemaRevision();
             if (StringUtils.isBlank(surveySchemaId) || surveySchemaRev == null) {
@@ -136,7 +133,7 @@ public class GenericUploadFormatHandler implements UploadValidationHandler {
 
             // Get the schema with the schema ID and rev.
             // Note that if there's no schema, we treat this like schemaless.
-            return uploadSchemaService.getUploadSchemaByIdAndRevNoThrow(appId, surveySchemaId, surveySchemaRev);
+            return uploadSchemaService.getCachedUploadSchemaByIdAndRevNoThrow(appId, surveySchemaId, surveySchemaRev);
         }
 
         // Fall back to getting by schema.
@@ -148,7 +145,7 @@ public class GenericUploadFormatHandler implements UploadValidationHandler {
         }
         if (StringUtils.isNotBlank(schemaId)) {
             // Note that if there's no schema, we treat this like schemaless.
-            return uploadSchemaService.getUploadSchemaByIdAndRevNoThrow(appId, schemaId, schemaRev);
+            return uploadSchemaService.getCachedUploadSchemaByIdAndRevNoThrow(appId, schemaId, schemaRev);
         } else {
             // Schemaless.
             return null;
@@ -190,6 +187,8 @@ public class GenericUploadFormatHandler implements UploadValidationHandler {
             Map<String, File> unzippedDataFileMap, UploadSchema schema, ObjectNode dataMap)
             throws UploadValidationException {
         String uploadId = context.getUploadId();
+        ParsedJsonFileCache parsedJsonFileCache = context.getParsedJsonFileCache();
+        parsedJsonFileCache.setSchema(schema);
 
         JsonNode dataFileNode = NullNode.instance;
         if (StringUtils.isNotBlank(dataFilename) && unzippedDataFileMap.containsKey(dataFilename)) {
@@ -201,8 +200,8 @@ public class GenericUploadFormatHandler implements UploadValidationHandler {
                 LOG.warn("Upload data file exceeds max size, uploadId=" + uploadId + ", filename=" + dataFilename +
                         ", fileSize=" + dataFileSize + " bytes");
             } else {
-                try (InputStream dataFileInputStream = fileHelper.getInputStream(dataFile)) {
-                    dataFileNode = BridgeObjectMapper.get().readTree(dataFileInputStream);
+                try {
+                    dataFileNode = parsedJsonFileCache.parse(fileHelper, dataFile);
                 } catch (IOException ex) {
                     throw new UploadValidationException("Error parsing upload data file, uploadId=" + uploadId +
                             ", fileName=" + dataFilename, ex);
@@ -211,7 +210,6 @@ public class GenericUploadFormatHandler implements UploadValidationHandler {
         }
 
         Map<String, File> sanitizedUnzippedDataFileMap = UploadUtil.sanitizeFieldNames(unzippedDataFileMap);
-        Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache = new HashMap<>();
 
         // Using schema, copy fields over to data map. Or if it's an attachment, add it to the attachment map.
         for (UploadFieldDefinition oneFieldDef : schema.getFieldDefinitions()) {
@@ -230,7 +228,7 @@ public class GenericUploadFormatHandler implements UploadValidationHandler {
                 }
             } else {
                 fieldNode = uploadFileHelper.findValueForField(uploadId, sanitizedUnzippedDataFileMap, oneFieldDef,
-                        parsedSanitizedJsonFileCache);
+                        parsedJsonFileCache);
             }
 
             if (fieldNode != null && !fieldNode.isNull()) {
@@ -2,7 +2,6 @@ package org.sagebionetworks.bridge.upload;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Map;
 import javax.annotation.Nonnull;
 
@@ -72,7 +71,7 @@ public class InitRecordHandler implements UploadValidationHandler {
 
         // Transcribe data from info.json. appVersion and phoneInfo are top-level attributes. For backwards
         // compatibility, metadata is info.json verbatim.
-        JsonNode infoJson = parseFileAsJson(unzippedDataFileMap, UploadUtil.FILENAME_INFO_JSON);
+        JsonNode infoJson = parseFileAsJson(context, unzippedDataFileMap, UploadUtil.FILENAME_INFO_JSON);
         if (infoJson == null) {
             throw new UploadValidationException("upload ID " + uploadId + " does not contain info.json file");
         }
@@ -86,7 +85,8 @@ public class InitRecordHandler implements UploadValidationHandler {
 
         // Copy metadata.json to record.userMetadata. (The names are due to an old feature conflicting with the name of
         // a new feature.) Lightly validate that metadata.json is a JSON object. BridgeEX will handle the rest.
-        JsonNode metadataJsonFromFile = parseFileAsJson(unzippedDataFileMap, UploadUtil.FILENAME_METADATA_JSON);
+        JsonNode metadataJsonFromFile = parseFileAsJson(context, unzippedDataFileMap,
+                UploadUtil.FILENAME_METADATA_JSON);
         JsonNode mergedMetadataJson = JsonUtils.mergeObjectNodes(metadataJsonFromFile, metadataJsonFromRequest);
         record.setUserMetadata(mergedMetadataJson);
     }
@@ -95,15 +95,15 @@ public class InitRecordHandler implements UploadValidationHandler {
     // guarantees that either the file exists, can be parsed as JSON, and is a JSON object, or else it returns null. It
     // will never return NullNode or a node of the incorrect type.
     // Package-scoped for unit tests.
-    JsonNode parseFileAsJson(Map<String, File> fileMap, String filename) {
+    JsonNode parseFileAsJson(UploadValidationContext context, Map<String, File> fileMap, String filename) {
         File file = fileMap.get(filename);
         if (file == null || !fileHelper.fileExists(file)) {
             return null;
         }
 
         JsonNode jsonNode;
-        try (InputStream fileInputStream = fileHelper.getInputStream(file)) {
-            jsonNode = BridgeObjectMapper.get().readTree(fileInputStream);
+        try {
+            jsonNode = context.getParsedJsonFileCache().parse(fileHelper, file);
         } catch (IOException ex) {
             return null;
         }
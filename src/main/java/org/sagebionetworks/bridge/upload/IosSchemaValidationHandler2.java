@@ -2,7 +2,6 @@ package org.sagebionetworks.bridge.upload;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -199,7 +198,7 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
         // Get survey. We use the survey identifier as the schema ID and the schema revision. Both of these must be
         // specified.
         GuidCreatedOnVersionHolder surveyKeys = new GuidCreatedOnVersionHolderImpl(surveyGuid, surveyCreatedOnMillis);
-        Survey survey = surveyService.getSurvey(appId, surveyKeys, false, true);
+        Survey survey = surveyService.getCachedSurvey(appId, surveyKeys);
         String schemaId = survey.getIdentifier();
         Integer schemaRev = survey.getSchemaRevision();
         if (StringUtils.isBlank(schemaId) || schemaRev == null) {
@@ -209,7 +208,7 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
 
         // Get the schema with the schema ID and rev.
         // Note that if there's no schema, we treat this like schemaless.
-        return uploadSchemaService.getUploadSchemaByIdAndRevNoThrow(appId, schemaId, schemaRev);
+        return uploadSchemaService.getCachedUploadSchemaByIdAndRevNoThrow(appId, schemaId, schemaRev);
     }
 
     private UploadSchema getUploadSchemaByItemAndRev(String appId, String item, Integer schemaRev) {
@@ -229,7 +228,7 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
 
         // get schema
         // Note that if there's no schema, we treat this like schemaless.
-        return uploadSchemaService.getUploadSchemaByIdAndRevNoThrow(appId, item, schemaRev);
+        return uploadSchemaService.getCachedUploadSchemaByIdAndRevNoThrow(appId, item, schemaRev);
     }
 
     private static void validateInfoJsonFileList(UploadValidationContext context, String uploadId,
@@ -349,8 +348,8 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
                 continue;
             }
             JsonNode oneAnswerNode;
-            try (InputStream fileInputStream = fileHelper.getInputStream(file)) {
-                oneAnswerNode = BridgeObjectMapper.get().readTree(fileInputStream);
+            try {
+                oneAnswerNode = context.getParsedJsonFileCache().parse(fileHelper, file);
             } catch (IOException ex) {
                 context.addMessage("Error parsing survey file, uploadId=" + uploadId + ", filename=" + filename);
                 continue;
@@ -426,7 +425,8 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
             Map<String, JsonNode> surveyAnswerMap, Map<String, File> unzippedDataFileMap, UploadSchema schema,
             ObjectNode dataMap) throws UploadValidationException {
         Map<String, File> sanitizedUnzippedDataFileMap = UploadUtil.sanitizeFieldNames(unzippedDataFileMap);
-        Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache = new HashMap<>();
+        ParsedJsonFileCache parsedJsonFileCache = context.getParsedJsonFileCache();
+        parsedJsonFileCache.setSchema(schema);
 
         // Using schema, copy fields over to data map. Or if it's an attachment, add it to the attachment map.
         for (UploadFieldDefinition oneFieldDef : schema.getFieldDefinitions()) {
@@ -446,7 +446,7 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
                 }
             } else {
                 fieldNode = uploadFileHelper.findValueForField(uploadId, sanitizedUnzippedDataFileMap, oneFieldDef,
-                        parsedSanitizedJsonFileCache);
+                        parsedJsonFileCache);
             }
 
             // Copy the field to the record.
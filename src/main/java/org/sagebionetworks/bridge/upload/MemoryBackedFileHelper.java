@@ -0,0 +1,70 @@
+package org.sagebionetworks.bridge.upload;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.sagebionetworks.bridge.file.FileHelper;
+
+/**
+ * A {@link FileHelper} that can also hold files in memory. The streaming upload pipeline keeps small unzipped entries
+ * here instead of writing them to the temp dir; handlers that read files through the file helper see no difference.
+ * In-memory files are discarded when their directory is deleted with {@link #deleteDirRecursively}.
+ */
+public class MemoryBackedFileHelper extends FileHelper {
+    private final ConcurrentMap<File, byte[]> memoryFileMap = new ConcurrentHashMap<>();
+
+    /** Stores the content of the given file in memory. Nothing is written to disk. */
+    public void putInMemory(File file, byte[] content) {
+        checkNotNull(file);
+        checkNotNull(content);
+        memoryFileMap.put(file, content);
+    }
+
+    /** True if the file is held in memory rather than on disk. */
+    public boolean isInMemory(File file) {
+        return memoryFileMap.containsKey(file);
+    }
+
+    /** The content of the file if it is held in memory, or null if it isn't. */
+    public byte[] getInMemoryContent(File file) {
+        return memoryFileMap.get(file);
+    }
+
+    @Override
+    public boolean fileExists(File file) {
+        return memoryFileMap.containsKey(file) || super.fileExists(file);
+    }
+
+    @Override
+    public long fileSize(File file) {
+        byte[] content = memoryFileMap.get(file);
+        if (content != null) {
+            return content.length;
+        }
+        return super.fileSize(file);
+    }
+
+    @Override
+    public InputStream getInputStream(File file) throws FileNotFoundException {
+        byte[] content = memoryFileMap.get(file);
+        if (content != null) {
+            return new ByteArrayInputStream(content);
+        }
+        return super.getInputStream(file);
+    }
+
+    @Override
+    public void deleteDirRecursively(File dir) throws IOException {
+        Path dirPath = dir.toPath();
+        memoryFileMap.keySet().removeIf(file -> file.toPath().startsWith(dirPath));
+        super.deleteDirRecursively(dir);
+    }
+}
@@ -0,0 +1,127 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.sagebionetworks.bridge.file.FileHelper;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.upload.UploadFieldDefinition;
+import org.sagebionetworks.bridge.models.upload.UploadSchema;
+import org.sagebionetworks.bridge.schema.SchemaUtils;
+
+/**
+ * <p>
+ * Per-upload cache of parsed JSON files, so that each unzipped file is parsed at most once, no matter how many
+ * handlers read it. This lives on the {@link UploadValidationContext}. Parse failures are cached too, so a file that
+ * isn't valid JSON is also only read once.
+ * </p>
+ * <p>
+ * Parsed nodes are shared between handlers, and callers must treat them as read-only.
+ * </p>
+ * <p>
+ * This class is not thread-safe. An upload is only ever validated by one thread at a time.
+ * </p>
+ */
+public class ParsedJsonFileCache {
+    private final Map<File, JsonNode> nodesByFile = new HashMap<>();
+    private final Map<File, IOException> errorsByFile = new HashMap<>();
+    private final Map<String, Map<String, JsonNode>> sanitizedFieldsByFilename = new HashMap<>();
+    private Set<String> schemaFieldNames;
+
+    /**
+     * Parses the given file as JSON, or returns the cached node if it has already been parsed. If the file has failed
+     * to parse before, this throws the same exception again.
+     */
+    public JsonNode parse(FileHelper fileHelper, File file) throws IOException {
+        IOException cachedError = errorsByFile.get(file);
+        if (cachedError != null) {
+            throw cachedError;
+        }
+        if (nodesByFile.containsKey(file)) {
+            return nodesByFile.get(file);
+        }
+
+        JsonNode node;
+        try (InputStream fileInputStream = fileHelper.getInputStream(file)) {
+            node = BridgeObjectMapper.get().readTree(fileInputStream);
+        } catch (IOException ex) {
+            errorsByFile.put(file, ex);
+            throw ex;
+        }
+        nodesByFile.put(file, node);
+        return node;
+    }
+
+    /** True if the given file has already been parsed into a full JSON tree. */
+    public boolean isParsed(File file) {
+        return nodesByFile.containsKey(file);
+    }
+
+    /**
+     * Top-level fields of the given file, keyed by sanitized key name, or null if they haven't been cached yet. See
+     * {@link UploadFileHelper#findValueForField}.
+     */
+    public Map<String, JsonNode> getSanitizedTopLevelFields(String sanitizedFilename) {
+        return sanitizedFieldsByFilename.get(sanitizedFilename);
+    }
+
+    /** @see #getSanitizedTopLevelFields */
+    public void putSanitizedTopLevelFields(String sanitizedFilename, Map<String, JsonNode> sanitizedFields) {
+        sanitizedFieldsByFilename.put(sanitizedFilename, sanitizedFields);
+    }
+
+    /**
+     * Names of the fields in the schema this upload is being validated against, or null if that isn't known. When this
+     * is set, large files can be streamed to pick out just the fields the schema needs, instead of parsing the whole
+     * file into memory.
+     */
+    public Set<String> getSchemaFieldNames() {
+        return schemaFieldNames;
+    }
+
+    /** Sets the schema field names from the schema this upload is being validated against. */
+    public void setSchema(UploadSchema schema) {
+        Set<String> fieldNames = new HashSet<>();
+        for (UploadFieldDefinition fieldDef : schema.getFieldDefinitions()) {
+            fieldNames.add(fieldDef.getName());
+        }
+        this.schemaFieldNames = fieldNames;
+    }
+
+    /**
+     * Streams the given JSON file and returns only the top-level fields whose sanitized names are in the given set of
+     * keys, without building a tree for the rest of the file. If the file isn't a JSON object, this returns an empty
+     * map. If a key appears more than once after sanitization, the last one wins.
+     */
+    static Map<String, JsonNode> streamSanitizedTopLevelFields(FileHelper fileHelper, File file,
+            Set<String> sanitizedKeys) throws IOException {
+        ObjectMapper mapper = BridgeObjectMapper.get();
+        Map<String, JsonNode> sanitizedFieldMap = new HashMap<>();
+        try (InputStream fileInputStream = fileHelper.getInputStream(file);
+                JsonParser parser = mapper.getFactory().createParser(fileInputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return sanitizedFieldMap;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String sanitizedKey = SchemaUtils.sanitizeFieldName(parser.getCurrentName());
+                parser.nextToken();
+                if (sanitizedKeys.contains(sanitizedKey)) {
+                    sanitizedFieldMap.put(sanitizedKey, mapper.readTree(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return sanitizedFieldMap;
+    }
+}
@@ -0,0 +1,246 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.cert.CertificateEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Resource;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.io.ByteStreams;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.input.TeeInputStream;
+import org.bouncycastle.cms.CMSException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.config.BridgeConfigFactory;
+import org.sagebionetworks.bridge.crypto.WrongEncryptionKeyException;
+import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.services.UploadArchiveService;
+
+/**
+ * Validation handler that downloads, decrypts, and unzips the upload in a single pass. This replaces
+ * {@link S3DownloadHandler}, {@link DecryptHandler}, and {@link UnzipHandler}, and writes the same
+ * {@link UploadValidationContext#setDecryptedDataFile decrypted data file} and
+ * {@link UploadValidationContext#setUnzippedDataFileMap unzipped data file map}.
+ *
+ * The S3 object stream is decrypted and unzipped as it arrives, so the encrypted copy of the upload is never written
+ * to disk. Unzipped entries are held in memory by the {@link MemoryBackedFileHelper} unless they grow past the spill
+ * threshold, or the upload has already used up its memory budget, in which case they are written to the temp dir.
+ * The decrypted archive is still written to disk, because {@link UploadRawZipHandler} uploads it as is.
+ *
+ * If the upload was encrypted with the wrong key, this falls back to the file-based handlers, which know how to
+ * retry with another app's key.
+ */
+@Component
+public class StreamingUnpackHandler implements UploadValidationHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingUnpackHandler.class);
+
+    private static final String UPLOAD_BUCKET = BridgeConfigFactory.getConfig().getProperty("upload.bucket");
+
+    static final String CONFIG_KEY_SPILL_THRESHOLD_BYTES = "upload.validation.streaming.spill.threshold.bytes";
+    static final String CONFIG_KEY_MEMORY_BUDGET_BYTES = "upload.validation.streaming.memory.budget.bytes";
+
+    private MemoryBackedFileHelper fileHelper;
+    private AmazonS3 s3Client;
+    private UploadArchiveService uploadArchiveService;
+    private S3DownloadHandler s3DownloadHandler;
+    private DecryptHandler decryptHandler;
+    private UnzipHandler unzipHandler;
+    private int spillThresholdBytes;
+    private long memoryBudgetBytes;
+
+    /** Bridge config, used to get the spill threshold and the per-upload memory budget. */
+    @Autowired
+    public final void setBridgeConfig(BridgeConfig config) {
+        setSpillThresholdBytes(config.getPropertyAsInt(CONFIG_KEY_SPILL_THRESHOLD_BYTES));
+        setMemoryBudgetBytes(config.getPropertyAsInt(CONFIG_KEY_MEMORY_BUDGET_BYTES));
+    }
+
+    /** Entries larger than this are written to disk. Separate setter so that tests can change this value. */
+    public final void setSpillThresholdBytes(int spillThresholdBytes) {
+        this.spillThresholdBytes = spillThresholdBytes;
+    }
+
+    /**
+     * Total bytes of unzipped entries held in memory for a single upload. Once this is used up, the remaining entries
+     * are written to disk. Separate setter so that tests can change this value.
+     */
+    public final void setMemoryBudgetBytes(long memoryBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /** File helper, used to hold unzipped entries in memory and to create the files that spill to disk. */
+    @Autowired
+    public final void setFileHelper(MemoryBackedFileHelper fileHelper) {
+        this.fileHelper = fileHelper;
+    }
+
+    /** S3 client, used to stream the upload from S3. This is configured by Spring. */
+    @Resource(name = "s3Client")
+    public final void setS3Client(AmazonS3 s3Client) {
+        this.s3Client = s3Client;
+    }
+
+    /** Upload archive service, which handles decrypting and unzipping of files. This is configured by Spring. */
+    @Autowired
+    public final void setUploadArchiveService(UploadArchiveService uploadArchiveService) {
+        this.uploadArchiveService = uploadArchiveService;
+    }
+
+    /** Fallback handler, used if the upload can't be decrypted with the app's key. */
+    @Autowired
+    public final void setS3DownloadHandler(S3DownloadHandler s3DownloadHandler) {
+        this.s3DownloadHandler = s3DownloadHandler;
+    }
+
+    /** Fallback handler, used if the upload can't be decrypted with the app's key. */
+    @Autowired
+    public final void setDecryptHandler(DecryptHandler decryptHandler) {
+        this.decryptHandler = decryptHandler;
+    }
+
+    /** Fallback handler, used if the upload can't be decrypted with the app's key. */
+    @Autowired
+    public final void setUnzipHandler(UnzipHandler unzipHandler) {
+        this.unzipHandler = unzipHandler;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handle(@Nonnull UploadValidationContext context) throws UploadValidationException {
+        Upload upload = context.getUpload();
+
+        // Temp file name in the form "[uploadId].zip", same as DecryptHandler.
+        File decryptedFile = fileHelper.newFile(context.getTempDir(), context.getUploadId() + ".zip");
+        Map<String, File> unzippedDataFileMap = new HashMap<>();
+        AtomicLong memoryRemaining = new AtomicLong(memoryBudgetBytes);
+
+        try (S3Object s3Object = s3Client.getObject(UPLOAD_BUCKET, upload.getObjectId());
+                InputStream s3Stream = new BufferedInputStream(s3Object.getObjectContent());
+                InputStream decryptedStream = upload.isEncrypted() ?
+                        uploadArchiveService.decrypt(context.getAppId(), s3Stream) : s3Stream;
+                OutputStream decryptedFileStream = new BufferedOutputStream(
+                        fileHelper.getOutputStream(decryptedFile));
+                InputStream teeStream = new TeeInputStream(decryptedStream, decryptedFileStream)) {
+            if (upload.isZipped()) {
+                // ZipInputStream closes its source, but we still need to read the rest of the archive afterwards.
+                uploadArchiveService.unzip(new CloseShieldInputStream(teeStream),
+                        entryName -> {
+                            File unzippedFile = fileHelper.newFile(context.getTempDir(), entryName);
+                            unzippedDataFileMap.put(entryName, unzippedFile);
+                            long maxBytesInMemory = Math.min(spillThresholdBytes, memoryRemaining.get());
+                            return new SpillingOutputStream(fileHelper, unzippedFile, maxBytesInMemory);
+                        },
+                        (entryName, outputStream) -> {
+                            try {
+                                outputStream.close();
+                            } catch (IOException ex) {
+                                // BiConsumer doesn't throw, so wrap this in a RuntimeException.
+                                throw new RuntimeException(ex);
+                            }
+                            File unzippedFile = unzippedDataFileMap.get(entryName);
+                            if (fileHelper.isInMemory(unzippedFile)) {
+                                memoryRemaining.addAndGet(-fileHelper.fileSize(unzippedFile));
+                            }
+                        });
+            } else {
+                // Shortcut: If this isn't a zip file, then the decrypted data file is the only entry in our map.
+                unzippedDataFileMap.put(upload.getFilename(), decryptedFile);
+            }
+
+            // ZipInputStream stops at the last entry. Read the rest (the zip central directory) so that the decrypted
+            // file is the complete archive.
+            ByteStreams.exhaust(teeStream);
+        } catch (WrongEncryptionKeyException ex) {
+            LOG.info("Upload " + context.getUploadId() + " was not encrypted with app " + context.getAppId() +
+                    "'s key, falling back to file-based unpacking");
+            s3DownloadHandler.handle(context);
+            decryptHandler.handle(context);
+            unzipHandler.handle(context);
+            return;
+        } catch (CertificateEncodingException | CMSException | IOException ex) {
+            throw new UploadValidationException("Error unpacking upload: " + ex.getMessage(), ex);
+        }
+
+        context.setDecryptedDataFile(decryptedFile);
+        context.setUnzippedDataFileMap(unzippedDataFileMap);
+
+        long bytesInMemory = memoryBudgetBytes - memoryRemaining.get();
+        LOG.info("Unpacked upload " + context.getUploadId() + ": " + unzippedDataFileMap.size() + " entries, " +
+                bytesInMemory + " bytes held in memory");
+    }
+
+    /**
+     * Buffers an unzipped entry in memory. If it grows past maxBytesInMemory, the buffered bytes and everything after
+     * are written to the entry's file instead. On close, an entry that is still in memory is handed to the file
+     * helper.
+     */
+    static class SpillingOutputStream extends OutputStream {
+        private final MemoryBackedFileHelper fileHelper;
+        private final File file;
+        private final long maxBytesInMemory;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream fileStream;
+        private boolean closed;
+
+        SpillingOutputStream(MemoryBackedFileHelper fileHelper, File file, long maxBytesInMemory) {
+            this.fileHelper = fileHelper;
+            this.file = file;
+            this.maxBytesInMemory = maxBytesInMemory;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (fileStream == null && buffer.size() + len > maxBytesInMemory) {
+                fileStream = new BufferedOutputStream(fileHelper.getOutputStream(file));
+                buffer.writeTo(fileStream);
+                buffer = null;
+            }
+            if (fileStream != null) {
+                fileStream.write(b, off, len);
+            } else {
+                buffer.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (fileStream != null) {
+                fileStream.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (fileStream != null) {
+                fileStream.close();
+            } else {
+                fileHelper.putInMemory(file, buffer.toByteArray());
+                buffer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.sagebionetworks.bridge.upload;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.models.upload.UploadStatus;
+
+/**
+ * <p>
+ * In-process registry of callers waiting for upload validation to finish, so they can be woken up as soon as the
+ * validation status is written, instead of polling DynamoDB on a timer. {@link UploadValidationTask} signals the
+ * registry after it writes the validation status.
+ * </p>
+ * <p>
+ * Only uploads validated on this node are signalled. Callers should treat a wait that times out as "check again", not
+ * as a failure, since the upload may have been validated elsewhere. Signals that nobody is waiting on are dropped, and
+ * waits that are never signalled expire after {@link #EXPIRATION_MINUTES}.
+ * </p>
+ * <p>
+ * The registry's scheduler thread only runs the timeouts. Work that continues after a wait (like reading the upload
+ * status again) should run on {@link #getCallbackExecutor}, so that it doesn't hold up the other timeouts.
+ * </p>
+ */
+@Component
+public class UploadCompletionRegistry {
+    static final long EXPIRATION_MINUTES = 60;
+    static final int CALLBACK_THREAD_COUNT = 4;
+    static final int CALLBACK_QUEUE_CAPACITY = 1000;
+
+    private final Cache<String, CompletableFuture<UploadStatus>> signalsByUploadId = CacheBuilder.newBuilder()
+            .expireAfterWrite(EXPIRATION_MINUTES, TimeUnit.MINUTES).build();
+
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong signalled = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+    private ThreadPoolExecutor callbackExecutor;
+
+    @PostConstruct
+    public void start() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("upload-completion-%d").setDaemon(true).build());
+        // Waits are usually signalled long before they time out. Don't keep the cancelled timeouts around.
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+
+        // Bounded, so that a backlog of callers fails fast (the executor throws RejectedExecutionException) rather
+        // than piling up.
+        this.callbackExecutor = new ThreadPoolExecutor(CALLBACK_THREAD_COUNT, CALLBACK_THREAD_COUNT, 0L, MILLISECONDS,
+                new ArrayBlockingQueue<>(CALLBACK_QUEUE_CAPACITY), new ThreadFactoryBuilder()
+                        .setNameFormat("upload-completion-callback-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        callbackExecutor.shutdownNow();
+    }
+
+    /**
+     * Bounded thread pool for work that continues after a wait, for use with the async methods of
+     * CompletableFuture (for example, thenRunAsync()). If the pool is full, the continuation completes exceptionally
+     * with a RejectedExecutionException.
+     */
+    public Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
+    /**
+     * Returns a future that completes with the upload's status when validation for the upload finishes on this node,
+     * or with null if that doesn't happen within the given timeout. The future never completes exceptionally. Call
+     * this before reading the upload's status, so that a signal between the read and the wait isn't missed.
+     */
+    public CompletableFuture<UploadStatus> await(String uploadId, long timeoutMillis) {
+        checkNotNull(uploadId);
+
+        CompletableFuture<UploadStatus> signal;
+        try {
+            signal = signalsByUploadId.get(uploadId, CompletableFuture::new);
+        } catch (ExecutionException ex) {
+            // Can't happen. The loader is a constructor.
+            throw new IllegalStateException(ex);
+        }
+        waits.incrementAndGet();
+
+        // Each caller gets its own future, so that one caller timing out doesn't affect the others. Completion is
+        // handed off to the registry's thread, so that callers don't run on the upload validation thread. This only
+        // completes the future; callers continue on the callback executor.
+        CompletableFuture<UploadStatus> waiter = new CompletableFuture<>();
+        ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+            if (waiter.complete(null)) {
+                timedOut.incrementAndGet();
+            }
+        }, timeoutMillis, MILLISECONDS);
+        signal.thenAcceptAsync(status -> {
+            timeout.cancel(false);
+            waiter.complete(status);
+        }, scheduler);
+        return waiter;
+    }
+
+    /** Signals that validation for the given upload finished with the given status. */
+    public void complete(String uploadId, UploadStatus status) {
+        checkNotNull(uploadId);
+        checkNotNull(status);
+
+        CompletableFuture<UploadStatus> signal = signalsByUploadId.asMap().remove(uploadId);
+        if (signal != null) {
+            signalled.incrementAndGet();
+            signal.complete(status);
+        }
+    }
+
+    /** Uploads being waited on, and counts of waits, signals, and timeouts, for this node. */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = Maps.newTreeMap();
+        stats.put("uploadsAwaited", signalsByUploadId.size());
+        stats.put("waits", waits.get());
+        stats.put("signalled", signalled.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("callbacksWaiting", callbackExecutor == null ? 0L : (long) callbackExecutor.getQueue().size());
+        return stats;
+    }
+}
@@ -2,9 +2,10 @@ package org.sagebionetworks.bridge.upload;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
@@ -12,6 +13,7 @@ import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
@@ -21,7 +23,6 @@ import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.file.FileHelper;
-import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.upload.UploadFieldDefinition;
 import org.sagebionetworks.bridge.models.upload.UploadFieldType;
 import org.sagebionetworks.bridge.s3.S3Helper;
@@ -91,16 +92,15 @@ public class UploadFileHelper {
      *         map of upload files by name; the file names should be sanitized
      * @param fieldDef
      *         field definition to find the value for
-     * @param parsedSanitizedJsonFileCache
-     *         a cache of parsed sanitized JSON nodes, so that we don't have to parse and sanitize any JSON file more
-     *         than once; the caller should initially pass in an empty writable map and reuse the same map for
-     *         subsequent calls in a single upload
+     * @param parsedJsonFileCache
+     *         the upload's cache of parsed JSON files, so that we don't have to parse and sanitize any JSON file more
+     *         than once; this should be {@link UploadValidationContext#getParsedJsonFileCache}
      * @return the JSON node that matches field, or a TextNode with the attachment ID if it's an attachment
      * @throws UploadValidationException
      *         if parsing JSON files or uploading attachments fails
      */
     public JsonNode findValueForField(String uploadId, Map<String, File> sanitizedUnzippedDataFileMap,
-            UploadFieldDefinition fieldDef, Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache)
+            UploadFieldDefinition fieldDef, ParsedJsonFileCache parsedJsonFileCache)
             throws UploadValidationException {
         String fieldName = fieldDef.getName();
         boolean isAttachment = UploadFieldType.ATTACHMENT_TYPE_SET.contains(fieldDef.getType());
@@ -138,8 +138,8 @@ public class UploadFileHelper {
                     fieldNode = null;
                 } else {
                     // Parse field from file.
-                    try (InputStream fileInputStream = fileHelper.getInputStream(fieldFile)) {
-                        fieldNode = BridgeObjectMapper.get().readTree(fileInputStream);
+                    try {
+                        fieldNode = parsedJsonFileCache.parse(fileHelper, fieldFile);
                     } catch (IOException ex) {
                         throw new UploadValidationException("Error parsing field file, uploadId=" + uploadId +
                                 ", fieldName=" + fieldName, ex);
@@ -158,10 +158,9 @@ public class UploadFileHelper {
                     continue;
                 }
 
-                Map<String, JsonNode> sanitizedParsedJsonNodeMap;
-                if (parsedSanitizedJsonFileCache.containsKey(parsedFilename)) {
-                    sanitizedParsedJsonNodeMap = parsedSanitizedJsonFileCache.get(parsedFilename);
-                } else {
+                Map<String, JsonNode> sanitizedParsedJsonNodeMap = parsedJsonFileCache.getSanitizedTopLevelFields(
+                        parsedFilename);
+                if (sanitizedParsedJsonNodeMap == null) {
                     // We don't want to load large files into memory, for obvious reasons. Because of the way old
                     // apps are set up, we sometimes end up parsing very large files into Bridge anyway. For now,
                     // warn if the size is >5mb, and skip if the size >20mb.
@@ -171,31 +170,41 @@ public class UploadFileHelper {
                         LOG.warn("Parsed JSON file exceeds max size, uploadId=" + uploadId + ", filename=" +
                                 parsedFilename + ", fileSize=" + parsedFileSize + " bytes");
                         continue;
-                    } else if (parsedFileSize > parsedJsonWarningLimit) {
+                    }
+
+                    boolean isLargeFile = parsedFileSize > parsedJsonWarningLimit;
+                    if (isLargeFile) {
                         LOG.warn("Parsed JSON file exceeds warning threshold, uploadId=" + uploadId + ", filename=" +
                                 parsedFilename + ", fileSize=" + parsedFileSize + " bytes");
                     }
 
-                    // Parse file and get the top level key that matches.
-                    JsonNode parsedJsonNode;
-                    try (InputStream parsedFileInputStream = fileHelper.getInputStream(parsedFile)) {
-                        parsedJsonNode = BridgeObjectMapper.get().readTree(parsedFileInputStream);
+                    Set<String> schemaFieldNames = parsedJsonFileCache.getSchemaFieldNames();
+                    try {
+                        if (isLargeFile && schemaFieldNames != null && !parsedJsonFileCache.isParsed(parsedFile)) {
+                            // If we know the schema, stream the file and only keep the keys the schema asks for.
+                            sanitizedParsedJsonNodeMap = ParsedJsonFileCache.streamSanitizedTopLevelFields(
+                                    fileHelper, parsedFile, getKeyNamesForFile(parsedFilename, schemaFieldNames));
+                        } else {
+                            // Parse file and sanitize the top-level key names.
+                            JsonNode parsedJsonNode = parsedJsonFileCache.parse(fileHelper, parsedFile);
+                            Map<String, JsonNode> sanitizedFieldMap = new HashMap<>();
+                            parsedJsonNode.fields().forEachRemaining(
+                                    jsonEntry -> {
+                                        String sanitizedKey = SchemaUtils.sanitizeFieldName(jsonEntry.getKey());
+                                        sanitizedFieldMap.put(sanitizedKey, jsonEntry.getValue());
+                                    });
+                            sanitizedParsedJsonNodeMap = sanitizedFieldMap;
+                        }
                     } catch (IOException ex) {
-                        // Assume we have the wrong file. Log a warning and proceed.
+                        // Assume we have the wrong file. Log a warning and proceed. Cache an empty map so we don't
+                        // try to parse it again.
                         LOG.warn("Error parsing JSON file, uploadId=" + uploadId + ", fileName=" + parsedFilename);
+                        parsedJsonFileCache.putSanitizedTopLevelFields(parsedFilename, ImmutableMap.of());
                         continue;
                     }
 
-                    // Sanitize the top-level key names.
-                    sanitizedParsedJsonNodeMap = new HashMap<>();
-                    parsedJsonNode.fields().forEachRemaining(
-                            jsonEntry -> {
-                                String sanitizedKey = SchemaUtils.sanitizeFieldName(jsonEntry.getKey());
-                                sanitizedParsedJsonNodeMap.put(sanitizedKey, jsonEntry.getValue());
-                            });
-
                     // Add the parsed sanitized JSON to the cache, so we don't have to parse it again.
-                    parsedSanitizedJsonFileCache.put(parsedFilename, sanitizedParsedJsonNodeMap);
+                    parsedJsonFileCache.putSanitizedTopLevelFields(parsedFilename, sanitizedParsedJsonNodeMap);
                 }
 
                 // Determine the top-level key name and see if that key exists. Add one to the substring start
@@ -222,6 +231,19 @@ public class UploadFileHelper {
         return fieldNode;
     }
 
+    // Given a sanitized filename and the field names from a schema, returns the top-level key names that the schema
+    // wants from that file. Schema fields look like "[fileName].[keyName]".
+    private static Set<String> getKeyNamesForFile(String sanitizedFilename, Set<String> schemaFieldNames) {
+        String prefix = sanitizedFilename + '.';
+        Set<String> keyNameSet = new HashSet<>();
+        for (String oneFieldName : schemaFieldNames) {
+            if (oneFieldName.startsWith(prefix)) {
+                keyNameSet.add(oneFieldName.substring(prefix.length()));
+            }
+        }
+        return keyNameSet;
+    }
+
     /**
      * Uploads a JSON node as an upload attachment, then returns a JsonNode containing the attachment's filename in S3,
      * ready for use in a health data record.
@@ -256,6 +278,15 @@ public class UploadFileHelper {
 
     /** Upload a file to the attachment bucket and apply the correct metadata. */
     public void uploadFileAsAttachment(String filename, File file) throws IOException {
+        // Entries kept in memory by the streaming upload pipeline have nothing on disk to upload.
+        if (fileHelper instanceof MemoryBackedFileHelper) {
+            byte[] content = ((MemoryBackedFileHelper) fileHelper).getInMemoryContent(file);
+            if (content != null) {
+                uploadBytesAsAttachment(filename, content);
+                return;
+            }
+        }
+
         // Calculate MD5 (hex-encoded).
         byte[] md5 = md5DigestUtils.digest(file);
         String md5HexEncoded = Hex.encodeHexString(md5);
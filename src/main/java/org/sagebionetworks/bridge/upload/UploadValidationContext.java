@@ -25,6 +25,8 @@ public class UploadValidationContext {
     private JsonNode infoJsonNode;
     private HealthDataRecord healthDataRecord;
     private String recordId;
+    private UploadFormat uploadFormat;
+    private ParsedJsonFileCache parsedJsonFileCache = new ParsedJsonFileCache();
 
     /** Health code of the user contributing the health data. */
     public String getHealthCode() {
@@ -179,6 +181,27 @@ public class UploadValidationContext {
         this.recordId = recordId;
     }
 
+    /**
+     * Upload format, read from info.json by UploadFormatHandler. Null if the upload has no info.json or validation
+     * failed before UploadFormatHandler ran. Used to tag upload validation metrics.
+     */
+    public UploadFormat getUploadFormat() {
+        return uploadFormat;
+    }
+
+    /** @see #getUploadFormat */
+    public void setUploadFormat(UploadFormat uploadFormat) {
+        this.uploadFormat = uploadFormat;
+    }
+
+    /**
+     * Cache of parsed JSON files for this upload, so that each unzipped file is parsed at most once across all
+     * handlers. Never null.
+     */
+    public ParsedJsonFileCache getParsedJsonFileCache() {
+        return parsedJsonFileCache;
+    }
+
     /**
      * <p>
      * Makes a shallow copy of this object. The fields of the returned copy can be get and set without affecting the
@@ -208,6 +231,8 @@ public class UploadValidationContext {
         copy.infoJsonNode = this.infoJsonNode;
         copy.healthDataRecord = this.healthDataRecord;
         copy.recordId = this.recordId;
+        copy.uploadFormat = this.uploadFormat;
+        copy.parsedJsonFileCache = this.parsedJsonFileCache;
 
         // messageList is the only field that gets deep copied
         copy.messageList = new ArrayList<>(this.messageList);
@@ -0,0 +1,275 @@
+package org.sagebionetworks.bridge.upload;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+/**
+ * Thread pool dedicated to upload validation, so a burst of uploads can't starve other async work (like email
+ * verification) or fill the temp disk. Tasks are queued per app and workers take them round-robin across apps, so one
+ * app's backlog doesn't delay everyone else's uploads. An app may also run at most a configured number of tasks at
+ * once. The total number of queued tasks is bounded; {@link #submit} returns false instead of queueing past that, and
+ * it is up to the caller to leave the upload in a state where it can be redriven.
+ */
+@Component
+public class UploadValidationExecutor {
+    private static final Logger LOG = LoggerFactory.getLogger(UploadValidationExecutor.class);
+
+    static final String CONFIG_KEY_THREAD_COUNT = "upload.validation.thread.count";
+    static final String CONFIG_KEY_QUEUE_CAPACITY = "upload.validation.queue.capacity";
+    static final String CONFIG_KEY_MAX_ACTIVE_PER_APP = "upload.validation.max.active.per.app";
+    static final String CONFIG_KEY_SHUTDOWN_TIMEOUT_MILLIS = "upload.validation.shutdown.timeout.millis";
+
+    private int threadCount;
+    private int queueCapacity;
+    private int maxActivePerApp;
+    private long shutdownTimeoutMillis;
+
+    // All of the following are guarded by lock.
+    private final Object lock = new Object();
+    private final Map<String, Deque<QueuedTask>> queuesByApp = new HashMap<>();
+    // Apps that have queued tasks, in the order they will next be served.
+    private final Deque<String> appOrder = new ArrayDeque<>();
+    private final Map<String, Integer> activeByApp = new HashMap<>();
+    private int queued;
+    private int active;
+    private boolean running;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.threadCount = config.getPropertyAsInt(CONFIG_KEY_THREAD_COUNT);
+        this.queueCapacity = config.getPropertyAsInt(CONFIG_KEY_QUEUE_CAPACITY);
+        this.maxActivePerApp = config.getPropertyAsInt(CONFIG_KEY_MAX_ACTIVE_PER_APP);
+        this.shutdownTimeoutMillis = config.getPropertyAsInt(CONFIG_KEY_SHUTDOWN_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Queue a task for the given app. Returns false if the task was rejected, because the queue is full or the
+     * executor has been stopped.
+     */
+    public boolean submit(String appId, Runnable task) {
+        checkNotNull(appId);
+        checkNotNull(task);
+
+        synchronized (lock) {
+            if (!running || queued >= queueCapacity) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            Deque<QueuedTask> appQueue = queuesByApp.computeIfAbsent(appId, k -> new ArrayDeque<>());
+            if (appQueue.isEmpty()) {
+                appOrder.addLast(appId);
+            }
+            appQueue.addLast(new QueuedTask(appId, task, System.nanoTime()));
+            queued++;
+            submitted.incrementAndGet();
+            lock.notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Queue depth, active tasks, and task wait times (time from submit to start) for this node. Wait times are in
+     * milliseconds.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = Maps.newTreeMap();
+        synchronized (lock) {
+            stats.put("queueDepth", (long) queued);
+            stats.put("activeTasks", (long) active);
+            stats.put("appsWaiting", (long) appOrder.size());
+        }
+        long startedCount = started.get();
+        stats.put("queueCapacity", (long) queueCapacity);
+        stats.put("threadCount", (long) threadCount);
+        stats.put("submitted", submitted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("started", startedCount);
+        stats.put("completed", completed.get());
+        stats.put("averageWaitMillis", startedCount == 0 ? 0L : totalWaitMillis.get() / startedCount);
+        stats.put("maxWaitMillis", maxWaitMillis.get());
+        return stats;
+    }
+
+    /** Number of tasks queued for each app. Apps with nothing queued are omitted. */
+    public Map<String, Integer> getQueueDepthByApp() {
+        Map<String, Integer> depthByApp = Maps.newTreeMap();
+        synchronized (lock) {
+            for (Map.Entry<String, Deque<QueuedTask>> entry : queuesByApp.entrySet()) {
+                depthByApp.put(entry.getKey(), entry.getValue().size());
+            }
+        }
+        return depthByApp;
+    }
+
+    @PostConstruct
+    public void start() {
+        synchronized (lock) {
+            running = true;
+        }
+        for (int i = 0; i < threadCount; i++) {
+            Thread worker = new Thread(this::workerLoop, "upload-validation-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        // Workers finish what is already queued before they exit.
+        long deadline = System.nanoTime() + MILLISECONDS.toNanos(shutdownTimeoutMillis);
+        for (Thread worker : workers) {
+            long remainingMillis = NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                break;
+            }
+            try {
+                worker.join(remainingMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        synchronized (lock) {
+            if (queued > 0) {
+                List<String> appIds = new ArrayList<>(queuesByApp.keySet());
+                LOG.error("Upload validation executor stopped with " + queued +
+                        " tasks still queued, for apps " + appIds + ". These uploads need to be redriven.");
+            }
+        }
+        workers.clear();
+        LOG.info("Upload validation executor stopped: " + getStats());
+    }
+
+    private void workerLoop() {
+        while (true) {
+            QueuedTask task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == null) {
+                return;
+            }
+            try {
+                task.task.run();
+            } catch (Throwable t) {
+                // UploadValidationTask handles its own errors, so this should never happen. Keep the worker alive.
+                LOG.error("Unexpected error in upload validation task for app " + task.appId + ": " +
+                        t.getMessage(), t);
+            } finally {
+                finish(task.appId);
+            }
+        }
+    }
+
+    /** Waits for the next task that can run. Returns null once the executor is stopped and the queue is empty. */
+    private QueuedTask take() throws InterruptedException {
+        synchronized (lock) {
+            while (true) {
+                QueuedTask task = pollNextApp();
+                if (task != null) {
+                    long waitMillis = NANOSECONDS.toMillis(System.nanoTime() - task.enqueuedNanos);
+                    started.incrementAndGet();
+                    totalWaitMillis.addAndGet(waitMillis);
+                    maxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+                    return task;
+                }
+                if (!running && queued == 0) {
+                    return null;
+                }
+                lock.wait();
+            }
+        }
+    }
+
+    /**
+     * Takes a task from the first app in round-robin order that is under its concurrency limit, and moves that app to
+     * the back of the line. Must be called while holding the lock.
+     */
+    private QueuedTask pollNextApp() {
+        int appCount = appOrder.size();
+        for (int i = 0; i < appCount; i++) {
+            String appId = appOrder.pollFirst();
+            int appActive = activeByApp.getOrDefault(appId, 0);
+            if (appActive >= maxActivePerApp) {
+                appOrder.addLast(appId);
+                continue;
+            }
+
+            Deque<QueuedTask> appQueue = queuesByApp.get(appId);
+            QueuedTask task = appQueue.pollFirst();
+            if (appQueue.isEmpty()) {
+                queuesByApp.remove(appId);
+            } else {
+                appOrder.addLast(appId);
+            }
+            activeByApp.put(appId, appActive + 1);
+            queued--;
+            active++;
+            return task;
+        }
+        return null;
+    }
+
+    private void finish(String appId) {
+        synchronized (lock) {
+            int appActive = activeByApp.get(appId) - 1;
+            if (appActive == 0) {
+                activeByApp.remove(appId);
+            } else {
+                activeByApp.put(appId, appActive);
+            }
+            active--;
+            completed.incrementAndGet();
+            // A worker may be waiting on this app's concurrency limit.
+            lock.notifyAll();
+        }
+    }
+
+    private static final class QueuedTask {
+        private final String appId;
+        private final Runnable task;
+        private final long enqueuedNanos;
+
+        QueuedTask(String appId, Runnable task, long enqueuedNanos) {
+            this.appId = appId;
+            this.task = task;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.sagebionetworks.bridge.upload;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.collect.Maps;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-handler upload validation metrics for this node, tagged by app and upload format: a latency histogram, bytes
+ * processed, and failure counts. Latencies are bucketed, so percentiles are reported as the upper bound of the
+ * bucket they fall in (capped at the largest latency seen).
+ */
+@Component
+public class UploadValidationMetrics {
+    /** Format tag used when the upload failed before its format was known, or it had no info.json. */
+    public static final String UNKNOWN_FORMAT = "unknown";
+
+    /** Upper bounds of the latency histogram buckets, in milliseconds. There is one more bucket for anything slower. */
+    static final long[] BUCKET_UPPER_BOUNDS_MILLIS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000,
+            20000, 50000, 100000 };
+
+    private final ConcurrentMap<Key, HandlerStats> statsByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Records one run of a handler.
+     *
+     * @param handlerName
+     *         simple class name of the handler
+     * @param appId
+     *         app the upload belongs to
+     * @param uploadFormat
+     *         upload format, or null if it isn't known
+     * @param elapsedMillis
+     *         time the handler took
+     * @param bytes
+     *         bytes the handler processed (the size of the upload)
+     * @param failed
+     *         true if the handler threw
+     */
+    public void record(String handlerName, String appId, UploadFormat uploadFormat, long elapsedMillis, long bytes,
+            boolean failed) {
+        checkNotNull(handlerName);
+        checkNotNull(appId);
+
+        String formatTag = uploadFormat != null ? uploadFormat.name().toLowerCase() : UNKNOWN_FORMAT;
+        HandlerStats stats = statsByKey.computeIfAbsent(new Key(handlerName, appId, formatTag),
+                k -> new HandlerStats());
+        stats.record(elapsedMillis, bytes, failed);
+    }
+
+    /**
+     * A snapshot of all metrics, keyed by "handler app=[appId] format=[format]". Each entry has count, failures,
+     * bytes, totalMillis, maxMillis, p50Millis, p90Millis, p99Millis, and the histogram bucket counts ("le_[bound]" and
+     * "le_inf").
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> snapshot = Maps.newTreeMap();
+        for (Map.Entry<Key, HandlerStats> entry : statsByKey.entrySet()) {
+            Key key = entry.getKey();
+            snapshot.put(key.handlerName + " app=" + key.appId + " format=" + key.formatTag,
+                    entry.getValue().snapshot());
+        }
+        return snapshot;
+    }
+
+    static int bucketIndex(long elapsedMillis) {
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_MILLIS.length; i++) {
+            if (elapsedMillis <= BUCKET_UPPER_BOUNDS_MILLIS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_UPPER_BOUNDS_MILLIS.length;
+    }
+
+    private static final class HandlerStats {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_UPPER_BOUNDS_MILLIS.length + 1);
+
+        void record(long elapsedMillis, long bytesProcessed, boolean failed) {
+            count.incrementAndGet();
+            if (failed) {
+                failures.incrementAndGet();
+            }
+            bytes.addAndGet(bytesProcessed);
+            totalMillis.addAndGet(elapsedMillis);
+            maxMillis.accumulateAndGet(elapsedMillis, Math::max);
+            buckets.incrementAndGet(bucketIndex(elapsedMillis));
+        }
+
+        Map<String, Long> snapshot() {
+            long[] bucketCounts = new long[buckets.length()];
+            long bucketTotal = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                bucketCounts[i] = buckets.get(i);
+                bucketTotal += bucketCounts[i];
+            }
+            long max = maxMillis.get();
+
+            Map<String, Long> stats = Maps.newLinkedHashMap();
+            stats.put("count", count.get());
+            stats.put("failures", failures.get());
+            stats.put("bytes", bytes.get());
+            stats.put("totalMillis", totalMillis.get());
+            stats.put("maxMillis", max);
+            stats.put("p50Millis", percentile(bucketCounts, bucketTotal, 0.50, max));
+            stats.put("p90Millis", percentile(bucketCounts, bucketTotal, 0.90, max));
+            stats.put("p99Millis", percentile(bucketCounts, bucketTotal, 0.99, max));
+            for (int i = 0; i < BUCKET_UPPER_BOUNDS_MILLIS.length; i++) {
+                stats.put("le_" + BUCKET_UPPER_BOUNDS_MILLIS[i], bucketCounts[i]);
+            }
+            stats.put("le_inf", bucketCounts[BUCKET_UPPER_BOUNDS_MILLIS.length]);
+            return stats;
+        }
+
+        private static long percentile(long[] bucketCounts, long total, double quantile, long max) {
+            if (total == 0) {
+                return 0L;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_UPPER_BOUNDS_MILLIS.length; i++) {
+                seen += bucketCounts[i];
+                if (seen >= rank) {
+                    return Math.min(BUCKET_UPPER_BOUNDS_MILLIS[i], max);
+                }
+            }
+            return max;
+        }
+    }
+
+    private static final class Key {
+        private final String handlerName;
+        private final String appId;
+        private final String formatTag;
+
+        Key(String handlerName, String appId, String formatTag) {
+            this.handlerName = handlerName;
+            this.appId = appId;
+            this.formatTag = formatTag;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return handlerName.equals(that.handlerName) && appId.equals(that.appId) &&
+                    formatTag.equals(that.formatTag);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(handlerName, appId, formatTag);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.sagebionetworks.bridge.upload;
 import javax.annotation.Nonnull;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -14,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.sagebionetworks.bridge.dao.UploadDao;
+import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.upload.UploadStatus;
 
 /**
@@ -29,6 +31,9 @@ public class UploadValidationTask implements Runnable {
     private List<UploadValidationHandler> handlerList;
     private UploadDao uploadDao;
     private HealthDataService healthDataService;
+    private UploadValidationMetrics uploadValidationMetrics;
+    private UploadCompletionRegistry uploadCompletionRegistry;
+    private String requestId;
 
     public final void setHealthDataService(HealthDataService healthDataService) {
         this.healthDataService = healthDataService;
@@ -82,6 +87,37 @@ public class UploadValidationTask implements Runnable {
         return uploadDao;
     }
 
+    /** Per-handler metrics registry. This is configured by Spring through the task factory. */
+    public final void setUploadValidationMetrics(UploadValidationMetrics uploadValidationMetrics) {
+        this.uploadValidationMetrics = uploadValidationMetrics;
+    }
+
+    /** This is package-scoped to facilitate unit tests. */
+    /* package-scoped*/ UploadValidationMetrics getUploadValidationMetrics() {
+        return uploadValidationMetrics;
+    }
+
+    /**
+     * Registry of callers waiting for this upload, signalled once the validation status is written. This is configured
+     * by Spring through the task factory.
+     */
+    public final void setUploadCompletionRegistry(UploadCompletionRegistry uploadCompletionRegistry) {
+        this.uploadCompletionRegistry = uploadCompletionRegistry;
+    }
+
+    /** This is package-scoped to facilitate unit tests. */
+    /* package-scoped*/ UploadCompletionRegistry getUploadCompletionRegistry() {
+        return uploadCompletionRegistry;
+    }
+
+    /**
+     * ID of the request that started validation, so the upload's metrics can be matched with the request's. If this
+     * is null, the upload ID is used instead.
+     */
+    public final void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void run() {
@@ -92,13 +128,16 @@ public class UploadValidationTask implements Runnable {
         logger.info("Created temp dir " + tempDirPath);
 
         Stopwatch stopwatch = Stopwatch.createUnstarted();
+        List<HandlerTiming> handlerTimings = new ArrayList<>(handlerList.size());
         for (UploadValidationHandler oneHandler : handlerList) {
             String handlerName = oneHandler.getClass().getName();
+            boolean failed = false;
             stopwatch.start();
 
             try {
                 oneHandler.handle(context);
             } catch (Throwable ex) {
+                failed = true;
                 context.setSuccess(false);
                 context.addMessage(String.format("Exception thrown from upload validation handler %s: %s: %s",
                         handlerName, ex.getClass().getName(), ex.getMessage()));
@@ -122,8 +161,7 @@ public class UploadValidationTask implements Runnable {
             } finally {
                 long elapsedMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
                 stopwatch.reset();
-                // TODO: send this to somewhere other than the logs
-                logger.info(String.format("Upload validation handler %s took %d ms", handlerName, elapsedMillis));
+                handlerTimings.add(new HandlerTiming(oneHandler.getClass().getSimpleName(), elapsedMillis, failed));
             }
         }
 
@@ -141,6 +179,12 @@ public class UploadValidationTask implements Runnable {
             logWriteValidationStatusException(status, ex);
         }
 
+        // Wake up anyone waiting on this upload. Even if the write failed, they should re-read the status rather than
+        // wait out their timeout.
+        uploadCompletionRegistry.complete(context.getUploadId(), status);
+
+        recordMetrics(handlerTimings, status);
+
         // TODO: if validation fails, wipe the files from S3
 
         // Finally, delete the temp dir.
@@ -152,6 +196,33 @@ public class UploadValidationTask implements Runnable {
         }
     }
 
+    /**
+     * Records handler timings in the metrics registry, and logs a metrics record for this upload. This happens after
+     * all handlers have run, because the upload format isn't known until UploadFormatHandler runs.
+     */
+    private void recordMetrics(List<HandlerTiming> handlerTimings, UploadStatus status) {
+        String appId = context.getAppId();
+        String uploadId = context.getUploadId();
+        long uploadSize = context.getUpload().getContentLength();
+        UploadFormat uploadFormat = context.getUploadFormat();
+
+        Metrics metrics = new Metrics(requestId != null ? requestId : uploadId);
+        metrics.setAppId(appId);
+        metrics.setUploadId(uploadId);
+        metrics.setUploadSize(uploadSize);
+        metrics.setUploadFormat(uploadFormat != null ? uploadFormat.name().toLowerCase() :
+                UploadValidationMetrics.UNKNOWN_FORMAT);
+        metrics.setValidationStatus(status.name());
+        metrics.setRecordId(context.getRecordId());
+        for (HandlerTiming timing : handlerTimings) {
+            uploadValidationMetrics.record(timing.handlerName, appId, uploadFormat, timing.elapsedMillis, uploadSize,
+                    timing.failed);
+            metrics.setPhaseElapsedMillis(timing.handlerName, timing.elapsedMillis);
+        }
+        metrics.end();
+        logger.info(metrics.toJsonString());
+    }
+
     // Log helper. Unit tests will mock (spy) this, so we verify that we're catching and logging the exception.
     // Package-scoped so unit tests have access to this.
     void logWriteValidationStatusException(UploadStatus status, Exception ex) {
@@ -159,4 +230,16 @@ public class UploadValidationTask implements Runnable {
                 ", upload " + context.getUpload().getUploadId() + ", record " + context.getRecordId() + ", status " +
                 status + ": " + ex.getMessage(), ex);
     }
+
+    private static final class HandlerTiming {
+        private final String handlerName;
+        private final long elapsedMillis;
+        private final boolean failed;
+
+        HandlerTiming(String handlerName, long elapsedMillis, boolean failed) {
+            this.handlerName = handlerName;
+            this.elapsedMillis = elapsedMillis;
+            this.failed = failed;
+        }
+    }
 }
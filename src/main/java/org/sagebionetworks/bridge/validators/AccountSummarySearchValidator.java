@@ -33,6 +33,9 @@ public class AccountSummarySearchValidator implements Validator {
         if (search.getOffsetBy() < 0) {
             errors.rejectValue("offsetBy", "cannot be less than 0");
         }
+        if (search.getOffsetBy() > 0 && search.getOffsetKey() != null) {
+            errors.rejectValue("offsetKey", "cannot be used with offsetBy");
+        }
         // Just set a sane upper limit on this.
         if (search.getPageSize() < API_MINIMUM_PAGE_SIZE || search.getPageSize() > API_MAXIMUM_PAGE_SIZE) {
             errors.rejectValue("pageSize", PAGE_RANGE_ERROR);
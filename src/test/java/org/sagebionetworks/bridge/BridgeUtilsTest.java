@@ -29,6 +29,7 @@ import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -36,6 +37,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException.DeleteError;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -49,12 +54,14 @@ import org.joda.time.LocalDate;
 import org.joda.time.LocalDateTime;
 import org.joda.time.Period;
 import org.jsoup.safety.Safelist;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
 import org.sagebionetworks.bridge.models.Label;
 import org.sagebionetworks.bridge.models.RequestInfo;
@@ -1336,4 +1343,49 @@ public class BridgeUtilsTest extends Mockito {
         }
     }
     
-}
\ No newline at end of file
+
+    @Test
+    public void deleteS3ObjectsBatchesKeys() {
+        AmazonS3 mockS3Client = Mockito.mock(AmazonS3.class);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            keys.add("key" + i);
+        }
+
+        BridgeUtils.deleteS3Objects(mockS3Client, "bucket", keys);
+
+        ArgumentCaptor<DeleteObjectsRequest> requestCaptor = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        Mockito.verify(mockS3Client, Mockito.times(3)).deleteObjects(requestCaptor.capture());
+        List<DeleteObjectsRequest> requests = requestCaptor.getAllValues();
+        assertEquals(requests.get(0).getKeys().size(), 1000);
+        assertEquals(requests.get(1).getKeys().size(), 1000);
+        assertEquals(requests.get(2).getKeys().size(), 500);
+        assertEquals(requests.get(0).getKeys().get(0).getKey(), "key0");
+        assertEquals(requests.get(2).getKeys().get(499).getKey(), "key2499");
+        for (DeleteObjectsRequest request : requests) {
+            assertEquals(request.getBucketName(), "bucket");
+            assertTrue(request.getQuiet());
+        }
+    }
+
+    @Test
+    public void deleteS3ObjectsNoKeys() {
+        AmazonS3 mockS3Client = Mockito.mock(AmazonS3.class);
+        BridgeUtils.deleteS3Objects(mockS3Client, "bucket", ImmutableList.of());
+        Mockito.verifyZeroInteractions(mockS3Client);
+    }
+
+    @Test(expectedExceptions = BridgeServiceException.class,
+            expectedExceptionsMessageRegExp = "Error deleting objects from S3 bucket bucket: key1: Access Denied")
+    public void deleteS3ObjectsPartialFailure() {
+        DeleteError error = new DeleteError();
+        error.setKey("key1");
+        error.setMessage("Access Denied");
+        MultiObjectDeleteException ex = new MultiObjectDeleteException(ImmutableList.of(error), ImmutableList.of());
+
+        AmazonS3 mockS3Client = Mockito.mock(AmazonS3.class);
+        Mockito.when(mockS3Client.deleteObjects(Mockito.any())).thenThrow(ex);
+
+        BridgeUtils.deleteS3Objects(mockS3Client, "bucket", ImmutableList.of("key1", "key2"));
+    }
+}
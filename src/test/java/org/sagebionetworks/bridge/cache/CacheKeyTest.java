@@ -3,6 +3,7 @@ package org.sagebionetworks.bridge.cache;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_ORG_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY_ID;
+import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
@@ -14,6 +15,7 @@ import org.sagebionetworks.bridge.models.ThrottleRequestType;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
 import org.sagebionetworks.bridge.models.schedules2.timelines.Timeline;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
+import org.sagebionetworks.bridge.models.templates.TemplateType;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
 
@@ -49,6 +51,12 @@ public class CacheKeyTest {
                 "test-org-id:test-app:OrgSponsoredStudies");
     }
     
+    @Test
+    public void accountSummaryCount() {
+        assertEquals(CacheKey.accountSummaryCount(TEST_APP_ID, "abc").toString(), "abc:" + TEST_APP_ID
+                + ":AccountSummaryCount");
+    }
+    
     @Test
     public void tagList() { 
         assertEquals(CacheKey.tagList().toString(), "TagList");
@@ -111,6 +119,12 @@ public class CacheKeyTest {
         assertEquals(CacheKey.lock("value", String.class).toString(), "value:java.lang.String:lock");
     }
     
+    @Test
+    public void participantVersionFingerprint() {
+        assertEquals(CacheKey.participantVersionFingerprint(TEST_APP_ID, "healthCode").toString(),
+                "healthCode:" + TEST_APP_ID + ":ParticipantVersionFingerprint");
+    }
+    
     @Test
     public void passwordResetForEmail() {
         assertEquals(CacheKey.passwordResetForEmail("sptoken", TEST_APP_ID).toString(), "sptoken:" + TEST_APP_ID);
@@ -151,6 +165,17 @@ public class CacheKeyTest {
         assertEquals(CacheKey.subpopList(TEST_APP_ID).toString(), TEST_APP_ID + ":SubpopulationList");
     }
     
+    @Test
+    public void templateList() {
+        assertEquals(CacheKey.templateList(TEST_APP_ID, TemplateType.EMAIL_RESET_PASSWORD).toString(),
+                "EMAIL_RESET_PASSWORD:" + TEST_APP_ID + ":TemplateList");
+    }
+    
+    @Test
+    public void templateRevision() {
+        assertEquals(CacheKey.templateRevision("guid", 1000L).toString(), "guid:1000:TemplateRevision");
+    }
+    
     @Test
     public void verificationToken() {
         assertEquals(CacheKey.verificationToken("token").toString(), "token");
@@ -171,6 +196,11 @@ public class CacheKeyTest {
         assertEquals(CacheKey.tokenToUserId("aSessionToken").toString(), "aSessionToken:session2");
     }
     
+    @Test
+    public void tokenToSession() { 
+        assertEquals(CacheKey.tokenToSession("aSessionToken").toString(), "aSessionToken:session2:token");
+    }
+    
     @Test
     public void isPublic() {
         CacheKey privateKey = CacheKey.reauthTokenLookupKey("a", TEST_APP_ID);
@@ -185,4 +215,21 @@ public class CacheKeyTest {
         String key = TEST_APP_ID + ":" + TEST_STUDY_ID + ":PublicStudy";
         assertEquals(CacheKey.publicStudy(TEST_APP_ID, TEST_STUDY_ID).toString(), key);
     }
+    
+    @Test
+    public void accountDeletionJob() {
+        assertEquals(CacheKey.accountDeletionJob(TEST_APP_ID, TEST_USER_ID).toString(),
+                TEST_USER_ID + ":" + TEST_APP_ID + ":AccountDeletionJob");
+    }
+    
+    @Test
+    public void study() {
+        assertEquals(CacheKey.study(TEST_APP_ID, TEST_STUDY_ID).toString(),
+                TEST_STUDY_ID + ":" + TEST_APP_ID + ":Study");
+    }
+    
+    @Test
+    public void studyIdList() {
+        assertEquals(CacheKey.studyIdList(TEST_APP_ID).toString(), TEST_APP_ID + ":StudyIdList");
+    }
 }
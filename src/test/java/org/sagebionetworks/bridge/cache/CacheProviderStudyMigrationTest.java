@@ -1,5 +1,6 @@
 package org.sagebionetworks.bridge.cache;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.testng.Assert.assertEquals;
 
 import java.util.List;
@@ -21,13 +22,12 @@ import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.itp.IntentToParticipate;
 import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
-import org.sagebionetworks.bridge.redis.JedisOps;
 
 public class CacheProviderStudyMigrationTest extends Mockito {
     private static final TypeReference<List<Subpopulation>> SURVEY_LIST_REF = new TypeReference<List<Subpopulation>>() {};
     
     @Mock
-    JedisOps mockJedisOps;
+    BridgeJedisOps mockJedisOps;
     
     @InjectMocks
     CacheProvider provider;
@@ -68,7 +68,7 @@ public class CacheProviderStudyMigrationTest extends Mockito {
                 "{'studyIdentifier':'"+TEST_APP_ID+"','sessionToken':'aToken'}");
 
         doReturn("aUser").when(mockJedisOps).get("aToken:session2");
-        doReturn(json).when(mockJedisOps).get("aUser:session2:user");
+        doReturn(json.getBytes(UTF_8)).when(mockJedisOps).getBytes("aUser:session2:user");
         
         UserSession session = provider.getUserSession("aToken");
         assertEquals(session.getAppId(), TEST_APP_ID);
@@ -80,7 +80,7 @@ public class CacheProviderStudyMigrationTest extends Mockito {
                 "{'appId':'"+TEST_APP_ID+"','sessionToken':'aToken'}");
 
         doReturn("aUser").when(mockJedisOps).get("aToken:session2");
-        doReturn(json).when(mockJedisOps).get("aUser:session2:user");
+        doReturn(json.getBytes(UTF_8)).when(mockJedisOps).getBytes("aUser:session2:user");
         
         UserSession session = provider.getUserSession("aToken");
         assertEquals(session.getAppId(), TEST_APP_ID);
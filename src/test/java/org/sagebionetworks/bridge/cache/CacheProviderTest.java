@@ -1,19 +1,23 @@
 package org.sagebionetworks.bridge.cache;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.aryEq;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
@@ -21,6 +25,7 @@ import static org.testng.Assert.fail;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.joda.time.DateTime;
 import org.mockito.ArgumentCaptor;
@@ -33,10 +38,12 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.config.Environment;
 import org.sagebionetworks.bridge.crypto.AesGcmEncryptor;
 import org.sagebionetworks.bridge.crypto.Encryptor;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.RequestInfo;
 import org.sagebionetworks.bridge.models.accounts.ConsentStatus;
@@ -46,10 +53,11 @@ import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.apps.OAuthProvider;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
-import org.sagebionetworks.bridge.redis.JedisOps;
 import org.sagebionetworks.bridge.redis.JedisTransaction;
 
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Transaction;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.ImmutableList;
@@ -67,6 +75,7 @@ public class CacheProviderTest {
     private static final String DECRYPTED_SESSION_TOKEN = "ccea2978-f5b9-4377-8194-f887a3e2a19b";
     private static final CacheKey TOKEN_TO_USER_ID = CacheKey.tokenToUserId(DECRYPTED_SESSION_TOKEN);
     private static final CacheKey USER_ID_TO_SESSION = CacheKey.userIdToSession(USER_ID);
+    private static final CacheKey TOKEN_TO_SESSION = CacheKey.tokenToSession(DECRYPTED_SESSION_TOKEN);
 
     private CacheProvider cacheProvider;
 
@@ -74,7 +83,7 @@ public class CacheProviderTest {
     private JedisTransaction transaction;
 
     @Mock
-    private JedisOps jedisOps;
+    private BridgeJedisOps jedisOps;
 
     @Captor
     private ArgumentCaptor<String> stringCaptor;
@@ -115,10 +124,10 @@ public class CacheProviderTest {
     }
 
     private void assertSession(String json) {
-        JedisOps jedisOps = mock(JedisOps.class);
+        BridgeJedisOps jedisOps = mock(BridgeJedisOps.class);
         
         when(jedisOps.get(TOKEN_TO_USER_ID.toString())).thenReturn(USER_ID);
-        when(jedisOps.get(USER_ID_TO_SESSION.toString())).thenReturn(json);
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString())).thenReturn(json.getBytes(UTF_8));
         
         cacheProvider.setJedisOps(jedisOps);
         
@@ -230,8 +239,8 @@ public class CacheProviderTest {
         verify(transaction, never()).exec();
     }
 
-    private JedisOps getJedisOps() {
-        return new JedisOps(new JedisPool()) {
+    private BridgeJedisOps getJedisOps() {
+        return new BridgeJedisOps(new JedisPool()) {
             private Map<String,String> map = Maps.newHashMap();
             @Override
             public Long del(final String... keys) {
@@ -336,7 +345,7 @@ public class CacheProviderTest {
         UserSession session = new UserSession();
         session.setSessionToken(DECRYPTED_SESSION_TOKEN);
         String ser = BridgeObjectMapper.get().writeValueAsString(session);
-        when(jedisOps.get(USER_ID_TO_SESSION.toString())).thenReturn(ser);
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString())).thenReturn(ser.getBytes(UTF_8));
         
         UserSession retrieved = cacheProvider.getUserSessionByUserId(USER_ID);
         assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
@@ -347,8 +356,8 @@ public class CacheProviderTest {
         UserSession session = new UserSession(new StudyParticipant.Builder().build());
         session.setSessionToken("notTheSessionTokenWereLookingFor");
         
-        when(jedisOps.get(USER_ID_TO_SESSION.toString()))
-                .thenReturn(BridgeObjectMapper.get().writeValueAsString(session));
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString()))
+                .thenReturn(BridgeObjectMapper.get().writeValueAsString(session).getBytes(UTF_8));
 
         UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
         assertNull(retrieved);
@@ -359,8 +368,8 @@ public class CacheProviderTest {
         UserSession session = new UserSession(new StudyParticipant.Builder().build());
         session.setSessionToken(DECRYPTED_SESSION_TOKEN);
         
-        when(jedisOps.get(USER_ID_TO_SESSION.toString()))
-                .thenReturn(BridgeObjectMapper.get().writeValueAsString(session));
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString()))
+                .thenReturn(BridgeObjectMapper.get().writeValueAsString(session).getBytes(UTF_8));
 
         UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
         assertEquals(retrieved.getSessionToken(), session.getSessionToken());
@@ -486,7 +495,7 @@ public class CacheProviderTest {
         CacheProvider mockCacheProvider = spy(cacheProvider);
         mockCacheProvider.getUserSessionByUserId(USER_ID);
         
-        verify(jedisOps).get("userId:session2:user");
+        verify(jedisOps).getBytes("userId:session2:user");
     }
     
     @Test
@@ -500,6 +509,7 @@ public class CacheProviderTest {
         cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
         
         verify(transaction).del(TOKEN_TO_USER_ID.toString());
+        verify(transaction).del(TOKEN_TO_SESSION.toString());
         verify(transaction).del(USER_ID_TO_SESSION.toString());
         verify(transaction).exec();
     }
@@ -509,7 +519,7 @@ public class CacheProviderTest {
         UserSession session = createUserSession();
         String ser = BridgeObjectMapper.get().writeValueAsString(session);
 
-        when(jedisOps.get(USER_ID_TO_SESSION.toString())).thenReturn(ser);
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString())).thenReturn(ser.getBytes(UTF_8));
         
         cacheProvider.removeSessionByUserId(USER_ID);
         
@@ -525,7 +535,9 @@ public class CacheProviderTest {
         
         verify(transaction).setex(eq(TOKEN_TO_USER_ID.toString()), anyInt(), eq(USER_ID));
         verify(transaction).setex(eq(USER_ID_TO_SESSION.toString()), anyInt(), anyString());
+        verify(transaction).del(TOKEN_TO_SESSION.toString());
         verify(transaction).exec();
+        verify(jedisOps, never()).transaction(any());
     }
     
     @Test
@@ -617,4 +629,344 @@ public class CacheProviderTest {
         cacheProvider.removeApp(TEST_APP_ID);
         verify(jedisOps).del(TEST_ID_KEY);
     }
+
+    @Test
+    public void getAppUsesNearCache() throws Exception {
+        NearCacheManager nearCacheManager = createNearCacheManager();
+        cacheProvider.setNearCacheManager(nearCacheManager);
+        
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        when(jedisOps.get(TEST_ID_KEY)).thenReturn(BridgeObjectMapper.get().writeValueAsString(app));
+
+        App first = cacheProvider.getApp(TEST_APP_ID);
+        App second = cacheProvider.getApp(TEST_APP_ID);
+        assertEquals(first, app);
+        assertEquals(second, app);
+        // Apps are mutable, so each call gets its own instance
+        assertNotSame(first, second);
+        
+        verify(jedisOps, times(1)).get(TEST_ID_KEY);
+        assertEquals(nearCacheManager.getStats().get("App").get("hitCount"), Long.valueOf(1L));
+    }
+    
+    @Test
+    public void setAppInvalidatesNearCache() throws Exception {
+        cacheProvider.setNearCacheManager(createNearCacheManager());
+        
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        when(jedisOps.get(TEST_ID_KEY)).thenReturn(BridgeObjectMapper.get().writeValueAsString(app));
+        when(jedisOps.setex(any(), anyInt(), any())).thenReturn("OK");
+        
+        cacheProvider.getApp(TEST_APP_ID);
+        cacheProvider.setApp(app);
+        cacheProvider.getApp(TEST_APP_ID);
+        
+        verify(jedisOps, times(2)).get(TEST_ID_KEY);
+    }
+    
+    @Test
+    public void removeAppInvalidatesNearCache() throws Exception {
+        cacheProvider.setNearCacheManager(createNearCacheManager());
+        
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        when(jedisOps.get(TEST_ID_KEY)).thenReturn(BridgeObjectMapper.get().writeValueAsString(app));
+        
+        cacheProvider.getApp(TEST_APP_ID);
+        cacheProvider.removeApp(TEST_APP_ID);
+        cacheProvider.getApp(TEST_APP_ID);
+        
+        verify(jedisOps, times(2)).get(TEST_ID_KEY);
+    }
+    
+    @Test
+    public void getUserSessionUsesNearCache() throws Exception {
+        cacheProvider.setNearCacheManager(createNearCacheManager());
+        
+        UserSession session = createUserSession();
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString()))
+                .thenReturn(StudyParticipant.CACHE_WRITER.writeValueAsString(session).getBytes(UTF_8));
+        
+        UserSession first = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        UserSession second = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertEquals(first.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        assertEquals(second.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        assertEquals(second.getHealthCode(), "healthCode");
+        assertNotSame(first, second);
+        
+        verify(jedisOps, times(1)).get(TOKEN_TO_USER_ID.toString());
+        verify(jedisOps, times(1)).getBytes(USER_ID_TO_SESSION.toString());
+        
+        // The session held by user ID is also available
+        UserSession third = cacheProvider.getUserSessionByUserId(USER_ID);
+        assertEquals(third.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        verify(jedisOps, times(1)).getBytes(USER_ID_TO_SESSION.toString());
+    }
+    
+    @Test
+    public void getUserSessionNearCacheDoesNotReturnMutatedSession() throws Exception {
+        cacheProvider.setNearCacheManager(createNearCacheManager());
+        
+        UserSession session = createUserSession();
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString()))
+                .thenReturn(StudyParticipant.CACHE_WRITER.writeValueAsString(session).getBytes(UTF_8));
+        
+        UserSession first = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        first.setAppId("some-other-app");
+        
+        UserSession second = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertNull(second.getAppId());
+    }
+    
+    @Test
+    public void setUserSessionInvalidatesNearCache() throws Exception {
+        cacheProvider.setNearCacheManager(createNearCacheManager());
+        
+        UserSession session = createUserSession();
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString()))
+                .thenReturn(StudyParticipant.CACHE_WRITER.writeValueAsString(session).getBytes(UTF_8));
+        
+        cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        cacheProvider.setUserSession(session);
+        cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        
+        verify(jedisOps, times(2)).getBytes(USER_ID_TO_SESSION.toString());
+    }
+    
+    @Test
+    public void removeSessionInvalidatesNearCache() throws Exception {
+        cacheProvider.setNearCacheManager(createNearCacheManager());
+        
+        UserSession session = createUserSession();
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString()))
+                .thenReturn(StudyParticipant.CACHE_WRITER.writeValueAsString(session).getBytes(UTF_8));
+        
+        cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        cacheProvider.removeSession(session);
+        
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString())).thenReturn(null);
+        assertNull(cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN));
+    }
+    
+    private NearCacheManager createNearCacheManager() {
+        BridgeConfig config = mock(BridgeConfig.class);
+        when(config.get(NearCacheManager.CONFIG_KEY_ENABLED)).thenReturn("true");
+        when(config.getPropertyAsInt(NearCacheManager.CONFIG_KEY_MAX_SIZE)).thenReturn(100);
+        when(config.getPropertyAsInt(NearCacheManager.CONFIG_KEY_TTL_SECONDS)).thenReturn(60);
+        
+        JedisPool pool = mock(JedisPool.class);
+        when(pool.getResource()).thenReturn(mock(Jedis.class));
+        
+        NearCacheManager nearCacheManager = new NearCacheManager();
+        nearCacheManager.setBridgeConfig(config);
+        nearCacheManager.setJedisPool(pool);
+        return nearCacheManager;
+    }
+
+    @Test
+    public void getUserSessionCompact() throws Exception {
+        enableCompactSessions();
+        UserSession session = createUserSession();
+        when(jedisOps.getBytes(TOKEN_TO_SESSION.toString())).thenReturn(CompactSessionCodec.encode(session));
+        
+        UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getHealthCode(), "healthCode");
+        
+        // One round trip
+        verify(jedisOps, never()).get(TOKEN_TO_USER_ID.toString());
+        verify(jedisOps, never()).getBytes(USER_ID_TO_SESSION.toString());
+    }
+    
+    @Test
+    public void getUserSessionCompactUsesNearCache() throws Exception {
+        enableCompactSessions();
+        cacheProvider.setNearCacheManager(createNearCacheManager());
+        UserSession session = createUserSession();
+        when(jedisOps.getBytes(TOKEN_TO_SESSION.toString())).thenReturn(CompactSessionCodec.encode(session));
+        
+        cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        
+        retrieved = cacheProvider.getUserSessionByUserId(USER_ID);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        
+        verify(jedisOps, times(1)).getBytes(TOKEN_TO_SESSION.toString());
+        verify(jedisOps, never()).getBytes(USER_ID_TO_SESSION.toString());
+    }
+    
+    @Test
+    public void getUserSessionCompactReadsJsonSession() throws Exception {
+        enableCompactSessions();
+        UserSession session = createUserSession();
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString()))
+                .thenReturn(StudyParticipant.CACHE_WRITER.writeValueAsString(session).getBytes(UTF_8));
+        
+        UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getHealthCode(), "healthCode");
+        
+        verify(jedisOps).getBytes(TOKEN_TO_SESSION.toString());
+        verify(jedisOps).get(TOKEN_TO_USER_ID.toString());
+    }
+    
+    @Test
+    public void getUserSessionJsonReadsCompactSession() throws Exception {
+        UserSession session = createUserSession();
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString())).thenReturn(CompactSessionCodec.encode(session));
+        
+        UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        verify(jedisOps, never()).getBytes(TOKEN_TO_SESSION.toString());
+    }
+    
+    @Test
+    public void getUserSessionCompactTokenNotFound() throws Exception {
+        enableCompactSessions();
+        when(jedisOps.get(TOKEN_TO_USER_ID.toString())).thenReturn(null);
+        
+        assertNull(cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN));
+        verify(jedisOps, never()).getBytes(USER_ID_TO_SESSION.toString());
+    }
+    
+    @Test
+    public void getUserSessionCompactSessionExpired() throws Exception {
+        enableCompactSessions();
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString())).thenReturn(null);
+        
+        assertNull(cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN));
+    }
+    
+    @Test
+    public void getUserSessionCompactTokenMismatch() throws Exception {
+        enableCompactSessions();
+        UserSession session = createUserSession();
+        session.setSessionToken("notTheSessionTokenWereLookingFor");
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString())).thenReturn(CompactSessionCodec.encode(session));
+        
+        assertNull(cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN));
+        verify(jedisOps).del(TOKEN_TO_USER_ID.toString());
+    }
+    
+    @Test
+    public void getUserSessionByUserIdCompact() throws Exception {
+        enableCompactSessions();
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString()))
+                .thenReturn(CompactSessionCodec.encode(createUserSession()));
+        
+        UserSession retrieved = cacheProvider.getUserSessionByUserId(USER_ID);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+    }
+    
+    @Test
+    public void setUserSessionCompact() throws Exception {
+        enableCompactSessions();
+        Transaction binaryTransaction = mockBinaryTransaction(ImmutableList.of("OK", "OK", "OK"));
+        
+        UserSession session = createUserSession();
+        cacheProvider.setUserSession(session);
+        
+        ArgumentCaptor<byte[]> userIdToSessionCaptor = ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<byte[]> tokenToSessionCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(binaryTransaction).setex(aryEq(bytes(TOKEN_TO_USER_ID)), 
+                eq(BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS), aryEq(USER_ID.getBytes(UTF_8)));
+        verify(binaryTransaction).setex(aryEq(bytes(USER_ID_TO_SESSION)), 
+                eq(BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS), userIdToSessionCaptor.capture());
+        verify(binaryTransaction).setex(aryEq(bytes(TOKEN_TO_SESSION)), 
+                eq(BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS), tokenToSessionCaptor.capture());
+        verify(binaryTransaction, never()).del(anyString());
+        verify(transaction, never()).exec();
+        
+        // Stored as raw bytes, not text
+        assertTrue(CompactSessionCodec.isCompact(userIdToSessionCaptor.getValue()));
+        UserSession stored = CompactSessionCodec.decode(tokenToSessionCaptor.getValue());
+        assertEquals(stored.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+    }
+    
+    @Test
+    public void setUserSessionCompactDeletesPreviousToken() throws Exception {
+        enableCompactSessions();
+        Transaction binaryTransaction = mockBinaryTransaction(ImmutableList.of("OK", "OK", "OK", 1L));
+        
+        UserSession previous = createUserSession();
+        previous.setSessionToken("previousToken");
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString())).thenReturn(CompactSessionCodec.encode(previous));
+        
+        cacheProvider.setUserSession(createUserSession());
+        
+        verify(binaryTransaction).del(CacheKey.tokenToSession("previousToken").toString());
+    }
+    
+    @Test
+    public void setUserSessionCompactKeepsSameToken() throws Exception {
+        enableCompactSessions();
+        Transaction binaryTransaction = mockBinaryTransaction(ImmutableList.of("OK", "OK", "OK"));
+        when(jedisOps.getBytes(USER_ID_TO_SESSION.toString()))
+                .thenReturn(CompactSessionCodec.encode(createUserSession()));
+        
+        cacheProvider.setUserSession(createUserSession());
+        
+        verify(binaryTransaction, never()).del(anyString());
+    }
+    
+    @Test(expectedExceptions = BridgeServiceException.class)
+    public void setUserSessionCompactFails() throws Exception {
+        enableCompactSessions();
+        mockBinaryTransaction(ImmutableList.of("OK", "NOT OK", "OK"));
+        
+        cacheProvider.setUserSession(createUserSession());
+    }
+    
+    @Test(expectedExceptions = BridgeServiceException.class)
+    public void setUserSessionCompactAborted() throws Exception {
+        enableCompactSessions();
+        mockBinaryTransaction(null);
+        
+        cacheProvider.setUserSession(createUserSession());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Transaction mockBinaryTransaction(List<Object> results) {
+        Transaction binaryTransaction = mock(Transaction.class);
+        when(jedisOps.transaction(any())).thenAnswer(invocation -> {
+            ((Consumer<Transaction>)invocation.getArgument(0)).accept(binaryTransaction);
+            return results;
+        });
+        return binaryTransaction;
+    }
+    
+    private static byte[] bytes(CacheKey cacheKey) {
+        return cacheKey.toString().getBytes(UTF_8);
+    }
+    
+    private void enableCompactSessions() {
+        BridgeConfig config = mock(BridgeConfig.class);
+        when(config.get(CacheProvider.SESSION_STORAGE_FORMAT_PROPERTY)).thenReturn(CacheProvider.COMPACT_SESSION_FORMAT);
+        cacheProvider.setBridgeConfig(config);
+        cacheProvider.setSessionExpireInSeconds(BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+    }
+
+    @Test
+    public void getObjects() throws Exception {
+        DateTime timestamp = DateTime.parse("2020-01-01T00:00:00.000Z");
+        String ser = BridgeObjectMapper.get().writeValueAsString(timestamp);
+        when(jedisOps.mget("a:App", "b:App", "c:App")).thenReturn(Lists.newArrayList(ser, null, ser));
+        
+        List<DateTime> results = cacheProvider.getObjects(ImmutableList.of(CacheKey.app("a"), CacheKey.app("b"),
+                CacheKey.app("c")), DateTime.class);
+        assertEquals(results.size(), 3);
+        assertEquals(results.get(0), timestamp);
+        assertNull(results.get(1));
+        assertEquals(results.get(2), timestamp);
+        verify(jedisOps).mget("a:App", "b:App", "c:App");
+    }
+    
+    @Test
+    public void getObjectsEmpty() {
+        assertTrue(cacheProvider.getObjects(ImmutableList.of(), DateTime.class).isEmpty());
+        verify(jedisOps, never()).mget(any());
+    }
 }
@@ -0,0 +1,98 @@
+package org.sagebionetworks.bridge.cache;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.Roles;
+import org.sagebionetworks.bridge.config.Environment;
+import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class CompactSessionCodecTest {
+    
+    @Test
+    public void canRoundTrip() throws Exception {
+        UserSession session = createSession();
+        
+        byte[] bytes = CompactSessionCodec.encode(session);
+        assertTrue(CompactSessionCodec.isCompact(bytes));
+        assertEquals(bytes[1], CompactSessionCodec.VERSION);
+        
+        UserSession decoded = CompactSessionCodec.decode(bytes);
+        assertEquals(decoded.getSessionToken(), "sessionToken");
+        assertEquals(decoded.getInternalSessionToken(), "internalSessionToken");
+        assertEquals(decoded.getAppId(), TEST_APP_ID);
+        assertEquals(decoded.getEnvironment(), Environment.LOCAL);
+        assertTrue(decoded.isAuthenticated());
+        assertEquals(decoded.getParticipant(), session.getParticipant());
+        assertEquals(decoded.getHealthCode(), "healthCode");
+    }
+    
+    @Test
+    public void healthCodeIsNotStoredInTheClear() throws Exception {
+        byte[] bytes = CompactSessionCodec.encode(createSession());
+        
+        // Neither the property nor the value are present (only encryptedHealthCode)
+        assertFalse(new String(bytes, ISO_8859_1).contains("healthCode"));
+        UserSession decoded = CompactSessionCodec.decode(bytes);
+        assertEquals(decoded.getParticipant().getHealthCode(), "healthCode");
+    }
+    
+    @Test
+    public void isSmallerThanJson() throws Exception {
+        UserSession session = createSession();
+        
+        byte[] compact = CompactSessionCodec.encode(session);
+        byte[] json = StudyParticipant.CACHE_WRITER.writeValueAsBytes(session);
+        assertTrue(compact.length < json.length);
+    }
+    
+    @Test
+    public void jsonIsNotCompact() throws Exception {
+        byte[] json = StudyParticipant.CACHE_WRITER.writeValueAsBytes(createSession());
+        assertFalse(CompactSessionCodec.isCompact(json));
+        assertFalse(CompactSessionCodec.isCompact(null));
+        assertFalse(CompactSessionCodec.isCompact(new byte[0]));
+    }
+    
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void decodeRejectsJson() throws Exception {
+        CompactSessionCodec.decode(StudyParticipant.CACHE_WRITER.writeValueAsBytes(createSession()));
+    }
+    
+    @Test(expectedExceptions = IllegalArgumentException.class,
+            expectedExceptionsMessageRegExp = "Unsupported compact session version: 9")
+    public void decodeRejectsUnknownVersion() throws Exception {
+        byte[] bytes = CompactSessionCodec.encode(createSession());
+        bytes[1] = 9;
+        CompactSessionCodec.decode(bytes);
+    }
+    
+    static UserSession createSession() {
+        StudyParticipant participant = new StudyParticipant.Builder()
+                .withId("userId")
+                .withEmail("email@email.com")
+                .withFirstName("firstName")
+                .withHealthCode("healthCode")
+                .withRoles(ImmutableSet.of(Roles.DEVELOPER))
+                .withLanguages(ImmutableList.of("en", "fr"))
+                .withDataGroups(ImmutableSet.of("group1", "group2"))
+                .withStudyIds(ImmutableSet.of("studyA"))
+                .build();
+        UserSession session = new UserSession(participant);
+        session.setSessionToken("sessionToken");
+        session.setInternalSessionToken("internalSessionToken");
+        session.setAppId(TEST_APP_ID);
+        session.setEnvironment(Environment.LOCAL);
+        session.setAuthenticated(true);
+        return session;
+    }
+}
@@ -0,0 +1,123 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+public class NearCacheManagerTest {
+    
+    private static final CacheKey KEY = CacheKey.app("app-id");
+    
+    @Mock
+    BridgeConfig mockConfig;
+    
+    @Mock
+    JedisPool mockPool;
+    
+    @Mock
+    Jedis mockJedis;
+    
+    NearCacheManager manager;
+    
+    @BeforeMethod
+    public void beforeMethod() {
+        MockitoAnnotations.initMocks(this);
+        
+        when(mockConfig.get(NearCacheManager.CONFIG_KEY_ENABLED)).thenReturn("true");
+        when(mockConfig.getPropertyAsInt(NearCacheManager.CONFIG_KEY_MAX_SIZE)).thenReturn(100);
+        when(mockConfig.getPropertyAsInt(NearCacheManager.CONFIG_KEY_TTL_SECONDS)).thenReturn(60);
+        when(mockConfig.getPropertyAsInt(NearCacheManager.CONFIG_KEY_REVISION_TTL_SECONDS)).thenReturn(600);
+        when(mockPool.getResource()).thenReturn(mockJedis);
+        
+        manager = new NearCacheManager();
+        manager.setBridgeConfig(mockConfig);
+        manager.setJedisPool(mockPool);
+    }
+    
+    @Test
+    public void invalidateRemovesLocallyAndPublishes() {
+        NearCache<String> nearCache = manager.createNearCache("App");
+        nearCache.put(KEY, "value", nearCache.getGeneration());
+        
+        manager.invalidate(KEY);
+        
+        assertNull(nearCache.get(KEY));
+        verify(mockJedis).publish(NearCacheManager.INVALIDATION_CHANNEL, KEY.toString());
+    }
+    
+    @Test
+    public void revisionCacheIsInvalidatedAndReported() {
+        NearCache<String> nearCache = manager.createRevisionNearCache("UploadSchemaRevision");
+        nearCache.put(KEY, "value", nearCache.getGeneration());
+        assertEquals(nearCache.get(KEY), "value");
+        
+        manager.invalidate(KEY);
+        
+        assertNull(nearCache.get(KEY));
+        assertTrue(manager.getStats().containsKey("UploadSchemaRevision"));
+    }
+    
+    @Test
+    public void invalidateSurvivesPublishFailure() {
+        when(mockPool.getResource()).thenThrow(new RuntimeException());
+        NearCache<String> nearCache = manager.createNearCache("App");
+        nearCache.put(KEY, "value", nearCache.getGeneration());
+        
+        manager.invalidate(KEY);
+        
+        assertNull(nearCache.get(KEY));
+    }
+    
+    @Test
+    public void invalidateLocallyFromMessageKey() {
+        NearCache<String> nearCache = manager.createNearCache("App");
+        nearCache.put(KEY, "value", nearCache.getGeneration());
+        
+        manager.invalidateLocally(CacheKey.fromString(KEY.toString()));
+        
+        assertNull(nearCache.get(KEY));
+        verify(mockJedis, never()).publish(NearCacheManager.INVALIDATION_CHANNEL, KEY.toString());
+    }
+    
+    @Test
+    public void getStats() {
+        NearCache<String> appCache = manager.createNearCache("App");
+        manager.createNearCache("UserSession");
+        appCache.get(KEY);
+        
+        assertEquals(manager.getStats().keySet().size(), 2);
+        assertEquals(manager.getStats().get("App").get("missCount"), Long.valueOf(1L));
+    }
+    
+    @Test
+    public void disabled() {
+        when(mockConfig.get(NearCacheManager.CONFIG_KEY_ENABLED)).thenReturn("false");
+        manager = new NearCacheManager();
+        manager.setBridgeConfig(mockConfig);
+        manager.setJedisPool(mockPool);
+        
+        assertFalse(manager.isEnabled());
+        assertNull(manager.createNearCache("App"));
+        manager.invalidate(KEY);
+        manager.start();
+        
+        assertTrue(manager.getStats().isEmpty());
+        verifyZeroInteractions(mockPool);
+    }
+}
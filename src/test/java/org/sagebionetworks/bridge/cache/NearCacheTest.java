@@ -0,0 +1,78 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class NearCacheTest {
+    
+    private static final CacheKey KEY = CacheKey.app("app-id");
+    
+    private NearCache<String> nearCache;
+    
+    @BeforeMethod
+    public void beforeMethod() {
+        nearCache = new NearCache<>("App", 2, 60);
+    }
+    
+    @Test
+    public void putAndGet() {
+        nearCache.put(KEY, "value", nearCache.getGeneration());
+        
+        assertEquals(nearCache.get(KEY), "value");
+        assertEquals(nearCache.size(), 1L);
+    }
+    
+    @Test
+    public void putAfterInvalidationIsDropped() {
+        long generation = nearCache.getGeneration();
+        nearCache.invalidate(CacheKey.app("some-other-app"));
+        
+        // A value loaded before any invalidation may be stale, so it is not cached.
+        nearCache.put(KEY, "value", generation);
+        assertNull(nearCache.get(KEY));
+    }
+    
+    @Test
+    public void invalidate() {
+        nearCache.put(KEY, "value", nearCache.getGeneration());
+        nearCache.invalidate(KEY);
+        
+        assertNull(nearCache.get(KEY));
+    }
+    
+    @Test
+    public void invalidateAll() {
+        nearCache.put(KEY, "value", nearCache.getGeneration());
+        nearCache.invalidateAll();
+        
+        assertNull(nearCache.get(KEY));
+    }
+    
+    @Test
+    public void evictsBySize() {
+        nearCache.put(CacheKey.app("a"), "a", nearCache.getGeneration());
+        nearCache.put(CacheKey.app("b"), "b", nearCache.getGeneration());
+        nearCache.put(CacheKey.app("c"), "c", nearCache.getGeneration());
+        
+        assertEquals(nearCache.size(), 2L);
+        assertEquals(nearCache.getStats().get("evictionCount"), Long.valueOf(1L));
+    }
+    
+    @Test
+    public void getStats() {
+        nearCache.put(KEY, "value", nearCache.getGeneration());
+        nearCache.get(KEY);
+        nearCache.get(CacheKey.app("other"));
+        
+        Map<String, Long> stats = nearCache.getStats();
+        assertEquals(stats.get("hitCount"), Long.valueOf(1L));
+        assertEquals(stats.get("missCount"), Long.valueOf(1L));
+        assertEquals(stats.get("evictionCount"), Long.valueOf(0L));
+        assertEquals(stats.get("size"), Long.valueOf(1L));
+    }
+}
@@ -0,0 +1,117 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import org.sagebionetworks.bridge.Roles;
+import org.sagebionetworks.bridge.config.Environment;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Compares the cost of encoding and decoding a user session in the JSON and compact session formats. Run
+ * with main(), which also prints the number of bytes each format stores in Redis. The decode benchmarks
+ * include reading the health code, since the compact format defers decrypting it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionFormatBenchmark {
+
+    private UserSession session;
+    private String json;
+    private byte[] compact;
+
+    @Setup
+    public void setup() throws Exception {
+        session = createSession();
+        json = StudyParticipant.CACHE_WRITER.writeValueAsString(session);
+        compact = CompactSessionCodec.encode(session);
+    }
+
+    @Benchmark
+    public String encodeJson() throws Exception {
+        return StudyParticipant.CACHE_WRITER.writeValueAsString(session);
+    }
+
+    @Benchmark
+    public byte[] encodeCompact() throws Exception {
+        return CompactSessionCodec.encode(session);
+    }
+
+    @Benchmark
+    public String decodeJson() throws Exception {
+        // CacheProvider parses to a tree to adjust legacy properties, then converts to the session.
+        UserSession decoded = BridgeObjectMapper.get().treeToValue(BridgeObjectMapper.get().readTree(json),
+                UserSession.class);
+        return decoded.getHealthCode();
+    }
+
+    @Benchmark
+    public String decodeCompact() throws Exception {
+        return CompactSessionCodec.decode(compact).getHealthCode();
+    }
+
+    @Benchmark
+    public String decodeCompactWithoutHealthCode() throws Exception {
+        return CompactSessionCodec.decode(compact).getId();
+    }
+
+    static UserSession createSession() {
+        StudyParticipant participant = new StudyParticipant.Builder()
+                .withId("6gq4jGXLmAxVbLLmVifKN4")
+                .withHealthCode("5a2192ee-f55d-4d01-a385-2d19f15a0880")
+                .withFirstName("Bridge")
+                .withLastName("IT")
+                .withEmail("bridgeit@sagebase.org")
+                .withEmailVerified(true)
+                .withRoles(ImmutableSet.of(Roles.DEVELOPER, Roles.RESEARCHER))
+                .withLanguages(ImmutableList.of("en", "fr"))
+                .withDataGroups(ImmutableSet.of("sdk-int-1", "sdk-int-2", "group1"))
+                .withStudyIds(ImmutableSet.of("studyA", "studyB"))
+                .withExternalIds(ImmutableMap.of("studyA", "extA", "studyB", "extB"))
+                .withAttributes(ImmutableMap.of("can_be_recontacted", "true"))
+                .withCreatedOn(DateTime.parse("2016-04-21T16:48:22.386Z"))
+                .build();
+        UserSession session = new UserSession(participant);
+        session.setSessionToken("ccea2978-f5b9-4377-8194-f887a3e2a19b");
+        session.setInternalSessionToken("4f0937a5-6ebf-451b-84bc-fbf649b9e93c");
+        session.setAppId(TEST_APP_ID);
+        session.setEnvironment(Environment.LOCAL);
+        session.setAuthenticated(true);
+        return session;
+    }
+
+    public static void main(String[] args) throws Exception {
+        UserSession session = createSession();
+        System.out.println("JSON session bytes: "
+                + StudyParticipant.CACHE_WRITER.writeValueAsString(session).getBytes(StandardCharsets.UTF_8).length);
+        System.out.println("Compact session bytes: " + CompactSessionCodec.encode(session).length);
+
+        new Runner(new OptionsBuilder().include(SessionFormatBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -16,6 +16,8 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -108,6 +110,32 @@ public class DynamoAppConfigDaoTest extends Mockito {
         assertEquals(condition.getAttributeValueList().get(0).getN(), "1");
     }
     
+    @Test
+    public void getAppConfigsLoadsAllCriteriaInOneBatch() {
+        DynamoAppConfig config1 = new DynamoAppConfig();
+        config1.setGuid(GUID);
+        DynamoAppConfig config2 = new DynamoAppConfig();
+        config2.setGuid("otherGuid");
+        List<DynamoAppConfig> configs = ImmutableList.of(config1, config2);
+        when(mockResults.size()).thenReturn(configs.size());
+        when(mockResults.iterator()).thenReturn(configs.iterator());
+        when(mockMapper.query(eq(DynamoAppConfig.class), any())).thenReturn(mockResults);
+        
+        Criteria criteria = new DynamoCriteria();
+        criteria.setKey(CRITERIA_KEY);
+        when(mockCriteriaDao.batchGetCriteria(any())).thenReturn(ImmutableMap.of(CRITERIA_KEY, criteria));
+        
+        List<AppConfig> results = dao.getAppConfigs(TEST_APP_ID, false);
+        
+        // One DynamoDB call for all the criteria, rather than one per app config.
+        verify(mockCriteriaDao, times(1)).batchGetCriteria(ImmutableSet.of(CRITERIA_KEY, "appconfig:otherGuid"));
+        verify(mockCriteriaDao, never()).getCriteria(any());
+        
+        assertSame(results.get(0).getCriteria(), criteria);
+        // The app config without a criteria still gets one, with its key set.
+        assertEquals(results.get(1).getCriteria().getKey(), "appconfig:otherGuid");
+    }
+    
     @Test
     public void getAppConfig() {
         DynamoAppConfig config = new DynamoAppConfig();
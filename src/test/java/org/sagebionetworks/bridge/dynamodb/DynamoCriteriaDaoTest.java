@@ -3,8 +3,15 @@ package org.sagebionetworks.bridge.dynamodb;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -27,6 +34,9 @@ public class DynamoCriteriaDaoTest extends Mockito {
     @Captor
     ArgumentCaptor<DynamoCriteria> criteriaCaptor;
     
+    @Captor
+    ArgumentCaptor<List<Object>> keyListCaptor;
+    
     @InjectMocks
     DynamoCriteriaDao dao;
     
@@ -65,6 +75,42 @@ public class DynamoCriteriaDaoTest extends Mockito {
         assertNull( dao.getCriteria(CRITERIA_KEY) );
     }
     
+    @Test
+    public void batchGetCriteria() {
+        Criteria saved1 = Criteria.create();
+        saved1.setKey(CRITERIA_KEY);
+        Criteria saved2 = Criteria.create();
+        saved2.setKey("criteria:key2");
+        Map<String, List<Object>> batchLoadMap = ImmutableMap.of("Criteria", ImmutableList.of(saved1, saved2));
+        when(mockMapper.batchLoad(anyList())).thenReturn(batchLoadMap);
+        
+        // Duplicates are removed, and a key that isn't found is not in the results.
+        Map<String, Criteria> results = dao.batchGetCriteria(ImmutableList.of(CRITERIA_KEY, "criteria:key2",
+                CRITERIA_KEY, "criteria:key3"));
+        assertEquals(results, ImmutableMap.of(CRITERIA_KEY, saved1, "criteria:key2", saved2));
+        
+        // One mapper call for all the keys. The mapper splits these into requests of up to 100 keys.
+        verify(mockMapper, times(1)).batchLoad(keyListCaptor.capture());
+        verify(mockMapper, never()).load(any());
+        List<Object> keyList = keyListCaptor.getValue();
+        assertEquals(keyList.size(), 3);
+        assertEquals(((DynamoCriteria) keyList.get(0)).getKey(), CRITERIA_KEY);
+        assertEquals(((DynamoCriteria) keyList.get(1)).getKey(), "criteria:key2");
+        assertEquals(((DynamoCriteria) keyList.get(2)).getKey(), "criteria:key3");
+    }
+    
+    @Test
+    public void batchGetCriteriaNoKeys() {
+        assertTrue(dao.batchGetCriteria(ImmutableSet.of()).isEmpty());
+        
+        verifyZeroInteractions(mockMapper);
+    }
+    
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void batchGetCriteriaBlankKey() {
+        dao.batchGetCriteria(ImmutableList.of(CRITERIA_KEY, " "));
+    }
+    
     @Test
     public void deleteCriteria() {
         Criteria saved = Criteria.create();
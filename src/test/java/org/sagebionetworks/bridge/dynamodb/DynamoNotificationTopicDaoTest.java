@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Set;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -99,6 +100,8 @@ public class DynamoNotificationTopicDaoTest {
         // Mock criteria DAO.
         when(mockCriteriaDao.getCriteria(DynamoNotificationTopicDao.CRITERIA_KEY_PREFIX + GUID_WITH_CRITERIA))
                 .thenReturn(makeCriteria());
+        when(mockCriteriaDao.batchGetCriteria(any())).thenReturn(ImmutableMap.of(
+                DynamoNotificationTopicDao.CRITERIA_KEY_PREFIX + GUID_WITH_CRITERIA, makeCriteria()));
 
         // Set up topic DAO.
         dao = new DynamoNotificationTopicDao();
@@ -336,6 +339,12 @@ public class DynamoNotificationTopicDaoTest {
         assertEquals(topics.get(1).getGuid(), GUID_WITH_CRITERIA);
         assertCriteria(GUID_WITH_CRITERIA, topics.get(1).getCriteria());
 
+        // One DynamoDB call for all the criteria, rather than one per topic.
+        verify(mockCriteriaDao, times(1)).batchGetCriteria(ImmutableSet.of(
+                DynamoNotificationTopicDao.CRITERIA_KEY_PREFIX + GUID_WITHOUT_CRITERIA,
+                DynamoNotificationTopicDao.CRITERIA_KEY_PREFIX + GUID_WITH_CRITERIA));
+        verify(mockCriteriaDao, never()).getCriteria(any());
+
         // Verify query.
         verify(mockMapper).queryPage(eq(DynamoNotificationTopic.class), queryExpressionCaptor.capture());
         
@@ -30,6 +30,7 @@ import org.sagebionetworks.bridge.models.demographics.DemographicValue;
 public class DynamoParticipantVersionTest {
     private static final long CREATED_ON = DateTime.parse("2021-10-03T11:25:17.617-0700").getMillis();
     private static final Set<String> DATA_GROUPS = ImmutableSet.of("test-data-group");
+    private static final String FINGERPRINT = "test-fingerprint";
     private static final String KEY = TestConstants.TEST_APP_ID + ':' + TestConstants.HEALTH_CODE;
     private static final List<String> LANGUAGES = ImmutableList.of("en-us");
     private static final long MODIFIED_ON = DateTime.parse("2021-10-12T16:34:54.587-0700").getMillis();
@@ -158,6 +159,7 @@ public class DynamoParticipantVersionTest {
         participantVersion.setTimeZone(TIME_ZONE);
         participantVersion.setAppDemographics(APP_DEMOGRAPHICS);
         participantVersion.setStudyDemographics(STUDY_DEMOGRAPHICS);
+        participantVersion.setFingerprint(FINGERPRINT);
         participantVersion.setVersion(VERSION);
 
         // Convert to JsonNode.
@@ -225,6 +227,7 @@ public class DynamoParticipantVersionTest {
         assertFalse(studyDemographicsInnerDemographicNode.has("units"));
 
         // These fields don't get converted to JSON.
+        assertFalse(jsonNode.has("fingerprint"));
         assertFalse(jsonNode.has("key"));
         assertFalse(jsonNode.has("version"));
 
@@ -247,7 +250,8 @@ public class DynamoParticipantVersionTest {
         assertEquals(participantVersion.getAppDemographics().toString(), APP_DEMOGRAPHICS.toString());
         assertEquals(participantVersion.getStudyDemographics().toString(), STUDY_DEMOGRAPHICS.toString());
 
-        // Version wasn't converted to JSON, and thus isn't in the de-serialized POJO either.
+        // Fingerprint and version weren't converted to JSON, and thus aren't in the de-serialized POJO either.
+        assertNull(participantVersion.getFingerprint());
         assertNull(participantVersion.getVersion());
     }
 }
@@ -218,6 +218,43 @@ public class DynamoReportDataDaoTest extends Mockito {
         verify(mockMapper, never()).batchDelete(dataListCaptor.capture());
     }    
     
+    @Test
+    public void deleteAllReportData() {
+        ReportDataKey otherKey = new ReportDataKey.Builder().withIdentifier("otherReportId")
+                .withHealthCode(HEALTH_CODE).withReportType(PARTICIPANT).withAppId(TEST_APP_ID).build();
+        PaginatedQueryList<DynamoReportData> otherQueryList = mockQueryList(report2);
+        when(mockQueryList.iterator()).thenReturn(ImmutableList.of(report0, report1).iterator());
+        when(mockMapper.query(eq(DynamoReportData.class), any())).thenReturn(mockQueryList, otherQueryList);
+        
+        dao.deleteAllReportData(ImmutableList.of(PARTICIPANT_REPORT_KEY, otherKey));
+        
+        verify(mockMapper, times(2)).query(eq(DynamoReportData.class), queryCaptor.capture());
+        assertEquals(queryCaptor.getAllValues().get(0).getHashKeyValues().getKey(),
+                PARTICIPANT_REPORT_KEY.getKeyString());
+        assertEquals(queryCaptor.getAllValues().get(1).getHashKeyValues().getKey(), otherKey.getKeyString());
+        
+        // Records from both reports are deleted in one batch.
+        verify(mockMapper).batchDelete(dataListCaptor.capture());
+        assertEquals(dataListCaptor.getValue(), ImmutableList.of(report0, report1, report2));
+    }
+    
+    @Test
+    public void deleteAllReportDataNoRecords() {
+        when(mockQueryList.iterator()).thenReturn(ImmutableList.<DynamoReportData>of().iterator());
+        when(mockMapper.query(eq(DynamoReportData.class), any())).thenReturn(mockQueryList);
+        
+        dao.deleteAllReportData(ImmutableList.of(PARTICIPANT_REPORT_KEY));
+        
+        verify(mockMapper, never()).batchDelete(anyList());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private PaginatedQueryList<DynamoReportData> mockQueryList(DynamoReportData... results) {
+        PaginatedQueryList<DynamoReportData> queryList = mock(PaginatedQueryList.class);
+        when(queryList.iterator()).thenReturn(ImmutableList.copyOf(results).iterator());
+        return queryList;
+    }
+    
     @Test
     public void deleteReportDataRecord() {
         when(mockMapper.load(any())).thenReturn(report0);
@@ -43,6 +43,7 @@ import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
@@ -89,7 +90,8 @@ public class DynamoSchedulePlanDaoTest extends Mockito {
         ScheduleCriteria scheduleCriteria = strategy.getScheduleCriteria().get(0);
         Criteria criteria = scheduleCriteria.getCriteria();
         
-        when(mockCriteriaDao.getCriteria(SCHEDULE_CRITERIA_KEY)).thenReturn(criteria);
+        when(mockCriteriaDao.batchGetCriteria(ImmutableSet.of(SCHEDULE_CRITERIA_KEY)))
+                .thenReturn(ImmutableMap.of(SCHEDULE_CRITERIA_KEY, criteria));
     }
     
     @AfterMethod
@@ -144,13 +146,14 @@ public class DynamoSchedulePlanDaoTest extends Mockito {
         assertCriteria(criteria);
         
         String key = criteria.getKey();
-        verify(mockCriteriaDao).getCriteria(key);
+        verify(mockCriteriaDao).batchGetCriteria(ImmutableSet.of(key));
         
         // now have criteriaDao return a different criteria object, that should update the plan
         Criteria persistedCriteria = Criteria.create();
         persistedCriteria.setMinAppVersion(IOS, 1);
         persistedCriteria.setMaxAppVersion(IOS, 65);
-        when(mockCriteriaDao.getCriteria(key)).thenReturn(persistedCriteria);
+        when(mockCriteriaDao.batchGetCriteria(ImmutableSet.of(key)))
+                .thenReturn(ImmutableMap.of(key, persistedCriteria));
         
         plans = dao.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
         plan = plans.get(0);
@@ -162,6 +165,37 @@ public class DynamoSchedulePlanDaoTest extends Mockito {
         assertTrue(criteria.getNoneOfGroups().isEmpty());
     }
     
+    @Test
+    public void getSchedulePlansLoadsAllCriteriaInOneBatch() {
+        // Two plans with two schedule criteria each.
+        DynamoSchedulePlan otherPlan = (DynamoSchedulePlan)constructSchedulePlan();
+        otherPlan.setGuid("otherGuid");
+        for (SchedulePlan plan : ImmutableList.of(schedulePlan, otherPlan)) {
+            CriteriaScheduleStrategy strategy = (CriteriaScheduleStrategy)plan.getStrategy();
+            strategy.getScheduleCriteria().add(new ScheduleCriteria(TestUtils.getSchedule("Other Schedule"),
+                    Criteria.create()));
+        }
+        when(queryResultsPage.getResults()).thenReturn(ImmutableList.of(schedulePlan, otherPlan));
+        when(mockMapper.queryPage(eq(DynamoSchedulePlan.class), any())).thenReturn(queryResultsPage);
+        
+        Criteria otherCriteria = Criteria.create();
+        otherCriteria.setMinAppVersion(IOS, 7);
+        when(mockCriteriaDao.batchGetCriteria(any())).thenReturn(ImmutableMap.of("scheduleCriteria:otherGuid:1",
+                otherCriteria));
+        
+        List<SchedulePlan> plans = dao.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+        
+        // One DynamoDB call for all the criteria, rather than one per schedule criteria.
+        verify(mockCriteriaDao, times(1)).batchGetCriteria(ImmutableSet.of(SCHEDULE_CRITERIA_KEY,
+                "scheduleCriteria:" + GUID + ":1", "scheduleCriteria:otherGuid:0", "scheduleCriteria:otherGuid:1"));
+        verify(mockCriteriaDao, never()).getCriteria(any());
+        
+        // Criteria that are found replace the stubs, the rest keep their stubs with the key set.
+        CriteriaScheduleStrategy strategy = (CriteriaScheduleStrategy)plans.get(1).getStrategy();
+        assertEquals(strategy.getScheduleCriteria().get(0).getCriteria().getKey(), "scheduleCriteria:otherGuid:0");
+        assertSame(strategy.getScheduleCriteria().get(1).getCriteria(), otherCriteria);
+    }
+    
     @Test
     public void getSchedulePlanRetrievesCriteria() {
         mockSchedulePlanQuery();
@@ -172,13 +206,14 @@ public class DynamoSchedulePlanDaoTest extends Mockito {
         assertCriteria(criteria);
         
         String key = criteria.getKey();
-        verify(mockCriteriaDao).getCriteria(key);
+        verify(mockCriteriaDao).batchGetCriteria(ImmutableSet.of(key));
         
         // now have criteriaDao return a different criteria object, that should update the plan
         Criteria persistedCriteria = Criteria.create();
         persistedCriteria.setMinAppVersion(IOS, 1);
         persistedCriteria.setMaxAppVersion(IOS, 65);
-        when(mockCriteriaDao.getCriteria(key)).thenReturn(persistedCriteria);
+        when(mockCriteriaDao.batchGetCriteria(ImmutableSet.of(key)))
+                .thenReturn(ImmutableMap.of(key, persistedCriteria));
         
         plan = dao.getSchedulePlan(TEST_APP_ID, plan.getGuid());
         strategy = (CriteriaScheduleStrategy)plan.getStrategy();
@@ -537,7 +572,7 @@ public class DynamoSchedulePlanDaoTest extends Mockito {
         assertSame(plan, schedulePlan);
         
         verify(mockMapper).queryPage(eq(DynamoSchedulePlan.class), any());
-        verify(mockCriteriaDao).getCriteria(SCHEDULE_CRITERIA_KEY);
+        verify(mockCriteriaDao).batchGetCriteria(ImmutableSet.of(SCHEDULE_CRITERIA_KEY));
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -549,7 +584,7 @@ public class DynamoSchedulePlanDaoTest extends Mockito {
         assertEquals(result, schedulePlan);
         
         verify(mockMapper).queryPage(eq(DynamoSchedulePlan.class), any());
-        verify(mockCriteriaDao).getCriteria(SCHEDULE_CRITERIA_KEY);
+        verify(mockCriteriaDao).batchGetCriteria(ImmutableSet.of(SCHEDULE_CRITERIA_KEY));
     }
     
     private void assertCriteria(Criteria criteria) {
@@ -37,6 +37,8 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
@@ -73,6 +75,9 @@ public class DynamoSurveyDaoTest extends Mockito {
     @Mock
     UploadSchemaService mockUploadSchemaService;
     
+    @Mock
+    NearCacheManager mockNearCacheManager;
+    
     @Mock
     PaginatedQueryList<DynamoSurveyElement> mockElementQueryList;
     
@@ -106,6 +111,7 @@ public class DynamoSurveyDaoTest extends Mockito {
         // These are not injected correctly
         dao.setSurveyMapper(mockSurveyMapper);
         dao.setSurveyElementMapper(mockSurveyElementMapper);
+        dao.setNearCacheManager(mockNearCacheManager);
         
         doReturn(GUID).when(dao).generateGuid();
         DateTimeUtils.setCurrentMillisFixed(CREATED_ON);
@@ -190,6 +196,7 @@ public class DynamoSurveyDaoTest extends Mockito {
         assertEquals(retval.getSchemaRevision().intValue(), SCHEMA_REV);
 
         verify(mockSurveyMapper).save(same(retval));
+        verify(mockNearCacheManager).invalidate(CacheKey.publishedSurvey(TEST_APP_ID, GUID, CREATED_ON));
     }
 
     @Test
@@ -228,6 +235,7 @@ public class DynamoSurveyDaoTest extends Mockito {
         verify(dao).deleteAllElements(GUID, CREATED_ON);
         verify(mockSurveyMapper).delete(survey);
         verify(mockUploadSchemaService).deleteUploadSchemaByIdPermanently(TEST_APP_ID, SURVEY_ID);
+        verify(mockNearCacheManager).invalidate(CacheKey.publishedSurvey(TEST_APP_ID, GUID, CREATED_ON));
     }
     
     @Test
@@ -453,13 +461,15 @@ public class DynamoSurveyDaoTest extends Mockito {
 
     @Test
     public void deleteSurvey() {
-        DynamoSurvey survey = new DynamoSurvey();
+        DynamoSurvey survey = new DynamoSurvey(GUID, CREATED_ON);
+        survey.setAppId(TEST_APP_ID);
         mockSurveyMapper(survey);
         
         dao.deleteSurvey(survey);
         
         verify(mockSurveyMapper).save(surveyCaptor.capture());
         assertTrue(surveyCaptor.getValue().isDeleted());
+        verify(mockNearCacheManager).invalidate(CacheKey.publishedSurvey(TEST_APP_ID, GUID, CREATED_ON));
         
         // EntityNotFoundException cases are handled by the service. This DAO expected survey would 
         // always exist in methods where it is passed in.
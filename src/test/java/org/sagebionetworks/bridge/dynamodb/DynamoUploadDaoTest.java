@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
@@ -18,6 +19,7 @@ import static org.testng.Assert.fail;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -497,8 +499,7 @@ public class DynamoUploadDaoTest {
     }
 
     @Test
-    public void deleteUploadsForHealthCode() {
-        // Make uploads to delete.
+    public void getUploadIdsForHealthCode() {
         DynamoUpload2 upload1 = new DynamoUpload2();
         upload1.setUploadId(UPLOAD_ID);
 
@@ -509,23 +510,29 @@ public class DynamoUploadDaoTest {
         when(mockIndexHelper.queryKeys(DynamoUpload2.class, INDEX_NAME_HEALTH_CODE, TestConstants.HEALTH_CODE, null)).thenReturn(uploads);
 
         // Execute.
-        List<String> uploadIdList = dao.deleteUploadsForHealthCode(TestConstants.HEALTH_CODE);
+        List<String> uploadIdList = dao.getUploadIdsForHealthCode(TestConstants.HEALTH_CODE);
         assertEquals(uploadIdList, ImmutableList.of(UPLOAD_ID, UPLOAD_ID_2));
 
-        // Verify dependencies.
-        verify(mockIndexHelper).queryKeys(DynamoUpload2.class, INDEX_NAME_HEALTH_CODE, TestConstants.HEALTH_CODE, null);
-        verify(mockMapper).batchDelete(uploads);
+        // Nothing is deleted.
+        verify(mockMapper, never()).batchDelete(anyList());
     }
 
     @SuppressWarnings("unchecked")
     @Test
-    public void deleteUploadsForHealthCodeFailsSilently() {
-        when(mockIndexHelper.queryKeys(DynamoUpload2.class, "healthCode", "oneHealthCode", null))
-                .thenReturn(ImmutableList.of());
+    public void deleteUploads() {
+        dao.deleteUploads(ImmutableList.of(UPLOAD_ID, UPLOAD_ID_2));
 
-        dao.deleteUploadsForHealthCode("oneHealthCode");
+        ArgumentCaptor<List<DynamoUpload2>> uploadListCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockMapper).batchDelete(uploadListCaptor.capture());
+        assertEquals(uploadListCaptor.getValue().stream().map(DynamoUpload2::getUploadId).collect(Collectors.toList()),
+                ImmutableList.of(UPLOAD_ID, UPLOAD_ID_2));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void deleteUploadsEmptyList() {
+        dao.deleteUploads(ImmutableList.of());
         
-        verify(mockIndexHelper).queryKeys(DynamoUpload2.class, "healthCode", "oneHealthCode", null);
         verify(mockMapper, never()).batchDelete(any(List.class));
     }
 
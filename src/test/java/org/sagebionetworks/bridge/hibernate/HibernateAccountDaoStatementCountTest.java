@@ -0,0 +1,146 @@
+package org.sagebionetworks.bridge.hibernate;
+
+import static org.mockito.Mockito.mock;
+import static org.sagebionetworks.bridge.Roles.ADMIN;
+import static org.sagebionetworks.bridge.Roles.DEVELOPER;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Properties;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.stat.Statistics;
+import org.joda.time.DateTime;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.models.AccountSummarySearch;
+import org.sagebionetworks.bridge.models.PagedResourceList;
+import org.sagebionetworks.bridge.models.accounts.AccountStatus;
+import org.sagebionetworks.bridge.models.accounts.AccountSummary;
+import org.sagebionetworks.bridge.models.studies.Enrollment;
+
+/**
+ * Runs HibernateAccountDao.getPagedAccountSummaries() against an in-memory database, and counts the SQL statements
+ * it executes. The accounts have entries in every collection, so an account loaded on its own would need a query
+ * per collection. The number of statements for a page must not grow with the size of the page.
+ */
+public class HibernateAccountDaoStatementCountTest {
+    private static final int ACCOUNT_COUNT = 30;
+    // The ID query, the accounts query, one batched query for each of the six collections of HibernateAccount
+    // (attributes, consents, roles, data groups, languages and enrollments), and the total count.
+    private static final long MAX_STATEMENTS_PER_PAGE = 9L;
+
+    private SessionFactory sessionFactory;
+    private HibernateAccountDao dao;
+
+    @BeforeMethod
+    public void before() {
+        Properties props = new Properties();
+        props.put("hibernate.connection.driver_class", "org.h2.Driver");
+        props.put("hibernate.connection.url", "jdbc:h2:mem:"
+                + TestUtils.randomName(HibernateAccountDaoStatementCountTest.class) + ";DB_CLOSE_DELAY=-1");
+        props.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        props.put("hibernate.hbm2ddl.auto", "create-drop");
+        props.put("hibernate.generate_statistics", true);
+
+        MetadataSources metadataSources = new MetadataSources(
+                new StandardServiceRegistryBuilder().applySettings(props).build());
+        metadataSources.addAnnotatedClass(HibernateAccount.class);
+        metadataSources.addAnnotatedClass(HibernateEnrollment.class);
+        sessionFactory = metadataSources.buildMetadata().buildSessionFactory();
+
+        HibernateHelper helper = new HibernateHelper(sessionFactory, new BasicPersistenceExceptionConverter());
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            helper.create(createAccount(String.format("account%03d", i)));
+        }
+
+        dao = new HibernateAccountDao();
+        dao.setHibernateHelper(helper);
+        dao.setCacheProvider(mock(CacheProvider.class));
+
+        RequestContext.set(new RequestContext.Builder().withCallerRoles(ImmutableSet.of(ADMIN)).build());
+    }
+
+    @AfterMethod
+    public void after() {
+        RequestContext.set(null);
+        sessionFactory.close();
+    }
+
+    @Test
+    public void statementCountDoesNotGrowWithPageSize() {
+        long smallPageStatements = countStatementsForPage(5, 5);
+        long largePageStatements = countStatementsForPage(25, 25);
+
+        assertEquals(largePageStatements, smallPageStatements);
+        assertTrue(largePageStatements <= MAX_STATEMENTS_PER_PAGE, "Statements: " + largePageStatements);
+    }
+
+    @Test
+    public void lastPageIsBounded() {
+        // A partial page infers the total, so it doesn't need the count query.
+        long statements = countStatementsForPage(50, ACCOUNT_COUNT);
+
+        assertTrue(statements < MAX_STATEMENTS_PER_PAGE, "Statements: " + statements);
+    }
+
+    @Test
+    public void summariesIncludeCollections() {
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID,
+                new AccountSummarySearch.Builder().withPageSize(10).build());
+
+        AccountSummary summary = page.getItems().get(0);
+        assertEquals(summary.getId(), "account000");
+        assertEquals(summary.getAttributes(), ImmutableMap.of("key", "value"));
+        assertEquals(summary.getRoles(), ImmutableSet.of(DEVELOPER));
+        assertEquals(summary.getDataGroups(), ImmutableSet.of("group1", "group2"));
+        assertEquals(summary.getStudyIds(), ImmutableSet.of("study1", "study2"));
+        assertEquals(page.getTotal(), Integer.valueOf(ACCOUNT_COUNT));
+    }
+
+    private long countStatementsForPage(int pageSize, int expectedItems) {
+        Statistics stats = sessionFactory.getStatistics();
+        stats.clear();
+
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID,
+                new AccountSummarySearch.Builder().withPageSize(pageSize).build());
+        assertEquals(page.getItems().size(), expectedItems);
+
+        return stats.getPrepareStatementCount();
+    }
+
+    private static HibernateAccount createAccount(String id) {
+        HibernateAccount account = new HibernateAccount();
+        account.setId(id);
+        account.setAppId(TEST_APP_ID);
+        account.setHealthCode("healthCode-" + id);
+        account.setEmail(id + "@example.com");
+        account.setCreatedOn(DateTime.now());
+        account.setStatus(AccountStatus.ENABLED);
+        account.setAttributes(Maps.newHashMap(ImmutableMap.of("key", "value")));
+        account.setRoles(Sets.newHashSet(DEVELOPER));
+        account.setDataGroups(Sets.newHashSet("group1", "group2"));
+        account.setLanguages(Lists.newArrayList("en", "fr"));
+
+        HibernateAccountConsent consent = new HibernateAccountConsent();
+        consent.setConsentCreatedOn(DateTime.now().getMillis());
+        account.getConsents().put(new HibernateAccountConsentKey("subpop", DateTime.now().getMillis()), consent);
+
+        account.getEnrollments().add(Enrollment.create(TEST_APP_ID, "study1", id));
+        account.getEnrollments().add(Enrollment.create(TEST_APP_ID, "study2", id));
+        return account;
+    }
+}
@@ -14,10 +14,14 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
 import static org.sagebionetworks.bridge.TestConstants.USER_DATA_GROUPS;
 import static org.sagebionetworks.bridge.TestConstants.TEST_NOTE;
 import static org.sagebionetworks.bridge.dao.AccountDao.MIGRATION_VERSION;
+import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.ACCOUNTS_BY_ID_QUERY;
+import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.ACCOUNT_COUNT_EXPIRE_IN_SECONDS;
 import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.APP_IDS_FOR_USER_QUERY;
 import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.DELETE_ALL_ACCOUNTS_QUERY;
+import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.COUNT_QUERY;
 import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.FULL_QUERY;
 import static org.sagebionetworks.bridge.models.SearchTermPredicate.AND;
+import static org.sagebionetworks.bridge.models.SearchTermPredicate.OR;
 import static org.sagebionetworks.bridge.models.StringSearchPosition.INFIX;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.ENABLED;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.UNVERIFIED;
@@ -28,9 +32,12 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.util.HashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -57,6 +64,8 @@ import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.Roles;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
@@ -121,6 +130,9 @@ public class HibernateAccountDaoTest extends Mockito {
 
     @Mock
     private HibernateHelper mockHibernateHelper;
+    
+    @Mock
+    private CacheProvider mockCacheProvider;
 
     private App app;
     
@@ -143,6 +155,7 @@ public class HibernateAccountDaoTest extends Mockito {
 
         dao = spy(new HibernateAccountDao());
         dao.setHibernateHelper(mockHibernateHelper);
+        dao.setCacheProvider(mockCacheProvider);
 
         app = App.create();
         app.setIdentifier(TEST_APP_ID);
@@ -275,6 +288,41 @@ public class HibernateAccountDaoTest extends Mockito {
         assertFalse(opt.isPresent());
     }
 
+    @Test
+    public void getAccounts() throws Exception {
+        HibernateAccount accountA = makeValidHibernateAccount(false);
+        accountA.setId("userA");
+        HibernateAccount accountB = makeValidHibernateAccount(false);
+        accountB.setId("userB");
+        accountB.setHealthCode(null);
+        HibernateAccount otherAppAccount = makeValidHibernateAccount(false);
+        otherAppAccount.setId("userC");
+        otherAppAccount.setAppId("other-app");
+        when(mockHibernateHelper.queryGet(eq(HibernateAccountDao.ACCOUNTS_BY_ID_QUERY), any(), isNull(), isNull(),
+                eq(HibernateAccount.class))).thenReturn(ImmutableList.of(otherAppAccount, accountB, accountA));
+        when(mockHibernateHelper.update(accountB)).thenReturn(accountB);
+        
+        List<String> userIds = ImmutableList.of("userA", "userB", "userC", "userD", "userA");
+        List<Account> accounts = dao.getAccounts(TEST_APP_ID, userIds);
+        // In the order of the IDs, without the missing account, the account in another app, or duplicates
+        assertEquals(accounts.size(), 2);
+        assertSame(accounts.get(0), accountA);
+        assertSame(accounts.get(1), accountB);
+        assertNotNull(accountB.getHealthCode());
+        
+        verify(mockHibernateHelper).queryGet(eq(HibernateAccountDao.ACCOUNTS_BY_ID_QUERY), 
+                paramCaptor.capture(), isNull(), isNull(), eq(HibernateAccount.class));
+        assertEquals(paramCaptor.getValue().get("ids"), userIds);
+        verify(mockHibernateHelper).update(accountB);
+        verify(mockHibernateHelper, never()).update(accountA);
+    }
+    
+    @Test
+    public void getAccountsEmpty() {
+        assertTrue(dao.getAccounts(TEST_APP_ID, ImmutableList.of()).isEmpty());
+        verify(mockHibernateHelper, never()).queryGet(any(), any(), any(), any(), any());
+    }
+
     @Test
     public void getByIdWrongApp() throws Exception {
         HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
@@ -468,7 +516,7 @@ public class HibernateAccountDaoTest extends Mockito {
         String expQuery = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN "
                 + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
                 + "WHERE acct.appId = :appId AND admin = 1 AND acct.orgMembership = "
-                + ":orgId GROUP BY acct.id";
+                + ":orgId GROUP BY acct.id ORDER BY acct.id";
 
         String expCountQuery = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct "
                 + "LEFT JOIN acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
@@ -491,9 +539,10 @@ public class HibernateAccountDaoTest extends Mockito {
 
         when(mockHibernateHelper.queryGet(expQuery, APP_QUERY_PARAMS, 10, 5, String.class))
                 .thenReturn(ImmutableList.of("account-1", "account-2"));
-        when(mockHibernateHelper.getById(HibernateAccount.class, "account-1")).thenReturn(hibernateAccount1);        
-        when(mockHibernateHelper.getById(HibernateAccount.class, "account-2")).thenReturn(hibernateAccount2);
-        when(mockHibernateHelper.queryCount(eq(expCountQuery), any())).thenReturn(12);
+        // Returned out of order, to verify the order of the ID query is retained
+        when(mockHibernateHelper.queryGet(ACCOUNTS_BY_ID_QUERY, 
+                ImmutableMap.of("ids", ImmutableList.of("account-1", "account-2")), null, null, 
+                HibernateAccount.class)).thenReturn(ImmutableList.of(hibernateAccount2, hibernateAccount1));
 
         // execute and validate
         AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetBy(10)
@@ -528,9 +577,9 @@ public class HibernateAccountDaoTest extends Mockito {
 
         // verify hibernate calls
         verify(mockHibernateHelper).queryGet(eq(expQuery), eq(APP_QUERY_PARAMS), eq(10), eq(5), eq(String.class));
-        verify(mockHibernateHelper).getById(HibernateAccount.class, "account-1");
-        verify(mockHibernateHelper).getById(HibernateAccount.class, "account-2");
-        verify(mockHibernateHelper).queryCount(expCountQuery, APP_QUERY_PARAMS);
+        verify(mockHibernateHelper, never()).getById(any(), any());
+        // The last page is partial, so the total does not need to be counted
+        verify(mockHibernateHelper, never()).queryCount(expCountQuery, APP_QUERY_PARAMS);
     }
     
     @Test
@@ -594,10 +643,10 @@ public class HibernateAccountDaoTest extends Mockito {
         HibernateAccount hibernateAccount2 = makeValidHibernateAccount(false);
         hibernateAccount2.setId("account-2");
         hibernateAccount2.setEnrollments(set);
-        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any()))
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(String.class)))
                 .thenReturn(ImmutableList.of("account-1", "account-2"));
-        when(mockHibernateHelper.getById(HibernateAccount.class, "account-1")).thenReturn(hibernateAccount1);
-        when(mockHibernateHelper.getById(HibernateAccount.class, "account-2")).thenReturn(hibernateAccount2);
+        when(mockHibernateHelper.queryGet(eq(ACCOUNTS_BY_ID_QUERY), any(), any(), any(), eq(HibernateAccount.class)))
+                .thenReturn(ImmutableList.of(hibernateAccount1, hibernateAccount2));
 
         AccountSummarySearch search = new AccountSummarySearch.Builder().build();
         PagedResourceList<AccountSummary> accountSummaryResourceList = dao.getPagedAccountSummaries(TEST_APP_ID, search);
@@ -618,7 +667,7 @@ public class HibernateAccountDaoTest extends Mockito {
                 +":endTime AND :language IN ELEMENTS(acct.languages) AND (:IN1 IN elements(acct.dataGroups) "
                 +"AND :IN2 IN elements(acct.dataGroups)) AND (:NOTIN1 NOT IN elements(acct.dataGroups) AND "
                 +":NOTIN2 NOT IN elements(acct.dataGroups)) AND ri.signedInOn IS NOT NULL";
-        String expQuery = "SELECT acct.id " + expBaseQuery + " GROUP BY acct.id";
+        String expQuery = "SELECT acct.id " + expBaseQuery + " GROUP BY acct.id ORDER BY acct.id";
         String expCountQuery = "SELECT COUNT(DISTINCT acct.id) " + expBaseQuery;
 
         // Setup start and end dates.
@@ -626,10 +675,9 @@ public class HibernateAccountDaoTest extends Mockito {
         DateTime endDate = DateTime.parse("2017-05-19T18:32:03.434-0700");
 
         // mock hibernate
+        // The page is past the end of the results, so the total is counted
         when(mockHibernateHelper.queryGet(eq(expQuery), any(), any(), any(), any()))
-                .thenReturn(ImmutableList.of(ACCOUNT_ID));
-        when(mockHibernateHelper.getById(HibernateAccount.class, ACCOUNT_ID))
-                .thenReturn(makeValidHibernateAccount(false));
+                .thenReturn(ImmutableList.of());
         when(mockHibernateHelper.queryCount(eq(expCountQuery), any())).thenReturn(11);
 
         // execute and validate - Just validate filters and query, since everything else is tested in getPaged().
@@ -676,7 +724,6 @@ public class HibernateAccountDaoTest extends Mockito {
         params.put("orgId", TEST_ORG_ID);
 
         verify(mockHibernateHelper).queryGet(eq(expQuery), paramCaptor.capture(), eq(10), eq(5), eq(String.class));
-        verify(mockHibernateHelper).getById(HibernateAccount.class, ACCOUNT_ID);
         verify(mockHibernateHelper).queryCount(eq(expCountQuery), paramCaptor.capture());
 
         Map<String, Object> capturedParams = paramCaptor.getAllValues().get(0);
@@ -715,6 +762,9 @@ public class HibernateAccountDaoTest extends Mockito {
         try {
             RequestContext.set(new RequestContext.Builder().withCallerRoles(ImmutableSet.of(STUDY_COORDINATOR))
                     .withOrgSponsoredStudies(studyIds).build());
+            // A full page, so the total is counted
+            when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(String.class)))
+                    .thenReturn(makeAccountIds(50));
 
             AccountSummarySearch search = new AccountSummarySearch.Builder().build();
             dao.getPagedAccountSummaries(TEST_APP_ID, search);
@@ -734,7 +784,7 @@ public class HibernateAccountDaoTest extends Mockito {
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
                 + "acct.email LIKE :email AND acct.phone.number LIKE :number AND acct.createdOn >= "
                 + ":startTime AND acct.createdOn <= :endTime AND :language IN ELEMENTS(acct.languages) "
-                + "GROUP BY acct.id";
+                + "GROUP BY acct.id ORDER BY acct.id";
 
         String expCountQuery = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct LEFT JOIN "
                 + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId WHERE "
@@ -747,10 +797,9 @@ public class HibernateAccountDaoTest extends Mockito {
         DateTime endDate = DateTime.parse("2017-05-19T18:32:03.434-0700");
 
         // mock hibernate
+        // The page is past the end of the results, so the total is counted
         when(mockHibernateHelper.queryGet(eq(expQuery), any(), any(), any(), any()))
-                .thenReturn(ImmutableList.of(ACCOUNT_ID));
-        when(mockHibernateHelper.getById(HibernateAccount.class, ACCOUNT_ID))
-            .thenReturn(makeValidHibernateAccount(false));
+                .thenReturn(ImmutableList.of());
         when(mockHibernateHelper.queryCount(any(), any())).thenReturn(11);
 
         // execute and validate - Just validate filters and query, since everything else is tested in getPaged().
@@ -786,7 +835,6 @@ public class HibernateAccountDaoTest extends Mockito {
         params.put("language", "de");
 
         verify(mockHibernateHelper).queryGet(eq(expQuery), paramCaptor.capture(), eq(10), eq(5), eq(String.class));
-        verify(mockHibernateHelper).getById(HibernateAccount.class, ACCOUNT_ID);
         verify(mockHibernateHelper).queryCount(eq(expCountQuery), paramCaptor.capture());
 
         Map<String, Object> capturedParams = paramCaptor.getAllValues().get(0);
@@ -810,7 +858,7 @@ public class HibernateAccountDaoTest extends Mockito {
     public void getPagedScopedToOrgStudies() {
         String queryExpr = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
-                + "enrollment.studyId IN (:studies) GROUP BY acct.id";
+                + "enrollment.studyId IN (:studies) GROUP BY acct.id ORDER BY acct.id";
         
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(STUDY_COORDINATOR))
@@ -828,7 +876,7 @@ public class HibernateAccountDaoTest extends Mockito {
     public void getPagedNotScopedToOrgStudiesForAdmin() {
         String queryExpr = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId "
-                + "GROUP BY acct.id";
+                + "GROUP BY acct.id ORDER BY acct.id";
         
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(ADMIN))
@@ -842,6 +890,200 @@ public class HibernateAccountDaoTest extends Mockito {
         assertNull(paramCaptor.getValue().get("studies"));
     }
     
+    @Test
+    public void getPagedLoadsPageInBoundedQueries() throws Exception {
+        List<String> ids = makeAccountIds(100);
+        List<HibernateAccount> accounts = ids.stream().map(id -> {
+            HibernateAccount account = new HibernateAccount();
+            account.setId(id);
+            account.setAppId(TEST_APP_ID);
+            return account;
+        }).collect(Collectors.toList());
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(String.class))).thenReturn(ids);
+        when(mockHibernateHelper.queryGet(eq(ACCOUNTS_BY_ID_QUERY), any(), any(), any(), eq(HibernateAccount.class)))
+                .thenReturn(accounts);
+        when(mockHibernateHelper.queryCount(any(), any())).thenReturn(1000);
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withPageSize(100).build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        assertEquals(page.getItems().size(), 100);
+        assertEquals(page.getItems().get(99).getId(), "account-99");
+        assertEquals(page.getTotal(), Integer.valueOf(1000));
+        
+        // One query for the IDs, one for the accounts (their collections are batch loaded, see 
+        // HibernateAccountTest), and one for the total, regardless of the page size.
+        verify(mockHibernateHelper, times(2)).queryGet(any(), any(), any(), any(), any());
+        verify(mockHibernateHelper).queryGet(ACCOUNTS_BY_ID_QUERY, ImmutableMap.of("ids", ids), null, null, 
+                HibernateAccount.class);
+        verify(mockHibernateHelper).queryCount(any(), any());
+        verify(mockHibernateHelper, never()).getById(any(), any());
+    }
+    
+    @Test
+    public void getPagedSkipsAccountQueryForEmptyPage() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        assertTrue(page.getItems().isEmpty());
+        assertEquals(page.getTotal(), Integer.valueOf(0));
+        verify(mockHibernateHelper).queryGet(any(), any(), any(), any(), any());
+        verify(mockHibernateHelper, never()).queryCount(any(), any());
+    }
+    
+    @Test
+    public void getPagedSkipsAccountDeletedBetweenQueries() throws Exception {
+        HibernateAccount account = makeValidHibernateAccount(false);
+        account.setId("account-2");
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(String.class)))
+                .thenReturn(ImmutableList.of("account-1", "account-2"));
+        when(mockHibernateHelper.queryGet(eq(ACCOUNTS_BY_ID_QUERY), any(), any(), any(), eq(HibernateAccount.class)))
+                .thenReturn(ImmutableList.of(account));
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        assertEquals(page.getItems().size(), 1);
+        assertEquals(page.getItems().get(0).getId(), "account-2");
+    }
+    
+    @Test
+    public void getPagedCachesCountOfFirstPage() {
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(String.class)))
+                .thenReturn(makeAccountIds(50));
+        when(mockHibernateHelper.queryCount(any(), any())).thenReturn(500);
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        assertEquals(page.getTotal(), Integer.valueOf(500));
+        
+        // The first page always counts, so the total is current when someone starts paging
+        verify(mockCacheProvider, never()).getObject(any(), eq(Integer.class));
+        
+        ArgumentCaptor<CacheKey> keyCaptor = ArgumentCaptor.forClass(CacheKey.class);
+        verify(mockCacheProvider).setObject(keyCaptor.capture(), eq(500), eq(ACCOUNT_COUNT_EXPIRE_IN_SECONDS));
+        assertTrue(keyCaptor.getValue().toString().endsWith(":" + TEST_APP_ID + ":AccountSummaryCount"));
+    }
+    
+    @Test
+    public void getPagedUsesCachedCountForLaterPages() {
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(String.class)))
+                .thenReturn(makeAccountIds(50));
+        when(mockCacheProvider.getObject(any(), eq(Integer.class))).thenReturn(500);
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetBy(100).build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        assertEquals(page.getTotal(), Integer.valueOf(500));
+        verify(mockHibernateHelper, never()).queryCount(any(), any());
+    }
+    
+    @Test
+    public void getPagedCountsLaterPagesWhenNotCached() {
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(String.class)))
+                .thenReturn(makeAccountIds(50));
+        when(mockHibernateHelper.queryCount(any(), any())).thenReturn(500);
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetBy(100).build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        assertEquals(page.getTotal(), Integer.valueOf(500));
+        verify(mockCacheProvider).setObject(any(), eq(500), eq(ACCOUNT_COUNT_EXPIRE_IN_SECONDS));
+    }
+    
+    @Test
+    public void getPagedCountCacheKeyVariesBySearch() {
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(String.class)))
+                .thenReturn(makeAccountIds(50));
+        
+        dao.getPagedAccountSummaries(TEST_APP_ID, new AccountSummarySearch.Builder().build());
+        dao.getPagedAccountSummaries(TEST_APP_ID, new AccountSummarySearch.Builder().withEmailFilter("a").build());
+        dao.getPagedAccountSummaries(TEST_APP_ID, new AccountSummarySearch.Builder().withEmailFilter("b").build());
+        dao.getPagedAccountSummaries(TEST_APP_ID, new AccountSummarySearch.Builder().withEmailFilter("b")
+                .withOffsetBy(50).build());
+        
+        ArgumentCaptor<CacheKey> keyCaptor = ArgumentCaptor.forClass(CacheKey.class);
+        verify(mockCacheProvider, times(4)).setObject(keyCaptor.capture(), any(), anyInt());
+        List<CacheKey> keys = keyCaptor.getAllValues();
+        assertEquals(ImmutableSet.copyOf(keys.subList(0, 3)).size(), 3);
+        // Paging does not change the key
+        assertEquals(keys.get(3), keys.get(2));
+    }
+    
+    @Test
+    public void getPagedReturnsNextPageOffsetKeyForFullPage() {
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(String.class)))
+                .thenReturn(makeAccountIds(50));
+        
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, 
+                new AccountSummarySearch.Builder().build());
+        assertEquals(page.getNextPageOffsetKey(), "account-49");
+    }
+    
+    @Test
+    public void getPagedReturnsNoNextPageOffsetKeyForPartialPage() {
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(String.class)))
+                .thenReturn(makeAccountIds(49));
+        
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, 
+                new AccountSummarySearch.Builder().build());
+        assertNull(page.getNextPageOffsetKey());
+    }
+    
+    @Test
+    public void getPagedWithOffsetKey() {
+        String expQuery = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
+                + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
+                + "acct.id > :offsetKey GROUP BY acct.id ORDER BY acct.id";
+        String expCountQuery = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct LEFT JOIN "
+                + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId WHERE "
+                + "acct.appId = :appId";
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(String.class)))
+                .thenReturn(ImmutableList.of("account-1"));
+        when(mockHibernateHelper.queryCount(any(), any())).thenReturn(200);
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetKey("account-0").build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        // The total cannot be inferred from the partial page, because the number of preceding records 
+        // is unknown.
+        assertEquals(page.getTotal(), Integer.valueOf(200));
+        assertEquals(page.getRequestParams().get("offsetKey"), "account-0");
+        assertNull(page.getNextPageOffsetKey());
+        
+        verify(mockHibernateHelper).queryGet(eq(expQuery), paramCaptor.capture(), eq(0), eq(50), eq(String.class));
+        assertEquals(paramCaptor.getValue().get("offsetKey"), "account-0");
+        
+        verify(mockHibernateHelper).queryCount(eq(expCountQuery), paramCaptor.capture());
+        assertNull(paramCaptor.getValue().get("offsetKey"));
+        
+        // This is not the first page, so the total was checked in the cache
+        verify(mockCacheProvider).getObject(any(), eq(Integer.class));
+    }
+    
+    @Test
+    public void offsetKeyNotIncludedInCountQuery() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetKey("account-0").build();
+        
+        QueryBuilder builder = dao.makeQuery(COUNT_QUERY, TEST_APP_ID, null, search, true);
+        assertEquals(builder.getQuery(), "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct "
+                + "LEFT JOIN acct.enrollments AS enrollment WITH acct.id = enrollment.accountId WHERE "
+                + "acct.appId = :appId");
+        assertNull(builder.getParameters().get("offsetKey"));
+    }
+    
+    @Test
+    public void offsetKeyRequiredWithOrPredicate() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetKey("account-0")
+                .withPredicate(OR).withEmailFilter("a").withLanguage("en").build();
+        
+        QueryBuilder builder = dao.makeQuery(FULL_QUERY, TEST_APP_ID, null, search, false);
+        assertEquals(builder.getQuery(), "SELECT acct FROM HibernateAccount AS acct LEFT JOIN "
+                + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = "
+                + ":appId AND acct.id > :offsetKey AND (acct.email LIKE :email OR :language IN "
+                + "ELEMENTS(acct.languages)) GROUP BY acct.id");
+    }
+    
     @Test
     public void unmarshallAccountSummarySuccess() {
         RequestContext.set(new RequestContext.Builder()
@@ -1287,7 +1529,7 @@ public class HibernateAccountDaoTest extends Mockito {
         
         when(mockHibernateHelper.queryCount(any(), any())).thenReturn(100);
         
-        PagedResourceList<ExternalIdentifierInfo> retValue = dao.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 100, 50);
+        PagedResourceList<ExternalIdentifierInfo> retValue = dao.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 100, null, 50);
         assertEquals(retValue.getTotal(), new Integer(100));
         
         ExternalIdentifierInfo info1 = retValue.getItems().get(0);
@@ -1314,6 +1556,45 @@ public class HibernateAccountDaoTest extends Mockito {
         assertEquals(params2.get("idFilter"), "idFilter%");
     }
     
+    @Test
+    public void getPagedExternalIdsWithOffsetKey() {
+        HibernateEnrollment en1 = new HibernateEnrollment();
+        en1.setStudyId(TEST_STUDY_ID);
+        en1.setExternalId("extId1");
+        HibernateEnrollment en2 = new HibernateEnrollment();
+        en2.setStudyId(TEST_STUDY_ID);
+        en2.setExternalId("extId2");
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(HibernateEnrollment.class)))
+            .thenReturn(ImmutableList.of(en1, en2));
+        when(mockHibernateHelper.queryCount(any(), any())).thenReturn(100);
+        
+        PagedResourceList<ExternalIdentifierInfo> retValue = dao.getPagedExternalIds(TEST_APP_ID, 
+                TEST_STUDY_ID, null, 0, "extId0", 2);
+        assertEquals(retValue.getTotal(), Integer.valueOf(100));
+        assertEquals(retValue.getNextPageOffsetKey(), "extId2");
+        
+        verify(mockHibernateHelper).queryGet(eq("SELECT en from HibernateEnrollment as en WHERE "
+                + "en.appId = :appId AND en.studyId = :studyId AND en.externalId IS NOT NULL AND "
+                + "en.externalId > :offsetKey ORDER BY en.externalId"), paramCaptor.capture(), eq(0), eq(2), 
+                eq(HibernateEnrollment.class));
+        assertEquals(paramCaptor.getValue().get("offsetKey"), "extId0");
+        
+        verify(mockHibernateHelper).queryCount(eq(EXTID_COUNT_QUERY), paramCaptor.capture());
+        assertNull(paramCaptor.getValue().get("offsetKey"));
+    }
+    
+    @Test
+    public void getPagedExternalIdsLastPageHasNoOffsetKey() {
+        HibernateEnrollment en1 = new HibernateEnrollment();
+        en1.setExternalId("extId1");
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(HibernateEnrollment.class)))
+            .thenReturn(ImmutableList.of(en1));
+        
+        PagedResourceList<ExternalIdentifierInfo> retValue = dao.getPagedExternalIds(TEST_APP_ID, 
+                TEST_STUDY_ID, null, 0, "extId0", 2);
+        assertNull(retValue.getNextPageOffsetKey());
+    }
+    
     @Test
     public void getPagedExternalIdsNoIdFilter() {
         List<HibernateEnrollment> list = ImmutableList.of();
@@ -1321,7 +1602,7 @@ public class HibernateAccountDaoTest extends Mockito {
             .thenReturn(list);
         when(mockHibernateHelper.queryCount(any(), any())).thenReturn(100);
         
-        dao.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 100, 50);
+        dao.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 100, null, 50);
         
         verify(mockHibernateHelper).queryGet(eq(EXTID_QUERY), paramCaptor.capture(), eq(100), eq(50), eq(HibernateEnrollment.class));
         verify(mockHibernateHelper).queryCount(eq(EXTID_COUNT_QUERY), paramCaptor.capture());
@@ -1366,6 +1647,10 @@ public class HibernateAccountDaoTest extends Mockito {
     }
 
     // Create minimal Hibernate account for everything that will be used by HibernateAccountDao.
+    private static List<String> makeAccountIds(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "account-" + i).collect(Collectors.toList());
+    }
+    
     private static HibernateAccount makeValidHibernateAccount(boolean generatePasswordHash) throws Exception {
         HibernateAccount hibernateAccount = new HibernateAccount();
         hibernateAccount.setId(ACCOUNT_ID);
@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.hibernate;
 
 import static java.lang.Boolean.TRUE;
 import static org.joda.time.DateTimeZone.UTC;
+import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.Roles.ADMIN;
 import static org.sagebionetworks.bridge.Roles.DEVELOPER;
 import static org.sagebionetworks.bridge.Roles.RESEARCHER;
@@ -31,6 +32,7 @@ import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.lang.reflect.Method;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -38,6 +40,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.persistence.ElementCollection;
+import javax.persistence.OneToMany;
+
+import org.hibernate.annotations.BatchSize;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.testng.annotations.Test;
@@ -58,6 +64,22 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 public class HibernateAccountTest {
+    
+    // Paging through accounts would otherwise load each of these collections with a separate query for 
+    // every account in the page.
+    @Test
+    public void collectionsAreBatchLoadedForAFullPage() {
+        int collectionCount = 0;
+        for (Method method : HibernateAccount.class.getMethods()) {
+            if (method.isAnnotationPresent(ElementCollection.class) || method.isAnnotationPresent(OneToMany.class)) {
+                BatchSize batchSize = method.getAnnotation(BatchSize.class);
+                assertNotNull(batchSize, method.getName() + " is not batch loaded");
+                assertTrue(batchSize.size() >= API_MAXIMUM_PAGE_SIZE, method.getName() + " batch is less than a page");
+                collectionCount++;
+            }
+        }
+        assertEquals(collectionCount, 6);
+    }
     private static final Set<Enrollment> ENROLLMENTS = ImmutableSet
             .of(Enrollment.create(TEST_APP_ID, TEST_STUDY_ID, TEST_USER_ID, TEST_EXTERNAL_ID));
     
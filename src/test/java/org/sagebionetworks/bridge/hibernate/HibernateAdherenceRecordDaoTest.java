@@ -15,6 +15,7 @@ import static org.sagebionetworks.bridge.models.schedules2.adherence.SortOrder.D
 import static org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValidator.DEFAULT_PAGE_SIZE;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 import java.util.HashSet;
 import java.util.List;
@@ -30,6 +31,7 @@ import com.google.common.collect.ImmutableSet;
 import org.hibernate.Session;
 import org.hibernate.query.NativeQuery;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
@@ -85,6 +87,9 @@ public class HibernateAdherenceRecordDaoTest extends Mockito {
     @Captor
     ArgumentCaptor<AdherenceRecordId> idCaptor;
 
+    @Captor
+    ArgumentCaptor<Map<String, Object>> paramsCaptor;
+
     @InjectMocks
     HibernateAdherenceRecordDao dao;
 
@@ -120,6 +125,27 @@ public class HibernateAdherenceRecordDaoTest extends Mockito {
         assertEquals(retValue.getTotal(), Integer.valueOf(150));
     }
 
+    @Test
+    public void getSessionAdherenceRecords() {
+        List<AdherenceRecord> list = ImmutableList.of(getAdherenceRecord(GUID), getAdherenceRecord(GUID));
+        Set<String> userIds = ImmutableSet.of("userA", "userB");
+        
+        when(mockHelper.nativeQueryGet(HibernateAdherenceRecordDao.SESSION_RECORDS_FOR_USERS_QUERY,
+                ImmutableMap.of("studyId", TEST_STUDY_ID, "userIds", userIds), null, null,
+                AdherenceRecord.class)).thenReturn(list);
+        
+        List<AdherenceRecord> retValue = dao.getSessionAdherenceRecords(TEST_STUDY_ID, userIds);
+        assertEquals(retValue, list);
+    }
+    
+    @Test
+    public void getSessionAdherenceRecordsNoUsers() {
+        List<AdherenceRecord> retValue = dao.getSessionAdherenceRecords(TEST_STUDY_ID, ImmutableSet.of());
+        assertTrue(retValue.isEmpty());
+        
+        verify(mockHelper, never()).nativeQueryGet(any(), any(), any(), any(), any());
+    }
+
     @Test
     public void createQuery_everything() {
         AdherenceRecordsSearch search = search().build();
@@ -624,6 +650,99 @@ public class HibernateAdherenceRecordDaoTest extends Mockito {
         verifyNoMoreInteractions(mockHelper);
     }
 
+    @Test
+    public void updateAdherenceRecords() {
+        // New record
+        AdherenceRecord rec1 = getAdherenceRecord("AAA");
+        rec1.setInstanceTimestamp(CREATED_ON);
+        
+        // Update to a persisted record, which is returned with a different time zone
+        AdherenceRecord rec2 = getAdherenceRecord("BBB");
+        rec2.setInstanceTimestamp(CREATED_ON);
+        AdherenceRecord persisted2 = getAdherenceRecord("BBB");
+        persisted2.setEventTimestamp(CREATED_ON.withZone(DateTimeZone.forID("America/Chicago")));
+        persisted2.setInstanceTimestamp(CREATED_ON.withZone(DateTimeZone.forID("America/Chicago")));
+        persisted2.setUploadedOn(UPLOADED_ON.minusDays(1));
+        persisted2.setUploadIds(new HashSet<>(ImmutableSet.of("upload-id-old")));
+        
+        // Removes a persisted record
+        AdherenceRecord rec3 = getAdherenceRecord("CCC");
+        rec3.setInstanceTimestamp(CREATED_ON);
+        rec3.setStartedOn(null);
+        AdherenceRecord persisted3 = getAdherenceRecord("CCC");
+        persisted3.setInstanceTimestamp(CREATED_ON);
+        
+        when(mockHelper.nativeQueryGet(eq(HibernateAdherenceRecordDao.RECORDS_FOR_INSTANCES_QUERY), any(), 
+                isNull(), isNull(), eq(AdherenceRecord.class))).thenReturn(ImmutableList.of(persisted2, persisted3));
+        
+        dao.updateAdherenceRecords(ImmutableList.of(rec1, rec2, rec3));
+        
+        verify(mockHelper).nativeQueryGet(eq(HibernateAdherenceRecordDao.RECORDS_FOR_INSTANCES_QUERY), 
+                paramsCaptor.capture(), isNull(), isNull(), eq(AdherenceRecord.class));
+        Map<String, Object> params = paramsCaptor.getValue();
+        assertEquals(params.get("userId"), TEST_USER_ID);
+        assertEquals(params.get("studyId"), TEST_STUDY_ID);
+        assertEquals(params.get("instanceGuids"), ImmutableSet.of("AAA", "BBB", "CCC"));
+        
+        verify(mockSession).save(rec1);
+        verify(mockSession).update(rec2);
+        verify(mockSession).delete(persisted3);
+        verify(mockSession, never()).save(rec3);
+        
+        assertEquals(rec2.getUploadedOn(), UPLOADED_ON.minusDays(1));
+        assertEquals(rec2.getUploadIds(), ImmutableSet.of("upload-id", "upload-id-old"));
+    }
+    
+    @Test
+    public void updateAdherenceRecords_sameRecordTwice() {
+        AdherenceRecord rec1 = getAdherenceRecord("AAA");
+        rec1.setInstanceTimestamp(CREATED_ON);
+        
+        AdherenceRecord rec2 = getAdherenceRecord("AAA");
+        rec2.setInstanceTimestamp(CREATED_ON);
+        rec2.setUploadIds(new HashSet<>(ImmutableSet.of("upload-id-2")));
+        
+        when(mockHelper.nativeQueryGet(any(), any(), any(), any(), eq(AdherenceRecord.class)))
+            .thenReturn(ImmutableList.of());
+        
+        dao.updateAdherenceRecords(ImmutableList.of(rec1, rec2));
+        
+        // The second record is merged with the first, and is then inserted
+        verify(mockSession).save(rec2);
+        verify(mockSession, never()).save(rec1);
+        assertEquals(rec2.getUploadIds(), ImmutableSet.of("upload-id", "upload-id-2"));
+    }
+    
+    @Test
+    public void updateAdherenceRecords_noRecords() {
+        dao.updateAdherenceRecords(ImmutableList.of());
+        
+        verifyNoMoreInteractions(mockHelper);
+    }
+    
+    @Test
+    public void getAdherenceRecordsForInstances() {
+        List<AdherenceRecord> list = ImmutableList.of(getAdherenceRecord(GUID));
+        Set<String> instanceGuids = ImmutableSet.of(GUID);
+        
+        when(mockHelper.nativeQueryGet(HibernateAdherenceRecordDao.RECORDS_FOR_INSTANCES_QUERY,
+                ImmutableMap.of("userId", TEST_USER_ID, "studyId", TEST_STUDY_ID, "instanceGuids", instanceGuids),
+                null, null, AdherenceRecord.class)).thenReturn(list);
+        
+        List<AdherenceRecord> retValue = dao.getAdherenceRecordsForInstances(TEST_USER_ID, TEST_STUDY_ID,
+                instanceGuids);
+        assertEquals(retValue, list);
+    }
+    
+    @Test
+    public void getAdherenceRecordsForInstancesEmpty() {
+        List<AdherenceRecord> retValue = dao.getAdherenceRecordsForInstances(TEST_USER_ID, TEST_STUDY_ID,
+                ImmutableSet.of());
+        assertTrue(retValue.isEmpty());
+        
+        verify(mockHelper, never()).nativeQueryGet(any(), any(), any(), any(), any());
+    }
+
     private AdherenceRecordsSearch.Builder search() {
         return new AdherenceRecordsSearch.Builder().withUserId(TEST_USER_ID).withStudyId(TEST_STUDY_ID);
     }
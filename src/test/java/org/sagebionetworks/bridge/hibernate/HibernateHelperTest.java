@@ -30,10 +30,12 @@ import javax.persistence.RollbackException;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import org.hibernate.CacheMode;
 import org.hibernate.NonUniqueResultException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.boot.spi.SessionFactoryOptions;
 import org.hibernate.exception.ConstraintViolationException;
 import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
@@ -126,6 +128,7 @@ public class HibernateHelperTest {
 
         // execute and validate
         helper.deleteById(Object.class, "test-id");
+        verify(mockSession).setCacheMode(CacheMode.REFRESH);
         verify(mockSession).delete(hibernateOutput);
     }
     
@@ -155,6 +158,19 @@ public class HibernateHelperTest {
         // execute and validate
         Object helperOutput = helper.getById(Object.class, "test-id");
         assertSame(helperOutput, hibernateOutput);
+        verify(mockSession, never()).setCacheMode(any());
+    }
+
+    @Test
+    public void getByIdForUpdate() {
+        // set up
+        Object hibernateOutput = new Object();
+        when(mockSession.get(Object.class, "test-id")).thenReturn(hibernateOutput);
+
+        // execute and validate
+        Object helperOutput = helper.getByIdForUpdate(Object.class, "test-id");
+        assertSame(helperOutput, hibernateOutput);
+        verify(mockSession).setCacheMode(CacheMode.REFRESH);
     }
 
     @Test
@@ -211,6 +227,38 @@ public class HibernateHelperTest {
         // execute and validate
         List<Object> helperOutputList = helper.queryGet(QUERY, null, null, null, Object.class);
         assertSame(helperOutputList, hibernateOutputList);
+        verify(mockQuery, never()).setCacheable(true);
+    }
+
+    @Test
+    public void queryGetCachesSecondLevelCacheEntities() {
+        // Enable the query cache
+        SessionFactoryOptions mockOptions = mock(SessionFactoryOptions.class);
+        when(mockOptions.isQueryCacheEnabled()).thenReturn(true);
+        when(mockSessionFactory.getSessionFactoryOptions()).thenReturn(mockOptions);
+        helper = spy(new HibernateHelper(mockSessionFactory, mockExceptionConverter));
+        doAnswer(invocation -> {
+            Function<Session, ?> function = invocation.getArgument(0);
+            return function.apply(mockSession);
+        }).when(helper).execute(any());
+
+        // Templates are in the second-level cache, so their queries are cached
+        Query<HibernateTemplate> mockTemplateQuery = mock(Query.class);
+        when(mockSession.createQuery(QUERY, HibernateTemplate.class)).thenReturn(mockTemplateQuery);
+        helper.queryGet(QUERY, null, null, null, HibernateTemplate.class);
+        verify(mockTemplateQuery).setCacheable(true);
+
+        Query<HibernateTemplate> mockTemplateQueryOne = mock(Query.class);
+        when(mockSession.createQuery(QUERY, HibernateTemplate.class)).thenReturn(mockTemplateQueryOne);
+        when(mockTemplateQueryOne.uniqueResultOptional()).thenReturn(Optional.empty());
+        helper.queryGetOne(QUERY, null, HibernateTemplate.class);
+        verify(mockTemplateQueryOne).setCacheable(true);
+
+        // Accounts aren't, so theirs aren't
+        Query<HibernateAccount> mockAccountQuery = mock(Query.class);
+        when(mockSession.createQuery(QUERY, HibernateAccount.class)).thenReturn(mockAccountQuery);
+        helper.queryGet(QUERY, null, null, null, HibernateAccount.class);
+        verify(mockAccountQuery, never()).setCacheable(true);
     }
 
     @Test
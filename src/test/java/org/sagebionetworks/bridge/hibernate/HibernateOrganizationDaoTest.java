@@ -90,6 +90,26 @@ public class HibernateOrganizationDaoTest extends Mockito {
         assertFalse(retValue.isPresent());
     }
     
+    @Test
+    public void getOrganizationForUpdate() {
+        HibernateOrganization org = new HibernateOrganization();
+        when(mockHelper.getByIdForUpdate(any(), any())).thenReturn(org);
+        
+        Optional<Organization> retValue = dao.getOrganizationForUpdate(TEST_APP_ID, "anIdentifier");
+        assertSame(retValue.get(), org);
+        
+        verify(mockHelper).getByIdForUpdate(eq(HibernateOrganization.class), idCaptor.capture());
+        assertEquals(idCaptor.getValue().getAppId(), TEST_APP_ID);
+        assertEquals(idCaptor.getValue().getIdentifier(), "anIdentifier");
+        verify(mockHelper, never()).getById(any(), any());
+    }
+    
+    @Test
+    public void getOrganizationForUpdateNotFound() {
+        Optional<Organization> retValue = dao.getOrganizationForUpdate(TEST_APP_ID, "anIdentifier");
+        assertFalse(retValue.isPresent());
+    }
+    
     @Test
     public void deleteOrganization() {
         Organization org = Organization.create();
@@ -1,7 +1,16 @@
 package org.sagebionetworks.bridge.hibernate;
 
 import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import org.joda.time.DateTime;
 import org.mockito.ArgumentCaptor;
@@ -79,4 +88,21 @@ public class HibernateRequestInfoDaoTest extends Mockito {
         dao.removeRequestInfo(TEST_USER_ID);
         verify(mockHelper, never()).deleteById(any(), any());
     }       
+    
+    @Test
+    public void getRequestInfos() {
+        Set<String> userIds = ImmutableSet.of("userA", "userB");
+        List<RequestInfo> list = ImmutableList.of(new RequestInfo.Builder().withUserId("userA").build());
+        when(mockHelper.queryGet(HibernateRequestInfoDao.GET_FOR_USERS_QUERY, ImmutableMap.of("userIds", userIds),
+                null, null, RequestInfo.class)).thenReturn(list);
+        
+        assertEquals(dao.getRequestInfos(userIds), list);
+    }
+    
+    @Test
+    public void getRequestInfosNoUsers() {
+        assertTrue(dao.getRequestInfos(ImmutableSet.of()).isEmpty());
+        
+        verify(mockHelper, never()).queryGet(any(), any(), any(), any(), any());
+    }
 }
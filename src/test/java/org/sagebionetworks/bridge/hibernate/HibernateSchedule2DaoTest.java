@@ -19,6 +19,8 @@ import static org.sagebionetworks.bridge.hibernate.HibernateSchedule2Dao.INSERT;
 import static org.sagebionetworks.bridge.hibernate.HibernateSchedule2Dao.INSTANCE_GUID;
 import static org.sagebionetworks.bridge.hibernate.HibernateSchedule2Dao.SELECT_ASSESSMENTS_FOR_SESSION_INSTANCE;
 import static org.sagebionetworks.bridge.hibernate.HibernateSchedule2Dao.SELECT_COUNT;
+import static org.sagebionetworks.bridge.hibernate.HibernateSchedule2Dao.SELECT_METADATA_FOR_INSTANCES;
+import static org.sagebionetworks.bridge.hibernate.HibernateSchedule2Dao.SELECT_METADATA_FOR_SESSION_INSTANCES;
 import static org.sagebionetworks.bridge.hibernate.HibernateSchedule2Dao.SELECT_SESSION_METADATA_FOR_SCHEDULE;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -414,6 +416,50 @@ public class HibernateSchedule2DaoTest extends Mockito {
         assertEquals(paramsCaptor.getValue().get(INSTANCE_GUID), GUID);
     }
     
+    @Test
+    public void getTimelineMetadataForInstances() {
+        List<TimelineMetadata> results = ImmutableList.of(new TimelineMetadata());
+        when(mockHibernateHelper.nativeQueryGet(any(), any(), any(), any(), eq(TimelineMetadata.class)))
+                .thenReturn(results);
+        
+        List<TimelineMetadata> retValue = dao.getTimelineMetadataForInstances(ImmutableSet.of(GUID));
+        assertSame(retValue, results);
+        
+        verify(mockHibernateHelper).nativeQueryGet(eq(SELECT_METADATA_FOR_INSTANCES), paramsCaptor.capture(),
+                isNull(), isNull(), eq(TimelineMetadata.class));
+        assertEquals(paramsCaptor.getValue().get(HibernateSchedule2Dao.GUIDS), ImmutableSet.of(GUID));
+    }
+    
+    @Test
+    public void getTimelineMetadataForInstancesEmpty() {
+        List<TimelineMetadata> retValue = dao.getTimelineMetadataForInstances(ImmutableSet.of());
+        assertTrue(retValue.isEmpty());
+        
+        verify(mockHibernateHelper, never()).nativeQueryGet(any(), any(), any(), any(), any());
+    }
+    
+    @Test
+    public void getMetadataForSessionInstances() {
+        List<TimelineMetadata> results = ImmutableList.of(new TimelineMetadata());
+        when(mockHibernateHelper.nativeQueryGet(any(), any(), any(), any(), eq(TimelineMetadata.class)))
+                .thenReturn(results);
+        
+        List<TimelineMetadata> retValue = dao.getMetadataForSessionInstances(ImmutableSet.of(GUID));
+        assertSame(retValue, results);
+        
+        verify(mockHibernateHelper).nativeQueryGet(eq(SELECT_METADATA_FOR_SESSION_INSTANCES), 
+                paramsCaptor.capture(), isNull(), isNull(), eq(TimelineMetadata.class));
+        assertEquals(paramsCaptor.getValue().get(HibernateSchedule2Dao.GUIDS), ImmutableSet.of(GUID));
+    }
+    
+    @Test
+    public void getMetadataForSessionInstancesEmpty() {
+        List<TimelineMetadata> retValue = dao.getMetadataForSessionInstances(ImmutableSet.of());
+        assertTrue(retValue.isEmpty());
+        
+        verify(mockHibernateHelper, never()).nativeQueryGet(any(), any(), any(), any(), any());
+    }
+    
     @Test
     public void getScheduleMetadata() {
         List<TimelineMetadata> results = ImmutableList.of();
@@ -0,0 +1,173 @@
+package org.sagebionetworks.bridge.hibernate;
+
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.google.common.collect.ImmutableMap;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.models.organizations.HibernateOrganization;
+import org.sagebionetworks.bridge.models.organizations.OrganizationId;
+
+/**
+ * Runs the HibernateHelper against an in-memory database with the second-level cache turned on, to verify that the
+ * update and delete paths don't leave stale entries in the cache.
+ */
+public class HibernateSecondLevelCacheTest {
+    private static final String LIST_QUERY = "FROM HibernateOrganization WHERE appId = :appId ORDER BY identifier";
+    private static final Map<String, Object> APP_PARAMS = ImmutableMap.of("appId", TEST_APP_ID);
+    private static final OrganizationId ORG_ID = new OrganizationId(TEST_APP_ID, "org1");
+
+    private String dbUrl;
+    private SessionFactory sessionFactory;
+    private HibernateHelper helper;
+
+    @BeforeMethod
+    public void before() {
+        dbUrl = "jdbc:h2:mem:" + TestUtils.randomName(HibernateSecondLevelCacheTest.class) + ";DB_CLOSE_DELAY=-1";
+        sessionFactory = createSessionFactory("create-drop");
+        helper = new HibernateHelper(sessionFactory, new BasicPersistenceExceptionConverter());
+
+        helper.create(createOrganization("org1", "Org 1"));
+    }
+
+    @AfterMethod
+    public void after() {
+        sessionFactory.close();
+    }
+
+    @Test
+    public void getByIdReadsFromCache() {
+        // The organization was cached when it was created.
+        assertEquals(helper.getById(HibernateOrganization.class, ORG_ID).getName(), "Org 1");
+        assertEquals(helper.getById(HibernateOrganization.class, ORG_ID).getName(), "Org 1");
+
+        CacheRegionStatistics stats = regionStats();
+        assertEquals(stats.getHitCount(), 2L);
+        assertEquals(stats.getMissCount(), 0L);
+    }
+
+    @Test
+    public void updateReplacesCachedEntity() {
+        HibernateOrganization org = helper.getById(HibernateOrganization.class, ORG_ID);
+        org.setName("Updated Org 1");
+        helper.update(org);
+
+        assertEquals(helper.getById(HibernateOrganization.class, ORG_ID).getName(), "Updated Org 1");
+    }
+
+    @Test
+    public void deleteByIdEvictsCachedEntity() {
+        helper.getById(HibernateOrganization.class, ORG_ID);
+        helper.deleteById(HibernateOrganization.class, ORG_ID);
+
+        assertNull(helper.getById(HibernateOrganization.class, ORG_ID));
+    }
+
+    @Test
+    public void getByIdForUpdateIgnoresStaleCachedEntity() {
+        // Another node, sharing the database but not the cache, updates the organization.
+        helper.getById(HibernateOrganization.class, ORG_ID);
+        try (SessionFactory otherNodeFactory = createSessionFactory("none")) {
+            HibernateHelper otherNodeHelper = new HibernateHelper(otherNodeFactory,
+                    new BasicPersistenceExceptionConverter());
+            HibernateOrganization org = otherNodeHelper.getById(HibernateOrganization.class, ORG_ID);
+            org.setName("Updated Org 1");
+            otherNodeHelper.update(org);
+        }
+        assertEquals(helper.getById(HibernateOrganization.class, ORG_ID).getName(), "Org 1");
+
+        // The current version is read, so it can be updated without failing the version check.
+        HibernateOrganization org = helper.getByIdForUpdate(HibernateOrganization.class, ORG_ID);
+        assertEquals(org.getName(), "Updated Org 1");
+        org.setName("Updated Again");
+        helper.update(org);
+
+        assertEquals(helper.getById(HibernateOrganization.class, ORG_ID).getName(), "Updated Again");
+    }
+
+    @Test
+    public void deleteByIdIgnoresStaleCachedEntity() {
+        // Another node, sharing the database but not the cache, updates the organization.
+        helper.getById(HibernateOrganization.class, ORG_ID);
+        try (SessionFactory otherNodeFactory = createSessionFactory("none")) {
+            HibernateHelper otherNodeHelper = new HibernateHelper(otherNodeFactory,
+                    new BasicPersistenceExceptionConverter());
+            HibernateOrganization org = otherNodeHelper.getById(HibernateOrganization.class, ORG_ID);
+            org.setName("Updated Org 1");
+            otherNodeHelper.update(org);
+        }
+
+        // This node's cached copy has the old version, which would fail the delete's version check.
+        helper.deleteById(HibernateOrganization.class, ORG_ID);
+        assertNull(helper.getById(HibernateOrganization.class, ORG_ID));
+    }
+
+    @Test
+    public void bulkQueryUpdateEvictsCachedEntities() {
+        helper.getById(HibernateOrganization.class, ORG_ID);
+        helper.queryUpdate("DELETE FROM HibernateOrganization WHERE appId = :appId", APP_PARAMS);
+
+        assertNull(helper.getById(HibernateOrganization.class, ORG_ID));
+    }
+
+    @Test
+    public void nativeQueryUpdateEvictsCachedEntities() {
+        helper.getById(HibernateOrganization.class, ORG_ID);
+        helper.nativeQueryUpdate("DELETE FROM Organizations WHERE appId = :appId", APP_PARAMS);
+
+        assertNull(helper.getById(HibernateOrganization.class, ORG_ID));
+    }
+
+    @Test
+    public void cachedQueryIsInvalidatedByCreate() {
+        assertEquals(helper.queryGet(LIST_QUERY, APP_PARAMS, null, null, HibernateOrganization.class).size(), 1);
+        assertEquals(helper.queryGet(LIST_QUERY, APP_PARAMS, null, null, HibernateOrganization.class).size(), 1);
+        assertEquals(sessionFactory.getStatistics().getQueryCacheHitCount(), 1L);
+
+        helper.create(createOrganization("org2", "Org 2"));
+
+        List<HibernateOrganization> orgs = helper.queryGet(LIST_QUERY, APP_PARAMS, null, null,
+                HibernateOrganization.class);
+        assertEquals(orgs.size(), 2);
+        assertEquals(orgs.get(1).getName(), "Org 2");
+    }
+
+    private SessionFactory createSessionFactory(String schemaAction) {
+        Properties props = new Properties();
+        props.put("hibernate.connection.driver_class", "org.h2.Driver");
+        props.put("hibernate.connection.url", dbUrl);
+        props.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        props.put("hibernate.hbm2ddl.auto", schemaAction);
+        HibernateCacheConfig.applySettings(props, 100, 60, true);
+
+        MetadataSources metadataSources = new MetadataSources(
+                new StandardServiceRegistryBuilder().applySettings(props).build());
+        metadataSources.addAnnotatedClass(HibernateOrganization.class);
+        return metadataSources.buildMetadata().buildSessionFactory();
+    }
+
+    private CacheRegionStatistics regionStats() {
+        return sessionFactory.getStatistics().getDomainDataRegionStatistics(HibernateCacheConfig.ORGANIZATION_REGION);
+    }
+
+    private static HibernateOrganization createOrganization(String identifier, String name) {
+        HibernateOrganization org = new HibernateOrganization();
+        org.setAppId(TEST_APP_ID);
+        org.setIdentifier(identifier);
+        org.setName(name);
+        return org;
+    }
+}
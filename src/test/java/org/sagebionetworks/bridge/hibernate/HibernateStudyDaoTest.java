@@ -172,6 +172,22 @@ public class HibernateStudyDaoTest extends Mockito {
         assertEquals(studyId.getAppId(), TEST_APP_ID);
     }
     
+    @Test
+    public void getStudyForUpdate() {
+        HibernateStudy study = new HibernateStudy();
+        when(hibernateHelper.getByIdForUpdate(eq(HibernateStudy.class), any())).thenReturn(study);
+        
+        Study returnedValue = dao.getStudyForUpdate(TEST_APP_ID, "id");
+        assertEquals(returnedValue, study);
+        
+        verify(hibernateHelper).getByIdForUpdate(eq(HibernateStudy.class), studyIdCaptor.capture());
+        verify(hibernateHelper, never()).getById(any(), any());
+        
+        StudyId studyId = studyIdCaptor.getValue();
+        assertEquals(studyId.getIdentifier(), "id");
+        assertEquals(studyId.getAppId(), TEST_APP_ID);
+    }
+    
     @Test
     public void createStudy() {
         HibernateStudy study = new HibernateStudy();
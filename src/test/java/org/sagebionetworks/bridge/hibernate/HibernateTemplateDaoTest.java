@@ -10,6 +10,7 @@ import static org.sagebionetworks.bridge.models.templates.TemplateType.SMS_ACCOU
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
 
 import java.util.Map;
 import java.util.Optional;
@@ -116,6 +117,27 @@ public class HibernateTemplateDaoTest extends Mockito {
         Optional<Template> result = dao.getTemplate(TEST_APP_ID, GUID);
         assertFalse(result.isPresent());
     }
+    
+    @Test
+    public void getTemplateForUpdate() { 
+        HibernateTemplate template = new HibernateTemplate();
+        template.setAppId(TEST_APP_ID);
+        when(mockHelper.getByIdForUpdate(HibernateTemplate.class, GUID)).thenReturn(template);
+        
+        Optional<Template> result = dao.getTemplateForUpdate(TEST_APP_ID, GUID);
+        assertSame(result.get(), template);
+        verify(mockHelper, never()).getById(any(), any());
+    }
+    
+    @Test
+    public void getTemplateForUpdateWrongApp() {
+        HibernateTemplate template = new HibernateTemplate();
+        template.setAppId("not the app we're looking for");
+        when(mockHelper.getByIdForUpdate(HibernateTemplate.class, GUID)).thenReturn(template);
+        
+        Optional<Template> result = dao.getTemplateForUpdate(TEST_APP_ID, GUID);
+        assertFalse(result.isPresent());
+    }
 
     @Test
     public void createTemplate() {
@@ -139,7 +161,7 @@ public class HibernateTemplateDaoTest extends Mockito {
     public void deleteTemplatePermanently() {
         HibernateTemplate template = new HibernateTemplate();
         template.setAppId(TEST_APP_ID);
-        when(mockHelper.getById(HibernateTemplate.class, GUID)).thenReturn(template);
+        when(mockHelper.getByIdForUpdate(HibernateTemplate.class, GUID)).thenReturn(template);
         
         dao.deleteTemplatePermanently(TEST_APP_ID, GUID);
         
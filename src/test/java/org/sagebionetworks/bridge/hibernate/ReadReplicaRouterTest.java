@@ -0,0 +1,171 @@
+package org.sagebionetworks.bridge.hibernate;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.h2.jdbcx.JdbcDataSource;
+import org.mockito.Mockito;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.TestUtils;
+
+/**
+ * Uses two in-memory databases as stand-ins for the primary and the replica. Each has a marker row that says which
+ * database it is. The replica also has a status table that the lag query reads, so tests can set the replica's lag.
+ */
+public class ReadReplicaRouterTest extends Mockito {
+    private static final String LAG_QUERY = "SELECT secondsBehind AS Seconds_Behind_Master FROM ReplicaStatus";
+    private static final long MAX_LAG_SECONDS = 10L;
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReadReplicaRouter router;
+
+    @BeforeMethod
+    public void before() throws Exception {
+        primary = createDatabase(ReadReplicaRouter.PRIMARY);
+        replica = createDatabase(ReadReplicaRouter.REPLICA);
+        execute(replica, "CREATE TABLE ReplicaStatus (secondsBehind BIGINT)");
+        execute(replica, "INSERT INTO ReplicaStatus VALUES (3)");
+
+        router = new ReadReplicaRouter(primary, replica, LAG_QUERY, MAX_LAG_SECONDS, 10L);
+    }
+
+    @Test
+    public void notReplicaSafeGoesToPrimary() throws Throwable {
+        router.checkReplicaLag();
+
+        assertEquals(readMarker(), ReadReplicaRouter.PRIMARY);
+    }
+
+    @Test
+    public void replicaSafeGoesToReplica() throws Throwable {
+        router.checkReplicaLag();
+
+        assertEquals(readMarkerReplicaSafe(), ReadReplicaRouter.REPLICA);
+        // Only the annotated method is routed to the replica.
+        assertEquals(readMarker(), ReadReplicaRouter.PRIMARY);
+
+        Map<String, Map<String, Long>> stats = router.getStats();
+        assertEquals(stats.get(ReadReplicaRouter.PRIMARY).get("checkouts").longValue(), 1L);
+        assertEquals(stats.get(ReadReplicaRouter.REPLICA).get("checkouts").longValue(), 1L);
+        assertEquals(stats.get(ReadReplicaRouter.REPLICA).get("lagSeconds").longValue(), 3L);
+        assertEquals(stats.get(ReadReplicaRouter.REPLICA).get("fallbacks").longValue(), 0L);
+    }
+
+    @Test
+    public void replicaSafeGoesToPrimaryBeforeLagIsChecked() throws Throwable {
+        assertEquals(readMarkerReplicaSafe(), ReadReplicaRouter.PRIMARY);
+        assertEquals(router.getStats().get(ReadReplicaRouter.REPLICA).get("lagSeconds").longValue(), -1L);
+    }
+
+    @Test
+    public void replicaSafeGoesToPrimaryWhenReplicaIsLagging() throws Throwable {
+        execute(replica, "UPDATE ReplicaStatus SET secondsBehind = 60");
+        router.checkReplicaLag();
+        assertEquals(readMarkerReplicaSafe(), ReadReplicaRouter.PRIMARY);
+        assertEquals(router.getStats().get(ReadReplicaRouter.REPLICA).get("fallbacks").longValue(), 1L);
+
+        // Once it catches up, the replica is used again.
+        execute(replica, "UPDATE ReplicaStatus SET secondsBehind = 0");
+        router.checkReplicaLag();
+        assertEquals(readMarkerReplicaSafe(), ReadReplicaRouter.REPLICA);
+    }
+
+    @Test
+    public void replicaSafeGoesToPrimaryWhenReplicationIsStopped() throws Throwable {
+        execute(replica, "UPDATE ReplicaStatus SET secondsBehind = NULL");
+        router.checkReplicaLag();
+
+        assertEquals(readMarkerReplicaSafe(), ReadReplicaRouter.PRIMARY);
+    }
+
+    @Test
+    public void replicaSafeGoesToPrimaryWhenLagCheckFails() throws Throwable {
+        router.checkReplicaLag();
+        execute(replica, "DROP TABLE ReplicaStatus");
+        router.checkReplicaLag();
+
+        assertEquals(readMarkerReplicaSafe(), ReadReplicaRouter.PRIMARY);
+    }
+
+    @Test
+    public void replicaWithoutStatusIsNotLagging() throws Throwable {
+        // A replica that doesn't use binlog replication returns no rows.
+        execute(replica, "DELETE FROM ReplicaStatus");
+        router.checkReplicaLag();
+
+        assertEquals(readMarkerReplicaSafe(), ReadReplicaRouter.REPLICA);
+    }
+
+    @Test
+    public void connectionWithCredentialsIsRouted() throws Throwable {
+        router.checkReplicaLag();
+
+        ProceedingJoinPoint mockJoinPoint = mock(ProceedingJoinPoint.class);
+        when(mockJoinPoint.proceed()).thenAnswer(invocation -> readMarkerWithCredentials());
+        assertEquals(router.routeReplicaSafe(mockJoinPoint), ReadReplicaRouter.REPLICA);
+        assertEquals(readMarkerWithCredentials(), ReadReplicaRouter.PRIMARY);
+
+        Map<String, Map<String, Long>> stats = router.getStats();
+        assertEquals(stats.get(ReadReplicaRouter.PRIMARY).get("checkouts").longValue(), 1L);
+        assertEquals(stats.get(ReadReplicaRouter.REPLICA).get("checkouts").longValue(), 1L);
+    }
+
+    @Test
+    public void noReplica() throws Throwable {
+        router = new ReadReplicaRouter(primary, null, LAG_QUERY, MAX_LAG_SECONDS, 10L);
+
+        assertEquals(readMarkerReplicaSafe(), ReadReplicaRouter.PRIMARY);
+        assertFalse(router.getStats().containsKey(ReadReplicaRouter.REPLICA));
+    }
+
+    private String readMarkerReplicaSafe() throws Throwable {
+        ProceedingJoinPoint mockJoinPoint = mock(ProceedingJoinPoint.class);
+        when(mockJoinPoint.proceed()).thenAnswer(invocation -> readMarker());
+        return (String) router.routeReplicaSafe(mockJoinPoint);
+    }
+
+    private String readMarker() throws SQLException {
+        try (Connection connection = router.getDataSource().getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT name FROM Marker")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    // The in-memory databases have the default user, with an empty password.
+    private String readMarkerWithCredentials() throws SQLException {
+        try (Connection connection = router.getDataSource().getConnection("", "");
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT name FROM Marker")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    private static DataSource createDatabase(String name) throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + TestUtils.randomName(ReadReplicaRouterTest.class) + ";DB_CLOSE_DELAY=-1");
+        execute(dataSource, "CREATE TABLE Marker (name VARCHAR(20))");
+        execute(dataSource, "INSERT INTO Marker VALUES ('" + name + "')");
+        return dataSource;
+    }
+
+    private static void execute(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -78,6 +78,7 @@ public class AccountSummarySearchTest {
         
         AccountSummarySearch search = new AccountSummarySearch.Builder()
             .withOffsetBy(10)
+            .withOffsetKey("offsetKey")
             .withPageSize(100)
             .withEmailFilter("email")
             .withPhoneFilter("phone")
@@ -109,6 +110,7 @@ public class AccountSummarySearchTest {
         AccountSummarySearch deser = BridgeObjectMapper.get().readValue(json, AccountSummarySearch.class);
         
         assertEquals(deser.getOffsetBy(), 10);
+        assertEquals(deser.getOffsetKey(), "offsetKey");
         assertEquals(deser.getPageSize(), 100);
         assertEquals(deser.getEmailFilter(), "email");
         assertEquals(deser.getPhoneFilter(), "phone");
@@ -136,6 +138,7 @@ public class AccountSummarySearchTest {
         
         AccountSummarySearch search = new AccountSummarySearch.Builder()
             .withOffsetBy(10)
+            .withOffsetKey("offsetKey")
             .withPageSize(100)
             .withEmailFilter("email")
             .withPhoneFilter("phone")
@@ -158,6 +161,7 @@ public class AccountSummarySearchTest {
 
         AccountSummarySearch copy = search.toBuilder().build();
         assertEquals(copy.getOffsetBy(), 10);
+        assertEquals(copy.getOffsetKey(), "offsetKey");
         assertEquals(copy.getPageSize(), 100);
         assertEquals(copy.getEmailFilter(), "email");
         assertEquals(copy.getPhoneFilter(), "phone");
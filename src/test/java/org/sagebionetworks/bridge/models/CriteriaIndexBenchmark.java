@@ -0,0 +1,144 @@
+package org.sagebionetworks.bridge.models;
+
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.sagebionetworks.bridge.models.OperatingSystem.ANDROID;
+import static org.sagebionetworks.bridge.models.OperatingSystem.IOS;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import org.sagebionetworks.bridge.models.appconfig.AppConfig;
+
+/**
+ * Compares matching a list of candidates against a request context with CriteriaUtils.filterByCriteria(), to
+ * matching them with a CriteriaIndex built once for the candidates (and to building the index for every request,
+ * which is the worst case). The candidates have random criteria drawn from 30 data groups, 10 studies, two
+ * operating systems and four languages, and each benchmark invocation matches one of 64 random contexts. Run with
+ * main().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CriteriaIndexBenchmark {
+
+    private static final List<String> LANGUAGES = ImmutableList.of("en", "fr", "de", "es");
+    private static final int CONTEXT_COUNT = 64;
+
+    @Param({ "10", "100", "500" })
+    public int candidateCount;
+
+    private List<AppConfig> candidates;
+    private CriteriaIndex<AppConfig> index;
+    private CriteriaContext[] contexts;
+    private int nextContext;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42L);
+        List<String> dataGroups = names("group", 30);
+        List<String> studyIds = names("study", 10);
+
+        candidates = new ArrayList<>();
+        for (int i = 0; i < candidateCount; i++) {
+            candidates.add(createAppConfig(random, dataGroups, studyIds));
+        }
+        index = new CriteriaIndex<>(candidates);
+
+        contexts = new CriteriaContext[CONTEXT_COUNT];
+        for (int i = 0; i < CONTEXT_COUNT; i++) {
+            contexts[i] = createContext(random, dataGroups, studyIds);
+        }
+    }
+
+    @Benchmark
+    public List<AppConfig> criteriaUtils() {
+        return CriteriaUtils.filterByCriteria(nextContext(), candidates, null);
+    }
+
+    @Benchmark
+    public List<AppConfig> criteriaIndex() {
+        return index.filterByCriteria(nextContext(), null);
+    }
+
+    @Benchmark
+    public List<AppConfig> criteriaIndexRebuiltPerRequest() {
+        return new CriteriaIndex<>(candidates).filterByCriteria(nextContext(), null);
+    }
+
+    private CriteriaContext nextContext() {
+        CriteriaContext context = contexts[nextContext];
+        nextContext = (nextContext + 1) % CONTEXT_COUNT;
+        return context;
+    }
+
+    private static List<String> names(String prefix, int count) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            names.add(prefix + i);
+        }
+        return names;
+    }
+
+    private static AppConfig createAppConfig(Random random, List<String> dataGroups, List<String> studyIds) {
+        Criteria criteria = Criteria.create();
+        criteria.setAllOfGroups(randomSubset(random, dataGroups, 2));
+        criteria.setNoneOfGroups(randomSubset(random, dataGroups, 2));
+        criteria.setAllOfStudyIds(randomSubset(random, studyIds, 1));
+        criteria.setNoneOfStudyIds(randomSubset(random, studyIds, 1));
+        if (random.nextBoolean()) {
+            criteria.setMinAppVersion(random.nextBoolean() ? IOS : ANDROID, random.nextInt(10));
+        }
+        if (random.nextBoolean()) {
+            criteria.setLanguage(LANGUAGES.get(random.nextInt(LANGUAGES.size())));
+        }
+        AppConfig appConfig = AppConfig.create();
+        appConfig.setCriteria(criteria);
+        return appConfig;
+    }
+
+    private static CriteriaContext createContext(Random random, List<String> dataGroups, List<String> studyIds) {
+        String osName = random.nextBoolean() ? IOS : ANDROID;
+        ClientInfo clientInfo = ClientInfo.fromUserAgentCache(
+                "app/" + random.nextInt(10) + " (deviceName; " + osName + "/3.9) BridgeJavaSDK/12");
+        return new CriteriaContext.Builder().withAppId(TEST_APP_ID).withClientInfo(clientInfo)
+                .withUserDataGroups(randomSubset(random, dataGroups, 6))
+                .withUserStudyIds(randomSubset(random, studyIds, 2))
+                .withLanguages(ImmutableList.of(LANGUAGES.get(random.nextInt(LANGUAGES.size())), "en")).build();
+    }
+
+    private static Set<String> randomSubset(Random random, List<String> values, int maxSize) {
+        Set<String> subset = new HashSet<>();
+        int size = random.nextInt(maxSize + 1);
+        for (int i = 0; i < size; i++) {
+            subset.add(values.get(random.nextInt(values.size())));
+        }
+        return subset;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(CriteriaIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
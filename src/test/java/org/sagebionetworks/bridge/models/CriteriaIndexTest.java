@@ -0,0 +1,174 @@
+package org.sagebionetworks.bridge.models;
+
+import static java.util.Comparator.comparingLong;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.sagebionetworks.bridge.models.OperatingSystem.ANDROID;
+import static org.sagebionetworks.bridge.models.OperatingSystem.IOS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.models.appconfig.AppConfig;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+public class CriteriaIndexTest {
+
+    private static final ClientInfo IOS_CLIENT_INFO = ClientInfo
+            .fromUserAgentCache("app/4 (deviceName; iPhone OS/3.9) BridgeJavaSDK/12");
+    private static final List<String> LANGUAGES = ImmutableList.of("en", "fr", "de", "EN");
+
+    @Test
+    public void matchesLikeCriteriaUtils() {
+        // Random candidates and contexts drawn from small vocabularies, so that there are plenty of matches.
+        Random random = new Random(42L);
+        List<String> dataGroups = names("group", 10);
+        List<String> studyIds = names("study", 10);
+        List<AppConfig> candidates = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            candidates.add(randomAppConfig(random, dataGroups, studyIds, i));
+        }
+        CriteriaIndex<AppConfig> index = new CriteriaIndex<>(candidates);
+        assertEquals(index.size(), 200);
+
+        for (int i = 0; i < 500; i++) {
+            CriteriaContext context = randomContext(random, dataGroups, studyIds);
+            assertEquals(index.filterByCriteria(context, null),
+                    CriteriaUtils.filterByCriteria(context, candidates, null), context.toString());
+            assertEquals(index.filterByCriteria(context, comparingLong(AppConfig::getCreatedOn)),
+                    CriteriaUtils.filterByCriteria(context, candidates, comparingLong(AppConfig::getCreatedOn)),
+                    context.toString());
+        }
+    }
+
+    @Test
+    public void matchesMoreThanSixtyFourGroups() {
+        // The first candidate names 70 groups, so the bit masks span two words.
+        List<String> dataGroups = names("group", 150);
+        AppConfig prohibitsMany = appConfig(ImmutableSet.of(), ImmutableSet.copyOf(dataGroups.subList(80, 150)));
+        AppConfig requiresLast = appConfig(ImmutableSet.of("group149"), ImmutableSet.of());
+        AppConfig prohibitsFirst = appConfig(ImmutableSet.of(), ImmutableSet.of("group0"));
+        AppConfig requiresMany = appConfig(ImmutableSet.of("group1", "group70", "group79"), ImmutableSet.of());
+        CriteriaIndex<AppConfig> index = new CriteriaIndex<>(
+                ImmutableList.of(prohibitsMany, requiresLast, prohibitsFirst, requiresMany));
+
+        assertEquals(index.filterByCriteria(context(ImmutableSet.copyOf(dataGroups)), null),
+                ImmutableList.of(requiresLast, requiresMany));
+        assertEquals(index.filterByCriteria(context(ImmutableSet.of("group1", "group70", "group79")), null),
+                ImmutableList.of(prohibitsMany, prohibitsFirst, requiresMany));
+        assertEquals(index.filterByCriteria(context(ImmutableSet.of("group149", "unknownGroup")), null),
+                ImmutableList.of(requiresLast, prohibitsFirst));
+    }
+
+    @Test
+    public void appVersionRangeForOtherOsIsIgnored() {
+        AppConfig android = appConfig(ImmutableSet.of(), ImmutableSet.of());
+        android.getCriteria().setMinAppVersion(ANDROID, 10);
+        AppConfig ios = appConfig(ImmutableSet.of(), ImmutableSet.of());
+        ios.getCriteria().setMinAppVersion(IOS, 10);
+        CriteriaIndex<AppConfig> index = new CriteriaIndex<>(ImmutableList.of(android, ios));
+
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                .withClientInfo(IOS_CLIENT_INFO).build();
+        assertEquals(index.filterByCriteria(context, null), ImmutableList.of(android));
+    }
+
+    @Test
+    public void emptyIndex() {
+        CriteriaIndex<AppConfig> index = new CriteriaIndex<>(ImmutableList.of());
+
+        assertTrue(index.filterByCriteria(context(ImmutableSet.of("group1")), null).isEmpty());
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void nullCriteriaThrows() {
+        HasCriteria noCriteria = () -> null;
+
+        new CriteriaIndex<>(ImmutableList.of(noCriteria));
+    }
+
+    private static List<String> names(String prefix, int count) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            names.add(prefix + i);
+        }
+        return names;
+    }
+
+    private static AppConfig randomAppConfig(Random random, List<String> dataGroups, List<String> studyIds,
+            int i) {
+        Criteria criteria = Criteria.create();
+        // Most criteria only use a few of the fields.
+        if (random.nextInt(3) == 0) {
+            criteria.setAllOfGroups(randomSubset(random, dataGroups, 2));
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setNoneOfGroups(randomSubset(random, dataGroups, 2));
+        }
+        if (random.nextInt(4) == 0) {
+            criteria.setAllOfStudyIds(randomSubset(random, studyIds, 1));
+        }
+        if (random.nextInt(4) == 0) {
+            criteria.setNoneOfStudyIds(randomSubset(random, studyIds, 2));
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setMinAppVersion(random.nextBoolean() ? IOS : ANDROID, random.nextInt(8));
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setMaxAppVersion(random.nextBoolean() ? IOS : ANDROID, random.nextInt(8));
+        }
+        if (random.nextInt(2) == 0) {
+            criteria.setLanguage(LANGUAGES.get(random.nextInt(LANGUAGES.size())));
+        }
+        AppConfig appConfig = AppConfig.create();
+        appConfig.setLabel("appConfig" + i);
+        appConfig.setCreatedOn(random.nextInt(20));
+        appConfig.setCriteria(criteria);
+        return appConfig;
+    }
+
+    private static CriteriaContext randomContext(Random random, List<String> dataGroups, List<String> studyIds) {
+        String osName = random.nextBoolean() ? "iPhone OS" : "Android";
+        ClientInfo clientInfo = ClientInfo.fromUserAgentCache(
+                "app/" + random.nextInt(8) + " (deviceName; " + osName + "/3.9) BridgeJavaSDK/12");
+        List<String> languages = new ArrayList<>(LANGUAGES);
+        Collections.shuffle(languages, random);
+        return new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                .withClientInfo(random.nextInt(4) == 0 ? ClientInfo.UNKNOWN_CLIENT : clientInfo)
+                .withUserDataGroups(randomSubset(random, dataGroups, 5))
+                .withUserStudyIds(randomSubset(random, studyIds, 3))
+                .withLanguages(languages.subList(0, random.nextInt(languages.size() + 1))).build();
+    }
+
+    private static Set<String> randomSubset(Random random, List<String> values, int maxSize) {
+        Set<String> subset = Sets.newHashSet();
+        int size = random.nextInt(maxSize + 1);
+        for (int i = 0; i < size; i++) {
+            subset.add(values.get(random.nextInt(values.size())));
+        }
+        return subset;
+    }
+
+    private static AppConfig appConfig(Set<String> allOfGroups, Set<String> noneOfGroups) {
+        Criteria criteria = Criteria.create();
+        criteria.setAllOfGroups(allOfGroups);
+        criteria.setNoneOfGroups(noneOfGroups);
+        AppConfig appConfig = AppConfig.create();
+        appConfig.setLabel("allOf " + allOfGroups + ", noneOf " + noneOfGroups);
+        appConfig.setCriteria(criteria);
+        return appConfig;
+    }
+
+    private static CriteriaContext context(Set<String> dataGroups) {
+        return new CriteriaContext.Builder().withAppId(TEST_APP_ID).withUserDataGroups(dataGroups).build();
+    }
+}
@@ -118,6 +118,34 @@ public class MetricsTest {
         assertTrue(json.contains("\"session_id\":\"d839fe\""));
     }
 
+    @Test
+    public void testSetUploadFormatAndValidationStatus() {
+        Metrics metrics = new Metrics("12345");
+        metrics.setUploadFormat(null);
+        metrics.setValidationStatus(" ");
+        assertFalse(metrics.getJson().has("upload_format"));
+        assertFalse(metrics.getJson().has("validation_status"));
+
+        metrics.setUploadFormat("v2_generic");
+        metrics.setValidationStatus("SUCCEEDED");
+        assertEquals(metrics.getJson().get("upload_format").textValue(), "v2_generic");
+        assertEquals(metrics.getJson().get("validation_status").textValue(), "SUCCEEDED");
+    }
+
+    @Test
+    public void testSetPhaseElapsedMillis() {
+        Metrics metrics = new Metrics("12345");
+        metrics.setPhaseElapsedMillis(null, 5L);
+        assertFalse(metrics.getJson().has("phase_elapsed_millis"));
+        
+        metrics.setPhaseElapsedMillis("schedule", 5L);
+        metrics.setPhaseElapsedMillis("load", 12L);
+        
+        JsonNode phases = metrics.getJson().get("phase_elapsed_millis");
+        assertEquals(phases.get("schedule").longValue(), 5L);
+        assertEquals(phases.get("load").longValue(), 12L);
+    }
+
     @Test
     public void testSetQueryParams() throws Exception {
         // Test empty params metrics.
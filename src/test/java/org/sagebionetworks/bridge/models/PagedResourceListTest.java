@@ -108,6 +108,23 @@ public class PagedResourceListTest {
         assertNull(node.get("endTime"));
     }
     
+    @Test
+    public void canSerializeNextPageOffsetKey() throws Exception {
+        PagedResourceList<AccountSummary> page = new PagedResourceList<AccountSummary>(
+                Lists.newArrayList(SUMMARY1), 2, true).withNextPageOffsetKey("nextKey");
+        
+        JsonNode node = BridgeObjectMapper.get().valueToTree(page);
+        assertEquals(node.get("nextPageOffsetKey").textValue(), "nextKey");
+        
+        PagedResourceList<AccountSummary> serPage = BridgeObjectMapper.get().readValue(node.toString(), 
+                new TypeReference<PagedResourceList<AccountSummary>>() {});
+        assertEquals(serPage.getNextPageOffsetKey(), "nextKey");
+        
+        page.withNextPageOffsetKey(null);
+        node = BridgeObjectMapper.get().valueToTree(page);
+        assertNull(node.get("nextPageOffsetKey"));
+    }
+    
     @Test(expectedExceptions = NullPointerException.class)
     public void totalCannotBeNull() throws Exception {
         List<AccountSummary> accounts = Lists.newArrayListWithCapacity(2);
@@ -32,6 +32,9 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.config.BridgeConfigFactory;
+import org.sagebionetworks.bridge.crypto.AesGcmEncryptor;
+import org.sagebionetworks.bridge.crypto.Encryptor;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.studies.Enrollment;
 import org.sagebionetworks.bridge.models.studies.EnrollmentInfo;
@@ -47,6 +50,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
+import nl.jqno.equalsverifier.Warning;
 
 public class StudyParticipantTest {
 
@@ -63,12 +67,52 @@ public class StudyParticipantTest {
             .put("A", "B")
             .put("C", "D").build();
     
+    private static final Encryptor ENCRYPTOR = new AesGcmEncryptor(
+            BridgeConfigFactory.getConfig().getProperty("bridge.healthcode.redis.key"));
+    
     @Test
     public void hashEquals() {
+        // The encrypted health code and its lazily decrypted value are transient; equality is based on the 
+        // health code, whichever form it was provided in. String values must be decryptable for this to work.
         EqualsVerifier.forClass(StudyParticipant.class).allFieldsShouldBeUsed()
+                .suppress(Warning.TRANSIENT_FIELDS, Warning.NONFINAL_FIELDS)
+                .withPrefabValues(String.class, ENCRYPTOR.encrypt("red"), ENCRYPTOR.encrypt("black"))
                 .withPrefabValues(JsonNode.class, TestUtils.getClientData(), TestUtils.getOtherClientData()).verify();
     }
     
+    @Test
+    public void healthCodeIsDecryptedLazily() {
+        StudyParticipant participant = new StudyParticipant.Builder()
+                .withEncryptedHealthCode(TestConstants.ENCRYPTED_HEALTH_CODE).build();
+        
+        // Until decrypted, the original ciphertext is returned rather than re-encrypting
+        assertEquals(participant.getEncryptedHealthCode(), TestConstants.ENCRYPTED_HEALTH_CODE);
+        assertEquals(participant.getHealthCode(), TestConstants.UNENCRYPTED_HEALTH_CODE);
+        // Memoized on subsequent calls
+        assertEquals(participant.getHealthCode(), TestConstants.UNENCRYPTED_HEALTH_CODE);
+    }
+    
+    @Test
+    public void encryptedAndUnencryptedHealthCodesAreEqual() {
+        StudyParticipant encrypted = new StudyParticipant.Builder()
+                .withEncryptedHealthCode(TestConstants.ENCRYPTED_HEALTH_CODE).build();
+        StudyParticipant unencrypted = new StudyParticipant.Builder()
+                .withHealthCode(TestConstants.UNENCRYPTED_HEALTH_CODE).build();
+        
+        assertEquals(encrypted, unencrypted);
+        assertEquals(encrypted.hashCode(), unencrypted.hashCode());
+    }
+    
+    @Test
+    public void copyOfPreservesEncryptedHealthCode() {
+        StudyParticipant encrypted = new StudyParticipant.Builder()
+                .withEncryptedHealthCode(TestConstants.ENCRYPTED_HEALTH_CODE).build();
+        
+        StudyParticipant copy = new StudyParticipant.Builder().copyOf(encrypted).build();
+        assertEquals(copy.getEncryptedHealthCode(), TestConstants.ENCRYPTED_HEALTH_CODE);
+        assertEquals(copy.getHealthCode(), TestConstants.UNENCRYPTED_HEALTH_CODE);
+    }
+    
     @Test
     public void canSerializeForCache() throws Exception {
         StudyParticipant participant = createParticipantWithHealthCodes();
@@ -15,6 +15,7 @@ import static org.sagebionetworks.bridge.models.schedules2.adherence.SessionComp
 import static org.sagebionetworks.bridge.models.schedules2.adherence.SessionCompletionState.UNSTARTED;
 import static org.testng.Assert.assertEquals;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -230,6 +231,17 @@ public class AdherenceUtilsTest {
         };
     }
     
+    @Test(dataProvider = "eventStreams")
+    public void calculateAdherencePercentageOfDays(int expectedPercent, Collection<EventStream> streams) {
+        int retValue = AdherenceUtils.calculateAdherencePercentageOfDays(days(streams));
+        assertEquals(retValue, expectedPercent);
+    }
+    
+    @Test
+    public void calculateAdherencePercentageOfDays_noDays() {
+        assertEquals(AdherenceUtils.calculateAdherencePercentageOfDays(ImmutableList.of()), 100);
+    }
+    
     private static Object[] dataRow(int expectedPercentage, EventStream... streams) {
         return new Object[] { expectedPercentage, ImmutableList.copyOf(streams) };
     }
@@ -240,6 +252,13 @@ public class AdherenceUtilsTest {
         assertEquals(retValue, expectedProgress);
     }
     
+    @Test(dataProvider = "progressStates")
+    public void calculateProgressOfDays(ParticipantStudyProgress expectedProgress, AdherenceState state,
+            List<EventStream> eventStreams) {
+        ParticipantStudyProgress retValue = AdherenceUtils.calculateProgressOfDays(days(eventStreams));
+        assertEquals(retValue, expectedProgress);
+    }
+    
     @Test
     public void calculateProgress_noSchedule() {
         List<EventStream> streams = ImmutableList.of(createEventStream(0, null, null) );
@@ -327,6 +346,14 @@ public class AdherenceUtilsTest {
         return new Object[] { progress, builder.build(), ImmutableList.copyOf(streams) };
     }
 
+    private static List<EventStreamDay> days(Collection<EventStream> streams) {
+        List<EventStreamDay> days = new ArrayList<>();
+        for (EventStream stream : streams) {
+            stream.visitDays((day, i) -> days.add(day));
+        }
+        return days;
+    }
+
     private static EventStream createEventStream(int dayNum, SessionCompletionState state, SessionCompletionState state2) {
         EventStreamDay day = new EventStreamDay();
 
@@ -2,11 +2,13 @@ package org.sagebionetworks.bridge.models.schedules2.adherence.eventstream;
 
 import static java.util.stream.Collectors.toSet;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 import org.joda.time.LocalDate;
 import org.joda.time.LocalTime;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.schedules2.adherence.SessionCompletionState;
 import org.testng.annotations.Test;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -16,7 +18,9 @@ import com.google.common.collect.ImmutableSet;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import nl.jqno.equalsverifier.Warning;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class EventStreamDayTest {
     
@@ -249,6 +253,36 @@ public class EventStreamDayTest {
         assertWindowSortOrder(day, win1, win2, win3);
     }
     
+    @Test
+    public void countTimeWindows() {
+        EventStreamDay day = new EventStreamDay();
+        assertFalse(day.hasTimeWindows());
+        assertEquals(day.countTimeWindows(SessionCompletionState.OFFERED), 0);
+        
+        EventStreamWindow win1 = createWindow("win1");
+        win1.setState(SessionCompletionState.COMPLETED);
+        EventStreamWindow win2 = createWindow("win2");
+        win2.setState(SessionCompletionState.EXPIRED);
+        EventStreamWindow win3 = createWindow("win3");
+        win3.setState(SessionCompletionState.NOT_YET_AVAILABLE);
+        day.setTimeWindows(ImmutableList.of(win1, win2, win3));
+        
+        assertTrue(day.hasTimeWindows());
+        assertEquals(day.countTimeWindows(SessionCompletionState.COMPLIANT), 1);
+        assertEquals(day.countTimeWindows(SessionCompletionState.OFFERED), 2);
+        assertEquals(day.countTimeWindows(SessionCompletionState.UNKNOWN), 1);
+    }
+    
+    @Test
+    public void visitTimeWindows() {
+        EventStreamDay day = new EventStreamDay();
+        day.setTimeWindows(ImmutableList.of(createWindow("win1"), createWindow("win2")));
+        
+        Set<String> guids = new HashSet<>();
+        day.visitTimeWindows(window -> guids.add(window.getTimeWindowGuid()));
+        assertEquals(guids, ImmutableSet.of("win1", "win2"));
+    }
+    
     private void compareWindows(EventStreamWindow win1, EventStreamWindow win2) {
         assertEquals(win1.getTimeWindowGuid(), win2.getTimeWindowGuid());
         assertEquals(win1.getState(), win2.getState());
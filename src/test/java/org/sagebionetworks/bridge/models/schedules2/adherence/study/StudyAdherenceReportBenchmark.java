@@ -0,0 +1,69 @@
+package org.sagebionetworks.bridge.models.schedules2.adherence.study;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import org.sagebionetworks.bridge.models.schedules2.Schedule2;
+import org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceState;
+import org.sagebionetworks.bridge.models.schedules2.timelines.Scheduler;
+import org.sagebionetworks.bridge.models.schedules2.timelines.TimelineMetadata;
+
+/**
+ * Measures generating a study adherence report for the synthetic year-long schedule of the golden tests (daily and
+ * weekly sessions, a custom event session and four study bursts), at several points in the study, and compares it
+ * to the original implementation. The generators fill in the adherence state as they go, so each invocation
+ * includes building a clean copy of the state. Run with main(), adding "-prof gc" to the options to compare
+ * allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudyAdherenceReportBenchmark {
+
+    @Param({ "4", "26", "50" })
+    public int weeksSinceEnrollment;
+
+    private Schedule2 schedule;
+    private AdherenceState state;
+
+    @Setup
+    public void setup() {
+        schedule = StudyAdherenceReportGeneratorGoldenTest.createYearLongSchedule();
+        List<TimelineMetadata> metadata = Scheduler.INSTANCE.calculateTimeline(schedule).getMetadata();
+        state = StudyAdherenceReportGeneratorGoldenTest.createYearLongState(metadata,
+                StudyAdherenceReportGeneratorGoldenTest.ENROLLMENT_TS.plusWeeks(weeksSinceEnrollment),
+                new Random(42L)).build();
+    }
+
+    @Benchmark
+    public StudyAdherenceReport generate() {
+        return StudyAdherenceReportGenerator.INSTANCE.generate(state.toBuilder().build(), schedule);
+    }
+
+    @Benchmark
+    public StudyAdherenceReport generateOriginal() {
+        return OriginalAdherenceReportGenerator.INSTANCE.generate(state.toBuilder().build(), schedule);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(StudyAdherenceReportBenchmark.class.getSimpleName()).build()).run();
+    }
+}
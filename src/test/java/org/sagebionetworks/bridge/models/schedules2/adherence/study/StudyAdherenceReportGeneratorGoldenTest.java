@@ -0,0 +1,274 @@
+package org.sagebionetworks.bridge.models.schedules2.adherence.study;
+
+import static org.sagebionetworks.bridge.TestConstants.CREATED_ON;
+import static org.sagebionetworks.bridge.TestConstants.MODIFIED_ON;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.sagebionetworks.bridge.TestConstants.TEST_ORG_ID;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.IMMUTABLE;
+import static org.sagebionetworks.bridge.models.schedules2.PerformanceOrder.SEQUENTIAL;
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalTime;
+import org.joda.time.Period;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.activities.ActivityEventObjectType;
+import org.sagebionetworks.bridge.models.activities.StudyActivityEvent;
+import org.sagebionetworks.bridge.models.schedules2.AssessmentReference;
+import org.sagebionetworks.bridge.models.schedules2.Schedule2;
+import org.sagebionetworks.bridge.models.schedules2.Session;
+import org.sagebionetworks.bridge.models.schedules2.StudyBurst;
+import org.sagebionetworks.bridge.models.schedules2.TimeWindow;
+import org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceRecord;
+import org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceState;
+import org.sagebionetworks.bridge.models.schedules2.adherence.eventstream.EventStreamAdherenceReport;
+import org.sagebionetworks.bridge.models.schedules2.adherence.eventstream.EventStreamAdherenceReportGenerator;
+import org.sagebionetworks.bridge.models.schedules2.timelines.Scheduler;
+import org.sagebionetworks.bridge.models.schedules2.timelines.TimelineMetadata;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Compares the output of the event stream and study adherence report generators to the output of the original
+ * implementation in {@link OriginalAdherenceReportGenerator}, for the schedule used by the generator tests and for
+ * a synthetic year-long schedule, at many points in time and with varied adherence.
+ */
+public class StudyAdherenceReportGeneratorGoldenTest {
+
+    static final DateTime ENROLLMENT_TS = DateTime.parse("2022-01-03T09:15:00.000-08:00");
+
+    @Test
+    public void generatorTestSchedule() throws Exception {
+        Schedule2 schedule = StudyAdherenceReportGeneratorTest.createSchedule();
+        AdherenceState.Builder builder = StudyAdherenceReportGeneratorTest.createAdherenceState();
+
+        DateTime now = DateTime.parse("2022-02-20T01:00:00.000-08:00");
+        for (int i = 0; i < 25; i++) {
+            assertSameReports(builder.withNow(now).withAdherenceRecords(null).build(), schedule);
+            assertSameReports(builder.withNow(now)
+                    .withAdherenceRecords(StudyAdherenceReportGeneratorTest.createAdherenceRecords()).build(), schedule);
+            assertSameReports(builder.withNow(now).withClientTimeZone("America/Chicago").build(), schedule);
+            builder.withClientTimeZone(null);
+            now = now.plusDays(3).plusHours(5);
+        }
+    }
+
+    @Test
+    public void yearLongSchedule() {
+        Schedule2 schedule = createYearLongSchedule();
+        List<TimelineMetadata> metadata = Scheduler.INSTANCE.calculateTimeline(schedule).getMetadata();
+
+        Random random = new Random(23L);
+        DateTime now = ENROLLMENT_TS.minusDays(10);
+        while (now.isBefore(ENROLLMENT_TS.plusWeeks(56))) {
+            assertSameReports(createYearLongState(metadata, now, random).build(), schedule);
+            now = now.plusDays(random.nextInt(12) + 1).plusHours(random.nextInt(24));
+        }
+    }
+
+    @Test
+    public void yearLongScheduleInOtherTimeZone() {
+        Schedule2 schedule = createYearLongSchedule();
+        List<TimelineMetadata> metadata = Scheduler.INSTANCE.calculateTimeline(schedule).getMetadata();
+
+        Random random = new Random(29L);
+        DateTime now = ENROLLMENT_TS.plusWeeks(20).plusHours(16);
+        assertSameReports(createYearLongState(metadata, now, random).withClientTimeZone("Asia/Tokyo").build(),
+                schedule);
+    }
+
+    @Test
+    public void studyStartEventIsLaterThanEarliestActivity() {
+        Schedule2 schedule = createYearLongSchedule();
+        List<TimelineMetadata> metadata = Scheduler.INSTANCE.calculateTimeline(schedule).getMetadata();
+
+        Random random = new Random(31L);
+        DateTime now = ENROLLMENT_TS.plusWeeks(30);
+        assertSameReports(createYearLongState(metadata, now, random)
+                .withStudyStartEventId("custom:event2").build(), schedule);
+    }
+
+    @Test
+    public void noEvents() {
+        Schedule2 schedule = createYearLongSchedule();
+        List<TimelineMetadata> metadata = Scheduler.INSTANCE.calculateTimeline(schedule).getMetadata();
+
+        assertSameReports(new AdherenceState.Builder().withMetadata(metadata).withStudyStartEventId("enrollment")
+                .withNow(ENROLLMENT_TS.plusWeeks(3)).build(), schedule);
+    }
+
+    @Test
+    public void noMetadata() {
+        assertSameReports(new AdherenceState.Builder().withEvents(createYearLongEvents())
+                .withStudyStartEventId("enrollment").withNow(ENROLLMENT_TS.plusWeeks(3)).build(),
+                createYearLongSchedule());
+    }
+
+    private static void assertSameReports(AdherenceState state, Schedule2 schedule) {
+        // The generators add streams to the state as they go, so each one gets a clean copy.
+        EventStreamAdherenceReport expectedStreams = OriginalAdherenceReportGenerator.INSTANCE
+                .generateEventStreamReport(state.toBuilder().build(), schedule);
+        EventStreamAdherenceReport actualStreams = EventStreamAdherenceReportGenerator.INSTANCE
+                .generate(state.toBuilder().build(), schedule);
+        assertEquals(toJson(actualStreams), toJson(expectedStreams));
+
+        StudyAdherenceReport expected = OriginalAdherenceReportGenerator.INSTANCE.generate(
+                state.toBuilder().build(), schedule);
+        StudyAdherenceReport actual = StudyAdherenceReportGenerator.INSTANCE.generate(
+                state.toBuilder().build(), schedule);
+        assertEquals(toJson(actual), toJson(expected));
+        // These are not part of the report's JSON.
+        assertEquals(toJson(actual.getWeekReport()), toJson(expected.getWeekReport()));
+        assertEquals(actual.getWeekReport().getSearchableLabels(), expected.getWeekReport().getSearchableLabels());
+        assertEquals(toJson(actual.getNextActivity()), toJson(expected.getNextActivity()));
+        for (int i = 0; i < expected.getWeeks().size(); i++) {
+            assertEquals(actual.getWeeks().get(i).getSearchableLabels(),
+                    expected.getWeeks().get(i).getSearchableLabels());
+        }
+    }
+
+    private static String toJson(Object object) {
+        try {
+            return BridgeObjectMapper.get().writeValueAsString(object);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A year of daily and weekly sessions from enrollment, a session triggered by a custom event, four study bursts
+     * of daily sessions, a session for an event the participant doesn't have, and a persistent session.
+     */
+    public static Schedule2 createYearLongSchedule() {
+        Session daily = createSession("daily", "Daily Check-in", ImmutableList.of("enrollment"),
+                createWindow("dailyMorning", "08:00", "PT4H"), createWindow("dailyEvening", "18:00", "PT4H"));
+        daily.setInterval(Period.parse("P1D"));
+
+        Session weekly = createSession("weekly", "Weekly Survey", ImmutableList.of("enrollment"),
+                createWindow("weeklyWindow", "00:00", "P3D"));
+        weekly.setDelay(Period.parse("P2D"));
+        weekly.setInterval(Period.parse("P1W"));
+
+        Session event2 = createSession("event2", "Event 2 Survey", ImmutableList.of("custom:event2"),
+                createWindow("event2Window", "12:00", "P1D"));
+        event2.setInterval(Period.parse("P2W"));
+
+        Session burst = createSession("burst", "Burst Tapping Test", ImmutableList.of(),
+                createWindow("burstWindow", "00:00", "P1D"));
+        burst.setStudyBurstIds(ImmutableList.of("Burst"));
+        burst.setInterval(Period.parse("P1D"));
+        burst.setOccurrences(7);
+
+        Session unset = createSession("unset", "Unset Survey", ImmutableList.of("custom:unset"),
+                createWindow("unsetWindow", "00:00", "P1D"));
+        unset.setInterval(Period.parse("P4W"));
+
+        TimeWindow persistentWindow = createWindow("persistentWindow", "00:00", null);
+        persistentWindow.setPersistent(true);
+        Session persistent = createSession("persistent", "Persistent Practice", ImmutableList.of("enrollment"),
+                persistentWindow);
+
+        StudyBurst studyBurst = new StudyBurst();
+        studyBurst.setIdentifier("Burst");
+        studyBurst.setOriginEventId("enrollment");
+        studyBurst.setUpdateType(IMMUTABLE);
+        studyBurst.setDelay(Period.parse("P8W"));
+        studyBurst.setInterval(Period.parse("P12W"));
+        studyBurst.setOccurrences(4);
+
+        Schedule2 schedule = new Schedule2();
+        schedule.setAppId(TEST_APP_ID);
+        schedule.setOwnerId(TEST_ORG_ID);
+        schedule.setGuid("yearLongSchedule");
+        schedule.setName("Year-long schedule");
+        schedule.setDuration(Period.parse("P52W"));
+        schedule.setCreatedOn(CREATED_ON);
+        schedule.setModifiedOn(MODIFIED_ON);
+        schedule.setSessions(ImmutableList.of(daily, weekly, event2, burst, unset, persistent));
+        schedule.setStudyBursts(ImmutableList.of(studyBurst));
+        return schedule;
+    }
+
+    /**
+     * The events of the year-long schedule (except custom:unset), and a random adherence record for about half of
+     * the session instances.
+     */
+    public static AdherenceState.Builder createYearLongState(List<TimelineMetadata> metadata, DateTime now,
+            Random random) {
+        List<AdherenceRecord> records = new ArrayList<>();
+        for (TimelineMetadata meta : metadata) {
+            int outcome = random.nextInt(10);
+            if (outcome > 5) {
+                continue;
+            }
+            AdherenceRecord record = new AdherenceRecord();
+            record.setInstanceGuid(meta.getSessionInstanceGuid());
+            if (outcome == 5) {
+                record.setDeclined(true);
+            } else {
+                record.setStartedOn(now);
+                if (outcome < 4) {
+                    record.setFinishedOn(now);
+                }
+            }
+            records.add(record);
+        }
+        return new AdherenceState.Builder()
+                .withMetadata(metadata)
+                .withEvents(createYearLongEvents())
+                .withAdherenceRecords(records)
+                .withStudyStartEventId("enrollment")
+                .withNow(now);
+    }
+
+    private static List<StudyActivityEvent> createYearLongEvents() {
+        List<StudyActivityEvent> events = new ArrayList<>();
+        events.add(createEvent("enrollment", ENROLLMENT_TS, ActivityEventObjectType.ENROLLMENT));
+        events.add(createEvent("custom:event2", ENROLLMENT_TS.plusDays(10).plusHours(7),
+                ActivityEventObjectType.CUSTOM));
+        for (int i = 1; i <= 4; i++) {
+            events.add(createEvent("study_burst:Burst:0" + i, ENROLLMENT_TS.plusWeeks(8 + (i - 1) * 12),
+                    ActivityEventObjectType.STUDY_BURST));
+        }
+        return events;
+    }
+
+    private static StudyActivityEvent createEvent(String eventId, DateTime timestamp,
+            ActivityEventObjectType objectType) {
+        return new StudyActivityEvent.Builder().withEventId(eventId).withTimestamp(timestamp)
+                .withObjectType(objectType).build();
+    }
+
+    private static Session createSession(String guid, String name, List<String> startEventIds,
+            TimeWindow... windows) {
+        AssessmentReference asmt = new AssessmentReference();
+        asmt.setGuid(guid + "Assessment");
+        asmt.setAppId(TEST_APP_ID);
+        asmt.setIdentifier(guid + "Assessment");
+
+        Session session = new Session();
+        session.setGuid(guid);
+        session.setName(name);
+        session.setStartEventIds(startEventIds);
+        session.setPerformanceOrder(SEQUENTIAL);
+        session.setAssessments(ImmutableList.of(asmt));
+        session.setTimeWindows(ImmutableList.copyOf(windows));
+        return session;
+    }
+
+    private static TimeWindow createWindow(String guid, String startTime, String expiration) {
+        TimeWindow window = new TimeWindow();
+        window.setGuid(guid);
+        window.setStartTime(LocalTime.parse(startTime));
+        if (expiration != null) {
+            window.setExpiration(Period.parse(expiration));
+        }
+        return window;
+    }
+}
@@ -78,6 +78,33 @@ public class MetadataContainerTest extends Mockito {
         assertNotNull(container.getMetadata("session2"));
     }
     
+    @Test
+    public void constructorUsesPreloadedMetadata() {
+        TimelineMetadata asmtMeta = new TimelineMetadata();
+        asmtMeta.setGuid("AAA");
+        asmtMeta.setSessionInstanceGuid("session1");
+        asmtMeta.setAssessmentInstanceGuid("AAA");
+        
+        TimelineMetadata sessionMeta = new TimelineMetadata();
+        sessionMeta.setGuid("session1");
+        sessionMeta.setSessionInstanceGuid("session1");
+        
+        AdherenceRecord asmtRecord = new AdherenceRecord();
+        asmtRecord.setInstanceGuid("AAA");
+        AdherenceRecord sessionRecord = new AdherenceRecord();
+        sessionRecord.setInstanceGuid("session1");
+        
+        MetadataContainer container = new MetadataContainer(mockScheduleService,
+                ImmutableList.of(asmtMeta, sessionMeta), ImmutableList.of(asmtRecord, sessionRecord));
+        
+        assertEquals(ImmutableList.copyOf(container.getAssessments()), ImmutableList.of(asmtRecord));
+        assertEquals(ImmutableList.copyOf(container.getSessionUpdates()), ImmutableList.of(sessionRecord));
+        assertEquals(container.getMetadata("AAA"), asmtMeta);
+        assertEquals(container.getMetadata("session1"), sessionMeta);
+        
+        verify(mockScheduleService, never()).getTimelineMetadata(any());
+    }
+    
     @Test
     public void constructorSkipsRecordsWithoutMetadata() { 
         List<AdherenceRecord> records = ImmutableList.of(
@@ -0,0 +1,136 @@
+package org.sagebionetworks.bridge.models.schedules2.timelines;
+
+import static org.sagebionetworks.bridge.TestConstants.CREATED_ON;
+import static org.sagebionetworks.bridge.TestConstants.MODIFIED_ON;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.sagebionetworks.bridge.TestConstants.TEST_ORG_ID;
+import static org.sagebionetworks.bridge.models.schedules2.PerformanceOrder.SEQUENTIAL;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+
+import org.joda.time.LocalTime;
+import org.joda.time.Period;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import org.sagebionetworks.bridge.models.schedules2.AssessmentReference;
+import org.sagebionetworks.bridge.models.schedules2.Schedule2;
+import org.sagebionetworks.bridge.models.schedules2.Session;
+import org.sagebionetworks.bridge.models.schedules2.TimeWindow;
+import org.sagebionetworks.bridge.services.Schedule2Service;
+
+/**
+ * Measures the cost of calculating a timeline for synthetic schedules of increasing duration and session
+ * count (each session is scheduled daily, with two time windows and two assessments), and compares it to
+ * retrieving the same timeline from the Schedule2Service's timeline cache. Run with main().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimelineBenchmark {
+
+    @Param({ "P4W", "P26W", "P104W" })
+    public String duration;
+
+    @Param({ "1", "5", "20" })
+    public int sessionCount;
+
+    private Schedule2 schedule;
+    private Schedule2Service service;
+
+    @Setup
+    public void setup() {
+        schedule = createSchedule(Period.parse(duration), sessionCount);
+        service = new Schedule2Service();
+        service.getTimeline(schedule);
+    }
+
+    @Benchmark
+    public Timeline calculateTimeline() {
+        return Scheduler.INSTANCE.calculateTimeline(schedule);
+    }
+
+    @Benchmark
+    public Timeline cachedTimeline() {
+        return service.getTimeline(schedule);
+    }
+
+    static Schedule2 createSchedule(Period duration, int sessionCount) {
+        Schedule2 schedule = new Schedule2();
+        schedule.setAppId(TEST_APP_ID);
+        schedule.setOwnerId(TEST_ORG_ID);
+        schedule.setGuid("benchmarkSchedule");
+        schedule.setName("Benchmark schedule");
+        schedule.setDuration(duration);
+        schedule.setCreatedOn(CREATED_ON);
+        schedule.setModifiedOn(MODIFIED_ON);
+
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < sessionCount; i++) {
+            sessions.add(createSession(i));
+        }
+        schedule.setSessions(sessions);
+        return schedule;
+    }
+
+    private static Session createSession(int i) {
+        Session session = new Session();
+        session.setGuid("session" + i);
+        session.setName("Session " + i);
+        session.setStartEventIds(ImmutableList.of("enrollment"));
+        session.setInterval(Period.parse("P1D"));
+        session.setPerformanceOrder(SEQUENTIAL);
+
+        TimeWindow morning = new TimeWindow();
+        morning.setGuid("session" + i + "morning");
+        morning.setStartTime(LocalTime.parse("08:00"));
+        morning.setExpiration(Period.parse("PT4H"));
+
+        TimeWindow evening = new TimeWindow();
+        evening.setGuid("session" + i + "evening");
+        evening.setStartTime(LocalTime.parse("18:00"));
+        evening.setExpiration(Period.parse("PT4H"));
+        session.setTimeWindows(ImmutableList.of(morning, evening));
+
+        session.setAssessments(ImmutableList.of(createAssessment(i, 1), createAssessment(i, 2)));
+        return session;
+    }
+
+    private static AssessmentReference createAssessment(int sessionNum, int asmtNum) {
+        AssessmentReference asmt = new AssessmentReference();
+        asmt.setGuid("assessment" + sessionNum + "-" + asmtNum);
+        asmt.setAppId(TEST_APP_ID);
+        asmt.setIdentifier("assessment" + asmtNum);
+        asmt.setTitle("Assessment " + asmtNum);
+        asmt.setMinutesToComplete(5);
+        asmt.setRevision(1);
+        return asmt;
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (String duration : new String[] { "P4W", "P26W", "P104W" }) {
+            Timeline timeline = Scheduler.INSTANCE.calculateTimeline(createSchedule(Period.parse(duration), 20));
+            System.out.println(duration + " with 20 sessions: " + timeline.getSchedule().size()
+                    + " scheduled sessions, " + timeline.getMetadata().size() + " metadata records");
+        }
+        new Runner(new OptionsBuilder().include(TimelineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -220,4 +220,16 @@ public class TimelineTest extends Mockito {
         
         assertEquals(timeline.getTotalNotifications(), 112);
     }
+    
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void scheduledSessionsCannotBeModified() {
+        Timeline timeline = Scheduler.INSTANCE.calculateTimeline(Schedule2Test.createValidSchedule());
+        timeline.getSchedule().clear();
+    }
+    
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void metadataCannotBeModified() {
+        Timeline timeline = Scheduler.INSTANCE.calculateTimeline(Schedule2Test.createValidSchedule());
+        timeline.getMetadata().clear();
+    }
 }
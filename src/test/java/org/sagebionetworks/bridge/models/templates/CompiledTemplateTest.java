@@ -0,0 +1,71 @@
+package org.sagebionetworks.bridge.models.templates;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import org.testng.annotations.Test;
+
+public class CompiledTemplateTest {
+
+    private static final Map<String, String> VALUES = ImmutableMap.of("name", "Ann", "url", "https://x.org/y",
+            "", "empty");
+
+    @Test
+    public void rendersVariables() {
+        CompiledTemplate template = CompiledTemplate.compile("Hi ${name}, go to ${url}. Bye ${name}");
+
+        assertEquals(template.getVariables(), ImmutableList.of("name", "url", "name"));
+        assertEquals(template.render(VALUES), "Hi Ann, go to https://x.org/y. Bye Ann");
+    }
+
+    @Test
+    public void rendersTemplateWithoutVariables() {
+        assertEquals(CompiledTemplate.compile("").render(VALUES), "");
+        assertEquals(CompiledTemplate.compile(" ").render(VALUES), " ");
+        assertEquals(CompiledTemplate.compile("No variables").render(VALUES), "No variables");
+    }
+
+    @Test
+    public void rendersVariablesAtEdges() {
+        assertEquals(CompiledTemplate.compile("${name}${name}").render(VALUES), "AnnAnn");
+    }
+
+    @Test
+    public void leavesMissingAndNullVariables() {
+        Map<String, String> values = new HashMap<>();
+        values.put("name", null);
+
+        assertEquals(CompiledTemplate.compile("foo ${name} ${other}").render(values), "foo ${name} ${other}");
+    }
+
+    @Test
+    public void doesNotResolveVariablesInValues() {
+        Map<String, String> values = ImmutableMap.of("name", "${url}", "url", "https://x.org/y");
+
+        assertEquals(CompiledTemplate.compile("${name}").render(values), "${url}");
+    }
+
+    @Test
+    public void handlesMalformedVariables() {
+        assertEquals(CompiledTemplate.compile("${}").render(VALUES), "empty");
+        assertEquals(CompiledTemplate.compile("$${name}}").render(VALUES), "$Ann}");
+        assertEquals(CompiledTemplate.compile("${a${name}}").render(VALUES), "${aAnn}");
+        assertEquals(CompiledTemplate.compile("${name} ${url").render(VALUES), "Ann ${url");
+        assertEquals(CompiledTemplate.compile("$name {name}").render(VALUES), "$name {name}");
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void nullTemplateRejected() {
+        CompiledTemplate.compile(null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void nullValuesRejected() {
+        CompiledTemplate.compile("${name}").render(null);
+    }
+}
@@ -0,0 +1,107 @@
+package org.sagebionetworks.bridge.models.templates;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares rendering an email template with one String.replace() per value (how templates were resolved before
+ * CompiledTemplate), to compiling and rendering it on every call (what BridgeUtils.resolveTemplate() does now), to
+ * rendering a template compiled once (what a cached template revision does). The template is the default email
+ * verification template repeated templateRepeats times, and the values are the app and participant variables that
+ * are in a typical token map. Run with main().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRenderingBenchmark {
+
+    @Param({ "1", "20" })
+    public int templateRepeats;
+
+    private String template;
+    private CompiledTemplate compiledTemplate;
+    private Map<String, String> values;
+
+    @Setup
+    public void setup() throws Exception {
+        String content;
+        try (InputStream stream = TemplateRenderingBenchmark.class
+                .getResourceAsStream("/conf/app-defaults/email-verification.txt")) {
+            content = IOUtils.toString(stream, StandardCharsets.UTF_8);
+        }
+        StringBuilder templateBuilder = new StringBuilder();
+        for (int i = 0; i < templateRepeats; i++) {
+            templateBuilder.append(content);
+        }
+        template = templateBuilder.toString();
+        compiledTemplate = CompiledTemplate.compile(template);
+
+        values = new HashMap<>();
+        values.put("studyName", "Mobile Toolbox");
+        values.put("studyShortName", "MTB");
+        values.put("studyId", "mobile-toolbox");
+        values.put("appName", "Mobile Toolbox");
+        values.put("appShortName", "MTB");
+        values.put("appId", "mobile-toolbox");
+        values.put("sponsorName", "Sage Bionetworks");
+        values.put("supportEmail", "support@sagebase.org");
+        values.put("technicalEmail", "tech@sagebase.org");
+        values.put("consentEmail", "consent@sagebase.org");
+        values.put("host", "webservices.sagebridge.org");
+        values.put("participantFirstName", "Ann");
+        values.put("participantLastName", "Smith");
+        values.put("emailVerificationUrl",
+                "https://ws.sagebridge.org/vse?study=mobile-toolbox&sptoken=oEtRd1mH2cE8wHQgxG3LQ5");
+        values.put("emailVerificationExpirationPeriod", "1 day");
+    }
+
+    @Benchmark
+    public String replaceLoop() {
+        return replaceLoop(template, values);
+    }
+
+    @Benchmark
+    public String compileAndRender() {
+        return CompiledTemplate.compile(template).render(values);
+    }
+
+    @Benchmark
+    public String renderCompiled() {
+        return compiledTemplate.render(values);
+    }
+
+    private static String replaceLoop(String template, Map<String, String> values) {
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (entry.getValue() != null) {
+                String var = "${" + entry.getKey() + "}";
+                template = template.replace(var, entry.getValue());
+            }
+        }
+        return template;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(TemplateRenderingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -4,6 +4,9 @@ import static org.sagebionetworks.bridge.TestConstants.TIMESTAMP;
 import static org.sagebionetworks.bridge.models.apps.MimeType.HTML;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import com.google.common.collect.ImmutableMap;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -33,6 +36,8 @@ public class TemplateRevisionTest {
         assertEquals(node.get("subject").textValue(), "A subject");
         assertEquals(node.get("documentContent").textValue(), "The content we retrieved from S3");
         assertEquals(node.get("type").textValue(), "TemplateRevision");
+        assertNull(node.get("compiledSubject"));
+        assertNull(node.get("compiledDocumentContent"));
         
         TemplateRevision deser = BridgeObjectMapper.get().readValue(node.toString(), TemplateRevision.class);
         assertEquals(deser.getCreatedBy(), "12345");
@@ -41,4 +46,24 @@ public class TemplateRevisionTest {
         assertEquals(deser.getSubject(), "A subject");
         assertEquals(deser.getDocumentContent(), "The content we retrieved from S3");
     }
+    
+    @Test
+    public void compiledTemplates() {
+        TemplateRevision revision = TemplateRevision.create();
+        assertNull(revision.getCompiledSubject());
+        assertNull(revision.getCompiledDocumentContent());
+        
+        revision.setSubject("Hello ${name}");
+        revision.setDocumentContent("Your code is ${token}");
+        
+        CompiledTemplate subject = revision.getCompiledSubject();
+        assertSame(revision.getCompiledSubject(), subject);
+        assertEquals(subject.render(ImmutableMap.of("name", "Ann")), "Hello Ann");
+        assertEquals(revision.getCompiledDocumentContent().render(ImmutableMap.of("token", "123")),
+                "Your code is 123");
+        
+        // Changing the template discards the compiled form
+        revision.setSubject("Goodbye ${name}");
+        assertEquals(revision.getCompiledSubject().render(ImmutableMap.of("name", "Ann")), "Goodbye Ann");
+    }
 }
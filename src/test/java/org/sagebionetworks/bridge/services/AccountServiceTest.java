@@ -35,13 +35,16 @@ import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
@@ -63,12 +66,14 @@ import org.sagebionetworks.bridge.cache.CacheKey;
 import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.dao.AccountSecretDao;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
-import org.sagebionetworks.bridge.models.ReportTypeResourceList;
 import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountDeletionJob;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.AccountSecret;
 import org.sagebionetworks.bridge.models.accounts.AccountSummary;
@@ -76,8 +81,6 @@ import org.sagebionetworks.bridge.models.accounts.ExternalIdentifierInfo;
 import org.sagebionetworks.bridge.models.accounts.Phone;
 import org.sagebionetworks.bridge.models.activities.StudyActivityEvent;
 import org.sagebionetworks.bridge.models.apps.App;
-import org.sagebionetworks.bridge.models.reports.ReportIndex;
-import org.sagebionetworks.bridge.models.reports.ReportType;
 import org.sagebionetworks.bridge.models.studies.Alert;
 import org.sagebionetworks.bridge.models.studies.Enrollment;
 import org.sagebionetworks.bridge.models.studies.Alert.AlertCategory;
@@ -90,8 +93,6 @@ public class AccountServiceTest extends Mockito {
     private static final String OTHER_EMAIL = "other-email@example.com";
     private static final String OTHER_USER_ID = "other-user-id";
     private static final String OTHER_CLIENT_TIME_ZONE = "Africa/Sao_Tome";
-    private static final String REPORT_ID_1 = "report1";
-    private static final String REPORT_ID_2 = "report2";
     private static final String STUDY_A = "studyA";
     private static final String STUDY_B = "studyB";
     private static final Set<Enrollment> ACCOUNT_ENROLLMENTS = ImmutableSet
@@ -191,6 +192,8 @@ public class AccountServiceTest extends Mockito {
         MockitoAnnotations.initMocks(this);
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(RESEARCHER)).build());
+        service.setAccountDeletionExecutorService(MoreExecutors.newDirectExecutorService());
+        service.setAsyncExecutorService(MoreExecutors.newDirectExecutorService());
     }
     
     @AfterMethod
@@ -486,6 +489,37 @@ public class AccountServiceTest extends Mockito {
         verify(mockAccountDao).getAccount(ACCOUNT_ID);
     }
 
+    @Test
+    public void getAccounts() {
+        Account account1 = Account.create();
+        account1.setId("userA");
+        Account account2 = Account.create();
+        account2.setId("userB");
+        when(mockAccountDao.getAccounts(TEST_APP_ID, ImmutableList.of("userA", "userB")))
+                .thenReturn(ImmutableList.of(account1, account2));
+        
+        List<Account> retValue = service.getAccounts(TEST_APP_ID, ImmutableList.of("userA", "userB"));
+        assertEquals(retValue, ImmutableList.of(account1, account2));
+    }
+    
+    @Test
+    public void getAccountsSkipsInaccessibleAccounts() {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerUserId("id")
+                .withCallerRoles(ImmutableSet.of(DEVELOPER)).build());
+        
+        Account testAccount = Account.create();
+        testAccount.setId("userA");
+        testAccount.setDataGroups(ImmutableSet.of(TEST_USER_GROUP));
+        Account prodAccount = Account.create();
+        prodAccount.setId("userB");
+        when(mockAccountDao.getAccounts(TEST_APP_ID, ImmutableList.of("userA", "userB")))
+                .thenReturn(ImmutableList.of(testAccount, prodAccount));
+        
+        List<Account> retValue = service.getAccounts(TEST_APP_ID, ImmutableList.of("userA", "userB"));
+        assertEquals(retValue, ImmutableList.of(testAccount));
+    }
+
     @Test
     public void getPagedAccountSummaries() {
         when(mockAccountDao.getPagedAccountSummaries(TEST_APP_ID, EMPTY_SEARCH)).thenReturn(mockAccountSummaries);
@@ -863,10 +897,10 @@ public class AccountServiceTest extends Mockito {
     public void getPagedExternalIds() throws Exception { 
         PagedResourceList<ExternalIdentifierInfo> page = new PagedResourceList<ExternalIdentifierInfo>(
                 ImmutableList.of(), 100);
-        when(mockAccountDao.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 10, 50)).thenReturn(page);
+        when(mockAccountDao.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 10, null, 50)).thenReturn(page);
         
         PagedResourceList<ExternalIdentifierInfo> retValue = service.getPagedExternalIds(
-                TEST_APP_ID, TEST_STUDY_ID, "idFilter", 10, 50);
+                TEST_APP_ID, TEST_STUDY_ID, "idFilter", 10, null, 50);
         assertSame(retValue, page);
     }
 
@@ -1000,13 +1034,6 @@ public class AccountServiceTest extends Mockito {
         
         when(mockAccountDao.getAccount(accountId)).thenReturn(Optional.of(account));
 
-        ReportIndex reportIndex1 = ReportIndex.create();
-        reportIndex1.setIdentifier(REPORT_ID_1);
-        ReportIndex reportIndex2 = ReportIndex.create();
-        reportIndex2.setIdentifier(REPORT_ID_2);
-        doReturn(new ReportTypeResourceList<>(ImmutableList.of(reportIndex1, reportIndex2))).when(mockReportService)
-                .getReportIndices(TEST_APP_ID, ReportType.PARTICIPANT);
-
         // Delete account.
         service.deleteAccount(accountId);
         
@@ -1027,9 +1054,189 @@ public class AccountServiceTest extends Mockito {
         verify(mockCacheProvider).removeObject(CacheKey.etag(DateTimeZone.class, TEST_USER_ID));
         verify(mockCacheProvider).removeObject(CacheKey.etag(StudyActivityEvent.class, TEST_USER_ID));
 
-        verify(mockReportService).getReportIndices(TEST_APP_ID, ReportType.PARTICIPANT);
-        verify(mockReportService).deleteParticipantReport(TEST_APP_ID, TEST_USER_ID, REPORT_ID_1, HEALTH_CODE);
-        verify(mockReportService).deleteParticipantReport(TEST_APP_ID, TEST_USER_ID, REPORT_ID_2, HEALTH_CODE);
+        verify(mockReportService).deleteAllParticipantReports(TEST_APP_ID, TEST_USER_ID, HEALTH_CODE);
+        
+        // The job records every step as complete, and is removed once the account is deleted
+        AccountDeletionJob job = getSavedDeletionJob();
+        assertEquals(job.getStatus(), AccountDeletionJob.Status.IN_PROGRESS);
+        assertEquals(job.getTotalSteps(), 9);
+        assertEquals(job.getCompletedSteps().size(), 9);
+        assertTrue(job.getCompletedSteps().contains("participantReports"));
+        assertTrue(job.getFailedSteps().isEmpty());
+        verify(mockCacheProvider).removeObject(CacheKey.accountDeletionJob(TEST_APP_ID, TEST_USER_ID));
+    }
+    
+    @Test
+    public void deleteAccount_alreadyRunning() {
+        mockAccountForDeletion();
+        
+        AccountDeletionJob existing = new AccountDeletionJob();
+        existing.setStatus(AccountDeletionJob.Status.IN_PROGRESS);
+        existing.setModifiedOn(DateTime.now());
+        when(mockCacheProvider.getObject(CacheKey.accountDeletionJob(TEST_APP_ID, TEST_USER_ID),
+                AccountDeletionJob.class)).thenReturn(existing);
+        
+        try {
+            service.deleteAccount(AccountId.forId(TEST_APP_ID, TEST_USER_ID));
+            fail("Should have thrown exception");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+        verify(mockHealthDataService, never()).deleteRecordsForHealthCode(any());
+        verify(mockAccountDao, never()).deleteAccount(any());
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
+    }
+    
+    @Test
+    public void deleteAccount_staleDeletionIsResumed() {
+        mockAccountForDeletion();
+        
+        AccountDeletionJob existing = new AccountDeletionJob();
+        existing.setAppId(TEST_APP_ID);
+        existing.setUserId(TEST_USER_ID);
+        existing.setStatus(AccountDeletionJob.Status.IN_PROGRESS);
+        existing.setModifiedOn(DateTime.now().minusMinutes(AccountService.ACCOUNT_DELETION_STALE_MINUTES + 1));
+        when(mockCacheProvider.getObject(CacheKey.accountDeletionJob(TEST_APP_ID, TEST_USER_ID),
+                AccountDeletionJob.class)).thenReturn(existing);
+        
+        service.deleteAccount(AccountId.forId(TEST_APP_ID, TEST_USER_ID));
+        
+        verify(mockAccountDao).deleteAccount(TEST_USER_ID);
+    }
+    
+    @Test
+    public void deleteAccount_stepFails() {
+        mockAccountForDeletion();
+        doThrow(new BridgeServiceException("S3 is down")).when(mockUploadService)
+                .deleteUploadsForHealthCode(HEALTH_CODE);
+        
+        try {
+            service.deleteAccount(AccountId.forId(TEST_APP_ID, TEST_USER_ID));
+            fail("Should have thrown exception");
+        } catch (BridgeServiceException e) {
+            assertEquals(e.getMessage(), "S3 is down");
+        }
+        // The other stores are still cleaned up, but the account is not deleted
+        verify(mockHealthDataService).deleteRecordsForHealthCode(HEALTH_CODE);
+        verify(mockScheduledActivityService).deleteActivitiesForUser(HEALTH_CODE);
+        verify(mockAccountDao, never()).deleteAccount(any());
+        
+        AccountDeletionJob job = getSavedDeletionJob();
+        assertEquals(job.getStatus(), AccountDeletionJob.Status.FAILED);
+        assertEquals(job.getCompletedSteps().size(), 8);
+        assertFalse(job.getCompletedSteps().contains("uploads"));
+        assertEquals(job.getFailedSteps().get("uploads"), "S3 is down");
+    }
+    
+    @Test
+    public void deleteAccount_rerunsEveryStepOfFailedDeletion() {
+        mockAccountForDeletion();
+        
+        AccountDeletionJob existing = new AccountDeletionJob();
+        existing.setAppId(TEST_APP_ID);
+        existing.setUserId(TEST_USER_ID);
+        existing.setStatus(AccountDeletionJob.Status.FAILED);
+        existing.setStartedOn(MOCK_DATETIME.minusHours(1));
+        existing.setCompletedSteps(ImmutableSet.of("healthData", "healthDataEx3", "notificationRegistrations",
+                "participantData", "participantFiles", "scheduledActivities", "activityEvents",
+                "participantReports"));
+        existing.setFailedSteps(ImmutableMap.of("uploads", "S3 is down"));
+        when(mockCacheProvider.getObject(CacheKey.accountDeletionJob(TEST_APP_ID, TEST_USER_ID),
+                AccountDeletionJob.class)).thenReturn(existing);
+        
+        service.deleteAccount(AccountId.forId(TEST_APP_ID, TEST_USER_ID));
+        
+        // Steps that completed earlier are run again, since data may have been written after they ran
+        verify(mockUploadService).deleteUploadsForHealthCode(HEALTH_CODE);
+        verify(mockHealthDataService).deleteRecordsForHealthCode(HEALTH_CODE);
+        verify(mockScheduledActivityService).deleteActivitiesForUser(HEALTH_CODE);
+        verify(mockReportService).deleteAllParticipantReports(TEST_APP_ID, TEST_USER_ID, HEALTH_CODE);
+        verify(mockAccountDao).deleteAccount(TEST_USER_ID);
+        
+        AccountDeletionJob job = getSavedDeletionJob();
+        assertEquals(job.getStartedOn(), MOCK_DATETIME.minusHours(1));
+        assertEquals(job.getCompletedSteps().size(), 9);
+        assertTrue(job.getFailedSteps().isEmpty());
+        verify(mockCacheProvider).removeObject(CacheKey.accountDeletionJob(TEST_APP_ID, TEST_USER_ID));
+    }
+    
+    @Test
+    public void startAccountDeletion() {
+        mockAccountForDeletion();
+        
+        AccountDeletionJob job = service.startAccountDeletion(AccountId.forId(TEST_APP_ID, TEST_USER_ID));
+        assertEquals(job.getAppId(), TEST_APP_ID);
+        assertEquals(job.getUserId(), TEST_USER_ID);
+        
+        // The executor runs the job directly in tests
+        verify(mockAccountDao).deleteAccount(TEST_USER_ID);
+        // The job is kept so it can be polled
+        assertEquals(getSavedDeletionJob().getStatus(), AccountDeletionJob.Status.SUCCEEDED);
+        verify(mockCacheProvider, never()).removeObject(CacheKey.accountDeletionJob(TEST_APP_ID, TEST_USER_ID));
+        // The caller's context is left in place
+        assertEquals(RequestContext.get().getCallerRoles(), ImmutableSet.of(RESEARCHER));
+    }
+    
+    @Test
+    public void startAccountDeletion_failureRecordedInJob() {
+        mockAccountForDeletion();
+        doThrow(new BridgeServiceException("S3 is down")).when(mockUploadService)
+                .deleteUploadsForHealthCode(HEALTH_CODE);
+        
+        // does not throw
+        service.startAccountDeletion(AccountId.forId(TEST_APP_ID, TEST_USER_ID));
+        
+        assertEquals(getSavedDeletionJob().getStatus(), AccountDeletionJob.Status.FAILED);
+    }
+    
+    @Test
+    public void startAccountDeletion_alreadyRunning() {
+        mockAccountForDeletion();
+        
+        AccountDeletionJob existing = new AccountDeletionJob();
+        existing.setStatus(AccountDeletionJob.Status.IN_PROGRESS);
+        existing.setModifiedOn(DateTime.now());
+        when(mockCacheProvider.getObject(CacheKey.accountDeletionJob(TEST_APP_ID, TEST_USER_ID),
+                AccountDeletionJob.class)).thenReturn(existing);
+        
+        AccountDeletionJob job = service.startAccountDeletion(AccountId.forId(TEST_APP_ID, TEST_USER_ID));
+        assertSame(job, existing);
+        verify(mockAccountDao, never()).deleteAccount(any());
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
+    }
+    
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void startAccountDeletion_notFound() {
+        service.startAccountDeletion(AccountId.forId(TEST_APP_ID, TEST_USER_ID));
+    }
+    
+    @Test
+    public void getAccountDeletionJob() {
+        AccountDeletionJob existing = new AccountDeletionJob();
+        when(mockCacheProvider.getObject(CacheKey.accountDeletionJob(TEST_APP_ID, TEST_USER_ID),
+                AccountDeletionJob.class)).thenReturn(existing);
+        
+        assertSame(service.getAccountDeletionJob(TEST_APP_ID, TEST_USER_ID), existing);
+    }
+    
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void getAccountDeletionJob_notFound() {
+        service.getAccountDeletionJob(TEST_APP_ID, TEST_USER_ID);
+    }
+    
+    private void mockAccountForDeletion() {
+        Account account = Account.create();
+        account.setAppId(TEST_APP_ID);
+        account.setId(TEST_USER_ID);
+        account.setHealthCode(HEALTH_CODE);
+        when(mockAccountDao.getAccount(AccountId.forId(TEST_APP_ID, TEST_USER_ID))).thenReturn(Optional.of(account));
+    }
+    
+    private AccountDeletionJob getSavedDeletionJob() {
+        ArgumentCaptor<AccountDeletionJob> jobCaptor = ArgumentCaptor.forClass(AccountDeletionJob.class);
+        verify(mockCacheProvider, atLeastOnce()).setObject(eq(CacheKey.accountDeletionJob(TEST_APP_ID,
+                TEST_USER_ID)), jobCaptor.capture(), eq(AccountService.ACCOUNT_DELETION_JOB_EXPIRE_SECONDS));
+        return jobCaptor.getValue();
     }
     
     @Test
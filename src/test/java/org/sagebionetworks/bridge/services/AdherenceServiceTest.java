@@ -169,6 +169,9 @@ public class AdherenceServiceTest extends Mockito {
     @Captor
     ArgumentCaptor<AdherenceRecord> recordCaptor;
     
+    @Captor
+    ArgumentCaptor<List<AdherenceRecord>> recordListCaptor;
+    
     @Captor
     ArgumentCaptor<WeeklyAdherenceReport> weeklyReportCaptor;
 
@@ -213,6 +216,65 @@ public class AdherenceServiceTest extends Mockito {
         verify(mockStudyActivityEventService, never()).publishEvent(any(), eq(false), eq(true));
     }
 
+    @Test
+    public void updateAdherenceRecords_batch() {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerUserId(TEST_USER_ID)
+                .withCallerEnrolledStudies(ImmutableSet.of(TEST_STUDY_ID)).build());
+        
+        List<AdherenceRecord> records = new ArrayList<>();
+        List<TimelineMetadata> asmtMetas = new ArrayList<>();
+        for (int i=0; i < AdherenceService.BATCH_UPDATE_THRESHOLD; i++) {
+            records.add(ar(STARTED_ON, FINISHED_ON.plusMinutes(i), "asmt" + i, false));
+            
+            TimelineMetadata meta = new TimelineMetadata();
+            meta.setGuid("asmt" + i);
+            meta.setSessionInstanceGuid("sessionInstanceGuid");
+            meta.setAssessmentInstanceGuid("asmt" + i);
+            meta.setSessionStartEventId("enrollment");
+            // Every assessment is the same assessment, so they all update the same event
+            meta.setAssessmentId("assessmentId");
+            asmtMetas.add(meta);
+        }
+        TimelineMetadata sessMeta = new TimelineMetadata();
+        sessMeta.setGuid("sessionInstanceGuid");
+        sessMeta.setSessionInstanceGuid("sessionInstanceGuid");
+        sessMeta.setSessionGuid("sessionGuid");
+        sessMeta.setSessionStartEventId("enrollment");
+        
+        when(mockScheduleService.getTimelineMetadataForInstances(any())).thenReturn(asmtMetas);
+        when(mockScheduleService.getMetadataForSessionInstances(ImmutableSet.of("sessionInstanceGuid")))
+            .thenReturn(ImmutableList.<TimelineMetadata>builder().addAll(asmtMetas).add(sessMeta).build());
+        when(mockRecordDao.getAdherenceRecordsForInstances(eq(TEST_USER_ID), eq(TEST_STUDY_ID), any()))
+            .thenReturn(records);
+        
+        service.updateAdherenceRecords(TEST_APP_ID, new AdherenceRecordList(records));
+        
+        verify(mockRecordDao, times(2)).updateAdherenceRecords(recordListCaptor.capture());
+        assertEquals(recordListCaptor.getAllValues().get(0), records);
+        
+        List<AdherenceRecord> sessionRecords = recordListCaptor.getAllValues().get(1);
+        assertEquals(sessionRecords.size(), 1);
+        assertEquals(sessionRecords.get(0).getInstanceGuid(), "sessionInstanceGuid");
+        assertEquals(sessionRecords.get(0).getSessionGuid(), "sessionGuid");
+        assertEquals(sessionRecords.get(0).getStartedOn(), STARTED_ON);
+        assertEquals(sessionRecords.get(0).getFinishedOn(), FINISHED_ON.plusMinutes(9));
+        
+        // One event for the assessment with the latest timestamp, and one for the session
+        verify(mockStudyActivityEventService, times(2)).publishEvent(eventCaptor.capture(), eq(false), eq(true));
+        StudyActivityEvent asmtEvent = eventCaptor.getAllValues().get(0);
+        assertEquals(asmtEvent.getEventId(), "assessment:assessmentId:finished");
+        assertEquals(asmtEvent.getTimestamp(), FINISHED_ON.plusMinutes(9));
+        StudyActivityEvent sessionEvent = eventCaptor.getAllValues().get(1);
+        assertEquals(sessionEvent.getEventId(), "session:sessionGuid:finished");
+        assertEquals(sessionEvent.getTimestamp(), FINISHED_ON.plusMinutes(9));
+        
+        verify(mockRecordDao, never()).updateAdherenceRecord(any());
+        verify(mockRecordDao, never()).getAdherenceRecords(any());
+        verify(mockScheduleService, never()).getTimelineMetadata(any());
+        verify(mockScheduleService, never()).getSessionAssessmentMetadata(any());
+    }
+
     @Test(expectedExceptions = BadRequestException.class)
     public void updateAdherenceRecords_noRecords() {
         service.updateAdherenceRecords(TEST_APP_ID, new AdherenceRecordList(ImmutableList.of()));
@@ -1524,6 +1586,124 @@ public class AdherenceServiceTest extends Mockito {
         assertEquals(weeklyReport.getNextActivity().getSessionGuid(), "initialSurveyGuid");
     }
     
+    @Test
+    public void getWeeklyAdherenceReportsForWorker() throws Exception {
+        Account account1 = Account.create();
+        account1.setAppId(TEST_APP_ID);
+        account1.setId("userA");
+        
+        Account account2 = Account.create();
+        account2.setAppId(TEST_APP_ID);
+        account2.setId("userB");
+        account2.setClientTimeZone(NON_LOCAL_TIME_ZONE);
+        account2.setDataGroups(ImmutableSet.of(BridgeConstants.TEST_USER_GROUP));
+        List<Account> accounts = ImmutableList.of(account1, account2);
+        
+        Study study = Study.create();
+        study.setScheduleGuid(SCHEDULE_GUID);
+        study.setAdherenceThresholdPercentage(60);
+        when(mockStudyService.getStudy(TEST_APP_ID, TEST_STUDY_ID, true)).thenReturn(study);
+        when(mockStudyService.getZoneId(TEST_APP_ID, TEST_STUDY_ID, null)).thenReturn("America/Chicago");
+        
+        Schedule2 schedule = createValidSchedule();
+        when(mockScheduleService.getScheduleForStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(Optional.of(schedule));
+        when(mockScheduleService.getScheduleMetadata(SCHEDULE_GUID))
+            .thenReturn(StudyAdherenceReportGeneratorTest.createTimelineMetadata());
+        
+        when(mockStudyActivityEventService.getRecentStudyActivityEvents(TEST_APP_ID, TEST_STUDY_ID, accounts))
+            .thenReturn(ImmutableMap.of("userA", StudyAdherenceReportGeneratorTest.createEvents()));
+        
+        AdherenceRecord record = new AdherenceRecord();
+        record.setUserId("userA");
+        record.setInstanceGuid("pqVRM8cV-buumqQvUGwRsQ");
+        record.setStartedOn(STARTED_ON);
+        when(mockRecordDao.getSessionAdherenceRecords(TEST_STUDY_ID, ImmutableSet.of("userA", "userB")))
+            .thenReturn(ImmutableList.of(record));
+        
+        RequestInfo info = new RequestInfo.Builder().withUserId("userA").withSignedInOn(CREATED_ON).build();
+        when(mockRequestInfoService.getRequestInfos(ImmutableSet.of("userA", "userB")))
+            .thenReturn(ImmutableMap.of("userA", info));
+        
+        List<WeeklyAdherenceReport> reports = service.getWeeklyAdherenceReportsForWorker(
+                TEST_APP_ID, TEST_STUDY_ID, accounts);
+        assertEquals(reports.size(), 2);
+        
+        WeeklyAdherenceReport report1 = reports.get(0);
+        assertEquals(report1.getUserId(), "userA");
+        assertEquals(report1.getClientTimeZone(), "America/Chicago");
+        assertEquals(report1.getParticipant().getIdentifier(), "userA");
+        assertFalse(report1.isTestAccount());
+        
+        WeeklyAdherenceReport report2 = reports.get(1);
+        assertEquals(report2.getUserId(), "userB");
+        assertEquals(report2.getClientTimeZone(), NON_LOCAL_TIME_ZONE);
+        assertEquals(report2.getParticipant().getIdentifier(), "userB");
+        assertTrue(report2.isTestAccount());
+        
+        verify(mockReportDao, times(2)).saveWeeklyAdherenceReport(any());
+        
+        // The study and schedule are loaded once, and nothing is loaded for each individual participant
+        verify(mockStudyService).getStudy(TEST_APP_ID, TEST_STUDY_ID, true);
+        verify(mockScheduleService).getScheduleMetadata(SCHEDULE_GUID);
+        verify(mockStudyActivityEventService, never()).getRecentStudyActivityEvents(any(), any(), anyString());
+        verify(mockRecordDao, never()).getAdherenceRecords(any());
+        verify(mockRequestInfoService, never()).getRequestInfo(any());
+    }
+    
+    @Test(expectedExceptions = EntityNotFoundException.class,
+            expectedExceptionsMessageRegExp = "Schedule not found.")
+    public void getWeeklyAdherenceReportsForWorker_noSchedule() {
+        Study study = Study.create();
+        when(mockStudyService.getStudy(TEST_APP_ID, TEST_STUDY_ID, true)).thenReturn(study);
+        
+        service.getWeeklyAdherenceReportsForWorker(TEST_APP_ID, TEST_STUDY_ID, ImmutableList.of(Account.create()));
+    }
+    
+    @Test
+    public void selectCurrentRecords() {
+        TimelineMetadata meta1 = new TimelineMetadata();
+        meta1.setGuid("instance1");
+        meta1.setSessionStartEventId("enrollment");
+        
+        TimelineMetadata meta2 = new TimelineMetadata();
+        meta2.setGuid("instance2");
+        meta2.setSessionStartEventId("custom:event1");
+        Map<String, TimelineMetadata> sessionMetadata = ImmutableMap.of("instance1", meta1, "instance2", meta2);
+        
+        StudyActivityEventIdsMap eventIdsMap = new StudyActivityEventIdsMap();
+        StudyCustomEvent customEvent = new StudyCustomEvent("event1", IMMUTABLE);
+        eventIdsMap.addCustomEvents(ImmutableList.of(customEvent));
+        
+        List<StudyActivityEvent> events = ImmutableList.of(
+                new StudyActivityEvent.Builder().withEventId("enrollment").withTimestamp(CREATED_ON).build(),
+                new StudyActivityEvent.Builder().withEventId("custom:event1").withTimestamp(MODIFIED_ON).build());
+        
+        AdherenceRecord current1 = new AdherenceRecord();
+        current1.setInstanceGuid("instance1");
+        current1.setEventTimestamp(CREATED_ON.withZone(DateTimeZone.forID(NON_LOCAL_TIME_ZONE)));
+        
+        AdherenceRecord stale = new AdherenceRecord();
+        stale.setInstanceGuid("instance1");
+        stale.setEventTimestamp(CREATED_ON.minusDays(2));
+        
+        AdherenceRecord current2 = new AdherenceRecord();
+        current2.setInstanceGuid("instance2");
+        current2.setEventTimestamp(MODIFIED_ON);
+        
+        AdherenceRecord unknownSession = new AdherenceRecord();
+        unknownSession.setInstanceGuid("instance3");
+        unknownSession.setEventTimestamp(MODIFIED_ON);
+        
+        List<AdherenceRecord> records = ImmutableList.of(current1, stale, current2, unknownSession);
+        
+        List<AdherenceRecord> retValue = service.selectCurrentRecords(records, events, eventIdsMap, sessionMetadata);
+        assertEquals(retValue, ImmutableList.of(current1, current2));
+        
+        // With no events, all the records are returned
+        retValue = service.selectCurrentRecords(records, ImmutableList.of(), eventIdsMap, sessionMetadata);
+        assertSame(retValue, records);
+    }
+    
     @Test
     public void getAdherenceStatistics_adherenceFromParam() {
         Study study = Study.create();
@@ -1812,7 +1992,7 @@ public class AdherenceServiceTest extends Mockito {
                 .build();
     
     
-        when(mockScheduleService.getTimelineForSchedule(TEST_APP_ID, SCHEDULE_GUID)).thenReturn(timeline);
+        when(mockScheduleService.getTimeline(schedule)).thenReturn(timeline);
     
         StudyActivityEvent event1 = new StudyActivityEvent.Builder()
                 .withEventId("timeline_retrieved")
@@ -2137,7 +2317,7 @@ public class AdherenceServiceTest extends Mockito {
                 .build();
     
     
-        when(mockScheduleService.getTimelineForSchedule(TEST_APP_ID, SCHEDULE_GUID)).thenReturn(timeline);
+        when(mockScheduleService.getTimeline(schedule)).thenReturn(timeline);
     
         StudyActivityEvent event1 = new StudyActivityEvent.Builder()
                 .withEventId("timeline_retrieved")
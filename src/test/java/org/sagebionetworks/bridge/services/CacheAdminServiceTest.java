@@ -1,19 +1,29 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
+import java.util.Map;
 import java.util.Set;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.surveys.Survey;
+import org.sagebionetworks.bridge.spring.util.EtagComponent;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
@@ -45,6 +55,52 @@ public class CacheAdminServiceTest {
     }
     
     
+    @Test
+    public void getCacheStats() {
+        Map<String, Map<String, Long>> stats = ImmutableMap.of("App", ImmutableMap.of("hitCount", 1L));
+        NearCacheManager nearCacheManager = mock(NearCacheManager.class);
+        when(nearCacheManager.getStats()).thenReturn(stats);
+        adminService.setNearCacheManager(nearCacheManager);
+        
+        Map<String, Map<String, Long>> etagStats = ImmutableMap.of("StudyController.getStudy", 
+                ImmutableMap.of("notModified", 2L));
+        EtagComponent etagComponent = mock(EtagComponent.class);
+        when(etagComponent.getStats()).thenReturn(etagStats);
+        adminService.setEtagComponent(etagComponent);
+        
+        Map<String, Map<String, Long>> retValue = adminService.getCacheStats();
+        assertEquals(retValue.size(), 2);
+        assertEquals(retValue.get("App"), stats.get("App"));
+        assertEquals(retValue.get("Etag:StudyController.getStudy"), etagStats.get("StudyController.getStudy"));
+    }
+    
+    @Test
+    public void getCacheStatsIncludesHibernateRegions() {
+        NearCacheManager nearCacheManager = mock(NearCacheManager.class);
+        when(nearCacheManager.getStats()).thenReturn(ImmutableMap.of());
+        adminService.setNearCacheManager(nearCacheManager);
+        
+        EtagComponent etagComponent = mock(EtagComponent.class);
+        when(etagComponent.getStats()).thenReturn(ImmutableMap.of());
+        adminService.setEtagComponent(etagComponent);
+        
+        CacheRegionStatistics regionStats = mock(CacheRegionStatistics.class);
+        when(regionStats.getHitCount()).thenReturn(3L);
+        when(regionStats.getMissCount()).thenReturn(1L);
+        when(regionStats.getPutCount()).thenReturn(1L);
+        Statistics statistics = mock(Statistics.class);
+        when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] { "study",
+                "default-update-timestamps-region" });
+        when(statistics.getDomainDataRegionStatistics("study")).thenReturn(regionStats);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        adminService.setSessionFactory(sessionFactory);
+        
+        Map<String, Map<String, Long>> retValue = adminService.getCacheStats();
+        assertEquals(retValue.size(), 1);
+        assertEquals(retValue.get("Hibernate:study"), ImmutableMap.of("hits", 3L, "misses", 1L, "puts", 1L));
+    }
+    
     @Test
     public void canRemoveItem() {
         adminService.removeItem("foo:App");
@@ -52,6 +108,29 @@ public class CacheAdminServiceTest {
         assertEquals(set.size(), 1);
     }
     
+    @Test
+    public void removeItemInvalidatesNearCaches() {
+        NearCacheManager nearCacheManager = mock(NearCacheManager.class);
+        adminService.setNearCacheManager(nearCacheManager);
+        
+        adminService.removeItem("foo:App");
+        
+        verify(nearCacheManager).invalidate(CacheKey.app("foo"));
+    }
+    
+    @Test
+    public void removeItemDoesNotInvalidateNonPublicKeys() {
+        NearCacheManager nearCacheManager = mock(NearCacheManager.class);
+        adminService.setNearCacheManager(nearCacheManager);
+        
+        try {
+            adminService.removeItem("bar:session");
+        } catch (BridgeServiceException e) {
+            // expected
+        }
+        verify(nearCacheManager, never()).invalidate(any());
+    }
+    
     @Test(expectedExceptions = BridgeServiceException.class)
     public void doesNotRemoveSessions() {
         adminService.removeItem("bar:session");
@@ -39,8 +39,6 @@ import com.amazonaws.services.sns.model.CreateTopicResult;
 import com.amazonaws.services.sns.model.PublishResult;
 import com.amazonaws.services.sns.model.SubscribeRequest;
 import com.amazonaws.services.sns.model.SubscribeResult;
-import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Charsets;
@@ -144,7 +142,6 @@ public class Exporter3ServiceTest {
     private static final String TOPIC_ARN_EXPORT_FOR_APP = "arn:aws:sns:us-east-1:111111111111:export-for-app";
     private static final String TOPIC_ARN_EXPORT_FOR_STUDY = "arn:aws:sns:us-east-1:111111111111:export-for-study";
     private static final String USER_ID = "test-user";
-    private static final String WORKER_QUEUE_URL = "http://example.com/dummy-sqs-url";
 
     private static final String EXPECTED_PROJECT_NAME = APP_NAME + " Project " + NAME_SCOPING_TOKEN;
     private static final String EXPECTED_TEAM_NAME = APP_NAME + " Access Team " + NAME_SCOPING_TOKEN;
@@ -211,7 +208,7 @@ public class Exporter3ServiceTest {
     private AmazonSNS mockSnsClient;
 
     @Mock
-    private AmazonSQS mockSqsClient;
+    private WorkerRequestPublisher mockWorkerRequestPublisher;
 
     @Mock
     private StudyService mockStudyService;
@@ -576,7 +573,6 @@ public class Exporter3ServiceTest {
                 .thenReturn(RAW_HEALTH_DATA_BUCKET);
         when(mockConfig.getProperty(Exporter3Service.CONFIG_KEY_SYNAPSE_TRACKING_VIEW))
                 .thenReturn(SYNAPSE_TRACKING_VIEW_ID);
-        when(mockConfig.getProperty(BridgeConstants.CONFIG_KEY_WORKER_SQS_URL)).thenReturn(WORKER_QUEUE_URL);
         return mockConfig;
     }
 
@@ -1216,9 +1212,6 @@ public class Exporter3ServiceTest {
         when(mockParticipantVersionService.getLatestParticipantVersionForHealthCode(TestConstants.TEST_APP_ID,
                 TestConstants.HEALTH_CODE)).thenReturn(Optional.of(participantVersion));
 
-        // Mock SQS. Return type doesn't actually matter except for logs, but we don't want it to be null.
-        when(mockSqsClient.sendMessage(any(), any())).thenReturn(new SendMessageResult());
-
         // Execute.
         exporter3Service.completeUpload(app, upload);
 
@@ -1241,7 +1234,7 @@ public class Exporter3ServiceTest {
 
         // Verify call to SQS.
         ArgumentCaptor<String> requestJsonTextCaptor = ArgumentCaptor.forClass(String.class);
-        verify(mockSqsClient).sendMessage(eq(WORKER_QUEUE_URL), requestJsonTextCaptor.capture());
+        verify(mockWorkerRequestPublisher).publish(requestJsonTextCaptor.capture(), any());
 
         String requestJsonText = requestJsonTextCaptor.getValue();
         WorkerRequest workerRequest = BridgeObjectMapper.get().readValue(requestJsonText, WorkerRequest.class);
@@ -1286,9 +1279,6 @@ public class Exporter3ServiceTest {
         when(mockParticipantVersionService.getLatestParticipantVersionForHealthCode(TestConstants.TEST_APP_ID,
                 TestConstants.HEALTH_CODE)).thenReturn(Optional.empty());
 
-        // Mock SQS. Return type doesn't actually matter except for logs, but we don't want it to be null.
-        when(mockSqsClient.sendMessage(any(), any())).thenReturn(new SendMessageResult());
-
         // Execute.
         exporter3Service.completeUpload(app, upload);
 
@@ -1326,9 +1316,6 @@ public class Exporter3ServiceTest {
         createdRecord.setId(RECORD_ID);
         when(mockHealthDataEx3Service.createOrUpdateRecord(any())).thenReturn(createdRecord);
 
-        // Mock SQS. Return type doesn't actually matter except for logs, but we don't want it to be null.
-        when(mockSqsClient.sendMessage(any(), any())).thenReturn(new SendMessageResult());
-
         // Execute.
         exporter3Service.completeUpload(app, upload);
 
@@ -1363,9 +1350,6 @@ public class Exporter3ServiceTest {
         createdRecord.setId(RECORD_ID);
         when(mockHealthDataEx3Service.createOrUpdateRecord(any())).thenReturn(createdRecord);
 
-        // Mock SQS. Return type doesn't actually matter except for logs, but we don't want it to be null.
-        when(mockSqsClient.sendMessage(any(), any())).thenReturn(new SendMessageResult());
-
         // Execute.
         exporter3Service.completeUpload(app, upload);
 
@@ -1402,9 +1386,6 @@ public class Exporter3ServiceTest {
         createdRecord.setId(RECORD_ID);
         when(mockHealthDataEx3Service.createOrUpdateRecord(any())).thenReturn(createdRecord);
 
-        // Mock SQS. Return type doesn't actually matter except for logs, but we don't want it to be null.
-        when(mockSqsClient.sendMessage(any(), any())).thenReturn(new SendMessageResult());
-
         // Execute.
         exporter3Service.completeUpload(app, upload);
 
@@ -1440,9 +1421,6 @@ public class Exporter3ServiceTest {
         createdRecord.setId(RECORD_ID);
         when(mockHealthDataEx3Service.createOrUpdateRecord(any())).thenReturn(createdRecord);
 
-        // Mock SQS. Return type doesn't actually matter except for logs, but we don't want it to be null.
-        when(mockSqsClient.sendMessage(any(), any())).thenReturn(new SendMessageResult());
-
         // Execute.
         exporter3Service.completeUpload(app, upload);
 
@@ -1481,9 +1459,6 @@ public class Exporter3ServiceTest {
         // Mock RequestInfoService.
         when(mockRequestInfoService.getRequestInfo(USER_ID)).thenReturn(new RequestInfo());
 
-        // Mock SQS. Return type doesn't actually matter except for logs, but we don't want it to be null.
-        when(mockSqsClient.sendMessage(any(), any())).thenReturn(new SendMessageResult());
-
         // Execute.
         exporter3Service.completeUpload(app, upload);
 
@@ -1524,9 +1499,6 @@ public class Exporter3ServiceTest {
                 .build();
         when(mockRequestInfoService.getRequestInfo(USER_ID)).thenReturn(requestInfo);
 
-        // Mock SQS. Return type doesn't actually matter except for logs, but we don't want it to be null.
-        when(mockSqsClient.sendMessage(any(), any())).thenReturn(new SendMessageResult());
-
         // Execute.
         exporter3Service.completeUpload(app, upload);
 
@@ -1562,7 +1534,7 @@ public class Exporter3ServiceTest {
         exporter3Service.completeUpload(app, upload);
 
         // No call to SQS.
-        verifyZeroInteractions(mockSqsClient);
+        verifyZeroInteractions(mockWorkerRequestPublisher);
     }
 
     @Test
@@ -1584,7 +1556,7 @@ public class Exporter3ServiceTest {
         }
 
         // No calls to HealthDataEx3Service or SQS.
-        verifyZeroInteractions(mockHealthDataEx3Service, mockSqsClient);
+        verifyZeroInteractions(mockHealthDataEx3Service, mockWorkerRequestPublisher);
     }
 
     @Test
@@ -6,6 +6,7 @@ import static org.sagebionetworks.bridge.BridgeConstants.NEGATIVE_OFFSET_ERROR;
 import static org.sagebionetworks.bridge.BridgeUtils.getElement;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 
@@ -80,13 +81,13 @@ public class ExternalIdServiceTest {
                 new ExternalIdentifierInfo(null, null, true));
         PagedResourceList<ExternalIdentifierInfo> page = new PagedResourceList<>(list, 100);
         
-        when(mockAccountService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, "idFilter", 10, 50))
+        when(mockAccountService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, "idFilter", 10, null, 50))
             .thenReturn(page);
         
-        PagedResourceList<ExternalIdentifierInfo> retValue = externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, "idFilter", 10, 50);
+        PagedResourceList<ExternalIdentifierInfo> retValue = externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, "idFilter", 10, null, 50);
         assertSame(retValue, page);
         
-        verify(mockAccountService).getPagedExternalIds(TEST_APP_ID, STUDY_ID, "idFilter", 10, 50);
+        verify(mockAccountService).getPagedExternalIds(TEST_APP_ID, STUDY_ID, "idFilter", 10, null, 50);
     }
     
     @Test
@@ -95,29 +96,46 @@ public class ExternalIdServiceTest {
                 new ExternalIdentifierInfo(null, null, true));
         PagedResourceList<ExternalIdentifierInfo> page = new PagedResourceList<>(list, 100);
         
-        when(mockAccountService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null)).thenReturn(page);
+        when(mockAccountService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null, null)).thenReturn(page);
         
-        PagedResourceList<ExternalIdentifierInfo> retValue = externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null);
+        PagedResourceList<ExternalIdentifierInfo> retValue = externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null, null);
         assertSame(retValue, page);
         
-        verify(mockAccountService).getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null);
+        verify(mockAccountService).getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null, null);
     }
     
     @Test(expectedExceptions = BadRequestException.class, expectedExceptionsMessageRegExp = NEGATIVE_OFFSET_ERROR)
     public void getPagedExternalIdsNegativeOffset() {
-        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, -5, null);
+        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, -5, null, null);
+    }
+    
+    @Test
+    public void getExternalIdsWithOffsetKey() {
+        PagedResourceList<ExternalIdentifierInfo> page = new PagedResourceList<>(ImmutableList.of(), 100);
+        when(mockAccountService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, 0, "offsetKey", 50))
+            .thenReturn(page);
+        
+        PagedResourceList<ExternalIdentifierInfo> retValue = externalIdService.getPagedExternalIds(TEST_APP_ID,
+                STUDY_ID, null, 0, "offsetKey", 50);
+        assertEquals(retValue.getRequestParams().get("offsetKey"), "offsetKey");
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class, 
+            expectedExceptionsMessageRegExp = ExternalIdService.OFFSET_KEY_ERROR)
+    public void getPagedExternalIdsOffsetKeyWithOffsetBy() {
+        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, 10, "offsetKey", null);
     }
     
     @Test(expectedExceptions = BadRequestException.class, 
             expectedExceptionsMessageRegExp = ExternalIdService.PAGE_SIZE_ERROR)
     public void getPagedExternalIdsPageTooSmall() {
-        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, 0);
+        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null, 0);
     }
     
     @Test(expectedExceptions = BadRequestException.class, 
             expectedExceptionsMessageRegExp = ExternalIdService.PAGE_SIZE_ERROR)
     public void getPagedExternalIdsPageTooLarge() {
-        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, 10000);
+        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null, 10000);
     }
     
     @Test
@@ -0,0 +1,94 @@
+package org.sagebionetworks.bridge.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.services.sqs.AbstractAmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.amazonaws.services.sqs.model.SendMessageResult;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * In-memory stand-in for SQS that records the messages sent to it. Only the send APIs are supported. Tests can
+ * make the next N entries fail with a server-side error to exercise retries, or reject them as the sender's fault.
+ */
+public class InMemorySqsClient extends AbstractAmazonSQS {
+    private final List<String> messageBodies = new ArrayList<>();
+    private final ListMultimap<String, String> messageBodiesByQueueUrl = ArrayListMultimap.create();
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final AtomicInteger entriesToFail = new AtomicInteger();
+    private final AtomicInteger entriesToReject = new AtomicInteger();
+
+    /** Bodies of all messages received, in the order they were received. */
+    public synchronized List<String> getMessageBodies() {
+        return ImmutableList.copyOf(messageBodies);
+    }
+
+    /** Bodies of the messages received by the queue with the given URL, in the order they were received. */
+    public synchronized List<String> getMessageBodies(String queueUrl) {
+        return ImmutableList.copyOf(messageBodiesByQueueUrl.get(queueUrl));
+    }
+
+    /** Number of entries in each SendMessageBatch call, including entries that failed. */
+    public synchronized List<Integer> getBatchSizes() {
+        return ImmutableList.copyOf(batchSizes);
+    }
+
+    /** The next {@code count} entries sent in batches will fail with a retryable (non-sender) error. */
+    public void failNextEntries(int count) {
+        entriesToFail.set(count);
+    }
+
+    /** The next {@code count} entries sent in batches will be rejected with a sender's fault error. */
+    public void rejectNextEntries(int count) {
+        entriesToReject.set(count);
+    }
+
+    @Override
+    public synchronized SendMessageResult sendMessage(SendMessageRequest request) {
+        messageBodies.add(request.getMessageBody());
+        messageBodiesByQueueUrl.put(request.getQueueUrl(), request.getMessageBody());
+        return new SendMessageResult().withMessageId(UUID.randomUUID().toString());
+    }
+
+    @Override
+    public SendMessageResult sendMessage(String queueUrl, String messageBody) {
+        return sendMessage(new SendMessageRequest(queueUrl, messageBody));
+    }
+
+    @Override
+    public synchronized SendMessageBatchResult sendMessageBatch(SendMessageBatchRequest request) {
+        batchSizes.add(request.getEntries().size());
+
+        SendMessageBatchResult result = new SendMessageBatchResult();
+        for (SendMessageBatchRequestEntry entry : request.getEntries()) {
+            if (entriesToFail.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                result.withFailed(new BatchResultErrorEntry().withId(entry.getId()).withSenderFault(false)
+                        .withCode("InternalError"));
+            } else if (entriesToReject.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                result.withFailed(new BatchResultErrorEntry().withId(entry.getId()).withSenderFault(true)
+                        .withCode("InvalidMessageContents"));
+            } else {
+                messageBodies.add(entry.getMessageBody());
+                messageBodiesByQueueUrl.put(request.getQueueUrl(), entry.getMessageBody());
+                result.withSuccessful(new SendMessageBatchResultEntry().withId(entry.getId())
+                        .withMessageId(UUID.randomUUID().toString()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public SendMessageBatchResult sendMessageBatch(String queueUrl, List<SendMessageBatchRequestEntry> entries) {
+        return sendMessageBatch(new SendMessageBatchRequest(queueUrl, entries));
+    }
+}
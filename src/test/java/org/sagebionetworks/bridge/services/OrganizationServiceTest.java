@@ -225,7 +225,7 @@ public class OrganizationServiceTest extends Mockito {
         existing.setAppId(TEST_APP_ID);
         existing.setIdentifier(IDENTIFIER);
         existing.setCreatedOn(CREATED_ON);
-        when(mockOrgDao.getOrganization(TEST_APP_ID, IDENTIFIER)).thenReturn(Optional.of(existing));
+        when(mockOrgDao.getOrganizationForUpdate(TEST_APP_ID, IDENTIFIER)).thenReturn(Optional.of(existing));
         
         when(mockOrgDao.updateOrganization(org)).thenReturn(org);
         
@@ -243,7 +243,7 @@ public class OrganizationServiceTest extends Mockito {
         RequestContext.set(new RequestContext.Builder()
                 .withCallerOrgMembership(IDENTIFIER)
                 .withCallerRoles(ImmutableSet.of(ORG_ADMIN)).build());
-        when(mockOrgDao.getOrganization(TEST_APP_ID, IDENTIFIER)).thenReturn(Optional.empty());
+        when(mockOrgDao.getOrganizationForUpdate(TEST_APP_ID, IDENTIFIER)).thenReturn(Optional.empty());
         
         Organization org = Organization.create();
         org.setAppId(TEST_APP_ID);
@@ -299,7 +299,7 @@ public class OrganizationServiceTest extends Mockito {
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(ADMIN)).build());
         Organization org = Organization.create();
-        when(mockOrgDao.getOrganization(TEST_APP_ID, IDENTIFIER)).thenReturn(Optional.of(org));
+        when(mockOrgDao.getOrganizationForUpdate(TEST_APP_ID, IDENTIFIER)).thenReturn(Optional.of(org));
         
         service.deleteOrganization(TEST_APP_ID, IDENTIFIER);
         
@@ -312,7 +312,7 @@ public class OrganizationServiceTest extends Mockito {
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(ADMIN)).build());
         Organization org = Organization.create();
-        when(mockOrgDao.getOrganization(TEST_APP_ID, IDENTIFIER)).thenReturn(Optional.of(org));
+        when(mockOrgDao.getOrganizationForUpdate(TEST_APP_ID, IDENTIFIER)).thenReturn(Optional.of(org));
         
         service.deleteOrganization(TEST_APP_ID, IDENTIFIER);
         
@@ -325,7 +325,7 @@ public class OrganizationServiceTest extends Mockito {
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(ADMIN)).build());
         Organization org = Organization.create();
-        when(mockOrgDao.getOrganization(TEST_APP_ID, IDENTIFIER)).thenReturn(Optional.of(org));
+        when(mockOrgDao.getOrganizationForUpdate(TEST_APP_ID, IDENTIFIER)).thenReturn(Optional.of(org));
         when(mockAssessmentDao.hasAssessmentFromOrg(eq(TEST_APP_ID), eq(IDENTIFIER))).thenReturn(true);
         service.deleteOrganization(TEST_APP_ID, IDENTIFIER);
     }
@@ -335,7 +335,7 @@ public class OrganizationServiceTest extends Mockito {
     public void deleteOrganizationNotFound() {
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(ADMIN)).build());
-        when(mockOrgDao.getOrganization(TEST_APP_ID, IDENTIFIER)).thenReturn(Optional.empty());
+        when(mockOrgDao.getOrganizationForUpdate(TEST_APP_ID, IDENTIFIER)).thenReturn(Optional.empty());
         
         service.deleteOrganization(TEST_APP_ID, IDENTIFIER);
     }
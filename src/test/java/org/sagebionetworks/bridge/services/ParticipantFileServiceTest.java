@@ -4,6 +4,8 @@ import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.Headers;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.google.common.collect.ImmutableList;
@@ -30,6 +32,7 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -303,8 +306,14 @@ public class ParticipantFileServiceTest {
         service.deleteAllFilesForParticipant(TestConstants.TEST_USER_ID);
 
         // Verify back-end calls.
-        verify(mockS3Client).deleteObject(UPLOAD_BUCKET, TestConstants.TEST_USER_ID + '/' + FILE_ID_1);
-        verify(mockS3Client).deleteObject(UPLOAD_BUCKET, TestConstants.TEST_USER_ID + '/' + FILE_ID_1);
+        ArgumentCaptor<DeleteObjectsRequest> deleteRequestCaptor = ArgumentCaptor.forClass(
+                DeleteObjectsRequest.class);
+        verify(mockS3Client).deleteObjects(deleteRequestCaptor.capture());
+        DeleteObjectsRequest deleteRequest = deleteRequestCaptor.getValue();
+        assertEquals(deleteRequest.getBucketName(), UPLOAD_BUCKET);
+        assertEquals(deleteRequest.getKeys().stream().map(KeyVersion::getKey).collect(Collectors.toList()),
+                ImmutableList.of(TestConstants.TEST_USER_ID + '/' + FILE_ID_1,
+                        TestConstants.TEST_USER_ID + '/' + FILE_ID_2));
         verify(mockFileDao).batchDeleteParticipantFiles(fileList);
     }
 
@@ -317,7 +326,7 @@ public class ParticipantFileServiceTest {
         service.deleteAllFilesForParticipant("test_user");
 
         // Verify no backend calls.
-        verify(mockS3Client, never()).deleteObject(any(), any());
+        verify(mockS3Client, never()).deleteObjects(any());
         verify(mockFileDao, never()).batchDeleteParticipantFiles(any());
     }
 }
@@ -1,15 +1,15 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.mock;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
@@ -29,7 +29,8 @@ import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.TestUtils;
-import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ParticipantVersionDao;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
@@ -48,14 +49,14 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 public class ParticipantVersionServiceTest {
     private static final String ACCOUNT_ID = "test-account-id";
+    private static final CacheKey FINGERPRINT_KEY = CacheKey.participantVersionFingerprint(TestConstants.TEST_APP_ID,
+            TestConstants.HEALTH_CODE);
     private static final DateTime CREATED_ON = DateTime.parse("2021-11-03T18:31:31.693-0700");
     private static final Set<String> DATA_GROUPS = ImmutableSet.of("test-data-group");
     private static final String EXTERNAL_ID_1 = "ext1";
@@ -75,11 +76,13 @@ public class ParticipantVersionServiceTest {
                             new DemographicValue("-4"), new DemographicValue("true"),
                             new DemographicValue("k", "v")),
                     null)));
-    private static final String WORKER_QUEUE_URL = "http://example.com/dummy-sqs-url";
 
     @Mock
     private AppService mockAppService;
 
+    @Mock
+    private CacheProvider mockCacheProvider;
+
     @Mock
     private DemographicService demographicService;
 
@@ -87,7 +90,7 @@ public class ParticipantVersionServiceTest {
     private ParticipantVersionDao mockParticipantVersionDao;
 
     @Mock
-    private AmazonSQS mockSqsClient;
+    private WorkerRequestPublisher mockWorkerRequestPublisher;
 
     @InjectMocks
     private ParticipantVersionService participantVersionService;
@@ -103,11 +106,6 @@ public class ParticipantVersionServiceTest {
     public void before() {
         MockitoAnnotations.initMocks(this);
 
-        // Mock config. This is done separately because we need to set mock config params.
-        BridgeConfig mockConfig = mock(BridgeConfig.class);
-        when(mockConfig.getProperty(BridgeConstants.CONFIG_KEY_WORKER_SQS_URL)).thenReturn(WORKER_QUEUE_URL);
-        participantVersionService.setConfig(mockConfig);
-
         // Mock app service.
         app = TestUtils.getValidApp(ParticipantVersionServiceTest.class);
         app.setExporter3Enabled(true);
@@ -125,15 +123,18 @@ public class ParticipantVersionServiceTest {
         // in later tests.
         when(mockParticipantVersionDao.getLatestParticipantVersionForHealthCode(TestConstants.TEST_APP_ID,
                 TestConstants.HEALTH_CODE)).thenReturn(Optional.empty());
-        when(mockSqsClient.sendMessage(anyString(), anyString())).thenReturn(new SendMessageResult());
         DemographicUser appDemographicUser = new DemographicUser();
         appDemographicUser.setDemographics(APP_DEMOGRAPHICS);
-        when(demographicService.getDemographicUser(TestConstants.TEST_APP_ID, null, ACCOUNT_ID)).thenReturn(Optional.of(appDemographicUser));
         DemographicUser study1DemographicUser = new DemographicUser();
+        study1DemographicUser.setStudyId(STUDY_ID_1);
         study1DemographicUser.setDemographics(STUDY_DEMOGRAPHICS.get(STUDY_ID_1));
-        when(demographicService.getDemographicUser(TestConstants.TEST_APP_ID, STUDY_ID_1, ACCOUNT_ID)).thenReturn(Optional.of(study1DemographicUser));
-        // account is in this study but does not have demographics in it
-        when(demographicService.getDemographicUser(TestConstants.TEST_APP_ID, STUDY_ID_2, ACCOUNT_ID)).thenReturn(Optional.empty());
+        // account has demographics in a study it isn't in (anymore), and is in study2 but does not have demographics
+        // in it
+        DemographicUser otherStudyDemographicUser = new DemographicUser();
+        otherStudyDemographicUser.setStudyId("other-study");
+        otherStudyDemographicUser.setDemographics(APP_DEMOGRAPHICS);
+        when(demographicService.getDemographicUsersForUser(TestConstants.TEST_APP_ID, ACCOUNT_ID)).thenReturn(
+                ImmutableList.of(study1DemographicUser, appDemographicUser, otherStudyDemographicUser));
 
         // Make Account. Populate it with attributes we care about for Participant Versions.
         Account account = Account.create();
@@ -156,9 +157,7 @@ public class ParticipantVersionServiceTest {
         ArgumentCaptor<ParticipantVersion> participantVersionCaptor = ArgumentCaptor.forClass(
                 ParticipantVersion.class);
         verify(mockParticipantVersionDao).createParticipantVersion(participantVersionCaptor.capture());
-        verify(demographicService).getDemographicUser(TestConstants.TEST_APP_ID, null, ACCOUNT_ID);
-        verify(demographicService).getDemographicUser(TestConstants.TEST_APP_ID, STUDY_ID_1, ACCOUNT_ID);
-        verify(demographicService).getDemographicUser(TestConstants.TEST_APP_ID, STUDY_ID_2, ACCOUNT_ID);
+        verify(demographicService).getDemographicUsersForUser(TestConstants.TEST_APP_ID, ACCOUNT_ID);
 
         ParticipantVersion participantVersion = participantVersionCaptor.getValue();
         assertEquals(participantVersion.getAppId(), TestConstants.TEST_APP_ID);
@@ -179,6 +178,11 @@ public class ParticipantVersionServiceTest {
         assertEquals(studyMembershipMap.size(), 2);
         assertEquals(studyMembershipMap.get(STUDY_ID_1), EXTERNAL_ID_1);
         assertEquals(studyMembershipMap.get(STUDY_ID_2), BridgeConstants.EXTERNAL_ID_NONE);
+
+        String fingerprint = ParticipantVersionService.calculateFingerprint(participantVersion);
+        assertEquals(participantVersion.getFingerprint(), fingerprint);
+        verify(mockCacheProvider).setObject(FINGERPRINT_KEY, fingerprint,
+                ParticipantVersionService.FINGERPRINT_EXPIRATION_IN_SECONDS);
     }
 
     @Test
@@ -239,9 +243,8 @@ public class ParticipantVersionServiceTest {
 
     @Test
     public void createParticipantVersionFromAccount_noAppDemographics() {
-        when(mockSqsClient.sendMessage(anyString(), anyString())).thenReturn(new SendMessageResult());
-        when(demographicService.getDemographicUser(TestConstants.TEST_APP_ID, null, ACCOUNT_ID))
-                .thenReturn(Optional.empty());
+        when(demographicService.getDemographicUsersForUser(TestConstants.TEST_APP_ID, ACCOUNT_ID))
+                .thenReturn(ImmutableList.of());
 
         Account account = Account.create();
         account.setId(ACCOUNT_ID);
@@ -261,7 +264,7 @@ public class ParticipantVersionServiceTest {
         ArgumentCaptor<ParticipantVersion> participantVersionCaptor = ArgumentCaptor.forClass(
                 ParticipantVersion.class);
         verify(mockParticipantVersionDao).createParticipantVersion(participantVersionCaptor.capture());
-        verify(demographicService).getDemographicUser(TestConstants.TEST_APP_ID, null, ACCOUNT_ID);
+        verify(demographicService).getDemographicUsersForUser(TestConstants.TEST_APP_ID, ACCOUNT_ID);
 
         ParticipantVersion participantVersion = participantVersionCaptor.getValue();
         assertEquals(participantVersion.getAppDemographics(), null);
@@ -273,7 +276,6 @@ public class ParticipantVersionServiceTest {
         // Mock dependencies.
         when(mockParticipantVersionDao.getLatestParticipantVersionForHealthCode(TestConstants.TEST_APP_ID,
                 TestConstants.HEALTH_CODE)).thenReturn(Optional.empty());
-        when(mockSqsClient.sendMessage(anyString(), anyString())).thenReturn(new SendMessageResult());
 
         // Make input.
         ParticipantVersion toCreate = ParticipantVersion.create();
@@ -293,7 +295,7 @@ public class ParticipantVersionServiceTest {
 
         // Verify call to SQS.
         ArgumentCaptor<String> requestJsonTextCaptor = ArgumentCaptor.forClass(String.class);
-        verify(mockSqsClient).sendMessage(eq(WORKER_QUEUE_URL), requestJsonTextCaptor.capture());
+        verify(mockWorkerRequestPublisher).publish(requestJsonTextCaptor.capture(), any());
 
         String requestJsonText = requestJsonTextCaptor.getValue();
         WorkerRequest workerRequest = BridgeObjectMapper.get().readValue(requestJsonText, WorkerRequest.class);
@@ -319,7 +321,6 @@ public class ParticipantVersionServiceTest {
 
         when(mockParticipantVersionDao.getLatestParticipantVersionForHealthCode(TestConstants.TEST_APP_ID,
                 TestConstants.HEALTH_CODE)).thenReturn(Optional.of(existing));
-        when(mockSqsClient.sendMessage(anyString(), anyString())).thenReturn(new SendMessageResult());
 
         // Make input.
         // Set createdOn to make sure we can't overwrite existing.
@@ -357,9 +358,127 @@ public class ParticipantVersionServiceTest {
         toCreate.setAppId(TestConstants.TEST_APP_ID);
         toCreate.setHealthCode(TestConstants.HEALTH_CODE);
 
+        // Execute and validate. We never save the participant version. The existing version was created before we
+        // stored fingerprints, so we calculate its fingerprint, and cache it.
+        participantVersionService.createParticipantVersion(toCreate);
+        verify(mockParticipantVersionDao, never()).createParticipantVersion(any());
+        verify(mockCacheProvider).setObject(FINGERPRINT_KEY, ParticipantVersionService.calculateFingerprint(existing),
+                ParticipantVersionService.FINGERPRINT_EXPIRATION_IN_SECONDS);
+    }
+
+    @Test
+    public void createParticipantVersion_IdenticalFingerprint() {
+        // Mock dependencies. The existing version has a stored fingerprint, which we use instead of its attributes.
+        ParticipantVersion toCreate = makeParticipantVersion();
+        String fingerprint = ParticipantVersionService.calculateFingerprint(toCreate);
+
+        ParticipantVersion existing = ParticipantVersion.create();
+        existing.setAppId(TestConstants.TEST_APP_ID);
+        existing.setHealthCode(TestConstants.HEALTH_CODE);
+        existing.setFingerprint(fingerprint);
+
+        when(mockParticipantVersionDao.getLatestParticipantVersionForHealthCode(TestConstants.TEST_APP_ID,
+                TestConstants.HEALTH_CODE)).thenReturn(Optional.of(existing));
+
         // Execute and validate. We never save the participant version.
         participantVersionService.createParticipantVersion(toCreate);
         verify(mockParticipantVersionDao, never()).createParticipantVersion(any());
+        verify(mockCacheProvider).setObject(FINGERPRINT_KEY, fingerprint,
+                ParticipantVersionService.FINGERPRINT_EXPIRATION_IN_SECONDS);
+    }
+
+    @Test
+    public void createParticipantVersion_CachedFingerprint() {
+        // Mock dependencies. The cached fingerprint of the latest version is the same.
+        ParticipantVersion toCreate = makeParticipantVersion();
+        when(mockCacheProvider.getObject(FINGERPRINT_KEY, String.class)).thenReturn(
+                ParticipantVersionService.calculateFingerprint(toCreate));
+
+        // Execute and validate. We don't even read the latest version.
+        participantVersionService.createParticipantVersion(toCreate);
+        verifyZeroInteractions(mockParticipantVersionDao, mockWorkerRequestPublisher);
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
+    }
+
+    @Test
+    public void createParticipantVersion_DifferentCachedFingerprint() {
+        // Mock dependencies. The cached fingerprint is from a different version, so we check the latest version.
+        ParticipantVersion existing = makeParticipantVersion();
+        existing.setTimeZone("Asia/Tokyo");
+        when(mockCacheProvider.getObject(FINGERPRINT_KEY, String.class)).thenReturn(
+                ParticipantVersionService.calculateFingerprint(existing));
+        when(mockParticipantVersionDao.getLatestParticipantVersionForHealthCode(TestConstants.TEST_APP_ID,
+                TestConstants.HEALTH_CODE)).thenReturn(Optional.of(existing));
+
+        // Execute and validate.
+        ParticipantVersion toCreate = makeParticipantVersion();
+        participantVersionService.createParticipantVersion(toCreate);
+
+        ArgumentCaptor<ParticipantVersion> createdCaptor = ArgumentCaptor.forClass(ParticipantVersion.class);
+        verify(mockParticipantVersionDao).createParticipantVersion(createdCaptor.capture());
+
+        ParticipantVersion created = createdCaptor.getValue();
+        assertEquals(created.getParticipantVersion(), PARTICIPANT_VERSION + 1);
+        String fingerprint = ParticipantVersionService.calculateFingerprint(toCreate);
+        assertEquals(created.getFingerprint(), fingerprint);
+        verify(mockCacheProvider).setObject(FINGERPRINT_KEY, fingerprint,
+                ParticipantVersionService.FINGERPRINT_EXPIRATION_IN_SECONDS);
+    }
+
+    @Test
+    public void calculateFingerprint() {
+        String fingerprint = ParticipantVersionService.calculateFingerprint(makeParticipantVersion());
+        assertNotNull(fingerprint);
+        // SHA-256, as hex.
+        assertEquals(fingerprint.length(), 64);
+
+        // Key attributes, createdOn and modifiedOn aren't part of the fingerprint.
+        ParticipantVersion participantVersion = makeParticipantVersion();
+        participantVersion.setHealthCode("other-health-code");
+        participantVersion.setParticipantVersion(PARTICIPANT_VERSION + 1);
+        participantVersion.setCreatedOn(MOCK_NOW_MILLIS);
+        participantVersion.setModifiedOn(CREATED_ON.getMillis());
+        assertEquals(ParticipantVersionService.calculateFingerprint(participantVersion), fingerprint);
+
+        // A stored fingerprint isn't part of the fingerprint either.
+        participantVersion.setFingerprint("stored-fingerprint");
+        assertEquals(ParticipantVersionService.calculateFingerprint(participantVersion), fingerprint);
+
+        participantVersion.setSharingScope(SharingScope.SPONSORS_AND_PARTNERS);
+        assertNotEquals(ParticipantVersionService.calculateFingerprint(participantVersion), fingerprint);
+    }
+
+    @Test
+    public void calculateFingerprint_IgnoresOrder() {
+        ParticipantVersion participantVersion1 = makeParticipantVersion();
+        participantVersion1.setDataGroups(ImmutableSet.of("group1", "group2"));
+        participantVersion1.setStudyMemberships(ImmutableMap.of(STUDY_ID_1, EXTERNAL_ID_1, STUDY_ID_2, ""));
+        participantVersion1.setStudyDemographics(ImmutableMap.of(STUDY_ID_1, ImmutableMap.of(),
+                STUDY_ID_2, STUDY_DEMOGRAPHICS.get(STUDY_ID_1)));
+
+        ParticipantVersion participantVersion2 = makeParticipantVersion();
+        participantVersion2.setDataGroups(ImmutableSet.of("group2", "group1"));
+        participantVersion2.setStudyMemberships(ImmutableMap.of(STUDY_ID_2, "", STUDY_ID_1, EXTERNAL_ID_1));
+        participantVersion2.setStudyDemographics(ImmutableMap.of(STUDY_ID_2, STUDY_DEMOGRAPHICS.get(STUDY_ID_1),
+                STUDY_ID_1, ImmutableMap.of()));
+
+        assertEquals(ParticipantVersionService.calculateFingerprint(participantVersion1),
+                ParticipantVersionService.calculateFingerprint(participantVersion2));
+    }
+
+    @Test
+    public void isIdenticalParticipantVersion_StoredFingerprint() {
+        // Stored fingerprints are compared instead of the attributes.
+        ParticipantVersion participantVersion1 = makeParticipantVersion();
+        participantVersion1.setFingerprint("fingerprint");
+
+        ParticipantVersion participantVersion2 = ParticipantVersion.create();
+        participantVersion2.setFingerprint("fingerprint");
+
+        assertTrue(ParticipantVersionService.isIdenticalParticipantVersion(participantVersion1, participantVersion2));
+
+        participantVersion2.setFingerprint("other-fingerprint");
+        assertFalse(ParticipantVersionService.isIdenticalParticipantVersion(participantVersion1, participantVersion2));
     }
 
     @Test
@@ -520,6 +639,7 @@ public class ParticipantVersionServiceTest {
                 TestConstants.HEALTH_CODE);
         verify(mockParticipantVersionDao).deleteParticipantVersionsForHealthCode(TestConstants.TEST_APP_ID,
                 TestConstants.HEALTH_CODE);
+        verify(mockCacheProvider).removeObject(FINGERPRINT_KEY);
     }
 
     @Test
@@ -46,6 +46,7 @@ import org.sagebionetworks.bridge.models.reports.ReportType;
 
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
@@ -359,6 +360,35 @@ public class ReportServiceTest extends Mockito {
         verify(mockReportDataDao).deleteReportData(PARTICIPANT_REPORT_DATA_KEY);
     }
     
+    @Test
+    public void deleteAllParticipantReports() {
+        ReportIndex index1 = ReportIndex.create();
+        index1.setIdentifier(IDENTIFIER);
+        ReportIndex index2 = ReportIndex.create();
+        index2.setIdentifier("otherIdentifier");
+        indices = new ReportTypeResourceList<>(Lists.newArrayList(index1, index2))
+                .withRequestParam(ResourceList.REPORT_TYPE, ReportType.PARTICIPANT);
+        doReturn(indices).when(mockReportIndexDao).getIndices(TEST_APP_ID, ReportType.PARTICIPANT);
+        
+        service.deleteAllParticipantReports(TEST_APP_ID, TEST_USER_ID, HEALTH_CODE);
+        
+        ReportDataKey otherKey = new ReportDataKey.Builder().withReportType(ReportType.PARTICIPANT)
+                .withAppId(TEST_APP_ID).withHealthCode(HEALTH_CODE).withIdentifier("otherIdentifier").build();
+        verify(mockReportDataDao).deleteAllReportData(ImmutableList.of(PARTICIPANT_REPORT_DATA_KEY, otherKey));
+        verify(mockReportIndexDao, never()).getIndex(any());
+    }
+    
+    @Test
+    public void deleteAllParticipantReportsNoReports() {
+        indices = new ReportTypeResourceList<>(Lists.<ReportIndex>newArrayList())
+                .withRequestParam(ResourceList.REPORT_TYPE, ReportType.PARTICIPANT);
+        doReturn(indices).when(mockReportIndexDao).getIndices(TEST_APP_ID, ReportType.PARTICIPANT);
+        
+        service.deleteAllParticipantReports(TEST_APP_ID, TEST_USER_ID, HEALTH_CODE);
+        
+        verify(mockReportDataDao, never()).deleteAllReportData(any());
+    }
+    
     @Test
     public void deleteParticipantReportIndex() {
         service.deleteParticipantReportIndex(TEST_APP_ID, TEST_USER_ID, IDENTIFIER);
@@ -1,9 +1,16 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -77,4 +84,24 @@ public class RequestInfoServiceTest extends Mockito {
         verify(mockRequestInfoDao).removeRequestInfo(TEST_USER_ID);
         verify(mockCacheProvider).removeRequestInfo(TEST_USER_ID);
     }
+    
+    @Test
+    public void getRequestInfos() {
+        RequestInfo infoA = new RequestInfo.Builder().withUserId("userA").build();
+        RequestInfo infoB = new RequestInfo.Builder().withUserId("userB").build();
+        Set<String> userIds = ImmutableSet.of("userA", "userB", "userC");
+        when(mockRequestInfoDao.getRequestInfos(userIds)).thenReturn(ImmutableList.of(infoA));
+        when(mockCacheProvider.getRequestInfo("userB")).thenReturn(infoB);
+        
+        Map<String, RequestInfo> retValue = service.getRequestInfos(userIds);
+        assertEquals(retValue.size(), 2);
+        assertSame(retValue.get("userA"), infoA);
+        assertSame(retValue.get("userB"), infoB);
+        
+        // Only the info found in the cache is saved, and only users not in the database are looked up there
+        verify(mockRequestInfoDao).updateRequestInfo(infoB);
+        verify(mockRequestInfoDao, never()).updateRequestInfo(infoA);
+        verify(mockCacheProvider, never()).getRequestInfo("userA");
+        verify(mockCacheProvider).getRequestInfo("userC");
+    }
 }
@@ -22,6 +22,7 @@ import static org.sagebionetworks.bridge.models.studies.StudyPhase.DESIGN;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
@@ -1045,6 +1046,93 @@ public class Schedule2ServiceTest extends Mockito {
         assertNotNull(timeline);
     }
     
+    @Test
+    public void getTimelineIsCachedForScheduleRevision() {
+        Schedule2 schedule = Schedule2Test.createValidSchedule();
+        schedule.setGuid("cached-timeline-guid");
+        
+        Timeline timeline1 = service.getTimeline(schedule);
+        Timeline timeline2 = service.getTimeline(schedule);
+        assertSame(timeline1, timeline2);
+        
+        // a different revision of the schedule is calculated again
+        schedule.setModifiedOn(MODIFIED_ON.plusMinutes(1));
+        Timeline timeline3 = service.getTimeline(schedule);
+        assertNotSame(timeline3, timeline1);
+        assertSame(service.getTimeline(schedule), timeline3);
+    }
+    
+    @Test
+    public void getTimelineIsCachedPerLanguage() {
+        Schedule2 schedule = Schedule2Test.createValidSchedule();
+        schedule.setGuid("language-timeline-guid");
+        
+        RequestContext.set(new RequestContext.Builder().withCallerLanguages(ImmutableList.of("en")).build());
+        Timeline enTimeline = service.getTimeline(schedule);
+        
+        RequestContext.set(new RequestContext.Builder().withCallerLanguages(ImmutableList.of("fr")).build());
+        Timeline frTimeline = service.getTimeline(schedule);
+        assertNotSame(frTimeline, enTimeline);
+        assertEquals(frTimeline.getLang(), "fr");
+        
+        RequestContext.set(new RequestContext.Builder().withCallerLanguages(ImmutableList.of("en")).build());
+        assertSame(service.getTimeline(schedule), enTimeline);
+    }
+    
+    @Test
+    public void getTimelineDoesNotCacheUnsavedSchedule() {
+        Schedule2 schedule = Schedule2Test.createValidSchedule();
+        schedule.setGuid(null);
+        
+        assertNotSame(service.getTimeline(schedule), service.getTimeline(schedule));
+    }
+    
+    @Test
+    public void getTimelineForScheduleUsesCache() {
+        Schedule2 schedule = Schedule2Test.createValidSchedule();
+        schedule.setGuid("service-timeline-guid");
+        when(mockDao.getSchedule(TEST_APP_ID, "service-timeline-guid")).thenReturn(Optional.of(schedule));
+        
+        Timeline timeline = service.getTimelineForSchedule(TEST_APP_ID, "service-timeline-guid");
+        assertSame(service.getTimelineForSchedule(TEST_APP_ID, "service-timeline-guid"), timeline);
+    }
+    
+    @Test
+    public void deleteSchedulePermanentlyInvalidatesTimelines() {
+        permitToAccess();
+        
+        Schedule2 schedule = Schedule2Test.createValidSchedule();
+        schedule.setGuid("deleted-timeline-guid");
+        when(mockDao.getSchedule(TEST_APP_ID, "deleted-timeline-guid")).thenReturn(Optional.of(schedule));
+        
+        Timeline timeline = service.getTimeline(schedule);
+        
+        service.deleteSchedulePermanently(TEST_APP_ID, "deleted-timeline-guid");
+        
+        assertNotSame(service.getTimeline(schedule), timeline);
+    }
+    
+    @Test
+    public void publishScheduleInvalidatesTimelines() {
+        permitToAccess();
+        
+        Schedule2 schedule = Schedule2Test.createValidSchedule();
+        schedule.setGuid("published-timeline-guid");
+        schedule.setPublished(false);
+        Timeline timeline = service.getTimeline(schedule);
+        
+        Schedule2 existing = Schedule2Test.createValidSchedule();
+        existing.setGuid("published-timeline-guid");
+        existing.setPublished(false);
+        existing.setDeleted(false);
+        when(mockDao.getSchedule(TEST_APP_ID, "published-timeline-guid")).thenReturn(Optional.of(existing));
+        
+        service.publishSchedule(TEST_APP_ID, "published-timeline-guid");
+        
+        // Same revision as before the schedule was published, so only the invalidation would remove it
+        assertNotSame(service.getTimeline(schedule), timeline);
+    }
+    
     @Test
     public void getTimelineMetadata() {
         TimelineMetadata meta = new TimelineMetadata();
@@ -1075,6 +1163,24 @@ public class Schedule2ServiceTest extends Mockito {
         verify(mockDao).getAssessmentsForSessionInstance(GUID);
     }
     
+    @Test
+    public void getTimelineMetadataForInstances() {
+        List<TimelineMetadata> results = ImmutableList.of();
+        when(mockDao.getTimelineMetadataForInstances(ImmutableSet.of(GUID))).thenReturn(results);
+        
+        List<TimelineMetadata> retValue = service.getTimelineMetadataForInstances(ImmutableSet.of(GUID));
+        assertSame(retValue, results);
+    }
+    
+    @Test
+    public void getMetadataForSessionInstances() {
+        List<TimelineMetadata> results = ImmutableList.of();
+        when(mockDao.getMetadataForSessionInstances(ImmutableSet.of(GUID))).thenReturn(results);
+        
+        List<TimelineMetadata> retValue = service.getMetadataForSessionInstances(ImmutableSet.of(GUID));
+        assertSame(retValue, results);
+    }
+    
     @Test
     public void createOrUpdateStudySchedule_create() {
         RequestContext.set(new RequestContext.Builder()
@@ -2,11 +2,13 @@ package org.sagebionetworks.bridge.services;
 
 import static java.util.stream.Collectors.toSet;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -42,6 +44,7 @@ import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
@@ -52,6 +55,7 @@ import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
+import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.schedules.Activity;
 import org.sagebionetworks.bridge.models.schedules.ActivityType;
@@ -74,6 +78,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 public class ScheduledActivityServiceTest {
 
@@ -157,11 +162,13 @@ public class ScheduledActivityServiceTest {
         service.setActivityEventService(activityEventService);
         service.setSurveyService(surveyService);
         service.setAppConfigService(appConfigService);
+        service.setActivityLookupExecutorService(MoreExecutors.newDirectExecutorService());
     }
     
     @AfterMethod
     public void after() {
         DateTimeUtils.setCurrentMillisSystem();
+        RequestContext.set(RequestContext.NULL_INSTANCE);
     }
     
     @Test(expectedExceptions = BadRequestException.class)
@@ -805,8 +812,8 @@ public class ScheduledActivityServiceTest {
         oneTimeActivity.setFinishedOn(NOW.plusMinutes(5).getMillis());
         
         mockAllCallsForDbActivities(ImmutableList.of());
-        when(activityDao.getActivity(context.getStartsOn().getZone(), HEALTH_CODE, guid, false))
-                .thenReturn(oneTimeActivity);
+        when(activityDao.getActivities(eq(context.getStartsOn().getZone()), any()))
+                .thenReturn(ImmutableList.of(oneTimeActivity));
         
         List<ScheduledActivity> scheduledActivities = service.getScheduledActivitiesV4(app, context);
         assertEquals(scheduledActivities.size(), 1);
@@ -817,7 +824,10 @@ public class ScheduledActivityServiceTest {
         verify(activityDao, times(1)).getActivityHistoryV2(HEALTH_CODE, "guidForCCC", context.getStartsOn(), context.getEndsOn(),
                 null, BridgeConstants.API_MAXIMUM_PAGE_SIZE);
         // Retrieve any remaining scheduled activity from the DB to ensure state is maintained. 
-        verify(activityDao, times(1)).getActivity(context.getStartsOn().getZone(), HEALTH_CODE, guid, false);
+        verify(activityDao, times(1)).getActivities(eq(context.getStartsOn().getZone()),
+                scheduledActivityListCaptor.capture());
+        assertEquals(toGuids(scheduledActivityListCaptor.getValue()), Sets.newHashSet(guid));
+        verify(activityDao, never()).getActivity(any(), any(), any(), anyBoolean());
         
         verify(activityDao).saveActivities(scheduledActivityListCaptor.capture());
         
@@ -1284,10 +1294,35 @@ public class ScheduledActivityServiceTest {
         dbActivity.setLocalScheduledOn(LocalDateTime.parse("2017-02-23T13:00:00.000"));
         // This is the critical line. Without this, the service fails. Also tested in DAO code.
         dbActivity.setTimeZone(context.getStartsOn().getZone());
-        when(mockedActivityDao.getActivity(context.getStartsOn().getZone(), HEALTH_CODE, "AAA:2017-02-23T13:00:00.000", false)).thenReturn(dbActivity);
+        when(mockedActivityDao.getActivities(eq(context.getStartsOn().getZone()), any()))
+                .thenReturn(ImmutableList.of(dbActivity));
         
         service.getScheduledActivitiesV4(app, context);
-        verify(mockedActivityDao).getActivity(context.getStartsOn().getZone(), HEALTH_CODE, "AAA:2017-02-23T13:00:00.000", false);
+        verify(mockedActivityDao).getActivities(eq(context.getStartsOn().getZone()), any());
+    }
+    
+    @Test
+    public void getScheduledActivitiesV4RecordsPhaseMetrics() {
+        Metrics metrics = new Metrics("requestId");
+        RequestContext.set(new RequestContext.Builder().withMetrics(metrics).build());
+        
+        ScheduleContext context = createScheduleContext(ENDS_ON).build();
+        service.getScheduledActivitiesV4(app, context);
+        
+        JsonNode phases = metrics.getJson().get("phase_elapsed_millis");
+        assertTrue(phases.has("schedule"));
+        assertTrue(phases.has("history_queries"));
+        assertTrue(phases.has("batch_load"));
+        assertTrue(phases.has("merge_and_save"));
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void getScheduledActivitiesV4PropagatesHistoryQueryException() {
+        when(activityDao.getActivityHistoryV2(any(), any(), any(), any(), any(), anyInt()))
+                .thenThrow(new BadRequestException("bad request"));
+        
+        ScheduleContext context = createScheduleContext(ENDS_ON).build();
+        service.getScheduledActivitiesV4(app, context);
     }
     
     private void mockAllCallsForDbActivities(List<ScheduledActivity> dbActivities) {
@@ -800,6 +800,43 @@ public class StudyActivityEventServiceTest extends Mockito {
         assertEquals(event.getRecordCount(), Integer.valueOf(4));
     }
     
+    @Test
+    public void getRecentStudyActivityEventsForAccounts() {
+        StudyActivityEvent event1 = createEvent("timeline_retrieved", TIMELINE_RETRIEVED_TS, null);
+        StudyActivityEvent event2 = createEvent("custom:event1", CREATED_ON, 4);
+        when(mockDao.getRecentStudyActivityEvents(ImmutableSet.of("userA", "userB"), TEST_STUDY_ID))
+                .thenReturn(ImmutableMap.of("userA", ImmutableList.of(event1, event2)));
+        
+        when(mockActivityEventService.getActivityEventMap(TEST_APP_ID, "healthCodeA"))
+                .thenReturn(ImmutableMap.of(CREATED_ON_FIELD, CREATED_ON));
+        when(mockActivityEventService.getActivityEventMap(TEST_APP_ID, "healthCodeB"))
+                .thenReturn(ImmutableMap.of(CREATED_ON_FIELD, MODIFIED_ON));
+        
+        Account accountA = Account.create();
+        accountA.setId("userA");
+        accountA.setHealthCode("healthCodeA");
+        Account accountB = Account.create();
+        accountB.setId("userB");
+        accountB.setHealthCode("healthCodeB");
+        
+        Map<String, List<StudyActivityEvent>> retValue = service.getRecentStudyActivityEvents(
+                TEST_APP_ID, TEST_STUDY_ID, ImmutableList.of(accountA, accountB));
+        assertEquals(retValue.size(), 2);
+        
+        List<StudyActivityEvent> eventsA = retValue.get("userA");
+        assertEquals(eventsA.size(), 3);
+        assertEquals(TestUtils.findByEventId(eventsA, ActivityEventObjectType.CREATED_ON).getTimestamp(), CREATED_ON);
+        assertEquals(TestUtils.findByEventId(eventsA, CUSTOM).getRecordCount(), Integer.valueOf(4));
+        
+        // no study events, but the global events are still included
+        List<StudyActivityEvent> eventsB = retValue.get("userB");
+        assertEquals(eventsB.size(), 1);
+        assertEquals(TestUtils.findByEventId(eventsB, ActivityEventObjectType.CREATED_ON).getTimestamp(), MODIFIED_ON);
+        
+        verify(mockDao, never()).getRecentStudyActivityEvents(any(String.class), any(String.class));
+        verify(mockAccountService, never()).getAccount(any());
+    }
+    
     @Test(expectedExceptions = EntityNotFoundException.class)
     public void getRecentStudyActivityEvents_noAccount() {
         service.getRecentStudyActivityEvents(TEST_APP_ID, TEST_STUDY_ID, TEST_USER_ID);
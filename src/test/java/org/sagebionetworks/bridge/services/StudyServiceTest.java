@@ -22,6 +22,7 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
@@ -52,6 +53,8 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.cache.CacheKey;
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.NearCache;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.OrganizationDao;
 import org.sagebionetworks.bridge.dao.StudyDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -153,6 +156,102 @@ public class StudyServiceTest extends Mockito {
         verify(mockCacheProvider).setObject(cacheKey, MODIFIED_ON);
     }
     
+    @Test
+    public void getStudyDoesNotRewriteCurrentEtag() {
+        Study study = Study.create();
+        study.setModifiedOn(MODIFIED_ON);
+        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        
+        CacheKey cacheKey = CacheKey.etag(Study.class, TEST_APP_ID, TEST_STUDY_ID);
+        when(mockCacheProvider.getObject(cacheKey, DateTime.class)).thenReturn(new DateTime(MODIFIED_ON.getMillis()));
+        
+        service.getStudy(TEST_APP_ID, TEST_STUDY_ID, true);
+        
+        verify(mockCacheProvider, never()).setObject(any(), any());
+    }
+    
+    @Test
+    public void getStudyFromNearCache() {
+        setupNearCache();
+        
+        Study study = Study.create();
+        study.setAppId(TEST_APP_ID);
+        study.setIdentifier(TEST_STUDY_ID);
+        study.setName("name");
+        study.setLogoGuid(GUID);
+        study.setModifiedOn(MODIFIED_ON);
+        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        
+        Study first = service.getStudy(TEST_APP_ID, TEST_STUDY_ID, true);
+        assertNotSame(first, study);
+        assertEquals(first.getAppId(), TEST_APP_ID);
+        assertEquals(first.getIdentifier(), TEST_STUDY_ID);
+        assertEquals(first.getName(), "name");
+        assertEquals(first.getLogoGuid(), GUID);
+        
+        // Changing the returned study does not change the cached study
+        first.setName("changed");
+        Study second = service.getStudy(TEST_APP_ID, TEST_STUDY_ID, true);
+        assertEquals(second.getName(), "name");
+        
+        verify(mockStudyDao, times(1)).getStudy(TEST_APP_ID, TEST_STUDY_ID);
+        verify(mockCacheProvider, times(1)).setObject(CacheKey.etag(Study.class, TEST_APP_ID, TEST_STUDY_ID),
+                MODIFIED_ON);
+    }
+    
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void getStudyFromNearCacheNotFound() {
+        setupNearCache();
+        service.getStudy(TEST_APP_ID, TEST_STUDY_ID, true);
+    }
+    
+    @Test
+    public void getStudyIdsFromNearCache() {
+        NearCacheManager mockNearCacheManager = setupNearCache();
+        
+        Study studyA = Study.create();
+        studyA.setIdentifier("studyA");
+        PagedResourceList<Study> studies = new PagedResourceList<>(ImmutableList.of(studyA), 1); 
+        when(mockStudyDao.getStudies(TEST_APP_ID, null, null, null, false)).thenReturn(studies);
+        
+        assertEquals(service.getStudyIds(TEST_APP_ID), ImmutableSet.of("studyA"));
+        assertEquals(service.getStudyIds(TEST_APP_ID), ImmutableSet.of("studyA"));
+        verify(mockStudyDao, times(1)).getStudies(TEST_APP_ID, null, null, null, false);
+        
+        // Creating a study invalidates the list of study IDs
+        Study study = Study.create();
+        study.setIdentifier(TEST_STUDY_ID);
+        study.setName("Name");
+        service.createStudy(TEST_APP_ID, study, false);
+        verify(mockNearCacheManager).invalidate(CacheKey.studyIdList(TEST_APP_ID));
+    }
+    
+    @Test
+    public void updateStudyInvalidatesNearCache() {
+        NearCacheManager mockNearCacheManager = setupNearCache();
+        
+        Study existing = Study.create();
+        existing.setIdentifier(TEST_STUDY_ID);
+        existing.setPhase(DESIGN);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
+        
+        Study study = Study.create();
+        study.setIdentifier(TEST_STUDY_ID);
+        study.setName("newName");
+        service.updateStudy(TEST_APP_ID, study);
+        
+        verify(mockNearCacheManager).invalidate(CacheKey.study(TEST_APP_ID, TEST_STUDY_ID));
+        verify(mockNearCacheManager, never()).invalidate(CacheKey.studyIdList(TEST_APP_ID));
+    }
+    
+    private NearCacheManager setupNearCache() {
+        NearCacheManager mockNearCacheManager = mock(NearCacheManager.class);
+        when(mockNearCacheManager.createNearCache(any())).thenAnswer(
+                invocation -> new NearCache<>(invocation.getArgument(0), 100, 600));
+        service.setNearCacheManager(mockNearCacheManager);
+        return mockNearCacheManager;
+    }
+    
     @Test
     public void getZoneId_clientTimeZoneReturned() {
         String retValue = service.getZoneId(TEST_APP_ID, TEST_STUDY_ID, TEST_CLIENT_TIME_ZONE);
@@ -413,7 +512,7 @@ public class StudyServiceTest extends Mockito {
         existing.setPhase(DESIGN);
         existing.setCreatedOn(DateTime.now());
         existing.setScheduleGuid(SCHEDULE_GUID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
         when(mockStudyDao.updateStudy(any())).thenReturn(VERSION_HOLDER);
 
         Study study = Study.create();
@@ -425,6 +524,8 @@ public class StudyServiceTest extends Mockito {
         VersionHolder versionHolder = service.updateStudy(TEST_APP_ID, study);
         assertEquals(versionHolder, VERSION_HOLDER);
         
+        // The existing study is read from the database, not from a cache.
+        verify(mockStudyDao, never()).getStudy(any(), any());
         verify(mockStudyDao).updateStudy(studyCaptor.capture());
         
         Study returnedValue = studyCaptor.getValue();
@@ -450,7 +551,7 @@ public class StudyServiceTest extends Mockito {
         existing.setPhase(DESIGN);
         existing.setCreatedOn(DateTime.now());
         
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
         when(mockStudyDao.updateStudy(any())).thenReturn(VERSION_HOLDER);
 
         Study study = Study.create();
@@ -477,7 +578,7 @@ public class StudyServiceTest extends Mockito {
         existing.setCreatedOn(DateTime.now());
         existing.setScheduleGuid(SCHEDULE_GUID);
         
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
         when(mockStudyDao.updateStudy(any())).thenReturn(VERSION_HOLDER);
 
         Study study = Study.create();
@@ -515,7 +616,7 @@ public class StudyServiceTest extends Mockito {
     public void updateStudyEntityDeleted() {
         Study existing = Study.create();
         existing.setDeleted(true);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
 
         Study study = Study.create();
         study.setIdentifier(TEST_STUDY_ID);
@@ -533,7 +634,7 @@ public class StudyServiceTest extends Mockito {
         existing.setName("oldName");
         existing.setPhase(COMPLETED);
         existing.setCreatedOn(DateTime.now());
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
 
         // It doesn’t even matter what you’re submitting, it’ll fail due to the phase
         Study study = Study.create();
@@ -549,7 +650,7 @@ public class StudyServiceTest extends Mockito {
         existing.setName("oldName");
         existing.setPhase(DESIGN);
         existing.setCreatedOn(DateTime.now());
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
 
         StudyCustomEvent event1 = new StudyCustomEvent("event1", IMMUTABLE);
         StudyCustomEvent event2 = new StudyCustomEvent("event2", IMMUTABLE);
@@ -580,7 +681,7 @@ public class StudyServiceTest extends Mockito {
         existing.setScheduleGuid(SCHEDULE_GUID);
         existing.setCustomEvents(events);
         existing.setStudyStartEventId("event1");
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
 
         // It doesn’t even matter what you’re submitting, it’ll fail
         Study study = Study.create();
@@ -606,7 +707,7 @@ public class StudyServiceTest extends Mockito {
         existing.setPhase(DESIGN);
         existing.setCreatedOn(DateTime.now());
         existing.setScheduleGuid(null);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(existing);
 
         Study study = Study.create();
         study.setAppId("wrongAppId");
@@ -630,7 +731,7 @@ public class StudyServiceTest extends Mockito {
     public void deleteStudy() {
         Study study = Study.create();
         study.setPhase(DESIGN);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.deleteStudy(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -653,7 +754,7 @@ public class StudyServiceTest extends Mockito {
     public void deleteStudy_studyWrongPhase() {
         Study study = Study.create();
         study.setPhase(IN_FLIGHT);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.deleteStudy(TEST_APP_ID, TEST_STUDY_ID);
     }
@@ -665,7 +766,7 @@ public class StudyServiceTest extends Mockito {
         
         Study study = Study.create();
         study.setPhase(RECRUITMENT);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.deleteStudy(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -686,7 +787,7 @@ public class StudyServiceTest extends Mockito {
     public void deleteStudyPermanently() {
         Study study = Study.create();
         study.setPhase(DESIGN);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.deleteStudyPermanently(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -704,7 +805,7 @@ public class StudyServiceTest extends Mockito {
         Study study = Study.create();
         study.setPhase(DESIGN);
         study.setScheduleGuid(SCHEDULE_GUID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.deleteStudyPermanently(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -717,7 +818,7 @@ public class StudyServiceTest extends Mockito {
     public void deleteStudyPermanently_studyWrongPhase() {
         Study study = Study.create();
         study.setPhase(RECRUITMENT);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.deleteStudyPermanently(TEST_APP_ID, TEST_STUDY_ID);
     }
@@ -729,7 +830,7 @@ public class StudyServiceTest extends Mockito {
         
         Study study = Study.create();
         study.setPhase(RECRUITMENT);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.deleteStudyPermanently(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -748,6 +849,21 @@ public class StudyServiceTest extends Mockito {
         verify(mockStudyDao).deleteAllStudies(TEST_APP_ID);
     }
     
+    @Test
+    public void deleteAllStudiesInvalidatesNearCache() {
+        NearCacheManager mockNearCacheManager = setupNearCache();
+        Study study = Study.create();
+        study.setIdentifier(TEST_STUDY_ID);
+        when(mockStudyDao.getStudies(TEST_APP_ID, null, null, null, true))
+                .thenReturn(new PagedResourceList<>(ImmutableList.of(study), 1));
+        
+        service.deleteAllStudies(TEST_APP_ID);
+        
+        verify(mockStudyDao).deleteAllStudies(TEST_APP_ID);
+        verify(mockNearCacheManager).invalidate(CacheKey.study(TEST_APP_ID, TEST_STUDY_ID));
+        verify(mockNearCacheManager).invalidate(CacheKey.studyIdList(TEST_APP_ID));
+    }
+    
     @Test
     public void transitionToDesign() {
         RequestContext.set(new RequestContext.Builder()
@@ -756,7 +872,7 @@ public class StudyServiceTest extends Mockito {
         Study study = Study.create();
         study.setPhase(LEGACY);
         study.setIdentifier(TEST_STUDY_ID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.transitionToDesign(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -768,6 +884,22 @@ public class StudyServiceTest extends Mockito {
         verifyZeroInteractions(alertService);
     }
     
+    @Test
+    public void transitionInvalidatesNearCache() {
+        NearCacheManager mockNearCacheManager = setupNearCache();
+        RequestContext.set(new RequestContext.Builder()
+                .withOrgSponsoredStudies(ImmutableSet.of(TEST_STUDY_ID))
+                .withCallerRoles(ImmutableSet.of(STUDY_COORDINATOR)).build());
+        Study study = Study.create();
+        study.setPhase(RECRUITMENT);
+        study.setIdentifier(TEST_STUDY_ID);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        
+        service.transitionToInFlight(TEST_APP_ID, TEST_STUDY_ID);
+        
+        verify(mockNearCacheManager).invalidate(CacheKey.study(TEST_APP_ID, TEST_STUDY_ID));
+    }
+    
     @Test
     public void transitionToRecruitment() {
         RequestContext.set(new RequestContext.Builder()
@@ -777,7 +909,7 @@ public class StudyServiceTest extends Mockito {
         study.setPhase(DESIGN);
         study.setIdentifier(TEST_STUDY_ID);
         study.setScheduleGuid(SCHEDULE_GUID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
 
         Assessment assessment = new Assessment();
         assessment.setGuid(ASSESSMENT_1_GUID);
@@ -810,7 +942,7 @@ public class StudyServiceTest extends Mockito {
         study.setPhase(DESIGN);
         study.setIdentifier(TEST_STUDY_ID);
         study.setScheduleGuid(SCHEDULE_GUID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
 
         schedule.setPublished(true);
 
@@ -844,7 +976,7 @@ public class StudyServiceTest extends Mockito {
         Study study = Study.create();
         study.setPhase(DESIGN);
         study.setIdentifier(TEST_STUDY_ID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.transitionToRecruitment(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -869,7 +1001,7 @@ public class StudyServiceTest extends Mockito {
         Study study = Study.create();
         study.setPhase(RECRUITMENT);
         study.setIdentifier(TEST_STUDY_ID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.transitionToInFlight(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -889,7 +1021,7 @@ public class StudyServiceTest extends Mockito {
         Study study = Study.create();
         study.setPhase(IN_FLIGHT);
         study.setIdentifier(TEST_STUDY_ID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.transitionToAnalysis(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -909,7 +1041,7 @@ public class StudyServiceTest extends Mockito {
         Study study = Study.create();
         study.setPhase(ANALYSIS);
         study.setIdentifier(TEST_STUDY_ID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.transitionToCompleted(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -930,7 +1062,7 @@ public class StudyServiceTest extends Mockito {
         study.setPhase(DESIGN);
         study.setScheduleGuid(SCHEDULE_GUID);
         study.setIdentifier(TEST_STUDY_ID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
 
         service.transitionToWithdrawn(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -950,7 +1082,7 @@ public class StudyServiceTest extends Mockito {
         study.setPhase(DESIGN);
         study.setIdentifier(TEST_STUDY_ID);
         study.setScheduleGuid(SCHEDULE_GUID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
 
         schedule.setPublished(true);
 
@@ -971,7 +1103,7 @@ public class StudyServiceTest extends Mockito {
         Study study = Study.create();
         study.setPhase(DESIGN);
         study.setIdentifier(TEST_STUDY_ID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.transitionToWithdrawn(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -993,7 +1125,7 @@ public class StudyServiceTest extends Mockito {
                 .withOrgSponsoredStudies(ImmutableSet.of(TEST_STUDY_ID))
                 .withCallerRoles(ImmutableSet.of(STUDY_COORDINATOR)).build());
         
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(null);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(null);
         
         service.transitionToAnalysis(TEST_APP_ID, TEST_STUDY_ID);
     }
@@ -1006,7 +1138,7 @@ public class StudyServiceTest extends Mockito {
         Study study = Study.create();
         study.setPhase(DESIGN);
         study.setIdentifier(TEST_STUDY_ID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.transitionToWithdrawn(TEST_APP_ID, TEST_STUDY_ID);
     }
@@ -1020,7 +1152,7 @@ public class StudyServiceTest extends Mockito {
         Study study = Study.create();
         study.setPhase(DESIGN);
         study.setIdentifier(TEST_STUDY_ID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.transitionToCompleted(TEST_APP_ID, TEST_STUDY_ID);
     }
@@ -1033,7 +1165,7 @@ public class StudyServiceTest extends Mockito {
         Study study = Study.create();
         study.setPhase(RECRUITMENT);
         study.setIdentifier(TEST_STUDY_ID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         service.transitionToInFlight(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -1111,7 +1243,7 @@ public class StudyServiceTest extends Mockito {
         Study study = Study.create();
         study.setPhase(RECRUITMENT);
         study.setIdentifier(TEST_STUDY_ID);
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
     
         service.revertToDesign(TEST_APP_ID, TEST_STUDY_ID);
     
@@ -1130,7 +1262,7 @@ public class StudyServiceTest extends Mockito {
         // This study mock is unnecessary if the exceptions are thrown as expected,
         // but useful for reaching the message in the fail condition if they are not thrown.
         Study study = Study.create();
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
         
         for (Roles role : Roles.values()) {
             if (role.equals(SUPERADMIN)) {
@@ -1154,7 +1286,7 @@ public class StudyServiceTest extends Mockito {
     public void revertToDesign_studyDoesNotExist() {
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(SUPERADMIN)).build());
-        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(null);
+        when(mockStudyDao.getStudyForUpdate(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(null);
     
         service.revertToDesign(TEST_APP_ID, TEST_STUDY_ID);
     }
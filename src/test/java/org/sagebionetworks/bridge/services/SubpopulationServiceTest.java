@@ -27,6 +27,8 @@ import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCache;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.StudyConsentDao;
 import org.sagebionetworks.bridge.dao.SubpopulationDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoApp;
@@ -404,6 +406,41 @@ public class SubpopulationServiceTest extends Mockito {
         assertTrue(results.isEmpty());
     }    
     
+    @Test
+    public void getSubpopulationsForUserFromNearCache() {
+        setupNearCache();
+        Subpopulation subpop1 = createSubpop(SUBPOP_1, 0, 6, "group1");
+        Subpopulation subpop2 = createSubpop(SUBPOP_2, null, null, null);
+        when(subpopDao.getSubpopulations(TEST_APP_ID, false)).thenReturn(ImmutableList.of(subpop1, subpop2));
+        
+        List<Subpopulation> results = service.getSubpopulationsForUser(criteriaContext(4, "group1"));
+        assertEquals(results, ImmutableList.of(subpop1, subpop2));
+        
+        results = service.getSubpopulationsForUser(criteriaContext(12, "group1"));
+        assertEquals(results, ImmutableList.of(subpop2));
+        
+        // The index was built once, and is used for every context after that.
+        verify(subpopDao, times(1)).getSubpopulations(TEST_APP_ID, false);
+    }
+    
+    @Test
+    public void deleteSubpopulationInvalidatesNearCache() {
+        NearCacheManager mockNearCacheManager = setupNearCache();
+        
+        service.deleteSubpopulation(TEST_APP_ID, SUBPOP_GUID);
+        
+        verify(cacheProvider).removeObject(CacheKey.subpopList(TEST_APP_ID));
+        verify(mockNearCacheManager).invalidate(CacheKey.subpopList(TEST_APP_ID));
+    }
+    
+    private NearCacheManager setupNearCache() {
+        NearCacheManager mockNearCacheManager = mock(NearCacheManager.class);
+        when(mockNearCacheManager.createNearCache(any())).thenAnswer(
+                invocation -> new NearCache<>(invocation.getArgument(0), 100, 600));
+        service.setNearCacheManager(mockNearCacheManager);
+        return mockNearCacheManager;
+    }
+    
     @Test
     public void deleteAllSubpopulationsDeletesConsents() {
         Subpopulation subpop1 = createSubpop(SUBPOP_1, null, null, null);
@@ -5,7 +5,9 @@ import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
@@ -35,6 +37,9 @@ import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCache;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.SurveyDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoSurvey;
@@ -726,6 +731,50 @@ public class SurveyServiceTest {
         verify(mockSurveyDao).getSurvey(TEST_APP_ID, SURVEY_KEYS, false);
     }
 
+    @Test
+    public void getCachedSurveyCachesPublishedVersion() {
+        NearCache<Survey> nearCache = setupPublishedSurveyCache();
+        Survey survey = Survey.create();
+        survey.setAppId(TEST_APP_ID);
+        survey.setPublished(true);
+        when(mockSurveyDao.getSurvey(TEST_APP_ID, SURVEY_KEYS, false)).thenReturn(survey);
+
+        assertSame(service.getCachedSurvey(TEST_APP_ID, SURVEY_KEYS), survey);
+        assertSame(service.getCachedSurvey(TEST_APP_ID, SURVEY_KEYS), survey);
+
+        verify(mockSurveyDao, times(1)).getSurvey(TEST_APP_ID, SURVEY_KEYS, false);
+        assertSame(nearCache.get(CacheKey.publishedSurvey(TEST_APP_ID, SURVEY_GUID, SURVEY_KEYS.getCreatedOn())),
+                survey);
+    }
+
+    @Test
+    public void getCachedSurveyDoesNotCacheUnpublishedVersion() {
+        NearCache<Survey> nearCache = setupPublishedSurveyCache();
+        Survey survey = Survey.create();
+        survey.setAppId(TEST_APP_ID);
+        when(mockSurveyDao.getSurvey(TEST_APP_ID, SURVEY_KEYS, false)).thenReturn(survey);
+
+        assertSame(service.getCachedSurvey(TEST_APP_ID, SURVEY_KEYS), survey);
+        assertSame(service.getCachedSurvey(TEST_APP_ID, SURVEY_KEYS), survey);
+
+        verify(mockSurveyDao, times(2)).getSurvey(TEST_APP_ID, SURVEY_KEYS, false);
+        assertEquals(nearCache.size(), 0L);
+    }
+
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void getCachedSurveyThrowsException() {
+        setupPublishedSurveyCache();
+        service.getCachedSurvey(TEST_APP_ID, SURVEY_KEYS);
+    }
+
+    private NearCache<Survey> setupPublishedSurveyCache() {
+        NearCache<Survey> nearCache = new NearCache<>("PublishedSurvey", 100, 600);
+        NearCacheManager mockNearCacheManager = mock(NearCacheManager.class);
+        when(mockNearCacheManager.<Survey>createRevisionNearCache("PublishedSurvey")).thenReturn(nearCache);
+        service.setNearCacheManager(mockNearCacheManager);
+        return nearCache;
+    }
+
     @Test
     public void updateSurveyInOtherApp() {
         Survey survey = Survey.create();
@@ -27,6 +27,8 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.TemplateDao;
 import org.sagebionetworks.bridge.dao.TemplateRevisionDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -51,6 +53,9 @@ public class TemplateRevisionServiceTest extends Mockito {
     @Mock
     TemplateRevisionDao mockTemplateRevisionDao;
     
+    @Mock
+    NearCacheManager mockNearCacheManager;
+    
     @InjectMocks
     @Spy
     TemplateRevisionService service;
@@ -186,8 +191,11 @@ public class TemplateRevisionServiceTest extends Mockito {
         
         service.publishTemplateRevision(TEST_APP_ID, TEMPLATE_GUID, CREATED_ON);
         
+        verify(mockTemplateDao).getTemplateForUpdate(TEST_APP_ID, TEMPLATE_GUID);
         verify(mockTemplateDao).updateTemplate(templateCaptor.capture());
         assertEquals(templateCaptor.getValue().getPublishedCreatedOn(), CREATED_ON);
+        
+        verify(mockNearCacheManager).invalidate(CacheKey.templateList(TEST_APP_ID, SMS_PHONE_SIGN_IN));
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class, expectedExceptionsMessageRegExp = "Template not found.")
@@ -207,6 +215,7 @@ public class TemplateRevisionServiceTest extends Mockito {
         template.setGuid(TEMPLATE_GUID);
         template.setTemplateType(SMS_PHONE_SIGN_IN);
         when(mockTemplateDao.getTemplate(TEST_APP_ID, TEMPLATE_GUID)).thenReturn(Optional.of(template));
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, TEMPLATE_GUID)).thenReturn(Optional.of(template));
     }
 
     private TemplateRevision mockGetTemplateRevision() {
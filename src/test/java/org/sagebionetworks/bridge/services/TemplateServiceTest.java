@@ -29,6 +29,7 @@ import static org.testng.Assert.assertTrue;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import com.google.common.collect.ImmutableList;
@@ -51,6 +52,9 @@ import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCache;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.CriteriaDao;
 import org.sagebionetworks.bridge.dao.TemplateDao;
 import org.sagebionetworks.bridge.dao.TemplateRevisionDao;
@@ -106,6 +110,8 @@ public class TemplateServiceTest extends Mockito {
     
     App app;
     
+    Map<String, Criteria> criteriaMap;
+    
     @BeforeMethod
     public void beforeMethod() throws Exception {
         MockitoAnnotations.initMocks(this);
@@ -138,6 +144,9 @@ public class TemplateServiceTest extends Mockito {
         app.setDefaultTemplates(new HashMap<>());
         when(mockAppService.getApp(TEST_APP_ID)).thenReturn(app);
         when(mockStudyService.getStudyIds(TEST_APP_ID)).thenReturn(USER_STUDY_IDS);
+        
+        criteriaMap = new HashMap<>();
+        when(mockCriteriaDao.batchGetCriteria(any())).thenReturn(criteriaMap);
     }
     
     @AfterMethod
@@ -158,6 +167,7 @@ public class TemplateServiceTest extends Mockito {
         criteria.setAllOfStudyIds(ImmutableSet.of());
         criteria.setNoneOfStudyIds(ImmutableSet.of());
         when(mockCriteriaDao.getCriteria("template:"+guid)).thenReturn(criteria);
+        criteriaMap.put("template:"+guid, criteria);
         return criteria;
     }
     
@@ -197,6 +207,22 @@ public class TemplateServiceTest extends Mockito {
         
         Template template = service.getTemplateForUser(app, makeContext("fr"), EMAIL_RESET_PASSWORD).get();
         assertEquals(template, t2);
+        
+        // One DynamoDB call for all the criteria, rather than one per template.
+        verify(mockCriteriaDao, times(1)).batchGetCriteria(ImmutableSet.of("template:"+GUID1, "template:"+GUID2));
+        verify(mockCriteriaDao, never()).getCriteria(any());
+    }
+    
+    // A template without a persisted criteria object gets an empty one, and matches everyone
+    @Test
+    public void getTemplateForUserMissingCriteria() {
+        Template t1 = Template.create();
+        t1.setGuid(GUID1);
+        mockGetTemplates(ImmutableList.of(t1));
+        
+        Template template = service.getTemplateForUser(app, makeContext("fr"), EMAIL_RESET_PASSWORD).get();
+        assertEquals(template, t1);
+        assertNotNull(template.getCriteria());
     }
     
     // More than one template matches, so the app default is used instead
@@ -210,6 +236,9 @@ public class TemplateServiceTest extends Mockito {
         
         Template template = service.getTemplateForUser(app, makeContext("fr"), EMAIL_RESET_PASSWORD).get();
         assertEquals(template, t2);
+        
+        // The default was one of the templates that were already loaded.
+        verify(mockTemplateDao, never()).getTemplate(any(), any());
     }
     
     // More than one template matches, but the default is broken so the first matcher is returned
@@ -457,7 +486,7 @@ public class TemplateServiceTest extends Mockito {
         existing.setTemplateType(EMAIL_RESET_PASSWORD);
         existing.setCreatedOn(TIMESTAMP);
         existing.setAppId(TEST_APP_ID);
-        when(mockTemplateDao.getTemplate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
         
         Criteria criteria = TestUtils.createCriteria(1, 4, null, null);
         
@@ -501,7 +530,7 @@ public class TemplateServiceTest extends Mockito {
         existing.setGuid(GUID1);
         existing.setCreatedOn(TIMESTAMP);
         existing.setAppId(TEST_APP_ID);
-        when(mockTemplateDao.getTemplate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
         
         Template template = Template.create();
         template.setCriteria(makeCriteria(GUID1, null));
@@ -521,7 +550,7 @@ public class TemplateServiceTest extends Mockito {
         Template existing = Template.create();
         existing.setAppId(TEST_APP_ID);
         existing.setDeleted(true);
-        when(mockTemplateDao.getTemplate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
         
         Template template = Template.create();
         template.setAppId(TEST_APP_ID);
@@ -535,7 +564,7 @@ public class TemplateServiceTest extends Mockito {
     public void updateTemplateInvalid() {
         Template template = Template.create();
         template.setGuid(GUID1);
-        when(mockTemplateDao.getTemplate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(template));
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(template));
         
         service.updateTemplate(TEST_APP_ID, template);
     }
@@ -546,7 +575,7 @@ public class TemplateServiceTest extends Mockito {
         existing.setAppId(TEST_APP_ID);
         existing.setGuid(GUID1);
         existing.setTemplateType(EMAIL_ACCOUNT_EXISTS);
-        when(mockTemplateDao.getTemplate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
 
         service.deleteTemplate(TEST_APP_ID, GUID1);
         
@@ -563,14 +592,14 @@ public class TemplateServiceTest extends Mockito {
         existing.setAppId(TEST_APP_ID);
         existing.setGuid(GUID1);
         existing.setDeleted(true);
-        when(mockTemplateDao.getTemplate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
 
         service.deleteTemplate(TEST_APP_ID, GUID1);
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
     public void deleteTemplateMissing() { 
-        when(mockTemplateDao.getTemplate(TEST_APP_ID, GUID1)).thenReturn(Optional.empty());
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.empty());
 
         service.deleteTemplate(TEST_APP_ID, GUID1);
     }
@@ -581,7 +610,7 @@ public class TemplateServiceTest extends Mockito {
         existing.setAppId(TEST_APP_ID);
         existing.setGuid(GUID1);
         existing.setTemplateType(EMAIL_ACCOUNT_EXISTS);
-        when(mockTemplateDao.getTemplate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
 
         service.deleteTemplatePermanently(TEST_APP_ID, GUID1);
 
@@ -591,7 +620,7 @@ public class TemplateServiceTest extends Mockito {
     
     @Test(expectedExceptions = EntityNotFoundException.class)
     public void deleteTemplatePermanentlyMissing() {
-        when(mockTemplateDao.getTemplate(TEST_APP_ID, GUID1)).thenReturn(Optional.empty());
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.empty());
 
         service.deleteTemplatePermanently(TEST_APP_ID, GUID1);
     }
@@ -605,7 +634,7 @@ public class TemplateServiceTest extends Mockito {
         existing.setCreatedOn(TIMESTAMP);
         existing.setAppId(TEST_APP_ID);
         existing.setDeleted(false);
-        when(mockTemplateDao.getTemplate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
         
         Template template = Template.create();
         template.setGuid(GUID1);
@@ -623,7 +652,7 @@ public class TemplateServiceTest extends Mockito {
         existing.setAppId(TEST_APP_ID);
         existing.setGuid(GUID1);
         existing.setTemplateType(EMAIL_ACCOUNT_EXISTS);
-        when(mockTemplateDao.getTemplate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
 
         service.deleteTemplate(TEST_APP_ID, GUID1);
     }
@@ -676,10 +705,102 @@ public class TemplateServiceTest extends Mockito {
         service.getRevisionForUser(app, EMAIL_RESET_PASSWORD);
     }
     
+    @Test
+    public void getRevisionForUserFromNearCache() throws Exception {
+        setupNearCache();
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerLanguages(LANGUAGES).withUserAgent(UA).build());
+        
+        DateTime createdOn = DateTime.now();
+        Template t1 = makeTemplate(GUID1, "de");
+        t1.setPublishedCreatedOn(createdOn);
+        Template t2 = makeTemplate(GUID2, "en");
+        t2.setPublishedCreatedOn(createdOn.plusHours(1));
+        mockGetTemplates(ImmutableList.of(t1, t2));
+        
+        TemplateRevision r2 = TemplateRevision.create();
+        when(mockTemplateRevisionDao.getTemplateRevision(GUID2, createdOn.plusHours(1))).thenReturn(Optional.of(r2));
+        
+        assertSame(service.getRevisionForUser(app, EMAIL_RESET_PASSWORD), r2);
+        assertSame(service.getRevisionForUser(app, EMAIL_RESET_PASSWORD), r2);
+        
+        // The templates, their criteria, and the revision were loaded once.
+        verify(mockTemplateDao, times(1)).getTemplates(TEST_APP_ID, EMAIL_RESET_PASSWORD, null, null, false);
+        verify(mockCriteriaDao, times(1)).batchGetCriteria(any());
+        verify(mockTemplateRevisionDao, times(1)).getTemplateRevision(GUID2, createdOn.plusHours(1));
+    }
+    
+    @Test
+    public void getTemplateForUserFromNearCacheFallsBackToFirstTemplate() {
+        setupNearCache();
+        Template t1 = makeTemplate(GUID1, "en");
+        Template t2 = makeTemplate(GUID2, "en");
+        mockGetTemplates(ImmutableList.of(t1, t2));
+        
+        assertEquals(service.getTemplateForUser(app, makeContext("fr"), EMAIL_RESET_PASSWORD).get(), t1);
+        assertEquals(service.getTemplateForUser(app, makeContext("en"), EMAIL_RESET_PASSWORD).get(), t1);
+        
+        verify(mockTemplateDao, times(1)).getTemplates(TEST_APP_ID, EMAIL_RESET_PASSWORD, null, null, false);
+    }
+    
+    @Test
+    public void updateTemplateInvalidatesNearCache() {
+        NearCacheManager mockNearCacheManager = setupNearCache();
+        Template existing = Template.create();
+        existing.setGuid(GUID1);
+        existing.setTemplateType(EMAIL_ACCOUNT_EXISTS);
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
+        
+        Template template = Template.create();
+        template.setGuid(GUID1);
+        template.setName("Test");
+        
+        service.updateTemplate(TEST_APP_ID, template);
+        
+        verify(mockNearCacheManager).invalidate(CacheKey.templateList(TEST_APP_ID, EMAIL_ACCOUNT_EXISTS));
+    }
+    
+    @Test
+    public void deleteTemplatePermanentlyInvalidatesNearCache() {
+        NearCacheManager mockNearCacheManager = setupNearCache();
+        Template existing = Template.create();
+        existing.setAppId(TEST_APP_ID);
+        existing.setGuid(GUID1);
+        existing.setTemplateType(EMAIL_ACCOUNT_EXISTS);
+        existing.setPublishedCreatedOn(TIMESTAMP);
+        when(mockTemplateDao.getTemplateForUpdate(TEST_APP_ID, GUID1)).thenReturn(Optional.of(existing));
+
+        service.deleteTemplatePermanently(TEST_APP_ID, GUID1);
+        
+        verify(mockNearCacheManager).invalidate(CacheKey.templateList(TEST_APP_ID, EMAIL_ACCOUNT_EXISTS));
+        verify(mockNearCacheManager).invalidate(CacheKey.templateRevision(GUID1, TIMESTAMP.getMillis()));
+    }
+    
     @Test
     public void deleteTemplatesForApp() {
         service.deleteAllTemplates(TEST_APP_ID);
         
         verify(mockTemplateDao).deleteTemplatesForApp(TEST_APP_ID);
     }
+    
+    @Test
+    public void deleteTemplatesForAppInvalidatesNearCache() {
+        NearCacheManager mockNearCacheManager = setupNearCache();
+        
+        service.deleteAllTemplates(TEST_APP_ID);
+        
+        for (TemplateType type : TemplateType.values()) {
+            verify(mockNearCacheManager).invalidate(CacheKey.templateList(TEST_APP_ID, type));
+        }
+    }
+    
+    private NearCacheManager setupNearCache() {
+        NearCacheManager mockNearCacheManager = mock(NearCacheManager.class);
+        when(mockNearCacheManager.createNearCache(any())).thenAnswer(
+                invocation -> new NearCache<>(invocation.getArgument(0), 100, 600));
+        when(mockNearCacheManager.createRevisionNearCache(any())).thenAnswer(
+                invocation -> new NearCache<>(invocation.getArgument(0), 100, 600));
+        service.setNearCacheManager(mockNearCacheManager);
+        return mockNearCacheManager;
+    }
 }
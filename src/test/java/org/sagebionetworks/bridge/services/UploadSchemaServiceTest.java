@@ -7,6 +7,7 @@ import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
@@ -30,6 +31,9 @@ import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.NearCache;
+import org.sagebionetworks.bridge.cache.NearCacheManager;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
@@ -54,6 +58,8 @@ public class UploadSchemaServiceTest {
     private UploadSchemaDao dao;
     private UploadSchemaService svc;
     private SharedModuleMetadataService mockSharedModuleMetadataService;
+    private NearCacheManager mockNearCacheManager;
+    private NearCache<UploadSchema> schemaRevisionCache;
 
     @Captor
     ArgumentCaptor<String> queryCaptor;
@@ -71,6 +77,12 @@ public class UploadSchemaServiceTest {
         svc = new UploadSchemaService();
         svc.setUploadSchemaDao(dao);
         svc.setSharedModuleMetadataService(mockSharedModuleMetadataService);
+
+        schemaRevisionCache = new NearCache<>("UploadSchemaRevision", 100, 600);
+        mockNearCacheManager = mock(NearCacheManager.class);
+        when(mockNearCacheManager.<UploadSchema>createRevisionNearCache("UploadSchemaRevision"))
+                .thenReturn(schemaRevisionCache);
+        svc.setNearCacheManager(mockNearCacheManager);
     }
 
     @Test(expectedExceptions = BadRequestException.class)
@@ -141,6 +153,9 @@ public class UploadSchemaServiceTest {
 
         // Validate DAO input is also svcOutput.
         assertSame(svcOutputSchema, daoOutputSchema);
+
+        // The cached revision is invalidated.
+        verify(mockNearCacheManager).invalidate(CacheKey.uploadSchemaRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV));
     }
 
     @Test(expectedExceptions = BadRequestException.class)
@@ -439,6 +454,8 @@ public class UploadSchemaServiceTest {
         // execute and verify delete call
         svc.deleteUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
         verify(dao).deleteUploadSchemas(ImmutableList.of(schemaToDelete));
+        verify(mockNearCacheManager).invalidate(CacheKey.uploadSchemaRevision(TEST_APP_ID, SCHEMA_ID,
+                schemaToDelete.getRevision()));
 
         // verify query args
         verify(mockSharedModuleMetadataService).queryAllMetadata(eq(false), eq(false), queryCaptor.capture(),
@@ -485,7 +502,7 @@ public class UploadSchemaServiceTest {
     @Test
     public void deleteAllUploadSchemasAllRevisionsPermanently() {
         // Mock dependencies.
-        List<UploadSchema> schemeList = ImmutableList.of(UploadSchema.create());
+        List<UploadSchema> schemeList = ImmutableList.of(makeSimpleSchema());
         when(dao.getAllUploadSchemasAllRevisions(TEST_APP_ID, true)).thenReturn(schemeList);
 
         // Execute.
@@ -494,6 +511,45 @@ public class UploadSchemaServiceTest {
         // Verify dependencies.
         verify(dao).getAllUploadSchemasAllRevisions(TEST_APP_ID, true);
         verify(dao).deleteUploadSchemasPermanently(same(schemeList));
+        verify(mockNearCacheManager).invalidate(CacheKey.uploadSchemaRevision(TEST_APP_ID, SCHEMA_ID,
+                schemeList.get(0).getRevision()));
+    }
+
+    @Test
+    public void getCachedSchemaRevision() {
+        UploadSchema schema = makeSimpleSchema();
+        when(dao.getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV)).thenReturn(schema);
+
+        assertSame(svc.getCachedUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV), schema);
+        assertSame(svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV), schema);
+
+        // Second call is served from the cache.
+        verify(dao).getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
+        assertEquals(schemaRevisionCache.getStats().get("hitCount").longValue(), 1L);
+    }
+
+    @Test
+    public void getCachedSchemaRevisionMissingIsNotCached() {
+        assertNull(svc.getCachedUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV));
+        try {
+            svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
+            fail("expected exception");
+        } catch (EntityNotFoundException ex) {
+            // expected exception
+        }
+        verify(dao, times(2)).getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
+        assertEquals(schemaRevisionCache.size(), 0L);
+    }
+
+    @Test
+    public void getCachedSchemaRevisionWithCachingDisabled() {
+        svc.setNearCacheManager(mock(NearCacheManager.class));
+        UploadSchema schema = makeSimpleSchema();
+        when(dao.getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV)).thenReturn(schema);
+
+        assertSame(svc.getCachedUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV), schema);
+        assertSame(svc.getCachedUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV), schema);
+        verify(dao, times(2)).getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
     }
 
     @Test
@@ -1,36 +1,56 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import com.google.common.collect.ImmutableList;
 
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.upload.UploadStatus;
 import org.sagebionetworks.bridge.models.upload.UploadValidationStatus;
+import org.sagebionetworks.bridge.upload.UploadCompletionRegistry;
 
 public class UploadServicePollStatusTest {
     private static final String UPLOAD_ID = "test-upload";
 
+    private UploadCompletionRegistry completionRegistry;
     private UploadService svc;
 
     @BeforeMethod
     public void setup() {
+        completionRegistry = new UploadCompletionRegistry();
+        completionRegistry.start();
+
         // Spy service, so we can mock a call to getValidationStatus() instead of tightly coupling to that logic.
         svc = spy(new UploadService());
+        svc.setUploadCompletionRegistry(completionRegistry);
 
         // Set sleep time to 10ms and max iterations to 2, so we don't have to wait that long.
         svc.setPollValidationStatusMaxIterations(2);
         svc.setPollValidationStatusSleepMillis(10);
     }
 
+    @AfterMethod
+    public void after() {
+        completionRegistry.stop();
+    }
+
     @Test
     public void firstTry() {
         doReturn(makeValidationStatus(UploadStatus.SUCCEEDED)).when(svc).getUploadValidationStatus(UPLOAD_ID);
@@ -64,6 +84,68 @@ public class UploadServicePollStatusTest {
         verify(svc, times(2)).getUploadValidationStatus(UPLOAD_ID);
     }
 
+    @Test
+    public void signalWakesUpWait() throws Exception {
+        // Wait long enough that the test would fail if it weren't woken up.
+        svc.setPollValidationStatusSleepMillis(TimeUnit.MINUTES.toMillis(10));
+
+        UploadValidationStatus inProgressStatus = makeValidationStatus(UploadStatus.VALIDATION_IN_PROGRESS);
+        UploadValidationStatus succeededStatus = makeValidationStatus(UploadStatus.SUCCEEDED);
+        doReturn(inProgressStatus).doReturn(succeededStatus).when(svc).getUploadValidationStatus(UPLOAD_ID);
+
+        CompletableFuture<UploadValidationStatus> future = svc.waitForUploadValidationStatus(UPLOAD_ID);
+        assertFalse(future.isDone());
+
+        completionRegistry.complete(UPLOAD_ID, UploadStatus.SUCCEEDED);
+        assertSame(future.get(10, TimeUnit.SECONDS), succeededStatus);
+        verify(svc, times(2)).getUploadValidationStatus(UPLOAD_ID);
+    }
+
+    @Test
+    public void statusIsReadAgainOnCallbackThread() throws Exception {
+        UploadValidationStatus succeededStatus = makeValidationStatus(UploadStatus.SUCCEEDED);
+        CompletableFuture<String> secondReadThread = new CompletableFuture<>();
+        doReturn(makeValidationStatus(UploadStatus.VALIDATION_IN_PROGRESS)).doAnswer(invocation -> {
+            secondReadThread.complete(Thread.currentThread().getName());
+            return succeededStatus;
+        }).when(svc).getUploadValidationStatus(UPLOAD_ID);
+
+        assertSame(svc.waitForUploadValidationStatus(UPLOAD_ID).get(10, TimeUnit.SECONDS), succeededStatus);
+
+        // Not the registry's scheduler thread (upload-completion-N), which only runs the timeouts.
+        String threadName = secondReadThread.get(10, TimeUnit.SECONDS);
+        assertTrue(threadName.startsWith("upload-completion-callback-"), threadName);
+    }
+
+    @Test
+    public void waitTimesOut() throws Exception {
+        doReturn(makeValidationStatus(UploadStatus.VALIDATION_IN_PROGRESS)).when(svc).getUploadValidationStatus(
+                UPLOAD_ID);
+
+        CompletableFuture<UploadValidationStatus> future = svc.waitForUploadValidationStatus(UPLOAD_ID);
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("expected exception");
+        } catch (ExecutionException ex) {
+            assertEquals(ex.getCause().getClass(), BridgeServiceException.class);
+            assertEquals(ex.getCause().getMessage(), "Timeout polling validation status for upload " + UPLOAD_ID);
+        }
+        verify(svc, times(2)).getUploadValidationStatus(UPLOAD_ID);
+    }
+
+    @Test
+    public void waitFailsIfStatusCantBeRead() throws Exception {
+        RuntimeException toThrow = new RuntimeException("test");
+        doThrow(toThrow).when(svc).getUploadValidationStatus(UPLOAD_ID);
+
+        try {
+            svc.pollUploadValidationStatusUntilComplete(UPLOAD_ID);
+            fail("expected exception");
+        } catch (RuntimeException ex) {
+            assertSame(ex, toThrow);
+        }
+    }
+
     private UploadValidationStatus makeValidationStatus(UploadStatus uploadStatus) {
         return new UploadValidationStatus.Builder().withId(UPLOAD_ID).withMessageList(ImmutableList.of())
                 .withStatus(uploadStatus).build();
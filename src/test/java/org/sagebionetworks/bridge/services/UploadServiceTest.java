@@ -2,12 +2,14 @@ package org.sagebionetworks.bridge.services;
 
 import static com.amazonaws.services.s3.Headers.SERVER_SIDE_ENCRYPTION;
 import static com.amazonaws.services.s3.model.ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION;
+import static java.util.stream.Collectors.toList;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -52,10 +54,11 @@ import java.util.Optional;
 import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
 import com.amazonaws.services.s3.model.ObjectMetadata;
-import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -66,6 +69,7 @@ import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -116,6 +120,7 @@ import org.sagebionetworks.bridge.models.upload.UploadViewEx3;
 import org.sagebionetworks.bridge.models.worker.UploadRedriveWorkerRequest;
 import org.sagebionetworks.bridge.models.worker.WorkerRequest;
 import org.sagebionetworks.bridge.s3.S3Helper;
+import org.sagebionetworks.bridge.upload.UploadCompletionRegistry;
 import org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValidator;
 
 @SuppressWarnings("ConstantConditions")
@@ -144,7 +149,6 @@ public class UploadServiceTest {
     private static final String UPLOAD_ID_11 = "upload11";
     final static String RECORD_ID = "aRecordId";
     final static StudyParticipant PARTICIPANT = new StudyParticipant.Builder().withHealthCode(HEALTH_CODE).build();
-    private static final String WORKER_QUEUE_URL = "http://example.com/dummy-sqs-url";
 
     @Mock
     private AccountService mockAccountService;
@@ -198,7 +202,7 @@ public class UploadServiceTest {
     BridgeConfig mockConfig;
 
     @Mock
-    private AmazonSQS mockSqsClient;
+    private WorkerRequestPublisher mockWorkerRequestPublisher;
 
     @Mock
     private S3Helper mockS3Helper;
@@ -218,6 +222,8 @@ public class UploadServiceTest {
     @InjectMocks
     @Spy
     UploadService svc;
+
+    UploadCompletionRegistry completionRegistry;
     
     @BeforeMethod
     public void before() {
@@ -228,14 +234,17 @@ public class UploadServiceTest {
         
         when(mockConfig.getProperty(UploadService.CONFIG_KEY_UPLOAD_BUCKET)).thenReturn(UPLOAD_BUCKET_NAME);
         when(mockConfig.getProperty(UploadService.CONFIG_KEY_BACKFILL_BUCKET)).thenReturn(BACKFILL_BUCKET_NAME);
-        when(mockConfig.getProperty(BridgeConstants.CONFIG_KEY_WORKER_SQS_URL)).thenReturn(WORKER_QUEUE_URL);
         svc.setConfig(mockConfig);
 
+        completionRegistry = new UploadCompletionRegistry();
+        completionRegistry.start();
+        svc.setUploadCompletionRegistry(completionRegistry);
     }
     
     @AfterMethod
     public void after() {
         DateTimeUtils.setCurrentMillisSystem();
+        completionRegistry.stop();
     }
 
     @AfterClass
@@ -510,16 +519,39 @@ public class UploadServiceTest {
     @Test
     public void deleteUploadsByHealthCodeWorks() {
         // Mock DAO.
-        when(mockUploadDao.deleteUploadsForHealthCode(HEALTH_CODE)).thenReturn(ImmutableList.of(UPLOAD_ID_1,
+        when(mockUploadDao.getUploadIdsForHealthCode(HEALTH_CODE)).thenReturn(ImmutableList.of(UPLOAD_ID_1,
                 UPLOAD_ID_2));
 
         // Execute.
         svc.deleteUploadsForHealthCode(HEALTH_CODE);
 
-        // Verify dependencies.
-        verify(mockUploadDao).deleteUploadsForHealthCode(HEALTH_CODE);
-        verify(mockS3Client).deleteObject(UPLOAD_BUCKET_NAME, UPLOAD_ID_1);
-        verify(mockS3Client).deleteObject(UPLOAD_BUCKET_NAME, UPLOAD_ID_2);
+        // Verify dependencies. The files are deleted from S3 before the records are deleted.
+        InOrder inOrder = inOrder(mockS3Client, mockUploadDao);
+        ArgumentCaptor<DeleteObjectsRequest> deleteRequestCaptor = ArgumentCaptor.forClass(
+                DeleteObjectsRequest.class);
+        inOrder.verify(mockS3Client).deleteObjects(deleteRequestCaptor.capture());
+        inOrder.verify(mockUploadDao).deleteUploads(ImmutableList.of(UPLOAD_ID_1, UPLOAD_ID_2));
+        DeleteObjectsRequest deleteRequest = deleteRequestCaptor.getValue();
+        assertEquals(deleteRequest.getBucketName(), UPLOAD_BUCKET_NAME);
+        assertEquals(deleteRequest.getKeys().stream().map(KeyVersion::getKey).collect(toList()),
+                ImmutableList.of(UPLOAD_ID_1, UPLOAD_ID_2));
+        verify(mockS3Client, never()).deleteObject(any(), any());
+    }
+    
+    @Test
+    public void deleteUploadsByHealthCodeKeepsRecordsIfS3Fails() {
+        when(mockUploadDao.getUploadIdsForHealthCode(HEALTH_CODE)).thenReturn(ImmutableList.of(UPLOAD_ID_1));
+        when(mockS3Client.deleteObjects(any())).thenThrow(new MultiObjectDeleteException(ImmutableList.of(),
+                ImmutableList.of()));
+
+        try {
+            svc.deleteUploadsForHealthCode(HEALTH_CODE);
+            fail("Should have thrown exception");
+        } catch (BridgeServiceException e) {
+            // expected
+        }
+        // The records are left, so that a retry can find the files.
+        verify(mockUploadDao, never()).deleteUploads(any());
     }
     
     @Test
@@ -530,7 +562,8 @@ public class UploadServiceTest {
         } catch(IllegalArgumentException e) {
             // expected
         }
-        verify(mockUploadDao, never()).deleteUploadsForHealthCode(any());
+        verify(mockUploadDao, never()).getUploadIdsForHealthCode(any());
+        verify(mockUploadDao, never()).deleteUploads(any());
     }
     
     @Test
@@ -702,6 +735,7 @@ public class UploadServiceTest {
         when(mockS3Client.getObjectMetadata(UPLOAD_BUCKET_NAME, ORIGINAL_UPLOAD_ID)).thenReturn(metadata);
         
         doNothing().when(svc).updateAdherenceWithUploadInfo(TEST_APP_ID, upload);
+        when(mockUploadValidationService.validateUpload(TEST_APP_ID, upload)).thenReturn(true);
         
         svc.uploadComplete(TEST_APP_ID, S3_WORKER, upload, true);
         
@@ -859,9 +893,6 @@ public class UploadServiceTest {
         String mockCurrentTime = String.valueOf(TIMESTAMP.getMillis());
         String mockS3Key = "redrive-upload-id-" + mockCurrentTime;
 
-        // Mock SQS. Return type doesn't actually matter except for logs, but we don't want it to be null.
-        when(mockSqsClient.sendMessage(any(), any())).thenReturn(new SendMessageResult());
-
         // Execute
         svc.redriveUpload(mockRedriveList);
 
@@ -881,7 +912,7 @@ public class UploadServiceTest {
 
         // Verify call to SQS.
         ArgumentCaptor<String> requestJsonTextCaptor = ArgumentCaptor.forClass(String.class);
-        verify(mockSqsClient).sendMessage(eq(WORKER_QUEUE_URL), requestJsonTextCaptor.capture());
+        verify(mockWorkerRequestPublisher).publish(requestJsonTextCaptor.capture(), any());
 
         String requestJsonText = requestJsonTextCaptor.getValue();
         WorkerRequest workerRequest = BridgeObjectMapper.get().readValue(requestJsonText, WorkerRequest.class);
@@ -75,6 +75,9 @@ public class UploadServiceUploadCompleteTest {
         app = TestUtils.getValidApp(Exporter3ServiceTest.class);
         app.setExporter3Enabled(false);
         when(mockAppService.getApp(TestConstants.TEST_APP_ID)).thenReturn(app);
+
+        // Validation is started for most of the tests.
+        when(mockUploadValidationService.validateUpload(any(), any())).thenReturn(true);
     }
 
     @Test
@@ -251,6 +254,33 @@ public class UploadServiceUploadCompleteTest {
         verify(svc).updateAdherenceWithUploadInfo(TEST_APP_ID, upload);
     }
 
+    @Test
+    public void rejectedUploadIsNotExported() throws Exception {
+        // Enable Exporter 3.
+        app.setExporter3Enabled(true);
+
+        // Set up input.
+        Upload upload = Upload.create();
+        upload.setUploadId(TEST_UPLOAD_ID);
+        upload.setStatus(UploadStatus.REQUESTED);
+
+        // Mock S3.
+        ObjectMetadata mockObjMetadata = mock(ObjectMetadata.class);
+        when(mockObjMetadata.getSSEAlgorithm()).thenReturn(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
+        when(mockS3Client.getObjectMetadata(TEST_BUCKET, TEST_UPLOAD_ID)).thenReturn(mockObjMetadata);
+
+        // The validation queue is full, so the upload is put back in REQUESTED.
+        when(mockUploadValidationService.validateUpload(TEST_APP_ID, upload)).thenReturn(false);
+
+        // Execute.
+        svc.uploadComplete(TEST_APP_ID, APP, upload, false);
+
+        // The upload is exported (and adherence is updated) when it's completed again, not now.
+        verify(mockUploadValidationService).validateUpload(TEST_APP_ID, upload);
+        verify(mockExporter3Service, never()).completeUpload(any(), any());
+        verify(svc, never()).updateAdherenceWithUploadInfo(any(), any());
+    }
+
     @Test
     public void redrive() throws Exception {
         // Enable Exporter 3. It now runs on redrives.
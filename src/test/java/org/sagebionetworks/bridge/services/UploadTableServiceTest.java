@@ -1,7 +1,6 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
@@ -26,8 +25,6 @@ import java.util.Optional;
 import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
-import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -76,13 +73,12 @@ public class UploadTableServiceTest {
     private static final String RECORD_ID = "test-record";
     private static final String S3_KEY = "dummy-s3-key";
     private static final String S3_URL = "https://example.com/dummy-s3-bucket/dummy-s3-key";
-    private static final String WORKER_QUEUE_URL = "http://example.com/dummy-sqs-url";
 
     @Mock
     private AmazonS3 mockS3Client;
 
     @Mock
-    private AmazonSQS mockSqsClient;
+    private WorkerRequestPublisher mockWorkerRequestPublisher;
 
     @Mock
     private StudyService mockStudyService;
@@ -113,7 +109,6 @@ public class UploadTableServiceTest {
 
         BridgeConfig mockConfig = mock(BridgeConfig.class);
         when(mockConfig.getProperty(UploadTableService.CONFIG_KEY_RAW_HEALTH_DATA_BUCKET)).thenReturn(RAW_DATA_BUCKET);
-        when(mockConfig.getProperty(BridgeConstants.CONFIG_KEY_WORKER_SQS_URL)).thenReturn(WORKER_QUEUE_URL);
         service.setConfig(mockConfig);
     }
 
@@ -314,9 +309,6 @@ public class UploadTableServiceTest {
         when(mockUploadTableJobDao.listUploadTableJobsForStudy(TestConstants.TEST_APP_ID,
                 TestConstants.TEST_STUDY_ID, 0, 1)).thenReturn(jobList);
 
-        // Mock SQS. Return type doesn't actually matter except for logs, but we don't want it to be null.
-        when(mockSqsClient.sendMessage(any(), any())).thenReturn(new SendMessageResult());
-
         // Execute and verify.
         UploadTableJobGuidHolder jobGuidHolder = service.requestUploadTableForStudy(TestConstants.TEST_APP_ID,
                 TestConstants.TEST_STUDY_ID);
@@ -334,7 +326,7 @@ public class UploadTableServiceTest {
 
         // Verify call to SQS.
         ArgumentCaptor<String> requestJsonTextCaptor = ArgumentCaptor.forClass(String.class);
-        verify(mockSqsClient).sendMessage(eq(WORKER_QUEUE_URL), requestJsonTextCaptor.capture());
+        verify(mockWorkerRequestPublisher).publish(requestJsonTextCaptor.capture(), any());
 
         String requestJsonText = requestJsonTextCaptor.getValue();
         WorkerRequest workerRequest = BridgeObjectMapper.get().readValue(requestJsonText, WorkerRequest.class);
@@ -364,9 +356,6 @@ public class UploadTableServiceTest {
         when(mockUploadService.getAppUploads(TestConstants.TEST_APP_ID, job.getRequestedOn(), MOCK_NOW, 1, null))
                 .thenReturn(new ForwardCursorPagedResourceList<>(ImmutableList.of(new UploadView.Builder().build()), null));
 
-        // Mock SQS. Return type doesn't actually matter except for logs, but we don't want it to be null.
-        when(mockSqsClient.sendMessage(any(), any())).thenReturn(new SendMessageResult());
-
         // Execute and verify.
         UploadTableJobGuidHolder jobGuidHolder = service.requestUploadTableForStudy(TestConstants.TEST_APP_ID,
                 TestConstants.TEST_STUDY_ID);
@@ -374,7 +363,7 @@ public class UploadTableServiceTest {
 
         // Verify call to back-ends. We don't care about the parameters. This was tested in the previous test.
         verify(mockUploadTableJobDao).saveUploadTableJob(any());
-        verify(mockSqsClient).sendMessage(eq(WORKER_QUEUE_URL), any());
+        verify(mockWorkerRequestPublisher).publish(any(), any());
     }
 
     @Test(expectedExceptions = EntityNotFoundException.class)
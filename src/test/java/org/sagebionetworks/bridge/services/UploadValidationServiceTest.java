@@ -1,49 +1,131 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.dao.UploadDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.models.upload.UploadStatus;
+import org.sagebionetworks.bridge.upload.UploadCompletionRegistry;
+import org.sagebionetworks.bridge.upload.UploadValidationExecutor;
+import org.sagebionetworks.bridge.upload.UploadValidationMetrics;
 import org.sagebionetworks.bridge.upload.UploadValidationTask;
 import org.sagebionetworks.bridge.upload.UploadValidationTaskFactory;
 
 public class UploadValidationServiceTest {
-    @Test
-    public void test() {
-        // UploadValidationService is a simple call-through to the task factory and the async thread pool. As such, our
-        // test strategy is to verify that execution flows through to these dependencies.
+    private static final String UPLOAD_ID = "test-upload";
+
+    private App app;
+    private Upload upload;
+    private UploadValidationTask mockTask;
+    private UploadValidationExecutor mockExecutor;
+    private UploadDao mockUploadDao;
+    private UploadValidationMetrics mockMetrics;
+    private UploadCompletionRegistry mockCompletionRegistry;
+    private WorkerRequestPublisher mockWorkerRequestPublisher;
+    private UploadValidationService svc;
 
+    @BeforeMethod
+    public void before() {
         // inputs
-        App app = TestUtils.getValidApp(UploadValidationServiceTest.class);
-        Upload upload = new DynamoUpload2();
+        app = TestUtils.getValidApp(UploadValidationServiceTest.class);
+        upload = new DynamoUpload2();
+        upload.setUploadId(UPLOAD_ID);
 
         // mock task
-        UploadValidationTask mockTask = mock(UploadValidationTask.class);
+        mockTask = mock(UploadValidationTask.class);
 
         // mock task factory
         UploadValidationTaskFactory mockTaskFactory = mock(UploadValidationTaskFactory.class);
         when(mockTaskFactory.newTask(app.getIdentifier(), upload)).thenReturn(mockTask);
 
-        // mock async thread pool
-        ExecutorService mockExecutor = mock(ExecutorService.class);
+        // mock executor and dao
+        mockExecutor = mock(UploadValidationExecutor.class);
+        mockUploadDao = mock(UploadDao.class);
+        mockMetrics = mock(UploadValidationMetrics.class);
+        mockCompletionRegistry = mock(UploadCompletionRegistry.class);
+        mockWorkerRequestPublisher = mock(WorkerRequestPublisher.class);
 
         // set up service
-        UploadValidationService svc = new UploadValidationService();
-        svc.setAsyncExecutorService(mockExecutor);
+        svc = new UploadValidationService();
+        svc.setUploadValidationExecutor(mockExecutor);
         svc.setTaskFactory(mockTaskFactory);
+        svc.setUploadDao(mockUploadDao);
+        svc.setUploadValidationMetrics(mockMetrics);
+        svc.setUploadCompletionRegistry(mockCompletionRegistry);
+        svc.setWorkerRequestPublisher(mockWorkerRequestPublisher);
+    }
+
+    @Test
+    public void test() {
+        // UploadValidationService is a simple call-through to the task factory and the upload validation executor.
+        // As such, our test strategy is to verify that execution flows through to these dependencies.
+        when(mockExecutor.submit(app.getIdentifier(), mockTask)).thenReturn(true);
 
         // execute
-        svc.validateUpload(app.getIdentifier(), upload);
+        assertTrue(svc.validateUpload(app.getIdentifier(), upload));
 
         // validate
-        verify(mockExecutor).execute(mockTask);
+        verify(mockExecutor).submit(app.getIdentifier(), mockTask);
+        verify(mockUploadDao, never()).writeValidationStatus(any(), any(), any(), any());
+        verify(mockCompletionRegistry, never()).complete(any(), any());
+    }
+
+    @Test
+    public void rejectedUploadIsResetToRequested() {
+        when(mockExecutor.submit(app.getIdentifier(), mockTask)).thenReturn(false);
+
+        // execute
+        assertFalse(svc.validateUpload(app.getIdentifier(), upload));
+
+        // validate
+        verify(mockUploadDao).writeValidationStatus(upload, UploadStatus.REQUESTED,
+                ImmutableList.of(UploadValidationService.REJECTED_MESSAGE), null);
+
+        // Anyone waiting on the upload is woken up, since it won't be validated.
+        verify(mockCompletionRegistry).complete(UPLOAD_ID, UploadStatus.REQUESTED);
+    }
+
+    @Test
+    public void rejectedUploadStatusWriteFailureIsSwallowed() {
+        when(mockExecutor.submit(app.getIdentifier(), mockTask)).thenReturn(false);
+        doThrow(new RuntimeException("test")).when(mockUploadDao).writeValidationStatus(any(), any(), any(), any());
+
+        // execute, does not throw
+        assertFalse(svc.validateUpload(app.getIdentifier(), upload));
+    }
+
+    @Test
+    public void getValidationStats() {
+        Map<String, Long> queueStats = ImmutableMap.of("queueDepth", 3L);
+        Map<String, Long> handlerStats = ImmutableMap.of("count", 7L);
+        Map<String, Long> completionStats = ImmutableMap.of("waits", 2L);
+        Map<String, Long> workerRequestStats = ImmutableMap.of("deadLettered", 1L);
+        when(mockExecutor.getStats()).thenReturn(queueStats);
+        when(mockCompletionRegistry.getStats()).thenReturn(completionStats);
+        when(mockWorkerRequestPublisher.getStats()).thenReturn(workerRequestStats);
+        when(mockMetrics.getStats()).thenReturn(ImmutableMap.of("UnzipHandler app=test format=unknown",
+                handlerStats));
+
+        Map<String, Map<String, Long>> stats = svc.getValidationStats();
+        assertEquals(stats, ImmutableMap.of("queue", queueStats, "completion", completionStats,
+                "workerRequests", workerRequestStats, "UnzipHandler app=test format=unknown", handlerStats));
     }
 }
@@ -0,0 +1,206 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.services.WorkerRequestPublisher.CONFIG_KEY_ENABLED;
+import static org.sagebionetworks.bridge.services.WorkerRequestPublisher.CONFIG_KEY_LINGER_MILLIS;
+import static org.sagebionetworks.bridge.services.WorkerRequestPublisher.CONFIG_KEY_MAX_ATTEMPTS;
+import static org.sagebionetworks.bridge.services.WorkerRequestPublisher.CONFIG_KEY_QUEUE_CAPACITY;
+import static org.sagebionetworks.bridge.services.WorkerRequestPublisher.CONFIG_KEY_SHUTDOWN_TIMEOUT_MILLIS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.SqsInitializer;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+public class WorkerRequestPublisherTest extends Mockito {
+    private static final String WORKER_QUEUE_URL = "http://example.com/dummy-sqs-url";
+    private static final String DEAD_LETTER_QUEUE_ARN = "arn:aws:sqs:us-east-1:111122223333:Dead-Letter-Queue";
+    private static final String DEAD_LETTER_QUEUE_URL =
+            "https://sqs.us-east-1.amazonaws.com/111122223333/Dead-Letter-Queue";
+
+    @Mock
+    BridgeConfig mockConfig;
+
+    InMemorySqsClient sqsClient;
+
+    WorkerRequestPublisher publisher;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        MockitoAnnotations.initMocks(this);
+
+        when(mockConfig.get(CONFIG_KEY_ENABLED)).thenReturn("true");
+        // Long enough that a batch always fills before it is sent.
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_LINGER_MILLIS)).thenReturn(1000);
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_QUEUE_CAPACITY)).thenReturn(100);
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_MAX_ATTEMPTS)).thenReturn(3);
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_SHUTDOWN_TIMEOUT_MILLIS)).thenReturn(10000);
+        when(mockConfig.getProperty(BridgeConstants.CONFIG_KEY_WORKER_SQS_URL)).thenReturn(WORKER_QUEUE_URL);
+
+        sqsClient = new InMemorySqsClient();
+        publisher = new WorkerRequestPublisher();
+        publisher.setSqsClient(sqsClient);
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        publisher.stop();
+    }
+
+    @Test
+    public void sendsRequestsInBatches() {
+        publisher.setConfig(mockConfig);
+        publisher.start();
+
+        for (int i = 0; i < 25; i++) {
+            publisher.publish("request" + i, "test request " + i);
+        }
+        publisher.stop();
+
+        assertEquals(sqsClient.getBatchSizes(), ImmutableList.of(10, 10, 5));
+        List<String> bodies = sqsClient.getMessageBodies();
+        assertEquals(bodies.size(), 25);
+        for (int i = 0; i < 25; i++) {
+            assertEquals(bodies.get(i), "request" + i);
+        }
+
+        Map<String, Long> stats = publisher.getStats();
+        assertEquals(stats.get("buffered").longValue(), 25L);
+        assertEquals(stats.get("sentInBatches").longValue(), 25L);
+        assertEquals(stats.get("sentDirectly").longValue(), 0L);
+        assertEquals(stats.get("batchCalls").longValue(), 3L);
+        assertEquals(stats.get("waiting").longValue(), 0L);
+    }
+
+    @Test
+    public void retriesFailedEntries() {
+        publisher.setConfig(mockConfig);
+        publisher.start();
+        sqsClient.failNextEntries(2);
+
+        publisher.publish("request0", "test request 0");
+        publisher.publish("request1", "test request 1");
+        publisher.publish("request2", "test request 2");
+        publisher.stop();
+
+        List<String> bodies = sqsClient.getMessageBodies();
+        assertEquals(bodies.size(), 3);
+        assertTrue(bodies.containsAll(ImmutableList.of("request0", "request1", "request2")));
+        assertEquals(sqsClient.getBatchSizes(), ImmutableList.of(3, 2));
+
+        Map<String, Long> stats = publisher.getStats();
+        assertEquals(stats.get("sentInBatches").longValue(), 3L);
+        assertEquals(stats.get("retried").longValue(), 2L);
+        assertEquals(stats.get("failed").longValue(), 0L);
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts() {
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_MAX_ATTEMPTS)).thenReturn(2);
+        publisher.setConfig(mockConfig);
+        publisher.start();
+        sqsClient.failNextEntries(100);
+
+        publisher.publish("request0", "test request 0");
+        publisher.stop();
+
+        assertTrue(sqsClient.getMessageBodies().isEmpty());
+        assertEquals(sqsClient.getBatchSizes(), ImmutableList.of(1, 1));
+
+        Map<String, Long> stats = publisher.getStats();
+        assertEquals(stats.get("sentInBatches").longValue(), 0L);
+        assertEquals(stats.get("retried").longValue(), 1L);
+        assertEquals(stats.get("failed").longValue(), 1L);
+        // There is no dead letter queue configured.
+        assertEquals(stats.get("deadLettered").longValue(), 0L);
+        assertEquals(stats.get("lost").longValue(), 1L);
+    }
+
+    @Test
+    public void deadLettersAfterMaxAttempts() {
+        when(mockConfig.get(SqsInitializer.CONFIG_KEY_DEAD_LETTER_QUEUE_ARN)).thenReturn(DEAD_LETTER_QUEUE_ARN);
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_MAX_ATTEMPTS)).thenReturn(2);
+        publisher.setConfig(mockConfig);
+        publisher.start();
+        sqsClient.failNextEntries(100);
+
+        publisher.publish("request0", "test request 0");
+        publisher.stop();
+
+        assertTrue(sqsClient.getMessageBodies(WORKER_QUEUE_URL).isEmpty());
+        assertEquals(sqsClient.getMessageBodies(DEAD_LETTER_QUEUE_URL), ImmutableList.of("request0"));
+
+        Map<String, Long> stats = publisher.getStats();
+        assertEquals(stats.get("failed").longValue(), 1L);
+        assertEquals(stats.get("deadLettered").longValue(), 1L);
+        assertEquals(stats.get("lost").longValue(), 0L);
+    }
+
+    @Test
+    public void deadLettersRejectedEntriesWithoutRetrying() {
+        when(mockConfig.get(SqsInitializer.CONFIG_KEY_DEAD_LETTER_QUEUE_ARN)).thenReturn(DEAD_LETTER_QUEUE_ARN);
+        publisher.setConfig(mockConfig);
+        publisher.start();
+        sqsClient.rejectNextEntries(1);
+
+        publisher.publish("request0", "test request 0");
+        publisher.publish("request1", "test request 1");
+        publisher.stop();
+
+        assertEquals(sqsClient.getBatchSizes(), ImmutableList.of(2));
+        assertEquals(sqsClient.getMessageBodies(WORKER_QUEUE_URL), ImmutableList.of("request1"));
+        assertEquals(sqsClient.getMessageBodies(DEAD_LETTER_QUEUE_URL), ImmutableList.of("request0"));
+
+        Map<String, Long> stats = publisher.getStats();
+        assertEquals(stats.get("retried").longValue(), 0L);
+        assertEquals(stats.get("failed").longValue(), 1L);
+        assertEquals(stats.get("deadLettered").longValue(), 1L);
+    }
+
+    @Test
+    public void queueUrlFromArn() {
+        assertEquals(WorkerRequestPublisher.queueUrlFromArn(DEAD_LETTER_QUEUE_ARN), DEAD_LETTER_QUEUE_URL);
+        assertNull(WorkerRequestPublisher.queueUrlFromArn(null));
+        assertNull(WorkerRequestPublisher.queueUrlFromArn("arn:aws:sns:us-east-1:111122223333:topic"));
+        assertNull(WorkerRequestPublisher.queueUrlFromArn("not-an-arn"));
+    }
+
+    @Test
+    public void sendsDirectlyWhenDisabled() {
+        when(mockConfig.get(CONFIG_KEY_ENABLED)).thenReturn("false");
+        publisher.setConfig(mockConfig);
+        publisher.start();
+
+        publisher.publish("request0", "test request 0");
+
+        assertEquals(sqsClient.getMessageBodies(), ImmutableList.of("request0"));
+        assertTrue(sqsClient.getBatchSizes().isEmpty());
+        assertEquals(publisher.getStats().get("sentDirectly").longValue(), 1L);
+    }
+
+    @Test
+    public void sendsDirectlyAfterStop() {
+        publisher.setConfig(mockConfig);
+        publisher.start();
+        publisher.stop();
+
+        publisher.publish("request0", "test request 0");
+
+        assertEquals(sqsClient.getMessageBodies(), ImmutableList.of("request0"));
+        assertTrue(sqsClient.getBatchSizes().isEmpty());
+        assertEquals(publisher.getStats().get("sentDirectly").longValue(), 1L);
+    }
+}
@@ -10,12 +10,14 @@ import static org.sagebionetworks.bridge.TestUtils.assertDelete;
 import static org.sagebionetworks.bridge.TestUtils.assertGet;
 import static org.testng.Assert.assertEquals;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 import org.mockito.InjectMocks;
@@ -76,6 +78,7 @@ public class CacheAdminControllerTest extends Mockito {
     public void verifyAnnotations() throws Exception {
         assertCrossOrigin(CacheAdminController.class);
         assertGet(CacheAdminController.class, "listItems");
+        assertGet(CacheAdminController.class, "getCacheStats");
         assertDelete(CacheAdminController.class, "removeItem");
     }    
     
@@ -106,6 +109,25 @@ public class CacheAdminControllerTest extends Mockito {
         controller.listItems();
     }
     
+    @Test
+    public void getCacheStats() throws Exception {
+        Map<String, Map<String, Long>> stats = ImmutableMap.of("App", ImmutableMap.of("hitCount", 3L));
+        when(mockCacheAdminService.getCacheStats()).thenReturn(stats);
+        
+        Map<String, Map<String, Long>> retValue = controller.getCacheStats();
+        assertEquals(retValue, stats);
+        
+        verify(mockCacheAdminService).getCacheStats();
+    }
+    
+    @Test(expectedExceptions = UnauthorizedException.class)
+    public void getCacheStatsRejectsAppAdmin() throws Exception {
+        session.setParticipant(new StudyParticipant.Builder()
+                .withRoles(ImmutableSet.of(ADMIN)).withId(TEST_USER_ID).build());
+        
+        controller.getCacheStats();
+    }
+    
     @Test
     public void removeItem() throws Exception {
         session.setAppId(TEST_APP_ID);
@@ -0,0 +1,76 @@
+package org.sagebionetworks.bridge.spring.controllers;
+
+import static org.sagebionetworks.bridge.Roles.ADMIN;
+import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
+import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
+import static org.sagebionetworks.bridge.TestUtils.assertCrossOrigin;
+import static org.sagebionetworks.bridge.TestUtils.assertGet;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
+import org.sagebionetworks.bridge.hibernate.ReadReplicaRouter;
+import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+
+public class DatabaseAdminControllerTest extends Mockito {
+    
+    @Mock
+    private ReadReplicaRouter mockReadReplicaRouter;
+
+    @InjectMocks
+    @Spy
+    private DatabaseAdminController controller = new DatabaseAdminController();
+    
+    private UserSession session;
+
+    @BeforeMethod
+    private void before() {
+        MockitoAnnotations.initMocks(this);
+        
+        session = new UserSession();
+        session.setParticipant(new StudyParticipant.Builder()
+                .withRoles(ImmutableSet.of(SUPERADMIN)).withId(TEST_USER_ID).build());
+        doAnswer(answer -> {
+            if (session.isInRole(SUPERADMIN)) {
+                return session;
+            }
+            throw new UnauthorizedException("Nope");
+        }).when(controller).getAuthenticatedSession(any());
+    }
+
+    @Test
+    public void verifyAnnotations() throws Exception {
+        assertCrossOrigin(DatabaseAdminController.class);
+        assertGet(DatabaseAdminController.class, "getDatabaseStats");
+    }
+    
+    @Test
+    public void getDatabaseStats() {
+        Map<String, Map<String, Long>> stats = ImmutableMap.of("primary", ImmutableMap.of("checkouts", 3L));
+        when(mockReadReplicaRouter.getStats()).thenReturn(stats);
+        
+        Map<String, Map<String, Long>> retValue = controller.getDatabaseStats();
+        assertEquals(retValue, stats);
+    }
+    
+    @Test(expectedExceptions = UnauthorizedException.class)
+    public void getDatabaseStatsRejectsAppAdmin() {
+        session.setParticipant(new StudyParticipant.Builder()
+                .withRoles(ImmutableSet.of(ADMIN)).withId(TEST_USER_ID).build());
+        
+        controller.getDatabaseStats();
+    }
+}
@@ -178,14 +178,14 @@ public class ExternalIdControllerV4Test extends Mockito {
                 .withCallerRoles(ImmutableSet.of(RESEARCHER)).build());
 
         PagedResourceList<ExternalIdentifierInfo> page = new PagedResourceList<>(ImmutableList.of(), 1000, true);
-        when(mockService.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 1000, 50))
+        when(mockService.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 1000, null, 50))
             .thenReturn(page);
         
         PagedResourceList<ExternalIdentifierInfo> retValue = controller.getExternalIdentifiersForStudy(
-                TEST_STUDY_ID, "1000", "50", "idFilter");
+                TEST_STUDY_ID, "1000", null, "50", "idFilter");
         assertEquals(retValue, page);
         
-        verify(mockService).getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 1000, 50);
+        verify(mockService).getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 1000, null, 50);
     }
 
     @Test
@@ -197,13 +197,29 @@ public class ExternalIdControllerV4Test extends Mockito {
                 .withCallerRoles(ImmutableSet.of(STUDY_COORDINATOR)).build());
         
         PagedResourceList<ExternalIdentifierInfo> page = new PagedResourceList<>(ImmutableList.of(), 1000, true);
-        when(mockService.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 0, API_DEFAULT_PAGE_SIZE))
+        when(mockService.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 0, null, API_DEFAULT_PAGE_SIZE))
             .thenReturn(page);
         
         PagedResourceList<ExternalIdentifierInfo> retValue = controller.getExternalIdentifiersForStudy(
-                TEST_STUDY_ID, null, null, null);
+                TEST_STUDY_ID, null, null, null, null);
         assertEquals(retValue, page);
         
-        verify(mockService).getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 0, API_DEFAULT_PAGE_SIZE);        
+        verify(mockService).getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 0, null, API_DEFAULT_PAGE_SIZE);        
+    }
+    
+    @Test
+    public void getExternalIdentifiersWithOffsetKey() {
+        doReturn(session).when(controller).getAdministrativeSession();
+        
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerRoles(ImmutableSet.of(RESEARCHER)).build());
+        
+        PagedResourceList<ExternalIdentifierInfo> page = new PagedResourceList<>(ImmutableList.of(), 1000, true);
+        when(mockService.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 0, "offsetKey", 50))
+            .thenReturn(page);
+        
+        PagedResourceList<ExternalIdentifierInfo> retValue = controller.getExternalIdentifiersForStudy(
+                TEST_STUDY_ID, null, "offsetKey", "50", null);
+        assertEquals(retValue, page);
     }
 }
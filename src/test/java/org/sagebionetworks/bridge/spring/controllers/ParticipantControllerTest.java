@@ -108,6 +108,7 @@ import org.sagebionetworks.bridge.models.RequestInfo;
 import org.sagebionetworks.bridge.models.ResourceList;
 import org.sagebionetworks.bridge.models.StatusMessage;
 import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountDeletionJob;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.AccountStatus;
 import org.sagebionetworks.bridge.models.accounts.AccountSummary;
@@ -323,6 +324,8 @@ public class ParticipantControllerTest extends Mockito {
         assertGet(ParticipantController.class, "getSelfParticipant");
         assertPost(ParticipantController.class, "updateSelfParticipant");
         assertDelete(ParticipantController.class, "deleteTestOrUnusedParticipant");
+        assertAccept(ParticipantController.class, "startTestOrUnusedParticipantDeletion");
+        assertGet(ParticipantController.class, "getParticipantDeletionJob");
         assertGet(ParticipantController.class, "getActivityEventsForWorker");
         assertGet(ParticipantController.class, "getActivityHistoryForWorkerV3");
         assertGet(ParticipantController.class, "getActivityHistoryForWorkerV2");
@@ -1592,6 +1595,42 @@ public class ParticipantControllerTest extends Mockito {
         controller.deleteTestOrUnusedParticipant(TEST_USER_ID);
     }
 
+    @Test
+    public void startTestOrUnusedParticipantDeletion() {
+        Account account = Account.create();
+        account.setDataGroups(ImmutableSet.of(TEST_USER_GROUP));
+        account.setId(TEST_USER_ID);
+        when(mockAccountService.getAccount(any())).thenReturn(Optional.of(account));
+        
+        AccountDeletionJob job = new AccountDeletionJob();
+        when(mockAccountService.startAccountDeletion(AccountId.forId(TEST_APP_ID, TEST_USER_ID))).thenReturn(job);
+        
+        AccountDeletionJob retValue = controller.startTestOrUnusedParticipantDeletion(TEST_USER_ID);
+        assertSame(retValue, job);
+        verify(mockAccountService, never()).deleteAccount(any());
+    }
+    
+    @Test(expectedExceptions = UnauthorizedException.class)
+    public void startTestOrUnusedParticipantDeletionNotATestAccount() {
+        Account account = Account.create();
+        when(mockAccountService.getAccount(any())).thenReturn(Optional.of(account));
+        
+        RequestInfo requestInfo = new RequestInfo.Builder().withSignedInOn(START_TIME).build();
+        when(mockRequestInfoService.getRequestInfo(any())).thenReturn(requestInfo);
+        
+        controller.startTestOrUnusedParticipantDeletion(TEST_USER_ID);
+    }
+    
+    @Test
+    public void getParticipantDeletionJob() {
+        // The account has already been deleted
+        AccountDeletionJob job = new AccountDeletionJob();
+        when(mockAccountService.getAccountDeletionJob(TEST_APP_ID, TEST_USER_ID)).thenReturn(job);
+        
+        AccountDeletionJob retValue = controller.getParticipantDeletionJob(TEST_USER_ID);
+        assertSame(retValue, job);
+    }
+
     @SuppressWarnings("deprecation")
     private <T> void verifyPagedResourceListParameters(JsonNode node) throws Exception {
         assertEquals(node.get("startTime").asText(), START_TIME.toString());
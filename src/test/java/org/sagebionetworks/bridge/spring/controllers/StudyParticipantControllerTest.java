@@ -107,6 +107,7 @@ import org.sagebionetworks.bridge.models.reports.ReportDataKey;
 import org.sagebionetworks.bridge.models.reports.ReportIndex;
 import org.sagebionetworks.bridge.models.schedules2.Schedule2;
 import org.sagebionetworks.bridge.models.schedules2.participantschedules.ParticipantSchedule;
+import org.sagebionetworks.bridge.models.schedules2.timelines.Scheduler;
 import org.sagebionetworks.bridge.models.schedules2.timelines.Timeline;
 import org.sagebionetworks.bridge.models.studies.Enrollment;
 import org.sagebionetworks.bridge.models.studies.EnrollmentDetail;
@@ -1293,11 +1294,14 @@ public class StudyParticipantControllerTest extends Mockito {
         schedule.setModifiedOn(MODIFIED_ON);
         when(mockScheduleService.getScheduleForStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(Optional.of(schedule));
         
+        Timeline timeline = Scheduler.INSTANCE.calculateTimeline(schedule);
+        when(mockScheduleService.getTimeline(schedule)).thenReturn(timeline);
+        
         when(controller.getDateTime()).thenReturn(CREATED_ON);
         
         ResponseEntity<Timeline> retValue = controller.getTimelineForSelf(TEST_STUDY_ID);
         assertEquals(retValue.getStatusCodeValue(), 200);
-        assertTrue(retValue.getBody() instanceof Timeline);
+        assertSame(retValue.getBody(), timeline);
         
         verify(mockCacheProvider).setObject(scheduleModificationTimestamp(TEST_APP_ID, TEST_STUDY_ID), MODIFIED_ON.toString());
         verify(mockScheduleService).getScheduleForStudy(TEST_APP_ID, TEST_STUDY_ID);
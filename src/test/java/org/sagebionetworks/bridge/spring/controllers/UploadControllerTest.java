@@ -12,6 +12,7 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
 import static org.sagebionetworks.bridge.TestUtils.createJson;
 import static org.sagebionetworks.bridge.TestUtils.mockRequestBody;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
@@ -19,13 +20,16 @@ import static org.testng.Assert.fail;
 
 import java.net.URL;
 import java.util.EnumSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 
 import org.mockito.ArgumentCaptor;
@@ -35,6 +39,7 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -42,6 +47,7 @@ import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.HealthCodeDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
@@ -64,6 +70,7 @@ import org.sagebionetworks.bridge.services.AccountService;
 import org.sagebionetworks.bridge.services.HealthDataService;
 import org.sagebionetworks.bridge.services.RequestInfoService;
 import org.sagebionetworks.bridge.services.UploadService;
+import org.sagebionetworks.bridge.services.UploadValidationService;
 
 public class UploadControllerTest extends Mockito {
     private static final String RECORD_ID = "record-id";
@@ -84,6 +91,9 @@ public class UploadControllerTest extends Mockito {
     
     @Mock
     HealthCodeDao mockHealthCodeDao;
+
+    @Mock
+    UploadValidationService mockUploadValidationService;
     
     @Mock
     AccountService mockAccountService;
@@ -147,6 +157,8 @@ public class UploadControllerTest extends Mockito {
 
         doReturn(status).when(mockUploadService).getUploadValidationStatus(UPLOAD_ID);
         doReturn(status).when(mockUploadService).pollUploadValidationStatusUntilComplete(UPLOAD_ID);
+        doReturn(CompletableFuture.completedFuture(status)).when(mockUploadService)
+                .waitForUploadValidationStatus(UPLOAD_ID);
 
         // mock metrics
         doReturn(mockMetrics).when(controller).getMetrics();
@@ -247,6 +259,16 @@ public class UploadControllerTest extends Mockito {
         assertEquals(svcInput.getUploadIds(), ImmutableList.of(UPLOAD_ID_1, UPLOAD_ID_2));
     }
 
+    @Test
+    public void getUploadValidationStats() {
+        doReturn(new UserSession()).when(controller).getAuthenticatedSession(SUPERADMIN);
+        Map<String, Map<String, Long>> stats = ImmutableMap.of("queue", ImmutableMap.of("queueDepth", 2L));
+        when(mockUploadValidationService.getValidationStats()).thenReturn(stats);
+
+        Map<String, Map<String, Long>> result = controller.getUploadValidationStats();
+        assertSame(result, stats);
+    }
+
     @Test
     public void uploadCompleteAcceptsConsentedUser() throws Exception {
         // setup controller
@@ -324,6 +346,63 @@ public class UploadControllerTest extends Mockito {
         verify(mockUploadService, never()).pollUploadValidationStatusUntilComplete(any());
     }
 
+    @Test
+    public void uploadCompleteDeferred() throws Exception {
+        // setup controller
+        doReturn(mockConsentedUserSession).when(controller).getAuthenticatedSession();
+        doReturn(mockConsentedUserSession).when(controller).getAuthenticatedAndConsentedSession();
+        doReturn(7).when(mockUploadService).getPollValidationStatusMaxIterations();
+        doReturn(5000L).when(mockUploadService).getPollValidationStatusSleepMillis();
+
+        CompletableFuture<UploadValidationStatus> future = new CompletableFuture<>();
+        doReturn(future).when(mockUploadService).waitForUploadValidationStatus(UPLOAD_ID);
+
+        // execute
+        DeferredResult<String> result = controller.uploadCompleteDeferred(UPLOAD_ID, false);
+        verify(mockUploadService).uploadComplete(eq("consented-user-app-id"),
+                eq(UploadCompletionClient.APP), any(), eq(false));
+        assertFalse(result.hasResult());
+
+        // The result is set once validation completes.
+        future.complete(mockUploadService.getUploadValidationStatus(UPLOAD_ID));
+        validateValidationStatus((String) result.getResult());
+        verify(mockUploadService, never()).pollUploadValidationStatusUntilComplete(any());
+    }
+
+    @Test
+    public void uploadCompleteDeferredTimesOut() throws Exception {
+        // setup controller
+        doReturn(mockWorkerSession).when(controller).getAuthenticatedSession();
+
+        BridgeServiceException timeoutEx = new BridgeServiceException("timeout");
+        CompletableFuture<UploadValidationStatus> future = new CompletableFuture<>();
+        future.completeExceptionally(timeoutEx);
+        doReturn(future).when(mockUploadService).waitForUploadValidationStatus(UPLOAD_ID);
+
+        // execute
+        DeferredResult<String> result = controller.uploadCompleteDeferred(UPLOAD_ID, true);
+        verify(mockUploadService).uploadComplete(eq("worker-health-code"),
+                eq(UploadCompletionClient.REDRIVE), any(), eq(true));
+        assertSame(result.getResult(), timeoutEx);
+    }
+
+    @Test
+    public void uploadCompleteDeferredDifferentUser() throws Exception {
+        // setup controller
+        doReturn(false).when(mockOtherUserSession).isInRole(Roles.WORKER);
+        doReturn(mockOtherUserSession).when(controller).getAuthenticatedSession();
+        doReturn(mockOtherUserSession).when(controller).getAuthenticatedAndConsentedSession();
+
+        try {
+            controller.uploadCompleteDeferred(UPLOAD_ID, false);
+            fail("Should have thrown exception");
+        } catch (UnauthorizedException e) {
+            // expected exception
+        }
+        verify(mockUploadService, never()).uploadComplete(any(), any(), any(), anyBoolean());
+        verify(mockUploadService, never()).waitForUploadValidationStatus(any());
+    }
+
     @Test
     public void getValidationStatusWorks() throws Exception {
         doReturn(mockConsentedUserSession).when(controller).getAuthenticatedAndConsentedSession();
@@ -8,6 +8,7 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.FilterChain;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -123,4 +124,34 @@ public class MetricsFilterTest extends Mockito {
         
         assertEquals("5.6.7.8", node.get("remote_address").textValue());
     }
+    
+    @Test
+    public void metricsNotFinishedWhenAsyncStarted() throws Exception {
+        when(mockRequest.isAsyncStarted()).thenReturn(true);
+        when(mockResponse.getStatus()).thenReturn(200);
+        
+        filter.doFilter(mockRequest, mockResponse, mockFilterChain);
+        
+        Metrics metrics = RequestContext.get().getMetrics();
+        verify(mockRequest).setAttribute(MetricsFilter.METRICS_ATTRIBUTE, metrics);
+        assertFalse(metrics.getJson().has("end"));
+    }
+    
+    @Test
+    public void metricsFinishedOnAsyncDispatch() throws Exception {
+        Metrics metrics = new Metrics("deferred-request-id");
+        when(mockRequest.getDispatcherType()).thenReturn(DispatcherType.ASYNC);
+        when(mockRequest.getAttribute(MetricsFilter.METRICS_ATTRIBUTE)).thenReturn(metrics);
+        when(mockResponse.getStatus()).thenReturn(500);
+        
+        filter.doFilter(mockRequest, mockResponse, mockFilterChain);
+        
+        JsonNode node = metrics.getJson();
+        assertEquals(500, node.get("status").intValue());
+        assertEquals(TIMESTAMP.toString(), node.get("end").textValue());
+        // The metrics of the request context on the dispatching thread aren't touched.
+        assertFalse(RequestContext.get().getMetrics().getJson().has("end"));
+        verify(mockRequest, never()).setAttribute(any(), any());
+        verify(mockFilterChain).doFilter(mockRequest, mockResponse);
+    }
 }
@@ -15,7 +15,9 @@ import static org.testng.Assert.assertNull;
 
 import java.lang.annotation.Annotation;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -170,6 +172,12 @@ public class EtagComponentTest extends Mockito {
         when(mockCacheProvider.getObject(studyKey, DateTime.class)).thenReturn(CREATED_ON);
         CacheKey userKey = CacheKey.etag(Account.class, TEST_USER_ID);
         when(mockCacheProvider.getObject(userKey, DateTime.class)).thenReturn(MODIFIED_ON);
+        // Timestamps are retrieved in one batch; resolve them through the getObject stubs used in these tests.
+        when(mockCacheProvider.getObjects(any(), eq(DateTime.class))).thenAnswer(invocation -> {
+            List<CacheKey> keys = invocation.getArgument(0);
+            return keys.stream().map(key -> mockCacheProvider.getObject(key, DateTime.class))
+                    .collect(Collectors.toList());
+        });
         
         String stringToHash = CREATED_ON.toString() + " " + MODIFIED_ON.toString();
         when(mockMd5DigestUtils.digest(stringToHash.getBytes())).thenReturn("ETAG".getBytes());
@@ -212,6 +220,34 @@ public class EtagComponentTest extends Mockito {
         verify(mockResponse).setStatus(304);
     }
 
+    @Test
+    public void timestampsRetrievedInOneCall() throws Throwable {
+        when(mockRequest.getHeader(IF_NONE_MATCH)).thenReturn(ETAG);
+        
+        component.checkEtag(mockJoinPoint);
+        
+        verify(mockCacheProvider).getObjects(ImmutableList.of(CacheKey.etag(Study.class, TEST_APP_ID, TEST_STUDY_ID),
+                CacheKey.etag(Account.class, TEST_USER_ID)), DateTime.class);
+    }
+    
+    @Test
+    public void statsAreCountedByEndpoint() throws Throwable {
+        doReturn("StudyController.getStudy").when(mockContext).getEndpoint();
+        
+        component.checkEtag(mockJoinPoint);
+        
+        when(mockRequest.getHeader(IF_NONE_MATCH)).thenReturn("SOME-OTHER-ETAG");
+        component.checkEtag(mockJoinPoint);
+        
+        when(mockRequest.getHeader(IF_NONE_MATCH)).thenReturn(ETAG);
+        component.checkEtag(mockJoinPoint);
+        
+        Map<String, Long> stats = component.getStats().get("StudyController.getStudy");
+        assertEquals(stats.get("requests"), Long.valueOf(3L));
+        assertEquals(stats.get("conditionalRequests"), Long.valueOf(2L));
+        assertEquals(stats.get("notModified"), Long.valueOf(1L));
+    }
+    
     @Test
     public void cacheMiss() throws Throwable {
         when(mockRequest.getHeader(IF_NONE_MATCH)).thenReturn("SOME-OTHER-ETAG");
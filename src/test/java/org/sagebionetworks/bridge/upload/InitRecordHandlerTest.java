@@ -257,7 +257,8 @@ public class InitRecordHandlerTest {
 
     @Test
     public void parseJsonNotInMap() {
-        JsonNode result = handler.parseFileAsJson(ImmutableMap.of(), UploadUtil.FILENAME_INFO_JSON);
+        UploadValidationContext context = new UploadValidationContext();
+        JsonNode result = handler.parseFileAsJson(context, ImmutableMap.of(), UploadUtil.FILENAME_INFO_JSON);
         assertNull(result);
     }
 
@@ -267,35 +268,40 @@ public class InitRecordHandlerTest {
         File file = inMemoryFileHelper.newFile(tmpDir, UploadUtil.FILENAME_INFO_JSON);
         Map<String, File> fileMap = ImmutableMap.of(UploadUtil.FILENAME_INFO_JSON, file);
 
-        JsonNode result = handler.parseFileAsJson(fileMap, UploadUtil.FILENAME_INFO_JSON);
+        UploadValidationContext context = new UploadValidationContext();
+        JsonNode result = handler.parseFileAsJson(context, fileMap, UploadUtil.FILENAME_INFO_JSON);
         assertNull(result);
     }
 
     @Test
     public void parseJsonInvalidJson() {
         Map<String, File> fileMap = makeInfoJsonFileMapWithContent("invalid JSON");
-        JsonNode result = handler.parseFileAsJson(fileMap, UploadUtil.FILENAME_INFO_JSON);
+        UploadValidationContext context = new UploadValidationContext();
+        JsonNode result = handler.parseFileAsJson(context, fileMap, UploadUtil.FILENAME_INFO_JSON);
         assertNull(result);
     }
 
     @Test
     public void parseJsonJsonNull() {
         Map<String, File> fileMap = makeInfoJsonFileMapWithContent("null");
-        JsonNode result = handler.parseFileAsJson(fileMap, UploadUtil.FILENAME_INFO_JSON);
+        UploadValidationContext context = new UploadValidationContext();
+        JsonNode result = handler.parseFileAsJson(context, fileMap, UploadUtil.FILENAME_INFO_JSON);
         assertNull(result);
     }
 
     @Test
     public void parseJsonWrongType() {
         Map<String, File> fileMap = makeInfoJsonFileMapWithContent("\"not an object\"");
-        JsonNode result = handler.parseFileAsJson(fileMap, UploadUtil.FILENAME_INFO_JSON);
+        UploadValidationContext context = new UploadValidationContext();
+        JsonNode result = handler.parseFileAsJson(context, fileMap, UploadUtil.FILENAME_INFO_JSON);
         assertNull(result);
     }
 
     @Test
     public void parseJsonSuccess() {
         Map<String, File> fileMap = makeInfoJsonFileMapWithContent("{\"my-key\":\"my-value\"}");
-        JsonNode result = handler.parseFileAsJson(fileMap, UploadUtil.FILENAME_INFO_JSON);
+        UploadValidationContext context = new UploadValidationContext();
+        JsonNode result = handler.parseFileAsJson(context, fileMap, UploadUtil.FILENAME_INFO_JSON);
         assertEquals(result.size(), 1);
         assertEquals(result.get("my-key").textValue(), "my-value");
     }
@@ -0,0 +1,107 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.file.InMemoryFileHelper;
+
+public class ParsedJsonFileCacheTest {
+    private InMemoryFileHelper inMemoryFileHelper;
+    private File tmpDir;
+    private ParsedJsonFileCache cache;
+
+    @BeforeMethod
+    public void before() {
+        // Spy file helper, so we can check to see how many times we read the disk.
+        inMemoryFileHelper = spy(new InMemoryFileHelper());
+        tmpDir = inMemoryFileHelper.createTempDir();
+        cache = new ParsedJsonFileCache();
+    }
+
+    @Test
+    public void parseOnce() throws Exception {
+        File file = makeFileWithContent("record.json", "{\"foo\":\"foo-value\"}");
+        assertFalse(cache.isParsed(file));
+
+        JsonNode first = cache.parse(inMemoryFileHelper, file);
+        assertEquals(first.get("foo").textValue(), "foo-value");
+        assertTrue(cache.isParsed(file));
+
+        JsonNode second = cache.parse(inMemoryFileHelper, file);
+        assertSame(second, first);
+        verify(inMemoryFileHelper, times(1)).getInputStream(file);
+    }
+
+    @Test
+    public void parseErrorIsCached() throws Exception {
+        File file = makeFileWithContent("record.json", "invalid JSON");
+        IOException firstEx = null;
+        try {
+            cache.parse(inMemoryFileHelper, file);
+            fail("expected exception");
+        } catch (IOException ex) {
+            firstEx = ex;
+        }
+
+        try {
+            cache.parse(inMemoryFileHelper, file);
+            fail("expected exception");
+        } catch (IOException ex) {
+            assertSame(ex, firstEx);
+        }
+        assertFalse(cache.isParsed(file));
+        verify(inMemoryFileHelper, times(1)).getInputStream(file);
+    }
+
+    @Test
+    public void streamSanitizedTopLevelFields() throws Exception {
+        File file = makeFileWithContent("record.json", "{\n" +
+                "   \"skipped\":{\"nested\":[1, 2, {\"foo\":\"not top-level\"}]},\n" +
+                "   \"sanitize!@#$foo\":\"foo-value\",\n" +
+                "   \"bar\":[\"bar-value\"],\n" +
+                "   \"baz\":null\n" +
+                "}");
+        Map<String, JsonNode> result = ParsedJsonFileCache.streamSanitizedTopLevelFields(inMemoryFileHelper, file,
+                ImmutableSet.of("sanitize____foo", "bar", "baz", "missing"));
+        assertEquals(result.size(), 3);
+        assertEquals(result.get("sanitize____foo").textValue(), "foo-value");
+        assertEquals(result.get("bar").get(0).textValue(), "bar-value");
+        assertTrue(result.get("baz").isNull());
+    }
+
+    @Test
+    public void streamNotAnObject() throws Exception {
+        File file = makeFileWithContent("record.json", "[\"foo\"]");
+        Map<String, JsonNode> result = ParsedJsonFileCache.streamSanitizedTopLevelFields(inMemoryFileHelper, file,
+                ImmutableSet.of("foo"));
+        assertTrue(result.isEmpty());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void streamInvalidJson() throws Exception {
+        File file = makeFileWithContent("record.json", "{\"foo\":\"unterminated");
+        ParsedJsonFileCache.streamSanitizedTopLevelFields(inMemoryFileHelper, file, ImmutableSet.of("foo"));
+    }
+
+    private File makeFileWithContent(String name, String content) {
+        File file = inMemoryFileHelper.newFile(tmpDir, name);
+        inMemoryFileHelper.writeBytes(file, content.getBytes(Charsets.UTF_8));
+        return file;
+    }
+}
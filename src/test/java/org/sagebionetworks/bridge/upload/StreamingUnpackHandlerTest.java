@@ -0,0 +1,217 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.base.Charsets;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.ClassPathResource;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.crypto.BcCmsEncryptor;
+import org.sagebionetworks.bridge.crypto.CmsEncryptor;
+import org.sagebionetworks.bridge.crypto.PemUtils;
+import org.sagebionetworks.bridge.crypto.WrongEncryptionKeyException;
+import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.services.UploadArchiveService;
+
+@SuppressWarnings("unchecked")
+public class StreamingUnpackHandlerTest extends Mockito {
+    private static final String UPLOAD_ID = "test-upload";
+    private static final String UPLOAD_FILENAME = "test-upload.zip";
+    private static final byte[] SMALL_ENTRY = "small entry".getBytes(Charsets.UTF_8);
+    private static final byte[] LARGE_ENTRY = new byte[5000];
+
+    @Mock
+    AmazonS3 mockS3Client;
+
+    @Mock
+    S3DownloadHandler mockS3DownloadHandler;
+
+    @Mock
+    DecryptHandler mockDecryptHandler;
+
+    @Mock
+    UnzipHandler mockUnzipHandler;
+
+    MemoryBackedFileHelper fileHelper;
+    UploadArchiveService archiveService;
+    StreamingUnpackHandler handler;
+    UploadValidationContext context;
+    Upload upload;
+    File tempDir;
+
+    @BeforeMethod
+    public void beforeMethod() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        File certFile = new ClassPathResource("/cms/rsacert.pem").getFile();
+        X509Certificate cert = PemUtils.loadCertificateFromPem(new String(Files.readAllBytes(certFile.toPath())));
+        File privateKeyFile = new ClassPathResource("/cms/rsaprivkey.pem").getFile();
+        PrivateKey privateKey = PemUtils.loadPrivateKeyFromPem(new String(Files.readAllBytes(
+                privateKeyFile.toPath())));
+        LoadingCache<String, CmsEncryptor> mockEncryptorCache = mock(LoadingCache.class);
+        when(mockEncryptorCache.get(notNull())).thenReturn(new BcCmsEncryptor(cert, privateKey));
+
+        archiveService = new UploadArchiveService();
+        archiveService.setCmsEncryptorCache(mockEncryptorCache);
+        archiveService.setMaxNumZipEntries(100);
+        archiveService.setMaxZipEntrySize(1000000);
+
+        fileHelper = new MemoryBackedFileHelper();
+        tempDir = fileHelper.createTempDir();
+
+        handler = new StreamingUnpackHandler();
+        handler.setFileHelper(fileHelper);
+        handler.setS3Client(mockS3Client);
+        handler.setUploadArchiveService(archiveService);
+        handler.setS3DownloadHandler(mockS3DownloadHandler);
+        handler.setDecryptHandler(mockDecryptHandler);
+        handler.setUnzipHandler(mockUnzipHandler);
+        handler.setSpillThresholdBytes(1000);
+        handler.setMemoryBudgetBytes(100000);
+
+        upload = Upload.create();
+        upload.setUploadId(UPLOAD_ID);
+        upload.setFilename(UPLOAD_FILENAME);
+        upload.setEncrypted(true);
+        upload.setZipped(true);
+
+        context = new UploadValidationContext();
+        context.setAppId(TEST_APP_ID);
+        context.setUpload(upload);
+        context.setTempDir(tempDir);
+    }
+
+    @AfterMethod
+    public void afterMethod() throws Exception {
+        fileHelper.deleteDirRecursively(tempDir);
+    }
+
+    @Test
+    public void encryptedZip() throws Exception {
+        byte[] zipped = archiveService.zip(ImmutableMap.of("small.json", SMALL_ENTRY, "large.bin", LARGE_ENTRY));
+        mockS3Object(archiveService.encrypt(TEST_APP_ID, zipped));
+
+        handler.handle(context);
+
+        // The decrypted archive is written in full, including the central directory.
+        File decryptedFile = context.getDecryptedDataFile();
+        assertFalse(fileHelper.isInMemory(decryptedFile));
+        assertEquals(Files.readAllBytes(decryptedFile.toPath()), zipped);
+
+        // The small entry is held in memory. The large one spilled to disk.
+        Map<String, File> unzippedDataFileMap = context.getUnzippedDataFileMap();
+        assertEquals(unzippedDataFileMap.size(), 2);
+        File smallFile = unzippedDataFileMap.get("small.json");
+        assertTrue(fileHelper.isInMemory(smallFile));
+        assertFalse(smallFile.exists());
+        assertEquals(readFile(smallFile), SMALL_ENTRY);
+
+        File largeFile = unzippedDataFileMap.get("large.bin");
+        assertFalse(fileHelper.isInMemory(largeFile));
+        assertTrue(largeFile.exists());
+        assertEquals(fileHelper.fileSize(largeFile), LARGE_ENTRY.length);
+        assertEquals(readFile(largeFile), LARGE_ENTRY);
+
+        // The encrypted upload is never written to disk.
+        assertFalse(new File(tempDir, UPLOAD_ID + "-encrypted").exists());
+        verifyZeroInteractions(mockS3DownloadHandler, mockDecryptHandler, mockUnzipHandler);
+    }
+
+    @Test
+    public void spillsOnceMemoryBudgetIsUsed() throws Exception {
+        handler.setMemoryBudgetBytes(SMALL_ENTRY.length);
+        byte[] zipped = archiveService.zip(ImmutableMap.of("first.json", SMALL_ENTRY, "second.json", SMALL_ENTRY));
+        mockS3Object(archiveService.encrypt(TEST_APP_ID, zipped));
+
+        handler.handle(context);
+
+        Map<String, File> unzippedDataFileMap = context.getUnzippedDataFileMap();
+        assertTrue(fileHelper.isInMemory(unzippedDataFileMap.get("first.json")));
+        assertFalse(fileHelper.isInMemory(unzippedDataFileMap.get("second.json")));
+        assertEquals(readFile(unzippedDataFileMap.get("second.json")), SMALL_ENTRY);
+    }
+
+    @Test
+    public void notEncryptedNotZipped() throws Exception {
+        upload.setEncrypted(false);
+        upload.setZipped(false);
+        mockS3Object(SMALL_ENTRY);
+
+        handler.handle(context);
+
+        File decryptedFile = context.getDecryptedDataFile();
+        assertEquals(Files.readAllBytes(decryptedFile.toPath()), SMALL_ENTRY);
+        assertEquals(context.getUnzippedDataFileMap(), ImmutableMap.of(UPLOAD_FILENAME, decryptedFile));
+    }
+
+    @Test
+    public void wrongKeyFallsBackToFileHandlers() throws Exception {
+        UploadArchiveService mockArchiveService = mock(UploadArchiveService.class);
+        when(mockArchiveService.decrypt(eq(TEST_APP_ID), any(InputStream.class)))
+                .thenThrow(WrongEncryptionKeyException.class);
+        handler.setUploadArchiveService(mockArchiveService);
+        mockS3Object(SMALL_ENTRY);
+
+        handler.handle(context);
+
+        verify(mockS3DownloadHandler).handle(context);
+        verify(mockDecryptHandler).handle(context);
+        verify(mockUnzipHandler).handle(context);
+    }
+
+    @Test(expectedExceptions = UploadValidationException.class)
+    public void corruptUpload() throws Exception {
+        mockS3Object("not encrypted".getBytes(Charsets.UTF_8));
+        handler.handle(context);
+    }
+
+    @Test
+    public void deletingTempDirDropsInMemoryFiles() throws Exception {
+        byte[] zipped = archiveService.zip(ImmutableMap.of("small.json", SMALL_ENTRY));
+        mockS3Object(archiveService.encrypt(TEST_APP_ID, zipped));
+        handler.handle(context);
+        File smallFile = context.getUnzippedDataFileMap().get("small.json");
+        assertTrue(fileHelper.fileExists(smallFile));
+
+        fileHelper.deleteDirRecursively(tempDir);
+        assertFalse(fileHelper.isInMemory(smallFile));
+        assertFalse(fileHelper.fileExists(smallFile));
+    }
+
+    private void mockS3Object(byte[] content) {
+        // Each call gets a fresh stream, like S3.
+        when(mockS3Client.getObject(TestConstants.UPLOAD_BUCKET, UPLOAD_ID)).thenAnswer(invocation -> {
+            S3Object s3Object = new S3Object();
+            s3Object.setObjectContent(new ByteArrayInputStream(content));
+            return s3Object;
+        });
+    }
+
+    private byte[] readFile(File file) throws Exception {
+        try (InputStream inputStream = fileHelper.getInputStream(file)) {
+            return ByteStreams.toByteArray(inputStream);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.models.upload.UploadStatus;
+
+public class UploadCompletionRegistryTest {
+    private static final String UPLOAD_ID = "test-upload";
+    private static final long LONG_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private UploadCompletionRegistry registry;
+
+    @BeforeMethod
+    public void before() {
+        registry = new UploadCompletionRegistry();
+        registry.start();
+    }
+
+    @AfterMethod
+    public void after() {
+        registry.stop();
+    }
+
+    @Test
+    public void signalCompletesAllWaiters() throws Exception {
+        CompletableFuture<UploadStatus> first = registry.await(UPLOAD_ID, LONG_TIMEOUT_MILLIS);
+        CompletableFuture<UploadStatus> second = registry.await(UPLOAD_ID, LONG_TIMEOUT_MILLIS);
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+
+        registry.complete(UPLOAD_ID, UploadStatus.SUCCEEDED);
+        assertEquals(first.get(10, TimeUnit.SECONDS), UploadStatus.SUCCEEDED);
+        assertEquals(second.get(10, TimeUnit.SECONDS), UploadStatus.SUCCEEDED);
+
+        Map<String, Long> stats = registry.getStats();
+        assertEquals(stats.get("uploadsAwaited").longValue(), 0L);
+        assertEquals(stats.get("waits").longValue(), 2L);
+        assertEquals(stats.get("signalled").longValue(), 1L);
+        assertEquals(stats.get("timedOut").longValue(), 0L);
+    }
+
+    @Test
+    public void waitTimesOutWithNull() throws Exception {
+        CompletableFuture<UploadStatus> waiter = registry.await(UPLOAD_ID, 10);
+        assertNull(waiter.get(10, TimeUnit.SECONDS));
+
+        Map<String, Long> stats = registry.getStats();
+        assertEquals(stats.get("uploadsAwaited").longValue(), 1L);
+        assertEquals(stats.get("timedOut").longValue(), 1L);
+
+        // A later wait on the same upload is still signalled.
+        CompletableFuture<UploadStatus> nextWaiter = registry.await(UPLOAD_ID, LONG_TIMEOUT_MILLIS);
+        registry.complete(UPLOAD_ID, UploadStatus.VALIDATION_FAILED);
+        assertEquals(nextWaiter.get(10, TimeUnit.SECONDS), UploadStatus.VALIDATION_FAILED);
+    }
+
+    @Test
+    public void signalWithoutWaitersIsDropped() throws Exception {
+        registry.complete(UPLOAD_ID, UploadStatus.SUCCEEDED);
+        assertEquals(registry.getStats().get("signalled").longValue(), 0L);
+
+        // A wait that starts after the signal isn't completed by it.
+        CompletableFuture<UploadStatus> waiter = registry.await(UPLOAD_ID, 10);
+        assertNull(waiter.get(10, TimeUnit.SECONDS));
+    }
+}
@@ -9,16 +9,18 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
 
 import java.io.File;
-import java.util.HashMap;
 import java.util.Map;
 
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.mockito.ArgumentCaptor;
 import org.testng.annotations.BeforeMethod;
@@ -28,6 +30,7 @@ import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.file.InMemoryFileHelper;
 import org.sagebionetworks.bridge.models.upload.UploadFieldDefinition;
 import org.sagebionetworks.bridge.models.upload.UploadFieldType;
+import org.sagebionetworks.bridge.models.upload.UploadSchema;
 import org.sagebionetworks.bridge.s3.S3Helper;
 
 public class UploadFileHelperFindValueTest {
@@ -76,7 +79,7 @@ public class UploadFileHelperFindValueTest {
 
         // Execute
         String expectedAttachmentFilename = UPLOAD_ID + '-' + FIELD_NAME_FILE;
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new ParsedJsonFileCache());
         assertEquals(result.textValue(), expectedAttachmentFilename);
 
         // Verify uploaded file
@@ -100,7 +103,7 @@ public class UploadFileHelperFindValueTest {
         Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
 
         // Execute
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new ParsedJsonFileCache());
         assertNull(result);
 
         // Verify no uploaded files
@@ -118,7 +121,7 @@ public class UploadFileHelperFindValueTest {
         Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
 
         // Execute
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new ParsedJsonFileCache());
         assertEquals(result.textValue(), "dummy content");
 
         // Verify no uploaded files
@@ -140,7 +143,7 @@ public class UploadFileHelperFindValueTest {
         Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
 
         // Execute
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new ParsedJsonFileCache());
         assertNull(result);
 
         // Verify no uploaded files
@@ -160,7 +163,7 @@ public class UploadFileHelperFindValueTest {
                 .put(FIELD_NAME_FILE, recordJsonFile).build();
 
         // Execute
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new ParsedJsonFileCache());
         assertNull(result);
 
         // Verify no uploaded files
@@ -181,7 +184,7 @@ public class UploadFileHelperFindValueTest {
 
         // Execute
         String expectedAttachmentFilename = UPLOAD_ID + '-' + FIELD_NAME_JSON_KEY;
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new ParsedJsonFileCache());
         assertEquals(result.textValue(), expectedAttachmentFilename);
 
         // Verify uploaded file
@@ -207,7 +210,7 @@ public class UploadFileHelperFindValueTest {
                 .put(FIELD_NAME_FILE, recordJsonFile).build();
 
         // Execute
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new ParsedJsonFileCache());
         assertEquals(result.textValue(), "record-value");
 
         // Verify no uploaded files
@@ -230,7 +233,7 @@ public class UploadFileHelperFindValueTest {
         Map<String, File> fileMap = ImmutableMap.<String, File>builder().put(FIELD_NAME_FILE, recordJsonFile).build();
 
         // Execute - The file is too large. Skip.
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new ParsedJsonFileCache());
         assertEquals(result.textValue(), "Long but not too long");
 
         // Verify no uploaded files
@@ -253,7 +256,7 @@ public class UploadFileHelperFindValueTest {
         Map<String, File> fileMap = ImmutableMap.<String, File>builder().put(FIELD_NAME_FILE, recordJsonFile).build();
 
         // Execute - The file is long enough to warn, but not long enough to skip.
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new ParsedJsonFileCache());
         assertNull(result);
 
         // Verify no uploaded files
@@ -277,7 +280,7 @@ public class UploadFileHelperFindValueTest {
         Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
 
         // Execute
-        Map<String, Map<String, JsonNode>> cache = new HashMap<>();
+        ParsedJsonFileCache cache = new ParsedJsonFileCache();
 
         JsonNode fooResult = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fooFieldDef, cache);
         assertEquals(fooResult.textValue(), "foo-value");
@@ -292,6 +295,56 @@ public class UploadFileHelperFindValueTest {
         verify(inMemoryFileHelper, times(1)).getInputStream(recordJsonFile);
     }
 
+    @Test
+    public void largeFileStreamsOnlySchemaFields() throws Exception {
+        // Set limits to something that's easier to test.
+        uploadFileHelper.setParsedJsonWarningLimit(20);
+        uploadFileHelper.setParsedJsonFileSizeLimit(1000);
+
+        // Make field def and schema.
+        UploadFieldDefinition fieldDef = new UploadFieldDefinition.Builder().withName(FIELD_NAME_JSON_KEY)
+                .withType(UploadFieldType.STRING).build();
+        UploadSchema schema = UploadSchema.create();
+        schema.setFieldDefinitions(ImmutableList.of(fieldDef));
+
+        // Make file map. The large key isn't in the schema.
+        File recordJsonFile = makeFileWithContent(FIELD_NAME_FILE,
+                "{\"large\":{\"samples\":[1,2,3,4,5,6,7,8,9,10]},\"foo\":\"foo-value\",\"bar\":\"bar-value\"}");
+        Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
+
+        // Execute
+        ParsedJsonFileCache cache = new ParsedJsonFileCache();
+        cache.setSchema(schema);
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, cache);
+        assertEquals(result.textValue(), "foo-value");
+
+        // The file was streamed, and only the schema's field was kept.
+        assertFalse(cache.isParsed(recordJsonFile));
+        assertEquals(cache.getSanitizedTopLevelFields(FIELD_NAME_FILE).keySet(), ImmutableSet.of("foo"));
+    }
+
+    @Test
+    public void reusesFileParsedByAnotherHandler() throws Exception {
+        // Make field def.
+        UploadFieldDefinition fieldDef = new UploadFieldDefinition.Builder().withName(FIELD_NAME_JSON_KEY)
+                .withType(UploadFieldType.STRING).build();
+
+        // Make file map.
+        File recordJsonFile = makeFileWithContent(FIELD_NAME_FILE, "{\"foo\":\"foo-value\"}");
+        Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
+
+        // Another handler has already parsed this file.
+        ParsedJsonFileCache cache = new ParsedJsonFileCache();
+        cache.parse(inMemoryFileHelper, recordJsonFile);
+
+        // Execute
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, cache);
+        assertEquals(result.textValue(), "foo-value");
+
+        // Verify we only read the file once.
+        verify(inMemoryFileHelper, times(1)).getInputStream(recordJsonFile);
+    }
+
     private File makeFileWithContent(String name, String content) {
         File file = inMemoryFileHelper.newFile(tmpDir, name);
         inMemoryFileHelper.writeBytes(file, content.getBytes(Charsets.UTF_8));
@@ -4,6 +4,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
@@ -73,4 +74,23 @@ public class UploadFileHelperTest {
                 TestConstants.MOCK_MD5_HEX_ENCODED);
         assertEquals(metadata.getSSEAlgorithm(), ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
     }
+
+    @Test
+    public void uploadInMemoryFileAsAttachment() throws Exception {
+        MemoryBackedFileHelper fileHelper = new MemoryBackedFileHelper();
+        File file = new File("dummy-dir", FILENAME);
+        fileHelper.putInMemory(file, CONTENT);
+        helper.setFileHelper(fileHelper);
+
+        // Execute.
+        helper.uploadFileAsAttachment(FILENAME, file);
+
+        // Verify. The content is uploaded from memory, since there's nothing on disk.
+        ArgumentCaptor<ObjectMetadata> metadataCaptor = ArgumentCaptor.forClass(ObjectMetadata.class);
+        verify(mockS3Helper).writeBytesToS3(eq(UploadFileHelper.ATTACHMENT_BUCKET), eq(FILENAME), eq(CONTENT),
+                metadataCaptor.capture());
+        verify(mockS3Helper, never()).writeFileToS3(any(), any(), any(), any());
+        assertEquals(metadataCaptor.getValue().getUserMetaDataOf(UploadFileHelper.KEY_CUSTOM_CONTENT_MD5),
+                TestConstants.MOCK_MD5_HEX_ENCODED);
+    }
 }
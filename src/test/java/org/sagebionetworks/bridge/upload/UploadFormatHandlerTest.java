@@ -62,6 +62,7 @@ public class UploadFormatHandlerTest {
         verify(mockV1LegacyHandler).handle(context);
         verifyZeroInteractions(mockV2GenericHandler);
         verifyCommonAttributes(context);
+        assertEquals(context.getUploadFormat(), UploadFormat.V1_LEGACY);
     }
 
     @Test
@@ -80,6 +81,7 @@ public class UploadFormatHandlerTest {
         verify(mockV2GenericHandler).handle(context);
         verifyZeroInteractions(mockV1LegacyHandler);
         verifyCommonAttributes(context);
+        assertEquals(context.getUploadFormat(), UploadFormat.V2_GENERIC);
     }
 
     @Test
@@ -255,17 +255,17 @@ public class UploadHandlersEndToEndTest {
         // mock schema service
         UploadSchemaService mockUploadSchemaService = mock(UploadSchemaService.class);
         if (schema != null) {
-            when(mockUploadSchemaService.getUploadSchemaByIdAndRev(TEST_APP_ID, schema.getSchemaId(),
+            when(mockUploadSchemaService.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, schema.getSchemaId(),
                     schema.getRevision())).thenReturn(schema);
-            when(mockUploadSchemaService.getUploadSchemaByIdAndRevNoThrow(TEST_APP_ID,
+            when(mockUploadSchemaService.getCachedUploadSchemaByIdAndRevNoThrow(TEST_APP_ID,
                     schema.getSchemaId(), schema.getRevision())).thenReturn(schema);
         }
 
         // mock survey service
         SurveyService mockSurveyService = mock(SurveyService.class);
         if (survey != null) {
-            when(mockSurveyService.getSurvey(TEST_APP_ID,
-                    new GuidCreatedOnVersionHolderImpl(survey.getGuid(), survey.getCreatedOn()), false, true))
+            when(mockSurveyService.getCachedSurvey(TEST_APP_ID,
+                    new GuidCreatedOnVersionHolderImpl(survey.getGuid(), survey.getCreatedOn())))
                             .thenReturn(survey);
         }
 
@@ -332,6 +332,8 @@ public class UploadHandlersEndToEndTest {
         taskFactory.setHandlerList(handlerList);
         taskFactory.setUploadDao(mockUploadDao);
         taskFactory.setHealthDataService(mockHealthDataService);
+        taskFactory.setUploadValidationMetrics(new UploadValidationMetrics());
+        taskFactory.setUploadCompletionRegistry(mock(UploadCompletionRegistry.class));
 
         // create task, execute
         UploadValidationTask task = taskFactory.newTask(TEST_APP_ID, upload);
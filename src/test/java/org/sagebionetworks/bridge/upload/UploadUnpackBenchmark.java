@@ -0,0 +1,196 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.notNull;
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.base.Charsets;
+import com.google.common.cache.LoadingCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.crypto.BcCmsEncryptor;
+import org.sagebionetworks.bridge.crypto.CmsEncryptor;
+import org.sagebionetworks.bridge.crypto.PemUtils;
+import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.services.UploadArchiveService;
+
+/**
+ * Compares the file-based download, decrypt, and unzip handlers with the {@link StreamingUnpackHandler}, on a
+ * synthetic encrypted archive of 30 small JSON entries and one 2 MB sensor file. Run with main(), which also prints
+ * the bytes each pipeline writes to the temp dir. The S3 download is simulated by writing the encrypted bytes to
+ * disk (file-based) or reading them from memory (streaming).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("unchecked")
+public class UploadUnpackBenchmark {
+    private static final String UPLOAD_ID = "benchmark-upload";
+
+    private byte[] encryptedArchive;
+    private MemoryBackedFileHelper fileHelper;
+    private DecryptHandler decryptHandler;
+    private UnzipHandler unzipHandler;
+    private StreamingUnpackHandler streamingHandler;
+
+    @Setup
+    public void setup() throws Exception {
+        File certFile = new ClassPathResource("/cms/rsacert.pem").getFile();
+        X509Certificate cert = PemUtils.loadCertificateFromPem(new String(Files.readAllBytes(certFile.toPath())));
+        File privateKeyFile = new ClassPathResource("/cms/rsaprivkey.pem").getFile();
+        PrivateKey privateKey = PemUtils.loadPrivateKeyFromPem(new String(Files.readAllBytes(
+                privateKeyFile.toPath())));
+        LoadingCache<String, CmsEncryptor> mockEncryptorCache = mock(LoadingCache.class);
+        when(mockEncryptorCache.get(notNull())).thenReturn(new BcCmsEncryptor(cert, privateKey));
+
+        UploadArchiveService archiveService = new UploadArchiveService();
+        archiveService.setCmsEncryptorCache(mockEncryptorCache);
+        archiveService.setMaxNumZipEntries(100);
+        archiveService.setMaxZipEntrySize(100000000);
+        encryptedArchive = archiveService.encrypt(TEST_APP_ID, archiveService.zip(createEntries()));
+
+        fileHelper = new MemoryBackedFileHelper();
+
+        decryptHandler = new DecryptHandler();
+        decryptHandler.setFileHelper(fileHelper);
+        decryptHandler.setUploadArchiveService(archiveService);
+
+        unzipHandler = new UnzipHandler();
+        unzipHandler.setFileHelper(fileHelper);
+        unzipHandler.setUploadArchiveService(archiveService);
+
+        AmazonS3 mockS3Client = mock(AmazonS3.class);
+        when(mockS3Client.getObject(TestConstants.UPLOAD_BUCKET, UPLOAD_ID)).thenAnswer(invocation -> {
+            S3Object s3Object = new S3Object();
+            s3Object.setObjectContent(new ByteArrayInputStream(encryptedArchive));
+            return s3Object;
+        });
+
+        streamingHandler = new StreamingUnpackHandler();
+        streamingHandler.setFileHelper(fileHelper);
+        streamingHandler.setS3Client(mockS3Client);
+        streamingHandler.setUploadArchiveService(archiveService);
+        streamingHandler.setSpillThresholdBytes(1000000);
+        streamingHandler.setMemoryBudgetBytes(10000000);
+    }
+
+    @Benchmark
+    public long fileBased() throws Exception {
+        UploadValidationContext context = createContext();
+        try {
+            unpackFileBased(context);
+            return context.getUnzippedDataFileMap().size();
+        } finally {
+            fileHelper.deleteDirRecursively(context.getTempDir());
+        }
+    }
+
+    @Benchmark
+    public long streaming() throws Exception {
+        UploadValidationContext context = createContext();
+        try {
+            streamingHandler.handle(context);
+            return context.getUnzippedDataFileMap().size();
+        } finally {
+            fileHelper.deleteDirRecursively(context.getTempDir());
+        }
+    }
+
+    private void unpackFileBased(UploadValidationContext context) throws Exception {
+        // Stands in for S3DownloadHandler.
+        File dataFile = fileHelper.newFile(context.getTempDir(), UPLOAD_ID + "-encrypted");
+        Files.write(dataFile.toPath(), encryptedArchive);
+        context.setDataFile(dataFile);
+
+        decryptHandler.handle(context);
+        unzipHandler.handle(context);
+    }
+
+    private UploadValidationContext createContext() {
+        Upload upload = Upload.create();
+        upload.setUploadId(UPLOAD_ID);
+        upload.setFilename(UPLOAD_ID + ".zip");
+        upload.setEncrypted(true);
+        upload.setZipped(true);
+
+        UploadValidationContext context = new UploadValidationContext();
+        context.setAppId(TEST_APP_ID);
+        context.setUpload(upload);
+        context.setTempDir(fileHelper.createTempDir());
+        return context;
+    }
+
+    private static Map<String, byte[]> createEntries() {
+        Random random = new Random(42);
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        for (int i = 0; i < 30; i++) {
+            char[] padding = new char[1000];
+            Arrays.fill(padding, 'x');
+            String json = "{\"item\":\"item" + i + "\",\"value\":" + random.nextInt() + ",\"notes\":\"" +
+                    new String(padding) + "\"}";
+            entries.put("item" + i + ".json", json.getBytes(Charsets.UTF_8));
+        }
+        byte[] sensorData = new byte[2000000];
+        random.nextBytes(sensorData);
+        entries.put("accelerometer.bin", sensorData);
+        return entries;
+    }
+
+    private static long bytesOnDisk(File dir) {
+        long total = 0;
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                total += file.isDirectory() ? bytesOnDisk(file) : file.length();
+            }
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws Exception {
+        UploadUnpackBenchmark benchmark = new UploadUnpackBenchmark();
+        benchmark.setup();
+
+        UploadValidationContext fileBasedContext = benchmark.createContext();
+        benchmark.unpackFileBased(fileBasedContext);
+        System.out.println("File-based bytes written to disk: " + bytesOnDisk(fileBasedContext.getTempDir()));
+        benchmark.fileHelper.deleteDirRecursively(fileBasedContext.getTempDir());
+
+        UploadValidationContext streamingContext = benchmark.createContext();
+        benchmark.streamingHandler.handle(streamingContext);
+        System.out.println("Streaming bytes written to disk: " + bytesOnDisk(streamingContext.getTempDir()));
+        benchmark.fileHelper.deleteDirRecursively(streamingContext.getTempDir());
+
+        new Runner(new OptionsBuilder().include(UploadUnpackBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -65,6 +65,7 @@ public class UploadValidationContextTest {
         original.setInfoJsonNode(infoJsonNode);
         original.setHealthDataRecord(record);
         original.setRecordId("test-record");
+        original.setUploadFormat(UploadFormat.V2_GENERIC);
 
         // copy and validate
         UploadValidationContext copy = original.shallowCopy();
@@ -79,6 +80,8 @@ public class UploadValidationContextTest {
         assertSame(copy.getInfoJsonNode(), infoJsonNode);
         assertSame(copy.getHealthDataRecord(), record);
         assertEquals(copy.getRecordId(), "test-record");
+        assertEquals(copy.getUploadFormat(), UploadFormat.V2_GENERIC);
+        assertSame(copy.getParsedJsonFileCache(), original.getParsedJsonFileCache());
 
         assertEquals(copy.getMessageList().size(), 1);
         assertEquals(copy.getMessageList().get(0), "common message");
@@ -0,0 +1,182 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.sagebionetworks.bridge.upload.UploadValidationExecutor.CONFIG_KEY_MAX_ACTIVE_PER_APP;
+import static org.sagebionetworks.bridge.upload.UploadValidationExecutor.CONFIG_KEY_QUEUE_CAPACITY;
+import static org.sagebionetworks.bridge.upload.UploadValidationExecutor.CONFIG_KEY_SHUTDOWN_TIMEOUT_MILLIS;
+import static org.sagebionetworks.bridge.upload.UploadValidationExecutor.CONFIG_KEY_THREAD_COUNT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+public class UploadValidationExecutorTest extends Mockito {
+    private static final String APP_A = "app-a";
+    private static final String APP_B = "app-b";
+
+    @Mock
+    BridgeConfig mockConfig;
+
+    UploadValidationExecutor executor;
+    List<String> ran;
+    CountDownLatch release;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        MockitoAnnotations.initMocks(this);
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_THREAD_COUNT)).thenReturn(1);
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_QUEUE_CAPACITY)).thenReturn(10);
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_MAX_ACTIVE_PER_APP)).thenReturn(10);
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_SHUTDOWN_TIMEOUT_MILLIS)).thenReturn(10000);
+
+        executor = new UploadValidationExecutor();
+        ran = new CopyOnWriteArrayList<>();
+        release = new CountDownLatch(1);
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        release.countDown();
+        executor.stop();
+    }
+
+    @Test
+    public void servesAppsRoundRobin() throws Exception {
+        executor.setBridgeConfig(mockConfig);
+        executor.start();
+
+        // The first task holds the only worker while the rest are queued.
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        executor.submit(APP_A, () -> {
+            firstStarted.countDown();
+            awaitRelease();
+            ran.add("a1");
+        });
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        executor.submit(APP_A, recordingTask("a2"));
+        executor.submit(APP_A, recordingTask("a3"));
+        executor.submit(APP_B, recordingTask("b1"));
+        assertEquals(executor.getQueueDepthByApp(), ImmutableMap.of(APP_A, 2, APP_B, 1));
+
+        release.countDown();
+        executor.stop();
+
+        // B's upload doesn't wait behind all of A's.
+        assertEquals(ran, ImmutableList.of("a1", "a2", "b1", "a3"));
+    }
+
+    @Test
+    public void limitsActiveTasksPerApp() throws Exception {
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_THREAD_COUNT)).thenReturn(2);
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_MAX_ACTIVE_PER_APP)).thenReturn(1);
+        executor.setBridgeConfig(mockConfig);
+        executor.start();
+
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        executor.submit(APP_A, () -> {
+            firstStarted.countDown();
+            awaitRelease();
+            ran.add("a1");
+        });
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        executor.submit(APP_A, recordingTask("a2"));
+        CountDownLatch bDone = new CountDownLatch(1);
+        executor.submit(APP_B, () -> {
+            ran.add("b1");
+            bDone.countDown();
+        });
+
+        // The second worker is free, but app A is at its limit, so it runs B's task and leaves A's queued.
+        assertTrue(bDone.await(5, TimeUnit.SECONDS));
+        assertEquals(ran, ImmutableList.of("b1"));
+        assertEquals(executor.getQueueDepthByApp(), ImmutableMap.of(APP_A, 1));
+
+        release.countDown();
+        executor.stop();
+        assertEquals(ran, ImmutableList.of("b1", "a1", "a2"));
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFull() throws Exception {
+        when(mockConfig.getPropertyAsInt(CONFIG_KEY_QUEUE_CAPACITY)).thenReturn(2);
+        executor.setBridgeConfig(mockConfig);
+        executor.start();
+
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        assertTrue(executor.submit(APP_A, () -> {
+            firstStarted.countDown();
+            awaitRelease();
+        }));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.submit(APP_A, recordingTask("a2")));
+        assertTrue(executor.submit(APP_B, recordingTask("b1")));
+        assertFalse(executor.submit(APP_B, recordingTask("b2")));
+
+        Map<String, Long> stats = executor.getStats();
+        assertEquals(stats.get("queueDepth").longValue(), 2L);
+        assertEquals(stats.get("activeTasks").longValue(), 1L);
+        assertEquals(stats.get("submitted").longValue(), 3L);
+        assertEquals(stats.get("rejected").longValue(), 1L);
+
+        release.countDown();
+        executor.stop();
+        assertEquals(ran, ImmutableList.of("a2", "b1"));
+
+        stats = executor.getStats();
+        assertEquals(stats.get("queueDepth").longValue(), 0L);
+        assertEquals(stats.get("activeTasks").longValue(), 0L);
+        assertEquals(stats.get("started").longValue(), 3L);
+        assertEquals(stats.get("completed").longValue(), 3L);
+    }
+
+    @Test
+    public void rejectsAfterStop() {
+        executor.setBridgeConfig(mockConfig);
+        executor.start();
+        executor.stop();
+
+        assertFalse(executor.submit(APP_A, recordingTask("a1")));
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test
+    public void taskExceptionDoesNotKillWorker() {
+        executor.setBridgeConfig(mockConfig);
+        executor.start();
+
+        executor.submit(APP_A, () -> {
+            throw new RuntimeException("test");
+        });
+        executor.submit(APP_A, recordingTask("a2"));
+        executor.stop();
+
+        assertEquals(ran, ImmutableList.of("a2"));
+    }
+
+    private Runnable recordingTask(String name) {
+        return () -> ran.add(name);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
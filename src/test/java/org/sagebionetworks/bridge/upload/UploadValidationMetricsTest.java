@@ -0,0 +1,78 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+public class UploadValidationMetricsTest {
+    private static final String APP_ID = "test-app";
+
+    @Test
+    public void recordsByHandlerAppAndFormat() {
+        UploadValidationMetrics metrics = new UploadValidationMetrics();
+        metrics.record("UnzipHandler", APP_ID, null, 10L, 1000L, false);
+        metrics.record("UnzipHandler", APP_ID, null, 30L, 3000L, true);
+        metrics.record("UnzipHandler", "other-app", null, 10L, 1000L, false);
+        metrics.record("UploadFormatHandler", APP_ID, UploadFormat.V1_LEGACY, 500L, 1000L, false);
+
+        Map<String, Map<String, Long>> stats = metrics.getStats();
+        assertEquals(stats.size(), 3);
+        assertTrue(stats.containsKey("UnzipHandler app=other-app format=unknown"));
+        assertTrue(stats.containsKey("UploadFormatHandler app=test-app format=v1_legacy"));
+
+        Map<String, Long> unzipStats = stats.get("UnzipHandler app=test-app format=unknown");
+        assertEquals(unzipStats.get("count").longValue(), 2L);
+        assertEquals(unzipStats.get("failures").longValue(), 1L);
+        assertEquals(unzipStats.get("bytes").longValue(), 4000L);
+        assertEquals(unzipStats.get("totalMillis").longValue(), 40L);
+        assertEquals(unzipStats.get("maxMillis").longValue(), 30L);
+        assertEquals(unzipStats.get("le_10").longValue(), 1L);
+        assertEquals(unzipStats.get("le_50").longValue(), 1L);
+        assertEquals(unzipStats.get("le_inf").longValue(), 0L);
+    }
+
+    @Test
+    public void percentiles() {
+        UploadValidationMetrics metrics = new UploadValidationMetrics();
+        // 98 fast runs, and 2 slow ones.
+        for (int i = 0; i < 98; i++) {
+            metrics.record("UnzipHandler", APP_ID, null, 3L, 0L, false);
+        }
+        metrics.record("UnzipHandler", APP_ID, null, 1500L, 0L, false);
+        metrics.record("UnzipHandler", APP_ID, null, 1700L, 0L, false);
+
+        Map<String, Long> stats = metrics.getStats().get("UnzipHandler app=test-app format=unknown");
+        assertEquals(stats.get("p50Millis").longValue(), 5L);
+        assertEquals(stats.get("p90Millis").longValue(), 5L);
+        // Capped at the slowest run, rather than the 2000 ms bucket bound.
+        assertEquals(stats.get("p99Millis").longValue(), 1700L);
+    }
+
+    @Test
+    public void slowerThanLastBucket() {
+        UploadValidationMetrics metrics = new UploadValidationMetrics();
+        metrics.record("UnzipHandler", APP_ID, null, 200000L, 0L, false);
+
+        Map<String, Long> stats = metrics.getStats().get("UnzipHandler app=test-app format=unknown");
+        assertEquals(stats.get("le_inf").longValue(), 1L);
+        assertEquals(stats.get("p99Millis").longValue(), 200000L);
+    }
+
+    @Test
+    public void bucketIndex() {
+        assertEquals(UploadValidationMetrics.bucketIndex(0L), 0);
+        assertEquals(UploadValidationMetrics.bucketIndex(1L), 0);
+        assertEquals(UploadValidationMetrics.bucketIndex(2L), 1);
+        assertEquals(UploadValidationMetrics.bucketIndex(3L), 2);
+        assertEquals(UploadValidationMetrics.bucketIndex(100000L), 15);
+        assertEquals(UploadValidationMetrics.bucketIndex(100001L), 16);
+    }
+
+    @Test
+    public void emptyStats() {
+        assertTrue(new UploadValidationMetrics().getStats().isEmpty());
+    }
+}
@@ -26,6 +26,8 @@ public class UploadValidationTaskFactoryTest {
         UploadDao dao = mock(UploadDao.class);
         FileHelper fileHelper = new FileHelper();
         HealthDataService healthDataService = new HealthDataService();
+        UploadValidationMetrics uploadValidationMetrics = new UploadValidationMetrics();
+        UploadCompletionRegistry uploadCompletionRegistry = new UploadCompletionRegistry();
 
         // set up task factory
         UploadValidationTaskFactory taskFactory = new UploadValidationTaskFactory();
@@ -33,6 +35,8 @@ public class UploadValidationTaskFactoryTest {
         taskFactory.setHandlerList(handlerList);
         taskFactory.setUploadDao(dao);
         taskFactory.setHealthDataService(healthDataService);
+        taskFactory.setUploadValidationMetrics(uploadValidationMetrics);
+        taskFactory.setUploadCompletionRegistry(uploadCompletionRegistry);
 
         // inputs
         App app = TestUtils.getValidApp(UploadValidationTaskFactoryTest.class);
@@ -49,5 +53,7 @@ public class UploadValidationTaskFactoryTest {
         assertSame(task.getHandlerList(), handlerList);
         assertSame(task.getUploadDao(), dao);
         assertSame(task.getHealthDataService(), healthDataService);
+        assertSame(task.getUploadValidationMetrics(), uploadValidationMetrics);
+        assertSame(task.getUploadCompletionRegistry(), uploadCompletionRegistry);
     }
 }
@@ -17,6 +17,7 @@ import javax.annotation.Nonnull;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
@@ -57,6 +58,8 @@ public class UploadValidationTaskTest {
     private UploadValidationContext ctx;
     private InMemoryFileHelper inMemoryFileHelper;
     private UploadDao mockDao;
+    private UploadValidationMetrics uploadValidationMetrics;
+    private UploadCompletionRegistry mockCompletionRegistry;
     private UploadValidationTask task;
     private Upload upload;
 
@@ -80,6 +83,8 @@ public class UploadValidationTaskTest {
         // Set up other pre-reqs
         inMemoryFileHelper = new InMemoryFileHelper();
         mockDao = mock(UploadDao.class);
+        uploadValidationMetrics = new UploadValidationMetrics();
+        mockCompletionRegistry = mock(UploadCompletionRegistry.class);
 
         // Set up task. Spy so we can verify some calls.
         task = spy(new UploadValidationTask(ctx));
@@ -87,6 +92,8 @@ public class UploadValidationTaskTest {
         task.setHandlerList(handlerList);
         task.setHealthDataService(healthDataService);
         task.setUploadDao(mockDao);
+        task.setUploadValidationMetrics(uploadValidationMetrics);
+        task.setUploadCompletionRegistry(mockCompletionRegistry);
     }
 
     @Test
@@ -103,6 +110,27 @@ public class UploadValidationTaskTest {
         assertEquals(messageList.get(0), "foo was here");
         assertEquals(messageList.get(1), "bar was here");
         assertEquals(messageList.get(2), "kilroy was here");
+
+        // Each handler is recorded once, with no failures. The upload had no info.json, so the format is unknown.
+        Map<String, Map<String, Long>> stats = uploadValidationMetrics.getStats();
+        Map<String, Long> messageHandlerStats = stats.get("MessageHandler app=" + ctx.getAppId() + " format=unknown");
+        assertEquals(messageHandlerStats.get("count").longValue(), 3L);
+        assertEquals(messageHandlerStats.get("failures").longValue(), 0L);
+        Map<String, Long> recordIdHandlerStats = stats.get("RecordIdHandler app=" + ctx.getAppId() +
+                " format=unknown");
+        assertEquals(recordIdHandlerStats.get("count").longValue(), 1L);
+    }
+
+    @Test
+    public void metricsTaggedWithUploadFormat() {
+        UploadValidationHandler formatHandler = context -> context.setUploadFormat(UploadFormat.V2_GENERIC);
+        testHelper(ImmutableList.of(new MessageHandler("foo was here"), formatHandler,
+                new RecordIdHandler(RECORD_ID)), UploadStatus.SUCCEEDED, RECORD_ID);
+
+        // Handlers that ran before the format was known are still tagged with it.
+        Map<String, Map<String, Long>> stats = uploadValidationMetrics.getStats();
+        assertTrue(stats.containsKey("MessageHandler app=" + ctx.getAppId() + " format=v2_generic"));
+        assertTrue(stats.containsKey("RecordIdHandler app=" + ctx.getAppId() + " format=v2_generic"));
     }
 
     @Test
@@ -146,6 +174,15 @@ public class UploadValidationTaskTest {
         assertEquals(messageList.size(), 2);
         assertEquals(messageList.get(0), "foo succeeded");
         assertFalse(Strings.isNullOrEmpty(messageList.get(1)));
+
+        // The failing handler is recorded as a failure. Handlers after it never ran.
+        Map<String, Map<String, Long>> stats = uploadValidationMetrics.getStats();
+        assertEquals(stats.get("MessageHandler app=" + ctx.getAppId() + " format=unknown").get("failures")
+                .longValue(), 0L);
+        String barHandlerName = barHandler.getClass().getSimpleName();
+        assertEquals(stats.get(barHandlerName + " app=" + ctx.getAppId() + " format=unknown").get("failures")
+                .longValue(), 1L);
+        assertFalse(stats.containsKey("RecordIdHandler app=" + ctx.getAppId() + " format=unknown"));
     }
 
     // helper test method, encapsulating core setup and validation
@@ -162,6 +199,9 @@ public class UploadValidationTaskTest {
         // validate the upload dao write validation status call
         verify(mockDao).writeValidationStatus(upload, expectedStatus, ctx.getMessageList(), expectedRecordId);
 
+        // validate that anyone waiting on the upload is signalled
+        verify(mockCompletionRegistry).complete("test-upload", expectedStatus);
+
         // Validate that we clean up the temp directory.
         assertTrue(inMemoryFileHelper.isEmpty());
     }
@@ -184,6 +224,9 @@ public class UploadValidationTaskTest {
 
         // verify log helper was called
         verify(task).logWriteValidationStatusException(UploadStatus.SUCCEEDED, toThrow);
+
+        // waiters are still signalled, so they re-read the status instead of waiting out their timeout
+        verify(mockCompletionRegistry).complete("test-upload", UploadStatus.SUCCEEDED);
     }
 
     // Test handler that makes its presence known only by writing a message to the validation context.
@@ -55,6 +55,18 @@ public class AccountSummarySearchValidatorTest {
         assertValidatorMessage(validator, builder.build(), "offsetBy", "cannot be less than 0");
     }
     
+    @Test
+    public void offsetKeyIsValid() {
+        builder.withOffsetKey("offsetKey");
+        Validate.entityThrowingException(validator, builder.build());
+    }
+    
+    @Test
+    public void offsetKeyCannotBeUsedWithOffsetBy() {
+        builder.withOffsetBy(10).withOffsetKey("offsetKey");
+        assertValidatorMessage(validator, builder.build(), "offsetKey", "cannot be used with offsetBy");
+    }
+    
     @Test
     public void pageSizeTooSmall() {
         builder.withPageSize(BridgeConstants.API_MINIMUM_PAGE_SIZE-1);